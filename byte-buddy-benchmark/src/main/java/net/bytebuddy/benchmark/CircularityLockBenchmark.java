@@ -0,0 +1,214 @@
+package net.bytebuddy.benchmark;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A benchmark that compares the circularity locks of an {@link AgentBuilder} which are acquired for any class that is loaded while
+ * an agent is installed. The thread-local lock creates an entry in the thread-local map of any thread that loads a class while the
+ * lock based on thread identities records the threads that currently hold the lock in a shared table.
+ * </p>
+ * <p>
+ * Since a benchmark method is always executed on a platform thread, the benchmarks for fresh threads start a number of threads that
+ * each acquire and release the lock once, similar to an application that loads classes from many short-lived threads. The kind of
+ * threads is determined by the {@code threadKind} parameter of the {@link FreshThreads} state which only applies to these benchmarks.
+ * By default, only platform threads are started. Virtual threads require a Java 21 runtime or newer and can be measured explicitly by
+ * running the benchmark with {@code -p threadKind=VIRTUAL}. The baseline for fresh threads uses an inactive lock and measures the cost
+ * of creating and joining the threads.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CircularityLockBenchmark {
+
+    /**
+     * A circularity lock that is based on a thread local.
+     */
+    private AgentBuilder.CircularityLock threadLocalLock;
+
+    /**
+     * A circularity lock that is based on thread identities.
+     */
+    private AgentBuilder.CircularityLock threadIdentityLock;
+
+    /**
+     * A circularity lock that is never held.
+     */
+    private AgentBuilder.CircularityLock inactiveLock;
+
+    /**
+     * Sets up this benchmark.
+     */
+    @Setup
+    public void setup() {
+        threadLocalLock = new AgentBuilder.CircularityLock.Default();
+        threadIdentityLock = new AgentBuilder.CircularityLock.ForThreadIdentity();
+        inactiveLock = AgentBuilder.CircularityLock.Inactive.INSTANCE;
+    }
+
+    /**
+     * Acquires and releases the thread-local circularity lock on the benchmark thread.
+     *
+     * @return {@code true} if the lock was acquired, in order to avoid JIT removal.
+     */
+    @Benchmark
+    public boolean benchmarkThreadLocal() {
+        return acquireAndRelease(threadLocalLock);
+    }
+
+    /**
+     * Acquires and releases the circularity lock that is based on thread identities on the benchmark thread.
+     *
+     * @return {@code true} if the lock was acquired, in order to avoid JIT removal.
+     */
+    @Benchmark
+    public boolean benchmarkThreadIdentity() {
+        return acquireAndRelease(threadIdentityLock);
+    }
+
+    /**
+     * Starts fresh threads that each acquire and release an inactive lock as a baseline for the thread creation overhead.
+     *
+     * @param freshThreads The configuration of the fresh threads.
+     * @return The number of acquisitions, in order to avoid JIT removal.
+     * @throws InterruptedException If the benchmark thread is interrupted.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int baselineFreshThreads(FreshThreads freshThreads) throws InterruptedException {
+        return freshThreads.run(inactiveLock);
+    }
+
+    /**
+     * Starts fresh threads that each acquire and release the thread-local circularity lock.
+     *
+     * @param freshThreads The configuration of the fresh threads.
+     * @return The number of acquisitions, in order to avoid JIT removal.
+     * @throws InterruptedException If the benchmark thread is interrupted.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int benchmarkThreadLocalFreshThreads(FreshThreads freshThreads) throws InterruptedException {
+        return freshThreads.run(threadLocalLock);
+    }
+
+    /**
+     * Starts fresh threads that each acquire and release the circularity lock that is based on thread identities.
+     *
+     * @param freshThreads The configuration of the fresh threads.
+     * @return The number of acquisitions, in order to avoid JIT removal.
+     * @throws InterruptedException If the benchmark thread is interrupted.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int benchmarkThreadIdentityFreshThreads(FreshThreads freshThreads) throws InterruptedException {
+        return freshThreads.run(threadIdentityLock);
+    }
+
+    /**
+     * Acquires and releases a circularity lock.
+     *
+     * @param circularityLock The circularity lock to use.
+     * @return {@code true} if the lock was acquired.
+     */
+    private static boolean acquireAndRelease(AgentBuilder.CircularityLock circularityLock) {
+        if (circularityLock.acquire()) {
+            circularityLock.release();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * The configuration of the fresh thread benchmarks. The single-threaded benchmarks do not depend on this state such that they
+     * are not repeated for every kind of thread.
+     */
+    @State(Scope.Benchmark)
+    public static class FreshThreads {
+
+        /**
+         * Indicates that the threads of the fresh thread benchmarks are platform threads.
+         */
+        public static final String PLATFORM = "PLATFORM";
+
+        /**
+         * Indicates that the threads of the fresh thread benchmarks are virtual threads.
+         */
+        public static final String VIRTUAL = "VIRTUAL";
+
+        /**
+         * The kind of threads that are started by the fresh thread benchmarks.
+         */
+        @Param({PLATFORM})
+        public String threadKind = PLATFORM;
+
+        /**
+         * The number of threads that are started by a fresh thread benchmark.
+         */
+        @Param({"64"})
+        public int threadCount = 64;
+
+        /**
+         * The thread factory to use for starting threads.
+         */
+        private ThreadFactory threadFactory;
+
+        /**
+         * Sets up the thread factory.
+         *
+         * @throws Exception If the thread factory cannot be created.
+         */
+        @Setup
+        public void setup() throws Exception {
+            if (threadKind.equals(PLATFORM)) {
+                threadFactory = Executors.defaultThreadFactory();
+            } else if (threadKind.equals(VIRTUAL)) {
+                Object builder;
+                try {
+                    builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                } catch (NoSuchMethodException exception) {
+                    throw new IllegalStateException("Virtual threads require a Java 21 runtime, run with -p threadKind=" + PLATFORM + " instead", exception);
+                }
+                threadFactory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            } else {
+                throw new IllegalArgumentException("Unknown thread kind: " + threadKind);
+            }
+        }
+
+        /**
+         * Starts fresh threads that each acquire and release a circularity lock once and awaits their completion.
+         *
+         * @param circularityLock The circularity lock to use.
+         * @return The number of successful acquisitions.
+         * @throws InterruptedException If the benchmark thread is interrupted.
+         */
+        public int run(final AgentBuilder.CircularityLock circularityLock) throws InterruptedException {
+            final AtomicInteger acquisitions = new AtomicInteger();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    if (acquireAndRelease(circularityLock)) {
+                        acquisitions.incrementAndGet();
+                    }
+                }
+            };
+            Thread[] thread = new Thread[threadCount];
+            for (int index = 0; index < threadCount; index++) {
+                thread[index] = threadFactory.newThread(task);
+                thread[index].start();
+            }
+            for (int index = 0; index < threadCount; index++) {
+                thread[index].join();
+            }
+            return acquisitions.get();
+        }
+    }
+}
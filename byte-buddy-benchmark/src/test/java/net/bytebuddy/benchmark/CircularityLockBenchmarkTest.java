@@ -0,0 +1,48 @@
+package net.bytebuddy.benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CircularityLockBenchmarkTest {
+
+    private CircularityLockBenchmark circularityLockBenchmark;
+
+    private CircularityLockBenchmark.FreshThreads freshThreads;
+
+    @Before
+    public void setUp() throws Exception {
+        circularityLockBenchmark = new CircularityLockBenchmark();
+        circularityLockBenchmark.setup();
+        freshThreads = new CircularityLockBenchmark.FreshThreads();
+        freshThreads.setup();
+    }
+
+    @Test
+    public void testThreadLocal() throws Exception {
+        assertThat(circularityLockBenchmark.benchmarkThreadLocal(), is(true));
+        assertThat(circularityLockBenchmark.benchmarkThreadLocal(), is(true));
+    }
+
+    @Test
+    public void testThreadIdentity() throws Exception {
+        assertThat(circularityLockBenchmark.benchmarkThreadIdentity(), is(true));
+        assertThat(circularityLockBenchmark.benchmarkThreadIdentity(), is(true));
+    }
+
+    @Test
+    public void testFreshThreads() throws Exception {
+        assertThat(freshThreads.threadKind, is(CircularityLockBenchmark.FreshThreads.PLATFORM));
+        assertThat(circularityLockBenchmark.baselineFreshThreads(freshThreads), is(freshThreads.threadCount));
+        assertThat(circularityLockBenchmark.benchmarkThreadLocalFreshThreads(freshThreads), is(freshThreads.threadCount));
+        assertThat(circularityLockBenchmark.benchmarkThreadIdentityFreshThreads(freshThreads), is(freshThreads.threadCount));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownThreadKind() throws Exception {
+        freshThreads.threadKind = "foo";
+        freshThreads.setup();
+    }
+}
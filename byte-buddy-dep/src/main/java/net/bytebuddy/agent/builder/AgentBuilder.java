@@ -41,11 +41,13 @@ import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
 import net.bytebuddy.implementation.bytecode.member.MethodReturn;
 import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
 import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.IndexKey;
 import net.bytebuddy.matcher.LatentMatcher;
 import net.bytebuddy.pool.TypePool;
 import net.bytebuddy.utility.JavaConstant;
 import net.bytebuddy.utility.JavaModule;
 import net.bytebuddy.utility.JavaType;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -56,17 +58,44 @@ import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
 import java.lang.instrument.UnmodifiableClassException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.security.AccessControlContext;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import static net.bytebuddy.matcher.ElementMatchers.*;
 
@@ -123,7 +152,10 @@ public interface AgentBuilder {
     AgentBuilder with(CircularityLock circularityLock);
 
     /**
-     * Defines the use of the given type locator for locating a {@link TypeDescription} for an instrumented type.
+     * Defines the use of the given type locator for locating a {@link TypeDescription} for an instrumented type. If a
+     * {@link PoolStrategy.WithTypePoolCache.Weak} type locator is set while the {@link LocationStrategy.ForClassLoader#STRONG}
+     * location strategy is active, the location strategy is replaced by {@link LocationStrategy.ForClassLoader#WEAK} such that
+     * cached type descriptions do not prevent the garbage collection of their class loader.
      *
      * @param poolStrategy The type locator to use.
      * @return A new instance of this agent builder which uses the given type locator for looking up class files.
@@ -224,6 +256,49 @@ public interface AgentBuilder {
      */
     AgentBuilder with(FallbackStrategy fallbackStrategy);
 
+    /**
+     * Registers a prefilter that is applied to a type's internal name and class loader before any class file is parsed. Any prefilter
+     * is applied in addition to previously registered prefilters. A type that is ignored by a prefilter is not considered for any
+     * transformation and no listener is notified about it.
+     *
+     * @param prefilter The prefilter to apply.
+     * @return A new agent builder that applies the supplied prefilter.
+     */
+    AgentBuilder withPrefilter(Prefilter prefilter);
+
+    /**
+     * Registers metrics that are notified about the duration of the phases of any transformation and about the size of the transformed
+     * class files. Any metrics are notified in addition to previously registered metrics.
+     *
+     * @param metrics The metrics to notify.
+     * @return A new agent builder that notifies the supplied metrics.
+     */
+    AgentBuilder with(Metrics metrics);
+
+    /**
+     * Registers a transformation cache that is consulted before a type is transformed upon its first loading. The type is still
+     * described and checked against the ignore matcher. If the cache then contains the result of a previous transformation of an identical
+     * class file, this result is returned without matching or transforming the type. The listener is still notified about the applied
+     * transformation or the ignored type where a transformed type is represented without auxiliary types. Any previously registered
+     * transformation cache is replaced.
+     *
+     * @param transformationCache The transformation cache to use.
+     * @return A new agent builder that uses the supplied transformation cache.
+     */
+    AgentBuilder withTransformationCache(TransformationCache transformationCache);
+
+    /**
+     * Registers a deduplication strategy that allows reusing the result of a transformation for a type that is loaded by several class
+     * loaders from an identical class file. A type is still matched for each class loader but its transformation is only applied once for
+     * any combination of matched transformers and identical class files of the type and all its super types as they are located for the
+     * type's class loader. The listener is still notified about a transformation that is reused where the reused type is represented
+     * without auxiliary types.
+     *
+     * @param deduplicationStrategy The deduplication strategy to use.
+     * @return A new agent builder that uses the supplied deduplication strategy.
+     */
+    AgentBuilder with(DeduplicationStrategy deduplicationStrategy);
+
     /**
      * Enables class injection of auxiliary classes into the bootstrap class loader.
      *
@@ -769,6 +844,37 @@ public interface AgentBuilder {
          */
         RedefinitionListenable with(RedefinitionStrategy.Listener redefinitionListener);
 
+        /**
+         * A discovery strategy determines how loaded types are described and matched when the agent is installed to decide if they
+         * should be redefined. Using a {@link RedefinitionStrategy.DiscoveryStrategy.Parallel} discovery strategy, types are discovered
+         * in parallel. The discovered types are still redefined in batches of the configured {@link RedefinitionStrategy.BatchAllocator}.
+         *
+         * @param redefinitionDiscoveryStrategy The discovery strategy to use.
+         * @return A new instance of this agent builder which makes use of the specified discovery strategy.
+         */
+        RedefinitionListenable with(RedefinitionStrategy.DiscoveryStrategy redefinitionDiscoveryStrategy);
+
+        /**
+         * A change detection determines if a loaded type is excluded from a redefinition when the agent is installed because its
+         * redefinition would not change the type. This avoids a needless deoptimization of compiled code that depends on such types.
+         * By default, all discovered types are redefined.
+         *
+         * @param redefinitionChangeDetection The change detection to use.
+         * @return A new instance of this agent builder which makes use of the specified change detection.
+         */
+        RedefinitionListenable with(RedefinitionStrategy.ChangeDetection redefinitionChangeDetection);
+
+        /**
+         * A resubmission strategy determines if types whose transformation failed are resubmitted for a transformation at a later point in
+         * time. Resubmitted types are redefined on the thread of the strategy's {@link RedefinitionStrategy.ResubmissionScheduler} by this
+         * agent's redefinition strategy and in batches of its {@link RedefinitionStrategy.BatchAllocator}. By default, failed types are not
+         * resubmitted.
+         *
+         * @param redefinitionResubmissionStrategy The resubmission strategy to use.
+         * @return A new instance of this agent builder which makes use of the specified resubmission strategy.
+         */
+        RedefinitionListenable withResubmission(RedefinitionStrategy.ResubmissionStrategy redefinitionResubmissionStrategy);
+
         /**
          * An agent builder configuration that allows the configuration of a batching strategy.
          */
@@ -1325,2485 +1431,8995 @@ public interface AgentBuilder {
         }
 
         /**
-         * A listener that adds read-edges to any module of an instrumented class upon its transformation.
+         * <p>
+         * A listener that hands any event to a bounded, lock-free ring buffer from which the events are dispatched to a delegate listener
+         * by a daemon thread. This way, a slow delegate listener, for example a listener that writes to a log, does not add latency to
+         * class loading. Besides a record of each event, no objects are allocated when an event is published.
+         * </p>
+         * <p>
+         * If the ring buffer is full, the listener's {@link OverflowPolicy} decides if an event is dropped or if the publishing thread
+         * waits for the buffer to accept the event. Events that are published by the dispatching thread itself, for example because the
+         * delegate listener loads a class, are dispatched directly as waiting for the buffer could never succeed.
+         * </p>
+         * <p>
+         * <b>Important</b>: The delegate listener is invoked from a different thread than the class loading thread, after the transformation
+         * completed. Any event argument must therefore be safe to use from another thread, at a later time.
+         * </p>
+         * <p>
+         * <b>Note</b>: The dispatching thread is started when the first event is published. This listener is owned by its creator who is
+         * responsible for {@link Asynchronous#close() closing} it, for example after resetting all agents that use it. Resetting a
+         * {@link ResettableClassFileTransformer} does not close its listeners as a listener can be shared by several agents.
+         * </p>
          */
-        class ModuleReadEdgeCompleting extends Listener.Adapter {
+        class Asynchronous implements Listener {
 
             /**
-             * The instrumentation instance used for adding read edges.
+             * The default capacity of the ring buffer.
              */
-            private final Instrumentation instrumentation;
+            public static final int DEFAULT_CAPACITY = 1024;
 
             /**
-             * {@code true} if the listener should also add a read-edge from the supplied modules to the instrumented type's module.
+             * The maximal time in nanoseconds the dispatching thread is parked before checking the ring buffer for new events.
              */
-            private final boolean addTargetEdge;
+            private static final long DISPATCHER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
 
             /**
-             * The modules to add as a read edge to any transformed class's module.
+             * The time in nanoseconds a publishing thread is parked before reattempting to publish an event to a full ring buffer.
              */
-            private final Set<? extends JavaModule> modules;
+            private static final long PUBLISHER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
             /**
-             * Creates a new module read-edge completing listener.
+             * The delegate listener.
+             */
+            private final Listener delegate;
+
+            /**
+             * The overflow policy to apply if the ring buffer is full.
+             */
+            private final OverflowPolicy overflowPolicy;
+
+            /**
+             * The events of the ring buffer.
+             */
+            private final AtomicReferenceArray<Event> events;
+
+            /**
+             * The sequence numbers of the ring buffer's slots. A slot with index {@code i} can be written by a publisher at position
+             * {@code p} if its sequence number equals {@code p} and it can be read at position {@code p} if its sequence number equals
+             * {@code p + 1}.
+             */
+            private final AtomicLongArray sequences;
+
+            /**
+             * A mask to apply to a position to resolve the index of its slot.
+             */
+            private final int mask;
+
+            /**
+             * The next position to publish an event to.
+             */
+            private final AtomicLong tail;
+
+            /**
+             * The number of events that overflowed the ring buffer.
+             */
+            private final AtomicLong overflowed;
+
+            /**
+             * The number of events that were dropped.
+             */
+            private final AtomicLong dropped;
+
+            /**
+             * The thread that dispatches the events to the delegate listener or {@code null} if no event was published yet.
+             */
+            private final AtomicReference<Thread> thread;
+
+            /**
+             * The next position to read an event from which is only accessed by the dispatching thread.
+             */
+            private long head;
+
+            /**
+             * {@code true} if the dispatching thread is parked or about to park.
+             */
+            private volatile boolean parked;
+
+            /**
+             * {@code true} if this listener was closed.
+             */
+            private volatile boolean closed;
+
+            /**
+             * Creates a new asynchronous listener with a ring buffer of the default capacity that drops any event if the buffer is full.
              *
-             * @param instrumentation The instrumentation instance used for adding read edges.
-             * @param addTargetEdge   {@code true} if the listener should also add a read-edge from the supplied modules
-             *                        to the instrumented type's module.
-             * @param modules         The modules to add as a read edge to any transformed class's module.
+             * @param delegate The delegate listener.
              */
-            public ModuleReadEdgeCompleting(Instrumentation instrumentation, boolean addTargetEdge, Set<? extends JavaModule> modules) {
-                this.instrumentation = instrumentation;
-                this.addTargetEdge = addTargetEdge;
-                this.modules = modules;
+            public Asynchronous(Listener delegate) {
+                this(delegate, DEFAULT_CAPACITY, OverflowPolicy.Default.DROP);
             }
 
             /**
-             * Resolves a listener that adds module edges from and to the instrumented type's module.
+             * Creates a new asynchronous listener. The dispatching thread is started when the first event is published.
              *
-             * @param instrumentation The instrumentation instance used for adding read edges.
-             * @param addTargetEdge   {@code true} if the listener should also add a read-edge from the supplied
-             *                        modules to the instrumented type's module.
-             * @param type            The types for which to extract the modules.
-             * @return An appropriate listener.
+             * @param delegate       The delegate listener.
+             * @param capacity       The minimal capacity of the ring buffer which is rounded up to a power of two of at least two.
+             * @param overflowPolicy The overflow policy to apply if the ring buffer is full.
              */
-            protected static Listener of(Instrumentation instrumentation, boolean addTargetEdge, Class<?>... type) {
-                Set<JavaModule> modules = new HashSet<JavaModule>();
-                for (Class<?> aType : type) {
-                    JavaModule module = JavaModule.ofType(aType);
-                    if (module.isNamed()) {
-                        modules.add(module);
-                    }
+            public Asynchronous(Listener delegate, int capacity, OverflowPolicy overflowPolicy) {
+                if (capacity < 1 || capacity > 1 << 30) {
+                    throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
                 }
-                return modules.isEmpty()
-                        ? Listener.NoOp.INSTANCE
-                        : new Listener.ModuleReadEdgeCompleting(instrumentation, addTargetEdge, modules);
+                this.delegate = delegate;
+                this.overflowPolicy = overflowPolicy;
+                int length = capacity <= 2
+                        ? 2
+                        : Integer.highestOneBit(capacity - 1) << 1;
+                events = new AtomicReferenceArray<Event>(length);
+                sequences = new AtomicLongArray(length);
+                for (int index = 0; index < length; index++) {
+                    sequences.set(index, index);
+                }
+                mask = length - 1;
+                tail = new AtomicLong();
+                overflowed = new AtomicLong();
+                dropped = new AtomicLong();
+                thread = new AtomicReference<Thread>();
             }
 
             @Override
             public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, DynamicType dynamicType) {
-                if (module != null && module.isNamed()) {
-                    for (JavaModule target : modules) {
-                        if (!module.canRead(target)) {
-                            module.addReads(instrumentation, target);
-                        }
-                        if (addTargetEdge && !target.canRead(module)) {
-                            target.addReads(instrumentation, module);
-                        }
-                    }
-                }
+                publish(new Event.OfTransformation(typeDescription, classLoader, module, dynamicType));
             }
 
             @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                ModuleReadEdgeCompleting that = (ModuleReadEdgeCompleting) object;
-                return instrumentation.equals(that.instrumentation)
-                        && addTargetEdge == that.addTargetEdge
-                        && modules.equals(that.modules);
+            public void onIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
+                publish(new Event.OfIgnored(typeDescription, classLoader, module));
             }
 
             @Override
-            public int hashCode() {
-                int result = instrumentation.hashCode();
-                result = 31 * result + modules.hashCode();
-                result = 31 * result + (addTargetEdge ? 1 : 0);
-                return result;
+            public void onError(String typeName, ClassLoader classLoader, JavaModule module, Throwable throwable) {
+                publish(new Event.OfError(typeName, classLoader, module, throwable));
             }
 
             @Override
-            public String toString() {
-                return "AgentBuilder.Listener.ModuleReadEdgeCompleting{" +
-                        "instrumentation=" + instrumentation +
-                        ", addTargetEdge=" + addTargetEdge +
-                        ", modules=" + modules +
-                        '}';
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+                publish(new Event.OfComplete(typeName, classLoader, module));
             }
-        }
-
-        /**
-         * A compound listener that allows to group several listeners in one instance.
-         */
-        class Compound implements Listener {
 
             /**
-             * The listeners that are represented by this compound listener in their application order.
+             * Publishes an event to the ring buffer or dispatches it directly if the current thread is the dispatching thread.
+             *
+             * @param event The event to publish.
              */
-            private final List<? extends Listener> listeners;
+            private void publish(Event event) {
+                Thread thread = this.thread.get();
+                if (thread == null && !closed) {
+                    thread = start();
+                }
+                if (Thread.currentThread() == thread) {
+                    dispatch(event);
+                } else if (offer(event)) {
+                    signal();
+                } else if (overflowPolicy.isBlocking(overflowed.getAndIncrement())) {
+                    signal();
+                    while (!offer(event)) {
+                        if (closed) {
+                            dropped.incrementAndGet();
+                            return;
+                        }
+                        LockSupport.parkNanos(PUBLISHER_PARK_NANOS);
+                    }
+                    signal();
+                } else {
+                    dropped.incrementAndGet();
+                }
+            }
 
             /**
-             * Creates a new compound listener.
+             * Starts the dispatching thread unless another thread already started it.
              *
-             * @param listener The listeners to apply in their application order.
+             * @return The dispatching thread.
              */
-            public Compound(Listener... listener) {
-                this(Arrays.asList(listener));
+            private Thread start() {
+                Thread thread = new Thread(new Dispatcher(), "byte-buddy-listener-dispatcher");
+                thread.setDaemon(true);
+                if (this.thread.compareAndSet(null, thread)) {
+                    thread.start();
+                    return thread;
+                } else {
+                    return this.thread.get();
+                }
             }
 
             /**
-             * Creates a new compound listener.
+             * Attempts to publish an event to the ring buffer.
              *
-             * @param listeners The listeners to apply in their application order.
+             * @param event The event to publish.
+             * @return {@code true} if the event was published or {@code false} if the ring buffer is full or if this listener is closed.
              */
-            public Compound(List<? extends Listener> listeners) {
-                this.listeners = listeners;
+            private boolean offer(Event event) {
+                if (closed) {
+                    return false;
+                }
+                while (true) {
+                    long position = tail.get();
+                    int index = (int) position & mask;
+                    long difference = sequences.get(index) - position;
+                    if (difference == 0L) {
+                        if (tail.compareAndSet(position, position + 1)) {
+                            events.lazySet(index, event);
+                            sequences.lazySet(index, position + 1);
+                            return true;
+                        }
+                    } else if (difference < 0L) {
+                        return false;
+                    }
+                }
             }
 
-            @Override
-            public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, DynamicType dynamicType) {
-                for (Listener listener : listeners) {
-                    listener.onTransformation(typeDescription, classLoader, module, dynamicType);
+            /**
+             * Takes the next event from the ring buffer. This method must only be invoked by the dispatching thread.
+             *
+             * @return The next event or {@code null} if the ring buffer is empty.
+             */
+            private Event poll() {
+                int index = (int) head & mask;
+                if (sequences.get(index) != head + 1) {
+                    return null;
                 }
+                Event event = events.get(index);
+                events.lazySet(index, null);
+                sequences.lazySet(index, head + mask + 1);
+                head++;
+                return event;
             }
 
-            @Override
-            public void onIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
-                for (Listener listener : listeners) {
-                    listener.onIgnored(typeDescription, classLoader, module);
+            /**
+             * Wakes up the dispatching thread if it is parked.
+             */
+            private void signal() {
+                if (parked) {
+                    LockSupport.unpark(thread.get());
                 }
             }
 
-            @Override
-            public void onError(String typeName, ClassLoader classLoader, JavaModule module, Throwable throwable) {
-                for (Listener listener : listeners) {
-                    listener.onError(typeName, classLoader, module, throwable);
+            /**
+             * Dispatches an event to the delegate listener while suppressing any exception.
+             *
+             * @param event The event to dispatch.
+             */
+            private void dispatch(Event event) {
+                try {
+                    event.dispatch(delegate);
+                } catch (Throwable ignored) {
+                    /* do nothing */
                 }
             }
 
-            @Override
-            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
-                for (Listener listener : listeners) {
-                    listener.onComplete(typeName, classLoader, module);
-                }
+            /**
+             * Returns the number of events that were dropped because the ring buffer was full.
+             *
+             * @return The number of dropped events.
+             */
+            public long getDropped() {
+                return dropped.get();
             }
 
-            @Override
-            public boolean equals(Object other) {
-                return this == other || !(other == null || getClass() != other.getClass())
-                        && listeners.equals(((Compound) other).listeners);
+            /**
+             * Closes this listener. Any event that was already published is still dispatched but any event that is published after
+             * closing this listener is dropped. An event that is published concurrently to closing this listener might not be dispatched.
+             */
+            public void close() {
+                closed = true;
+                LockSupport.unpark(thread.get());
             }
 
-            @Override
-            public int hashCode() {
-                return listeners.hashCode();
+            /**
+             * Closes this listener and awaits the dispatching thread to dispatch all published events.
+             *
+             * @param timeout  The maximal time to wait.
+             * @param timeUnit The time unit of the timeout.
+             * @return {@code true} if all events were dispatched.
+             * @throws InterruptedException If the current thread is interrupted while waiting.
+             */
+            public boolean close(long timeout, TimeUnit timeUnit) throws InterruptedException {
+                close();
+                Thread thread = this.thread.get();
+                if (thread == null) {
+                    return true;
+                }
+                thread.join(Math.max(1L, timeUnit.toMillis(timeout)));
+                return !thread.isAlive();
             }
 
             @Override
             public String toString() {
-                return "AgentBuilder.Listener.Compound{" +
-                        "listeners=" + listeners +
+                return "AgentBuilder.Listener.Asynchronous{" +
+                        "delegate=" + delegate +
+                        ", overflowPolicy=" + overflowPolicy +
+                        ", capacity=" + (mask + 1) +
+                        ", dropped=" + dropped +
+                        ", closed=" + closed +
                         '}';
             }
-        }
-    }
 
-    /**
-     * A circularity lock is responsible for preventing that a {@link ClassFileLocator} is used recursively.
-     * This can happen when a class file transformation causes another class to be loaded. Without avoiding
-     * such circularities, a class loading is aborted by a {@link ClassCircularityError} which causes the
-     * class loading to fail.
-     */
-    interface CircularityLock {
+            /**
+             * An overflow policy decides what to do with an event that is published to a full ring buffer.
+             */
+            public interface OverflowPolicy {
 
-        /**
-         * Attempts to acquire a circularity lock.
-         *
-         * @return {@code true} if the lock was acquired successfully, {@code false} if it is already hold.
-         */
-        boolean acquire();
+                /**
+                 * Determines if the publishing thread waits for the ring buffer to accept an event or if the event is dropped.
+                 *
+                 * @param overflow The number of events that overflowed the ring buffer before this event.
+                 * @return {@code true} if the publishing thread should wait for the ring buffer to accept the event.
+                 */
+                boolean isBlocking(long overflow);
 
-        /**
-         * Releases the circularity lock if it is currently acquired.
-         */
-        void release();
+                /**
+                 * Default implementations of an overflow policy.
+                 */
+                enum Default implements OverflowPolicy {
 
-        /**
-         * An inactive circularity lock which is always acquirable.
-         */
-        enum Inactive implements CircularityLock {
+                    /**
+                     * Drops any event that is published to a full ring buffer.
+                     */
+                    DROP(false),
 
-            /**
-             * The singleton instance.
-             */
-            INSTANCE;
+                    /**
+                     * Blocks the publishing thread until a full ring buffer accepts the event. This guarantees that any event is
+                     * dispatched but adds the delegate listener's latency to class loading if the ring buffer overflows.
+                     */
+                    BLOCK(true);
+
+                    /**
+                     * {@code true} if the publishing thread should wait for the ring buffer to accept an event.
+                     */
+                    private final boolean blocking;
+
+                    /**
+                     * Creates a new default overflow policy.
+                     *
+                     * @param blocking {@code true} if the publishing thread should wait for the ring buffer to accept an event.
+                     */
+                    Default(boolean blocking) {
+                        this.blocking = blocking;
+                    }
+
+                    @Override
+                    public boolean isBlocking(long overflow) {
+                        return blocking;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default." + name();
+                    }
+                }
+
+                /**
+                 * An overflow policy that samples overflowing events by waiting for the ring buffer to accept every n-th overflowing
+                 * event and by dropping all other overflowing events.
+                 */
+                class Sampling implements OverflowPolicy {
+
+                    /**
+                     * The sampling rate where a rate of {@code n} retains every n-th overflowing event.
+                     */
+                    private final int rate;
+
+                    /**
+                     * Creates a new sampling overflow policy.
+                     *
+                     * @param rate The sampling rate where a rate of {@code n} retains every n-th overflowing event.
+                     */
+                    public Sampling(int rate) {
+                        if (rate < 1) {
+                            throw new IllegalArgumentException("Sampling rate must be positive: " + rate);
+                        }
+                        this.rate = rate;
+                    }
+
+                    @Override
+                    public boolean isBlocking(long overflow) {
+                        return overflow % rate == 0L;
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        return this == other || !(other == null || getClass() != other.getClass())
+                                && rate == ((Sampling) other).rate;
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return rate;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.OverflowPolicy.Sampling{" +
+                                "rate=" + rate +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * A record of an event that is dispatched to a listener.
+             */
+            protected abstract static class Event {
+
+                /**
+                 * The class loader of the instrumented type.
+                 */
+                protected final ClassLoader classLoader;
+
+                /**
+                 * The instrumented type's module or {@code null} if the current VM does not support modules.
+                 */
+                protected final JavaModule module;
+
+                /**
+                 * Creates a new event.
+                 *
+                 * @param classLoader The class loader of the instrumented type.
+                 * @param module      The instrumented type's module or {@code null} if the current VM does not support modules.
+                 */
+                protected Event(ClassLoader classLoader, JavaModule module) {
+                    this.classLoader = classLoader;
+                    this.module = module;
+                }
+
+                /**
+                 * Dispatches this event to a listener.
+                 *
+                 * @param listener The listener to dispatch this event to.
+                 */
+                protected abstract void dispatch(Listener listener);
+
+                /**
+                 * An event of a transformation.
+                 */
+                protected static class OfTransformation extends Event {
+
+                    /**
+                     * The transformed type.
+                     */
+                    private final TypeDescription typeDescription;
+
+                    /**
+                     * The dynamic type that was created.
+                     */
+                    private final DynamicType dynamicType;
+
+                    /**
+                     * Creates a new transformation event.
+                     *
+                     * @param typeDescription The transformed type.
+                     * @param classLoader     The class loader of the instrumented type.
+                     * @param module          The instrumented type's module or {@code null} if the current VM does not support modules.
+                     * @param dynamicType     The dynamic type that was created.
+                     */
+                    protected OfTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, DynamicType dynamicType) {
+                        super(classLoader, module);
+                        this.typeDescription = typeDescription;
+                        this.dynamicType = dynamicType;
+                    }
+
+                    @Override
+                    protected void dispatch(Listener listener) {
+                        listener.onTransformation(typeDescription, classLoader, module, dynamicType);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.Event.OfTransformation{" +
+                                "typeDescription=" + typeDescription +
+                                ", classLoader=" + classLoader +
+                                ", module=" + module +
+                                ", dynamicType=" + dynamicType +
+                                '}';
+                    }
+                }
+
+                /**
+                 * An event of an ignored type.
+                 */
+                protected static class OfIgnored extends Event {
+
+                    /**
+                     * The ignored type.
+                     */
+                    private final TypeDescription typeDescription;
+
+                    /**
+                     * Creates a new event of an ignored type.
+                     *
+                     * @param typeDescription The ignored type.
+                     * @param classLoader     The class loader of the instrumented type.
+                     * @param module          The instrumented type's module or {@code null} if the current VM does not support modules.
+                     */
+                    protected OfIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
+                        super(classLoader, module);
+                        this.typeDescription = typeDescription;
+                    }
+
+                    @Override
+                    protected void dispatch(Listener listener) {
+                        listener.onIgnored(typeDescription, classLoader, module);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.Event.OfIgnored{" +
+                                "typeDescription=" + typeDescription +
+                                ", classLoader=" + classLoader +
+                                ", module=" + module +
+                                '}';
+                    }
+                }
+
+                /**
+                 * An event of an error.
+                 */
+                protected static class OfError extends Event {
+
+                    /**
+                     * The binary name of the instrumented type.
+                     */
+                    private final String typeName;
+
+                    /**
+                     * The occurred error.
+                     */
+                    private final Throwable throwable;
+
+                    /**
+                     * Creates a new error event.
+                     *
+                     * @param typeName    The binary name of the instrumented type.
+                     * @param classLoader The class loader of the instrumented type.
+                     * @param module      The instrumented type's module or {@code null} if the current VM does not support modules.
+                     * @param throwable   The occurred error.
+                     */
+                    protected OfError(String typeName, ClassLoader classLoader, JavaModule module, Throwable throwable) {
+                        super(classLoader, module);
+                        this.typeName = typeName;
+                        this.throwable = throwable;
+                    }
+
+                    @Override
+                    protected void dispatch(Listener listener) {
+                        listener.onError(typeName, classLoader, module, throwable);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.Event.OfError{" +
+                                "typeName='" + typeName + '\'' +
+                                ", classLoader=" + classLoader +
+                                ", module=" + module +
+                                ", throwable=" + throwable +
+                                '}';
+                    }
+                }
+
+                /**
+                 * An event of a completed transformation attempt.
+                 */
+                protected static class OfComplete extends Event {
+
+                    /**
+                     * The binary name of the instrumented type.
+                     */
+                    private final String typeName;
+
+                    /**
+                     * Creates a new completion event.
+                     *
+                     * @param typeName    The binary name of the instrumented type.
+                     * @param classLoader The class loader of the instrumented type.
+                     * @param module      The instrumented type's module or {@code null} if the current VM does not support modules.
+                     */
+                    protected OfComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+                        super(classLoader, module);
+                        this.typeName = typeName;
+                    }
+
+                    @Override
+                    protected void dispatch(Listener listener) {
+                        listener.onComplete(typeName, classLoader, module);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Listener.Asynchronous.Event.OfComplete{" +
+                                "typeName='" + typeName + '\'' +
+                                ", classLoader=" + classLoader +
+                                ", module=" + module +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * The runnable of the dispatching thread that drains the ring buffer until the listener is closed.
+             */
+            protected class Dispatcher implements Runnable {
+
+                @Override
+                public void run() {
+                    while (true) {
+                        Event event = poll();
+                        if (event != null) {
+                            dispatch(event);
+                        } else if (closed) {
+                            return;
+                        } else {
+                            parked = true;
+                            try {
+                                if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                                    LockSupport.parkNanos(this, DISPATCHER_PARK_NANOS);
+                                }
+                            } finally {
+                                parked = false;
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.Listener.Asynchronous.Dispatcher{" +
+                            "asynchronous=" + Asynchronous.this +
+                            '}';
+                }
+            }
+        }
+
+        /**
+         * A listener that adds read-edges to any module of an instrumented class upon its transformation.
+         */
+        class ModuleReadEdgeCompleting extends Listener.Adapter {
+
+            /**
+             * The instrumentation instance used for adding read edges.
+             */
+            private final Instrumentation instrumentation;
+
+            /**
+             * {@code true} if the listener should also add a read-edge from the supplied modules to the instrumented type's module.
+             */
+            private final boolean addTargetEdge;
+
+            /**
+             * The modules to add as a read edge to any transformed class's module.
+             */
+            private final Set<? extends JavaModule> modules;
+
+            /**
+             * Creates a new module read-edge completing listener.
+             *
+             * @param instrumentation The instrumentation instance used for adding read edges.
+             * @param addTargetEdge   {@code true} if the listener should also add a read-edge from the supplied modules
+             *                        to the instrumented type's module.
+             * @param modules         The modules to add as a read edge to any transformed class's module.
+             */
+            public ModuleReadEdgeCompleting(Instrumentation instrumentation, boolean addTargetEdge, Set<? extends JavaModule> modules) {
+                this.instrumentation = instrumentation;
+                this.addTargetEdge = addTargetEdge;
+                this.modules = modules;
+            }
+
+            /**
+             * Resolves a listener that adds module edges from and to the instrumented type's module.
+             *
+             * @param instrumentation The instrumentation instance used for adding read edges.
+             * @param addTargetEdge   {@code true} if the listener should also add a read-edge from the supplied
+             *                        modules to the instrumented type's module.
+             * @param type            The types for which to extract the modules.
+             * @return An appropriate listener.
+             */
+            protected static Listener of(Instrumentation instrumentation, boolean addTargetEdge, Class<?>... type) {
+                Set<JavaModule> modules = new HashSet<JavaModule>();
+                for (Class<?> aType : type) {
+                    JavaModule module = JavaModule.ofType(aType);
+                    if (module.isNamed()) {
+                        modules.add(module);
+                    }
+                }
+                return modules.isEmpty()
+                        ? Listener.NoOp.INSTANCE
+                        : new Listener.ModuleReadEdgeCompleting(instrumentation, addTargetEdge, modules);
+            }
+
+            @Override
+            public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, DynamicType dynamicType) {
+                if (module != null && module.isNamed()) {
+                    for (JavaModule target : modules) {
+                        if (!module.canRead(target)) {
+                            module.addReads(instrumentation, target);
+                        }
+                        if (addTargetEdge && !target.canRead(module)) {
+                            target.addReads(instrumentation, module);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                ModuleReadEdgeCompleting that = (ModuleReadEdgeCompleting) object;
+                return instrumentation.equals(that.instrumentation)
+                        && addTargetEdge == that.addTargetEdge
+                        && modules.equals(that.modules);
+            }
+
+            @Override
+            public int hashCode() {
+                int result = instrumentation.hashCode();
+                result = 31 * result + modules.hashCode();
+                result = 31 * result + (addTargetEdge ? 1 : 0);
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Listener.ModuleReadEdgeCompleting{" +
+                        "instrumentation=" + instrumentation +
+                        ", addTargetEdge=" + addTargetEdge +
+                        ", modules=" + modules +
+                        '}';
+            }
+        }
+
+        /**
+         * A compound listener that allows to group several listeners in one instance.
+         */
+        class Compound implements Listener {
+
+            /**
+             * The listeners that are represented by this compound listener in their application order.
+             */
+            private final List<? extends Listener> listeners;
+
+            /**
+             * Creates a new compound listener.
+             *
+             * @param listener The listeners to apply in their application order.
+             */
+            public Compound(Listener... listener) {
+                this(Arrays.asList(listener));
+            }
+
+            /**
+             * Creates a new compound listener.
+             *
+             * @param listeners The listeners to apply in their application order.
+             */
+            public Compound(List<? extends Listener> listeners) {
+                this.listeners = listeners;
+            }
+
+            @Override
+            public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, DynamicType dynamicType) {
+                for (Listener listener : listeners) {
+                    listener.onTransformation(typeDescription, classLoader, module, dynamicType);
+                }
+            }
+
+            @Override
+            public void onIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
+                for (Listener listener : listeners) {
+                    listener.onIgnored(typeDescription, classLoader, module);
+                }
+            }
+
+            @Override
+            public void onError(String typeName, ClassLoader classLoader, JavaModule module, Throwable throwable) {
+                for (Listener listener : listeners) {
+                    listener.onError(typeName, classLoader, module, throwable);
+                }
+            }
+
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+                for (Listener listener : listeners) {
+                    listener.onComplete(typeName, classLoader, module);
+                }
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && listeners.equals(((Compound) other).listeners);
+            }
+
+            @Override
+            public int hashCode() {
+                return listeners.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Listener.Compound{" +
+                        "listeners=" + listeners +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * A circularity lock is responsible for preventing that a {@link ClassFileLocator} is used recursively.
+     * This can happen when a class file transformation causes another class to be loaded. Without avoiding
+     * such circularities, a class loading is aborted by a {@link ClassCircularityError} which causes the
+     * class loading to fail.
+     */
+    interface CircularityLock {
+
+        /**
+         * Attempts to acquire a circularity lock.
+         *
+         * @return {@code true} if the lock was acquired successfully, {@code false} if it is already hold.
+         */
+        boolean acquire();
+
+        /**
+         * Releases the circularity lock if it is currently acquired.
+         */
+        void release();
+
+        /**
+         * An inactive circularity lock which is always acquirable.
+         */
+        enum Inactive implements CircularityLock {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public boolean acquire() {
+                return true;
+            }
+
+            @Override
+            public void release() {
+                        /* do nothing */
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.CircularityLock.Inactive." + name();
+            }
+        }
+
+        /**
+         * A default implementation of a circularity lock. Since class loading already synchronizes on a class loader,
+         * it suffices to apply a thread-local lock.
+         */
+        class Default extends ThreadLocal<Boolean> implements CircularityLock {
+
+            /**
+             * Indicates that the circularity lock is not currently acquired.
+             */
+            private static final Boolean NOT_ACQUIRED = null;
+
+            @Override
+            public boolean acquire() {
+                if (get() == NOT_ACQUIRED) {
+                    set(true);
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+
+            @Override
+            public void release() {
+                set(NOT_ACQUIRED);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.CircularityLock.Default{acquired=" + (get() != NOT_ACQUIRED) + "}";
+            }
+        }
+
+        /**
+         * A circularity lock that records the identity of any thread that currently holds the lock within a shared table instead of using a
+         * {@link ThreadLocal}. This avoids the creation of a thread-local map entry for any thread that ever loads a class what is beneficial
+         * for applications that run a large number of short-lived threads. The table is a lock-free, open-addressed set of thread ids where
+         * each thread only ever inserts and removes its own id within a bounded window of slots. Acquiring or releasing this lock does not
+         * allocate any objects as long as fewer threads hold the lock at the same time than the window of a thread offers. Any thread that
+         * cannot be recorded in the table is recorded in an overflow set.
+         */
+        class ForThreadIdentity implements CircularityLock {
+
+            /**
+             * The default capacity of the table.
+             */
+            private static final int DEFAULT_CAPACITY = 1024;
+
+            /**
+             * The number of consecutive slots that a thread may occupy in the table.
+             */
+            private static final int WINDOW = 8;
+
+            /**
+             * Indicates an empty slot. Thread ids are always positive.
+             */
+            private static final long EMPTY = 0L;
+
+            /**
+             * A multiplier for spreading thread ids over the table.
+             */
+            private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+            /**
+             * The table of ids of the threads that currently hold this lock.
+             */
+            private final AtomicLongArray table;
+
+            /**
+             * The mask for computing a slot within the table.
+             */
+            private final int mask;
+
+            /**
+             * The ids of threads that hold this lock but that could not be recorded in the table.
+             */
+            private final ConcurrentMap<Long, Boolean> overflow;
+
+            /**
+             * The number of threads that are currently recorded in the overflow set.
+             */
+            private final AtomicInteger overflowed;
+
+            /**
+             * Creates a new circularity lock for thread identities with a default capacity.
+             */
+            public ForThreadIdentity() {
+                this(DEFAULT_CAPACITY);
+            }
+
+            /**
+             * Creates a new circularity lock for thread identities.
+             *
+             * @param capacity The capacity of the table which is rounded up to a power of two and to at least the number of slots a thread may occupy.
+             */
+            public ForThreadIdentity(int capacity) {
+                if (capacity <= 0) {
+                    throw new IllegalArgumentException("Capacity must be a positive number: " + capacity);
+                } else if (capacity > 1 << 30) {
+                    throw new IllegalArgumentException("Capacity must not exceed 2^30: " + capacity);
+                }
+                int size = WINDOW;
+                while (size < capacity) {
+                    size <<= 1;
+                }
+                table = new AtomicLongArray(size);
+                mask = size - 1;
+                overflow = new ConcurrentHashMap<Long, Boolean>();
+                overflowed = new AtomicInteger();
+            }
+
+            /**
+             * Returns the first slot of the window of a thread.
+             *
+             * @param id The id of the thread.
+             * @return The first slot of the thread's window.
+             */
+            private int slot(long id) {
+                return (int) ((id * SPREAD) >>> 33) & mask;
+            }
+
+            @Override
+            public boolean acquire() {
+                long id = Thread.currentThread().getId();
+                int slot = slot(id);
+                int free = -1;
+                for (int index = 0; index < WINDOW; index++) {
+                    long value = table.get((slot + index) & mask);
+                    if (value == id) {
+                        return false;
+                    } else if (value == EMPTY && free == -1) {
+                        free = index;
+                    }
+                }
+                if (overflowed.get() > 0 && overflow.containsKey(id)) {
+                    return false;
+                }
+                if (free != -1) {
+                    for (int index = free; index < WINDOW; index++) {
+                        if (table.compareAndSet((slot + index) & mask, EMPTY, id)) {
+                            return true;
+                        }
+                    }
+                }
+                if (overflow.putIfAbsent(id, Boolean.TRUE) == null) {
+                    overflowed.incrementAndGet();
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+
+            @Override
+            public void release() {
+                long id = Thread.currentThread().getId();
+                int slot = slot(id);
+                for (int index = 0; index < WINDOW; index++) {
+                    if (table.get((slot + index) & mask) == id) {
+                        table.lazySet((slot + index) & mask, EMPTY);
+                        return;
+                    }
+                }
+                if (overflowed.get() > 0 && overflow.remove(id) != null) {
+                    overflowed.decrementAndGet();
+                }
+            }
+
+            /**
+             * Checks if the current thread holds this lock.
+             *
+             * @return {@code true} if the current thread holds this lock.
+             */
+            protected boolean isAcquired() {
+                long id = Thread.currentThread().getId();
+                int slot = slot(id);
+                for (int index = 0; index < WINDOW; index++) {
+                    if (table.get((slot + index) & mask) == id) {
+                        return true;
+                    }
+                }
+                return overflowed.get() > 0 && overflow.containsKey(id);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.CircularityLock.ForThreadIdentity{acquired=" + isAcquired() + "}";
+            }
+        }
+    }
+
+    /**
+     * A type strategy is responsible for creating a type builder for a type that is being instrumented.
+     */
+    interface TypeStrategy {
+
+        /**
+         * Creates a type builder for a given type.
+         *
+         * @param typeDescription       The type being instrumented.
+         * @param byteBuddy             The Byte Buddy configuration.
+         * @param classFileLocator      The class file locator to use.
+         * @param methodNameTransformer The method name transformer to use.
+         * @return A type builder for the given arguments.
+         */
+        DynamicType.Builder<?> builder(TypeDescription typeDescription,
+                                       ByteBuddy byteBuddy,
+                                       ClassFileLocator classFileLocator,
+                                       MethodNameTransformer methodNameTransformer);
+
+        /**
+         * Default implementations of type strategies.
+         */
+        enum Default implements TypeStrategy {
+
+            /**
+             * A definition handler that performs a rebasing for all types.
+             */
+            REBASE {
+                @Override
+                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
+                                                      ByteBuddy byteBuddy,
+                                                      ClassFileLocator classFileLocator,
+                                                      MethodNameTransformer methodNameTransformer) {
+                    return byteBuddy.rebase(typeDescription, classFileLocator, methodNameTransformer);
+                }
+            },
+
+            /**
+             * <p>
+             * A definition handler that performs a redefinition for all types.
+             * </p>
+             * <p>
+             * Note that the default agent builder is configured to apply a self initialization where a static class initializer
+             * is added to the redefined class. This can be disabled by for example using a {@link InitializationStrategy.Minimal} or
+             * {@link InitializationStrategy.NoOp}. Also, consider the constraints implied by {@link ByteBuddy#redefine(TypeDescription, ClassFileLocator)}.
+             * </p>
+             * <p>
+             * For prohibiting any changes on a class file, use {@link AgentBuilder#disableClassFormatChanges()}
+             * </p>
+             */
+            REDEFINE {
+                @Override
+                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
+                                                      ByteBuddy byteBuddy,
+                                                      ClassFileLocator classFileLocator,
+                                                      MethodNameTransformer methodNameTransformer) {
+                    return byteBuddy.redefine(typeDescription, classFileLocator);
+                }
+            },
+
+            /**
+             * <p>
+             * A definition handler that performs a redefinition for all types and ignores all methods that were not declared by the instrumented type.
+             * </p>
+             * <p>
+             * Note that the default agent builder is configured to apply a self initialization where a static class initializer
+             * is added to the redefined class. This can be disabled by for example using a {@link InitializationStrategy.Minimal} or
+             * {@link InitializationStrategy.NoOp}. Also, consider the constraints implied by {@link ByteBuddy#redefine(TypeDescription, ClassFileLocator)}.
+             * </p>
+             * <p>
+             * For prohibiting any changes on a class file, use {@link AgentBuilder#disableClassFormatChanges()}
+             * </p>
+             */
+            REDEFINE_DECLARED_ONLY {
+                @Override
+                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
+                                                      ByteBuddy byteBuddy,
+                                                      ClassFileLocator classFileLocator,
+                                                      MethodNameTransformer methodNameTransformer) {
+                    return byteBuddy.redefine(typeDescription, classFileLocator).ignoreAlso(LatentMatcher.ForSelfDeclaredMethod.NOT_DECLARED);
+                }
+            };
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.TypeStrategy.Default." + name();
+            }
+        }
+
+        /**
+         * A type strategy that applies a build {@link EntryPoint}.
+         */
+        class ForBuildEntryPoint implements TypeStrategy {
+
+            /**
+             * The entry point to apply.
+             */
+            private final EntryPoint entryPoint;
+
+            /**
+             * Creates a new type strategy for an entry point.
+             *
+             * @param entryPoint The entry point to apply.
+             */
+            public ForBuildEntryPoint(EntryPoint entryPoint) {
+                this.entryPoint = entryPoint;
+            }
+
+            @Override
+            public DynamicType.Builder<?> builder(TypeDescription typeDescription,
+                                                  ByteBuddy byteBuddy,
+                                                  ClassFileLocator classFileLocator,
+                                                  MethodNameTransformer methodNameTransformer) {
+                return entryPoint.transform(typeDescription, byteBuddy, classFileLocator, methodNameTransformer);
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                ForBuildEntryPoint that = (ForBuildEntryPoint) object;
+                return entryPoint.equals(that.entryPoint);
+            }
+
+            @Override
+            public int hashCode() {
+                return entryPoint.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.TypeStrategy.ForBuildEntryPoint{" +
+                        "entryPoint=" + entryPoint +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * A transformer allows to apply modifications to a {@link net.bytebuddy.dynamic.DynamicType}. Such a modification
+     * is then applied to any instrumented type that was matched by the preceding matcher.
+     */
+    interface Transformer {
+
+        /**
+         * Allows for a transformation of a {@link net.bytebuddy.dynamic.DynamicType.Builder}.
+         *
+         * @param builder         The dynamic builder to transform.
+         * @param typeDescription The description of the type currently being instrumented.
+         * @param classLoader     The class loader of the instrumented class. Might be {@code null} to
+         *                        represent the bootstrap class loader.
+         * @return A transformed version of the supplied {@code builder}.
+         */
+        DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader);
+
+        /**
+         * A no-op implementation of a {@link net.bytebuddy.agent.builder.AgentBuilder.Transformer} that does
+         * not modify the supplied dynamic type.
+         */
+        enum NoOp implements Transformer {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
+                return builder;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Transformer.NoOp." + name();
+            }
+        }
+
+        /**
+         * A transformer that applies a build {@link Plugin}.
+         */
+        class ForBuildPlugin implements Transformer {
+
+            /**
+             * The plugin to apply.
+             */
+            private final Plugin plugin;
+
+            /**
+             * Creates a new transformer for a build {@link Plugin}.
+             *
+             * @param plugin The plugin to apply.
+             */
+            public ForBuildPlugin(Plugin plugin) {
+                this.plugin = plugin;
+            }
+
+            @Override
+            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
+                return plugin.apply(builder, typeDescription);
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                ForBuildPlugin that = (ForBuildPlugin) object;
+                return plugin.equals(that.plugin);
+            }
+
+            @Override
+            public int hashCode() {
+                return plugin.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Transformer.ForBuildPlugin{" +
+                        "plugin=" + plugin +
+                        '}';
+            }
+        }
+
+        /**
+         * A compound transformer that allows to group several
+         * {@link net.bytebuddy.agent.builder.AgentBuilder.Transformer}s as a single transformer.
+         */
+        class Compound implements Transformer {
+
+            /**
+             * The transformers to apply in their application order.
+             */
+            private final Transformer[] transformer;
+
+            /**
+             * Creates a new compound transformer.
+             *
+             * @param transformer The transformers to apply in their application order.
+             */
+            public Compound(Transformer... transformer) {
+                this.transformer = transformer;
+            }
+
+            @Override
+            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
+                for (Transformer transformer : this.transformer) {
+                    builder = transformer.transform(builder, typeDescription, classLoader);
+                }
+                return builder;
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && Arrays.equals(transformer, ((Compound) other).transformer);
+            }
+
+            @Override
+            public int hashCode() {
+                return Arrays.hashCode(transformer);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Transformer.Compound{" +
+                        "transformer=" + Arrays.toString(transformer) +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * A type locator allows to specify how {@link TypeDescription}s are resolved by an {@link net.bytebuddy.agent.builder.AgentBuilder}.
+     */
+    interface PoolStrategy {
+
+        /**
+         * Creates a type pool for a given class file locator.
+         *
+         * @param classFileLocator The class file locator to use.
+         * @param classLoader      The class loader for which the class file locator was created.
+         * @return A type pool for the supplied class file locator.
+         */
+        TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader);
+
+        /**
+         * <p>
+         * A default type locator that resolves types only if any property that is not the type's name is requested.
+         * </p>
+         * <p>
+         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
+         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}.
+         * </p>
+         */
+        enum Default implements PoolStrategy {
+
+            /**
+             * A type locator that parses the code segment of each method for extracting information about parameter
+             * names even if they are not explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
+             */
+            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
+
+            /**
+             * A type locator that skips the code segment of each method and does therefore not extract information
+             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
+             */
+            FAST(TypePool.Default.ReaderMode.FAST),
+
+            /**
+             * A type locator that only parses a class file's header and parses fields and methods only when they are
+             * requested. This is beneficial if most types are matched by their name, modifiers, super types or annotations.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#HEADER
+             */
+            HEADER(TypePool.Default.ReaderMode.HEADER);
+
+            /**
+             * The reader mode to apply by this type locator.
+             */
+            private final TypePool.Default.ReaderMode readerMode;
+
+            /**
+             * Creates a new type locator.
+             *
+             * @param readerMode The reader mode to apply by this type locator.
+             */
+            Default(TypePool.Default.ReaderMode readerMode) {
+                this.readerMode = readerMode;
+            }
+
+            @Override
+            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+                return new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.PoolStrategy.Default." + name();
+            }
+        }
+
+        /**
+         * <p>
+         * A type locator that resolves all type descriptions eagerly.
+         * </p>
+         * <p>
+         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
+         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}.
+         * </p>
+         */
+        enum Eager implements PoolStrategy {
+
+            /**
+             * A type locator that parses the code segment of each method for extracting information about parameter
+             * names even if they are not explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
+             */
+            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
+
+            /**
+             * A type locator that skips the code segment of each method and does therefore not extract information
+             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
+             */
+            FAST(TypePool.Default.ReaderMode.FAST),
+
+            /**
+             * A type locator that only parses a class file's header and parses fields and methods only when they are
+             * requested. This is beneficial if most types are matched by their name, modifiers, super types or annotations.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#HEADER
+             */
+            HEADER(TypePool.Default.ReaderMode.HEADER);
+
+            /**
+             * The reader mode to apply by this type locator.
+             */
+            private final TypePool.Default.ReaderMode readerMode;
+
+            /**
+             * Creates a new type locator.
+             *
+             * @param readerMode The reader mode to apply by this type locator.
+             */
+            Eager(TypePool.Default.ReaderMode readerMode) {
+                this.readerMode = readerMode;
+            }
+
+            @Override
+            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+                return new TypePool.Default(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.PoolStrategy.Eager." + name();
+            }
+        }
+
+        /**
+         * <p>
+         * A type locator that attempts loading a type if it cannot be located by the underlying lazy type pool.
+         * </p>
+         * <p>
+         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
+         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}. Any types
+         * are loaded via the instrumented type's {@link ClassLoader}.
+         * </p>
+         */
+        enum ClassLoading implements PoolStrategy {
+
+            /**
+             * A type locator that parses the code segment of each method for extracting information about parameter
+             * names even if they are not explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
+             */
+            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
+
+            /**
+             * A type locator that skips the code segment of each method and does therefore not extract information
+             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
+             */
+            FAST(TypePool.Default.ReaderMode.FAST),
+
+            /**
+             * A type locator that only parses a class file's header and parses fields and methods only when they are
+             * requested. This is beneficial if most types are matched by their name, modifiers, super types or annotations.
+             *
+             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#HEADER
+             */
+            HEADER(TypePool.Default.ReaderMode.HEADER);
+
+            /**
+             * The reader mode to apply by this type locator.
+             */
+            private final TypePool.Default.ReaderMode readerMode;
+
+            /**
+             * Creates a new type locator.
+             *
+             * @param readerMode The reader mode to apply by this type locator.
+             */
+            ClassLoading(TypePool.Default.ReaderMode readerMode) {
+                this.readerMode = readerMode;
+            }
+
+            @Override
+            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+                return TypePool.ClassLoading.of(classLoader, new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode));
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.PoolStrategy.ClassLoading." + name();
+            }
+        }
+
+        /**
+         * <p>
+         * A type locator that uses type pools but allows for the configuration of a custom cache provider by class loader. Note that a
+         * {@link TypePool} can grow in size and that a static reference is kept to this pool by Byte Buddy's registration of a
+         * {@link ClassFileTransformer} what can cause a memory leak if the supplied caches are not cleared on a regular basis. Also note
+         * that a cache provider can be accessed concurrently by multiple {@link ClassLoader}s.
+         * </p>
+         * <p>
+         * All types that are returned by the locator's type pool are resolved lazily.
+         * </p>
+         */
+        abstract class WithTypePoolCache implements PoolStrategy {
+
+            /**
+             * The reader mode to use for parsing a class file.
+             */
+            protected final TypePool.Default.ReaderMode readerMode;
+
+            /**
+             * The symbol table to use for deduplicating strings that are read from class files.
+             */
+            protected final TypePool.Default.SymbolTable symbolTable;
+
+            /**
+             * The factory to use for creating a cache provider for a class loader.
+             */
+            protected final CacheProviderFactory cacheProviderFactory;
+
+            /**
+             * Creates a new type locator that creates {@link TypePool}s but provides a custom {@link net.bytebuddy.pool.TypePool.CacheProvider}.
+             *
+             * @param readerMode The reader mode to use for parsing a class file.
+             */
+            protected WithTypePoolCache(TypePool.Default.ReaderMode readerMode) {
+                this(readerMode, TypePool.Default.SymbolTable.NoOp.INSTANCE);
+            }
+
+            /**
+             * Creates a new type locator that creates {@link TypePool}s but provides a custom {@link net.bytebuddy.pool.TypePool.CacheProvider}.
+             *
+             * @param readerMode  The reader mode to use for parsing a class file.
+             * @param symbolTable The symbol table to use for deduplicating strings that are read from class files.
+             */
+            protected WithTypePoolCache(TypePool.Default.ReaderMode readerMode, TypePool.Default.SymbolTable symbolTable) {
+                this(readerMode, symbolTable, CacheProviderFactory.ForSimpleCache.INSTANCE);
+            }
+
+            /**
+             * Creates a new type locator that creates {@link TypePool}s but provides a custom {@link net.bytebuddy.pool.TypePool.CacheProvider}.
+             *
+             * @param readerMode           The reader mode to use for parsing a class file.
+             * @param symbolTable          The symbol table to use for deduplicating strings that are read from class files.
+             * @param cacheProviderFactory The factory to use for creating a cache provider for a class loader.
+             */
+            protected WithTypePoolCache(TypePool.Default.ReaderMode readerMode,
+                                        TypePool.Default.SymbolTable symbolTable,
+                                        CacheProviderFactory cacheProviderFactory) {
+                this.readerMode = readerMode;
+                this.symbolTable = symbolTable;
+                this.cacheProviderFactory = cacheProviderFactory;
+            }
+
+            @Override
+            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+                return new TypePool.Default.WithLazyResolution(locate(classLoader), classFileLocator, readerMode, symbolTable, TypePool.Empty.INSTANCE);
+            }
+
+            /**
+             * Locates a cache provider for a given class loader.
+             *
+             * @param classLoader The class loader for which to locate a cache. This class loader might be {@code null} to represent the bootstrap loader.
+             * @return The cache provider to use.
+             */
+            protected abstract TypePool.CacheProvider locate(ClassLoader classLoader);
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                WithTypePoolCache that = (WithTypePoolCache) object;
+                return readerMode == that.readerMode
+                        && symbolTable.equals(that.symbolTable)
+                        && cacheProviderFactory.equals(that.cacheProviderFactory);
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * (31 * readerMode.hashCode() + symbolTable.hashCode()) + cacheProviderFactory.hashCode();
+            }
+
+            /**
+             * A factory for the cache provider that is used by the type pools of a class loader.
+             */
+            public interface CacheProviderFactory {
+
+                /**
+                 * Creates a new cache provider for a class loader that was not previously queried.
+                 *
+                 * @return A new cache provider.
+                 */
+                TypePool.CacheProvider make();
+
+                /**
+                 * A factory for an unbounded {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} cache provider.
+                 */
+                enum ForSimpleCache implements CacheProviderFactory {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public TypePool.CacheProvider make() {
+                        return TypePool.CacheProvider.Simple.withObjectType();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForSimpleCache." + name();
+                    }
+                }
+
+                /**
+                 * A factory for a {@link net.bytebuddy.pool.TypePool.CacheProvider.Bounded} cache provider.
+                 */
+                class ForBoundedCache implements CacheProviderFactory {
+
+                    /**
+                     * The maximum total weight of all resolutions that are cached for a class loader.
+                     */
+                    private final long maximumWeight;
+
+                    /**
+                     * The weigher to use for determining the weight of a registered resolution.
+                     */
+                    private final TypePool.CacheProvider.Bounded.Weigher weigher;
+
+                    /**
+                     * Creates a new factory for bounded cache providers where each resolution has a weight of {@code 1}.
+                     *
+                     * @param maximumWeight The maximum number of resolutions that are cached for a class loader.
+                     */
+                    public ForBoundedCache(long maximumWeight) {
+                        this(maximumWeight, TypePool.CacheProvider.Bounded.Weigher.ForUniformWeight.INSTANCE);
+                    }
+
+                    /**
+                     * Creates a new factory for bounded cache providers.
+                     *
+                     * @param maximumWeight The maximum total weight of all resolutions that are cached for a class loader.
+                     * @param weigher       The weigher to use for determining the weight of a registered resolution.
+                     */
+                    public ForBoundedCache(long maximumWeight, TypePool.CacheProvider.Bounded.Weigher weigher) {
+                        if (maximumWeight < 1) {
+                            throw new IllegalArgumentException("The maximum weight of a cache must be positive: " + maximumWeight);
+                        }
+                        this.maximumWeight = maximumWeight;
+                        this.weigher = weigher;
+                    }
+
+                    @Override
+                    public TypePool.CacheProvider make() {
+                        return TypePool.CacheProvider.Bounded.withObjectType(maximumWeight, weigher);
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) return true;
+                        if (other == null || getClass() != other.getClass()) return false;
+                        ForBoundedCache that = (ForBoundedCache) other;
+                        return maximumWeight == that.maximumWeight && weigher.equals(that.weigher);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return 31 * (int) (maximumWeight ^ (maximumWeight >>> 32)) + weigher.hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForBoundedCache{" +
+                                "maximumWeight=" + maximumWeight +
+                                ", weigher=" + weigher +
+                                '}';
+                    }
+                }
+
+                /**
+                 * A factory that wraps the cache providers of another factory in a
+                 * {@link net.bytebuddy.pool.TypePool.CacheProvider.Deduplicating} cache provider.
+                 */
+                class Deduplicating implements CacheProviderFactory {
+
+                    /**
+                     * The factory of the cache providers to delegate to.
+                     */
+                    private final CacheProviderFactory delegate;
+
+                    /**
+                     * Creates a new deduplicating cache provider factory.
+                     *
+                     * @param delegate The factory of the cache providers to delegate to.
+                     */
+                    public Deduplicating(CacheProviderFactory delegate) {
+                        this.delegate = delegate;
+                    }
+
+                    @Override
+                    public TypePool.CacheProvider make() {
+                        return new TypePool.CacheProvider.Deduplicating(delegate.make());
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        return this == other || !(other == null || getClass() != other.getClass())
+                                && delegate.equals(((Deduplicating) other).delegate);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return delegate.hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.Deduplicating{" +
+                                "delegate=" + delegate +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * An implementation of a type locator {@link WithTypePoolCache} (note documentation of the linked class) that is based on a
+             * {@link ConcurrentMap}. It is the responsibility of the type locator's user to avoid the type locator from leaking memory.
+             */
+            public static class Simple extends WithTypePoolCache {
+
+                /**
+                 * The concurrent map that is used for storing a cache provider per class loader.
+                 */
+                private final ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders;
+
+                /**
+                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map. The type
+                 * locator uses a fast {@link net.bytebuddy.pool.TypePool.Default.ReaderMode}.
+                 *
+                 * @param cacheProviders The concurrent map that is used for storing a cache provider per class loader.
+                 */
+                public Simple(ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
+                    this(TypePool.Default.ReaderMode.FAST, cacheProviders);
+                }
+
+                /**
+                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map.
+                 *
+                 * @param readerMode     The reader mode to use for parsing a class file.
+                 * @param cacheProviders The concurrent map that is used for storing a cache provider per class loader.
+                 */
+                public Simple(TypePool.Default.ReaderMode readerMode, ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
+                    this(readerMode, TypePool.Default.SymbolTable.NoOp.INSTANCE, cacheProviders);
+                }
+
+                /**
+                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map.
+                 *
+                 * @param readerMode     The reader mode to use for parsing a class file.
+                 * @param symbolTable    The symbol table to use for deduplicating strings that are read from class files.
+                 * @param cacheProviders The concurrent map that is used for storing a cache provider per class loader.
+                 */
+                public Simple(TypePool.Default.ReaderMode readerMode,
+                              TypePool.Default.SymbolTable symbolTable,
+                              ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
+                    this(readerMode, symbolTable, CacheProviderFactory.ForSimpleCache.INSTANCE, cacheProviders);
+                }
+
+                /**
+                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map.
+                 *
+                 * @param readerMode           The reader mode to use for parsing a class file.
+                 * @param symbolTable          The symbol table to use for deduplicating strings that are read from class files.
+                 * @param cacheProviderFactory The factory to use for creating a cache provider for a class loader.
+                 * @param cacheProviders       The concurrent map that is used for storing a cache provider per class loader.
+                 */
+                public Simple(TypePool.Default.ReaderMode readerMode,
+                              TypePool.Default.SymbolTable symbolTable,
+                              CacheProviderFactory cacheProviderFactory,
+                              ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
+                    super(readerMode, symbolTable, cacheProviderFactory);
+                    this.cacheProviders = cacheProviders;
+                }
+
+                @Override
+                protected TypePool.CacheProvider locate(ClassLoader classLoader) {
+                    classLoader = classLoader == null ? getBootstrapMarkerLoader() : classLoader;
+                    TypePool.CacheProvider cacheProvider = cacheProviders.get(classLoader);
+                    while (cacheProvider == null) {
+                        cacheProvider = cacheProviderFactory.make();
+                        TypePool.CacheProvider previous = cacheProviders.putIfAbsent(classLoader, cacheProvider);
+                        if (previous != null) {
+                            cacheProvider = previous;
+                        }
+                    }
+                    return cacheProvider;
+                }
+
+                /**
+                 * <p>
+                 * Returns the class loader to serve as a cache key if a cache provider for the bootstrap class loader is requested.
+                 * This class loader is represented by {@code null} in the JVM which is an invalid value for many {@link ConcurrentMap}
+                 * implementations.
+                 * </p>
+                 * <p>
+                 * By default, {@link ClassLoader#getSystemClassLoader()} is used as such a key as any resource location for the
+                 * bootstrap class loader is performed via the system class loader within Byte Buddy as {@code null} cannot be queried
+                 * for resources via method calls such that this does not make a difference.
+                 * </p>
+                 *
+                 * @return A class loader to represent the bootstrap class loader.
+                 */
+                protected ClassLoader getBootstrapMarkerLoader() {
+                    return ClassLoader.getSystemClassLoader();
+                }
+
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    if (!super.equals(object)) return false;
+                    Simple simple = (Simple) object;
+                    return cacheProviders.equals(simple.cacheProviders);
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = super.hashCode();
+                    result = 31 * result + cacheProviders.hashCode();
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.PoolStrategy.WithTypePoolCache.Simple{" +
+                            "cacheProviders=" + cacheProviders +
+                            ", symbolTable=" + symbolTable +
+                            ", cacheProviderFactory=" + cacheProviderFactory +
+                            '}';
+                }
+            }
+
+            /**
+             * <p>
+             * An implementation of a type locator {@link WithTypePoolCache} that keeps a cache provider per class loader where each class loader
+             * is only referenced weakly. Once a class loader is garbage collected, its cache provider is removed from this type locator when it
+             * is queried the next time such that no explicit cleanup is required. Looking up the cache provider of the class loader that was
+             * queried most recently does neither allocate an object nor acquire a lock.
+             * </p>
+             * <p>
+             * <b>Important</b>: A type description that is cached by a {@link TypePool.Default} references the type pool's {@link ClassFileLocator}.
+             * If this class file locator references its class loader strongly, the class loader can never be collected. Therefore, this type locator
+             * must be combined with a location strategy that references class loaders weakly such as {@link LocationStrategy.ForClassLoader#WEAK}.
+             * When this pool strategy is registered via {@link AgentBuilder#with(PoolStrategy)} while the default
+             * {@link LocationStrategy.ForClassLoader#STRONG} location strategy is set, the location strategy is replaced by
+             * {@link LocationStrategy.ForClassLoader#WEAK}.
+             * </p>
+             */
+            public static class Weak extends WithTypePoolCache {
+
+                /**
+                 * A map of cache providers by their weakly referenced class loaders. Both the keys and values of this map are
+                 * {@link WeakEntry} instances which allows the lookup via a {@link LookupKey}.
+                 */
+                private final ConcurrentMap<Object, WeakEntry> cacheProviders;
+
+                /**
+                 * The reference queue that is notified when a class loader with a registered cache provider is garbage collected.
+                 */
+                private final ReferenceQueue<ClassLoader> referenceQueue;
+
+                /**
+                 * The entry that was most recently looked up or {@code null} if no such entry exists.
+                 */
+                private volatile WeakEntry recent;
+
+                /**
+                 * A lookup key per thread that is reused for looking up the entry of a class loader that was not queried most recently.
+                 */
+                private final ThreadLocal<LookupKey> lookupKeys;
+
+                /**
+                 * Creates a new type locator that weakly caches a cache provider per class loader. The type locator uses
+                 * a fast {@link net.bytebuddy.pool.TypePool.Default.ReaderMode}.
+                 */
+                public Weak() {
+                    this(TypePool.Default.ReaderMode.FAST);
+                }
+
+                /**
+                 * Creates a new type locator that weakly caches a cache provider per class loader.
+                 *
+                 * @param readerMode The reader mode to use for parsing a class file.
+                 */
+                public Weak(TypePool.Default.ReaderMode readerMode) {
+                    this(readerMode, TypePool.Default.SymbolTable.NoOp.INSTANCE);
+                }
+
+                /**
+                 * Creates a new type locator that weakly caches a cache provider per class loader. Any type pool of this type locator shares
+                 * the given symbol table such that strings that are read from class files are deduplicated across class loaders.
+                 *
+                 * @param readerMode  The reader mode to use for parsing a class file.
+                 * @param symbolTable The symbol table to use for deduplicating strings that are read from class files.
+                 */
+                public Weak(TypePool.Default.ReaderMode readerMode, TypePool.Default.SymbolTable symbolTable) {
+                    this(readerMode, symbolTable, CacheProviderFactory.ForSimpleCache.INSTANCE);
+                }
+
+                /**
+                 * Creates a new type locator that weakly caches a cache provider per class loader where each cache provider is created
+                 * by the given factory, for example for bounding the number of cached types per class loader.
+                 *
+                 * @param readerMode           The reader mode to use for parsing a class file.
+                 * @param symbolTable          The symbol table to use for deduplicating strings that are read from class files.
+                 * @param cacheProviderFactory The factory to use for creating a cache provider for a class loader.
+                 */
+                public Weak(TypePool.Default.ReaderMode readerMode,
+                            TypePool.Default.SymbolTable symbolTable,
+                            CacheProviderFactory cacheProviderFactory) {
+                    super(readerMode, symbolTable, cacheProviderFactory);
+                    cacheProviders = new ConcurrentHashMap<Object, WeakEntry>();
+                    referenceQueue = new ReferenceQueue<ClassLoader>();
+                    lookupKeys = new ThreadLocal<LookupKey>() {
+                        @Override
+                        protected LookupKey initialValue() {
+                            return new LookupKey();
+                        }
+                    };
+                }
+
+                @Override
+                protected TypePool.CacheProvider locate(ClassLoader classLoader) {
+                    expungeStaleEntries();
+                    classLoader = classLoader == null ? getBootstrapMarkerLoader() : classLoader;
+                    WeakEntry entry = recent;
+                    if (entry == null || entry.get() != classLoader) {
+                        LookupKey lookupKey = lookupKeys.get();
+                        try {
+                            entry = cacheProviders.get(lookupKey.with(classLoader));
+                        } finally {
+                            lookupKey.clear();
+                        }
+                        while (entry == null) {
+                            entry = new WeakEntry(classLoader, referenceQueue, makeCacheProvider());
+                            WeakEntry previous = cacheProviders.putIfAbsent(entry, entry);
+                            if (previous != null) {
+                                entry = previous;
+                            }
+                        }
+                        recent = entry;
+                    }
+                    return entry.getCacheProvider();
+                }
+
+                /**
+                 * Removes the cache providers of all class loaders that were garbage collected.
+                 */
+                protected void expungeStaleEntries() {
+                    Reference<?> reference;
+                    while ((reference = referenceQueue.poll()) != null) {
+                        cacheProviders.remove(reference);
+                        if (recent == reference) {
+                            recent = null;
+                        }
+                    }
+                }
+
+                /**
+                 * Creates a new cache provider for a class loader that was not previously queried.
+                 *
+                 * @return A new cache provider.
+                 */
+                protected TypePool.CacheProvider makeCacheProvider() {
+                    return cacheProviderFactory.make();
+                }
+
+                /**
+                 * Returns the class loader to serve as a cache key if a cache provider for the bootstrap class loader is requested.
+                 * By default, {@link ClassLoader#getSystemClassLoader()} is used as such a key as any resource location for the
+                 * bootstrap class loader is performed via the system class loader within Byte Buddy.
+                 *
+                 * @return A class loader to represent the bootstrap class loader.
+                 */
+                protected ClassLoader getBootstrapMarkerLoader() {
+                    return ClassLoader.getSystemClassLoader();
+                }
+
+                /**
+                 * Returns the number of class loaders for which a cache provider is currently registered after removing the
+                 * cache providers of all garbage collected class loaders.
+                 *
+                 * @return The number of class loaders for which a cache provider is currently registered.
+                 */
+                public int size() {
+                    expungeStaleEntries();
+                    return cacheProviders.size();
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    return this == other;
+                }
+
+                @Override
+                public int hashCode() {
+                    return System.identityHashCode(this);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.PoolStrategy.WithTypePoolCache.Weak{" +
+                            "readerMode=" + readerMode +
+                            ", symbolTable=" + symbolTable +
+                            ", cacheProviderFactory=" + cacheProviderFactory +
+                            ", cacheProviders=" + cacheProviders +
+                            ", referenceQueue=" + referenceQueue +
+                            ", recent=" + recent +
+                            '}';
+                }
+
+                /**
+                 * A weak reference to a class loader that holds the class loader's cache provider. Two entries are equal if they
+                 * reference the identical class loader. An entry is only equal to itself once its class loader was collected.
+                 */
+                protected static class WeakEntry extends WeakReference<ClassLoader> {
+
+                    /**
+                     * The identity hash code of the referenced class loader.
+                     */
+                    private final int hashCode;
+
+                    /**
+                     * The cache provider of the referenced class loader.
+                     */
+                    private final TypePool.CacheProvider cacheProvider;
+
+                    /**
+                     * Creates a new weak entry.
+                     *
+                     * @param classLoader    The referenced class loader.
+                     * @param referenceQueue The reference queue to notify upon the collection of the class loader.
+                     * @param cacheProvider  The cache provider of the referenced class loader.
+                     */
+                    protected WeakEntry(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue, TypePool.CacheProvider cacheProvider) {
+                        super(classLoader, referenceQueue);
+                        hashCode = System.identityHashCode(classLoader);
+                        this.cacheProvider = cacheProvider;
+                    }
+
+                    /**
+                     * Returns the cache provider of the referenced class loader.
+                     *
+                     * @return The cache provider of the referenced class loader.
+                     */
+                    protected TypePool.CacheProvider getCacheProvider() {
+                        return cacheProvider;
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) {
+                            return true;
+                        } else if (other instanceof WeakEntry) {
+                            ClassLoader classLoader = get();
+                            return classLoader != null && classLoader == ((WeakEntry) other).get();
+                        } else {
+                            return other instanceof LookupKey && ((LookupKey) other).equals(this);
+                        }
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return hashCode;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.WeakEntry{" +
+                                "classLoader=" + get() +
+                                ", cacheProvider=" + cacheProvider +
+                                '}';
+                    }
+                }
+
+                /**
+                 * A key for looking up a class loader's {@link WeakEntry} without creating a weak reference. A lookup key is confined to
+                 * a single thread and is reused for any lookup of this thread. It is cleared after each lookup such that it does not
+                 * reference a class loader strongly.
+                 */
+                protected static class LookupKey {
+
+                    /**
+                     * The class loader to look up or {@code null} if this key is cleared.
+                     */
+                    private ClassLoader classLoader;
+
+                    /**
+                     * The identity hash code of the class loader.
+                     */
+                    private int hashCode;
+
+                    /**
+                     * Creates a new, cleared lookup key.
+                     */
+                    protected LookupKey() {
+                        /* do nothing */
+                    }
+
+                    /**
+                     * Creates a new lookup key.
+                     *
+                     * @param classLoader The class loader to look up.
+                     */
+                    protected LookupKey(ClassLoader classLoader) {
+                        with(classLoader);
+                    }
+
+                    /**
+                     * Sets the class loader to look up.
+                     *
+                     * @param classLoader The class loader to look up.
+                     * @return This lookup key.
+                     */
+                    protected LookupKey with(ClassLoader classLoader) {
+                        this.classLoader = classLoader;
+                        hashCode = System.identityHashCode(classLoader);
+                        return this;
+                    }
+
+                    /**
+                     * Clears this lookup key such that it no longer references a class loader.
+                     */
+                    protected void clear() {
+                        classLoader = null;
+                        hashCode = 0;
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) {
+                            return true;
+                        } else if (other instanceof LookupKey) {
+                            return classLoader == ((LookupKey) other).classLoader;
+                        } else {
+                            return other instanceof WeakEntry && classLoader == ((WeakEntry) other).get();
+                        }
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return hashCode;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey{" +
+                                "classLoader=" + classLoader +
+                                '}';
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An initialization strategy which determines the handling of {@link net.bytebuddy.implementation.LoadedTypeInitializer}s
+     * and the loading of auxiliary types. The agent builder does not reuse the {@link TypeResolutionStrategy} as Javaagents cannot access
+     * a loaded class after a transformation such that different initialization strategies become meaningful.
+     */
+    interface InitializationStrategy {
+
+        /**
+         * Creates a new dispatcher for injecting this initialization strategy during a transformation process.
+         *
+         * @return The dispatcher to be used.
+         */
+        Dispatcher dispatcher();
+
+        /**
+         * A dispatcher for changing a class file to adapt a self-initialization strategy.
+         */
+        interface Dispatcher {
+
+            /**
+             * Transforms the instrumented type to implement an appropriate initialization strategy.
+             *
+             * @param builder The builder which should implement the initialization strategy.
+             * @return The given {@code builder} with the initialization strategy applied.
+             */
+            DynamicType.Builder<?> apply(DynamicType.Builder<?> builder);
+
+            /**
+             * Registers a dynamic type for initialization and/or begins the initialization process.
+             *
+             * @param dynamicType     The dynamic type that is created.
+             * @param classLoader     The class loader of the dynamic type.
+             * @param injectorFactory The injector factory
+             */
+            void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory);
+
+            /**
+             * A factory for creating a {@link ClassInjector} only if it is required.
+             */
+            interface InjectorFactory {
+
+                /**
+                 * Resolves the class injector for this factory.
+                 *
+                 * @return The class injector for this factory.
+                 */
+                ClassInjector resolve();
+            }
+        }
+
+        /**
+         * A non-initializing initialization strategy.
+         */
+        enum NoOp implements InitializationStrategy, Dispatcher {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public Dispatcher dispatcher() {
+                return this;
+            }
+
+            @Override
+            public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
+                return builder;
+            }
+
+            @Override
+            public void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory) {
+                /* do nothing */
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.InitializationStrategy.NoOp." + name();
+            }
+        }
+
+        /**
+         * An initialization strategy that loads auxiliary types before loading the instrumented type. This strategy skips all types
+         * that are a subtype of the instrumented type which would cause a premature loading of the instrumented type and abort
+         * the instrumentation process.
+         */
+        enum Minimal implements InitializationStrategy, Dispatcher {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public Dispatcher dispatcher() {
+                return this;
+            }
+
+            @Override
+            public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
+                return builder;
+            }
+
+            @Override
+            public void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory) {
+                Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
+                Map<TypeDescription, byte[]> independentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
+                for (TypeDescription auxiliaryType : auxiliaryTypes.keySet()) {
+                    if (!auxiliaryType.getDeclaredAnnotations().isAnnotationPresent(AuxiliaryType.SignatureRelevant.class)) {
+                        independentTypes.remove(auxiliaryType);
+                    }
+                }
+                if (!independentTypes.isEmpty()) {
+                    ClassInjector classInjector = injectorFactory.resolve();
+                    Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
+                    for (Map.Entry<TypeDescription, Class<?>> entry : classInjector.inject(independentTypes).entrySet()) {
+                        loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.InitializationStrategy.Minimal." + name();
+            }
+        }
+
+        /**
+         * An initialization strategy that adds a code block to an instrumented type's type initializer which
+         * then calls a specific class that is responsible for the explicit initialization.
+         */
+        abstract class SelfInjection implements InitializationStrategy {
+
+            /**
+             * The nexus accessor to use.
+             */
+            protected final NexusAccessor nexusAccessor;
+
+            /**
+             * Creates a new self-injection strategy.
+             *
+             * @param nexusAccessor The nexus accessor to use.
+             */
+            protected SelfInjection(NexusAccessor nexusAccessor) {
+                this.nexusAccessor = nexusAccessor;
+            }
+
+            @Override
+            @SuppressFBWarnings(value = "DMI_RANDOM_USED_ONLY_ONCE", justification = "Avoiding synchronization without security concerns")
+            public InitializationStrategy.Dispatcher dispatcher() {
+                return dispatcher(new Random().nextInt());
+            }
+
+            /**
+             * Creates a new dispatcher.
+             *
+             * @param identification The identification code to use.
+             * @return An appropriate dispatcher for an initialization strategy.
+             */
+            protected abstract InitializationStrategy.Dispatcher dispatcher(int identification);
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                SelfInjection that = (SelfInjection) object;
+                return nexusAccessor.equals(that.nexusAccessor);
+            }
+
+            @Override
+            public int hashCode() {
+                return nexusAccessor.hashCode();
+            }
+
+            /**
+             * A dispatcher for a self-initialization strategy.
+             */
+            protected abstract static class Dispatcher implements InitializationStrategy.Dispatcher {
+
+                /**
+                 * The nexus accessor to use.
+                 */
+                protected final NexusAccessor nexusAccessor;
+
+                /**
+                 * A random identification for the applied self-initialization.
+                 */
+                protected final int identification;
+
+                /**
+                 * Creates a new dispatcher.
+                 *
+                 * @param nexusAccessor  The nexus accessor to use.
+                 * @param identification A random identification for the applied self-initialization.
+                 */
+                protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
+                    this.nexusAccessor = nexusAccessor;
+                    this.identification = identification;
+                }
+
+                @Override
+                public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
+                    return builder.initializer(new NexusAccessor.InitializationAppender(identification));
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    return this == other || !(other == null || getClass() != other.getClass())
+                            && identification == ((Dispatcher) other).identification
+                            && nexusAccessor == ((Dispatcher) other).nexusAccessor;
+                }
+
+                @Override
+                public int hashCode() {
+                    return identification + 31 * nexusAccessor.hashCode();
+                }
+
+                /**
+                 * A type initializer that injects all auxiliary types of the instrumented type.
+                 */
+                protected static class InjectingInitializer implements LoadedTypeInitializer {
+
+                    /**
+                     * The instrumented type.
+                     */
+                    private final TypeDescription instrumentedType;
+
+                    /**
+                     * The auxiliary types mapped to their class file representation.
+                     */
+                    private final Map<TypeDescription, byte[]> rawAuxiliaryTypes;
+
+                    /**
+                     * The instrumented types and auxiliary types mapped to their loaded type initializers.
+                     * The instrumented types and auxiliary types mapped to their loaded type initializers.
+                     */
+                    private final Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers;
+
+                    /**
+                     * The class injector to use.
+                     */
+                    private final ClassInjector classInjector;
+
+                    /**
+                     * Creates a new injection initializer.
+                     *
+                     * @param instrumentedType       The instrumented type.
+                     * @param rawAuxiliaryTypes      The auxiliary types mapped to their class file representation.
+                     * @param loadedTypeInitializers The instrumented types and auxiliary types mapped to their loaded type initializers.
+                     * @param classInjector          The class injector to use.
+                     */
+                    protected InjectingInitializer(TypeDescription instrumentedType,
+                                                   Map<TypeDescription, byte[]> rawAuxiliaryTypes,
+                                                   Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers,
+                                                   ClassInjector classInjector) {
+                        this.instrumentedType = instrumentedType;
+                        this.rawAuxiliaryTypes = rawAuxiliaryTypes;
+                        this.loadedTypeInitializers = loadedTypeInitializers;
+                        this.classInjector = classInjector;
+                    }
+
+                    @Override
+                    public void onLoad(Class<?> type) {
+                        for (Map.Entry<TypeDescription, Class<?>> auxiliary : classInjector.inject(rawAuxiliaryTypes).entrySet()) {
+                            loadedTypeInitializers.get(auxiliary.getKey()).onLoad(auxiliary.getValue());
+                        }
+                        loadedTypeInitializers.get(instrumentedType).onLoad(type);
+                    }
+
+                    @Override
+                    public boolean isAlive() {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean equals(Object o) {
+                        if (this == o) return true;
+                        if (o == null || getClass() != o.getClass()) return false;
+                        InjectingInitializer that = (InjectingInitializer) o;
+                        return classInjector.equals(that.classInjector)
+                                && instrumentedType.equals(that.instrumentedType)
+                                && rawAuxiliaryTypes.equals(that.rawAuxiliaryTypes)
+                                && loadedTypeInitializers.equals(that.loadedTypeInitializers);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        int result = instrumentedType.hashCode();
+                        result = 31 * result + rawAuxiliaryTypes.hashCode();
+                        result = 31 * result + loadedTypeInitializers.hashCode();
+                        result = 31 * result + classInjector.hashCode();
+                        return result;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.InitializationStrategy.SelfInjection.Dispatcher.InjectingInitializer{" +
+                                "instrumentedType=" + instrumentedType +
+                                ", rawAuxiliaryTypes=" + rawAuxiliaryTypes +
+                                ", loadedTypeInitializers=" + loadedTypeInitializers +
+                                ", classInjector=" + classInjector +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * A form of self-injection where auxiliary types that are annotated by
+             * {@link net.bytebuddy.implementation.auxiliary.AuxiliaryType.SignatureRelevant} of the instrumented type are loaded lazily and
+             * any other auxiliary type is loaded eagerly.
+             */
+            public static class Split extends SelfInjection {
+
+                /**
+                 * Creates a new split self-injection strategy that uses a default nexus accessor.
+                 */
+                public Split() {
+                    this(new NexusAccessor());
+                }
+
+                /**
+                 * Creates a new split self-injection strategy that uses the supplied nexus accessor.
+                 *
+                 * @param nexusAccessor The nexus accessor to use.
+                 */
+                public Split(NexusAccessor nexusAccessor) {
+                    super(nexusAccessor);
+                }
+
+                @Override
+                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
+                    return new Dispatcher(nexusAccessor, identification);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.InitializationStrategy.SelfInjection.Split{" +
+                            "nexusAccessor=" + nexusAccessor +
+                            "}";
+                }
+
+                /**
+                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Split} strategy.
+                 */
+                protected static class Dispatcher extends SelfInjection.Dispatcher {
+
+                    /**
+                     * Creates a new split dispatcher.
+                     *
+                     * @param nexusAccessor  The nexus accessor to use.
+                     * @param identification A random identification for the applied self-initialization.
+                     */
+                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
+                        super(nexusAccessor, identification);
+                    }
+
+                    @Override
+                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
+                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
+                        LoadedTypeInitializer loadedTypeInitializer;
+                        if (!auxiliaryTypes.isEmpty()) {
+                            TypeDescription instrumentedType = dynamicType.getTypeDescription();
+                            ClassInjector classInjector = injectorFactory.resolve();
+                            Map<TypeDescription, byte[]> independentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
+                            Map<TypeDescription, byte[]> dependentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
+                            for (TypeDescription auxiliaryType : auxiliaryTypes.keySet()) {
+                                (auxiliaryType.getDeclaredAnnotations().isAnnotationPresent(AuxiliaryType.SignatureRelevant.class)
+                                        ? dependentTypes
+                                        : independentTypes).remove(auxiliaryType);
+                            }
+                            Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
+                            if (!independentTypes.isEmpty()) {
+                                for (Map.Entry<TypeDescription, Class<?>> entry : classInjector.inject(independentTypes).entrySet()) {
+                                    loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
+                                }
+                            }
+                            Map<TypeDescription, LoadedTypeInitializer> lazyInitializers = new HashMap<TypeDescription, LoadedTypeInitializer>(loadedTypeInitializers);
+                            loadedTypeInitializers.keySet().removeAll(independentTypes.keySet());
+                            loadedTypeInitializer = lazyInitializers.size() > 1 // there exist auxiliary types that need lazy loading
+                                    ? new Dispatcher.InjectingInitializer(instrumentedType, dependentTypes, lazyInitializers, classInjector)
+                                    : lazyInitializers.get(instrumentedType);
+                        } else {
+                            loadedTypeInitializer = dynamicType.getLoadedTypeInitializers().get(dynamicType.getTypeDescription());
+                        }
+                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.InitializationStrategy.SelfInjection.Split.Dispatcher{" +
+                                "nexusAccessor=" + nexusAccessor +
+                                ", identification=" + identification +
+                                "}";
+                    }
+                }
+            }
+
+            /**
+             * A form of self-injection where any auxiliary type is loaded lazily.
+             */
+            public static class Lazy extends SelfInjection {
+
+                /**
+                 * Creates a new lazy self-injection strategy that uses a default nexus accessor.
+                 */
+                public Lazy() {
+                    this(new NexusAccessor());
+                }
+
+                /**
+                 * Creates a new lazy self-injection strategy that uses the supplied nexus accessor.
+                 *
+                 * @param nexusAccessor The nexus accessor to use.
+                 */
+                public Lazy(NexusAccessor nexusAccessor) {
+                    super(nexusAccessor);
+                }
+
+                @Override
+                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
+                    return new Dispatcher(nexusAccessor, identification);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.InitializationStrategy.SelfInjection.Lazy{" +
+                            "nexusAccessor=" + nexusAccessor +
+                            "}";
+                }
+
+                /**
+                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Lazy} strategy.
+                 */
+                protected static class Dispatcher extends SelfInjection.Dispatcher {
+
+                    /**
+                     * Creates a new lazy dispatcher.
+                     *
+                     * @param nexusAccessor  The nexus accessor to use.
+                     * @param identification A random identification for the applied self-initialization.
+                     */
+                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
+                        super(nexusAccessor, identification);
+                    }
+
+                    @Override
+                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
+                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
+                        LoadedTypeInitializer loadedTypeInitializer = auxiliaryTypes.isEmpty()
+                                ? dynamicType.getLoadedTypeInitializers().get(dynamicType.getTypeDescription())
+                                : new Dispatcher.InjectingInitializer(dynamicType.getTypeDescription(), auxiliaryTypes, dynamicType.getLoadedTypeInitializers(), injectorFactory.resolve());
+                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.InitializationStrategy.SelfInjection.Lazy.Dispatcher{" +
+                                "nexusAccessor=" + nexusAccessor +
+                                ", identification=" + identification +
+                                "}";
+                    }
+                }
+            }
+
+            /**
+             * A form of self-injection where any auxiliary type is loaded eagerly.
+             */
+            public static class Eager extends SelfInjection {
+
+                /**
+                 * Creates a new eager self-injection strategy that uses a default nexus accesor.
+                 */
+                public Eager() {
+                    this(new NexusAccessor());
+                }
+
+                /**
+                 * Creates a new eager self-injection strategy that uses the supplied nexus accessor.
+                 *
+                 * @param nexusAccessor The nexus accessor to use.
+                 */
+                public Eager(NexusAccessor nexusAccessor) {
+                    super(nexusAccessor);
+                }
+
+                @Override
+                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
+                    return new Dispatcher(nexusAccessor, identification);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.InitializationStrategy.SelfInjection.Eager{" +
+                            "nexusAccessor=" + nexusAccessor +
+                            "}";
+                }
+
+                /**
+                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Eager} strategy.
+                 */
+                protected static class Dispatcher extends SelfInjection.Dispatcher {
+
+                    /**
+                     * Creates a new eager dispatcher.
+                     *
+                     * @param nexusAccessor  The nexus accessor to use.
+                     * @param identification A random identification for the applied self-initialization.
+                     */
+                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
+                        super(nexusAccessor, identification);
+                    }
+
+                    @Override
+                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
+                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
+                        Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
+                        if (!auxiliaryTypes.isEmpty()) {
+                            for (Map.Entry<TypeDescription, Class<?>> entry : injectorFactory.resolve().inject(auxiliaryTypes).entrySet()) {
+                                loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
+                            }
+                        }
+                        LoadedTypeInitializer loadedTypeInitializer = loadedTypeInitializers.get(dynamicType.getTypeDescription());
+                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.InitializationStrategy.SelfInjection.Eager.Dispatcher{" +
+                                "nexusAccessor=" + nexusAccessor +
+                                ", identification=" + identification +
+                                "}";
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A description strategy is responsible for resolving a {@link TypeDescription} when transforming or retransforming/-defining a type.
+     */
+    interface DescriptionStrategy {
+
+        /**
+         * Describes the given type.
+         *
+         * @param typeName The binary name of the type to describe.
+         * @param type     The type that is being redefined, if a redefinition is applied or {@code null} if no redefined type is available.
+         * @param typePool The type pool to use for locating a type if required.
+         * @return An appropriate type description.
+         */
+        TypeDescription apply(String typeName, Class<?> type, TypePool typePool);
+
+        /**
+         * Indicates if this description strategy makes use of loaded type information and yields a different type description if no loaded type is available.
+         *
+         * @return {@code true} if this description strategy prefers loaded type information when describing a type and only uses a type pool
+         * if loaded type information is not available.
+         */
+        boolean isLoadedFirst();
+
+        /**
+         * Default implementations of a {@link DescriptionStrategy}.
+         */
+        enum Default implements DescriptionStrategy {
+
+            /**
+             * A description type strategy represents a type as a {@link net.bytebuddy.description.type.TypeDescription.ForLoadedType} if a
+             * retransformation or redefinition is applied on a type. Using a loaded type typically results in better performance as no
+             * I/O is required for resolving type descriptions. However, any interaction with the type is carried out via the Java reflection
+             * API. Using the reflection API triggers eager loading of any type that is part of a method or field signature. If any of these
+             * types are missing from the class path, this eager loading will cause a {@link NoClassDefFoundError}. Some Java code declares
+             * optional dependencies to other classes which are only realized if the optional dependency is present. Such code relies on the
+             * Java reflection API not being used for types using optional dependencies.
+             *
+             * @see FallbackStrategy.Simple#ENABLED
+             * @see FallbackStrategy.ByThrowableType#ofOptionalTypes()
+             */
+            HYBRID(true) {
+                @Override
+                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
+                    return type == null
+                            ? typePool.describe(typeName).resolve()
+                            : new TypeDescription.ForLoadedType(type);
+                }
+            },
+
+            /**
+             * <p>
+             * A description strategy that always describes Java types using a {@link TypePool}. This requires that any type - even if it is already
+             * loaded and a {@link Class} instance is available - is processed as a non-loaded type description. Doing so can cause overhead as processing
+             * loaded types is supported very efficiently by a JVM.
+             * </p>
+             * <p>
+             * Avoiding the usage of loaded types can improve robustness as this approach does not rely on the Java reflection API which triggers eager
+             * validation of this loaded type which can fail an application if optional types are used by any types field or method signatures. Also, it
+             * is possible to guarantee debugging meta data to be available also for retransformed or redefined types if a {@link TypeStrategy} specifies
+             * the extraction of such meta data.
+             * </p>
+             */
+            POOL_ONLY(false) {
+                @Override
+                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
+                    return typePool.describe(typeName).resolve();
+                }
+            },
+
+            /**
+             * <p>
+             * A description strategy that always describes Java types using a {@link TypePool} unless a type cannot be resolved by a pool and a loaded
+             * {@link Class} instance  is available. Doing so can cause overhead as processing loaded types is supported very efficiently by a JVM.
+             * </p>
+             * <p>
+             * Avoiding the usage of loaded types can improve robustness as this approach does not rely on the Java reflection API which triggers eager
+             * validation of this loaded type which can fail an application if optional types are used by any types field or method signatures. Also, it
+             * is possible to guarantee debugging meta data to be available also for retransformed or redefined types if a {@link TypeStrategy} specifies
+             * the extraction of such meta data.
+             * </p>
+             */
+            POOL_FIRST(false) {
+                @Override
+                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
+                    TypePool.Resolution resolution = typePool.describe(typeName);
+                    return resolution.isResolved() || type == null
+                            ? resolution.resolve()
+                            : new TypeDescription.ForLoadedType(type);
+                }
+            };
+
+            /**
+             * Indicates if loaded type information is preferred over using a type pool for describing a type.
+             */
+            private final boolean loadedFirst;
+
+            /**
+             * Indicates if loaded type information is preferred over using a type pool for describing a type.
+             *
+             * @param loadedFirst {@code true} if loaded type information is preferred over using a type pool for describing a type.
+             */
+            Default(boolean loadedFirst) {
+                this.loadedFirst = loadedFirst;
+            }
+
+            @Override
+            public boolean isLoadedFirst() {
+                return loadedFirst;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.DescriptionStrategy.Default." + name();
+            }
+        }
+    }
+
+    /**
+     * An installation strategy determines the reaction to a raised exception after the registration of a {@link ClassFileTransformer}.
+     */
+    interface InstallationStrategy {
+
+        /**
+         * Handles an error that occured after registering a class file transformer during installation.
+         *
+         * @param instrumentation      The instrumentation onto which the class file transformer was registered.
+         * @param classFileTransformer The class file transformer that was registered.
+         * @param throwable            The error that occurred.
+         * @return The class file transformer to return when an error occurred.
+         */
+        ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable);
+
+        /**
+         * Default implementations of installation strategies.
+         */
+        enum Default implements InstallationStrategy {
+
+            /**
+             * <p>
+             * An installation strategy that unregisters the transformer and propagates the exception. Using this strategy does not guarantee
+             * that the registered transformer was not applied to any class, nor does it attempt to revert previous transformations. It only
+             * guarantees that the class file transformer is unregistered and does no longer apply after this method returns.
+             * </p>
+             * <p>
+             * <b>Note</b>: This installation strategy does not undo any applied class redefinitions, if such were applied.
+             * </p>
+             */
+            ESCALATING {
+                @Override
+                public ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable) {
+                    instrumentation.removeTransformer(classFileTransformer);
+                    throw new IllegalStateException("Could not install class file transformer", throwable);
+                }
+            },
+
+            /**
+             * An installation strategy that retains the class file transformer and suppresses the error.
+             */
+            SUPPRESSING {
+                @Override
+                public ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable) {
+                    return classFileTransformer;
+                }
+            };
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.InstallationStrategy.Default." + name();
+            }
+        }
+    }
+
+    /**
+     * A strategy for creating a {@link ClassFileLocator} when instrumenting a type.
+     */
+    interface LocationStrategy {
+
+        /**
+         * Creates a class file locator for a given class loader and module combination.
+         *
+         * @param classLoader The class loader that is loading an instrumented type. Might be {@code null} to represent the bootstrap class loader.
+         * @param module      The type's module or {@code null} if Java modules are not supported on the current VM.
+         * @return The class file locator to use.
+         */
+        ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module);
+
+        /**
+         * A location strategy that never locates any byte code.
+         */
+        enum NoOp implements LocationStrategy {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                return ClassFileLocator.NoOp.INSTANCE;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.NoOp." + name();
+            }
+        }
+
+        /**
+         * A location strategy that locates class files by querying an instrumented type's {@link ClassLoader}.
+         */
+        enum ForClassLoader implements LocationStrategy {
+
+            /**
+             * A location strategy that keeps a strong reference to the class loader the created class file locator represents.
+             */
+            STRONG {
+                @Override
+                public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                    return ClassFileLocator.ForClassLoader.of(classLoader);
+                }
+            },
+
+            /**
+             * A location strategy that keeps a weak reference to the class loader the created class file locator represents.
+             * As a consequence, any returned class file locator stops working once the represented class loader is garbage collected.
+             */
+            WEAK {
+                @Override
+                public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                    return ClassFileLocator.ForClassLoader.WeaklyReferenced.of(classLoader);
+                }
+            };
+
+            /**
+             * Adds additional location strategies as fallbacks to this location strategy.
+             *
+             * @param classFileLocator The class file locators to query if this location strategy cannot locate a class file.
+             * @return A compound location strategy that first applies this location strategy and then queries the supplied class file locators.
+             */
+            public LocationStrategy withFallbackTo(ClassFileLocator... classFileLocator) {
+                return withFallbackTo(Arrays.asList(classFileLocator));
+            }
+
+            /**
+             * Adds additional location strategies as fallbacks to this location strategy.
+             *
+             * @param classFileLocators The class file locators to query if this location strategy cannot locate a class file.
+             * @return A compound location strategy that first applies this location strategy and then queries the supplied class file locators.
+             */
+            public LocationStrategy withFallbackTo(Collection<? extends ClassFileLocator> classFileLocators) {
+                List<LocationStrategy> locationStrategies = new ArrayList<LocationStrategy>(classFileLocators.size());
+                for (ClassFileLocator classFileLocator : classFileLocators) {
+                    locationStrategies.add(new Simple(classFileLocator));
+                }
+                return withFallbackTo(locationStrategies);
+            }
+
+            /**
+             * Adds additional location strategies as fallbacks to this location strategy.
+             *
+             * @param locationStrategy The fallback location strategies to use.
+             * @return A compound location strategy that first applies this location strategy and then the supplied fallback location strategies
+             * in the supplied order.
+             */
+            public LocationStrategy withFallbackTo(LocationStrategy... locationStrategy) {
+                return withFallbackTo(Arrays.asList(locationStrategy));
+            }
+
+            /**
+             * Adds additional location strategies as fallbacks to this location strategy.
+             *
+             * @param locationStrategies The fallback location strategies to use.
+             * @return A compound location strategy that first applies this location strategy and then the supplied fallback location strategies
+             * in the supplied order.
+             */
+            public LocationStrategy withFallbackTo(List<? extends LocationStrategy> locationStrategies) {
+                List<LocationStrategy> allLocationStrategies = new ArrayList<LocationStrategy>(locationStrategies.size() + 1);
+                allLocationStrategies.add(this);
+                allLocationStrategies.addAll(locationStrategies);
+                return new Compound(allLocationStrategies);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.ForClassLoader." + name();
+            }
+        }
+
+        /**
+         * <p>
+         * A location strategy that locates class files of a {@link java.net.URLClassLoader} by reading them directly from an index of the class
+         * loader's jar files and folders and that only queries a class loader's resource API if a class file is not found in this index. Any
+         * index is created once per class loader and is retained until the class loader is garbage collected or until this location strategy
+         * is cleared. Class loaders of any other type are queried by their resource API. Any class loader is only weakly referenced. The jar
+         * files of an index are closed once its class loader was garbage collected, which is discovered on any subsequent lookup, or when
+         * this location strategy is cleared.
+         * </p>
+         * <p>
+         * <b>Important</b>: A class file that is found in a class loader's own jar files and folders is preferred over a class file of any of the
+         * class loader's parents. See {@link ClassFileLocator.ForClassLoader.Indexed} for details.
+         * </p>
+         */
+        class Indexing implements LocationStrategy {
+
+            /**
+             * A mapping of class loaders to their indexed class file locators.
+             */
+            private final Map<ClassLoader, ClassFileLocator> classFileLocators;
+
+            /**
+             * A reference queue onto which indexed class file locators are enqueued once their class loader is garbage collected.
+             */
+            private final ReferenceQueue<ClassLoader> referenceQueue;
+
+            /**
+             * Creates a new indexing location strategy.
+             */
+            public Indexing() {
+                classFileLocators = new WeakHashMap<ClassLoader, ClassFileLocator>();
+                referenceQueue = new ReferenceQueue<ClassLoader>();
+            }
+
+            @Override
+            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                if (!(classLoader instanceof URLClassLoader)) {
+                    return ClassFileLocator.ForClassLoader.WeaklyReferenced.of(classLoader);
+                }
+                expungeStaleEntries();
+                ClassFileLocator classFileLocator;
+                synchronized (classFileLocators) {
+                    classFileLocator = classFileLocators.get(classLoader);
+                }
+                if (classFileLocator != null) {
+                    return classFileLocator;
+                }
+                classFileLocator = ClassFileLocator.ForClassLoader.Indexed.of(classLoader, referenceQueue);
+                ClassFileLocator previous;
+                synchronized (classFileLocators) {
+                    previous = classFileLocators.get(classLoader);
+                    if (previous == null) {
+                        classFileLocators.put(classLoader, classFileLocator);
+                    }
+                }
+                if (previous == null) {
+                    return classFileLocator;
+                } else {
+                    close(classFileLocator);
+                    return previous;
+                }
+            }
+
+            /**
+             * Closes any indexed class file locator of a class loader that was garbage collected.
+             */
+            protected void expungeStaleEntries() {
+                Reference<?> reference;
+                while ((reference = referenceQueue.poll()) != null) {
+                    close((ClassFileLocator) reference);
+                }
+            }
+
+            /**
+             * Closes a class file locator and ignores any exception.
+             *
+             * @param classFileLocator The class file locator to close.
+             */
+            private static void close(ClassFileLocator classFileLocator) {
+                try {
+                    classFileLocator.close();
+                } catch (IOException ignored) {
+                    /* do nothing */
+                }
+            }
+
+            /**
+             * Removes and closes all indices such that any class loader's class path is indexed anew. A class file locator that was
+             * previously returned by this location strategy must not be used after this method was called.
+             */
+            public void clear() {
+                List<ClassFileLocator> classFileLocators;
+                synchronized (this.classFileLocators) {
+                    classFileLocators = new ArrayList<ClassFileLocator>(this.classFileLocators.values());
+                    this.classFileLocators.clear();
+                }
+                for (ClassFileLocator classFileLocator : classFileLocators) {
+                    close(classFileLocator);
+                }
+                expungeStaleEntries();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.Indexing{" +
+                        "classFileLocators=" + classFileLocators +
+                        '}';
+            }
+        }
+
+        /**
+         * <p>
+         * A location strategy that records the original class file of any type when it is loaded and that serves these recorded class
+         * files from memory. This avoids reading class files from a class loader's resources or by retransformation when a type is
+         * redefined or when a transformation is reset. Class files of types that were not recorded are located by a fallback location
+         * strategy. Recorded class files are stored compressed, optionally outside of the heap, and are retained until their class loader
+         * becomes eligible for garbage collection. Off-heap memory is allocated per class loader such that it is released together with the
+         * class loader's recorded class files. Deflaters are borrowed from a small pool that is shared by all recording threads.
+         * </p>
+         * <p>
+         * <b>Important</b>: This location strategy is a {@link ClassFileTransformer} that must be registered before any type of interest is
+         * loaded and before any other transformer that changes class files, for example via {@link Recording#installOn(Instrumentation)}.
+         * The transformer only records a type's class file on its first invocation and never changes a class file.
+         * </p>
+         */
+        class Recording implements LocationStrategy, ClassFileTransformer {
+
+            /**
+             * Indicates that a class file is not changed.
+             */
+            private static final byte[] NO_TRANSFORMATION = null;
+
+            /**
+             * The location strategy to apply for types that were not recorded.
+             */
+            private final LocationStrategy fallback;
+
+            /**
+             * {@code true} if recorded class files should be stored outside of the heap.
+             */
+            private final boolean offHeap;
+
+            /**
+             * The recorded class files of types that are loaded by the bootstrap class loader.
+             */
+            private final ConcurrentMap<String, Entry> bootstrapEntries;
+
+            /**
+             * The recorded class files of types by weak entries of their class loaders.
+             */
+            private final ConcurrentMap<WeakEntry, WeakEntry> entries;
+
+            /**
+             * A reference queue onto which weak entries are enqueued once their class loader is garbage collected.
+             */
+            private final ReferenceQueue<ClassLoader> referenceQueue;
+
+            /**
+             * A pool of deflaters that are shared by all threads that record class files.
+             */
+            private final DeflaterPool deflaters;
+
+            /**
+             * The allocator to use for storing compressed class files of types that are loaded by the bootstrap class loader.
+             */
+            private final Allocator bootstrapAllocator;
+
+            /**
+             * Creates a new recording location strategy that stores class files on the heap and that falls back to locating class
+             * files by weakly referenced class loaders.
+             */
+            public Recording() {
+                this(ForClassLoader.WEAK, false);
+            }
+
+            /**
+             * Creates a new recording location strategy.
+             *
+             * @param fallback The location strategy to apply for types that were not recorded.
+             * @param offHeap  {@code true} if recorded class files should be stored outside of the heap.
+             */
+            public Recording(LocationStrategy fallback, boolean offHeap) {
+                this.fallback = fallback;
+                this.offHeap = offHeap;
+                bootstrapEntries = new ConcurrentHashMap<String, Entry>();
+                entries = new ConcurrentHashMap<WeakEntry, WeakEntry>();
+                referenceQueue = new ReferenceQueue<ClassLoader>();
+                deflaters = new DeflaterPool();
+                bootstrapAllocator = allocator();
+            }
+
+            /**
+             * Creates an allocator for the recorded class files of a single class loader.
+             *
+             * @return An allocator for the recorded class files of a single class loader.
+             */
+            private Allocator allocator() {
+                return offHeap
+                        ? new Allocator.ForDirectSlabs()
+                        : Allocator.ForHeap.INSTANCE;
+            }
+
+            /**
+             * Registers this location strategy as a class file transformer on the supplied instrumentation.
+             *
+             * @param instrumentation The instrumentation to register this location strategy on.
+             * @return This location strategy.
+             */
+            public Recording installOn(Instrumentation instrumentation) {
+                instrumentation.addTransformer(this, false);
+                return this;
+            }
+
+            @Override
+            public byte[] transform(ClassLoader classLoader,
+                                    String internalTypeName,
+                                    Class<?> classBeingRedefined,
+                                    ProtectionDomain protectionDomain,
+                                    byte[] binaryRepresentation) {
+                if (internalTypeName != null && binaryRepresentation != null) {
+                    ConcurrentMap<String, Entry> entries;
+                    Allocator allocator;
+                    if (classLoader == null) {
+                        entries = bootstrapEntries;
+                        allocator = bootstrapAllocator;
+                    } else {
+                        WeakEntry weakEntry = weakEntry(classLoader, true);
+                        entries = weakEntry.getEntries();
+                        allocator = weakEntry.getAllocator();
+                    }
+                    String typeName = internalTypeName.replace('/', '.');
+                    if (!entries.containsKey(typeName)) {
+                        Deflater deflater = deflaters.acquire();
+                        try {
+                            entries.putIfAbsent(typeName, Entry.of(binaryRepresentation, deflater, allocator));
+                        } finally {
+                            deflaters.release(deflater);
+                        }
+                    }
+                }
+                return NO_TRANSFORMATION;
+            }
+
+            @Override
+            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                ConcurrentMap<String, Entry> entries;
+                if (classLoader == null) {
+                    entries = bootstrapEntries;
+                } else {
+                    WeakEntry weakEntry = weakEntry(classLoader, false);
+                    entries = weakEntry == null
+                            ? null
+                            : weakEntry.getEntries();
+                }
+                ClassFileLocator classFileLocator = fallback.classFileLocator(classLoader, module);
+                return entries == null
+                        ? classFileLocator
+                        : new RecordedClassFileLocator(entries, classFileLocator);
+            }
+
+            /**
+             * Returns the weak entry holding the recorded class files of a class loader.
+             *
+             * @param classLoader The class loader which must not be the bootstrap class loader.
+             * @param create      {@code true} if an entry should be registered for the class loader if no such entry exists.
+             * @return The weak entry of the class loader or {@code null} if no such entry exists and none was created.
+             */
+            private WeakEntry weakEntry(ClassLoader classLoader, boolean create) {
+                expungeStaleEntries();
+                WeakEntry entry = entries.get(new LookupKey(classLoader));
+                if (entry == null && create) {
+                    entry = new WeakEntry(classLoader, referenceQueue, allocator());
+                    WeakEntry previous = entries.putIfAbsent(entry, entry);
+                    if (previous != null) {
+                        entry = previous;
+                    }
+                }
+                return entry;
+            }
+
+            /**
+             * Removes the recorded class files of all class loaders that were garbage collected.
+             */
+            protected void expungeStaleEntries() {
+                Reference<?> reference;
+                while ((reference = referenceQueue.poll()) != null) {
+                    entries.remove(reference);
+                }
+            }
+
+            /**
+             * Removes all recorded class files.
+             */
+            public void clear() {
+                bootstrapEntries.clear();
+                entries.clear();
+                deflaters.clear();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.Recording{" +
+                        "fallback=" + fallback +
+                        ", offHeap=" + offHeap +
+                        ", bootstrapEntries=" + bootstrapEntries.size() +
+                        ", entries=" + entries.size() +
+                        ", bootstrapAllocator=" + bootstrapAllocator +
+                        '}';
+            }
+
+            /**
+             * A bounded pool of deflaters. The pool retains a fixed number of deflaters independently of the number of threads that
+             * record class files. A deflater that is released while the pool is full is ended immediately.
+             */
+            protected static class DeflaterPool {
+
+                /**
+                 * The number of deflaters that are retained by the pool. This number must be a power of two.
+                 */
+                private static final int SIZE = 4;
+
+                /**
+                 * The pooled deflaters where a slot is {@code null} if its deflater is currently borrowed or was not yet created.
+                 */
+                private final AtomicReferenceArray<Deflater> deflaters;
+
+                /**
+                 * Creates a new deflater pool.
+                 */
+                protected DeflaterPool() {
+                    deflaters = new AtomicReferenceArray<Deflater>(SIZE);
+                }
+
+                /**
+                 * Borrows a deflater from this pool or creates a new deflater if no pooled deflater is available.
+                 *
+                 * @return A deflater that must be reset before it is released.
+                 */
+                protected Deflater acquire() {
+                    int offset = slot();
+                    for (int index = 0; index < SIZE; index++) {
+                        Deflater deflater = deflaters.getAndSet((offset + index) & (SIZE - 1), null);
+                        if (deflater != null) {
+                            return deflater;
+                        }
+                    }
+                    return new Deflater(Deflater.BEST_SPEED, true);
+                }
+
+                /**
+                 * Returns a reset deflater to this pool or ends the deflater if the pool is full.
+                 *
+                 * @param deflater The deflater to release.
+                 */
+                protected void release(Deflater deflater) {
+                    int offset = slot();
+                    for (int index = 0; index < SIZE; index++) {
+                        if (deflaters.compareAndSet((offset + index) & (SIZE - 1), null, deflater)) {
+                            return;
+                        }
+                    }
+                    deflater.end();
+                }
+
+                /**
+                 * Ends and removes all pooled deflaters.
+                 */
+                protected void clear() {
+                    for (int index = 0; index < SIZE; index++) {
+                        Deflater deflater = deflaters.getAndSet(index, null);
+                        if (deflater != null) {
+                            deflater.end();
+                        }
+                    }
+                }
+
+                /**
+                 * Returns the slot at which the current thread starts looking for a deflater such that concurrent threads typically
+                 * use different slots.
+                 *
+                 * @return The slot at which the current thread starts looking for a deflater.
+                 */
+                private static int slot() {
+                    long id = Thread.currentThread().getId();
+                    return (int) (id ^ id >>> 32) & (SIZE - 1);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.LocationStrategy.Recording.DeflaterPool{" +
+                            "deflaters=" + deflaters +
+                            '}';
+                }
+            }
+
+            /**
+             * An allocator for storing compressed class files.
+             */
+            protected interface Allocator {
+
+                /**
+                 * Stores a compressed class file.
+                 *
+                 * @param compressed An array containing the compressed class file.
+                 * @param length     The length of the compressed class file within the array.
+                 * @return A read-only buffer containing the compressed class file.
+                 */
+                ByteBuffer store(byte[] compressed, int length);
+
+                /**
+                 * An allocator that stores compressed class files on the heap.
+                 */
+                enum ForHeap implements Allocator {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public ByteBuffer store(byte[] compressed, int length) {
+                        return ByteBuffer.wrap(length == compressed.length
+                                ? compressed
+                                : Arrays.copyOf(compressed, length)).asReadOnlyBuffer();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.LocationStrategy.Recording.Allocator.ForHeap." + name();
+                    }
+                }
+
+                /**
+                 * An allocator that stores compressed class files outside of the heap within slabs of direct memory. An allocator is
+                 * only used for the class files of a single class loader such that its slabs are released together with the class
+                 * loader's recorded class files. Slabs start small and grow with every exhausted slab such that class loaders that
+                 * only define a few types do not reserve a full slab. Class files that exceed a fraction of the maximal slab size
+                 * are stored in a dedicated direct buffer.
+                 */
+                class ForDirectSlabs implements Allocator {
+
+                    /**
+                     * The size of the first slab of direct memory.
+                     */
+                    private static final int INITIAL_SLAB_SIZE = 8 * 1024;
+
+                    /**
+                     * The maximal size of a slab of direct memory.
+                     */
+                    private static final int SLAB_SIZE = 256 * 1024;
+
+                    /**
+                     * The maximal length of a class file that is stored within a shared slab.
+                     */
+                    private static final int MAXIMUM_SHARED_LENGTH = SLAB_SIZE / 8;
+
+                    /**
+                     * The slab that is currently used for storing class files or {@code null} if no slab was allocated yet.
+                     */
+                    private final AtomicReference<Slab> current;
+
+                    /**
+                     * Creates a new allocator for slabs of direct memory.
+                     */
+                    public ForDirectSlabs() {
+                        current = new AtomicReference<Slab>();
+                    }
+
+                    @Override
+                    public ByteBuffer store(byte[] compressed, int length) {
+                        if (length > MAXIMUM_SHARED_LENGTH) {
+                            ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+                            buffer.put(compressed, 0, length);
+                            buffer.flip();
+                            return buffer.asReadOnlyBuffer();
+                        }
+                        while (true) {
+                            Slab slab = current.get();
+                            ByteBuffer buffer = slab == null
+                                    ? null
+                                    : slab.reserve(length);
+                            if (buffer != null) {
+                                buffer.put(compressed, 0, length);
+                                buffer.flip();
+                                return buffer.asReadOnlyBuffer();
+                            }
+                            current.compareAndSet(slab, new Slab(slab == null
+                                    ? Math.max(INITIAL_SLAB_SIZE, length)
+                                    : Math.min(SLAB_SIZE, Math.max(slab.getSize() * 2, length))));
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.LocationStrategy.Recording.Allocator.ForDirectSlabs{" +
+                                "current=" + current.get() +
+                                '}';
+                    }
+
+                    /**
+                     * A slab of direct memory from which regions are reserved without locking.
+                     */
+                    protected static class Slab {
+
+                        /**
+                         * The slab's direct memory.
+                         */
+                        private final ByteBuffer buffer;
+
+                        /**
+                         * The position up to which the slab's memory is reserved.
+                         */
+                        private final AtomicInteger position;
+
+                        /**
+                         * Creates a new slab.
+                         *
+                         * @param size The size of the slab.
+                         */
+                        protected Slab(int size) {
+                            buffer = ByteBuffer.allocateDirect(size);
+                            position = new AtomicInteger();
+                        }
+
+                        /**
+                         * Returns the size of this slab.
+                         *
+                         * @return The size of this slab.
+                         */
+                        protected int getSize() {
+                            return buffer.capacity();
+                        }
+
+                        /**
+                         * Reserves a region of this slab.
+                         *
+                         * @param length The length of the region to reserve.
+                         * @return A buffer representing the reserved region or {@code null} if this slab is exhausted.
+                         */
+                        protected ByteBuffer reserve(int length) {
+                            int offset = position.getAndAdd(length);
+                            if (offset < 0 || offset + length > buffer.capacity()) {
+                                return null;
+                            }
+                            ByteBuffer region = buffer.duplicate();
+                            region.limit(offset + length).position(offset);
+                            return region.slice();
+                        }
+
+                        @Override
+                        public String toString() {
+                            return "AgentBuilder.LocationStrategy.Recording.Allocator.ForDirectSlabs.Slab{" +
+                                    "buffer=" + buffer +
+                                    ", position=" + position +
+                                    '}';
+                        }
+                    }
+                }
+            }
+
+            /**
+             * A weak reference to a class loader that holds the class loader's recorded class files. Two entries are equal if they
+             * reference the identical class loader. An entry is only equal to itself once its class loader was collected.
+             */
+            protected static class WeakEntry extends WeakReference<ClassLoader> {
+
+                /**
+                 * The identity hash code of the referenced class loader.
+                 */
+                private final int hashCode;
+
+                /**
+                 * The recorded class files of the referenced class loader.
+                 */
+                private final ConcurrentMap<String, Entry> entries;
+
+                /**
+                 * The allocator to use for storing the compressed class files of the referenced class loader.
+                 */
+                private final Allocator allocator;
+
+                /**
+                 * Creates a new weak entry.
+                 *
+                 * @param classLoader    The referenced class loader.
+                 * @param referenceQueue The reference queue to notify upon the collection of the class loader.
+                 * @param allocator      The allocator to use for storing the compressed class files of the referenced class loader.
+                 */
+                protected WeakEntry(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue, Allocator allocator) {
+                    super(classLoader, referenceQueue);
+                    hashCode = System.identityHashCode(classLoader);
+                    entries = new ConcurrentHashMap<String, Entry>();
+                    this.allocator = allocator;
+                }
+
+                /**
+                 * Returns the allocator to use for storing the compressed class files of the referenced class loader.
+                 *
+                 * @return The allocator to use for storing the compressed class files of the referenced class loader.
+                 */
+                protected Allocator getAllocator() {
+                    return allocator;
+                }
+
+                /**
+                 * Returns the recorded class files of the referenced class loader.
+                 *
+                 * @return The recorded class files of the referenced class loader.
+                 */
+                protected ConcurrentMap<String, Entry> getEntries() {
+                    return entries;
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) {
+                        return true;
+                    } else if (other instanceof WeakEntry) {
+                        ClassLoader classLoader = get();
+                        return classLoader != null && classLoader == ((WeakEntry) other).get();
+                    } else {
+                        return other instanceof LookupKey && ((LookupKey) other).equals(this);
+                    }
+                }
+
+                @Override
+                public int hashCode() {
+                    return hashCode;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.LocationStrategy.Recording.WeakEntry{" +
+                            "classLoader=" + get() +
+                            ", entries=" + entries.size() +
+                            '}';
+                }
+            }
+
+            /**
+             * A short-lived key for looking up a class loader's {@link WeakEntry} without creating a weak reference.
+             */
+            protected static class LookupKey {
+
+                /**
+                 * The class loader to look up.
+                 */
+                private final ClassLoader classLoader;
+
+                /**
+                 * The identity hash code of the class loader.
+                 */
+                private final int hashCode;
+
+                /**
+                 * Creates a new lookup key.
+                 *
+                 * @param classLoader The class loader to look up.
+                 */
+                protected LookupKey(ClassLoader classLoader) {
+                    this.classLoader = classLoader;
+                    hashCode = System.identityHashCode(classLoader);
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) {
+                        return true;
+                    } else if (other instanceof LookupKey) {
+                        return classLoader == ((LookupKey) other).classLoader;
+                    } else {
+                        return other instanceof WeakEntry && classLoader == ((WeakEntry) other).get();
+                    }
+                }
+
+                @Override
+                public int hashCode() {
+                    return hashCode;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.LocationStrategy.Recording.LookupKey{" +
+                            "classLoader=" + classLoader +
+                            '}';
+                }
+            }
+
+            /**
+             * A compressed, recorded class file.
+             */
+            protected static class Entry {
+
+                /**
+                 * The compressed class file.
+                 */
+                private final ByteBuffer compressed;
+
+                /**
+                 * The size of the uncompressed class file.
+                 */
+                private final int size;
+
+                /**
+                 * Creates a new entry.
+                 *
+                 * @param compressed The compressed class file.
+                 * @param size       The size of the uncompressed class file.
+                 */
+                protected Entry(ByteBuffer compressed, int size) {
+                    this.compressed = compressed;
+                    this.size = size;
+                }
+
+                /**
+                 * Creates an entry for a class file.
+                 *
+                 * @param binaryRepresentation The class file to record.
+                 * @param deflater             The deflater to use which is reset after its use.
+                 * @param allocator            The allocator to use for storing the compressed class file.
+                 * @return An entry representing the supplied class file.
+                 */
+                protected static Entry of(byte[] binaryRepresentation, Deflater deflater, Allocator allocator) {
+                    try {
+                        deflater.setInput(binaryRepresentation);
+                        deflater.finish();
+                        byte[] buffer = new byte[binaryRepresentation.length / 2 + 64];
+                        int length = 0;
+                        while (!deflater.finished()) {
+                            if (length == buffer.length) {
+                                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                            }
+                            length += deflater.deflate(buffer, length, buffer.length - length);
+                        }
+                        return new Entry(allocator.store(buffer, length), binaryRepresentation.length);
+                    } finally {
+                        deflater.reset();
+                    }
+                }
+
+                /**
+                 * Returns the uncompressed class file.
+                 *
+                 * @return The uncompressed class file.
+                 * @throws IOException If the class file cannot be uncompressed.
+                 */
+                protected byte[] resolve() throws IOException {
+                    ByteBuffer compressed = this.compressed.duplicate();
+                    byte[] input = new byte[compressed.remaining()];
+                    compressed.get(input);
+                    Inflater inflater = new Inflater(true);
+                    try {
+                        inflater.setInput(input);
+                        byte[] binaryRepresentation = new byte[size];
+                        int length = 0;
+                        while (length < size) {
+                            int read = inflater.inflate(binaryRepresentation, length, size - length);
+                            if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                                throw new IOException("Unexpected end of recorded class file");
+                            }
+                            length += read;
+                        }
+                        return binaryRepresentation;
+                    } catch (DataFormatException exception) {
+                        throw new IOException("Corrupt recorded class file", exception);
+                    } finally {
+                        inflater.end();
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.LocationStrategy.Recording.Entry{" +
+                            "compressed=" + compressed +
+                            ", size=" + size +
+                            '}';
+                }
+            }
+
+            /**
+             * A class file locator that locates recorded class files and that queries a fallback class file locator for
+             * class files that were not recorded.
+             */
+            protected static class RecordedClassFileLocator implements ClassFileLocator {
+
+                /**
+                 * The recorded class files of a class loader.
+                 */
+                private final Map<String, Entry> entries;
+
+                /**
+                 * The class file locator to query for class files that were not recorded.
+                 */
+                private final ClassFileLocator fallback;
+
+                /**
+                 * Creates a new recorded class file locator.
+                 *
+                 * @param entries  The recorded class files of a class loader.
+                 * @param fallback The class file locator to query for class files that were not recorded.
+                 */
+                protected RecordedClassFileLocator(Map<String, Entry> entries, ClassFileLocator fallback) {
+                    this.entries = entries;
+                    this.fallback = fallback;
+                }
+
+                @Override
+                public Resolution locate(String typeName) throws IOException {
+                    Entry entry = entries.get(typeName);
+                    return entry == null
+                            ? fallback.locate(typeName)
+                            : new Resolution.Explicit(entry.resolve());
+                }
+
+                @Override
+                public void close() throws IOException {
+                    fallback.close();
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    RecordedClassFileLocator that = (RecordedClassFileLocator) other;
+                    return entries == that.entries && fallback.equals(that.fallback);
+                }
+
+                @Override
+                public int hashCode() {
+                    return 31 * System.identityHashCode(entries) + fallback.hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.LocationStrategy.Recording.RecordedClassFileLocator{" +
+                            "entries=" + entries.size() +
+                            ", fallback=" + fallback +
+                            '}';
+                }
+            }
+        }
+
+        /**
+         * A simple location strategy that queries a given class file locator.
+         */
+        class Simple implements LocationStrategy {
+
+            /**
+             * The class file locator to query.
+             */
+            private final ClassFileLocator classFileLocator;
+
+            /**
+             * A simple location strategy that queries a given class file locator.
+             *
+             * @param classFileLocator The class file locator to query.
+             */
+            public Simple(ClassFileLocator classFileLocator) {
+                this.classFileLocator = classFileLocator;
+            }
+
+            @Override
+            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                return classFileLocator;
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                Simple simple = (Simple) object;
+                return classFileLocator.equals(simple.classFileLocator);
+            }
+
+            @Override
+            public int hashCode() {
+                return classFileLocator.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.Simple{" +
+                        "classFileLocator=" + classFileLocator +
+                        '}';
+            }
+        }
+
+        /**
+         * A compound location strategy that applies a list of location strategies.
+         */
+        class Compound implements LocationStrategy {
+
+            /**
+             * The location strategies in their application order.
+             */
+            private final List<? extends LocationStrategy> locationStrategies;
+
+            /**
+             * Creates a new compound location strategy.
+             *
+             * @param locationStrategy The location strategies in their application order.
+             */
+            public Compound(LocationStrategy... locationStrategy) {
+                this(Arrays.asList(locationStrategy));
+            }
+
+            /**
+             * Creates a new compound location strategy.
+             *
+             * @param locationStrategies The location strategies in their application order.
+             */
+            public Compound(List<? extends LocationStrategy> locationStrategies) {
+                this.locationStrategies = locationStrategies;
+            }
+
+            @Override
+            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
+                List<ClassFileLocator> classFileLocators = new ArrayList<ClassFileLocator>(locationStrategies.size());
+                for (LocationStrategy locationStrategy : locationStrategies) {
+                    classFileLocators.add(locationStrategy.classFileLocator(classLoader, module));
+                }
+                return new ClassFileLocator.Compound(classFileLocators);
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                Compound compound = (Compound) object;
+                return locationStrategies.equals(compound.locationStrategies);
+            }
+
+            @Override
+            public int hashCode() {
+                return locationStrategies.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.LocationStrategy.Compound{" +
+                        "locationStrategies=" + locationStrategies +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * A prefilter is applied to the internal name of a type and its class loader before a class file is considered for a transformation.
+     * If a prefilter ignores a type, no {@link ClassFileLocator}, {@link TypePool} or {@link TypeDescription} is created for it and no
+     * {@link Listener} is notified about it. A prefilter is therefore cheaper to apply than an ignore matcher but must not apply any
+     * logic that requires a type's class file. Just as an ignore matcher, a prefilter is applied while holding the agent's
+     * {@link CircularityLock} such that classes that are loaded by a prefilter are not transformed.
+     * </p>
+     * <p>
+     * <b>Note</b>: A prefilter is applied in addition to any matcher that is registered via {@link AgentBuilder#ignore(RawMatcher)}.
+     * </p>
+     */
+    interface Prefilter {
+
+        /**
+         * Determines if a type should be ignored without further consideration.
+         *
+         * @param internalTypeName The internal name of the type, i.e. a type's binary name where dots are replaced by slashes.
+         * @param classLoader      The type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+         * @return {@code true} if the type should be ignored.
+         */
+        boolean isIgnored(String internalTypeName, ClassLoader classLoader);
+
+        /**
+         * A prefilter that does not ignore any type.
+         */
+        enum NoOp implements Prefilter {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.NoOp." + name();
+            }
+        }
+
+        /**
+         * A prefilter that ignores any type that is loaded by the bootstrap class loader.
+         */
+        enum ForBootstrapClassLoader implements Prefilter {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                return classLoader == null;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.ForBootstrapClassLoader." + name();
+            }
+        }
+
+        /**
+         * A prefilter that ignores any type with a name that starts with one of the given prefixes. This prefilter does not
+         * allocate any objects when it is applied.
+         */
+        class ForNamePrefixes implements Prefilter {
+
+            /**
+             * The prefixes of ignored types in their internal form.
+             */
+            private final String[] internalPrefixes;
+
+            /**
+             * Creates a prefilter for the supplied name prefixes.
+             *
+             * @param prefix The prefixes of the binary names of ignored types, for example {@code com.sun.}.
+             */
+            public ForNamePrefixes(String... prefix) {
+                this(Arrays.asList(prefix));
+            }
+
+            /**
+             * Creates a prefilter for the supplied name prefixes.
+             *
+             * @param prefixes The prefixes of the binary names of ignored types, for example {@code com.sun.}.
+             */
+            public ForNamePrefixes(List<String> prefixes) {
+                internalPrefixes = new String[prefixes.size()];
+                int index = 0;
+                for (String prefix : prefixes) {
+                    internalPrefixes[index++] = prefix.replace('.', '/');
+                }
+            }
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                for (String internalPrefix : internalPrefixes) {
+                    if (internalTypeName.startsWith(internalPrefix)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && Arrays.equals(internalPrefixes, ((ForNamePrefixes) other).internalPrefixes);
+            }
+
+            @Override
+            public int hashCode() {
+                return Arrays.hashCode(internalPrefixes);
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.ForNamePrefixes{" +
+                        "internalPrefixes=" + Arrays.toString(internalPrefixes) +
+                        '}';
+            }
+        }
+
+        /**
+         * A prefilter that ignores any type with a binary name that is matched by a given matcher. Applying this prefilter
+         * requires the translation of a type's internal name to its binary name.
+         */
+        class ForTypeName implements Prefilter {
+
+            /**
+             * The matcher to apply to an ignored type's binary name.
+             */
+            private final ElementMatcher<? super String> matcher;
+
+            /**
+             * Creates a prefilter for a type's binary name.
+             *
+             * @param matcher The matcher to apply to an ignored type's binary name.
+             */
+            public ForTypeName(ElementMatcher<? super String> matcher) {
+                this.matcher = matcher;
+            }
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                return matcher.matches(internalTypeName.replace('/', '.'));
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && matcher.equals(((ForTypeName) other).matcher);
+            }
+
+            @Override
+            public int hashCode() {
+                return matcher.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.ForTypeName{" +
+                        "matcher=" + matcher +
+                        '}';
+            }
+        }
+
+        /**
+         * A prefilter that ignores any type that is loaded by a class loader that is matched by a given matcher.
+         */
+        class ForClassLoader implements Prefilter {
+
+            /**
+             * The matcher to apply to an ignored type's class loader.
+             */
+            private final ElementMatcher<? super ClassLoader> matcher;
+
+            /**
+             * Creates a prefilter for a type's class loader.
+             *
+             * @param matcher The matcher to apply to an ignored type's class loader.
+             */
+            public ForClassLoader(ElementMatcher<? super ClassLoader> matcher) {
+                this.matcher = matcher;
+            }
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                return matcher.matches(classLoader);
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && matcher.equals(((ForClassLoader) other).matcher);
+            }
+
+            @Override
+            public int hashCode() {
+                return matcher.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.ForClassLoader{" +
+                        "matcher=" + matcher +
+                        '}';
+            }
+        }
+
+        /**
+         * A compound prefilter that ignores a type if any of its prefilters ignores the type.
+         */
+        class Compound implements Prefilter {
+
+            /**
+             * The prefilters to apply in their application order.
+             */
+            private final List<Prefilter> prefilters;
+
+            /**
+             * Creates a new compound prefilter.
+             *
+             * @param prefilter The prefilters to apply in their application order.
+             */
+            public Compound(Prefilter... prefilter) {
+                this(Arrays.asList(prefilter));
+            }
+
+            /**
+             * Creates a new compound prefilter.
+             *
+             * @param prefilters The prefilters to apply in their application order.
+             */
+            public Compound(List<? extends Prefilter> prefilters) {
+                this.prefilters = new ArrayList<Prefilter>();
+                for (Prefilter prefilter : prefilters) {
+                    if (prefilter instanceof Compound) {
+                        this.prefilters.addAll(((Compound) prefilter).prefilters);
+                    } else if (!(prefilter instanceof NoOp)) {
+                        this.prefilters.add(prefilter);
+                    }
+                }
+            }
+
+            @Override
+            public boolean isIgnored(String internalTypeName, ClassLoader classLoader) {
+                for (Prefilter prefilter : prefilters) {
+                    if (prefilter.isIgnored(internalTypeName, classLoader)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && prefilters.equals(((Compound) other).prefilters);
+            }
+
+            @Override
+            public int hashCode() {
+                return prefilters.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Prefilter.Compound{" +
+                        "prefilters=" + prefilters +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Metrics are informed about the duration of the phases of any transformation that is applied by a class file transformer that is
+     * installed by an agent builder and about the size of the processed class files. Unlike a {@link Listener}, metrics are notified
+     * with the type's name only and are meant to aggregate the reported measures with a minimal overhead.
+     * </p>
+     * <p>
+     * <b>Important</b>: Metrics are notified from within the class file transformer and must neither load classes nor throw exceptions.
+     * </p>
+     */
+    interface Metrics {
+
+        /**
+         * Returns {@code true} if these metrics consume any measures. If this method returns {@code false}, a transformation does not
+         * measure its duration and these metrics might not be notified. The returned value must not change during the lifetime of
+         * an instance.
+         *
+         * @return {@code true} if these metrics consume any measures.
+         */
+        boolean isEnabled();
+
+        /**
+         * Invoked after a phase of a transformation completed, even if the phase completed exceptionally.
+         *
+         * @param typeName The binary name of the instrumented type.
+         * @param phase    The completed phase.
+         * @param nanos    The duration of the phase in nanoseconds.
+         */
+        void onPhase(String typeName, Phase phase, long nanos);
+
+        /**
+         * Invoked after a transformation completed, even if the transformation did not apply or failed. This method is not invoked
+         * for types that are ignored by a {@link Prefilter}.
+         *
+         * @param typeName          The binary name of the instrumented type.
+         * @param classLoader       The type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+         * @param module            The instrumented type's module or {@code null} if the current VM does not support modules.
+         * @param binaryLength      The length of the class file that was supplied to the transformation.
+         * @param transformedLength The length of the transformed class file or {@code -1} if the type was not transformed.
+         * @param nanos             The total duration of the transformation in nanoseconds.
+         */
+        void onComplete(String typeName, ClassLoader classLoader, JavaModule module, int binaryLength, int transformedLength, long nanos);
+
+        /**
+         * Describes a phase of a transformation.
+         */
+        enum Phase {
+
+            /**
+             * Locating the class files that are required for the transformation and creating a type pool for the instrumented type.
+             */
+            LOCATE,
+
+            /**
+             * Describing the instrumented type by the configured {@link DescriptionStrategy}. Depending on the used {@link PoolStrategy},
+             * a type might only be parsed lazily such that parsing is partially attributed to later phases.
+             */
+            DESCRIBE,
+
+            /**
+             * Matching the instrumented type against the ignored types, looking up a registered {@link TransformationCache} and matching
+             * the instrumented type against all registered transformations.
+             */
+            MATCH,
+
+            /**
+             * Creating a {@link net.bytebuddy.dynamic.DynamicType.Builder} for the instrumented type and applying all transformers.
+             */
+            BUILD,
+
+            /**
+             * Making the dynamic type what includes parsing the original class file, computing frames and writing the transformed class file.
+             */
+            MAKE;
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Metrics.Phase." + name();
+            }
+        }
+
+        /**
+         * A non-operational implementation of metrics.
+         */
+        enum NoOp implements Metrics {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public boolean isEnabled() {
+                return false;
+            }
+
+            @Override
+            public void onPhase(String typeName, Phase phase, long nanos) {
+                /* do nothing */
+            }
+
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module, int binaryLength, int transformedLength, long nanos) {
+                /* do nothing */
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Metrics.NoOp." + name();
+            }
+        }
+
+        /**
+         * The management interface of {@link Aggregating} metrics that can be registered as an MXBean, for example via
+         * {@code ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName)}.
+         */
+        interface AggregatingMXBean {
+
+            /**
+             * Returns the number of completed transformations.
+             *
+             * @return The number of completed transformations.
+             */
+            long getTransformationCount();
+
+            /**
+             * Returns the number of transformations that transformed a type.
+             *
+             * @return The number of transformations that transformed a type.
+             */
+            long getTransformedCount();
+
+            /**
+             * Returns the total duration of all completed transformations in nanoseconds.
+             *
+             * @return The total duration of all completed transformations in nanoseconds.
+             */
+            long getTotalNanos();
+
+            /**
+             * Returns the total number of bytes of all class files that were supplied to a transformation.
+             *
+             * @return The total number of bytes of all class files that were supplied to a transformation.
+             */
+            long getBytesRead();
+
+            /**
+             * Returns the total number of bytes of all class files that were returned by a transformation.
+             *
+             * @return The total number of bytes of all class files that were returned by a transformation.
+             */
+            long getBytesWritten();
+
+            /**
+             * Returns an upper bound for the given percentile of the duration of all completed transformations in nanoseconds.
+             *
+             * @param percentile The percentile to resolve as a value between {@code 0} and {@code 100}.
+             * @return An upper bound for the given percentile in nanoseconds.
+             */
+            long getPercentileNanos(double percentile);
+
+            /**
+             * Returns the number of completions of the given phase.
+             *
+             * @param phase The phase to resolve.
+             * @return The number of completions of the given phase.
+             */
+            long getPhaseCount(Phase phase);
+
+            /**
+             * Returns the total duration of the given phase in nanoseconds.
+             *
+             * @param phase The phase to resolve.
+             * @return The total duration of the given phase in nanoseconds.
+             */
+            long getPhaseNanos(Phase phase);
+
+            /**
+             * Returns an upper bound for the given percentile of the duration of the given phase in nanoseconds.
+             *
+             * @param phase      The phase to resolve.
+             * @param percentile The percentile to resolve as a value between {@code 0} and {@code 100}.
+             * @return An upper bound for the given percentile in nanoseconds.
+             */
+            long getPhasePercentileNanos(Phase phase, double percentile);
+
+            /**
+             * Resets all aggregated measures.
+             */
+            void reset();
+        }
+
+        /**
+         * Metrics that aggregate all measures into striped histograms with buckets of exponentially growing size. Recording a measure
+         * only requires two atomic increments on a stripe that is selected by the recording thread's id such that concurrent class
+         * loading threads rarely contend. The aggregated measures can be polled via {@link Aggregating#snapshot(Phase)} or by registering
+         * this instance as an MXBean.
+         */
+        class Aggregating implements Metrics, AggregatingMXBean {
+
+            /**
+             * The histograms of all phases.
+             */
+            private final Map<Phase, Histogram> phases;
+
+            /**
+             * The histogram of the total duration of any transformation.
+             */
+            private final Histogram durations;
+
+            /**
+             * The histogram of the lengths of all supplied class files.
+             */
+            private final Histogram binaryLengths;
+
+            /**
+             * The histogram of the lengths of all transformed class files.
+             */
+            private final Histogram transformedLengths;
+
+            /**
+             * Creates new aggregating metrics with a number of stripes that is derived from the number of available processors.
+             */
+            public Aggregating() {
+                this(Runtime.getRuntime().availableProcessors() * 2);
+            }
+
+            /**
+             * Creates new aggregating metrics.
+             *
+             * @param stripes The minimal number of stripes of each histogram.
+             */
+            public Aggregating(int stripes) {
+                if (stripes < 1) {
+                    throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+                }
+                phases = new EnumMap<Phase, Histogram>(Phase.class);
+                for (Phase phase : Phase.values()) {
+                    phases.put(phase, new Histogram(stripes));
+                }
+                durations = new Histogram(stripes);
+                binaryLengths = new Histogram(stripes);
+                transformedLengths = new Histogram(stripes);
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void onPhase(String typeName, Phase phase, long nanos) {
+                phases.get(phase).record(nanos);
+            }
+
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module, int binaryLength, int transformedLength, long nanos) {
+                durations.record(nanos);
+                binaryLengths.record(binaryLength);
+                if (transformedLength != -1) {
+                    transformedLengths.record(transformedLength);
+                }
+            }
+
+            /**
+             * Returns a snapshot of the durations of all completed transformations.
+             *
+             * @return A snapshot of the durations of all completed transformations.
+             */
+            public Histogram.Snapshot snapshot() {
+                return durations.snapshot();
+            }
+
+            /**
+             * Returns a snapshot of the durations of the given phase.
+             *
+             * @param phase The phase to resolve.
+             * @return A snapshot of the durations of the given phase.
+             */
+            public Histogram.Snapshot snapshot(Phase phase) {
+                return phases.get(phase).snapshot();
+            }
+
+            @Override
+            public long getTransformationCount() {
+                return durations.snapshot().getCount();
+            }
+
+            @Override
+            public long getTransformedCount() {
+                return transformedLengths.snapshot().getCount();
+            }
+
+            @Override
+            public long getTotalNanos() {
+                return durations.snapshot().getSum();
+            }
+
+            @Override
+            public long getBytesRead() {
+                return binaryLengths.snapshot().getSum();
+            }
+
+            @Override
+            public long getBytesWritten() {
+                return transformedLengths.snapshot().getSum();
+            }
+
+            @Override
+            public long getPercentileNanos(double percentile) {
+                return durations.snapshot().getPercentile(percentile);
+            }
+
+            @Override
+            public long getPhaseCount(Phase phase) {
+                return snapshot(phase).getCount();
+            }
+
+            @Override
+            public long getPhaseNanos(Phase phase) {
+                return snapshot(phase).getSum();
+            }
+
+            @Override
+            public long getPhasePercentileNanos(Phase phase, double percentile) {
+                return snapshot(phase).getPercentile(percentile);
+            }
+
+            @Override
+            public void reset() {
+                for (Histogram histogram : phases.values()) {
+                    histogram.reset();
+                }
+                durations.reset();
+                binaryLengths.reset();
+                transformedLengths.reset();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Metrics.Aggregating{" +
+                        "phases=" + phases +
+                        ", durations=" + durations +
+                        ", binaryLengths=" + binaryLengths +
+                        ", transformedLengths=" + transformedLengths +
+                        '}';
+            }
+
+            /**
+             * A striped histogram of non-negative values where the bucket of a value is determined by the position of its highest one bit.
+             */
+            public static class Histogram {
+
+                /**
+                 * The number of buckets of a histogram, one for zero and one for each bit of a positive {@code long} value.
+                 */
+                protected static final int BUCKETS = Long.SIZE;
+
+                /**
+                 * The index of the sum of all values within a stripe.
+                 */
+                private static final int SUM = BUCKETS;
+
+                /**
+                 * The length of a stripe.
+                 */
+                private static final int STRIPE_LENGTH = BUCKETS + 1;
+
+                /**
+                 * The stripes of this histogram where each stripe contains the bucket counts and the sum of all recorded values.
+                 */
+                private final AtomicLongArray[] stripes;
+
+                /**
+                 * Creates a new histogram.
+                 *
+                 * @param stripes The minimal number of stripes.
+                 */
+                protected Histogram(int stripes) {
+                    this.stripes = new AtomicLongArray[stripes == 1
+                            ? 1
+                            : Integer.highestOneBit(stripes - 1) << 1];
+                    for (int index = 0; index < this.stripes.length; index++) {
+                        this.stripes[index] = new AtomicLongArray(STRIPE_LENGTH);
+                    }
+                }
+
+                /**
+                 * Resolves the bucket of a value.
+                 *
+                 * @param value The value for which to resolve the bucket.
+                 * @return The bucket of the supplied value.
+                 */
+                protected static int bucket(long value) {
+                    return value <= 0L
+                            ? 0
+                            : BUCKETS - Long.numberOfLeadingZeros(value);
+                }
+
+                /**
+                 * Records a value. Negative values are recorded as zero.
+                 *
+                 * @param value The value to record.
+                 */
+                protected void record(long value) {
+                    AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+                    stripe.incrementAndGet(bucket(value));
+                    stripe.addAndGet(SUM, Math.max(value, 0L));
+                }
+
+                /**
+                 * Resets all recorded values of this histogram.
+                 */
+                protected void reset() {
+                    for (AtomicLongArray stripe : stripes) {
+                        for (int index = 0; index < STRIPE_LENGTH; index++) {
+                            stripe.set(index, 0L);
+                        }
+                    }
+                }
+
+                /**
+                 * Creates a snapshot of this histogram. Values that are recorded concurrently might only be reflected partially.
+                 *
+                 * @return A snapshot of this histogram.
+                 */
+                public Snapshot snapshot() {
+                    long[] buckets = new long[BUCKETS];
+                    long sum = 0L;
+                    for (AtomicLongArray stripe : stripes) {
+                        for (int index = 0; index < BUCKETS; index++) {
+                            buckets[index] += stripe.get(index);
+                        }
+                        sum += stripe.get(SUM);
+                    }
+                    return new Snapshot(buckets, sum);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.Metrics.Aggregating.Histogram{" +
+                            "stripes=" + stripes.length +
+                            ", snapshot=" + snapshot() +
+                            '}';
+                }
+
+                /**
+                 * A snapshot of a histogram.
+                 */
+                public static class Snapshot {
+
+                    /**
+                     * The number of values per bucket where the bucket with index {@code 0} counts zero values and any other bucket
+                     * with index {@code i} counts values between {@code 2^(i - 1)} and {@code 2^i - 1}.
+                     */
+                    private final long[] buckets;
+
+                    /**
+                     * The sum of all values.
+                     */
+                    private final long sum;
+
+                    /**
+                     * Creates a new snapshot.
+                     *
+                     * @param buckets The number of values per bucket.
+                     * @param sum     The sum of all values.
+                     */
+                    protected Snapshot(long[] buckets, long sum) {
+                        this.buckets = buckets;
+                        this.sum = sum;
+                    }
+
+                    /**
+                     * Returns the number of recorded values.
+                     *
+                     * @return The number of recorded values.
+                     */
+                    public long getCount() {
+                        long count = 0L;
+                        for (long bucket : buckets) {
+                            count += bucket;
+                        }
+                        return count;
+                    }
+
+                    /**
+                     * Returns the sum of all recorded values.
+                     *
+                     * @return The sum of all recorded values.
+                     */
+                    public long getSum() {
+                        return sum;
+                    }
+
+                    /**
+                     * Returns the number of values per bucket where the bucket with index {@code 0} counts zero values and any other bucket
+                     * with index {@code i} counts values between {@code 2^(i - 1)} and {@code 2^i - 1}.
+                     *
+                     * @return The number of values per bucket.
+                     */
+                    public long[] getBuckets() {
+                        return buckets.clone();
+                    }
+
+                    /**
+                     * Returns an upper bound for the given percentile of all recorded values, i.e. the largest value of the
+                     * bucket that contains the percentile.
+                     *
+                     * @param percentile The percentile to resolve as a value between {@code 0} and {@code 100}.
+                     * @return An upper bound for the given percentile or {@code 0} if no value was recorded.
+                     */
+                    public long getPercentile(double percentile) {
+                        if (percentile < 0d || percentile > 100d) {
+                            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+                        }
+                        long count = getCount(), threshold = (long) Math.ceil(count * percentile / 100d), current = 0L;
+                        for (int index = 0; index < buckets.length; index++) {
+                            current += buckets[index];
+                            if (current >= threshold && current > 0L) {
+                                return index == 0
+                                        ? 0L
+                                        : (1L << index) - 1L;
+                            }
+                        }
+                        return 0L;
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        return this == other || !(other == null || getClass() != other.getClass())
+                                && sum == ((Snapshot) other).sum
+                                && Arrays.equals(buckets, ((Snapshot) other).buckets);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return 31 * Arrays.hashCode(buckets) + (int) (sum ^ (sum >>> 32));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Metrics.Aggregating.Histogram.Snapshot{" +
+                                "buckets=" + Arrays.toString(buckets) +
+                                ", sum=" + sum +
+                                '}';
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compound metrics that notify all of their metrics in their registration order.
+         */
+        class Compound implements Metrics {
+
+            /**
+             * The metrics to notify.
+             */
+            private final List<Metrics> metrics;
+
+            /**
+             * Creates new compound metrics.
+             *
+             * @param metrics The metrics to notify.
+             */
+            public Compound(Metrics... metrics) {
+                this(Arrays.asList(metrics));
+            }
+
+            /**
+             * Creates new compound metrics.
+             *
+             * @param metrics The metrics to notify.
+             */
+            public Compound(List<? extends Metrics> metrics) {
+                this.metrics = new ArrayList<Metrics>();
+                for (Metrics aMetrics : metrics) {
+                    if (aMetrics instanceof Compound) {
+                        this.metrics.addAll(((Compound) aMetrics).metrics);
+                    } else if (!(aMetrics instanceof NoOp)) {
+                        this.metrics.add(aMetrics);
+                    }
+                }
+            }
+
+            @Override
+            public boolean isEnabled() {
+                for (Metrics aMetrics : metrics) {
+                    if (aMetrics.isEnabled()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void onPhase(String typeName, Phase phase, long nanos) {
+                for (Metrics aMetrics : metrics) {
+                    aMetrics.onPhase(typeName, phase, nanos);
+                }
+            }
+
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module, int binaryLength, int transformedLength, long nanos) {
+                for (Metrics aMetrics : metrics) {
+                    aMetrics.onComplete(typeName, classLoader, module, binaryLength, transformedLength, nanos);
+                }
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && metrics.equals(((Compound) other).metrics);
+            }
+
+            @Override
+            public int hashCode() {
+                return metrics.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Metrics.Compound{" +
+                        "metrics=" + metrics +
+                        '}';
+            }
+        }
+    }
+
+    /**
+     * A transformation cache retains the class files that are produced when transforming a type upon its first loading such that an
+     * identical class file can be transformed without matching and transforming the type again, for example after a restart of an
+     * application with an unchanged agent. A cache is only consulted for types that are not ignored. A cached transformation is reported
+     * to the agent's {@link Listener} as a transformation of a dynamic type without auxiliary types, a type for which the absence of a
+     * transformation was cached is reported as ignored. A transformation is only retained if its result is self-contained, i.e. if it does
+     * not require any live {@link net.bytebuddy.implementation.LoadedTypeInitializer}s or auxiliary types. The absence of a transformation
+     * is only recorded for types that are not ignored but that are not matched by any transformation. Retransformations of loaded types
+     * never consult a cache.
+     */
+    interface TransformationCache {
+
+        /**
+         * Looks up the entry for a type that is about to be transformed.
+         *
+         * @param typeName             The binary name of the instrumented type.
+         * @param classLoader          The type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+         * @param binaryRepresentation The class file of the instrumented type in its original state.
+         * @param classFileLocator     A class file locator that locates the class files of the instrumented type's super types.
+         * @return An entry that represents the cached transformation, if any.
+         */
+        Entry lookup(String typeName, ClassLoader classLoader, byte[] binaryRepresentation, ClassFileLocator classFileLocator);
+
+        /**
+         * An entry of a transformation cache.
+         */
+        interface Entry {
+
+            /**
+             * Indicates a cached result for a type that is not transformed.
+             */
+            byte[] NO_TRANSFORMATION = null;
+
+            /**
+             * Returns {@code true} if this entry represents a cached transformation result.
+             *
+             * @return {@code true} if this entry represents a cached transformation result.
+             */
+            boolean isCached();
+
+            /**
+             * Returns the cached class file of the transformed type. This method must only be invoked if this entry is cached.
+             *
+             * @return The cached class file or {@code null} if the type was not transformed.
+             */
+            byte[] getBinaryRepresentation();
+
+            /**
+             * Stores the result of a transformation in this entry if this entry is not yet cached.
+             *
+             * @param binaryRepresentation The class file of the transformed type or {@code null} if the type is not transformed.
+             */
+            void store(byte[] binaryRepresentation);
+
+            /**
+             * An entry that is never cached and that does not retain any transformation.
+             */
+            enum Unavailable implements Entry {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public boolean isCached() {
+                    return false;
+                }
+
+                @Override
+                public byte[] getBinaryRepresentation() {
+                    throw new IllegalStateException("Entry is not cached");
+                }
+
+                @Override
+                public void store(byte[] binaryRepresentation) {
+                    /* do nothing */
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.Entry.Unavailable." + name();
+                }
+            }
+
+            /**
+             * An entry that represents a cached transformation result.
+             */
+            class Cached implements Entry {
+
+                /**
+                 * The cached class file or {@code null} if the type was not transformed.
+                 */
+                private final byte[] binaryRepresentation;
+
+                /**
+                 * Creates a new cached entry.
+                 *
+                 * @param binaryRepresentation The cached class file or {@code null} if the type was not transformed.
+                 */
+                public Cached(byte[] binaryRepresentation) {
+                    this.binaryRepresentation = binaryRepresentation;
+                }
+
+                @Override
+                public boolean isCached() {
+                    return true;
+                }
+
+                @Override
+                public byte[] getBinaryRepresentation() {
+                    return binaryRepresentation;
+                }
+
+                @Override
+                public void store(byte[] binaryRepresentation) {
+                    /* do nothing */
+                }
+
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    Cached cached = (Cached) object;
+                    return Arrays.equals(binaryRepresentation, cached.binaryRepresentation);
+                }
+
+                @Override
+                public int hashCode() {
+                    return Arrays.hashCode(binaryRepresentation);
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.Entry.Cached{" +
+                            "binaryRepresentation=<" + (binaryRepresentation == null ? "none" : binaryRepresentation.length + " bytes") + ">" +
+                            '}';
+                }
+            }
+        }
+
+        /**
+         * A non-operational transformation cache that never retains a transformation.
+         */
+        enum NoOp implements TransformationCache {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
+
+            @Override
+            public Entry lookup(String typeName, ClassLoader classLoader, byte[] binaryRepresentation, ClassFileLocator classFileLocator) {
+                return Entry.Unavailable.INSTANCE;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.TransformationCache.NoOp." + name();
+            }
+        }
+
+        /**
+         * <p>
+         * A transformation cache that retains transformations in an append-only file which is memory-mapped when the cache is opened.
+         * Each entry is keyed by a SHA-256 digest of the instrumented type's name, the name of its class loader's type, its original
+         * class file and a digest of the class files of all its super types, and it is validated by a checksum before it is returned.
+         * The digest of a super type is computed once per class loader. Any entry that cannot be read or validated is treated as
+         * absent such that the type is transformed as if no cache was registered.
+         * </p>
+         * <p>
+         * Entries are appended to the file by a background thread such that a transformation never waits for the file system. An
+         * entry that was stored is therefore not necessarily visible to a subsequent lookup. All pending entries are written when
+         * the cache is closed.
+         * </p>
+         * <p>
+         * The file is bound to a fingerprint of the agent's configuration, for example a version or a digest of the agent's jar file.
+         * If a file was written for a different fingerprint, all its entries are discarded. The fingerprint must change whenever the
+         * agent's transformations change, including changes of any matcher that considers other properties of a class loader than its
+         * type. Only the process that holds the file's lock appends to the file. Any other process only reads existing entries.
+         * </p>
+         * <p>
+         * <b>Important</b>: A failure to write to the file disables the cache for writing but never fails a transformation.
+         * </p>
+         */
+        class ForMappedFile implements TransformationCache, Closeable {
+
+            /**
+             * A magic number that identifies a transformation cache file.
+             */
+            private static final int MAGIC = 0xBB7CAC4E;
+
+            /**
+             * The version of the file format.
+             */
+            private static final int VERSION = 2;
+
+            /**
+             * The digest algorithm to use.
+             */
+            private static final String DIGEST = "SHA-256";
+
+            /**
+             * The length of a digest.
+             */
+            private static final int DIGEST_LENGTH = 32;
+
+            /**
+             * The length of the file's header that contains the magic number, the version and the fingerprint's digest.
+             */
+            private static final int HEADER_LENGTH = 4 + 4 + DIGEST_LENGTH;
+
+            /**
+             * The length of an entry's header that contains the class file's length, the entry's key and the entry's checksum.
+             */
+            private static final int ENTRY_HEADER_LENGTH = 4 + DIGEST_LENGTH + 8;
+
+            /**
+             * The length that indicates an entry for a type that is not transformed.
+             */
+            private static final int UNCHANGED = -1;
+
+            /**
+             * The file to which entries are written.
+             */
+            private final RandomAccessFile file;
+
+            /**
+             * The memory-mapped entries that existed when the file was opened.
+             */
+            private final ByteBuffer mapped;
+
+            /**
+             * The lock of the file or {@code null} if this cache is not writable.
+             */
+            private final FileLock lock;
+
+            /**
+             * A mapping of all known entries' keys to their locations within the file.
+             */
+            private final ConcurrentMap<ByteBuffer, Location> locations;
+
+            /**
+             * A mapping of weakly referenced class loaders to the digests of the super types that were computed for them.
+             */
+            private final ConcurrentMap<Object, WeakEntry> superTypes;
+
+            /**
+             * The reference queue that is notified upon the collection of a class loader.
+             */
+            private final ReferenceQueue<ClassLoader> referenceQueue;
+
+            /**
+             * The digests of the super types that were computed for the bootstrap class loader.
+             */
+            private final ConcurrentMap<String, byte[]> bootstrapSuperTypes;
+
+            /**
+             * The executor service that appends entries to the file.
+             */
+            private final ExecutorService executorService;
+
+            /**
+             * The position at which the next entry is appended.
+             */
+            private long end;
+
+            /**
+             * {@code true} if this cache is writable.
+             */
+            private volatile boolean writable;
+
+            /**
+             * Creates a new transformation cache for a memory-mapped file.
+             *
+             * @param file      The file to which entries are written.
+             * @param mapped    The memory-mapped entries that existed when the file was opened.
+             * @param lock      The lock of the file or {@code null} if this cache is not writable.
+             * @param locations A mapping of all known entries' keys to their locations within the file.
+             * @param end       The position at which the next entry is appended.
+             */
+            protected ForMappedFile(RandomAccessFile file, ByteBuffer mapped, FileLock lock, ConcurrentMap<ByteBuffer, Location> locations, long end) {
+                this.file = file;
+                this.mapped = mapped;
+                this.lock = lock;
+                this.locations = locations;
+                this.end = end;
+                superTypes = new ConcurrentHashMap<Object, WeakEntry>();
+                referenceQueue = new ReferenceQueue<ClassLoader>();
+                bootstrapSuperTypes = new ConcurrentHashMap<String, byte[]>();
+                executorService = Executors.newSingleThreadExecutor(WriterThreadFactory.INSTANCE);
+                writable = lock != null;
+            }
+
+            /**
+             * Opens a transformation cache for a file which is created if it does not exist.
+             *
+             * @param target      The file to use.
+             * @param fingerprint A fingerprint of the agent's configuration.
+             * @return A transformation cache that is backed by the supplied file.
+             * @throws IOException If the file cannot be opened.
+             */
+            public static ForMappedFile open(File target, String fingerprint) throws IOException {
+                return open(target, digest(fingerprint.getBytes("UTF-8")), true);
+            }
+
+            /**
+             * Opens a transformation cache for a file which is created if it does not exist. A file that was written for another fingerprint
+             * or that ends with an incomplete entry is never truncated as another process might have mapped it. Instead, its complete entries
+             * are copied to a temporary file in the same folder that is renamed to replace the original file. If the file cannot be replaced,
+             * the cache only reads the file's complete entries.
+             *
+             * @param target  The file to use.
+             * @param digest  The digest of the agent configuration's fingerprint.
+             * @param rebuild {@code true} if the file should be replaced if it cannot be appended to.
+             * @return A transformation cache that is backed by the supplied file.
+             * @throws IOException If the file cannot be opened.
+             */
+            private static ForMappedFile open(File target, byte[] digest, boolean rebuild) throws IOException {
+                RandomAccessFile file = new RandomAccessFile(target, "rw");
+                try {
+                    FileChannel channel = file.getChannel();
+                    FileLock lock;
+                    try {
+                        lock = channel.tryLock();
+                    } catch (OverlappingFileLockException ignored) {
+                        lock = null;
+                    }
+                    ConcurrentMap<ByteBuffer, Location> locations = new ConcurrentHashMap<ByteBuffer, Location>();
+                    boolean header = isHeader(channel, digest);
+                    long end = header
+                            ? parse(channel, locations)
+                            : HEADER_LENGTH;
+                    if (lock != null && (header ? end < channel.size() : channel.size() > 0)) {
+                        if (rebuild) {
+                            File temporary = rebuild(target, channel, digest, header ? end : HEADER_LENGTH);
+                            try {
+                                file.close();
+                                if (!temporary.renameTo(target) && !(target.delete() && temporary.renameTo(target))) {
+                                    /* do nothing: the file that is not replaced is only read */
+                                }
+                            } finally {
+                                if (temporary.exists() && !temporary.delete()) {
+                                    temporary.deleteOnExit();
+                                }
+                            }
+                            return open(target, digest, false);
+                        }
+                        lock.release();
+                        lock = null;
+                    } else if (lock != null && !header) {
+                        write(channel, header(digest), 0);
+                    }
+                    ByteBuffer mapped = header && end <= Integer.MAX_VALUE
+                            ? channel.map(FileChannel.MapMode.READ_ONLY, 0, end)
+                            : ByteBuffer.allocate(0);
+                    return new ForMappedFile(file, mapped, lock, locations, end);
+                } catch (IOException exception) {
+                    file.close();
+                    throw exception;
+                } catch (RuntimeException exception) {
+                    file.close();
+                    throw exception;
+                }
+            }
+
+            /**
+             * Copies the header for a fingerprint and the complete entries of a file to a temporary file in the same folder.
+             *
+             * @param target  The file that is rebuilt.
+             * @param channel The channel of the file that is rebuilt.
+             * @param digest  The digest of the agent configuration's fingerprint.
+             * @param end     The position after the last complete entry that is copied.
+             * @return The temporary file that contains the copied entries.
+             * @throws IOException If the temporary file cannot be written.
+             */
+            private static File rebuild(File target, FileChannel channel, byte[] digest, long end) throws IOException {
+                File temporary = File.createTempFile("." + target.getName() + ".", ".tmp", target.getAbsoluteFile().getParentFile());
+                boolean rebuilt = false;
+                try {
+                    RandomAccessFile file = new RandomAccessFile(temporary, "rw");
+                    try {
+                        FileChannel copy = file.getChannel();
+                        long position = write(copy, header(digest), 0);
+                        copy.position(position);
+                        while (position < end) {
+                            long transferred = channel.transferTo(position, end - position, copy);
+                            if (transferred == 0) {
+                                throw new EOFException("Unexpected end of transformation cache");
+                            }
+                            position += transferred;
+                        }
+                        copy.force(false);
+                    } finally {
+                        file.close();
+                    }
+                    rebuilt = true;
+                    return temporary;
+                } finally {
+                    if (!rebuilt && !temporary.delete()) {
+                        temporary.deleteOnExit();
+                    }
+                }
+            }
+
+            /**
+             * Creates the header of a file for a fingerprint.
+             *
+             * @param digest The digest of the agent configuration's fingerprint.
+             * @return A buffer that contains the header.
+             */
+            private static ByteBuffer header(byte[] digest) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(VERSION).put(digest);
+                header.flip();
+                return header;
+            }
+
+            /**
+             * Computes a SHA-256 digest of the supplied values.
+             *
+             * @param value The values to digest.
+             * @return The digest of the supplied values.
+             */
+            private static byte[] digest(byte[]... value) {
+                MessageDigest messageDigest;
+                try {
+                    messageDigest = MessageDigest.getInstance(DIGEST);
+                } catch (NoSuchAlgorithmException exception) {
+                    throw new IllegalStateException("Every Java platform must support " + DIGEST, exception);
+                }
+                for (byte[] aValue : value) {
+                    messageDigest.update(aValue);
+                }
+                return messageDigest.digest();
+            }
+
+            /**
+             * Checks if a channel starts with a valid header for the supplied fingerprint digest.
+             *
+             * @param channel The channel to check.
+             * @param digest  The digest of the fingerprint.
+             * @return {@code true} if the channel starts with a valid header.
+             * @throws IOException If the channel cannot be read.
+             */
+            private static boolean isHeader(FileChannel channel, byte[] digest) throws IOException {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+                if (!read(channel, buffer, 0) || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    return false;
+                }
+                for (int index = 0; index < DIGEST_LENGTH; index++) {
+                    if (buffer.get(8 + index) != digest[index]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            /**
+             * Parses all complete entries of a channel by only reading the entries' headers. The channel is parsed before it is
+             * mapped such that only complete entries are mapped.
+             *
+             * @param channel   The channel to parse.
+             * @param locations The map to register the locations of all complete entries in.
+             * @return The position after the last complete entry.
+             * @throws IOException If the channel cannot be read.
+             */
+            private static long parse(FileChannel channel, ConcurrentMap<ByteBuffer, Location> locations) throws IOException {
+                long size = channel.size(), position = HEADER_LENGTH;
+                ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_LENGTH);
+                while (size - position >= ENTRY_HEADER_LENGTH) {
+                    buffer.clear();
+                    if (!read(channel, buffer, position)) {
+                        break;
+                    }
+                    int length = buffer.getInt(0);
+                    if (length < UNCHANGED || size - position - ENTRY_HEADER_LENGTH < Math.max(0, length)) {
+                        break;
+                    }
+                    byte[] key = new byte[DIGEST_LENGTH];
+                    buffer.position(4);
+                    buffer.get(key);
+                    locations.put(ByteBuffer.wrap(key), new Location(position + ENTRY_HEADER_LENGTH, length, buffer.getLong(4 + DIGEST_LENGTH)));
+                    position += ENTRY_HEADER_LENGTH + Math.max(0, length);
+                }
+                return position;
+            }
+
+            /**
+             * Fills a buffer from a channel starting at a given position.
+             *
+             * @param channel  The channel to read from.
+             * @param buffer   The buffer to fill.
+             * @param position The position to read from.
+             * @return {@code true} if the buffer was filled completely.
+             * @throws IOException If the channel cannot be read.
+             */
+            private static boolean read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read == -1) {
+                        return false;
+                    }
+                    position += read;
+                }
+                return true;
+            }
+
+            /**
+             * Writes a buffer to a channel at a given position.
+             *
+             * @param channel  The channel to write to.
+             * @param buffer   The buffer to write.
+             * @param position The position to write at.
+             * @return The position after the written buffer.
+             * @throws IOException If the buffer cannot be written.
+             */
+            private static long write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                return position;
+            }
+
+            /**
+             * Computes the checksum of an entry.
+             *
+             * @param key                  The entry's key.
+             * @param binaryRepresentation The entry's class file or {@code null} if the type was not transformed.
+             * @return The checksum of the entry.
+             */
+            private static long checksum(ByteBuffer key, byte[] binaryRepresentation) {
+                CRC32 crc32 = new CRC32();
+                crc32.update(key.array());
+                if (binaryRepresentation != null) {
+                    crc32.update(binaryRepresentation);
+                }
+                return crc32.getValue();
+            }
+
+            @Override
+            public Entry lookup(String typeName, ClassLoader classLoader, byte[] binaryRepresentation, ClassFileLocator classFileLocator) {
+                try {
+                    ByteBuffer key = ByteBuffer.wrap(digest(typeName.getBytes("UTF-8"),
+                            new byte[1],
+                            (classLoader == null ? "" : classLoader.getClass().getName()).getBytes("UTF-8"),
+                            new byte[1],
+                            binaryRepresentation,
+                            superTypes(binaryRepresentation, classFileLocator, superTypes(classLoader))));
+                    Location location = locations.get(key);
+                    if (location != null) {
+                        byte[] cached = read(location);
+                        if (location.checksum == checksum(key, cached)) {
+                            return new Entry.Cached(cached);
+                        }
+                    }
+                    return new Pending(key);
+                } catch (IOException ignored) {
+                    return Entry.Unavailable.INSTANCE;
+                } catch (RuntimeException ignored) {
+                    return Entry.Unavailable.INSTANCE;
+                }
+            }
+
+            /**
+             * Returns the digests of the super types that were computed for a class loader.
+             *
+             * @param classLoader The class loader or {@code null} for the bootstrap class loader.
+             * @return The digests of the super types that were computed for the class loader.
+             */
+            private ConcurrentMap<String, byte[]> superTypes(ClassLoader classLoader) {
+                if (classLoader == null) {
+                    return bootstrapSuperTypes;
+                }
+                expungeStaleEntries();
+                WeakEntry entry = superTypes.get(new LookupKey(classLoader));
+                if (entry == null) {
+                    entry = new WeakEntry(classLoader, referenceQueue);
+                    WeakEntry previous = superTypes.putIfAbsent(entry, entry);
+                    if (previous != null) {
+                        entry = previous;
+                    }
+                }
+                return entry.getSuperTypes();
+            }
+
+            /**
+             * Removes the digests of the super types of all class loaders that were garbage collected.
+             */
+            private void expungeStaleEntries() {
+                Reference<?> reference;
+                while ((reference = referenceQueue.poll()) != null) {
+                    superTypes.remove(reference);
+                }
+            }
+
+            /**
+             * Computes a digest of the super class and the interfaces of a class file.
+             *
+             * @param binaryRepresentation The class file to digest the super types of.
+             * @param classFileLocator     The class file locator to locate the super types' class files with.
+             * @param superTypes           The digests of the super types that were already computed.
+             * @return A digest of the class file's super types.
+             * @throws IOException If a super type's class file cannot be read.
+             */
+            private static byte[] superTypes(byte[] binaryRepresentation,
+                                             ClassFileLocator classFileLocator,
+                                             ConcurrentMap<String, byte[]> superTypes) throws IOException {
+                ClassReader classReader = new ClassReader(binaryRepresentation);
+                String superName = classReader.getSuperName();
+                String[] interfaceName = classReader.getInterfaces();
+                byte[][] digest = new byte[interfaceName.length + 1][];
+                digest[0] = superName == null
+                        ? new byte[0]
+                        : superType(superName, classFileLocator, superTypes);
+                for (int index = 0; index < interfaceName.length; index++) {
+                    digest[index + 1] = superType(interfaceName[index], classFileLocator, superTypes);
+                }
+                return digest(digest);
+            }
+
+            /**
+             * Computes a digest of a super type's class file and of its own super types.
+             *
+             * @param internalName     The internal name of the super type.
+             * @param classFileLocator The class file locator to locate the super type's class file with.
+             * @param superTypes       The digests of the super types that were already computed.
+             * @return A digest of the super type.
+             * @throws IOException If the super type's class file cannot be read.
+             */
+            private static byte[] superType(String internalName,
+                                            ClassFileLocator classFileLocator,
+                                            ConcurrentMap<String, byte[]> superTypes) throws IOException {
+                byte[] digest = superTypes.get(internalName);
+                if (digest == null) {
+                    ClassFileLocator.Resolution resolution = classFileLocator.locate(internalName.replace('/', '.'));
+                    if (!resolution.isResolved()) {
+                        return digest(internalName.getBytes("UTF-8"));
+                    }
+                    byte[] binaryRepresentation = resolution.resolve();
+                    digest = digest(binaryRepresentation, superTypes(binaryRepresentation, classFileLocator, superTypes));
+                    superTypes.putIfAbsent(internalName, digest);
+                }
+                return digest;
+            }
+
+            /**
+             * Reads the class file of an entry.
+             *
+             * @param location The location of the entry.
+             * @return The entry's class file or {@code null} if the type was not transformed.
+             * @throws IOException If the entry cannot be read.
+             */
+            private byte[] read(Location location) throws IOException {
+                if (location.length == UNCHANGED) {
+                    return Entry.NO_TRANSFORMATION;
+                }
+                byte[] binaryRepresentation = new byte[location.length];
+                if (location.position + location.length <= mapped.capacity()) {
+                    ByteBuffer duplicate = mapped.duplicate();
+                    duplicate.position((int) location.position);
+                    duplicate.get(binaryRepresentation);
+                } else {
+                    ByteBuffer buffer = ByteBuffer.wrap(binaryRepresentation);
+                    while (buffer.hasRemaining()) {
+                        if (file.getChannel().read(buffer, location.position + buffer.position()) == -1) {
+                            throw new EOFException("Unexpected end of transformation cache");
+                        }
+                    }
+                }
+                return binaryRepresentation;
+            }
+
+            /**
+             * Schedules an entry to be appended to the file by this cache's writer thread.
+             *
+             * @param key                  The entry's key.
+             * @param binaryRepresentation The entry's class file or {@code null} if the type was not transformed.
+             */
+            protected void schedule(ByteBuffer key, byte[] binaryRepresentation) {
+                if (!writable) {
+                    return;
+                }
+                try {
+                    executorService.execute(new Appender(key, binaryRepresentation));
+                } catch (RejectedExecutionException ignored) {
+                    /* do nothing: the cache is closed */
+                }
+            }
+
+            /**
+             * Appends an entry to the file unless an entry for the supplied key is already known.
+             *
+             * @param key                  The entry's key.
+             * @param binaryRepresentation The entry's class file or {@code null} if the type was not transformed.
+             */
+            protected synchronized void append(ByteBuffer key, byte[] binaryRepresentation) {
+                if (!writable || locations.containsKey(key)) {
+                    return;
+                }
+                int length = binaryRepresentation == null ? UNCHANGED : binaryRepresentation.length;
+                long checksum = checksum(key, binaryRepresentation);
+                ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_LENGTH + Math.max(0, length)).putInt(length).put(key.array()).putLong(checksum);
+                if (binaryRepresentation != null) {
+                    buffer.put(binaryRepresentation);
+                }
+                buffer.flip();
+                try {
+                    long position = end;
+                    end = write(file.getChannel(), buffer, position);
+                    locations.put(key, new Location(position + ENTRY_HEADER_LENGTH, length, checksum));
+                } catch (IOException ignored) {
+                    writable = false;
+                }
+            }
+
+            /**
+             * Returns the number of entries that are known to this cache.
+             *
+             * @return The number of entries that are known to this cache.
+             */
+            public int size() {
+                return locations.size();
+            }
+
+            /**
+             * Returns {@code true} if this cache appends entries to its file.
+             *
+             * @return {@code true} if this cache appends entries to its file.
+             */
+            public boolean isWritable() {
+                return writable;
+            }
+
+            /**
+             * Blocks until all entries that were stored before invoking this method are written to the file.
+             *
+             * @throws InterruptedException If the current thread is interrupted while waiting.
+             */
+            public void flush() throws InterruptedException {
+                try {
+                    executorService.submit(new Appender(null, null)).get();
+                } catch (RejectedExecutionException ignored) {
+                    /* do nothing: the cache is closed */
+                } catch (ExecutionException exception) {
+                    throw new IllegalStateException("Could not flush transformation cache", exception.getCause());
+                }
+            }
+
+            /**
+             * Closes this cache after all pending entries were written to the file.
+             *
+             * @throws IOException If the file cannot be closed.
+             */
+            @Override
+            public void close() throws IOException {
+                executorService.shutdown();
+                try {
+                    while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                        /* do nothing: pending entries are still written */
+                    }
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (this) {
+                    writable = false;
+                    try {
+                        if (lock != null) {
+                            lock.release();
+                        }
+                    } finally {
+                        file.close();
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.TransformationCache.ForMappedFile{" +
+                        "file=" + file +
+                        ", locations=" + locations.size() +
+                        ", writable=" + writable +
+                        '}';
+            }
+
+            /**
+             * A thread factory for the daemon thread that appends entries to a transformation cache's file.
+             */
+            protected enum WriterThreadFactory implements ThreadFactory {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "byte-buddy-transformation-cache-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.WriterThreadFactory." + name();
+                }
+            }
+
+            /**
+             * A task that appends an entry to the file.
+             */
+            protected class Appender implements Runnable {
+
+                /**
+                 * The entry's key or {@code null} if no entry should be appended.
+                 */
+                private final ByteBuffer key;
+
+                /**
+                 * The entry's class file or {@code null} if the type was not transformed.
+                 */
+                private final byte[] binaryRepresentation;
+
+                /**
+                 * Creates a new appender.
+                 *
+                 * @param key                  The entry's key or {@code null} if no entry should be appended.
+                 * @param binaryRepresentation The entry's class file or {@code null} if the type was not transformed.
+                 */
+                protected Appender(ByteBuffer key, byte[] binaryRepresentation) {
+                    this.key = key;
+                    this.binaryRepresentation = binaryRepresentation;
+                }
+
+                @Override
+                public void run() {
+                    if (key != null) {
+                        append(key, binaryRepresentation);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.Appender{" +
+                            "cache=" + ForMappedFile.this +
+                            ", key=" + key +
+                            '}';
+                }
+            }
+
+            /**
+             * Describes the location of an entry's class file within the file.
+             */
+            protected static class Location {
+
+                /**
+                 * The position of the class file.
+                 */
+                private final long position;
+
+                /**
+                 * The length of the class file or {@link ForMappedFile#UNCHANGED} if the type was not transformed.
+                 */
+                private final int length;
+
+                /**
+                 * The checksum of the entry.
+                 */
+                private final long checksum;
+
+                /**
+                 * Creates a new location.
+                 *
+                 * @param position The position of the class file.
+                 * @param length   The length of the class file or {@link ForMappedFile#UNCHANGED} if the type was not transformed.
+                 * @param checksum The checksum of the entry.
+                 */
+                protected Location(long position, int length, long checksum) {
+                    this.position = position;
+                    this.length = length;
+                    this.checksum = checksum;
+                }
+
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    Location location = (Location) object;
+                    return position == location.position
+                            && length == location.length
+                            && checksum == location.checksum;
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = (int) (position ^ (position >>> 32));
+                    result = 31 * result + length;
+                    result = 31 * result + (int) (checksum ^ (checksum >>> 32));
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.Location{" +
+                            "position=" + position +
+                            ", length=" + length +
+                            ", checksum=" + checksum +
+                            '}';
+                }
+            }
+
+            /**
+             * A weak reference to a class loader that holds the digests of the super types that were computed for it. Two entries are
+             * equal if they reference the identical class loader. An entry is only equal to itself once its class loader was collected.
+             */
+            protected static class WeakEntry extends WeakReference<ClassLoader> {
+
+                /**
+                 * The identity hash code of the referenced class loader.
+                 */
+                private final int hashCode;
+
+                /**
+                 * The digests of the super types that were computed for the referenced class loader by their internal names.
+                 */
+                private final ConcurrentMap<String, byte[]> superTypes;
+
+                /**
+                 * Creates a new weak entry.
+                 *
+                 * @param classLoader    The referenced class loader.
+                 * @param referenceQueue The reference queue to notify upon the collection of the class loader.
+                 */
+                protected WeakEntry(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue) {
+                    super(classLoader, referenceQueue);
+                    hashCode = System.identityHashCode(classLoader);
+                    superTypes = new ConcurrentHashMap<String, byte[]>();
+                }
+
+                /**
+                 * Returns the digests of the super types that were computed for the referenced class loader.
+                 *
+                 * @return The digests of the super types that were computed for the referenced class loader.
+                 */
+                protected ConcurrentMap<String, byte[]> getSuperTypes() {
+                    return superTypes;
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) {
+                        return true;
+                    } else if (other instanceof WeakEntry) {
+                        ClassLoader classLoader = get();
+                        return classLoader != null && classLoader == ((WeakEntry) other).get();
+                    } else {
+                        return other instanceof LookupKey && ((LookupKey) other).equals(this);
+                    }
+                }
+
+                @Override
+                public int hashCode() {
+                    return hashCode;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.WeakEntry{" +
+                            "classLoader=" + get() +
+                            ", superTypes=<" + superTypes.size() + " digests>" +
+                            '}';
+                }
+            }
+
+            /**
+             * A short-lived key for looking up a class loader's {@link WeakEntry} without creating a weak reference.
+             */
+            protected static class LookupKey {
+
+                /**
+                 * The class loader to look up.
+                 */
+                private final ClassLoader classLoader;
+
+                /**
+                 * The identity hash code of the class loader.
+                 */
+                private final int hashCode;
+
+                /**
+                 * Creates a new lookup key.
+                 *
+                 * @param classLoader The class loader to look up.
+                 */
+                protected LookupKey(ClassLoader classLoader) {
+                    this.classLoader = classLoader;
+                    hashCode = System.identityHashCode(classLoader);
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) {
+                        return true;
+                    } else if (other instanceof LookupKey) {
+                        return classLoader == ((LookupKey) other).classLoader;
+                    } else {
+                        return other instanceof WeakEntry && classLoader == ((WeakEntry) other).get();
+                    }
+                }
+
+                @Override
+                public int hashCode() {
+                    return hashCode;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.LookupKey{" +
+                            "classLoader=" + classLoader +
+                            '}';
+                }
+            }
+
+            /**
+             * An entry for a type that is not yet cached and whose transformation is appended to the file when it is stored.
+             */
+            protected class Pending implements Entry {
+
+                /**
+                 * The entry's key.
+                 */
+                private final ByteBuffer key;
+
+                /**
+                 * Creates a new pending entry.
+                 *
+                 * @param key The entry's key.
+                 */
+                protected Pending(ByteBuffer key) {
+                    this.key = key;
+                }
+
+                @Override
+                public boolean isCached() {
+                    return false;
+                }
+
+                @Override
+                public byte[] getBinaryRepresentation() {
+                    throw new IllegalStateException("Entry is not cached");
+                }
+
+                @Override
+                public void store(byte[] binaryRepresentation) {
+                    schedule(key, binaryRepresentation);
+                }
+
+                /**
+                 * Returns the outer instance.
+                 *
+                 * @return The outer instance.
+                 */
+                private ForMappedFile getOuter() {
+                    return ForMappedFile.this;
+                }
+
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    Pending pending = (Pending) object;
+                    return key.equals(pending.key) && getOuter().equals(pending.getOuter());
+                }
+
+                @Override
+                public int hashCode() {
+                    return key.hashCode() + 31 * getOuter().hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.TransformationCache.ForMappedFile.Pending{" +
+                            "cache=" + ForMappedFile.this +
+                            ", key=" + key +
+                            '}';
+                }
+            }
+        }
+    }
+
+    /**
+     * A deduplication strategy determines if a transformation of a type that is loaded by several class loaders from an identical class file
+     * is only applied once while its result is reused for any other class loader. A transformation is only reused if the same transformers
+     * were matched for a type and if the type and all its super types are defined by identical class files as they are located for the type's
+     * class loader. This way, a transformation is never reused if a type's hierarchy differs between class loaders. A transformation is also
+     * only reused if its result is self-contained, i.e. if it does not require any live
+     * {@link net.bytebuddy.implementation.LoadedTypeInitializer}s or auxiliary types. Deduplication is only applicable if no transformer
+     * depends on a type's class loader beyond the type's description.
+     */
+    interface DeduplicationStrategy {
+
+        /**
+         * Creates a deduplicator for a single class file transformer.
+         *
+         * @return A deduplicator for a single class file transformer.
+         */
+        Deduplicator make();
+
+        /**
+         * A deduplication strategy that never reuses a transformation.
+         */
+        enum Disabled implements DeduplicationStrategy {
+
+            /**
+             * The singleton instance.
+             */
+            INSTANCE;
 
             @Override
-            public boolean acquire() {
-                return true;
+            public Deduplicator make() {
+                return Deduplicator.NoOp.INSTANCE;
             }
 
             @Override
-            public void release() {
-                        /* do nothing */
+            public String toString() {
+                return "AgentBuilder.DeduplicationStrategy.Disabled." + name();
+            }
+        }
+
+        /**
+         * A deduplication strategy that reuses transformations of types with identical hierarchies.
+         */
+        class Enabled implements DeduplicationStrategy {
+
+            /**
+             * The default maximum number of transformations that are retained.
+             */
+            private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+            /**
+             * The maximum number of transformations that are retained.
+             */
+            private final int maximumSize;
+
+            /**
+             * Creates a new enabled deduplication strategy that retains a default number of transformations.
+             */
+            public Enabled() {
+                this(DEFAULT_MAXIMUM_SIZE);
+            }
+
+            /**
+             * Creates a new enabled deduplication strategy.
+             *
+             * @param maximumSize The maximum number of transformations that are retained.
+             */
+            public Enabled(int maximumSize) {
+                if (maximumSize <= 0) {
+                    throw new IllegalArgumentException("Maximum size must be a positive number: " + maximumSize);
+                }
+                this.maximumSize = maximumSize;
+            }
+
+            @Override
+            public Deduplicator make() {
+                return new Deduplicator.ForIdenticalHierarchy(maximumSize);
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                Enabled enabled = (Enabled) object;
+                return maximumSize == enabled.maximumSize;
+            }
+
+            @Override
+            public int hashCode() {
+                return maximumSize;
             }
 
             @Override
             public String toString() {
-                return "AgentBuilder.CircularityLock.Inactive." + name();
+                return "AgentBuilder.DeduplicationStrategy.Enabled{" +
+                        "maximumSize=" + maximumSize +
+                        '}';
             }
         }
 
         /**
-         * A default implementation of a circularity lock. Since class loading already synchronizes on a class loader,
-         * it suffices to apply a thread-local lock.
+         * A deduplicator retains the transformations of a single class file transformer.
          */
-        class Default extends ThreadLocal<Boolean> implements CircularityLock {
+        interface Deduplicator {
+
+            /**
+             * Looks up a previously applied transformation that is identical to the supplied transformation.
+             *
+             * @param typeDescription  The description of the instrumented type.
+             * @param classLoader      The instrumented type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+             * @param transformer      The transformer that is applied to the instrumented type.
+             * @param classFileLocator The class file locator for the instrumented type's class loader.
+             * @return An entry that represents a previously applied identical transformation, if any.
+             */
+            TransformationCache.Entry lookup(TypeDescription typeDescription, ClassLoader classLoader, Transformer transformer, ClassFileLocator classFileLocator);
+
+            /**
+             * A deduplicator that never reuses a transformation.
+             */
+            enum NoOp implements Deduplicator {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public TransformationCache.Entry lookup(TypeDescription typeDescription, ClassLoader classLoader, Transformer transformer, ClassFileLocator classFileLocator) {
+                    return TransformationCache.Entry.Unavailable.INSTANCE;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.DeduplicationStrategy.Deduplicator.NoOp." + name();
+                }
+            }
+
+            /**
+             * A deduplicator that identifies a transformation by its transformer and by a digest of the class files of the instrumented
+             * type and of all its super types. Types of the {@code java.*} namespace are only identified by their name as they can only
+             * be defined by the bootstrap class loader. The digest of a super type's hierarchy is computed once per class loader. If more
+             * than the maximum number of transformations would be retained, the least recently used transformations are evicted.
+             */
+            class ForIdenticalHierarchy implements Deduplicator {
+
+                /**
+                 * Indicates that the underlying map is iterated in access-order which is required for a least-recently-used eviction.
+                 */
+                private static final boolean ACCESS_ORDER = true;
+
+                /**
+                 * The digest algorithm to use.
+                 */
+                private static final String DIGEST = "SHA-256";
+
+                /**
+                 * The prefix of the names of types that can only be defined by the bootstrap class loader.
+                 */
+                private static final String BOOTSTRAP_ONLY = "java.";
+
+                /**
+                 * The maximum number of transformations that are retained.
+                 */
+                private final int maximumSize;
+
+                /**
+                 * A mapping of all retained transformations by their keys in access-order. All access is synchronized on this instance.
+                 */
+                private final LinkedHashMap<Key, byte[]> binaryRepresentations;
+
+                /**
+                 * A mapping of weakly referenced class loaders to the digests of the hierarchies of super types that were computed for them.
+                 */
+                private final ConcurrentMap<Object, WeakEntry> superTypes;
+
+                /**
+                 * The reference queue that is notified upon the collection of a class loader.
+                 */
+                private final ReferenceQueue<ClassLoader> referenceQueue;
+
+                /**
+                 * The digests of the hierarchies of super types that were computed for the bootstrap class loader.
+                 */
+                private final ConcurrentMap<String, byte[]> bootstrapSuperTypes;
+
+                /**
+                 * The number of transformations that were evicted.
+                 */
+                private long evictionCount;
+
+                /**
+                 * Creates a new deduplicator for identical type hierarchies.
+                 *
+                 * @param maximumSize The maximum number of transformations that are retained.
+                 */
+                protected ForIdenticalHierarchy(int maximumSize) {
+                    this.maximumSize = maximumSize;
+                    binaryRepresentations = new LinkedHashMap<Key, byte[]>(16, 0.75f, ACCESS_ORDER);
+                    superTypes = new ConcurrentHashMap<Object, WeakEntry>();
+                    referenceQueue = new ReferenceQueue<ClassLoader>();
+                    bootstrapSuperTypes = new ConcurrentHashMap<String, byte[]>();
+                }
+
+                @Override
+                public TransformationCache.Entry lookup(TypeDescription typeDescription, ClassLoader classLoader, Transformer transformer, ClassFileLocator classFileLocator) {
+                    try {
+                        byte[] digest = digest(typeDescription, classFileLocator, superTypes(classLoader));
+                        if (digest == null) {
+                            return TransformationCache.Entry.Unavailable.INSTANCE;
+                        }
+                        Key key = new Key(transformer, digest);
+                        byte[] binaryRepresentation;
+                        synchronized (this) {
+                            binaryRepresentation = binaryRepresentations.get(key);
+                        }
+                        return binaryRepresentation == null
+                                ? new Pending(key)
+                                : new TransformationCache.Entry.Cached(binaryRepresentation.clone());
+                    } catch (IOException ignored) {
+                        return TransformationCache.Entry.Unavailable.INSTANCE;
+                    } catch (RuntimeException ignored) {
+                        return TransformationCache.Entry.Unavailable.INSTANCE;
+                    }
+                }
+
+                /**
+                 * Returns the digests of the hierarchies of super types that were computed for a class loader.
+                 *
+                 * @param classLoader The class loader or {@code null} for the bootstrap class loader.
+                 * @return The digests of the hierarchies of super types that were computed for the class loader.
+                 */
+                private ConcurrentMap<String, byte[]> superTypes(ClassLoader classLoader) {
+                    if (classLoader == null) {
+                        return bootstrapSuperTypes;
+                    }
+                    expungeStaleEntries();
+                    WeakEntry entry = superTypes.get(new LookupKey(classLoader));
+                    if (entry == null) {
+                        entry = new WeakEntry(classLoader, referenceQueue);
+                        WeakEntry previous = superTypes.putIfAbsent(entry, entry);
+                        if (previous != null) {
+                            entry = previous;
+                        }
+                    }
+                    return entry.getSuperTypes();
+                }
+
+                /**
+                 * Removes the digests of the hierarchies of super types of all class loaders that were garbage collected.
+                 */
+                private void expungeStaleEntries() {
+                    Reference<?> reference;
+                    while ((reference = referenceQueue.poll()) != null) {
+                        superTypes.remove(reference);
+                    }
+                }
+
+                /**
+                 * Computes a digest of a type's class file and of the hierarchies of its super types. The digests of the super types'
+                 * hierarchies are taken from the supplied map if they were computed before and registered in it otherwise.
+                 *
+                 * @param typeDescription  The type to digest.
+                 * @param classFileLocator The class file locator to locate the class files of the type and its super types with.
+                 * @param superTypes       The digests of the hierarchies of super types that were already computed.
+                 * @return A digest of the type's hierarchy or {@code null} if a class file of the hierarchy cannot be located.
+                 * @throws IOException If a class file cannot be read.
+                 */
+                private static byte[] digest(TypeDescription typeDescription,
+                                             ClassFileLocator classFileLocator,
+                                             ConcurrentMap<String, byte[]> superTypes) throws IOException {
+                    MessageDigest messageDigest;
+                    try {
+                        messageDigest = MessageDigest.getInstance(DIGEST);
+                    } catch (NoSuchAlgorithmException exception) {
+                        throw new IllegalStateException("Every Java platform must support " + DIGEST, exception);
+                    }
+                    messageDigest.update(typeDescription.getName().getBytes("UTF-8"));
+                    messageDigest.update((byte) 0);
+                    if (!typeDescription.getName().startsWith(BOOTSTRAP_ONLY)) {
+                        ClassFileLocator.Resolution resolution = classFileLocator.locate(typeDescription.getName());
+                        if (!resolution.isResolved()) {
+                            return null;
+                        }
+                        messageDigest.update(resolution.resolve());
+                        List<TypeDescription> superType = new ArrayList<TypeDescription>();
+                        TypeDescription.Generic superClass = typeDescription.getSuperClass();
+                        if (superClass != null) {
+                            superType.add(superClass.asErasure());
+                        }
+                        superType.addAll(typeDescription.getInterfaces().asErasures());
+                        for (TypeDescription aSuperType : superType) {
+                            byte[] digest = superTypes.get(aSuperType.getName());
+                            if (digest == null) {
+                                digest = digest(aSuperType, classFileLocator, superTypes);
+                                if (digest == null) {
+                                    return null;
+                                }
+                                superTypes.putIfAbsent(aSuperType.getName(), digest);
+                            }
+                            messageDigest.update(digest);
+                        }
+                    }
+                    return messageDigest.digest();
+                }
+
+                /**
+                 * Retains a transformation and evicts the least recently used transformations if the maximum number of transformations
+                 * is exceeded.
+                 *
+                 * @param key                  The key of the transformation.
+                 * @param binaryRepresentation The class file of the transformed type.
+                 */
+                protected void retain(Key key, byte[] binaryRepresentation) {
+                    if (binaryRepresentation == null) {
+                        return;
+                    }
+                    byte[] copy = binaryRepresentation.clone();
+                    synchronized (this) {
+                        if (binaryRepresentations.containsKey(key)) {
+                            return;
+                        }
+                        binaryRepresentations.put(key, copy);
+                        Iterator<byte[]> iterator = binaryRepresentations.values().iterator();
+                        while (binaryRepresentations.size() > maximumSize) {
+                            iterator.next();
+                            iterator.remove();
+                            evictionCount++;
+                        }
+                    }
+                }
+
+                /**
+                 * Returns the number of retained transformations.
+                 *
+                 * @return The number of retained transformations.
+                 */
+                public synchronized int size() {
+                    return binaryRepresentations.size();
+                }
+
+                /**
+                 * Returns the number of transformations that were evicted.
+                 *
+                 * @return The number of transformations that were evicted.
+                 */
+                public synchronized long getEvictionCount() {
+                    return evictionCount;
+                }
+
+                @Override
+                public synchronized String toString() {
+                    return "AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy{" +
+                            "maximumSize=" + maximumSize +
+                            ", binaryRepresentations=" + binaryRepresentations.size() +
+                            ", evictionCount=" + evictionCount +
+                            '}';
+                }
+
+                /**
+                 * A key of a retained transformation.
+                 */
+                protected static class Key {
+
+                    /**
+                     * The transformer that was applied.
+                     */
+                    private final Transformer transformer;
+
+                    /**
+                     * A digest of the class files of the instrumented type and its super types.
+                     */
+                    private final byte[] digest;
+
+                    /**
+                     * Creates a new key.
+                     *
+                     * @param transformer The transformer that was applied.
+                     * @param digest      A digest of the class files of the instrumented type and its super types.
+                     */
+                    protected Key(Transformer transformer, byte[] digest) {
+                        this.transformer = transformer;
+                        this.digest = digest;
+                    }
+
+                    @Override
+                    public boolean equals(Object object) {
+                        if (this == object) return true;
+                        if (object == null || getClass() != object.getClass()) return false;
+                        Key key = (Key) object;
+                        return transformer.equals(key.transformer) && Arrays.equals(digest, key.digest);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return 31 * transformer.hashCode() + Arrays.hashCode(digest);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.Key{" +
+                                "transformer=" + transformer +
+                                ", digest=" + Arrays.toString(digest) +
+                                '}';
+                    }
+                }
+
+                /**
+                 * A weak reference to a class loader that holds the digests of the hierarchies of super types that were computed for it.
+                 * Two entries are equal if they reference the identical class loader. An entry is only equal to itself once its class
+                 * loader was collected.
+                 */
+                protected static class WeakEntry extends WeakReference<ClassLoader> {
+
+                    /**
+                     * The identity hash code of the referenced class loader.
+                     */
+                    private final int hashCode;
+
+                    /**
+                     * The digests of the hierarchies of super types that were computed for the referenced class loader by their names.
+                     */
+                    private final ConcurrentMap<String, byte[]> superTypes;
+
+                    /**
+                     * Creates a new weak entry.
+                     *
+                     * @param classLoader    The referenced class loader.
+                     * @param referenceQueue The reference queue to notify upon the collection of the class loader.
+                     */
+                    protected WeakEntry(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue) {
+                        super(classLoader, referenceQueue);
+                        hashCode = System.identityHashCode(classLoader);
+                        superTypes = new ConcurrentHashMap<String, byte[]>();
+                    }
+
+                    /**
+                     * Returns the digests of the hierarchies of super types that were computed for the referenced class loader.
+                     *
+                     * @return The digests of the hierarchies of super types that were computed for the referenced class loader.
+                     */
+                    protected ConcurrentMap<String, byte[]> getSuperTypes() {
+                        return superTypes;
+                    }
 
-            /**
-             * Indicates that the circularity lock is not currently acquired.
-             */
-            private static final Boolean NOT_ACQUIRED = null;
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) {
+                            return true;
+                        } else if (other instanceof WeakEntry) {
+                            ClassLoader classLoader = get();
+                            return classLoader != null && classLoader == ((WeakEntry) other).get();
+                        } else {
+                            return other instanceof LookupKey && ((LookupKey) other).equals(this);
+                        }
+                    }
 
-            @Override
-            public boolean acquire() {
-                if (get() == NOT_ACQUIRED) {
-                    set(true);
-                    return true;
-                } else {
-                    return false;
+                    @Override
+                    public int hashCode() {
+                        return hashCode;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.WeakEntry{" +
+                                "classLoader=" + get() +
+                                ", superTypes=<" + superTypes.size() + " digests>" +
+                                '}';
+                    }
                 }
-            }
 
-            @Override
-            public void release() {
-                set(NOT_ACQUIRED);
-            }
+                /**
+                 * A short-lived key for looking up a class loader's {@link WeakEntry} without creating a weak reference.
+                 */
+                protected static class LookupKey {
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.CircularityLock.Default{acquired=" + (get() != NOT_ACQUIRED) + "}";
-            }
-        }
-    }
+                    /**
+                     * The class loader to look up.
+                     */
+                    private final ClassLoader classLoader;
 
-    /**
-     * A type strategy is responsible for creating a type builder for a type that is being instrumented.
-     */
-    interface TypeStrategy {
+                    /**
+                     * The identity hash code of the class loader.
+                     */
+                    private final int hashCode;
 
-        /**
-         * Creates a type builder for a given type.
-         *
-         * @param typeDescription       The type being instrumented.
-         * @param byteBuddy             The Byte Buddy configuration.
-         * @param classFileLocator      The class file locator to use.
-         * @param methodNameTransformer The method name transformer to use.
-         * @return A type builder for the given arguments.
-         */
-        DynamicType.Builder<?> builder(TypeDescription typeDescription,
-                                       ByteBuddy byteBuddy,
-                                       ClassFileLocator classFileLocator,
-                                       MethodNameTransformer methodNameTransformer);
+                    /**
+                     * Creates a new lookup key.
+                     *
+                     * @param classLoader The class loader to look up.
+                     */
+                    protected LookupKey(ClassLoader classLoader) {
+                        this.classLoader = classLoader;
+                        hashCode = System.identityHashCode(classLoader);
+                    }
 
-        /**
-         * Default implementations of type strategies.
-         */
-        enum Default implements TypeStrategy {
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) {
+                            return true;
+                        } else if (other instanceof LookupKey) {
+                            return classLoader == ((LookupKey) other).classLoader;
+                        } else {
+                            return other instanceof WeakEntry && classLoader == ((WeakEntry) other).get();
+                        }
+                    }
 
-            /**
-             * A definition handler that performs a rebasing for all types.
-             */
-            REBASE {
-                @Override
-                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
-                                                      ByteBuddy byteBuddy,
-                                                      ClassFileLocator classFileLocator,
-                                                      MethodNameTransformer methodNameTransformer) {
-                    return byteBuddy.rebase(typeDescription, classFileLocator, methodNameTransformer);
-                }
-            },
+                    @Override
+                    public int hashCode() {
+                        return hashCode;
+                    }
 
-            /**
-             * <p>
-             * A definition handler that performs a redefinition for all types.
-             * </p>
-             * <p>
-             * Note that the default agent builder is configured to apply a self initialization where a static class initializer
-             * is added to the redefined class. This can be disabled by for example using a {@link InitializationStrategy.Minimal} or
-             * {@link InitializationStrategy.NoOp}. Also, consider the constraints implied by {@link ByteBuddy#redefine(TypeDescription, ClassFileLocator)}.
-             * </p>
-             * <p>
-             * For prohibiting any changes on a class file, use {@link AgentBuilder#disableClassFormatChanges()}
-             * </p>
-             */
-            REDEFINE {
-                @Override
-                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
-                                                      ByteBuddy byteBuddy,
-                                                      ClassFileLocator classFileLocator,
-                                                      MethodNameTransformer methodNameTransformer) {
-                    return byteBuddy.redefine(typeDescription, classFileLocator);
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.LookupKey{" +
+                                "classLoader=" + classLoader +
+                                '}';
+                    }
                 }
-            },
 
-            /**
-             * <p>
-             * A definition handler that performs a redefinition for all types and ignores all methods that were not declared by the instrumented type.
-             * </p>
-             * <p>
-             * Note that the default agent builder is configured to apply a self initialization where a static class initializer
-             * is added to the redefined class. This can be disabled by for example using a {@link InitializationStrategy.Minimal} or
-             * {@link InitializationStrategy.NoOp}. Also, consider the constraints implied by {@link ByteBuddy#redefine(TypeDescription, ClassFileLocator)}.
-             * </p>
-             * <p>
-             * For prohibiting any changes on a class file, use {@link AgentBuilder#disableClassFormatChanges()}
-             * </p>
-             */
-            REDEFINE_DECLARED_ONLY {
-                @Override
-                public DynamicType.Builder<?> builder(TypeDescription typeDescription,
-                                                      ByteBuddy byteBuddy,
-                                                      ClassFileLocator classFileLocator,
-                                                      MethodNameTransformer methodNameTransformer) {
-                    return byteBuddy.redefine(typeDescription, classFileLocator).ignoreAlso(LatentMatcher.ForSelfDeclaredMethod.NOT_DECLARED);
-                }
-            };
+                /**
+                 * An entry for a transformation that was not yet applied and that is retained when it is stored.
+                 */
+                protected class Pending implements TransformationCache.Entry {
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.TypeStrategy.Default." + name();
-            }
-        }
+                    /**
+                     * The key of the transformation.
+                     */
+                    private final Key key;
 
-        /**
-         * A type strategy that applies a build {@link EntryPoint}.
-         */
-        class ForBuildEntryPoint implements TypeStrategy {
+                    /**
+                     * Creates a new pending entry.
+                     *
+                     * @param key The key of the transformation.
+                     */
+                    protected Pending(Key key) {
+                        this.key = key;
+                    }
 
-            /**
-             * The entry point to apply.
-             */
-            private final EntryPoint entryPoint;
+                    @Override
+                    public boolean isCached() {
+                        return false;
+                    }
 
-            /**
-             * Creates a new type strategy for an entry point.
-             *
-             * @param entryPoint The entry point to apply.
-             */
-            public ForBuildEntryPoint(EntryPoint entryPoint) {
-                this.entryPoint = entryPoint;
-            }
+                    @Override
+                    public byte[] getBinaryRepresentation() {
+                        throw new IllegalStateException("Entry is not cached");
+                    }
 
-            @Override
-            public DynamicType.Builder<?> builder(TypeDescription typeDescription,
-                                                  ByteBuddy byteBuddy,
-                                                  ClassFileLocator classFileLocator,
-                                                  MethodNameTransformer methodNameTransformer) {
-                return entryPoint.transform(typeDescription, byteBuddy, classFileLocator, methodNameTransformer);
-            }
+                    @Override
+                    public void store(byte[] binaryRepresentation) {
+                        retain(key, binaryRepresentation);
+                    }
 
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                ForBuildEntryPoint that = (ForBuildEntryPoint) object;
-                return entryPoint.equals(that.entryPoint);
-            }
+                    /**
+                     * Returns the outer instance.
+                     *
+                     * @return The outer instance.
+                     */
+                    private ForIdenticalHierarchy getOuter() {
+                        return ForIdenticalHierarchy.this;
+                    }
 
-            @Override
-            public int hashCode() {
-                return entryPoint.hashCode();
-            }
+                    @Override
+                    public boolean equals(Object object) {
+                        if (this == object) return true;
+                        if (object == null || getClass() != object.getClass()) return false;
+                        Pending pending = (Pending) object;
+                        return key.equals(pending.key) && getOuter().equals(pending.getOuter());
+                    }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.TypeStrategy.ForBuildEntryPoint{" +
-                        "entryPoint=" + entryPoint +
-                        '}';
+                    @Override
+                    public int hashCode() {
+                        return key.hashCode() + 31 * getOuter().hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.Pending{" +
+                                "deduplicator=" + ForIdenticalHierarchy.this +
+                                ", key=" + key +
+                                '}';
+                    }
+                }
             }
         }
     }
 
     /**
-     * A transformer allows to apply modifications to a {@link net.bytebuddy.dynamic.DynamicType}. Such a modification
-     * is then applied to any instrumented type that was matched by the preceding matcher.
+     * A fallback strategy allows to reattempt a transformation or a consideration for redefinition/retransformation in case an exception
+     * occurs. Doing so, it is possible to use a {@link TypePool} rather than using a loaded type description backed by a {@link Class}.
+     * Loaded types can raise exceptions and errors if a {@link ClassLoader} cannot resolve all types that this class references. Using
+     * a type pool, such errors can be avoided as type descriptions can be resolved lazily, avoiding such errors.
      */
-    interface Transformer {
+    interface FallbackStrategy {
 
         /**
-         * Allows for a transformation of a {@link net.bytebuddy.dynamic.DynamicType.Builder}.
+         * Returns {@code true} if the supplied type and throwable combination should result in a reattempt where the
+         * loaded type is not used for querying information.
          *
-         * @param builder         The dynamic builder to transform.
-         * @param typeDescription The description of the type currently being instrumented.
-         * @param classLoader     The class loader of the instrumented class. Might be {@code null} to
-         *                        represent the bootstrap class loader.
-         * @return A transformed version of the supplied {@code builder}.
+         * @param type      The loaded type that was queried during the transformation attempt.
+         * @param throwable The error or exception that was caused during the transformation.
+         * @return {@code true} if the supplied type and throwable combination should
          */
-        DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader);
+        boolean isFallback(Class<?> type, Throwable throwable);
 
         /**
-         * A no-op implementation of a {@link net.bytebuddy.agent.builder.AgentBuilder.Transformer} that does
-         * not modify the supplied dynamic type.
+         * A simple fallback strategy that either always reattempts a transformation or never does so.
          */
-        enum NoOp implements Transformer {
+        enum Simple implements FallbackStrategy {
+
+            /**
+             * An enabled fallback strategy that always attempts a new trial.
+             */
+            ENABLED(true),
+
+            /**
+             * A disabled fallback strategy that never attempts a new trial.
+             */
+            DISABLED(false);
+
+            /**
+             * {@code true} if this fallback strategy is enabled.
+             */
+            private final boolean enabled;
 
             /**
-             * The singleton instance.
+             * Creates a new default fallback strategy.
+             *
+             * @param enabled {@code true} if this fallback strategy is enabled.
              */
-            INSTANCE;
+            Simple(boolean enabled) {
+                this.enabled = enabled;
+            }
 
             @Override
-            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
-                return builder;
+            public boolean isFallback(Class<?> type, Throwable throwable) {
+                return enabled;
             }
 
             @Override
             public String toString() {
-                return "AgentBuilder.Transformer.NoOp." + name();
+                return "AgentBuilder.FallbackStrategy.Simple." + name();
             }
         }
 
         /**
-         * A transformer that applies a build {@link Plugin}.
+         * A fallback strategy that discriminates by the type of the {@link Throwable} that triggered a request.
          */
-        class ForBuildPlugin implements Transformer {
+        class ByThrowableType implements FallbackStrategy {
 
             /**
-             * The plugin to apply.
+             * A set of throwable types that should trigger a fallback attempt.
              */
-            private final Plugin plugin;
+            private final Set<? extends Class<? extends Throwable>> types;
 
             /**
-             * Creates a new transformer for a build {@link Plugin}.
+             * Creates a new throwable type-discriminating fallback strategy.
              *
-             * @param plugin The plugin to apply.
+             * @param type The throwable types that should trigger a fallback.
              */
-            public ForBuildPlugin(Plugin plugin) {
-                this.plugin = plugin;
-            }
-
-            @Override
-            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
-                return plugin.apply(builder, typeDescription);
-            }
-
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                ForBuildPlugin that = (ForBuildPlugin) object;
-                return plugin.equals(that.plugin);
-            }
-
-            @Override
-            public int hashCode() {
-                return plugin.hashCode();
-            }
-
-            @Override
-            public String toString() {
-                return "AgentBuilder.Transformer.ForBuildPlugin{" +
-                        "plugin=" + plugin +
-                        '}';
+            @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
+            public ByThrowableType(Class<? extends Throwable>... type) {
+                this(new HashSet<Class<? extends Throwable>>(Arrays.asList(type)));
             }
-        }
-
-        /**
-         * A compound transformer that allows to group several
-         * {@link net.bytebuddy.agent.builder.AgentBuilder.Transformer}s as a single transformer.
-         */
-        class Compound implements Transformer {
 
             /**
-             * The transformers to apply in their application order.
+             * Creates a new throwable type-discriminating fallback strategy.
+             *
+             * @param types The throwable types that should trigger a fallback.
              */
-            private final Transformer[] transformer;
+            public ByThrowableType(Set<? extends Class<? extends Throwable>> types) {
+                this.types = types;
+            }
 
             /**
-             * Creates a new compound transformer.
+             * Creates a fallback strategy that attempts a fallback if an error indicating a type error is the reason for requesting a reattempt.
              *
-             * @param transformer The transformers to apply in their application order.
+             * @return A fallback strategy that triggers a reattempt if a {@link LinkageError} or a {@link TypeNotPresentException} is raised.
              */
-            public Compound(Transformer... transformer) {
-                this.transformer = transformer;
+            @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
+            public static FallbackStrategy ofOptionalTypes() {
+                return new ByThrowableType(LinkageError.class, TypeNotPresentException.class);
             }
 
             @Override
-            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription, ClassLoader classLoader) {
-                for (Transformer transformer : this.transformer) {
-                    builder = transformer.transform(builder, typeDescription, classLoader);
+            public boolean isFallback(Class<?> type, Throwable throwable) {
+                for (Class<? extends Throwable> aType : types) {
+                    if (aType.isInstance(throwable)) {
+                        return true;
+                    }
                 }
-                return builder;
+                return false;
             }
 
             @Override
-            public boolean equals(Object other) {
-                return this == other || !(other == null || getClass() != other.getClass())
-                        && Arrays.equals(transformer, ((Compound) other).transformer);
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                ByThrowableType byType = (ByThrowableType) object;
+                return types.equals(byType.types);
             }
 
             @Override
             public int hashCode() {
-                return Arrays.hashCode(transformer);
+                return types.hashCode();
             }
 
             @Override
             public String toString() {
-                return "AgentBuilder.Transformer.Compound{" +
-                        "transformer=" + Arrays.toString(transformer) +
+                return "AgentBuilder.FallbackStrategy.ByThrowableType{" +
+                        "types=" + types +
                         '}';
             }
         }
     }
 
     /**
-     * A type locator allows to specify how {@link TypeDescription}s are resolved by an {@link net.bytebuddy.agent.builder.AgentBuilder}.
+     * <p>
+     * A redefinition strategy regulates how already loaded classes are modified by a built agent.
+     * </p>
+     * <p>
+     * <b>Important</b>: Most JVMs do not support changes of a class's structure after a class was already
+     * loaded. Therefore, it is typically required that this class file transformer was built while enabling
+     * {@link AgentBuilder#disableClassFormatChanges()}.
+     * </p>
      */
-    interface PoolStrategy {
+    enum RedefinitionStrategy {
 
         /**
-         * Creates a type pool for a given class file locator.
-         *
-         * @param classFileLocator The class file locator to use.
-         * @param classLoader      The class loader for which the class file locator was created.
-         * @return A type pool for the supplied class file locator.
+         * Disables redefinition such that already loaded classes are not affected by the agent.
          */
-        TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader);
+        DISABLED(false) {
+            @Override
+            protected boolean isRetransforming(Instrumentation instrumentation) {
+                return false;
+            }
+
+            @Override
+            protected Collector make(Default.Transformation transformation) {
+                throw new IllegalStateException("A disabled redefinition strategy cannot create a collector");
+            }
+        },
 
         /**
          * <p>
-         * A default type locator that resolves types only if any property that is not the type's name is requested.
+         * Applies a <b>redefinition</b> to all classes that are already loaded and that would have been transformed if
+         * the built agent was registered before they were loaded. The created {@link ClassFileTransformer} is <b>not</b>
+         * registered for applying retransformations.
          * </p>
          * <p>
-         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
-         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}.
+         * Using this strategy, a redefinition is applied as a single transformation request. This means that a single illegal
+         * redefinition of a class causes the entire redefinition attempt to fail.
+         * </p>
+         * <p>
+         * <b>Note</b>: When applying a redefinition, it is normally required to use a {@link TypeStrategy} that applies
+         * a redefinition instead of rebasing classes such as {@link TypeStrategy.Default#REDEFINE}. Also, consider
+         * the constrains given by this type strategy.
          * </p>
          */
-        enum Default implements PoolStrategy {
-
-            /**
-             * A type locator that parses the code segment of each method for extracting information about parameter
-             * names even if they are not explicitly included in a class file.
-             *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
-             */
-            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
-
-            /**
-             * A type locator that skips the code segment of each method and does therefore not extract information
-             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
-             *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
-             */
-            FAST(TypePool.Default.ReaderMode.FAST);
-
-            /**
-             * The reader mode to apply by this type locator.
-             */
-            private final TypePool.Default.ReaderMode readerMode;
-
-            /**
-             * Creates a new type locator.
-             *
-             * @param readerMode The reader mode to apply by this type locator.
-             */
-            Default(TypePool.Default.ReaderMode readerMode) {
-                this.readerMode = readerMode;
-            }
-
+        REDEFINITION(true) {
             @Override
-            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
-                return new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode);
+            protected boolean isRetransforming(Instrumentation instrumentation) {
+                if (!instrumentation.isRedefineClassesSupported()) {
+                    throw new IllegalArgumentException("Cannot redefine classes: " + instrumentation);
+                }
+                return false;
             }
 
             @Override
-            public String toString() {
-                return "AgentBuilder.PoolStrategy.Default." + name();
+            protected Collector make(Default.Transformation transformation) {
+                return new Collector.ForRedefinition(transformation);
             }
-        }
+        },
 
         /**
          * <p>
-         * A type locator that resolves all type descriptions eagerly.
+         * Applies a <b>retransformation</b> to all classes that are already loaded and that would have been transformed if
+         * the built agent was registered before they were loaded. The created {@link ClassFileTransformer} is registered
+         * for applying retransformations.
          * </p>
          * <p>
-         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
-         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}.
+         * Using this strategy, a retransformation is applied as a single transformation request. This means that a single illegal
+         * retransformation of a class causes the entire retransformation attempt to fail.
+         * </p>
+         * <p>
+         * <b>Note</b>: When applying a redefinition, it is normally required to use a {@link TypeStrategy} that applies
+         * a redefinition instead of rebasing classes such as {@link TypeStrategy.Default#REDEFINE}. Also, consider
+         * the constrains given by this type strategy.
          * </p>
          */
-        enum Eager implements PoolStrategy {
-
-            /**
-             * A type locator that parses the code segment of each method for extracting information about parameter
-             * names even if they are not explicitly included in a class file.
-             *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
-             */
-            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
+        RETRANSFORMATION(true) {
+            @Override
+            protected boolean isRetransforming(Instrumentation instrumentation) {
+                if (!instrumentation.isRetransformClassesSupported()) {
+                    throw new IllegalArgumentException("Cannot retransform classes: " + instrumentation);
+                }
+                return true;
+            }
 
-            /**
-             * A type locator that skips the code segment of each method and does therefore not extract information
-             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
-             *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
-             */
-            FAST(TypePool.Default.ReaderMode.FAST);
+            @Override
+            protected Collector make(Default.Transformation transformation) {
+                return new Collector.ForRetransformation(transformation);
+            }
+        };
 
-            /**
-             * The reader mode to apply by this type locator.
-             */
-            private final TypePool.Default.ReaderMode readerMode;
+        /**
+         * Indicates that this redefinition strategy is enabled.
+         */
+        private final boolean enabled;
 
-            /**
-             * Creates a new type locator.
-             *
-             * @param readerMode The reader mode to apply by this type locator.
-             */
-            Eager(TypePool.Default.ReaderMode readerMode) {
-                this.readerMode = readerMode;
-            }
+        /**
+         * Creates a new redefinition strategy.
+         *
+         * @param enabled {@code true} if this strategy is enabled.
+         */
+        RedefinitionStrategy(boolean enabled) {
+            this.enabled = enabled;
+        }
 
-            @Override
-            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
-                return new TypePool.Default(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode);
-            }
+        /**
+         * Indicates if this strategy requires a class file transformer to be registered with a hint to apply the
+         * transformer for retransformation.
+         *
+         * @param instrumentation The instrumentation instance used.
+         * @return {@code true} if a class file transformer must be registered with a hint for retransformation.
+         */
+        protected abstract boolean isRetransforming(Instrumentation instrumentation);
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.PoolStrategy.Eager." + name();
-            }
+        /**
+         * Indicates that this redefinition strategy applies a modification of already loaded classes.
+         *
+         * @return {@code true} if this redefinition strategy applies a modification of already loaded classes.
+         */
+        protected boolean isEnabled() {
+            return enabled;
         }
 
         /**
-         * <p>
-         * A type locator that attempts loading a type if it cannot be located by the underlying lazy type pool.
-         * </p>
-         * <p>
-         * The returned type pool uses a {@link net.bytebuddy.pool.TypePool.CacheProvider.Simple} and the
-         * {@link ClassFileLocator} that is provided by the builder's {@link LocationStrategy}. Any types
-         * are loaded via the instrumented type's {@link ClassLoader}.
-         * </p>
+         * Creates a collector instance that is responsible for collecting loaded classes for potential retransformation.
+         *
+         * @param transformation The transformation that is registered for the agent.
+         * @return A new collector for collecting already loaded classes for transformation.
          */
-        enum ClassLoading implements PoolStrategy {
+        protected abstract Collector make(Default.Transformation transformation);
 
-            /**
-             * A type locator that parses the code segment of each method for extracting information about parameter
-             * names even if they are not explicitly included in a class file.
-             *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#EXTENDED
-             */
-            EXTENDED(TypePool.Default.ReaderMode.EXTENDED),
+        @Override
+        public String toString() {
+            return "AgentBuilder.RedefinitionStrategy." + name();
+        }
+
+        /**
+         * A batch allocator which is responsible for applying a redefinition in a batches. A class redefinition or
+         * retransformation can be a time-consuming operation rendering a JVM non-responsive. In combination with a
+         * a {@link RedefinitionStrategy.Listener}, it is also possible to apply pauses between batches to distribute
+         * the load of a retransformation over time.
+         */
+        public interface BatchAllocator {
 
             /**
-             * A type locator that skips the code segment of each method and does therefore not extract information
-             * about parameter names. Parameter names are still included if they are explicitly included in a class file.
+             * Splits a list of types to be retransformed into seperate batches.
              *
-             * @see net.bytebuddy.pool.TypePool.Default.ReaderMode#FAST
+             * @param types A list of types which should be retransformed.
+             * @return An iterable of retransformations within a batch.
              */
-            FAST(TypePool.Default.ReaderMode.FAST);
+            Iterable<? extends List<Class<?>>> batch(List<Class<?>> types);
 
             /**
-             * The reader mode to apply by this type locator.
+             * A batch allocator that includes all types in a single batch.
              */
-            private final TypePool.Default.ReaderMode readerMode;
+            enum ForTotal implements BatchAllocator {
 
-            /**
-             * Creates a new type locator.
-             *
-             * @param readerMode The reader mode to apply by this type locator.
-             */
-            ClassLoading(TypePool.Default.ReaderMode readerMode) {
-                this.readerMode = readerMode;
-            }
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
 
-            @Override
-            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
-                return TypePool.ClassLoading.of(classLoader, new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.Simple.withObjectType(), classFileLocator, readerMode));
-            }
+                @Override
+                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+                    return types.isEmpty()
+                            ? Collections.<List<Class<?>>>emptySet()
+                            : Collections.singleton(types);
+                }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.PoolStrategy.ClassLoading." + name();
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForTotal." + name();
+                }
             }
-        }
-
-        /**
-         * <p>
-         * A type locator that uses type pools but allows for the configuration of a custom cache provider by class loader. Note that a
-         * {@link TypePool} can grow in size and that a static reference is kept to this pool by Byte Buddy's registration of a
-         * {@link ClassFileTransformer} what can cause a memory leak if the supplied caches are not cleared on a regular basis. Also note
-         * that a cache provider can be accessed concurrently by multiple {@link ClassLoader}s.
-         * </p>
-         * <p>
-         * All types that are returned by the locator's type pool are resolved lazily.
-         * </p>
-         */
-        abstract class WithTypePoolCache implements PoolStrategy {
 
             /**
-             * The reader mode to use for parsing a class file.
+             * A batch allocator that creates chunks with a fixed size as batch jobs.
              */
-            protected final TypePool.Default.ReaderMode readerMode;
+            class ForFixedSize implements BatchAllocator {
 
-            /**
-             * Creates a new type locator that creates {@link TypePool}s but provides a custom {@link net.bytebuddy.pool.TypePool.CacheProvider}.
-             *
-             * @param readerMode The reader mode to use for parsing a class file.
-             */
-            protected WithTypePoolCache(TypePool.Default.ReaderMode readerMode) {
-                this.readerMode = readerMode;
-            }
+                /**
+                 * The size of each chunk.
+                 */
+                private final int size;
 
-            @Override
-            public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
-                return new TypePool.Default.WithLazyResolution(locate(classLoader), classFileLocator, readerMode);
-            }
+                /**
+                 * Creates a new batch allocator that creates fixed-sized chunks.
+                 *
+                 * @param size The size of each chunk.
+                 */
+                protected ForFixedSize(int size) {
+                    this.size = size;
+                }
 
-            /**
-             * Locates a cache provider for a given class loader.
-             *
-             * @param classLoader The class loader for which to locate a cache. This class loader might be {@code null} to represent the bootstrap loader.
-             * @return The cache provider to use.
-             */
-            protected abstract TypePool.CacheProvider locate(ClassLoader classLoader);
+                /**
+                 * Creates a new batch allocator that creates chunks of a fixed size.
+                 *
+                 * @param size The size of each chunk or {@code 0} if the batch should be included in a single chunk.
+                 * @return An appropriate batch allocator.
+                 */
+                public static BatchAllocator ofSize(int size) {
+                    if (size > 0) {
+                        return new ForFixedSize(size);
+                    } else if (size == 0) {
+                        return ForTotal.INSTANCE;
+                    } else {
+                        throw new IllegalArgumentException("Cannot define a batch with a negative size: " + size);
+                    }
+                }
 
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                WithTypePoolCache that = (WithTypePoolCache) object;
-                return readerMode == that.readerMode;
-            }
+                @Override
+                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+                    List<List<Class<?>>> batches = new ArrayList<List<Class<?>>>();
+                    for (int index = 0; index < types.size(); index += size) {
+                        batches.add(new ArrayList<Class<?>>(types.subList(index, Math.min(types.size(), index + size))));
+                    }
+                    return batches;
+                }
 
-            @Override
-            public int hashCode() {
-                return readerMode.hashCode();
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    ForFixedSize that = (ForFixedSize) object;
+                    return size == that.size;
+                }
+
+                @Override
+                public int hashCode() {
+                    return size;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForFixedSize{" +
+                            "size=" + size +
+                            '}';
+                }
             }
 
             /**
-             * An implementation of a type locator {@link WithTypePoolCache} (note documentation of the linked class) that is based on a
-             * {@link ConcurrentMap}. It is the responsibility of the type locator's user to avoid the type locator from leaking memory.
+             * A batch allocator that groups all batches by discriminating types using a type matcher.
              */
-            public static class Simple extends WithTypePoolCache {
+            class ForMatchedGrouping implements BatchAllocator {
 
                 /**
-                 * The concurrent map that is used for storing a cache provider per class loader.
+                 * The type matchers to apply.
                  */
-                private final ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders;
+                private final Collection<? extends ElementMatcher<? super TypeDescription>> matchers;
 
                 /**
-                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map. The type
-                 * locator uses a fast {@link net.bytebuddy.pool.TypePool.Default.ReaderMode}.
+                 * Creates a new batch allocator that groups all batches by discriminating types using a type matcher. All batches
+                 * are applied in their application order with any unmatched type being included in the last batch.
                  *
-                 * @param cacheProviders The concurrent map that is used for storing a cache provider per class loader.
+                 * @param matcher The type matchers to apply in their application order.
                  */
-                public Simple(ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
-                    this(TypePool.Default.ReaderMode.FAST, cacheProviders);
+                @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
+                public ForMatchedGrouping(ElementMatcher<? super TypeDescription>... matcher) {
+                    this(new LinkedHashSet<ElementMatcher<? super TypeDescription>>(Arrays.asList(matcher)));
                 }
 
                 /**
-                 * Creates a new type locator that caches a cache provider per class loader in a concurrent map.
+                 * Creates a new batch allocator that groups all batches by discriminating types using a type matcher. All batches
+                 * are applied in their application order with any unmatched type being included in the last batch.
                  *
-                 * @param readerMode     The reader mode to use for parsing a class file.
-                 * @param cacheProviders The concurrent map that is used for storing a cache provider per class loader.
+                 * @param matchers The type matchers to apply in their application order.
                  */
-                public Simple(TypePool.Default.ReaderMode readerMode, ConcurrentMap<? super ClassLoader, TypePool.CacheProvider> cacheProviders) {
-                    super(readerMode);
-                    this.cacheProviders = cacheProviders;
+                public ForMatchedGrouping(Collection<? extends ElementMatcher<? super TypeDescription>> matchers) {
+                    this.matchers = matchers;
                 }
 
-                @Override
-                protected TypePool.CacheProvider locate(ClassLoader classLoader) {
-                    classLoader = classLoader == null ? getBootstrapMarkerLoader() : classLoader;
-                    TypePool.CacheProvider cacheProvider = cacheProviders.get(classLoader);
-                    while (cacheProvider == null) {
-                        cacheProvider = TypePool.CacheProvider.Simple.withObjectType();
-                        TypePool.CacheProvider previous = cacheProviders.putIfAbsent(classLoader, cacheProvider);
-                        if (previous != null) {
-                            cacheProvider = previous;
-                        }
-                    }
-                    return cacheProvider;
+                /**
+                 * Assures that any group is at least of a given size. If a group is smaller than a given size, it is merged with its types
+                 * are merged with its subsequent group(s) as long as such groups exist.
+                 *
+                 * @param threshold The minimum threshold for any batch.
+                 * @return An appropriate batch allocator.
+                 */
+                public BatchAllocator withMinimum(int threshold) {
+                    return Slicing.withMinimum(threshold, this);
+                }
+
+                /**
+                 * Assures that any group is at least of a given size. If a group is bigger than a given size, it is split into two several
+                 * batches.
+                 *
+                 * @param threshold The maximum threshold for any batch.
+                 * @return An appropriate batch allocator.
+                 */
+                public BatchAllocator withMaximum(int threshold) {
+                    return Slicing.withMaximum(threshold, this);
                 }
 
                 /**
-                 * <p>
-                 * Returns the class loader to serve as a cache key if a cache provider for the bootstrap class loader is requested.
-                 * This class loader is represented by {@code null} in the JVM which is an invalid value for many {@link ConcurrentMap}
-                 * implementations.
-                 * </p>
-                 * <p>
-                 * By default, {@link ClassLoader#getSystemClassLoader()} is used as such a key as any resource location for the
-                 * bootstrap class loader is performed via the system class loader within Byte Buddy as {@code null} cannot be queried
-                 * for resources via method calls such that this does not make a difference.
-                 * </p>
+                 * Assures that any group is within a size range described by the supplied minimum and maximum. Groups are split and merged
+                 * according to the supplied thresholds. The last group contains might be smaller than the supplied minimum.
                  *
-                 * @return A class loader to represent the bootstrap class loader.
+                 * @param minimum The minimum threshold for any batch.
+                 * @param maximum The maximum threshold for any batch.
+                 * @return An appropriate batch allocator.
                  */
-                protected ClassLoader getBootstrapMarkerLoader() {
-                    return ClassLoader.getSystemClassLoader();
+                public BatchAllocator withinRange(int minimum, int maximum) {
+                    return Slicing.withinRange(minimum, maximum, this);
+                }
+
+                @Override
+                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+                    Map<ElementMatcher<? super TypeDescription>, List<Class<?>>> matched = new LinkedHashMap<ElementMatcher<? super TypeDescription>, List<Class<?>>>();
+                    List<Class<?>> unmatched = new ArrayList<Class<?>>();
+                    for (ElementMatcher<? super TypeDescription> matcher : matchers) {
+                        matched.put(matcher, new ArrayList<Class<?>>());
+                    }
+                    typeLoop:
+                    for (Class<?> type : types) {
+                        for (ElementMatcher<? super TypeDescription> matcher : matchers) {
+                            if (matcher.matches(new TypeDescription.ForLoadedType(type))) {
+                                matched.get(matcher).add(type);
+                                continue typeLoop;
+                            }
+                        }
+                        unmatched.add(type);
+                    }
+                    List<List<Class<?>>> batches = new ArrayList<List<Class<?>>>(matchers.size() + 1);
+                    for (List<Class<?>> batch : matched.values()) {
+                        if (!batch.isEmpty()) {
+                            batches.add(batch);
+                        }
+                    }
+                    if (!unmatched.isEmpty()) {
+                        batches.add(unmatched);
+                    }
+                    return batches;
                 }
 
                 @Override
                 public boolean equals(Object object) {
                     if (this == object) return true;
                     if (object == null || getClass() != object.getClass()) return false;
-                    if (!super.equals(object)) return false;
-                    Simple simple = (Simple) object;
-                    return cacheProviders.equals(simple.cacheProviders);
+                    ForMatchedGrouping that = (ForMatchedGrouping) object;
+                    return matchers.equals(that.matchers);
                 }
 
                 @Override
                 public int hashCode() {
-                    int result = super.hashCode();
-                    result = 31 * result + cacheProviders.hashCode();
-                    return result;
+                    return matchers.hashCode();
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.PoolStrategy.WithTypePoolCache.Simple{" +
-                            "cacheProviders=" + cacheProviders +
+                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForMatchedGrouping{" +
+                            "matchers=" + matchers +
                             '}';
                 }
             }
-        }
-    }
-
-    /**
-     * An initialization strategy which determines the handling of {@link net.bytebuddy.implementation.LoadedTypeInitializer}s
-     * and the loading of auxiliary types. The agent builder does not reuse the {@link TypeResolutionStrategy} as Javaagents cannot access
-     * a loaded class after a transformation such that different initialization strategies become meaningful.
-     */
-    interface InitializationStrategy {
-
-        /**
-         * Creates a new dispatcher for injecting this initialization strategy during a transformation process.
-         *
-         * @return The dispatcher to be used.
-         */
-        Dispatcher dispatcher();
-
-        /**
-         * A dispatcher for changing a class file to adapt a self-initialization strategy.
-         */
-        interface Dispatcher {
-
-            /**
-             * Transforms the instrumented type to implement an appropriate initialization strategy.
-             *
-             * @param builder The builder which should implement the initialization strategy.
-             * @return The given {@code builder} with the initialization strategy applied.
-             */
-            DynamicType.Builder<?> apply(DynamicType.Builder<?> builder);
-
-            /**
-             * Registers a dynamic type for initialization and/or begins the initialization process.
-             *
-             * @param dynamicType     The dynamic type that is created.
-             * @param classLoader     The class loader of the dynamic type.
-             * @param injectorFactory The injector factory
-             */
-            void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory);
 
             /**
-             * A factory for creating a {@link ClassInjector} only if it is required.
+             * A slicing batch allocator that assures that any batch is within a certain size range.
              */
-            interface InjectorFactory {
+            class Slicing implements BatchAllocator {
 
                 /**
-                 * Resolves the class injector for this factory.
-                 *
-                 * @return The class injector for this factory.
+                 * The minimum size of each slice.
                  */
-                ClassInjector resolve();
-            }
-        }
-
-        /**
-         * A non-initializing initialization strategy.
-         */
-        enum NoOp implements InitializationStrategy, Dispatcher {
-
-            /**
-             * The singleton instance.
-             */
-            INSTANCE;
-
-            @Override
-            public Dispatcher dispatcher() {
-                return this;
-            }
-
-            @Override
-            public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
-                return builder;
-            }
-
-            @Override
-            public void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory) {
-                /* do nothing */
-            }
-
-            @Override
-            public String toString() {
-                return "AgentBuilder.InitializationStrategy.NoOp." + name();
-            }
-        }
-
-        /**
-         * An initialization strategy that loads auxiliary types before loading the instrumented type. This strategy skips all types
-         * that are a subtype of the instrumented type which would cause a premature loading of the instrumented type and abort
-         * the instrumentation process.
-         */
-        enum Minimal implements InitializationStrategy, Dispatcher {
-
-            /**
-             * The singleton instance.
-             */
-            INSTANCE;
+                private final int minimum;
 
-            @Override
-            public Dispatcher dispatcher() {
-                return this;
-            }
+                /**
+                 * The maximum size of each slice.
+                 */
+                private final int maximum;
 
-            @Override
-            public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
-                return builder;
-            }
+                /**
+                 * The delegate batch allocator.
+                 */
+                private final BatchAllocator batchAllocator;
 
-            @Override
-            public void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory) {
-                Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
-                Map<TypeDescription, byte[]> independentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
-                for (TypeDescription auxiliaryType : auxiliaryTypes.keySet()) {
-                    if (!auxiliaryType.getDeclaredAnnotations().isAnnotationPresent(AuxiliaryType.SignatureRelevant.class)) {
-                        independentTypes.remove(auxiliaryType);
-                    }
-                }
-                if (!independentTypes.isEmpty()) {
-                    ClassInjector classInjector = injectorFactory.resolve();
-                    Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
-                    for (Map.Entry<TypeDescription, Class<?>> entry : classInjector.inject(independentTypes).entrySet()) {
-                        loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
-                    }
+                /**
+                 * Creates a new slicing batch allocator.
+                 *
+                 * @param minimum        The minimum size of each slice.
+                 * @param maximum        The maximum size of each slice.
+                 * @param batchAllocator The delegate batch allocator.
+                 */
+                protected Slicing(int minimum, int maximum, BatchAllocator batchAllocator) {
+                    this.minimum = minimum;
+                    this.maximum = maximum;
+                    this.batchAllocator = batchAllocator;
                 }
-            }
-
-            @Override
-            public String toString() {
-                return "AgentBuilder.InitializationStrategy.Minimal." + name();
-            }
-        }
-
-        /**
-         * An initialization strategy that adds a code block to an instrumented type's type initializer which
-         * then calls a specific class that is responsible for the explicit initialization.
-         */
-        abstract class SelfInjection implements InitializationStrategy {
-
-            /**
-             * The nexus accessor to use.
-             */
-            protected final NexusAccessor nexusAccessor;
-
-            /**
-             * Creates a new self-injection strategy.
-             *
-             * @param nexusAccessor The nexus accessor to use.
-             */
-            protected SelfInjection(NexusAccessor nexusAccessor) {
-                this.nexusAccessor = nexusAccessor;
-            }
-
-            @Override
-            @SuppressFBWarnings(value = "DMI_RANDOM_USED_ONLY_ONCE", justification = "Avoiding synchronization without security concerns")
-            public InitializationStrategy.Dispatcher dispatcher() {
-                return dispatcher(new Random().nextInt());
-            }
-
-            /**
-             * Creates a new dispatcher.
-             *
-             * @param identification The identification code to use.
-             * @return An appropriate dispatcher for an initialization strategy.
-             */
-            protected abstract InitializationStrategy.Dispatcher dispatcher(int identification);
-
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                SelfInjection that = (SelfInjection) object;
-                return nexusAccessor.equals(that.nexusAccessor);
-            }
-
-            @Override
-            public int hashCode() {
-                return nexusAccessor.hashCode();
-            }
-
-            /**
-             * A dispatcher for a self-initialization strategy.
-             */
-            protected abstract static class Dispatcher implements InitializationStrategy.Dispatcher {
 
                 /**
-                 * The nexus accessor to use.
+                 * Creates a new slicing batch allocator.
+                 *
+                 * @param minimum        The minimum size of each slice.
+                 * @param batchAllocator The delegate batch allocator.
+                 * @return An appropriate slicing batch allocator.
                  */
-                protected final NexusAccessor nexusAccessor;
+                public static BatchAllocator withMinimum(int minimum, BatchAllocator batchAllocator) {
+                    return withinRange(minimum, Integer.MAX_VALUE, batchAllocator);
+                }
 
                 /**
-                 * A random identification for the applied self-initialization.
+                 * Creates a new slicing batch allocator.
+                 *
+                 * @param maximum        The maximum size of each slice.
+                 * @param batchAllocator The delegate batch allocator.
+                 * @return An appropriate slicing batch allocator.
                  */
-                protected final int identification;
+                public static BatchAllocator withMaximum(int maximum, BatchAllocator batchAllocator) {
+                    return withinRange(1, maximum, batchAllocator);
+                }
 
                 /**
-                 * Creates a new dispatcher.
+                 * Creates a new slicing batch allocator.
                  *
-                 * @param nexusAccessor  The nexus accessor to use.
-                 * @param identification A random identification for the applied self-initialization.
+                 * @param minimum        The minimum size of each slice.
+                 * @param maximum        The maximum size of each slice.
+                 * @param batchAllocator The delegate batch allocator.
+                 * @return An appropriate slicing batch allocator.
                  */
-                protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
-                    this.nexusAccessor = nexusAccessor;
-                    this.identification = identification;
+                public static BatchAllocator withinRange(int minimum, int maximum, BatchAllocator batchAllocator) {
+                    if (minimum <= 0) {
+                        throw new IllegalArgumentException("Minimum must be a positive number: " + minimum);
+                    } else if (minimum > maximum) {
+                        throw new IllegalArgumentException("Minimum must not be bigger than maximum: " + minimum + " >" + maximum);
+                    }
+                    return new Slicing(minimum, maximum, batchAllocator);
                 }
 
                 @Override
-                public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
-                    return builder.initializer(new NexusAccessor.InitializationAppender(identification));
+                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+                    return new SlicingIterable(minimum, maximum, batchAllocator.batch(types));
                 }
 
                 @Override
-                public boolean equals(Object other) {
-                    return this == other || !(other == null || getClass() != other.getClass())
-                            && identification == ((Dispatcher) other).identification
-                            && nexusAccessor == ((Dispatcher) other).nexusAccessor;
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    Slicing slicing = (Slicing) object;
+                    return minimum == slicing.minimum
+                            && maximum == slicing.maximum
+                            && batchAllocator.equals(slicing.batchAllocator);
                 }
 
                 @Override
                 public int hashCode() {
-                    return identification + 31 * nexusAccessor.hashCode();
+                    int result = minimum;
+                    result = 31 * result + maximum;
+                    result = 31 * result + batchAllocator.hashCode();
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing{" +
+                            "minimum=" + minimum +
+                            ", maximum=" + maximum +
+                            ", batchAllocator=" + batchAllocator +
+                            '}';
                 }
 
                 /**
-                 * A type initializer that injects all auxiliary types of the instrumented type.
+                 * An iterable that slices batches into parts of a minimum and maximum size.
                  */
-                protected static class InjectingInitializer implements LoadedTypeInitializer {
-
-                    /**
-                     * The instrumented type.
-                     */
-                    private final TypeDescription instrumentedType;
+                protected static class SlicingIterable implements Iterable<List<Class<?>>> {
 
                     /**
-                     * The auxiliary types mapped to their class file representation.
+                     * The minimum size of any slice.
                      */
-                    private final Map<TypeDescription, byte[]> rawAuxiliaryTypes;
+                    private final int minimum;
 
                     /**
-                     * The instrumented types and auxiliary types mapped to their loaded type initializers.
-                     * The instrumented types and auxiliary types mapped to their loaded type initializers.
+                     * The maximum size of any slice.
                      */
-                    private final Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers;
+                    private final int maximum;
 
                     /**
-                     * The class injector to use.
+                     * The delegate iterable.
                      */
-                    private final ClassInjector classInjector;
+                    private final Iterable<? extends List<Class<?>>> iterable;
 
                     /**
-                     * Creates a new injection initializer.
+                     * Creates a new slicing iterable.
                      *
-                     * @param instrumentedType       The instrumented type.
-                     * @param rawAuxiliaryTypes      The auxiliary types mapped to their class file representation.
-                     * @param loadedTypeInitializers The instrumented types and auxiliary types mapped to their loaded type initializers.
-                     * @param classInjector          The class injector to use.
+                     * @param minimum  The minimum size of any slice.
+                     * @param maximum  The maximum size of any slice.
+                     * @param iterable The delegate iterable.
                      */
-                    protected InjectingInitializer(TypeDescription instrumentedType,
-                                                   Map<TypeDescription, byte[]> rawAuxiliaryTypes,
-                                                   Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers,
-                                                   ClassInjector classInjector) {
-                        this.instrumentedType = instrumentedType;
-                        this.rawAuxiliaryTypes = rawAuxiliaryTypes;
-                        this.loadedTypeInitializers = loadedTypeInitializers;
-                        this.classInjector = classInjector;
-                    }
-
-                    @Override
-                    public void onLoad(Class<?> type) {
-                        for (Map.Entry<TypeDescription, Class<?>> auxiliary : classInjector.inject(rawAuxiliaryTypes).entrySet()) {
-                            loadedTypeInitializers.get(auxiliary.getKey()).onLoad(auxiliary.getValue());
-                        }
-                        loadedTypeInitializers.get(instrumentedType).onLoad(type);
-                    }
-
-                    @Override
-                    public boolean isAlive() {
-                        return true;
-                    }
-
-                    @Override
-                    public boolean equals(Object o) {
-                        if (this == o) return true;
-                        if (o == null || getClass() != o.getClass()) return false;
-                        InjectingInitializer that = (InjectingInitializer) o;
-                        return classInjector.equals(that.classInjector)
-                                && instrumentedType.equals(that.instrumentedType)
-                                && rawAuxiliaryTypes.equals(that.rawAuxiliaryTypes)
-                                && loadedTypeInitializers.equals(that.loadedTypeInitializers);
+                    protected SlicingIterable(int minimum, int maximum, Iterable<? extends List<Class<?>>> iterable) {
+                        this.minimum = minimum;
+                        this.maximum = maximum;
+                        this.iterable = iterable;
                     }
 
                     @Override
-                    public int hashCode() {
-                        int result = instrumentedType.hashCode();
-                        result = 31 * result + rawAuxiliaryTypes.hashCode();
-                        result = 31 * result + loadedTypeInitializers.hashCode();
-                        result = 31 * result + classInjector.hashCode();
-                        return result;
+                    public Iterator<List<Class<?>>> iterator() {
+                        return new SlicingIterator(minimum, maximum, iterable.iterator());
                     }
 
                     @Override
                     public String toString() {
-                        return "AgentBuilder.InitializationStrategy.SelfInjection.Dispatcher.InjectingInitializer{" +
-                                "instrumentedType=" + instrumentedType +
-                                ", rawAuxiliaryTypes=" + rawAuxiliaryTypes +
-                                ", loadedTypeInitializers=" + loadedTypeInitializers +
-                                ", classInjector=" + classInjector +
+                        return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing.SlicingIterable{" +
+                                "minimum=" + minimum +
+                                ", maximum=" + maximum +
+                                ", iterable=" + iterable +
                                 '}';
                     }
-                }
-            }
 
-            /**
-             * A form of self-injection where auxiliary types that are annotated by
-             * {@link net.bytebuddy.implementation.auxiliary.AuxiliaryType.SignatureRelevant} of the instrumented type are loaded lazily and
-             * any other auxiliary type is loaded eagerly.
-             */
-            public static class Split extends SelfInjection {
+                    /**
+                     * An iterator that slices batches into parts of a minimum and maximum size.
+                     */
+                    protected static class SlicingIterator implements Iterator<List<Class<?>>> {
 
-                /**
-                 * Creates a new split self-injection strategy that uses a default nexus accessor.
-                 */
-                public Split() {
-                    this(new NexusAccessor());
-                }
+                        /**
+                         * The minimum size of any slice.
+                         */
+                        private final int minimum;
 
-                /**
-                 * Creates a new split self-injection strategy that uses the supplied nexus accessor.
-                 *
-                 * @param nexusAccessor The nexus accessor to use.
-                 */
-                public Split(NexusAccessor nexusAccessor) {
-                    super(nexusAccessor);
-                }
+                        /**
+                         * The maximum size of any slice.
+                         */
+                        private final int maximum;
 
-                @Override
-                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
-                    return new Dispatcher(nexusAccessor, identification);
-                }
+                        /**
+                         * The delegate iterator.
+                         */
+                        private final Iterator<? extends List<Class<?>>> iterator;
 
-                @Override
-                public String toString() {
-                    return "AgentBuilder.InitializationStrategy.SelfInjection.Split{" +
-                            "nexusAccessor=" + nexusAccessor +
-                            "}";
-                }
+                        /**
+                         * A buffer containing all types that surpassed the maximum.
+                         */
+                        private List<Class<?>> buffer;
 
-                /**
-                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Split} strategy.
-                 */
-                protected static class Dispatcher extends SelfInjection.Dispatcher {
+                        /**
+                         * Creates a new slicing iterator.
+                         *
+                         * @param minimum  The minimum size of any slice.
+                         * @param maximum  The maximum size of any slice.
+                         * @param iterator The delegate iterator.
+                         */
+                        protected SlicingIterator(int minimum, int maximum, Iterator<? extends List<Class<?>>> iterator) {
+                            this.minimum = minimum;
+                            this.maximum = maximum;
+                            this.iterator = iterator;
+                            buffer = Collections.emptyList();
+                        }
 
-                    /**
-                     * Creates a new split dispatcher.
-                     *
-                     * @param nexusAccessor  The nexus accessor to use.
-                     * @param identification A random identification for the applied self-initialization.
-                     */
-                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
-                        super(nexusAccessor, identification);
-                    }
+                        @Override
+                        public boolean hasNext() {
+                            return !buffer.isEmpty() || iterator.hasNext();
+                        }
 
-                    @Override
-                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
-                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
-                        LoadedTypeInitializer loadedTypeInitializer;
-                        if (!auxiliaryTypes.isEmpty()) {
-                            TypeDescription instrumentedType = dynamicType.getTypeDescription();
-                            ClassInjector classInjector = injectorFactory.resolve();
-                            Map<TypeDescription, byte[]> independentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
-                            Map<TypeDescription, byte[]> dependentTypes = new LinkedHashMap<TypeDescription, byte[]>(auxiliaryTypes);
-                            for (TypeDescription auxiliaryType : auxiliaryTypes.keySet()) {
-                                (auxiliaryType.getDeclaredAnnotations().isAnnotationPresent(AuxiliaryType.SignatureRelevant.class)
-                                        ? dependentTypes
-                                        : independentTypes).remove(auxiliaryType);
+                        @Override
+                        public List<Class<?>> next() {
+                            if (buffer.isEmpty()) {
+                                buffer = iterator.next();
                             }
-                            Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
-                            if (!independentTypes.isEmpty()) {
-                                for (Map.Entry<TypeDescription, Class<?>> entry : classInjector.inject(independentTypes).entrySet()) {
-                                    loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
+                            while (buffer.size() < minimum && iterator.hasNext()) {
+                                buffer.addAll(iterator.next());
+                            }
+                            if (buffer.size() > maximum) {
+                                try {
+                                    return buffer.subList(0, maximum);
+                                } finally {
+                                    buffer = buffer.subList(maximum, buffer.size());
+                                }
+                            } else {
+                                try {
+                                    return buffer;
+                                } finally {
+                                    buffer = Collections.emptyList();
                                 }
                             }
-                            Map<TypeDescription, LoadedTypeInitializer> lazyInitializers = new HashMap<TypeDescription, LoadedTypeInitializer>(loadedTypeInitializers);
-                            loadedTypeInitializers.keySet().removeAll(independentTypes.keySet());
-                            loadedTypeInitializer = lazyInitializers.size() > 1 // there exist auxiliary types that need lazy loading
-                                    ? new Dispatcher.InjectingInitializer(instrumentedType, dependentTypes, lazyInitializers, classInjector)
-                                    : lazyInitializers.get(instrumentedType);
-                        } else {
-                            loadedTypeInitializer = dynamicType.getLoadedTypeInitializers().get(dynamicType.getTypeDescription());
                         }
-                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
-                    }
 
-                    @Override
-                    public String toString() {
-                        return "AgentBuilder.InitializationStrategy.SelfInjection.Split.Dispatcher{" +
-                                "nexusAccessor=" + nexusAccessor +
-                                ", identification=" + identification +
-                                "}";
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("remove");
+                        }
+
+                        @Override
+                        public String toString() {
+                            return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing.SlicingIterable.SlicingIterator{" +
+                                    "minimum=" + minimum +
+                                    ", maximum=" + maximum +
+                                    ", iterator=" + iterator +
+                                    ", buffer=" + buffer +
+                                    '}';
+                        }
                     }
                 }
             }
 
             /**
-             * A form of self-injection where any auxiliary type is loaded lazily.
+             * A batch allocator that adapts the size of each batch to a target pause. As a retransformation of a batch stalls the application, this
+             * allocator measures the duration of each batch and scales the size of the following batch such that its expected duration does not
+             * exceed the target pause. Optionally, the allocator suspends the redefining thread between two batches to allow the application
+             * to make progress. The duration of a batch is measured by the batch iterator between handing out a batch and the request of the
+             * following batch. As the allocator retains the size of the last batch for any subsequent redefinition, an instance must not be used
+             * for multiple concurrent redefinitions.
              */
-            public static class Lazy extends SelfInjection {
+            class ForPauseTarget implements BatchAllocator {
 
                 /**
-                 * Creates a new lazy self-injection strategy that uses a default nexus accessor.
+                 * The maximum factor by which a batch can grow in comparison to its predecessor.
                  */
-                public Lazy() {
-                    this(new NexusAccessor());
-                }
+                private static final int MAXIMUM_GROWTH = 2;
 
                 /**
-                 * Creates a new lazy self-injection strategy that uses the supplied nexus accessor.
-                 *
-                 * @param nexusAccessor The nexus accessor to use.
+                 * Indicates that no batch is currently measured.
                  */
-                public Lazy(NexusAccessor nexusAccessor) {
-                    super(nexusAccessor);
-                }
+                private static final long NOT_STARTED = -1L;
 
-                @Override
-                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
-                    return new Dispatcher(nexusAccessor, identification);
-                }
+                /**
+                 * The target pause of a batch in nanoseconds.
+                 */
+                private final long targetPause;
 
-                @Override
-                public String toString() {
-                    return "AgentBuilder.InitializationStrategy.SelfInjection.Lazy{" +
-                            "nexusAccessor=" + nexusAccessor +
-                            "}";
-                }
+                /**
+                 * The minimum size of a batch.
+                 */
+                private final int minimum;
 
                 /**
-                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Lazy} strategy.
+                 * The maximum size of a batch.
                  */
-                protected static class Dispatcher extends SelfInjection.Dispatcher {
+                private final int maximum;
 
-                    /**
-                     * Creates a new lazy dispatcher.
-                     *
-                     * @param nexusAccessor  The nexus accessor to use.
-                     * @param identification A random identification for the applied self-initialization.
-                     */
-                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
-                        super(nexusAccessor, identification);
-                    }
+                /**
+                 * The interval to sleep between two batches in nanoseconds or {@code 0} if the allocator should not sleep.
+                 */
+                private final long interval;
 
-                    @Override
-                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
-                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
-                        LoadedTypeInitializer loadedTypeInitializer = auxiliaryTypes.isEmpty()
-                                ? dynamicType.getLoadedTypeInitializers().get(dynamicType.getTypeDescription())
-                                : new Dispatcher.InjectingInitializer(dynamicType.getTypeDescription(), auxiliaryTypes, dynamicType.getLoadedTypeInitializers(), injectorFactory.resolve());
-                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
-                    }
+                /**
+                 * The size of the next batch.
+                 */
+                private volatile int size;
 
-                    @Override
-                    public String toString() {
-                        return "AgentBuilder.InitializationStrategy.SelfInjection.Lazy.Dispatcher{" +
-                                "nexusAccessor=" + nexusAccessor +
-                                ", identification=" + identification +
-                                "}";
-                    }
+                /**
+                 * Creates a new batch allocator that adapts the size of each batch to a target pause without sleeping between batches.
+                 *
+                 * @param targetPause The target pause of a batch.
+                 * @param timeUnit    The time unit of the target pause.
+                 */
+                public ForPauseTarget(long targetPause, TimeUnit timeUnit) {
+                    this(targetPause, timeUnit, 1, Integer.MAX_VALUE, 0L, TimeUnit.NANOSECONDS);
                 }
-            }
-
-            /**
-             * A form of self-injection where any auxiliary type is loaded eagerly.
-             */
-            public static class Eager extends SelfInjection {
 
                 /**
-                 * Creates a new eager self-injection strategy that uses a default nexus accesor.
+                 * Creates a new batch allocator that adapts the size of each batch to a target pause.
+                 *
+                 * @param targetPause  The target pause of a batch.
+                 * @param timeUnit     The time unit of the target pause.
+                 * @param minimum      The minimum size of a batch which is also the size of the first batch.
+                 * @param maximum      The maximum size of a batch.
+                 * @param interval     The interval to sleep between two batches or {@code 0} if the allocator should not sleep.
+                 * @param intervalUnit The time unit of the interval.
                  */
-                public Eager() {
-                    this(new NexusAccessor());
+                public ForPauseTarget(long targetPause, TimeUnit timeUnit, int minimum, int maximum, long interval, TimeUnit intervalUnit) {
+                    if (targetPause <= 0) {
+                        throw new IllegalArgumentException("Target pause must be a positive number: " + targetPause);
+                    } else if (minimum <= 0) {
+                        throw new IllegalArgumentException("Minimum must be a positive number: " + minimum);
+                    } else if (minimum > maximum) {
+                        throw new IllegalArgumentException("Minimum must not be bigger than maximum: " + minimum + " >" + maximum);
+                    } else if (interval < 0) {
+                        throw new IllegalArgumentException("Interval must not be negative: " + interval);
+                    }
+                    this.targetPause = timeUnit.toNanos(targetPause);
+                    this.minimum = minimum;
+                    this.maximum = maximum;
+                    this.interval = intervalUnit.toNanos(interval);
+                    size = minimum;
                 }
 
                 /**
-                 * Creates a new eager self-injection strategy that uses the supplied nexus accessor.
+                 * Returns the size of the next batch.
                  *
-                 * @param nexusAccessor The nexus accessor to use.
+                 * @return The size of the next batch.
                  */
-                public Eager(NexusAccessor nexusAccessor) {
-                    super(nexusAccessor);
+                public int getSize() {
+                    return size;
                 }
 
                 @Override
-                protected InitializationStrategy.Dispatcher dispatcher(int identification) {
-                    return new Dispatcher(nexusAccessor, identification);
+                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+                    return new AdaptiveIterable(types);
+                }
+
+                /**
+                 * Adjusts the size of the next batch such that its expected duration matches the target pause.
+                 *
+                 * @param batchSize The size of the measured batch.
+                 * @param duration  The duration of the measured batch in nanoseconds.
+                 */
+                protected void onBatchEnd(int batchSize, long duration) {
+                    batchSize = Math.max(1, batchSize);
+                    long adjusted = Math.min((long) ((double) targetPause * batchSize / Math.max(1L, duration)), (long) batchSize * MAXIMUM_GROWTH);
+                    size = (int) Math.max(minimum, Math.min(maximum, adjusted));
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.InitializationStrategy.SelfInjection.Eager{" +
-                            "nexusAccessor=" + nexusAccessor +
-                            "}";
+                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget{" +
+                            "targetPause=" + targetPause +
+                            ", minimum=" + minimum +
+                            ", maximum=" + maximum +
+                            ", interval=" + interval +
+                            ", size=" + size +
+                            '}';
                 }
 
                 /**
-                 * A dispatcher for the {@link net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy.SelfInjection.Eager} strategy.
+                 * An iterable that creates batches of the allocator's current size upon their request.
                  */
-                protected static class Dispatcher extends SelfInjection.Dispatcher {
+                protected class AdaptiveIterable implements Iterable<List<Class<?>>> {
 
                     /**
-                     * Creates a new eager dispatcher.
+                     * The types to batch.
+                     */
+                    private final List<Class<?>> types;
+
+                    /**
+                     * Creates a new adaptive iterable.
                      *
-                     * @param nexusAccessor  The nexus accessor to use.
-                     * @param identification A random identification for the applied self-initialization.
+                     * @param types The types to batch.
                      */
-                    protected Dispatcher(NexusAccessor nexusAccessor, int identification) {
-                        super(nexusAccessor, identification);
+                    protected AdaptiveIterable(List<Class<?>> types) {
+                        this.types = types;
                     }
 
                     @Override
-                    public void register(DynamicType dynamicType, ClassLoader classLoader, InitializationStrategy.Dispatcher.InjectorFactory injectorFactory) {
-                        Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
-                        Map<TypeDescription, LoadedTypeInitializer> loadedTypeInitializers = dynamicType.getLoadedTypeInitializers();
-                        if (!auxiliaryTypes.isEmpty()) {
-                            for (Map.Entry<TypeDescription, Class<?>> entry : injectorFactory.resolve().inject(auxiliaryTypes).entrySet()) {
-                                loadedTypeInitializers.get(entry.getKey()).onLoad(entry.getValue());
-                            }
-                        }
-                        LoadedTypeInitializer loadedTypeInitializer = loadedTypeInitializers.get(dynamicType.getTypeDescription());
-                        nexusAccessor.register(dynamicType.getTypeDescription().getName(), classLoader, identification, loadedTypeInitializer);
+                    public Iterator<List<Class<?>>> iterator() {
+                        return new AdaptiveIterator(types);
                     }
 
                     @Override
-                    public String toString() {
-                        return "AgentBuilder.InitializationStrategy.SelfInjection.Eager.Dispatcher{" +
-                                "nexusAccessor=" + nexusAccessor +
-                                ", identification=" + identification +
-                                "}";
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * A description strategy is responsible for resolving a {@link TypeDescription} when transforming or retransforming/-defining a type.
-     */
-    interface DescriptionStrategy {
-
-        /**
-         * Describes the given type.
-         *
-         * @param typeName The binary name of the type to describe.
-         * @param type     The type that is being redefined, if a redefinition is applied or {@code null} if no redefined type is available.
-         * @param typePool The type pool to use for locating a type if required.
-         * @return An appropriate type description.
-         */
-        TypeDescription apply(String typeName, Class<?> type, TypePool typePool);
-
-        /**
-         * Indicates if this description strategy makes use of loaded type information and yields a different type description if no loaded type is available.
-         *
-         * @return {@code true} if this description strategy prefers loaded type information when describing a type and only uses a type pool
-         * if loaded type information is not available.
-         */
-        boolean isLoadedFirst();
-
-        /**
-         * Default implementations of a {@link DescriptionStrategy}.
-         */
-        enum Default implements DescriptionStrategy {
-
-            /**
-             * A description type strategy represents a type as a {@link net.bytebuddy.description.type.TypeDescription.ForLoadedType} if a
-             * retransformation or redefinition is applied on a type. Using a loaded type typically results in better performance as no
-             * I/O is required for resolving type descriptions. However, any interaction with the type is carried out via the Java reflection
-             * API. Using the reflection API triggers eager loading of any type that is part of a method or field signature. If any of these
-             * types are missing from the class path, this eager loading will cause a {@link NoClassDefFoundError}. Some Java code declares
-             * optional dependencies to other classes which are only realized if the optional dependency is present. Such code relies on the
-             * Java reflection API not being used for types using optional dependencies.
-             *
-             * @see FallbackStrategy.Simple#ENABLED
-             * @see FallbackStrategy.ByThrowableType#ofOptionalTypes()
-             */
-            HYBRID(true) {
-                @Override
-                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
-                    return type == null
-                            ? typePool.describe(typeName).resolve()
-                            : new TypeDescription.ForLoadedType(type);
-                }
-            },
-
-            /**
-             * <p>
-             * A description strategy that always describes Java types using a {@link TypePool}. This requires that any type - even if it is already
-             * loaded and a {@link Class} instance is available - is processed as a non-loaded type description. Doing so can cause overhead as processing
-             * loaded types is supported very efficiently by a JVM.
-             * </p>
-             * <p>
-             * Avoiding the usage of loaded types can improve robustness as this approach does not rely on the Java reflection API which triggers eager
-             * validation of this loaded type which can fail an application if optional types are used by any types field or method signatures. Also, it
-             * is possible to guarantee debugging meta data to be available also for retransformed or redefined types if a {@link TypeStrategy} specifies
-             * the extraction of such meta data.
-             * </p>
-             */
-            POOL_ONLY(false) {
-                @Override
-                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
-                    return typePool.describe(typeName).resolve();
-                }
-            },
-
-            /**
-             * <p>
-             * A description strategy that always describes Java types using a {@link TypePool} unless a type cannot be resolved by a pool and a loaded
-             * {@link Class} instance  is available. Doing so can cause overhead as processing loaded types is supported very efficiently by a JVM.
-             * </p>
-             * <p>
-             * Avoiding the usage of loaded types can improve robustness as this approach does not rely on the Java reflection API which triggers eager
-             * validation of this loaded type which can fail an application if optional types are used by any types field or method signatures. Also, it
-             * is possible to guarantee debugging meta data to be available also for retransformed or redefined types if a {@link TypeStrategy} specifies
-             * the extraction of such meta data.
-             * </p>
-             */
-            POOL_FIRST(false) {
-                @Override
-                public TypeDescription apply(String typeName, Class<?> type, TypePool typePool) {
-                    TypePool.Resolution resolution = typePool.describe(typeName);
-                    return resolution.isResolved() || type == null
-                            ? resolution.resolve()
-                            : new TypeDescription.ForLoadedType(type);
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget.AdaptiveIterable{" +
+                                "allocator=" + ForPauseTarget.this +
+                                ", types=" + types +
+                                '}';
+                    }
                 }
-            };
 
-            /**
-             * Indicates if loaded type information is preferred over using a type pool for describing a type.
-             */
-            private final boolean loadedFirst;
+                /**
+                 * An iterator that creates batches of the allocator's current size upon their request.
+                 */
+                protected class AdaptiveIterator implements Iterator<List<Class<?>>> {
 
-            /**
-             * Indicates if loaded type information is preferred over using a type pool for describing a type.
-             *
-             * @param loadedFirst {@code true} if loaded type information is preferred over using a type pool for describing a type.
-             */
-            Default(boolean loadedFirst) {
-                this.loadedFirst = loadedFirst;
-            }
+                    /**
+                     * The types to batch.
+                     */
+                    private final List<Class<?>> types;
 
-            @Override
-            public boolean isLoadedFirst() {
-                return loadedFirst;
-            }
+                    /**
+                     * The index of the first type of the next batch.
+                     */
+                    private int index;
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.DescriptionStrategy.Default." + name();
-            }
-        }
-    }
+                    /**
+                     * The size of the currently measured batch.
+                     */
+                    private int measured;
 
-    /**
-     * An installation strategy determines the reaction to a raised exception after the registration of a {@link ClassFileTransformer}.
-     */
-    interface InstallationStrategy {
+                    /**
+                     * The time stamp of the start of the currently measured batch or {@link ForPauseTarget#NOT_STARTED}.
+                     */
+                    private long started;
 
-        /**
-         * Handles an error that occured after registering a class file transformer during installation.
-         *
-         * @param instrumentation      The instrumentation onto which the class file transformer was registered.
-         * @param classFileTransformer The class file transformer that was registered.
-         * @param throwable            The error that occurred.
-         * @return The class file transformer to return when an error occurred.
-         */
-        ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable);
+                    /**
+                     * Creates a new adaptive iterator.
+                     *
+                     * @param types The types to batch.
+                     */
+                    protected AdaptiveIterator(List<Class<?>> types) {
+                        this.types = types;
+                        started = NOT_STARTED;
+                    }
 
-        /**
-         * Default implementations of installation strategies.
-         */
-        enum Default implements InstallationStrategy {
+                    @Override
+                    public boolean hasNext() {
+                        if (started != NOT_STARTED) {
+                            onBatchEnd(measured, System.nanoTime() - started);
+                            started = NOT_STARTED;
+                        }
+                        return index < types.size();
+                    }
 
-            /**
-             * <p>
-             * An installation strategy that unregisters the transformer and propagates the exception. Using this strategy does not guarantee
-             * that the registered transformer was not applied to any class, nor does it attempt to revert previous transformations. It only
-             * guarantees that the class file transformer is unregistered and does no longer apply after this method returns.
-             * </p>
-             * <p>
-             * <b>Note</b>: This installation strategy does not undo any applied class redefinitions, if such were applied.
-             * </p>
-             */
-            ESCALATING {
-                @Override
-                public ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable) {
-                    instrumentation.removeTransformer(classFileTransformer);
-                    throw new IllegalStateException("Could not install class file transformer", throwable);
-                }
-            },
+                    @Override
+                    public List<Class<?>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        if (index > 0 && interval > 0L) {
+                            try {
+                                TimeUnit.NANOSECONDS.sleep(interval);
+                            } catch (InterruptedException ignored) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        int end = (int) Math.min(types.size(), (long) index + size);
+                        try {
+                            return new ArrayList<Class<?>>(types.subList(index, end));
+                        } finally {
+                            measured = end - index;
+                            index = end;
+                            started = System.nanoTime();
+                        }
+                    }
 
-            /**
-             * An installation strategy that retains the class file transformer and suppresses the error.
-             */
-            SUPPRESSING {
-                @Override
-                public ResettableClassFileTransformer onError(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer, Throwable throwable) {
-                    return classFileTransformer;
-                }
-            };
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("remove");
+                    }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.InstallationStrategy.Default." + name();
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget.AdaptiveIterator{" +
+                                "allocator=" + ForPauseTarget.this +
+                                ", types=" + types +
+                                ", index=" + index +
+                                ", measured=" + measured +
+                                ", started=" + started +
+                                '}';
+                    }
+                }
             }
         }
-    }
-
-    /**
-     * A strategy for creating a {@link ClassFileLocator} when instrumenting a type.
-     */
-    interface LocationStrategy {
-
-        /**
-         * Creates a class file locator for a given class loader and module combination.
-         *
-         * @param classLoader The class loader that is loading an instrumented type. Might be {@code null} to represent the bootstrap class loader.
-         * @param module      The type's module or {@code null} if Java modules are not supported on the current VM.
-         * @return The class file locator to use.
-         */
-        ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module);
 
         /**
-         * A location strategy that never locates any byte code.
+         * A discovery strategy determines how the loaded types are considered for a redefinition when an agent is installed. Considering
+         * a type requires its description and the application of all matchers to it what can take significant time if many types are loaded.
          */
-        enum NoOp implements LocationStrategy {
+        public interface DiscoveryStrategy {
 
             /**
-             * The singleton instance.
+             * Applies a discovery to all supplied types by applying it to consecutive subsequences of these types.
+             *
+             * @param types     The types to discover.
+             * @param discovery The discovery to apply.
+             * @param <T>       The type of the result of a discovery.
+             * @return The results of applying the discovery to consecutive subsequences of the supplied types in the order of these subsequences.
              */
-            INSTANCE;
+            <T> List<T> discover(List<Class<?>> types, Discovery<T> discovery);
 
-            @Override
-            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
-                return ClassFileLocator.NoOp.INSTANCE;
-            }
+            /**
+             * A discovery of types that is applied by a discovery strategy.
+             *
+             * @param <T> The type of the result of this discovery.
+             */
+            interface Discovery<T> {
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.LocationStrategy.NoOp." + name();
+                /**
+                 * Discovers the supplied types.
+                 *
+                 * @param types The types to discover in their discovery order.
+                 * @return The result of this discovery.
+                 */
+                T discover(List<Class<?>> types);
             }
-        }
-
-        /**
-         * A location strategy that locates class files by querying an instrumented type's {@link ClassLoader}.
-         */
-        enum ForClassLoader implements LocationStrategy {
 
             /**
-             * A location strategy that keeps a strong reference to the class loader the created class file locator represents.
+             * A discovery strategy that discovers all types on the thread that installs an agent.
              */
-            STRONG {
+            enum Sequential implements DiscoveryStrategy {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
                 @Override
-                public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
-                    return ClassFileLocator.ForClassLoader.of(classLoader);
+                public <T> List<T> discover(List<Class<?>> types, Discovery<T> discovery) {
+                    return Collections.singletonList(discovery.discover(types));
                 }
-            },
 
-            /**
-             * A location strategy that keeps a weak reference to the class loader the created class file locator represents.
-             * As a consequence, any returned class file locator stops working once the represented class loader is garbage collected.
-             */
-            WEAK {
                 @Override
-                public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
-                    return ClassFileLocator.ForClassLoader.WeaklyReferenced.of(classLoader);
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Sequential." + name();
                 }
-            };
-
-            /**
-             * Adds additional location strategies as fallbacks to this location strategy.
-             *
-             * @param classFileLocator The class file locators to query if this location strategy cannot locate a class file.
-             * @return A compound location strategy that first applies this location strategy and then queries the supplied class file locators.
-             */
-            public LocationStrategy withFallbackTo(ClassFileLocator... classFileLocator) {
-                return withFallbackTo(Arrays.asList(classFileLocator));
             }
 
             /**
-             * Adds additional location strategies as fallbacks to this location strategy.
-             *
-             * @param classFileLocators The class file locators to query if this location strategy cannot locate a class file.
-             * @return A compound location strategy that first applies this location strategy and then queries the supplied class file locators.
+             * <p>
+             * A discovery strategy that discovers consecutive chunks of types in parallel on an executor service. The thread that installs
+             * the agent awaits the discovery of all chunks. The redefinition of the discovered types is still applied in the order of the
+             * loaded types and in the batches of the configured {@link BatchAllocator}.
+             * </p>
+             * <p>
+             * <b>Important</b>: Listeners and matchers are invoked concurrently when applying this strategy and must therefore be thread-safe.
+             * </p>
              */
-            public LocationStrategy withFallbackTo(Collection<? extends ClassFileLocator> classFileLocators) {
-                List<LocationStrategy> locationStrategies = new ArrayList<LocationStrategy>(classFileLocators.size());
-                for (ClassFileLocator classFileLocator : classFileLocators) {
-                    locationStrategies.add(new Simple(classFileLocator));
+            class Parallel implements DiscoveryStrategy {
+
+                /**
+                 * The default number of types that are discovered by a single task.
+                 */
+                public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+                /**
+                 * The executor service to apply the discovery on.
+                 */
+                private final ExecutorService executorService;
+
+                /**
+                 * The maximal number of types that are discovered by a single task.
+                 */
+                private final int chunkSize;
+
+                /**
+                 * Creates a new parallel discovery strategy with the default chunk size.
+                 *
+                 * @param executorService The executor service to apply the discovery on.
+                 */
+                public Parallel(ExecutorService executorService) {
+                    this(executorService, DEFAULT_CHUNK_SIZE);
                 }
-                return withFallbackTo(locationStrategies);
-            }
 
-            /**
-             * Adds additional location strategies as fallbacks to this location strategy.
-             *
-             * @param locationStrategy The fallback location strategies to use.
-             * @return A compound location strategy that first applies this location strategy and then the supplied fallback location strategies
-             * in the supplied order.
-             */
-            public LocationStrategy withFallbackTo(LocationStrategy... locationStrategy) {
-                return withFallbackTo(Arrays.asList(locationStrategy));
-            }
+                /**
+                 * Creates a new parallel discovery strategy.
+                 *
+                 * @param executorService The executor service to apply the discovery on.
+                 * @param chunkSize       The maximal number of types that are discovered by a single task.
+                 */
+                public Parallel(ExecutorService executorService, int chunkSize) {
+                    if (chunkSize < 1) {
+                        throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+                    }
+                    this.executorService = executorService;
+                    this.chunkSize = chunkSize;
+                }
 
-            /**
-             * Adds additional location strategies as fallbacks to this location strategy.
-             *
-             * @param locationStrategies The fallback location strategies to use.
-             * @return A compound location strategy that first applies this location strategy and then the supplied fallback location strategies
-             * in the supplied order.
-             */
-            public LocationStrategy withFallbackTo(List<? extends LocationStrategy> locationStrategies) {
-                List<LocationStrategy> allLocationStrategies = new ArrayList<LocationStrategy>(locationStrategies.size() + 1);
-                allLocationStrategies.add(this);
-                allLocationStrategies.addAll(locationStrategies);
-                return new Compound(allLocationStrategies);
-            }
+                @Override
+                public <T> List<T> discover(List<Class<?>> types, Discovery<T> discovery) {
+                    if (types.size() <= chunkSize) {
+                        return Collections.singletonList(discovery.discover(types));
+                    }
+                    List<Future<T>> futures = new ArrayList<Future<T>>((types.size() + chunkSize - 1) / chunkSize);
+                    try {
+                        for (int index = 0; index < types.size(); index += chunkSize) {
+                            futures.add(executorService.submit(new Task<T>(types.subList(index, Math.min(types.size(), index + chunkSize)), discovery)));
+                        }
+                        List<T> results = new ArrayList<T>(futures.size());
+                        for (Future<T> future : futures) {
+                            results.add(future.get());
+                        }
+                        return results;
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while awaiting the discovery of loaded types", exception);
+                    } catch (ExecutionException exception) {
+                        throw new IllegalStateException("Could not discover loaded types", exception.getCause());
+                    } finally {
+                        for (Future<T> future : futures) {
+                            future.cancel(true);
+                        }
+                    }
+                }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.LocationStrategy.ForClassLoader." + name();
-            }
-        }
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    Parallel parallel = (Parallel) other;
+                    return chunkSize == parallel.chunkSize && executorService.equals(parallel.executorService);
+                }
+
+                @Override
+                public int hashCode() {
+                    return 31 * executorService.hashCode() + chunkSize;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel{" +
+                            "executorService=" + executorService +
+                            ", chunkSize=" + chunkSize +
+                            '}';
+                }
 
-        /**
-         * A simple location strategy that queries a given class file locator.
-         */
-        class Simple implements LocationStrategy {
+                /**
+                 * A task that applies a discovery to a chunk of types.
+                 *
+                 * @param <S> The type of the result of the discovery.
+                 */
+                protected static class Task<S> implements Callable<S> {
 
-            /**
-             * The class file locator to query.
-             */
-            private final ClassFileLocator classFileLocator;
+                    /**
+                     * The types to discover.
+                     */
+                    private final List<Class<?>> types;
 
-            /**
-             * A simple location strategy that queries a given class file locator.
-             *
-             * @param classFileLocator The class file locator to query.
-             */
-            public Simple(ClassFileLocator classFileLocator) {
-                this.classFileLocator = classFileLocator;
-            }
+                    /**
+                     * The discovery to apply.
+                     */
+                    private final Discovery<S> discovery;
 
-            @Override
-            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
-                return classFileLocator;
-            }
+                    /**
+                     * Creates a new discovery task.
+                     *
+                     * @param types     The types to discover.
+                     * @param discovery The discovery to apply.
+                     */
+                    protected Task(List<Class<?>> types, Discovery<S> discovery) {
+                        this.types = types;
+                        this.discovery = discovery;
+                    }
 
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                Simple simple = (Simple) object;
-                return classFileLocator.equals(simple.classFileLocator);
-            }
+                    @Override
+                    public S call() {
+                        return discovery.discover(types);
+                    }
 
-            @Override
-            public int hashCode() {
-                return classFileLocator.hashCode();
-            }
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) return true;
+                        if (other == null || getClass() != other.getClass()) return false;
+                        Task<?> task = (Task<?>) other;
+                        return types.equals(task.types) && discovery.equals(task.discovery);
+                    }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.LocationStrategy.Simple{" +
-                        "classFileLocator=" + classFileLocator +
-                        '}';
+                    @Override
+                    public int hashCode() {
+                        return 31 * types.hashCode() + discovery.hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel.Task{" +
+                                "types=" + types +
+                                ", discovery=" + discovery +
+                                '}';
+                    }
+                }
             }
         }
 
         /**
-         * A compound location strategy that applies a list of location strategies.
+         * <p>
+         * A change detection decides if a loaded type can be excluded from a redefinition when an agent is installed. A redefined type
+         * is replaced by the virtual machine even if the applied class file is identical to the type's current class file, what
+         * deoptimizes any compiled code that depends on this type. If a change detection is active, the transformation of a discovered
+         * type is computed upfront and the type is only redefined if its transformed class file differs from a reference class file.
+         * Reference class files are recorded by a {@link Registry} for any class file that the installed agent emitted.
+         * </p>
+         * <p>
+         * <b>Important</b>: The transformation of a type is only computed upfront if it is self-contained, i.e. if it does neither
+         * define auxiliary types nor requires any live initializers. Other types are always redefined. Types that are excluded from
+         * a redefinition are reported as ignored to the agent's listener.
+         * </p>
          */
-        class Compound implements LocationStrategy {
+        public interface ChangeDetection {
 
             /**
-             * The location strategies in their application order.
+             * Returns {@code true} if this change detection is active, i.e. if transformations should be computed upfront.
+             *
+             * @return {@code true} if this change detection is active.
              */
-            private final List<? extends LocationStrategy> locationStrategies;
+            boolean isActive();
 
             /**
-             * Creates a new compound location strategy.
+             * Creates a registry for the class files that are emitted by an installed agent.
              *
-             * @param locationStrategy The location strategies in their application order.
+             * @return A new registry of emitted class files.
              */
-            public Compound(LocationStrategy... locationStrategy) {
-                this(Arrays.asList(locationStrategy));
-            }
+            Registry make();
 
             /**
-             * Creates a new compound location strategy.
-             *
-             * @param locationStrategies The location strategies in their application order.
+             * A registry that records the class files that an installed agent emitted and that determines if a redefinition would
+             * leave a type unchanged.
              */
-            public Compound(List<? extends LocationStrategy> locationStrategies) {
-                this.locationStrategies = locationStrategies;
-            }
+            interface Registry {
 
-            @Override
-            public ClassFileLocator classFileLocator(ClassLoader classLoader, JavaModule module) {
-                List<ClassFileLocator> classFileLocators = new ArrayList<ClassFileLocator>(locationStrategies.size());
-                for (LocationStrategy locationStrategy : locationStrategies) {
-                    classFileLocators.add(locationStrategy.classFileLocator(classLoader, module));
+                /**
+                 * Registers the class file that was emitted for a type.
+                 *
+                 * @param classLoader          The type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+                 * @param typeName             The binary name of the type.
+                 * @param binaryRepresentation The class file that was emitted for the type.
+                 */
+                void register(ClassLoader classLoader, String typeName, byte[] binaryRepresentation);
+
+                /**
+                 * Discards a recorded class file of a type, for example because the type was retransformed without being transformed
+                 * by the installed agent such that it is again represented by its original class file.
+                 *
+                 * @param classLoader The type's class loader or {@code null} if the type is loaded by the bootstrap loader.
+                 * @param typeName    The binary name of the type.
+                 */
+                void invalidate(ClassLoader classLoader, String typeName);
+
+                /**
+                 * Discards all recorded class files, for example when the installed agent is reset.
+                 */
+                void clear();
+
+                /**
+                 * Determines if a redefinition of the supplied type with the supplied class file would leave the type unchanged.
+                 *
+                 * @param type                 The loaded type being considered for a redefinition.
+                 * @param binaryRepresentation The class file that would be applied by a redefinition of the type.
+                 * @param classFileLocator     The class file locator of the type's class loader.
+                 * @return {@code true} if a redefinition of the type with the supplied class file would not change the type.
+                 * @throws IOException If a reference class file cannot be located.
+                 */
+                boolean isUnchanged(Class<?> type, byte[] binaryRepresentation, ClassFileLocator classFileLocator) throws IOException;
+
+                /**
+                 * A non-operational registry that does not record class files and that considers any type to be changed.
+                 */
+                enum NoOp implements Registry {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public void register(ClassLoader classLoader, String typeName, byte[] binaryRepresentation) {
+                        /* do nothing */
+                    }
+
+                    @Override
+                    public void invalidate(ClassLoader classLoader, String typeName) {
+                        /* do nothing */
+                    }
+
+                    @Override
+                    public void clear() {
+                        /* do nothing */
+                    }
+
+                    @Override
+                    public boolean isUnchanged(Class<?> type, byte[] binaryRepresentation, ClassFileLocator classFileLocator) {
+                        return false;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp." + name();
+                    }
                 }
-                return new ClassFileLocator.Compound(classFileLocators);
-            }
 
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                Compound compound = (Compound) object;
-                return locationStrategies.equals(compound.locationStrategies);
-            }
+                /**
+                 * A registry that records a digest of every class file that was transformed by the installed agent per class loader. If no
+                 * class file was recorded for a type, the class file that is located by the type's class file locator is used as a reference.
+                 */
+                class ForDigest implements Registry {
 
-            @Override
-            public int hashCode() {
-                return locationStrategies.hashCode();
-            }
+                    /**
+                     * The algorithm for computing a digest of a class file.
+                     */
+                    private static final String DIGEST = "SHA-256";
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.LocationStrategy.Compound{" +
-                        "locationStrategies=" + locationStrategies +
-                        '}';
-            }
-        }
-    }
+                    /**
+                     * A mapping of class loaders to the digests of their types' recorded class files.
+                     */
+                    private final Map<ClassLoader, ConcurrentMap<String, byte[]>> digests;
 
-    /**
-     * A fallback strategy allows to reattempt a transformation or a consideration for redefinition/retransformation in case an exception
-     * occurs. Doing so, it is possible to use a {@link TypePool} rather than using a loaded type description backed by a {@link Class}.
-     * Loaded types can raise exceptions and errors if a {@link ClassLoader} cannot resolve all types that this class references. Using
-     * a type pool, such errors can be avoided as type descriptions can be resolved lazily, avoiding such errors.
-     */
-    interface FallbackStrategy {
+                    /**
+                     * The digests of the recorded class files of the bootstrap class loader.
+                     */
+                    private final ConcurrentMap<String, byte[]> bootstrapDigests;
 
-        /**
-         * Returns {@code true} if the supplied type and throwable combination should result in a reattempt where the
-         * loaded type is not used for querying information.
-         *
-         * @param type      The loaded type that was queried during the transformation attempt.
-         * @param throwable The error or exception that was caused during the transformation.
-         * @return {@code true} if the supplied type and throwable combination should
-         */
-        boolean isFallback(Class<?> type, Throwable throwable);
+                    /**
+                     * Creates a new registry for digests of emitted class files.
+                     */
+                    public ForDigest() {
+                        digests = Collections.synchronizedMap(new WeakHashMap<ClassLoader, ConcurrentMap<String, byte[]>>());
+                        bootstrapDigests = new ConcurrentHashMap<String, byte[]>();
+                    }
 
-        /**
-         * A simple fallback strategy that either always reattempts a transformation or never does so.
-         */
-        enum Simple implements FallbackStrategy {
+                    @Override
+                    public void register(ClassLoader classLoader, String typeName, byte[] binaryRepresentation) {
+                        digests(classLoader, true).put(typeName, digest(binaryRepresentation));
+                    }
 
-            /**
-             * An enabled fallback strategy that always attempts a new trial.
-             */
-            ENABLED(true),
+                    @Override
+                    public void invalidate(ClassLoader classLoader, String typeName) {
+                        ConcurrentMap<String, byte[]> digests = digests(classLoader, false);
+                        if (digests != null) {
+                            digests.remove(typeName);
+                        }
+                    }
 
-            /**
-             * A disabled fallback strategy that never attempts a new trial.
-             */
-            DISABLED(false);
+                    @Override
+                    public void clear() {
+                        digests.clear();
+                        bootstrapDigests.clear();
+                    }
+
+                    @Override
+                    public boolean isUnchanged(Class<?> type, byte[] binaryRepresentation, ClassFileLocator classFileLocator) throws IOException {
+                        String typeName = TypeDescription.ForLoadedType.getName(type);
+                        ConcurrentMap<String, byte[]> digests = digests(type.getClassLoader(), false);
+                        byte[] digest = digests == null ? null : digests.get(typeName);
+                        if (digest != null) {
+                            return MessageDigest.isEqual(digest, digest(binaryRepresentation));
+                        }
+                        ClassFileLocator.Resolution resolution = classFileLocator.locate(typeName);
+                        return resolution.isResolved() && Arrays.equals(binaryRepresentation, resolution.resolve());
+                    }
+
+                    /**
+                     * Returns the recorded digests of a class loader.
+                     *
+                     * @param classLoader The class loader or {@code null} for the bootstrap class loader.
+                     * @param create      {@code true} if a map should be registered for the class loader if no such map exists.
+                     * @return The recorded digests of the class loader or {@code null} if no such map exists and none was created.
+                     */
+                    private ConcurrentMap<String, byte[]> digests(ClassLoader classLoader, boolean create) {
+                        if (classLoader == null) {
+                            return bootstrapDigests;
+                        }
+                        synchronized (digests) {
+                            ConcurrentMap<String, byte[]> digests = this.digests.get(classLoader);
+                            if (digests == null && create) {
+                                digests = new ConcurrentHashMap<String, byte[]>();
+                                this.digests.put(classLoader, digests);
+                            }
+                            return digests;
+                        }
+                    }
+
+                    /**
+                     * Computes a digest of a class file.
+                     *
+                     * @param binaryRepresentation The class file to digest.
+                     * @return The digest of the supplied class file.
+                     */
+                    private static byte[] digest(byte[] binaryRepresentation) {
+                        try {
+                            return MessageDigest.getInstance(DIGEST).digest(binaryRepresentation);
+                        } catch (NoSuchAlgorithmException exception) {
+                            throw new IllegalStateException("Every Java platform must support " + DIGEST, exception);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest{" +
+                                "digests=" + digests +
+                                ", bootstrapDigests=" + bootstrapDigests +
+                                '}';
+                    }
+                }
+            }
 
             /**
-             * {@code true} if this fallback strategy is enabled.
+             * A disabled change detection where all discovered types are redefined.
              */
-            private final boolean enabled;
+            enum Disabled implements ChangeDetection {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public boolean isActive() {
+                    return false;
+                }
+
+                @Override
+                public Registry make() {
+                    return Registry.NoOp.INSTANCE;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.ChangeDetection.Disabled." + name();
+                }
+            }
 
             /**
-             * Creates a new default fallback strategy.
-             *
-             * @param enabled {@code true} if this fallback strategy is enabled.
+             * A change detection that compares the class file that would be applied with the class file that the installed agent emitted
+             * for a type. If the agent did not emit a class file for a type, for example because it was loaded before the agent was
+             * installed, the class file that is located by the type's class file locator is assumed to represent the type's current
+             * definition. This is not true if such a type was previously transformed by another agent or by a previous installation of
+             * this agent. If a type's class file cannot be located, the type is redefined.
              */
-            Simple(boolean enabled) {
-                this.enabled = enabled;
-            }
+            enum ForClassFile implements ChangeDetection {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public boolean isActive() {
+                    return true;
+                }
 
-            @Override
-            public boolean isFallback(Class<?> type, Throwable throwable) {
-                return enabled;
-            }
+                @Override
+                public Registry make() {
+                    return new Registry.ForDigest();
+                }
 
-            @Override
-            public String toString() {
-                return "AgentBuilder.FallbackStrategy.Simple." + name();
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile." + name();
+                }
             }
         }
 
         /**
-         * A fallback strategy that discriminates by the type of the {@link Throwable} that triggered a request.
+         * A resubmission scheduler is responsible for the periodic execution of a resubmission job of types whose transformation failed.
          */
-        class ByThrowableType implements FallbackStrategy {
-
-            /**
-             * A set of throwable types that should trigger a fallback attempt.
-             */
-            private final Set<? extends Class<? extends Throwable>> types;
+        public interface ResubmissionScheduler {
 
             /**
-             * Creates a new throwable type-discriminating fallback strategy.
+             * Returns {@code true} if this scheduler is able to execute a resubmission job.
              *
-             * @param type The throwable types that should trigger a fallback.
+             * @return {@code true} if this scheduler is able to execute a resubmission job.
              */
-            @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
-            public ByThrowableType(Class<? extends Throwable>... type) {
-                this(new HashSet<Class<? extends Throwable>>(Arrays.asList(type)));
-            }
+            boolean isAlive();
 
             /**
-             * Creates a new throwable type-discriminating fallback strategy.
+             * Schedules the periodic execution of the supplied job.
              *
-             * @param types The throwable types that should trigger a fallback.
+             * @param job The job to execute periodically.
+             * @return A cancelable that stops the periodic execution of the supplied job.
              */
-            public ByThrowableType(Set<? extends Class<? extends Throwable>> types) {
-                this.types = types;
-            }
+            Cancelable schedule(Runnable job);
 
             /**
-             * Creates a fallback strategy that attempts a fallback if an error indicating a type error is the reason for requesting a reattempt.
-             *
-             * @return A fallback strategy that triggers a reattempt if a {@link LinkageError} or a {@link TypeNotPresentException} is raised.
+             * A cancelable that stops the periodic execution of a scheduled resubmission job.
              */
-            @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
-            public static FallbackStrategy ofOptionalTypes() {
-                return new ByThrowableType(LinkageError.class, TypeNotPresentException.class);
-            }
-
-            @Override
-            public boolean isFallback(Class<?> type, Throwable throwable) {
-                for (Class<? extends Throwable> aType : types) {
-                    if (aType.isInstance(throwable)) {
-                        return true;
-                    }
-                }
-                return false;
-            }
+            interface Cancelable {
 
-            @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                ByThrowableType byType = (ByThrowableType) object;
-                return types.equals(byType.types);
-            }
-
-            @Override
-            public int hashCode() {
-                return types.hashCode();
-            }
-
-            @Override
-            public String toString() {
-                return "AgentBuilder.FallbackStrategy.ByThrowableType{" +
-                        "types=" + types +
-                        '}';
-            }
-        }
-    }
+                /**
+                 * Cancels the periodic execution of the scheduled job. An execution that is already running is completed.
+                 */
+                void cancel();
 
-    /**
-     * <p>
-     * A redefinition strategy regulates how already loaded classes are modified by a built agent.
-     * </p>
-     * <p>
-     * <b>Important</b>: Most JVMs do not support changes of a class's structure after a class was already
-     * loaded. Therefore, it is typically required that this class file transformer was built while enabling
-     * {@link AgentBuilder#disableClassFormatChanges()}.
-     * </p>
-     */
-    enum RedefinitionStrategy {
+                /**
+                 * A cancelable for a job that was never scheduled.
+                 */
+                enum NoOp implements Cancelable {
 
-        /**
-         * Disables redefinition such that already loaded classes are not affected by the agent.
-         */
-        DISABLED(false) {
-            @Override
-            protected boolean isRetransforming(Instrumentation instrumentation) {
-                return false;
-            }
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
 
-            @Override
-            protected Collector make(Default.Transformation transformation) {
-                throw new IllegalStateException("A disabled redefinition strategy cannot create a collector");
-            }
-        },
+                    @Override
+                    public void cancel() {
+                        /* do nothing */
+                    }
 
-        /**
-         * <p>
-         * Applies a <b>redefinition</b> to all classes that are already loaded and that would have been transformed if
-         * the built agent was registered before they were loaded. The created {@link ClassFileTransformer} is <b>not</b>
-         * registered for applying retransformations.
-         * </p>
-         * <p>
-         * Using this strategy, a redefinition is applied as a single transformation request. This means that a single illegal
-         * redefinition of a class causes the entire redefinition attempt to fail.
-         * </p>
-         * <p>
-         * <b>Note</b>: When applying a redefinition, it is normally required to use a {@link TypeStrategy} that applies
-         * a redefinition instead of rebasing classes such as {@link TypeStrategy.Default#REDEFINE}. Also, consider
-         * the constrains given by this type strategy.
-         * </p>
-         */
-        REDEFINITION(true) {
-            @Override
-            protected boolean isRetransforming(Instrumentation instrumentation) {
-                if (!instrumentation.isRedefineClassesSupported()) {
-                    throw new IllegalArgumentException("Cannot redefine classes: " + instrumentation);
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp." + name();
+                    }
                 }
-                return false;
-            }
 
-            @Override
-            protected Collector make(Default.Transformation transformation) {
-                return new Collector.ForRedefinition(transformation);
-            }
-        },
+                /**
+                 * A cancelable for a job that is represented by a future.
+                 */
+                class ForFuture implements Cancelable {
 
-        /**
-         * <p>
-         * Applies a <b>retransformation</b> to all classes that are already loaded and that would have been transformed if
-         * the built agent was registered before they were loaded. The created {@link ClassFileTransformer} is registered
-         * for applying retransformations.
-         * </p>
-         * <p>
-         * Using this strategy, a retransformation is applied as a single transformation request. This means that a single illegal
-         * retransformation of a class causes the entire retransformation attempt to fail.
-         * </p>
-         * <p>
-         * <b>Note</b>: When applying a redefinition, it is normally required to use a {@link TypeStrategy} that applies
-         * a redefinition instead of rebasing classes such as {@link TypeStrategy.Default#REDEFINE}. Also, consider
-         * the constrains given by this type strategy.
-         * </p>
-         */
-        RETRANSFORMATION(true) {
-            @Override
-            protected boolean isRetransforming(Instrumentation instrumentation) {
-                if (!instrumentation.isRetransformClassesSupported()) {
-                    throw new IllegalArgumentException("Cannot retransform classes: " + instrumentation);
-                }
-                return true;
-            }
+                    /**
+                     * The future that represents the scheduled job.
+                     */
+                    private final Future<?> future;
 
-            @Override
-            protected Collector make(Default.Transformation transformation) {
-                return new Collector.ForRetransformation(transformation);
-            }
-        };
+                    /**
+                     * Creates a new cancelable for a future.
+                     *
+                     * @param future The future that represents the scheduled job.
+                     */
+                    public ForFuture(Future<?> future) {
+                        this.future = future;
+                    }
 
-        /**
-         * Indicates that this redefinition strategy is enabled.
-         */
-        private final boolean enabled;
+                    @Override
+                    public void cancel() {
+                        future.cancel(false);
+                    }
 
-        /**
-         * Creates a new redefinition strategy.
-         *
-         * @param enabled {@code true} if this strategy is enabled.
-         */
-        RedefinitionStrategy(boolean enabled) {
-            this.enabled = enabled;
-        }
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) return true;
+                        if (other == null || getClass() != other.getClass()) return false;
+                        ForFuture forFuture = (ForFuture) other;
+                        return future.equals(forFuture.future);
+                    }
 
-        /**
-         * Indicates if this strategy requires a class file transformer to be registered with a hint to apply the
-         * transformer for retransformation.
-         *
-         * @param instrumentation The instrumentation instance used.
-         * @return {@code true} if a class file transformer must be registered with a hint for retransformation.
-         */
-        protected abstract boolean isRetransforming(Instrumentation instrumentation);
+                    @Override
+                    public int hashCode() {
+                        return future.hashCode();
+                    }
 
-        /**
-         * Indicates that this redefinition strategy applies a modification of already loaded classes.
-         *
-         * @return {@code true} if this redefinition strategy applies a modification of already loaded classes.
-         */
-        protected boolean isEnabled() {
-            return enabled;
-        }
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.ForFuture{" +
+                                "future=" + future +
+                                '}';
+                    }
+                }
+            }
 
-        /**
-         * Creates a collector instance that is responsible for collecting loaded classes for potential retransformation.
-         *
-         * @param transformation The transformation that is registered for the agent.
-         * @return A new collector for collecting already loaded classes for transformation.
-         */
-        protected abstract Collector make(Default.Transformation transformation);
+            /**
+             * A resubmission scheduler that does not execute any job.
+             */
+            enum NoOp implements ResubmissionScheduler {
 
-        @Override
-        public String toString() {
-            return "AgentBuilder.RedefinitionStrategy." + name();
-        }
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
 
-        /**
-         * A batch allocator which is responsible for applying a redefinition in a batches. A class redefinition or
-         * retransformation can be a time-consuming operation rendering a JVM non-responsive. In combination with a
-         * a {@link RedefinitionStrategy.Listener}, it is also possible to apply pauses between batches to distribute
-         * the load of a retransformation over time.
-         */
-        public interface BatchAllocator {
+                @Override
+                public boolean isAlive() {
+                    return false;
+                }
 
-            /**
-             * Splits a list of types to be retransformed into seperate batches.
-             *
-             * @param types A list of types which should be retransformed.
-             * @return An iterable of retransformations within a batch.
-             */
-            Iterable<? extends List<Class<?>>> batch(List<Class<?>> types);
+                @Override
+                public Cancelable schedule(Runnable job) {
+                    return Cancelable.NoOp.INSTANCE;
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.NoOp." + name();
+                }
+            }
 
             /**
-             * A batch allocator that includes all types in a single batch.
+             * A resubmission scheduler that executes a job at a fixed rate on a scheduled executor service.
              */
-            enum ForTotal implements BatchAllocator {
+            class AtFixedRate implements ResubmissionScheduler {
 
                 /**
-                 * The singleton instance.
+                 * The scheduled executor service to use.
                  */
-                INSTANCE;
+                private final ScheduledExecutorService scheduledExecutorService;
+
+                /**
+                 * The period of the job's execution.
+                 */
+                private final long time;
+
+                /**
+                 * The time unit of the period.
+                 */
+                private final TimeUnit timeUnit;
+
+                /**
+                 * Creates a new resubmission scheduler that executes a job at a fixed rate.
+                 *
+                 * @param scheduledExecutorService The scheduled executor service to use.
+                 * @param time                     The period of the job's execution.
+                 * @param timeUnit                 The time unit of the period.
+                 */
+                public AtFixedRate(ScheduledExecutorService scheduledExecutorService, long time, TimeUnit timeUnit) {
+                    this.scheduledExecutorService = scheduledExecutorService;
+                    this.time = time;
+                    this.timeUnit = timeUnit;
+                }
 
                 @Override
-                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
-                    return types.isEmpty()
-                            ? Collections.<List<Class<?>>>emptySet()
-                            : Collections.singleton(types);
+                public boolean isAlive() {
+                    return !scheduledExecutorService.isShutdown();
+                }
+
+                @Override
+                public Cancelable schedule(Runnable job) {
+                    return new Cancelable.ForFuture(scheduledExecutorService.scheduleAtFixedRate(job, time, time, timeUnit));
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    AtFixedRate that = (AtFixedRate) other;
+                    return time == that.time
+                            && scheduledExecutorService.equals(that.scheduledExecutorService)
+                            && timeUnit == that.timeUnit;
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = scheduledExecutorService.hashCode();
+                    result = 31 * result + (int) (time ^ (time >>> 32));
+                    result = 31 * result + timeUnit.hashCode();
+                    return result;
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForTotal." + name();
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.AtFixedRate{" +
+                            "scheduledExecutorService=" + scheduledExecutorService +
+                            ", time=" + time +
+                            ", timeUnit=" + timeUnit +
+                            '}';
                 }
             }
 
             /**
-             * A batch allocator that creates chunks with a fixed size as batch jobs.
+             * A resubmission scheduler that executes a job with a fixed delay between two executions on a scheduled executor service.
              */
-            class ForFixedSize implements BatchAllocator {
+            class WithFixedDelay implements ResubmissionScheduler {
 
                 /**
-                 * The size of each chunk.
+                 * The scheduled executor service to use.
                  */
-                private final int size;
+                private final ScheduledExecutorService scheduledExecutorService;
 
                 /**
-                 * Creates a new batch allocator that creates fixed-sized chunks.
-                 *
-                 * @param size The size of each chunk.
+                 * The delay between two executions of the job.
                  */
-                protected ForFixedSize(int size) {
-                    this.size = size;
-                }
+                private final long time;
 
                 /**
-                 * Creates a new batch allocator that creates chunks of a fixed size.
+                 * The time unit of the delay.
+                 */
+                private final TimeUnit timeUnit;
+
+                /**
+                 * Creates a new resubmission scheduler that executes a job with a fixed delay.
                  *
-                 * @param size The size of each chunk or {@code 0} if the batch should be included in a single chunk.
-                 * @return An appropriate batch allocator.
+                 * @param scheduledExecutorService The scheduled executor service to use.
+                 * @param time                     The delay between two executions of the job.
+                 * @param timeUnit                 The time unit of the delay.
                  */
-                public static BatchAllocator ofSize(int size) {
-                    if (size > 0) {
-                        return new ForFixedSize(size);
-                    } else if (size == 0) {
-                        return ForTotal.INSTANCE;
-                    } else {
-                        throw new IllegalArgumentException("Cannot define a batch with a negative size: " + size);
-                    }
+                public WithFixedDelay(ScheduledExecutorService scheduledExecutorService, long time, TimeUnit timeUnit) {
+                    this.scheduledExecutorService = scheduledExecutorService;
+                    this.time = time;
+                    this.timeUnit = timeUnit;
                 }
 
                 @Override
-                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
-                    List<List<Class<?>>> batches = new ArrayList<List<Class<?>>>();
-                    for (int index = 0; index < types.size(); index += size) {
-                        batches.add(new ArrayList<Class<?>>(types.subList(index, Math.min(types.size(), index + size))));
-                    }
-                    return batches;
+                public boolean isAlive() {
+                    return !scheduledExecutorService.isShutdown();
                 }
 
                 @Override
-                public boolean equals(Object object) {
-                    if (this == object) return true;
-                    if (object == null || getClass() != object.getClass()) return false;
-                    ForFixedSize that = (ForFixedSize) object;
-                    return size == that.size;
+                public Cancelable schedule(Runnable job) {
+                    return new Cancelable.ForFuture(scheduledExecutorService.scheduleWithFixedDelay(job, time, time, timeUnit));
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    WithFixedDelay that = (WithFixedDelay) other;
+                    return time == that.time
+                            && scheduledExecutorService.equals(that.scheduledExecutorService)
+                            && timeUnit == that.timeUnit;
                 }
 
                 @Override
                 public int hashCode() {
-                    return size;
+                    int result = scheduledExecutorService.hashCode();
+                    result = 31 * result + (int) (time ^ (time >>> 32));
+                    result = 31 * result + timeUnit.hashCode();
+                    return result;
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForFixedSize{" +
-                            "size=" + size +
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.WithFixedDelay{" +
+                            "scheduledExecutorService=" + scheduledExecutorService +
+                            ", time=" + time +
+                            ", timeUnit=" + timeUnit +
                             '}';
                 }
             }
+        }
+
+        /**
+         * <p>
+         * A resubmission strategy determines if types whose transformation failed are resubmitted for a transformation at a later point in time.
+         * This allows to instrument types that could not be transformed when they were loaded, for example because a type that is referenced by
+         * the transformation was not yet available during the bootstrap of an application.
+         * </p>
+         * <p>
+         * <b>Important</b>: A failed type is recorded by the type's name and its weakly referenced class loader as a type is not yet loaded when
+         * its initial transformation fails. Resubmitted types are redefined by the agent's redefinition strategy and batch allocator on the thread
+         * of the resubmission scheduler, the thread that loads a type is only required to record a failure.
+         * </p>
+         */
+        public interface ResubmissionStrategy {
 
             /**
-             * A batch allocator that groups all batches by discriminating types using a type matcher.
+             * Applies this resubmission strategy.
+             *
+             * @param instrumentation The instrumentation instance on which the agent is installed.
+             * @param listener        The agent's listener.
+             * @param resubmitter     The resubmitter to apply to types that are resubmitted.
+             * @return An installation of this resubmission strategy.
              */
-            class ForMatchedGrouping implements BatchAllocator {
+            Installation apply(Instrumentation instrumentation, AgentBuilder.Listener listener, Resubmitter resubmitter);
+
+            /**
+             * An installation of a resubmission strategy.
+             */
+            class Installation {
 
                 /**
-                 * The type matchers to apply.
+                 * The listener to apply for the agent's class file transformer.
                  */
-                private final Collection<? extends ElementMatcher<? super TypeDescription>> matchers;
+                private final AgentBuilder.Listener listener;
 
                 /**
-                 * Creates a new batch allocator that groups all batches by discriminating types using a type matcher. All batches
-                 * are applied in their application order with any unmatched type being included in the last batch.
-                 *
-                 * @param matcher The type matchers to apply in their application order.
+                 * The cancelable of the scheduled resubmission job.
                  */
-                @SuppressWarnings("unchecked") // In absence of @SafeVarargs for Java 6
-                public ForMatchedGrouping(ElementMatcher<? super TypeDescription>... matcher) {
-                    this(new LinkedHashSet<ElementMatcher<? super TypeDescription>>(Arrays.asList(matcher)));
-                }
+                private final ResubmissionScheduler.Cancelable cancelable;
 
                 /**
-                 * Creates a new batch allocator that groups all batches by discriminating types using a type matcher. All batches
-                 * are applied in their application order with any unmatched type being included in the last batch.
+                 * Creates a new installation of a resubmission strategy.
                  *
-                 * @param matchers The type matchers to apply in their application order.
+                 * @param listener   The listener to apply for the agent's class file transformer.
+                 * @param cancelable The cancelable of the scheduled resubmission job.
                  */
-                public ForMatchedGrouping(Collection<? extends ElementMatcher<? super TypeDescription>> matchers) {
-                    this.matchers = matchers;
+                protected Installation(AgentBuilder.Listener listener, ResubmissionScheduler.Cancelable cancelable) {
+                    this.listener = listener;
+                    this.cancelable = cancelable;
                 }
 
                 /**
-                 * Assures that any group is at least of a given size. If a group is smaller than a given size, it is merged with its types
-                 * are merged with its subsequent group(s) as long as such groups exist.
+                 * Returns the listener to apply for the agent's class file transformer.
                  *
-                 * @param threshold The minimum threshold for any batch.
-                 * @return An appropriate batch allocator.
+                 * @return The listener to apply for the agent's class file transformer.
                  */
-                public BatchAllocator withMinimum(int threshold) {
-                    return Slicing.withMinimum(threshold, this);
+                public AgentBuilder.Listener getListener() {
+                    return listener;
                 }
 
                 /**
-                 * Assures that any group is at least of a given size. If a group is bigger than a given size, it is split into two several
-                 * batches.
+                 * Returns the cancelable of the scheduled resubmission job.
                  *
-                 * @param threshold The maximum threshold for any batch.
-                 * @return An appropriate batch allocator.
+                 * @return The cancelable of the scheduled resubmission job.
                  */
-                public BatchAllocator withMaximum(int threshold) {
-                    return Slicing.withMaximum(threshold, this);
+                public ResubmissionScheduler.Cancelable getCancelable() {
+                    return cancelable;
                 }
 
-                /**
-                 * Assures that any group is within a size range described by the supplied minimum and maximum. Groups are split and merged
-                 * according to the supplied thresholds. The last group contains might be smaller than the supplied minimum.
-                 *
-                 * @param minimum The minimum threshold for any batch.
-                 * @param maximum The maximum threshold for any batch.
-                 * @return An appropriate batch allocator.
-                 */
-                public BatchAllocator withinRange(int minimum, int maximum) {
-                    return Slicing.withinRange(minimum, maximum, this);
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    Installation that = (Installation) other;
+                    return listener.equals(that.listener) && cancelable.equals(that.cancelable);
                 }
 
                 @Override
-                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
-                    Map<ElementMatcher<? super TypeDescription>, List<Class<?>>> matched = new LinkedHashMap<ElementMatcher<? super TypeDescription>, List<Class<?>>>();
-                    List<Class<?>> unmatched = new ArrayList<Class<?>>();
-                    for (ElementMatcher<? super TypeDescription> matcher : matchers) {
-                        matched.put(matcher, new ArrayList<Class<?>>());
-                    }
-                    typeLoop:
-                    for (Class<?> type : types) {
-                        for (ElementMatcher<? super TypeDescription> matcher : matchers) {
-                            if (matcher.matches(new TypeDescription.ForLoadedType(type))) {
-                                matched.get(matcher).add(type);
-                                continue typeLoop;
-                            }
-                        }
-                        unmatched.add(type);
-                    }
-                    List<List<Class<?>>> batches = new ArrayList<List<Class<?>>>(matchers.size() + 1);
-                    for (List<Class<?>> batch : matched.values()) {
-                        if (!batch.isEmpty()) {
-                            batches.add(batch);
-                        }
-                    }
-                    if (!unmatched.isEmpty()) {
-                        batches.add(unmatched);
-                    }
-                    return batches;
+                public int hashCode() {
+                    int result = listener.hashCode();
+                    result = 31 * result + cancelable.hashCode();
+                    return result;
                 }
 
                 @Override
-                public boolean equals(Object object) {
-                    if (this == object) return true;
-                    if (object == null || getClass() != object.getClass()) return false;
-                    ForMatchedGrouping that = (ForMatchedGrouping) object;
-                    return matchers.equals(that.matchers);
+                public String toString() {
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Installation{" +
+                            "listener=" + listener +
+                            ", cancelable=" + cancelable +
+                            '}';
                 }
+            }
+
+            /**
+             * A resubmitter is responsible for redefining types that were resubmitted.
+             */
+            interface Resubmitter {
+
+                /**
+                 * Resubmits the supplied types for a redefinition.
+                 *
+                 * @param types The types to resubmit.
+                 */
+                void resubmit(List<Class<?>> types);
+            }
+
+            /**
+             * A disabled resubmission strategy.
+             */
+            enum Disabled implements ResubmissionStrategy {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
 
                 @Override
-                public int hashCode() {
-                    return matchers.hashCode();
+                public Installation apply(Instrumentation instrumentation, AgentBuilder.Listener listener, Resubmitter resubmitter) {
+                    return new Installation(listener, ResubmissionScheduler.Cancelable.NoOp.INSTANCE);
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.ForMatchedGrouping{" +
-                            "matchers=" + matchers +
-                            '}';
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Disabled." + name();
                 }
             }
 
             /**
-             * A slicing batch allocator that assures that any batch is within a certain size range.
+             * An enabled resubmission strategy that resubmits failed types with an exponential backoff. After the first failure, a type is
+             * resubmitted once the initial backoff has passed. After every following failure of the same type, the backoff is doubled until
+             * it reaches the maximum backoff. A type that is due but not loaded when the resubmission job runs counts as failed again.
+             * A type is abandoned once it failed the maximum number of times.
              */
-            class Slicing implements BatchAllocator {
+            class Enabled implements ResubmissionStrategy {
 
                 /**
-                 * The minimum size of each slice.
+                 * The default initial backoff in seconds.
                  */
-                private final int minimum;
+                private static final long DEFAULT_INITIAL_BACKOFF = 1L;
 
                 /**
-                 * The maximum size of each slice.
+                 * The default maximum backoff in seconds.
                  */
-                private final int maximum;
+                private static final long DEFAULT_MAXIMUM_BACKOFF = 60L;
 
                 /**
-                 * The delegate batch allocator.
+                 * The default maximum number of failed attempts of a type.
                  */
-                private final BatchAllocator batchAllocator;
+                private static final int DEFAULT_MAXIMUM_ATTEMPTS = 10;
 
                 /**
-                 * Creates a new slicing batch allocator.
-                 *
-                 * @param minimum        The minimum size of each slice.
-                 * @param maximum        The maximum size of each slice.
-                 * @param batchAllocator The delegate batch allocator.
+                 * The resubmission scheduler to use.
                  */
-                protected Slicing(int minimum, int maximum, BatchAllocator batchAllocator) {
-                    this.minimum = minimum;
-                    this.maximum = maximum;
-                    this.batchAllocator = batchAllocator;
-                }
+                private final ResubmissionScheduler resubmissionScheduler;
 
                 /**
-                 * Creates a new slicing batch allocator.
-                 *
-                 * @param minimum        The minimum size of each slice.
-                 * @param batchAllocator The delegate batch allocator.
-                 * @return An appropriate slicing batch allocator.
+                 * The backoff after the first failure of a type in nanoseconds.
                  */
-                public static BatchAllocator withMinimum(int minimum, BatchAllocator batchAllocator) {
-                    return withinRange(minimum, Integer.MAX_VALUE, batchAllocator);
-                }
+                private final long initialBackoff;
 
                 /**
-                 * Creates a new slicing batch allocator.
+                 * The maximum backoff in nanoseconds.
+                 */
+                private final long maximumBackoff;
+
+                /**
+                 * The maximum number of failed attempts of a type after which it is abandoned.
+                 */
+                private final int maximumAttempts;
+
+                /**
+                 * Creates a new enabled resubmission strategy with a default backoff.
                  *
-                 * @param maximum        The maximum size of each slice.
-                 * @param batchAllocator The delegate batch allocator.
-                 * @return An appropriate slicing batch allocator.
+                 * @param resubmissionScheduler The resubmission scheduler to use.
                  */
-                public static BatchAllocator withMaximum(int maximum, BatchAllocator batchAllocator) {
-                    return withinRange(1, maximum, batchAllocator);
+                public Enabled(ResubmissionScheduler resubmissionScheduler) {
+                    this(resubmissionScheduler, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAXIMUM_BACKOFF, TimeUnit.SECONDS, DEFAULT_MAXIMUM_ATTEMPTS);
                 }
 
                 /**
-                 * Creates a new slicing batch allocator.
+                 * Creates a new enabled resubmission strategy.
                  *
-                 * @param minimum        The minimum size of each slice.
-                 * @param maximum        The maximum size of each slice.
-                 * @param batchAllocator The delegate batch allocator.
-                 * @return An appropriate slicing batch allocator.
+                 * @param resubmissionScheduler The resubmission scheduler to use.
+                 * @param initialBackoff        The backoff after the first failure of a type.
+                 * @param maximumBackoff        The maximum backoff.
+                 * @param timeUnit              The time unit of the initial and maximum backoff.
+                 * @param maximumAttempts       The maximum number of failed attempts of a type after which it is abandoned.
                  */
-                public static BatchAllocator withinRange(int minimum, int maximum, BatchAllocator batchAllocator) {
-                    if (minimum <= 0) {
-                        throw new IllegalArgumentException("Minimum must be a positive number: " + minimum);
-                    } else if (minimum > maximum) {
-                        throw new IllegalArgumentException("Minimum must not be bigger than maximum: " + minimum + " >" + maximum);
+                public Enabled(ResubmissionScheduler resubmissionScheduler, long initialBackoff, long maximumBackoff, TimeUnit timeUnit, int maximumAttempts) {
+                    if (initialBackoff < 0) {
+                        throw new IllegalArgumentException("Initial backoff must not be negative: " + initialBackoff);
+                    } else if (initialBackoff > maximumBackoff) {
+                        throw new IllegalArgumentException("Initial backoff must not be bigger than maximum backoff: " + initialBackoff + " > " + maximumBackoff);
+                    } else if (maximumAttempts <= 0) {
+                        throw new IllegalArgumentException("Maximum attempts must be a positive number: " + maximumAttempts);
                     }
-                    return new Slicing(minimum, maximum, batchAllocator);
+                    this.resubmissionScheduler = resubmissionScheduler;
+                    this.initialBackoff = timeUnit.toNanos(initialBackoff);
+                    this.maximumBackoff = timeUnit.toNanos(maximumBackoff);
+                    this.maximumAttempts = maximumAttempts;
                 }
 
                 @Override
-                public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
-                    return new SlicingIterable(minimum, maximum, batchAllocator.batch(types));
+                public Installation apply(Instrumentation instrumentation, AgentBuilder.Listener listener, Resubmitter resubmitter) {
+                    if (!resubmissionScheduler.isAlive()) {
+                        return new Installation(listener, ResubmissionScheduler.Cancelable.NoOp.INSTANCE);
+                    }
+                    Store store = new Store(initialBackoff, maximumBackoff, maximumAttempts);
+                    return new Installation(new AgentBuilder.Listener.Compound(listener, store),
+                            resubmissionScheduler.schedule(new Job(instrumentation, resubmitter, store)));
                 }
 
                 @Override
-                public boolean equals(Object object) {
-                    if (this == object) return true;
-                    if (object == null || getClass() != object.getClass()) return false;
-                    Slicing slicing = (Slicing) object;
-                    return minimum == slicing.minimum
-                            && maximum == slicing.maximum
-                            && batchAllocator.equals(slicing.batchAllocator);
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    Enabled enabled = (Enabled) other;
+                    return initialBackoff == enabled.initialBackoff
+                            && maximumBackoff == enabled.maximumBackoff
+                            && maximumAttempts == enabled.maximumAttempts
+                            && resubmissionScheduler.equals(enabled.resubmissionScheduler);
                 }
 
                 @Override
                 public int hashCode() {
-                    int result = minimum;
-                    result = 31 * result + maximum;
-                    result = 31 * result + batchAllocator.hashCode();
+                    int result = resubmissionScheduler.hashCode();
+                    result = 31 * result + (int) (initialBackoff ^ (initialBackoff >>> 32));
+                    result = 31 * result + (int) (maximumBackoff ^ (maximumBackoff >>> 32));
+                    result = 31 * result + maximumAttempts;
                     return result;
                 }
 
                 @Override
                 public String toString() {
-                    return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing{" +
-                            "minimum=" + minimum +
-                            ", maximum=" + maximum +
-                            ", batchAllocator=" + batchAllocator +
+                    return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled{" +
+                            "resubmissionScheduler=" + resubmissionScheduler +
+                            ", initialBackoff=" + initialBackoff +
+                            ", maximumBackoff=" + maximumBackoff +
+                            ", maximumAttempts=" + maximumAttempts +
                             '}';
                 }
 
                 /**
-                 * An iterable that slices batches into parts of a minimum and maximum size.
+                 * A store of failed types that records the failures of types as a listener. Failed types are stored by their name
+                 * per weakly referenced class loader such that a failed type never prevents the collection of its class loader.
                  */
-                protected static class SlicingIterable implements Iterable<List<Class<?>>> {
+                protected static class Store extends AgentBuilder.Listener.Adapter {
 
                     /**
-                     * The minimum size of any slice.
+                     * The backoff after the first failure of a type in nanoseconds.
                      */
-                    private final int minimum;
+                    private final long initialBackoff;
 
                     /**
-                     * The maximum size of any slice.
+                     * The maximum backoff in nanoseconds.
                      */
-                    private final int maximum;
+                    private final long maximumBackoff;
 
                     /**
-                     * The delegate iterable.
+                     * The maximum number of failed attempts of a type after which it is abandoned.
                      */
-                    private final Iterable<? extends List<Class<?>>> iterable;
+                    private final int maximumAttempts;
 
                     /**
-                     * Creates a new slicing iterable.
+                     * The attempts of failed types of the bootstrap class loader by their names.
+                     */
+                    private final ConcurrentMap<String, Attempt> bootstrapAttempts;
+
+                    /**
+                     * The attempts of failed types by their weakly referenced class loaders. Both the keys and values of this map are
+                     * {@link WeakEntry} instances which allows the lookup via a {@link LookupKey}.
+                     */
+                    private final ConcurrentMap<Object, WeakEntry> attempts;
+
+                    /**
+                     * The reference queue that is notified when a class loader with failed types is garbage collected.
+                     */
+                    private final ReferenceQueue<ClassLoader> referenceQueue;
+
+                    /**
+                     * Creates a new store of failed types.
                      *
-                     * @param minimum  The minimum size of any slice.
-                     * @param maximum  The maximum size of any slice.
-                     * @param iterable The delegate iterable.
+                     * @param initialBackoff  The backoff after the first failure of a type in nanoseconds.
+                     * @param maximumBackoff  The maximum backoff in nanoseconds.
+                     * @param maximumAttempts The maximum number of failed attempts of a type after which it is abandoned.
                      */
-                    protected SlicingIterable(int minimum, int maximum, Iterable<? extends List<Class<?>>> iterable) {
-                        this.minimum = minimum;
-                        this.maximum = maximum;
-                        this.iterable = iterable;
+                    protected Store(long initialBackoff, long maximumBackoff, int maximumAttempts) {
+                        this.initialBackoff = initialBackoff;
+                        this.maximumBackoff = maximumBackoff;
+                        this.maximumAttempts = maximumAttempts;
+                        bootstrapAttempts = new ConcurrentHashMap<String, Attempt>();
+                        attempts = new ConcurrentHashMap<Object, WeakEntry>();
+                        referenceQueue = new ReferenceQueue<ClassLoader>();
                     }
 
                     @Override
-                    public Iterator<List<Class<?>>> iterator() {
-                        return new SlicingIterator(minimum, maximum, iterable.iterator());
+                    public void onError(String typeName, ClassLoader classLoader, JavaModule module, Throwable throwable) {
+                        ConcurrentMap<String, Attempt> attempts = locate(classLoader, true);
+                        while (!fail(attempts, typeName, attempts.get(typeName), System.nanoTime())) {
+                            /* do nothing */
+                        }
+                    }
+
+                    /**
+                     * Records another failure of a type if its attempt was not changed concurrently. The type is abandoned if it failed
+                     * more than the maximum number of times.
+                     *
+                     * @param attempts The attempts of the failed types of the type's class loader.
+                     * @param typeName The name of the type.
+                     * @param attempt  The observed attempt of the type or {@code null} if the type did not fail before.
+                     * @param now      The current time stamp as given by {@link System#nanoTime()}.
+                     * @return {@code true} if the failure was recorded or {@code false} if the observed attempt was changed concurrently.
+                     */
+                    private boolean fail(ConcurrentMap<String, Attempt> attempts, String typeName, Attempt attempt, long now) {
+                        int count = attempt == null
+                                ? 1
+                                : attempt.getCount() + 1;
+                        if (count > maximumAttempts) {
+                            return attempt == null || attempts.remove(typeName, attempt);
+                        } else if (attempt == null) {
+                            return attempts.putIfAbsent(typeName, new Attempt(count, now + backoff(count))) == null;
+                        } else {
+                            return attempts.replace(typeName, attempt, new Attempt(count, now + backoff(count)));
+                        }
+                    }
+
+                    /**
+                     * Returns the backoff after the supplied number of failures of a type.
+                     *
+                     * @param count The number of failures of a type.
+                     * @return The backoff in nanoseconds.
+                     */
+                    protected long backoff(int count) {
+                        int shift = count - 1;
+                        return shift >= Long.SIZE - 1 || initialBackoff > maximumBackoff >>> shift
+                                ? maximumBackoff
+                                : initialBackoff << shift;
+                    }
+
+                    /**
+                     * Marks the supplied type as submitted if a previous transformation of the type failed and its backoff has passed.
+                     *
+                     * @param type The type to consider.
+                     * @param now  The current time stamp as given by {@link System#nanoTime()}.
+                     * @return {@code true} if the type was marked as submitted and should be resubmitted.
+                     */
+                    protected boolean submit(Class<?> type, long now) {
+                        ConcurrentMap<String, Attempt> attempts = locate(type.getClassLoader(), false);
+                        if (attempts == null) {
+                            return false;
+                        }
+                        String typeName = TypeDescription.ForLoadedType.getName(type);
+                        Attempt attempt = attempts.get(typeName);
+                        return attempt != null && attempt.isDue(now) && attempts.replace(typeName, attempt, attempt.asSubmitted());
+                    }
+
+                    /**
+                     * Completes the resubmission of the supplied type. If the type was not recorded as failed again during its resubmission,
+                     * it is removed from this store.
+                     *
+                     * @param type The type that was resubmitted.
+                     */
+                    protected void complete(Class<?> type) {
+                        ConcurrentMap<String, Attempt> attempts = locate(type.getClassLoader(), false);
+                        if (attempts != null) {
+                            String typeName = TypeDescription.ForLoadedType.getName(type);
+                            Attempt attempt = attempts.get(typeName);
+                            if (attempt != null && attempt.isSubmitted()) {
+                                attempts.remove(typeName, attempt);
+                            }
+                        }
+                    }
+
+                    /**
+                     * Records another failure for all types that are due for a resubmission but were not submitted. Such types were
+                     * not loaded when this store was last scanned for types to submit such that they are eventually abandoned.
+                     *
+                     * @param now The time stamp as given by {@link System#nanoTime()} that was used for submitting types.
+                     */
+                    protected void expire(long now) {
+                        expire(bootstrapAttempts, now);
+                        for (WeakEntry entry : this.attempts.values()) {
+                            expire(entry.getAttempts(), now);
+                        }
+                    }
+
+                    /**
+                     * Records another failure for all types of the supplied attempts that are due for a resubmission.
+                     *
+                     * @param attempts The attempts of the failed types of a class loader.
+                     * @param now      The time stamp as given by {@link System#nanoTime()} that was used for submitting types.
+                     */
+                    private void expire(ConcurrentMap<String, Attempt> attempts, long now) {
+                        for (Map.Entry<String, Attempt> entry : attempts.entrySet()) {
+                            if (entry.getValue().isDue(now)) {
+                                fail(attempts, entry.getKey(), entry.getValue(), now);
+                            }
+                        }
+                    }
+
+                    /**
+                     * Returns {@code true} if this store does not contain any failed types after removing the failed types of all
+                     * garbage collected class loaders.
+                     *
+                     * @return {@code true} if this store does not contain any failed types.
+                     */
+                    protected boolean isEmpty() {
+                        expungeStaleEntries();
+                        if (!bootstrapAttempts.isEmpty()) {
+                            return false;
+                        }
+                        for (WeakEntry entry : this.attempts.values()) {
+                            if (!entry.getAttempts().isEmpty()) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+
+                    /**
+                     * Locates the attempts of failed types of the supplied class loader.
+                     *
+                     * @param classLoader The class loader for which to locate the attempts.
+                     * @param create      {@code true} if the attempts should be created if they do not exist.
+                     * @return The attempts of the supplied class loader or {@code null} if they do not exist and should not be created.
+                     */
+                    private ConcurrentMap<String, Attempt> locate(ClassLoader classLoader, boolean create) {
+                        if (classLoader == null) {
+                            return bootstrapAttempts;
+                        }
+                        expungeStaleEntries();
+                        WeakEntry entry = this.attempts.get(new LookupKey(classLoader));
+                        while (entry == null && create) {
+                            entry = new WeakEntry(classLoader, referenceQueue);
+                            WeakEntry previous = this.attempts.putIfAbsent(entry, entry);
+                            if (previous != null) {
+                                entry = previous;
+                            }
+                        }
+                        return entry == null
+                                ? null
+                                : entry.getAttempts();
+                    }
+
+                    /**
+                     * Removes the failed types of all class loaders that were garbage collected.
+                     */
+                    private void expungeStaleEntries() {
+                        Reference<?> reference;
+                        while ((reference = referenceQueue.poll()) != null) {
+                            attempts.remove(reference);
+                        }
                     }
 
                     @Override
                     public String toString() {
-                        return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing.SlicingIterable{" +
-                                "minimum=" + minimum +
-                                ", maximum=" + maximum +
-                                ", iterable=" + iterable +
+                        return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store{" +
+                                "initialBackoff=" + initialBackoff +
+                                ", maximumBackoff=" + maximumBackoff +
+                                ", maximumAttempts=" + maximumAttempts +
+                                ", bootstrapAttempts=" + bootstrapAttempts +
+                                ", attempts=" + attempts +
                                 '}';
                     }
 
                     /**
-                     * An iterator that slices batches into parts of a minimum and maximum size.
+                     * A failed attempt to transform a type. Attempts are compared by their identity such that a stored attempt
+                     * can only be replaced or removed by the thread that observed it.
                      */
-                    protected static class SlicingIterator implements Iterator<List<Class<?>>> {
+                    protected static class Attempt {
 
                         /**
-                         * The minimum size of any slice.
+                         * Indicates that an attempt was submitted.
                          */
-                        private final int minimum;
+                        private static final long SUBMITTED = Long.MIN_VALUE;
 
                         /**
-                         * The maximum size of any slice.
+                         * The number of failures of the type.
                          */
-                        private final int maximum;
+                        private final int count;
 
                         /**
-                         * The delegate iterator.
+                         * The time stamp after which the type is due for a resubmission or {@link Attempt#SUBMITTED}.
                          */
-                        private final Iterator<? extends List<Class<?>>> iterator;
+                        private final long due;
 
                         /**
-                         * A buffer containing all types that surpassed the maximum.
+                         * Creates a new attempt.
+                         *
+                         * @param count The number of failures of the type.
+                         * @param due   The time stamp after which the type is due for a resubmission or {@link Attempt#SUBMITTED}.
                          */
-                        private List<Class<?>> buffer;
+                        protected Attempt(int count, long due) {
+                            this.count = count;
+                            this.due = due;
+                        }
 
                         /**
-                         * Creates a new slicing iterator.
+                         * Returns the number of failures of the type.
                          *
-                         * @param minimum  The minimum size of any slice.
-                         * @param maximum  The maximum size of any slice.
-                         * @param iterator The delegate iterator.
+                         * @return The number of failures of the type.
                          */
-                        protected SlicingIterator(int minimum, int maximum, Iterator<? extends List<Class<?>>> iterator) {
-                            this.minimum = minimum;
-                            this.maximum = maximum;
-                            this.iterator = iterator;
-                            buffer = Collections.emptyList();
+                        protected int getCount() {
+                            return count;
+                        }
+
+                        /**
+                         * Returns {@code true} if the type is due for a resubmission.
+                         *
+                         * @param now The current time stamp as given by {@link System#nanoTime()}.
+                         * @return {@code true} if the type is due for a resubmission.
+                         */
+                        protected boolean isDue(long now) {
+                            return due != SUBMITTED && now - due >= 0;
+                        }
+
+                        /**
+                         * Returns {@code true} if the type was submitted.
+                         *
+                         * @return {@code true} if the type was submitted.
+                         */
+                        protected boolean isSubmitted() {
+                            return due == SUBMITTED;
+                        }
+
+                        /**
+                         * Returns a submitted version of this attempt.
+                         *
+                         * @return A submitted version of this attempt.
+                         */
+                        protected Attempt asSubmitted() {
+                            return new Attempt(count, SUBMITTED);
                         }
 
                         @Override
-                        public boolean hasNext() {
-                            return !buffer.isEmpty() || iterator.hasNext();
+                        public String toString() {
+                            return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store.Attempt{" +
+                                    "count=" + count +
+                                    ", due=" + due +
+                                    '}';
+                        }
+                    }
+
+                    /**
+                     * A weak reference to a class loader that holds the attempts of its failed types. Two entries are equal if they
+                     * reference the identical class loader. An entry is only equal to itself once its class loader was collected.
+                     */
+                    protected static class WeakEntry extends WeakReference<ClassLoader> {
+
+                        /**
+                         * The identity hash code of the referenced class loader.
+                         */
+                        private final int hashCode;
+
+                        /**
+                         * The attempts of the failed types of the referenced class loader by their names.
+                         */
+                        private final ConcurrentMap<String, Attempt> attempts;
+
+                        /**
+                         * Creates a new weak entry.
+                         *
+                         * @param classLoader    The referenced class loader.
+                         * @param referenceQueue The reference queue to notify upon the collection of the class loader.
+                         */
+                        protected WeakEntry(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue) {
+                            super(classLoader, referenceQueue);
+                            hashCode = System.identityHashCode(classLoader);
+                            attempts = new ConcurrentHashMap<String, Attempt>();
+                        }
+
+                        /**
+                         * Returns the attempts of the failed types of the referenced class loader.
+                         *
+                         * @return The attempts of the failed types of the referenced class loader.
+                         */
+                        protected ConcurrentMap<String, Attempt> getAttempts() {
+                            return attempts;
                         }
 
                         @Override
-                        public List<Class<?>> next() {
-                            if (buffer.isEmpty()) {
-                                buffer = iterator.next();
+                        public boolean equals(Object other) {
+                            if (this == other) {
+                                return true;
+                            } else if (other instanceof WeakEntry) {
+                                ClassLoader classLoader = get();
+                                return classLoader != null && classLoader == ((WeakEntry) other).get();
+                            } else {
+                                return other instanceof LookupKey && ((LookupKey) other).equals(this);
                             }
-                            while (buffer.size() < minimum && iterator.hasNext()) {
-                                buffer.addAll(iterator.next());
+                        }
+
+                        @Override
+                        public int hashCode() {
+                            return hashCode;
+                        }
+
+                        @Override
+                        public String toString() {
+                            return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store.WeakEntry{" +
+                                    "classLoader=" + get() +
+                                    ", attempts=" + attempts +
+                                    '}';
+                        }
+                    }
+
+                    /**
+                     * A short-lived key for looking up a class loader's {@link WeakEntry} without creating a weak reference.
+                     */
+                    protected static class LookupKey {
+
+                        /**
+                         * The class loader to look up.
+                         */
+                        private final ClassLoader classLoader;
+
+                        /**
+                         * The identity hash code of the class loader.
+                         */
+                        private final int hashCode;
+
+                        /**
+                         * Creates a new lookup key.
+                         *
+                         * @param classLoader The class loader to look up.
+                         */
+                        protected LookupKey(ClassLoader classLoader) {
+                            this.classLoader = classLoader;
+                            hashCode = System.identityHashCode(classLoader);
+                        }
+
+                        @Override
+                        public boolean equals(Object other) {
+                            if (this == other) {
+                                return true;
+                            } else if (other instanceof LookupKey) {
+                                return classLoader == ((LookupKey) other).classLoader;
+                            } else {
+                                return other instanceof WeakEntry && classLoader == ((WeakEntry) other).get();
                             }
-                            if (buffer.size() > maximum) {
-                                try {
-                                    return buffer.subList(0, maximum);
-                                } finally {
-                                    buffer = buffer.subList(maximum, buffer.size());
+                        }
+
+                        @Override
+                        public int hashCode() {
+                            return hashCode;
+                        }
+
+                        @Override
+                        public String toString() {
+                            return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store.LookupKey{" +
+                                    "classLoader=" + classLoader +
+                                    '}';
+                        }
+                    }
+                }
+
+                /**
+                 * A job that resubmits all loaded types of a store whose backoff has passed.
+                 */
+                protected static class Job implements Runnable {
+
+                    /**
+                     * The instrumentation instance on which the agent is installed.
+                     */
+                    private final Instrumentation instrumentation;
+
+                    /**
+                     * The resubmitter to apply to resubmitted types.
+                     */
+                    private final Resubmitter resubmitter;
+
+                    /**
+                     * The store of failed types.
+                     */
+                    private final Store store;
+
+                    /**
+                     * Creates a new resubmission job.
+                     *
+                     * @param instrumentation The instrumentation instance on which the agent is installed.
+                     * @param resubmitter     The resubmitter to apply to resubmitted types.
+                     * @param store           The store of failed types.
+                     */
+                    protected Job(Instrumentation instrumentation, Resubmitter resubmitter, Store store) {
+                        this.instrumentation = instrumentation;
+                        this.resubmitter = resubmitter;
+                        this.store = store;
+                    }
+
+                    @Override
+                    public void run() {
+                        try {
+                            if (store.isEmpty()) {
+                                return;
+                            }
+                            long now = System.nanoTime();
+                            List<Class<?>> types = new ArrayList<Class<?>>();
+                            for (Class<?> type : instrumentation.getAllLoadedClasses()) {
+                                if (store.submit(type, now)) {
+                                    types.add(type);
                                 }
-                            } else {
+                            }
+                            store.expire(now);
+                            if (!types.isEmpty()) {
                                 try {
-                                    return buffer;
+                                    resubmitter.resubmit(types);
                                 } finally {
-                                    buffer = Collections.emptyList();
+                                    for (Class<?> type : types) {
+                                        store.complete(type);
+                                    }
                                 }
                             }
+                        } catch (Throwable ignored) {
+                            // Avoid that an exception suppresses any subsequent execution of this job by the scheduler.
                         }
+                    }
 
-                        @Override
-                        public void remove() {
-                            throw new UnsupportedOperationException("remove");
-                        }
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) return true;
+                        if (other == null || getClass() != other.getClass()) return false;
+                        Job job = (Job) other;
+                        return instrumentation.equals(job.instrumentation)
+                                && resubmitter.equals(job.resubmitter)
+                                && store.equals(job.store);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        int result = instrumentation.hashCode();
+                        result = 31 * result + resubmitter.hashCode();
+                        result = 31 * result + store.hashCode();
+                        return result;
+                    }
 
-                        @Override
-                        public String toString() {
-                            return "AgentBuilder.RedefinitionStrategy.BatchAllocator.Slicing.SlicingIterable.SlicingIterator{" +
-                                    "minimum=" + minimum +
-                                    ", maximum=" + maximum +
-                                    ", iterator=" + iterator +
-                                    ", buffer=" + buffer +
-                                    '}';
-                        }
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job{" +
+                                "instrumentation=" + instrumentation +
+                                ", resubmitter=" + resubmitter +
+                                ", store=" + store +
+                                '}';
                     }
                 }
             }
@@ -4272,6 +10888,15 @@ public interface AgentBuilder {
                 }
             }
 
+            /**
+             * Includes all types that were collected by another collector after the types that were collected by this collector.
+             *
+             * @param collector The collector of which to include the collected types.
+             */
+            protected void include(Collector collector) {
+                types.addAll(collector.types);
+            }
+
             /**
              * Applies all types that this collector collected.
              *
@@ -5920,6 +12545,21 @@ public interface AgentBuilder {
          */
         protected final RedefinitionStrategy.Listener redefinitionListener;
 
+        /**
+         * The discovery strategy for loaded types to apply.
+         */
+        protected final RedefinitionStrategy.DiscoveryStrategy redefinitionDiscoveryStrategy;
+
+        /**
+         * The change detection for skipping redefinitions that would not alter a loaded type.
+         */
+        protected final RedefinitionStrategy.ChangeDetection redefinitionChangeDetection;
+
+        /**
+         * The resubmission strategy for types whose transformation failed.
+         */
+        protected final RedefinitionStrategy.ResubmissionStrategy redefinitionResubmissionStrategy;
+
         /**
          * The injection strategy for injecting classes into the bootstrap class loader.
          */
@@ -5946,6 +12586,26 @@ public interface AgentBuilder {
          */
         protected final FallbackStrategy fallbackStrategy;
 
+        /**
+         * The prefilter to apply to a type's internal name and class loader.
+         */
+        protected final Prefilter prefilter;
+
+        /**
+         * The metrics to notify about the duration of the phases of a transformation.
+         */
+        protected final Metrics metrics;
+
+        /**
+         * The transformation cache to consult before applying a transformation.
+         */
+        protected final TransformationCache transformationCache;
+
+        /**
+         * The deduplication strategy for identical transformations of types of different class loaders.
+         */
+        protected final DeduplicationStrategy deduplicationStrategy;
+
         /**
          * Identifies types that should not be instrumented.
          */
@@ -5983,11 +12643,18 @@ public interface AgentBuilder {
                     RedefinitionStrategy.DISABLED,
                     RedefinitionStrategy.BatchAllocator.ForTotal.INSTANCE,
                     RedefinitionStrategy.Listener.NoOp.INSTANCE,
+                    RedefinitionStrategy.DiscoveryStrategy.Sequential.INSTANCE,
+                    RedefinitionStrategy.ChangeDetection.Disabled.INSTANCE,
+                    RedefinitionStrategy.ResubmissionStrategy.Disabled.INSTANCE,
                     BootstrapInjectionStrategy.Disabled.INSTANCE,
                     LambdaInstrumentationStrategy.DISABLED,
                     DescriptionStrategy.Default.HYBRID,
                     InstallationStrategy.Default.ESCALATING,
                     FallbackStrategy.ByThrowableType.ofOptionalTypes(),
+                    Prefilter.NoOp.INSTANCE,
+                    Metrics.NoOp.INSTANCE,
+                    TransformationCache.NoOp.INSTANCE,
+                    DeduplicationStrategy.Disabled.INSTANCE,
                     new RawMatcher.Disjunction(new RawMatcher.ForElementMatchers(any(), isBootstrapClassLoader(), any()),
                             new RawMatcher.ForElementMatchers(nameStartsWith("net.bytebuddy.").or(nameStartsWith("sun.reflect.")).<TypeDescription>or(isSynthetic()), any(), any())),
                     Transformation.Ignored.INSTANCE);
@@ -5996,25 +12663,32 @@ public interface AgentBuilder {
         /**
          * Creates a new default agent builder.
          *
-         * @param byteBuddy                     The Byte Buddy instance to be used.
-         * @param listener                      The listener to notify on transformations.
-         * @param circularityLock               The circularity lock to use.
-         * @param poolStrategy                  The type locator to use.
-         * @param typeStrategy                  The definition handler to use.
-         * @param locationStrategy              The location strategy to use.
-         * @param nativeMethodStrategy          The native method strategy to apply.
-         * @param initializationStrategy        The initialization strategy to use for transformed types.
-         * @param redefinitionStrategy          The redefinition strategy to apply.
-         * @param redefinitionBatchAllocator    The batch allocator for the redefinition strategy to apply.
-         * @param redefinitionListener          The redefinition listener for the redefinition strategy to apply.
-         * @param bootstrapInjectionStrategy    The injection strategy for injecting classes into the bootstrap class loader.
-         * @param lambdaInstrumentationStrategy A strategy to determine of the {@code LambdaMetafactory} should be instrumented to allow for the
-         *                                      instrumentation of classes that represent lambda expressions.
-         * @param descriptionStrategy           The description strategy for resolving type descriptions for types.
-         * @param installationStrategy          The installation strategy to use.
-         * @param fallbackStrategy              The fallback strategy to apply.
-         * @param ignoredTypeMatcher            Identifies types that should not be instrumented.
-         * @param transformation                The transformation object for handling type transformations.
+         * @param byteBuddy                        The Byte Buddy instance to be used.
+         * @param listener                         The listener to notify on transformations.
+         * @param circularityLock                  The circularity lock to use.
+         * @param poolStrategy                     The type locator to use.
+         * @param typeStrategy                     The definition handler to use.
+         * @param locationStrategy                 The location strategy to use.
+         * @param nativeMethodStrategy             The native method strategy to apply.
+         * @param initializationStrategy           The initialization strategy to use for transformed types.
+         * @param redefinitionStrategy             The redefinition strategy to apply.
+         * @param redefinitionBatchAllocator       The batch allocator for the redefinition strategy to apply.
+         * @param redefinitionListener             The redefinition listener for the redefinition strategy to apply.
+         * @param redefinitionDiscoveryStrategy    The discovery strategy for loaded types to apply.
+         * @param redefinitionChangeDetection      The change detection for skipping redefinitions that would not alter a loaded type.
+         * @param redefinitionResubmissionStrategy The resubmission strategy for types whose transformation failed.
+         * @param bootstrapInjectionStrategy       The injection strategy for injecting classes into the bootstrap class loader.
+         * @param lambdaInstrumentationStrategy    A strategy to determine of the {@code LambdaMetafactory} should be instrumented to allow for the
+         *                                         instrumentation of classes that represent lambda expressions.
+         * @param descriptionStrategy              The description strategy for resolving type descriptions for types.
+         * @param installationStrategy             The installation strategy to use.
+         * @param fallbackStrategy                 The fallback strategy to apply.
+         * @param prefilter                        The prefilter to apply to a type's internal name and class loader.
+         * @param metrics                          The metrics to notify about the duration of the phases of a transformation.
+         * @param transformationCache              The transformation cache to consult before applying a transformation.
+         * @param deduplicationStrategy            The deduplication strategy for identical transformations of types of different class loaders.
+         * @param ignoredTypeMatcher               Identifies types that should not be instrumented.
+         * @param transformation                   The transformation object for handling type transformations.
          */
         protected Default(ByteBuddy byteBuddy,
                           Listener listener,
@@ -6027,11 +12701,18 @@ public interface AgentBuilder {
                           RedefinitionStrategy redefinitionStrategy,
                           RedefinitionStrategy.BatchAllocator redefinitionBatchAllocator,
                           RedefinitionStrategy.Listener redefinitionListener,
+                          RedefinitionStrategy.DiscoveryStrategy redefinitionDiscoveryStrategy,
+                          RedefinitionStrategy.ChangeDetection redefinitionChangeDetection,
+                          RedefinitionStrategy.ResubmissionStrategy redefinitionResubmissionStrategy,
                           BootstrapInjectionStrategy bootstrapInjectionStrategy,
                           LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                           DescriptionStrategy descriptionStrategy,
                           InstallationStrategy installationStrategy,
                           FallbackStrategy fallbackStrategy,
+                          Prefilter prefilter,
+                          Metrics metrics,
+                          TransformationCache transformationCache,
+                          DeduplicationStrategy deduplicationStrategy,
                           RawMatcher ignoredTypeMatcher,
                           Transformation transformation) {
             this.byteBuddy = byteBuddy;
@@ -6045,11 +12726,18 @@ public interface AgentBuilder {
             this.redefinitionStrategy = redefinitionStrategy;
             this.redefinitionBatchAllocator = redefinitionBatchAllocator;
             this.redefinitionListener = redefinitionListener;
+            this.redefinitionDiscoveryStrategy = redefinitionDiscoveryStrategy;
+            this.redefinitionChangeDetection = redefinitionChangeDetection;
+            this.redefinitionResubmissionStrategy = redefinitionResubmissionStrategy;
             this.bootstrapInjectionStrategy = bootstrapInjectionStrategy;
             this.lambdaInstrumentationStrategy = lambdaInstrumentationStrategy;
             this.descriptionStrategy = descriptionStrategy;
             this.installationStrategy = installationStrategy;
             this.fallbackStrategy = fallbackStrategy;
+            this.prefilter = prefilter;
+            this.metrics = metrics;
+            this.transformationCache = transformationCache;
+            this.deduplicationStrategy = deduplicationStrategy;
             this.ignoredTypeMatcher = ignoredTypeMatcher;
             this.transformation = transformation;
         }
@@ -6113,11 +12801,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6135,11 +12830,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6157,11 +12859,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6179,11 +12888,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6195,17 +12911,26 @@ public interface AgentBuilder {
                     circularityLock,
                     poolStrategy,
                     typeStrategy,
-                    locationStrategy,
+                    poolStrategy instanceof PoolStrategy.WithTypePoolCache.Weak && locationStrategy == LocationStrategy.ForClassLoader.STRONG
+                            ? LocationStrategy.ForClassLoader.WEAK
+                            : locationStrategy,
                     nativeMethodStrategy,
                     initializationStrategy,
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6223,11 +12948,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6245,11 +12977,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6267,11 +13006,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6289,11 +13035,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6311,11 +13064,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6333,11 +13093,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6355,11 +13122,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6377,11 +13151,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6399,11 +13180,134 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
+                    bootstrapInjectionStrategy,
+                    lambdaInstrumentationStrategy,
+                    descriptionStrategy,
+                    installationStrategy,
+                    fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
+                    ignoredTypeMatcher,
+                    transformation);
+        }
+
+        @Override
+        public AgentBuilder withPrefilter(Prefilter prefilter) {
+            return new Default(byteBuddy,
+                    listener,
+                    circularityLock,
+                    poolStrategy,
+                    typeStrategy,
+                    locationStrategy,
+                    nativeMethodStrategy,
+                    initializationStrategy,
+                    redefinitionStrategy,
+                    redefinitionBatchAllocator,
+                    redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
+                    bootstrapInjectionStrategy,
+                    lambdaInstrumentationStrategy,
+                    descriptionStrategy,
+                    installationStrategy,
+                    fallbackStrategy,
+                    new Prefilter.Compound(this.prefilter, prefilter),
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
+                    ignoredTypeMatcher,
+                    transformation);
+        }
+
+        @Override
+        public AgentBuilder with(Metrics metrics) {
+            return new Default(byteBuddy,
+                    listener,
+                    circularityLock,
+                    poolStrategy,
+                    typeStrategy,
+                    locationStrategy,
+                    nativeMethodStrategy,
+                    initializationStrategy,
+                    redefinitionStrategy,
+                    redefinitionBatchAllocator,
+                    redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
+                    bootstrapInjectionStrategy,
+                    lambdaInstrumentationStrategy,
+                    descriptionStrategy,
+                    installationStrategy,
+                    fallbackStrategy,
+                    prefilter,
+                    new Metrics.Compound(this.metrics, metrics),
+                    transformationCache,
+                    deduplicationStrategy,
+                    ignoredTypeMatcher,
+                    transformation);
+        }
+
+        @Override
+        public AgentBuilder withTransformationCache(TransformationCache transformationCache) {
+            return new Default(byteBuddy,
+                    listener,
+                    circularityLock,
+                    poolStrategy,
+                    typeStrategy,
+                    locationStrategy,
+                    nativeMethodStrategy,
+                    initializationStrategy,
+                    redefinitionStrategy,
+                    redefinitionBatchAllocator,
+                    redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
+                    bootstrapInjectionStrategy,
+                    lambdaInstrumentationStrategy,
+                    descriptionStrategy,
+                    installationStrategy,
+                    fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
+                    ignoredTypeMatcher,
+                    transformation);
+        }
+
+        @Override
+        public AgentBuilder with(DeduplicationStrategy deduplicationStrategy) {
+            return new Default(byteBuddy,
+                    listener,
+                    circularityLock,
+                    poolStrategy,
+                    typeStrategy,
+                    locationStrategy,
+                    nativeMethodStrategy,
+                    initializationStrategy,
+                    redefinitionStrategy,
+                    redefinitionBatchAllocator,
+                    redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6421,11 +13325,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     new BootstrapInjectionStrategy.Enabled(folder, instrumentation),
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6443,11 +13354,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     BootstrapInjectionStrategy.Disabled.INSTANCE,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6465,11 +13383,18 @@ public interface AgentBuilder {
                     redefinitionStrategy,
                     redefinitionBatchAllocator,
                     redefinitionListener,
+                    redefinitionDiscoveryStrategy,
+                    redefinitionChangeDetection,
+                    redefinitionResubmissionStrategy,
                     bootstrapInjectionStrategy,
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     installationStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
                     ignoredTypeMatcher,
                     transformation);
         }
@@ -6554,6 +13479,20 @@ public interface AgentBuilder {
 
         @Override
         public ResettableClassFileTransformer makeRaw() {
+            return makeRaw(listener, redefinitionChangeDetection.make(), RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE);
+        }
+
+        /**
+         * Creates a class file transformer that notifies the supplied listener.
+         *
+         * @param listener                The listener to notify on transformations.
+         * @param changeDetectionRegistry The registry to record emitted class files in for detecting unchanged types.
+         * @param resubmission            The cancelable of the resubmission job that is canceled upon a reset.
+         * @return A class file transformer for this agent builder's configuration.
+         */
+        private ResettableClassFileTransformer makeRaw(Listener listener,
+                                                       RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry,
+                                                       RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission) {
             return ExecutingTransformer.FACTORY.make(byteBuddy,
                     listener,
                     poolStrategy,
@@ -6565,8 +13504,14 @@ public interface AgentBuilder {
                     lambdaInstrumentationStrategy,
                     descriptionStrategy,
                     fallbackStrategy,
+                    prefilter,
+                    metrics,
+                    transformationCache,
+                    deduplicationStrategy,
+                    changeDetectionRegistry,
+                    resubmission,
                     ignoredTypeMatcher,
-                    transformation,
+                    Transformation.Indexed.of(transformation),
                     circularityLock);
         }
 
@@ -6576,58 +13521,37 @@ public interface AgentBuilder {
                 throw new IllegalStateException("Could not acquire the circularity lock upon installation.");
             }
             try {
-                ResettableClassFileTransformer classFileTransformer = makeRaw();
-                instrumentation.addTransformer(classFileTransformer, redefinitionStrategy.isRetransforming(instrumentation));
+                RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry = redefinitionChangeDetection.make();
+                RedefinitionStrategy.ResubmissionStrategy.Installation installation = redefinitionResubmissionStrategy.apply(instrumentation,
+                        listener,
+                        new LoadedTypeResubmitter(instrumentation, changeDetectionRegistry));
+                boolean installed = false;
                 try {
-                    if (nativeMethodStrategy.isEnabled(instrumentation)) {
-                        instrumentation.setNativeMethodPrefix(classFileTransformer, nativeMethodStrategy.getPrefix());
-                    }
-                    lambdaInstrumentationStrategy.apply(byteBuddy, instrumentation, classFileTransformer);
-                    if (redefinitionStrategy.isEnabled()) {
-                        RedefinitionStrategy.Collector collector = redefinitionStrategy.make(transformation);
-                        for (Class<?> type : instrumentation.getAllLoadedClasses()) {
-                            if (!lambdaInstrumentationStrategy.isInstrumented(type)) {
-                                continue;
-                            }
-                            JavaModule module = JavaModule.ofType(type);
-                            try {
-                                TypePool typePool = poolStrategy.typePool(locationStrategy.classFileLocator(type.getClassLoader(), module), type.getClassLoader());
-                                try {
-                                    collector.consider(ignoredTypeMatcher,
-                                            listener,
-                                            descriptionStrategy.apply(TypeDescription.ForLoadedType.getName(type), type, typePool),
-                                            type,
-                                            type,
-                                            module,
-                                            !instrumentation.isModifiableClass(type));
-                                } catch (Throwable throwable) {
-                                    if (descriptionStrategy.isLoadedFirst() && fallbackStrategy.isFallback(type, throwable)) {
-                                        collector.consider(ignoredTypeMatcher,
-                                                listener,
-                                                typePool.describe(TypeDescription.ForLoadedType.getName(type)).resolve(),
-                                                type,
-                                                module);
-                                    } else {
-                                        throw throwable;
-                                    }
-                                }
-                            } catch (Throwable throwable) {
-                                try {
-                                    try {
-                                        listener.onError(TypeDescription.ForLoadedType.getName(type), type.getClassLoader(), module, throwable);
-                                    } finally {
-                                        listener.onComplete(TypeDescription.ForLoadedType.getName(type), type.getClassLoader(), module);
-                                    }
-                                } catch (Throwable ignored) {
-                                    // Ignore exceptions that are thrown by listeners to mimic the behavior of a transformation.
-                                }
+                    ResettableClassFileTransformer classFileTransformer = makeRaw(installation.getListener(), changeDetectionRegistry, installation.getCancelable());
+                    instrumentation.addTransformer(classFileTransformer, redefinitionStrategy.isRetransforming(instrumentation));
+                    try {
+                        if (nativeMethodStrategy.isEnabled(instrumentation)) {
+                            instrumentation.setNativeMethodPrefix(classFileTransformer, nativeMethodStrategy.getPrefix());
+                        }
+                        lambdaInstrumentationStrategy.apply(byteBuddy, instrumentation, classFileTransformer);
+                        if (redefinitionStrategy.isEnabled()) {
+                            Iterator<RedefinitionStrategy.Collector> collectors = redefinitionDiscoveryStrategy.discover(Arrays.<Class<?>>asList(instrumentation.getAllLoadedClasses()),
+                                    new LoadedTypeDiscovery(instrumentation, Transformation.Indexed.of(transformation), changeDetectionRegistry)).iterator();
+                            RedefinitionStrategy.Collector collector = collectors.next();
+                            while (collectors.hasNext()) {
+                                collector.include(collectors.next());
                             }
+                            collector.apply(instrumentation, circularityLock, locationStrategy, listener, redefinitionBatchAllocator, redefinitionListener);
                         }
-                        collector.apply(instrumentation, circularityLock, locationStrategy, listener, redefinitionBatchAllocator, redefinitionListener);
+                    } catch (Throwable throwable) {
+                        classFileTransformer = installationStrategy.onError(instrumentation, classFileTransformer, throwable);
                     }
+                    installed = true;
                     return classFileTransformer;
-                } catch (Throwable throwable) {
-                    return installationStrategy.onError(instrumentation, classFileTransformer, throwable);
+                } finally {
+                    if (!installed) {
+                        installation.getCancelable().cancel();
+                    }
                 }
             } finally {
                 circularityLock.release();
@@ -6668,11 +13592,18 @@ public interface AgentBuilder {
                     && redefinitionStrategy == aDefault.redefinitionStrategy
                     && redefinitionBatchAllocator.equals(aDefault.redefinitionBatchAllocator)
                     && redefinitionListener.equals(aDefault.redefinitionListener)
+                    && redefinitionDiscoveryStrategy.equals(aDefault.redefinitionDiscoveryStrategy)
+                    && redefinitionChangeDetection.equals(aDefault.redefinitionChangeDetection)
+                    && redefinitionResubmissionStrategy.equals(aDefault.redefinitionResubmissionStrategy)
                     && bootstrapInjectionStrategy.equals(aDefault.bootstrapInjectionStrategy)
                     && lambdaInstrumentationStrategy.equals(aDefault.lambdaInstrumentationStrategy)
                     && descriptionStrategy.equals(aDefault.descriptionStrategy)
                     && installationStrategy.equals(aDefault.installationStrategy)
                     && fallbackStrategy.equals(aDefault.fallbackStrategy)
+                    && prefilter.equals(aDefault.prefilter)
+                    && metrics.equals(aDefault.metrics)
+                    && transformationCache.equals(aDefault.transformationCache)
+                    && deduplicationStrategy.equals(aDefault.deduplicationStrategy)
                     && ignoredTypeMatcher.equals(aDefault.ignoredTypeMatcher)
                     && transformation.equals(aDefault.transformation);
         }
@@ -6690,11 +13621,18 @@ public interface AgentBuilder {
             result = 31 * result + redefinitionStrategy.hashCode();
             result = 31 * result + redefinitionBatchAllocator.hashCode();
             result = 31 * result + redefinitionListener.hashCode();
+            result = 31 * result + redefinitionDiscoveryStrategy.hashCode();
+            result = 31 * result + redefinitionChangeDetection.hashCode();
+            result = 31 * result + redefinitionResubmissionStrategy.hashCode();
             result = 31 * result + bootstrapInjectionStrategy.hashCode();
             result = 31 * result + lambdaInstrumentationStrategy.hashCode();
             result = 31 * result + descriptionStrategy.hashCode();
             result = 31 * result + installationStrategy.hashCode();
             result = 31 * result + fallbackStrategy.hashCode();
+            result = 31 * result + prefilter.hashCode();
+            result = 31 * result + metrics.hashCode();
+            result = 31 * result + transformationCache.hashCode();
+            result = 31 * result + deduplicationStrategy.hashCode();
             result = 31 * result + ignoredTypeMatcher.hashCode();
             result = 31 * result + transformation.hashCode();
             return result;
@@ -6714,11 +13652,18 @@ public interface AgentBuilder {
                     ", redefinitionStrategy=" + redefinitionStrategy +
                     ", redefinitionBatchAllocator=" + redefinitionBatchAllocator +
                     ", redefinitionListener=" + redefinitionListener +
+                    ", redefinitionDiscoveryStrategy=" + redefinitionDiscoveryStrategy +
+                    ", redefinitionChangeDetection=" + redefinitionChangeDetection +
+                    ", redefinitionResubmissionStrategy=" + redefinitionResubmissionStrategy +
                     ", bootstrapInjectionStrategy=" + bootstrapInjectionStrategy +
                     ", lambdaInstrumentationStrategy=" + lambdaInstrumentationStrategy +
                     ", descriptionStrategy=" + descriptionStrategy +
                     ", installationStrategy=" + installationStrategy +
                     ", fallbackStrategy=" + fallbackStrategy +
+                    ", prefilter=" + prefilter +
+                    ", metrics=" + metrics +
+                    ", transformationCache=" + transformationCache +
+                    ", deduplicationStrategy=" + deduplicationStrategy +
                     ", ignoredTypeMatcher=" + ignoredTypeMatcher +
                     ", transformation=" + transformation +
                     '}';
@@ -7006,6 +13951,9 @@ public interface AgentBuilder {
                  * @param bootstrapInjectionStrategy The bootstrap injection strategy to be used.
                  * @param accessControlContext       The access control context to be used.
                  * @param listener                   The listener to be invoked to inform about an applied or non-applied transformation.
+                 * @param metrics                    The metrics to notify about the duration of the phases of a transformation.
+                 * @param entry                      The transformation cache entry in which a self-contained result of this resolution is stored.
+                 * @param deduplicator               The deduplicator for identical transformations of types of different class loaders.
                  * @return The class file of the transformed class or {@code null} if no transformation is attempted.
                  */
                 byte[] apply(InitializationStrategy initializationStrategy,
@@ -7015,7 +13963,10 @@ public interface AgentBuilder {
                              NativeMethodStrategy methodNameTransformer,
                              BootstrapInjectionStrategy bootstrapInjectionStrategy,
                              AccessControlContext accessControlContext,
-                             Listener listener);
+                             Listener listener,
+                             Metrics metrics,
+                             TransformationCache.Entry entry,
+                             DeduplicationStrategy.Deduplicator deduplicator);
 
                 /**
                  * Describes a specific sort of a {@link Resolution}.
@@ -7052,81 +14003,219 @@ public interface AgentBuilder {
                         this.alive = alive;
                     }
 
-                    /**
-                     * Returns {@code true} if this resolution is alive.
-                     *
-                     * @return {@code true} if this resolution is alive.
-                     */
-                    protected boolean isAlive() {
-                        return alive;
+                    /**
+                     * Returns {@code true} if this resolution is alive.
+                     *
+                     * @return {@code true} if this resolution is alive.
+                     */
+                    protected boolean isAlive() {
+                        return alive;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Default.Transformation.Resolution.Sort." + name();
+                    }
+                }
+
+                /**
+                 * A resolution that can be decorated by a transformer.
+                 */
+                interface Decoratable extends Resolution {
+
+                    /**
+                     * Appends the supplied transformer to this resolution.
+                     *
+                     * @param transformer The transformer to append to the transformer that is represented bz this instance.
+                     * @return A new resolution with the supplied transformer appended to this transformer.
+                     */
+                    Resolution append(Transformer transformer);
+                }
+
+                /**
+                 * A canonical implementation of a non-resolved resolution.
+                 */
+                class Unresolved implements Resolution {
+
+                    /**
+                     * The type that is not transformed.
+                     */
+                    private final TypeDescription typeDescription;
+
+                    /**
+                     * The unresolved type's class loader.
+                     */
+                    private final ClassLoader classLoader;
+
+                    /**
+                     * The non-transformed type's module or {@code null} if the current VM does not support modules.
+                     */
+                    private final JavaModule module;
+
+                    /**
+                     * {@code true} if the absence of a transformation should be recorded in the transformation cache.
+                     */
+                    private final boolean recorded;
+
+                    /**
+                     * Creates a new unresolved resolution for a type that is not matched by any transformation and that is recorded
+                     * in the transformation cache.
+                     *
+                     * @param typeDescription The type that is not transformed.
+                     * @param classLoader     The unresolved type's class loader.
+                     * @param module          The non-transformed type's module or {@code null} if the current VM does not support modules.
+                     */
+                    protected Unresolved(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
+                        this(typeDescription, classLoader, module, true);
+                    }
+
+                    /**
+                     * Creates a new unresolved resolution.
+                     *
+                     * @param typeDescription The type that is not transformed.
+                     * @param classLoader     The unresolved type's class loader.
+                     * @param module          The non-transformed type's module or {@code null} if the current VM does not support modules.
+                     * @param recorded        {@code true} if the absence of a transformation should be recorded in the transformation cache.
+                     */
+                    protected Unresolved(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, boolean recorded) {
+                        this.typeDescription = typeDescription;
+                        this.classLoader = classLoader;
+                        this.module = module;
+                        this.recorded = recorded;
+                    }
+
+                    @Override
+                    public Sort getSort() {
+                        return Sort.UNDEFINED;
+                    }
+
+                    @Override
+                    public Resolution asDecoratorOf(Resolution resolution) {
+                        return resolution;
+                    }
+
+                    @Override
+                    public Resolution prepend(Decoratable resolution) {
+                        return resolution;
+                    }
+
+                    @Override
+                    public byte[] apply(InitializationStrategy initializationStrategy,
+                                        ClassFileLocator classFileLocator,
+                                        TypeStrategy typeStrategy,
+                                        ByteBuddy byteBuddy,
+                                        NativeMethodStrategy methodNameTransformer,
+                                        BootstrapInjectionStrategy bootstrapInjectionStrategy,
+                                        AccessControlContext accessControlContext,
+                                        Listener listener,
+                                        Metrics metrics,
+                                        TransformationCache.Entry entry,
+                                        DeduplicationStrategy.Deduplicator deduplicator) {
+                        listener.onIgnored(typeDescription, classLoader, module);
+                        if (recorded) {
+                            entry.store(NO_TRANSFORMATION);
+                        }
+                        return NO_TRANSFORMATION;
+                    }
+
+                    @Override
+                    public boolean equals(Object object) {
+                        if (this == object) return true;
+                        if (object == null || getClass() != object.getClass()) return false;
+                        Unresolved that = (Unresolved) object;
+                        return recorded == that.recorded
+                                && typeDescription.equals(that.typeDescription)
+                                && (classLoader != null ? classLoader.equals(that.classLoader) : that.classLoader == null)
+                                && (module != null ? module.equals(that.module) : that.module == null);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        int result = typeDescription.hashCode();
+                        result = 31 * result + (classLoader != null ? classLoader.hashCode() : 0);
+                        result = 31 * result + (module != null ? module.hashCode() : 0);
+                        result = 31 * result + (recorded ? 1 : 0);
+                        return result;
                     }
 
                     @Override
                     public String toString() {
-                        return "AgentBuilder.Default.Transformation.Resolution.Sort." + name();
+                        return "AgentBuilder.Default.Transformation.Resolution.Unresolved{" +
+                                "typeDescription=" + typeDescription +
+                                ", classLoader=" + classLoader +
+                                ", module=" + module +
+                                ", recorded=" + recorded +
+                                '}';
                     }
                 }
 
                 /**
-                 * A resolution that can be decorated by a transformer.
+                 * A resolution that applies a class file that was previously produced by an identical transformation, for example
+                 * a class file that was retained by a {@link TransformationCache}. As only self-contained transformations are retained,
+                 * the applied class file is represented as a dynamic type without auxiliary types and without a live initializer when
+                 * the agent's listener and initialization strategy are notified.
                  */
-                interface Decoratable extends Resolution {
+                class Cached implements Resolution {
 
                     /**
-                     * Appends the supplied transformer to this resolution.
-                     *
-                     * @param transformer The transformer to append to the transformer that is represented bz this instance.
-                     * @return A new resolution with the supplied transformer appended to this transformer.
+                     * The type that is transformed.
                      */
-                    Resolution append(Transformer transformer);
-                }
+                    private final TypeDescription typeDescription;
 
-                /**
-                 * A canonical implementation of a non-resolved resolution.
-                 */
-                class Unresolved implements Resolution {
+                    /**
+                     * The transformed type's class loader.
+                     */
+                    private final ClassLoader classLoader;
 
                     /**
-                     * The type that is not transformed.
+                     * The transformed type's module or {@code null} if the current VM does not support modules.
                      */
-                    private final TypeDescription typeDescription;
+                    private final JavaModule module;
 
                     /**
-                     * The unresolved type's class loader.
+                     * The transformed type's protection domain.
                      */
-                    private final ClassLoader classLoader;
+                    private final ProtectionDomain protectionDomain;
 
                     /**
-                     * The non-transformed type's module or {@code null} if the current VM does not support modules.
+                     * The previously produced class file or {@code null} if the type was previously not transformed.
                      */
-                    private final JavaModule module;
+                    private final byte[] binaryRepresentation;
 
                     /**
-                     * Creates a new unresolved resolution.
+                     * Creates a new cached resolution.
                      *
-                     * @param typeDescription The type that is not transformed.
-                     * @param classLoader     The unresolved type's class loader.
-                     * @param module          The non-transformed type's module or {@code null} if the current VM does not support modules.
+                     * @param typeDescription      The type that is transformed.
+                     * @param classLoader          The transformed type's class loader.
+                     * @param module               The transformed type's module or {@code null} if the current VM does not support modules.
+                     * @param protectionDomain     The transformed type's protection domain.
+                     * @param binaryRepresentation The previously produced class file or {@code null} if the type was previously not transformed.
                      */
-                    protected Unresolved(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module) {
+                    protected Cached(TypeDescription typeDescription,
+                                     ClassLoader classLoader,
+                                     JavaModule module,
+                                     ProtectionDomain protectionDomain,
+                                     byte[] binaryRepresentation) {
                         this.typeDescription = typeDescription;
                         this.classLoader = classLoader;
                         this.module = module;
+                        this.protectionDomain = protectionDomain;
+                        this.binaryRepresentation = binaryRepresentation;
                     }
 
                     @Override
                     public Sort getSort() {
-                        return Sort.UNDEFINED;
+                        return Sort.TERMINAL;
                     }
 
                     @Override
                     public Resolution asDecoratorOf(Resolution resolution) {
-                        return resolution;
+                        return this;
                     }
 
                     @Override
                     public Resolution prepend(Decoratable resolution) {
-                        return resolution;
+                        return this;
                     }
 
                     @Override
@@ -7137,19 +14226,36 @@ public interface AgentBuilder {
                                         NativeMethodStrategy methodNameTransformer,
                                         BootstrapInjectionStrategy bootstrapInjectionStrategy,
                                         AccessControlContext accessControlContext,
-                                        Listener listener) {
-                        listener.onIgnored(typeDescription, classLoader, module);
-                        return NO_TRANSFORMATION;
+                                        Listener listener,
+                                        Metrics metrics,
+                                        TransformationCache.Entry entry,
+                                        DeduplicationStrategy.Deduplicator deduplicator) {
+                        if (binaryRepresentation == NO_TRANSFORMATION) {
+                            listener.onIgnored(typeDescription, classLoader, module);
+                        } else {
+                            DynamicType dynamicType = new DynamicType.Default(typeDescription,
+                                    binaryRepresentation,
+                                    LoadedTypeInitializer.NoOp.INSTANCE,
+                                    Collections.<DynamicType>emptyList());
+                            initializationStrategy.dispatcher().register(dynamicType, classLoader, new Simple.Resolution.BootstrapClassLoaderCapableInjectorFactory(bootstrapInjectionStrategy,
+                                    classLoader,
+                                    protectionDomain));
+                            listener.onTransformation(typeDescription, classLoader, module, dynamicType);
+                        }
+                        entry.store(binaryRepresentation);
+                        return binaryRepresentation;
                     }
 
                     @Override
                     public boolean equals(Object object) {
                         if (this == object) return true;
                         if (object == null || getClass() != object.getClass()) return false;
-                        Unresolved that = (Unresolved) object;
-                        return typeDescription.equals(that.typeDescription)
-                                && (classLoader != null ? classLoader.equals(that.classLoader) : that.classLoader == null)
-                                && (module != null ? module.equals(that.module) : that.module == null);
+                        Cached cached = (Cached) object;
+                        return typeDescription.equals(cached.typeDescription)
+                                && (classLoader != null ? classLoader.equals(cached.classLoader) : cached.classLoader == null)
+                                && (module != null ? module.equals(cached.module) : cached.module == null)
+                                && (protectionDomain != null ? protectionDomain.equals(cached.protectionDomain) : cached.protectionDomain == null)
+                                && Arrays.equals(binaryRepresentation, cached.binaryRepresentation);
                     }
 
                     @Override
@@ -7157,15 +14263,19 @@ public interface AgentBuilder {
                         int result = typeDescription.hashCode();
                         result = 31 * result + (classLoader != null ? classLoader.hashCode() : 0);
                         result = 31 * result + (module != null ? module.hashCode() : 0);
+                        result = 31 * result + (protectionDomain != null ? protectionDomain.hashCode() : 0);
+                        result = 31 * result + Arrays.hashCode(binaryRepresentation);
                         return result;
                     }
 
                     @Override
                     public String toString() {
-                        return "AgentBuilder.Default.Transformation.Resolution.Unresolved{" +
+                        return "AgentBuilder.Default.Transformation.Resolution.Cached{" +
                                 "typeDescription=" + typeDescription +
                                 ", classLoader=" + classLoader +
                                 ", module=" + module +
+                                ", protectionDomain=" + protectionDomain +
+                                ", binaryRepresentation=<" + (binaryRepresentation == null ? "none" : binaryRepresentation.length + " bytes") + ">" +
                                 '}';
                     }
                 }
@@ -7388,17 +14498,61 @@ public interface AgentBuilder {
                                         NativeMethodStrategy methodNameTransformer,
                                         BootstrapInjectionStrategy bootstrapInjectionStrategy,
                                         AccessControlContext accessControlContext,
-                                        Listener listener) {
+                                        Listener listener,
+                                        Metrics metrics,
+                                        TransformationCache.Entry entry,
+                                        DeduplicationStrategy.Deduplicator deduplicator) {
+                        TransformationCache.Entry duplicate = deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator);
+                        if (duplicate.isCached()) {
+                            return new Transformation.Resolution.Cached(typeDescription,
+                                    classLoader,
+                                    module,
+                                    protectionDomain,
+                                    duplicate.getBinaryRepresentation()).apply(initializationStrategy,
+                                    classFileLocator,
+                                    typeStrategy,
+                                    byteBuddy,
+                                    methodNameTransformer,
+                                    bootstrapInjectionStrategy,
+                                    accessControlContext,
+                                    listener,
+                                    metrics,
+                                    entry,
+                                    deduplicator);
+                        }
                         InitializationStrategy.Dispatcher dispatcher = initializationStrategy.dispatcher();
-                        DynamicType.Unloaded<?> dynamicType = dispatcher.apply(transformer.transform(typeStrategy.builder(typeDescription,
-                                byteBuddy,
-                                classFileLocator,
-                                methodNameTransformer.resolve()), typeDescription, classLoader)).make(TypeResolutionStrategy.Disabled.INSTANCE, typePool);
+                        boolean timed = metrics.isEnabled();
+                        long start = timed ? System.nanoTime() : 0L;
+                        DynamicType.Builder<?> builder;
+                        try {
+                            builder = dispatcher.apply(transformer.transform(typeStrategy.builder(typeDescription,
+                                    byteBuddy,
+                                    classFileLocator,
+                                    methodNameTransformer.resolve()), typeDescription, classLoader));
+                        } finally {
+                            if (timed) {
+                                metrics.onPhase(typeDescription.getName(), Metrics.Phase.BUILD, System.nanoTime() - start);
+                            }
+                        }
+                        start = timed ? System.nanoTime() : 0L;
+                        DynamicType.Unloaded<?> dynamicType;
+                        try {
+                            dynamicType = builder.make(TypeResolutionStrategy.Disabled.INSTANCE, typePool);
+                        } finally {
+                            if (timed) {
+                                metrics.onPhase(typeDescription.getName(), Metrics.Phase.MAKE, System.nanoTime() - start);
+                            }
+                        }
                         dispatcher.register(dynamicType, classLoader, new BootstrapClassLoaderCapableInjectorFactory(bootstrapInjectionStrategy,
                                 classLoader,
                                 protectionDomain));
                         listener.onTransformation(typeDescription, classLoader, module, dynamicType);
-                        return dynamicType.getBytes();
+                        byte[] binaryRepresentation = dynamicType.getBytes();
+                        if (dynamicType.getAuxiliaryTypes().isEmpty() && !dynamicType.hasAliveLoadedTypeInitializers()) {
+                            entry.store(binaryRepresentation);
+                            duplicate.store(binaryRepresentation);
+                        }
+                        return binaryRepresentation;
                     }
 
                     @Override
@@ -7602,6 +14756,404 @@ public interface AgentBuilder {
                             '}';
                 }
             }
+
+            /**
+             * <p>
+             * A transformation that indexes the {@link Simple} transformations of another transformation by the {@link IndexKey}s that
+             * their type matchers require. When resolving a type, only transformations that are indexed by any of the type's keys or that
+             * are not indexed are consulted. Any other transformation cannot match the type and is treated as unresolved without applying
+             * its matcher. The resolution of all consulted transformations is combined exactly as by a {@link Compound} transformation.
+             * </p>
+             * <p>
+             * A type's names and annotations are resolved up front. A type's super types are only resolved once a transformation that is
+             * indexed by a super type is consulted and is not already a candidate by another key. A transformation set that is only indexed
+             * by names or annotations therefore never resolves a type's hierarchy, and a terminal transformation that matches first avoids
+             * resolving the hierarchy for any later transformation.
+             * </p>
+             * <p>
+             * If a type's keys cannot be resolved, for example because a super type cannot be described, all transformations are consulted
+             * such that any error is raised by the transformation's matchers as without an index.
+             * </p>
+             */
+            class Indexed implements Transformation {
+
+                /**
+                 * The indexed transformation.
+                 */
+                private final Transformation transformation;
+
+                /**
+                 * The positions of all simple transformations of the indexed transformation, identified by their identity.
+                 */
+                private final Map<Transformation, Integer> positions;
+
+                /**
+                 * The positions of all simple transformations that are not indexed.
+                 */
+                private final BitSet unindexed;
+
+                /**
+                 * A mapping of index keys to the positions of all simple transformations that require any of these keys.
+                 */
+                private final Map<IndexKey, BitSet> index;
+
+                /**
+                 * The sorts of all keys that are contained in the index and that do not require resolving a type's super types.
+                 */
+                private final Set<IndexKey.Sort> sorts;
+
+                /**
+                 * The positions of all simple transformations that are indexed by any of a type's super types.
+                 */
+                private final BitSet hierarchical;
+
+                /**
+                 * Creates a new indexed transformation.
+                 *
+                 * @param transformation The indexed transformation.
+                 * @param positions      The positions of all simple transformations of the indexed transformation, identified by their identity.
+                 * @param unindexed      The positions of all simple transformations that are not indexed.
+                 * @param index          A mapping of index keys to the positions of all simple transformations that require any of these keys.
+                 * @param sorts          The sorts of all keys that are contained in the index and that do not require resolving a type's super types.
+                 * @param hierarchical   The positions of all simple transformations that are indexed by any of a type's super types.
+                 */
+                protected Indexed(Transformation transformation,
+                                  Map<Transformation, Integer> positions,
+                                  BitSet unindexed,
+                                  Map<IndexKey, BitSet> index,
+                                  Set<IndexKey.Sort> sorts,
+                                  BitSet hierarchical) {
+                    this.transformation = transformation;
+                    this.positions = positions;
+                    this.unindexed = unindexed;
+                    this.index = index;
+                    this.sorts = sorts;
+                    this.hierarchical = hierarchical;
+                }
+
+                /**
+                 * Indexes the simple transformations of a transformation.
+                 *
+                 * @param transformation The transformation to index.
+                 * @return An indexed transformation or the supplied transformation if none of its transformations can be indexed.
+                 */
+                protected static Transformation of(Transformation transformation) {
+                    List<Simple> simpleTransformations = new ArrayList<Simple>();
+                    collect(transformation, simpleTransformations);
+                    Map<Transformation, Integer> positions = new IdentityHashMap<Transformation, Integer>();
+                    BitSet unindexed = new BitSet();
+                    Map<IndexKey, BitSet> index = new HashMap<IndexKey, BitSet>();
+                    Set<IndexKey.Sort> sorts = EnumSet.noneOf(IndexKey.Sort.class);
+                    BitSet hierarchical = new BitSet();
+                    for (Simple simpleTransformation : simpleTransformations) {
+                        int position = positions.size();
+                        if (positions.put(simpleTransformation, position) != null) {
+                            continue;
+                        }
+                        Set<IndexKey> keys = keys(simpleTransformation.rawMatcher);
+                        if (keys == null) {
+                            unindexed.set(position);
+                        } else {
+                            for (IndexKey key : keys) {
+                                BitSet candidates = index.get(key);
+                                if (candidates == null) {
+                                    candidates = new BitSet();
+                                    index.put(key, candidates);
+                                }
+                                candidates.set(position);
+                                if (key.getSort() == IndexKey.Sort.SUPER_TYPE) {
+                                    hierarchical.set(position);
+                                } else {
+                                    sorts.add(key.getSort());
+                                }
+                            }
+                        }
+                    }
+                    return index.isEmpty()
+                            ? transformation
+                            : new Indexed(transformation, positions, unindexed, index, sorts, hierarchical);
+                }
+
+                /**
+                 * Collects all simple transformations of a transformation in their application order.
+                 *
+                 * @param transformation        The transformation to analyze.
+                 * @param simpleTransformations The list to which all simple transformations are added.
+                 */
+                private static void collect(Transformation transformation, List<Simple> simpleTransformations) {
+                    if (transformation instanceof Compound) {
+                        for (Transformation element : ((Compound) transformation).transformations) {
+                            collect(element, simpleTransformations);
+                        }
+                    } else if (transformation instanceof Simple) {
+                        simpleTransformations.add((Simple) transformation);
+                    }
+                }
+
+                /**
+                 * Extracts the index keys that are required by a raw matcher.
+                 *
+                 * @param rawMatcher The raw matcher to analyze.
+                 * @return The keys of which any matched type has at least one or {@code null} if no such keys can be determined.
+                 */
+                private static Set<IndexKey> keys(RawMatcher rawMatcher) {
+                    if (rawMatcher instanceof RawMatcher.ForElementMatchers) {
+                        return IndexKey.of(((RawMatcher.ForElementMatchers) rawMatcher).typeMatcher);
+                    } else if (rawMatcher instanceof RawMatcher.Conjunction) {
+                        return IndexKey.conjunction(keys(((RawMatcher.Conjunction) rawMatcher).left), keys(((RawMatcher.Conjunction) rawMatcher).right));
+                    } else if (rawMatcher instanceof RawMatcher.Disjunction) {
+                        Set<IndexKey> left = keys(((RawMatcher.Disjunction) rawMatcher).left);
+                        if (left == null) {
+                            return null;
+                        }
+                        Set<IndexKey> right = keys(((RawMatcher.Disjunction) rawMatcher).right);
+                        if (right == null) {
+                            return null;
+                        }
+                        Set<IndexKey> keys = new HashSet<IndexKey>(left);
+                        keys.addAll(right);
+                        return keys;
+                    } else {
+                        return null;
+                    }
+                }
+
+                /**
+                 * Resolves the candidate transformations of a type.
+                 *
+                 * @param typeDescription The type for which to resolve the candidate transformations.
+                 * @return The candidate transformations of the type.
+                 */
+                private Candidates candidates(TypeDescription typeDescription) {
+                    Candidates candidates = new Candidates(typeDescription, (BitSet) unindexed.clone());
+                    candidates.add(sorts);
+                    return candidates;
+                }
+
+                /**
+                 * Checks if a transformation might match a type.
+                 *
+                 * @param transformation The transformation to check.
+                 * @param candidates     The candidate transformations of the type.
+                 * @return {@code true} if the transformation must be consulted.
+                 */
+                private boolean isCandidate(Transformation transformation, Candidates candidates) {
+                    Integer position = positions.get(transformation);
+                    return position == null || candidates.contains(position);
+                }
+
+                @Override
+                public boolean matches(TypeDescription typeDescription,
+                                       ClassLoader classLoader,
+                                       JavaModule module,
+                                       Class<?> classBeingRedefined,
+                                       ProtectionDomain protectionDomain) {
+                    return matches(transformation, candidates(typeDescription), typeDescription, classLoader, module, classBeingRedefined, protectionDomain);
+                }
+
+                /**
+                 * Checks if a transformation matches a type while only consulting candidate transformations.
+                 *
+                 * @param transformation      The transformation to apply.
+                 * @param candidates          The candidate transformations of the type.
+                 * @param typeDescription     A description of the type that is to be transformed.
+                 * @param classLoader         The class loader of the type being transformed.
+                 * @param module              The transformed type's module or {@code null} if the current VM does not support modules.
+                 * @param classBeingRedefined In case of a type redefinition, the loaded type being transformed or {@code null} if that is not the case.
+                 * @param protectionDomain    The protection domain of the type being transformed.
+                 * @return {@code true} if the transformation matches the type.
+                 */
+                private boolean matches(Transformation transformation,
+                                        Candidates candidates,
+                                        TypeDescription typeDescription,
+                                        ClassLoader classLoader,
+                                        JavaModule module,
+                                        Class<?> classBeingRedefined,
+                                        ProtectionDomain protectionDomain) {
+                    if (transformation instanceof Compound) {
+                        for (Transformation element : ((Compound) transformation).transformations) {
+                            if (matches(element, candidates, typeDescription, classLoader, module, classBeingRedefined, protectionDomain)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    } else {
+                        return isCandidate(transformation, candidates)
+                                && transformation.matches(typeDescription, classLoader, module, classBeingRedefined, protectionDomain);
+                    }
+                }
+
+                @Override
+                public Resolution resolve(TypeDescription typeDescription,
+                                          ClassLoader classLoader,
+                                          JavaModule module,
+                                          Class<?> classBeingRedefined,
+                                          ProtectionDomain protectionDomain,
+                                          TypePool typePool) {
+                    return resolve(transformation, candidates(typeDescription), typeDescription, classLoader, module, classBeingRedefined, protectionDomain, typePool);
+                }
+
+                /**
+                 * Resolves a transformation while only consulting candidate transformations. Compound transformations are resolved
+                 * by the same rules as {@link Compound#resolve(TypeDescription, ClassLoader, JavaModule, Class, ProtectionDomain, TypePool)}.
+                 *
+                 * @param transformation      The transformation to resolve.
+                 * @param candidates          The candidate transformations of the type.
+                 * @param typeDescription     A description of the type that is to be transformed.
+                 * @param classLoader         The class loader of the type being transformed.
+                 * @param module              The transformed type's module or {@code null} if the current VM does not support modules.
+                 * @param classBeingRedefined In case of a type redefinition, the loaded type being transformed or {@code null} if that is not the case.
+                 * @param protectionDomain    The protection domain of the type being transformed.
+                 * @param typePool            The type pool to apply during type creation.
+                 * @return A resolution for the given type.
+                 */
+                private Resolution resolve(Transformation transformation,
+                                           Candidates candidates,
+                                           TypeDescription typeDescription,
+                                           ClassLoader classLoader,
+                                           JavaModule module,
+                                           Class<?> classBeingRedefined,
+                                           ProtectionDomain protectionDomain,
+                                           TypePool typePool) {
+                    if (transformation instanceof Compound) {
+                        Resolution current = new Resolution.Unresolved(typeDescription, classLoader, module);
+                        for (Transformation element : ((Compound) transformation).transformations) {
+                            Resolution resolution = resolve(element,
+                                    candidates,
+                                    typeDescription,
+                                    classLoader,
+                                    module,
+                                    classBeingRedefined,
+                                    protectionDomain,
+                                    typePool);
+                            switch (resolution.getSort()) {
+                                case TERMINAL:
+                                    return current.asDecoratorOf(resolution);
+                                case DECORATOR:
+                                    current = current.asDecoratorOf(resolution);
+                                    break;
+                                case UNDEFINED:
+                                    break;
+                                default:
+                                    throw new IllegalStateException("Unexpected resolution type: " + resolution.getSort());
+                            }
+                        }
+                        return current;
+                    } else {
+                        return isCandidate(transformation, candidates)
+                                ? transformation.resolve(typeDescription, classLoader, module, classBeingRedefined, protectionDomain, typePool)
+                                : new Resolution.Unresolved(typeDescription, classLoader, module);
+                    }
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    return this == other || !(other == null || getClass() != other.getClass())
+                            && transformation.equals(((Indexed) other).transformation);
+                }
+
+                @Override
+                public int hashCode() {
+                    return transformation.hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return "AgentBuilder.Default.Transformation.Indexed{" +
+                            "transformation=" + transformation +
+                            ", index=" + index +
+                            ", unindexed=" + unindexed +
+                            '}';
+                }
+
+                /**
+                 * The candidate transformations of a single type. Candidates that are indexed by a type's super types are only
+                 * resolved once such a transformation is consulted.
+                 */
+                protected class Candidates {
+
+                    /**
+                     * The type for which candidates are resolved.
+                     */
+                    private final TypeDescription typeDescription;
+
+                    /**
+                     * The positions of all candidate transformations that are known so far or {@code null} if all transformations are candidates.
+                     */
+                    private BitSet positions;
+
+                    /**
+                     * {@code true} if the candidates that are indexed by the type's super types were already resolved.
+                     */
+                    private boolean hierarchyResolved;
+
+                    /**
+                     * Creates new candidates.
+                     *
+                     * @param typeDescription The type for which candidates are resolved.
+                     * @param positions       The positions of all candidate transformations that are known so far.
+                     */
+                    protected Candidates(TypeDescription typeDescription, BitSet positions) {
+                        this.typeDescription = typeDescription;
+                        this.positions = positions;
+                    }
+
+                    /**
+                     * Adds all transformations that are indexed by any of the type's keys of the given sorts. If the keys cannot be
+                     * resolved, all transformations become candidates.
+                     *
+                     * @param sorts The sorts of the keys to resolve.
+                     */
+                    protected void add(Set<IndexKey.Sort> sorts) {
+                        if (positions == null || sorts.isEmpty()) {
+                            return;
+                        }
+                        Set<IndexKey> keys;
+                        try {
+                            keys = IndexKey.of(typeDescription, sorts);
+                        } catch (RuntimeException ignored) {
+                            positions = null;
+                            return;
+                        } catch (LinkageError ignored) {
+                            positions = null;
+                            return;
+                        }
+                        for (IndexKey key : keys) {
+                            BitSet indexed = index.get(key);
+                            if (indexed != null) {
+                                positions.or(indexed);
+                            }
+                        }
+                    }
+
+                    /**
+                     * Checks if the transformation at a given position is a candidate. The type's super types are only resolved if the
+                     * transformation is indexed by a super type and is not already a candidate.
+                     *
+                     * @param position The position of the transformation.
+                     * @return {@code true} if the transformation is a candidate.
+                     */
+                    protected boolean contains(int position) {
+                        if (positions == null || positions.get(position)) {
+                            return true;
+                        } else if (hierarchyResolved || !hierarchical.get(position)) {
+                            return false;
+                        }
+                        hierarchyResolved = true;
+                        add(EnumSet.of(IndexKey.Sort.SUPER_TYPE));
+                        return positions == null || positions.get(position);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "AgentBuilder.Default.Transformation.Indexed.Candidates{" +
+                                "typeDescription=" + typeDescription +
+                                ", positions=" + positions +
+                                ", hierarchyResolved=" + hierarchyResolved +
+                                '}';
+                    }
+                }
+            }
         }
 
         /**
@@ -7670,6 +15222,36 @@ public interface AgentBuilder {
              */
             private final FallbackStrategy fallbackStrategy;
 
+            /**
+             * The prefilter to apply to a type's internal name and class loader.
+             */
+            private final Prefilter prefilter;
+
+            /**
+             * The metrics to notify about the duration of the phases of a transformation.
+             */
+            private final Metrics metrics;
+
+            /**
+             * The transformation cache to consult before applying a transformation.
+             */
+            private final TransformationCache transformationCache;
+
+            /**
+             * The deduplicator for identical transformations of types of different class loaders.
+             */
+            private final DeduplicationStrategy.Deduplicator deduplicator;
+
+            /**
+             * The registry to record emitted class files in for detecting unchanged types.
+             */
+            private final RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry;
+
+            /**
+             * The cancelable of the resubmission job that is canceled upon a reset.
+             */
+            private final RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission;
+
             /**
              * Identifies types that should not be instrumented.
              */
@@ -7704,6 +15286,12 @@ public interface AgentBuilder {
              * @param lambdaInstrumentationStrategy The lambda instrumentation strategy to use.
              * @param descriptionStrategy           The description strategy for resolving type descriptions for types.
              * @param fallbackStrategy              The fallback strategy to use.
+             * @param prefilter                     The prefilter to apply to a type's internal name and class loader.
+             * @param metrics                       The metrics to notify about the duration of the phases of a transformation.
+             * @param transformationCache           The transformation cache to consult before applying a transformation.
+             * @param deduplicationStrategy         The deduplication strategy for identical transformations of types of different class loaders.
+             * @param changeDetectionRegistry       The registry to record emitted class files in for detecting unchanged types.
+             * @param resubmission                  The cancelable of the resubmission job that is canceled upon a reset.
              * @param ignoredTypeMatcher            Identifies types that should not be instrumented.
              * @param transformation                The transformation object for handling type transformations.
              * @param circularityLock               The circularity lock to use.
@@ -7719,6 +15307,12 @@ public interface AgentBuilder {
                                         LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                                         DescriptionStrategy descriptionStrategy,
                                         FallbackStrategy fallbackStrategy,
+                                        Prefilter prefilter,
+                                        Metrics metrics,
+                                        TransformationCache transformationCache,
+                                        DeduplicationStrategy deduplicationStrategy,
+                                        RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry,
+                                        RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission,
                                         RawMatcher ignoredTypeMatcher,
                                         Transformation transformation,
                                         CircularityLock circularityLock) {
@@ -7733,6 +15327,12 @@ public interface AgentBuilder {
                 this.lambdaInstrumentationStrategy = lambdaInstrumentationStrategy;
                 this.descriptionStrategy = descriptionStrategy;
                 this.fallbackStrategy = fallbackStrategy;
+                this.prefilter = prefilter;
+                this.metrics = metrics;
+                this.transformationCache = transformationCache;
+                deduplicator = deduplicationStrategy.make();
+                this.changeDetectionRegistry = changeDetectionRegistry;
+                this.resubmission = resubmission;
                 this.ignoredTypeMatcher = ignoredTypeMatcher;
                 this.transformation = transformation;
                 this.circularityLock = circularityLock;
@@ -7747,11 +15347,13 @@ public interface AgentBuilder {
                                     byte[] binaryRepresentation) {
                 if (circularityLock.acquire()) {
                     try {
-                        return AccessController.doPrivileged(new LegacyVmDispatcher(classLoader,
-                                internalTypeName,
-                                classBeingRedefined,
-                                protectionDomain,
-                                binaryRepresentation), accessControlContext);
+                        return isPrefiltered(internalTypeName, classLoader)
+                                ? NO_TRANSFORMATION
+                                : AccessController.doPrivileged(new LegacyVmDispatcher(classLoader,
+                                        internalTypeName,
+                                        classBeingRedefined,
+                                        protectionDomain,
+                                        binaryRepresentation), accessControlContext);
                     } finally {
                         circularityLock.release();
                     }
@@ -7780,12 +15382,14 @@ public interface AgentBuilder {
                                        byte[] binaryRepresentation) {
                 if (circularityLock.acquire()) {
                     try {
-                        return AccessController.doPrivileged(new Java9CapableVmDispatcher(rawModule,
-                                classLoader,
-                                internalTypeName,
-                                classBeingRedefined,
-                                protectionDomain,
-                                binaryRepresentation), accessControlContext);
+                        return isPrefiltered(internalTypeName, classLoader)
+                                ? NO_TRANSFORMATION
+                                : AccessController.doPrivileged(new Java9CapableVmDispatcher(rawModule,
+                                        classLoader,
+                                        internalTypeName,
+                                        classBeingRedefined,
+                                        protectionDomain,
+                                        binaryRepresentation), accessControlContext);
                     } finally {
                         circularityLock.release();
                     }
@@ -7795,7 +15399,21 @@ public interface AgentBuilder {
             }
 
             /**
-             * Applies a transformation for a class that was captured by this {@link ClassFileTransformer}.
+             * Determines if a type is ignored without considering it any further. Just as the ignore matcher, this check is applied
+             * while holding the circularity lock since a prefilter might load classes, for example when matching a class loader,
+             * which must not cause a recursive transformation.
+             *
+             * @param internalTypeName The internal name of the instrumented class or {@code null} if the class is anonymous.
+             * @param classLoader      The instrumented class's class loader.
+             * @return {@code true} if the type is ignored.
+             */
+            private boolean isPrefiltered(String internalTypeName, ClassLoader classLoader) {
+                return internalTypeName == null || prefilter.isIgnored(internalTypeName, classLoader);
+            }
+
+            /**
+             * Applies a transformation for a class that was captured by this {@link ClassFileTransformer}. The type is expected to
+             * not be ignored by this transformer's {@link Prefilter}.
              *
              * @param module               The instrumented class's Java module in its wrapped form or {@code null} if the current VM does not support modules.
              * @param classLoader          The instrumented class's class loader.
@@ -7811,42 +15429,90 @@ public interface AgentBuilder {
                                      Class<?> classBeingRedefined,
                                      ProtectionDomain protectionDomain,
                                      byte[] binaryRepresentation) {
-                if (internalTypeName == null || !lambdaInstrumentationStrategy.isInstrumented(classBeingRedefined)) {
+                if (!lambdaInstrumentationStrategy.isInstrumented(classBeingRedefined)) {
                     return NO_TRANSFORMATION;
                 }
                 String typeName = internalTypeName.replace('/', '.');
+                boolean timed = metrics.isEnabled();
+                long start = timed ? System.nanoTime() : 0L;
+                byte[] transformed = NO_TRANSFORMATION;
                 try {
-                    ClassFileLocator classFileLocator = ClassFileLocator.Simple.of(typeName,
-                            binaryRepresentation,
-                            locationStrategy.classFileLocator(classLoader, module));
-                    TypePool typePool = poolStrategy.typePool(classFileLocator, classLoader);
+                    ClassFileLocator classFileLocator;
+                    TypePool typePool;
+                    try {
+                        classFileLocator = ClassFileLocator.Simple.of(typeName,
+                                binaryRepresentation,
+                                locationStrategy.classFileLocator(classLoader, module));
+                        typePool = poolStrategy.typePool(classFileLocator, classLoader);
+                    } finally {
+                        if (timed) {
+                            metrics.onPhase(typeName, Metrics.Phase.LOCATE, System.nanoTime() - start);
+                        }
+                    }
+                    TransformationCache transformationCache = classBeingRedefined == null
+                            ? this.transformationCache
+                            : TransformationCache.NoOp.INSTANCE;
                     try {
-                        return doTransform(module, classLoader, typeName, classBeingRedefined, protectionDomain, typePool, classFileLocator);
+                        transformed = doTransform(module,
+                                classLoader,
+                                typeName,
+                                classBeingRedefined,
+                                protectionDomain,
+                                typePool,
+                                classFileLocator,
+                                binaryRepresentation,
+                                transformationCache);
                     } catch (Throwable throwable) {
                         if (classBeingRedefined != null && descriptionStrategy.isLoadedFirst() && fallbackStrategy.isFallback(classBeingRedefined, throwable)) {
-                            return doTransform(module, classLoader, typeName, NO_LOADED_TYPE, protectionDomain, typePool, classFileLocator);
+                            transformed = doTransform(module,
+                                    classLoader,
+                                    typeName,
+                                    NO_LOADED_TYPE,
+                                    protectionDomain,
+                                    typePool,
+                                    classFileLocator,
+                                    binaryRepresentation,
+                                    transformationCache);
                         } else {
                             throw throwable;
                         }
                     }
+                    return transformed;
                 } catch (Throwable throwable) {
                     listener.onError(typeName, classLoader, module, throwable);
                     return NO_TRANSFORMATION;
                 } finally {
+                    if (transformed != NO_TRANSFORMATION) {
+                        changeDetectionRegistry.register(classLoader, typeName, transformed);
+                    } else if (classBeingRedefined != null) {
+                        changeDetectionRegistry.invalidate(classLoader, typeName);
+                    }
                     listener.onComplete(typeName, classLoader, module);
+                    if (timed) {
+                        metrics.onComplete(typeName,
+                                classLoader,
+                                module,
+                                binaryRepresentation.length,
+                                transformed == NO_TRANSFORMATION ? -1 : transformed.length,
+                                System.nanoTime() - start);
+                    }
                 }
             }
 
             /**
-             * Applies a transformation for a class that was captured by this {@link ClassFileTransformer}.
+             * Applies a transformation for a class that was captured by this {@link ClassFileTransformer}. The transformation cache
+             * is only consulted for types that are not ignored such that a cached transformation is reported to the listener in the
+             * same way as a computed transformation.
              *
-             * @param module              The instrumented class's Java module in its wrapped form or {@code null} if the current VM does not support modules.
-             * @param classLoader         The instrumented class's class loader.
-             * @param typeName            The binary name of the instrumented class.
-             * @param classBeingRedefined The loaded {@link Class} being redefined or {@code null} if no such class exists.
-             * @param protectionDomain    The instrumented type's protection domain.
-             * @param typePool            The type pool to use.
-             * @param classFileLocator    The class file locator to use.
+             * @param module               The instrumented class's Java module in its wrapped form or {@code null} if the current VM does not support modules.
+             * @param classLoader          The instrumented class's class loader.
+             * @param typeName             The binary name of the instrumented class.
+             * @param classBeingRedefined  The loaded {@link Class} being redefined or {@code null} if no such class exists.
+             * @param protectionDomain     The instrumented type's protection domain.
+             * @param typePool             The type pool to use.
+             * @param classFileLocator     The class file locator to use.
+             * @param binaryRepresentation The class file of the instrumented class in its current state.
+             * @param transformationCache  The transformation cache to consult for a type that is not ignored.
              * @return The transformed class file or an empty byte array if this transformer does not apply an instrumentation.
              */
             private byte[] doTransform(JavaModule module,
@@ -7855,39 +15521,47 @@ public interface AgentBuilder {
                                        Class<?> classBeingRedefined,
                                        ProtectionDomain protectionDomain,
                                        TypePool typePool,
-                                       ClassFileLocator classFileLocator) {
-                return resolve(module, classLoader, typeName, classBeingRedefined, protectionDomain, typePool).apply(initializationStrategy,
+                                       ClassFileLocator classFileLocator,
+                                       byte[] binaryRepresentation,
+                                       TransformationCache transformationCache) {
+                boolean timed = metrics.isEnabled();
+                long start = timed ? System.nanoTime() : 0L;
+                TypeDescription typeDescription;
+                try {
+                    typeDescription = descriptionStrategy.apply(typeName, classBeingRedefined, typePool);
+                } finally {
+                    if (timed) {
+                        metrics.onPhase(typeName, Metrics.Phase.DESCRIBE, System.nanoTime() - start);
+                    }
+                }
+                start = timed ? System.nanoTime() : 0L;
+                TransformationCache.Entry entry = TransformationCache.Entry.Unavailable.INSTANCE;
+                Transformation.Resolution resolution;
+                try {
+                    if (ignoredTypeMatcher.matches(typeDescription, classLoader, module, classBeingRedefined, protectionDomain)) {
+                        resolution = new Transformation.Resolution.Unresolved(typeDescription, classLoader, module, false);
+                    } else {
+                        entry = transformationCache.lookup(typeName, classLoader, binaryRepresentation, classFileLocator);
+                        resolution = entry.isCached()
+                                ? new Transformation.Resolution.Cached(typeDescription, classLoader, module, protectionDomain, entry.getBinaryRepresentation())
+                                : transformation.resolve(typeDescription, classLoader, module, classBeingRedefined, protectionDomain, typePool);
+                    }
+                } finally {
+                    if (timed) {
+                        metrics.onPhase(typeName, Metrics.Phase.MATCH, System.nanoTime() - start);
+                    }
+                }
+                return resolution.apply(initializationStrategy,
                         classFileLocator,
                         typeStrategy,
                         byteBuddy,
                         nativeMethodStrategy,
                         bootstrapInjectionStrategy,
                         accessControlContext,
-                        listener);
-            }
-
-
-            /**
-             * Resolves the transformation and assures it is not ignored.
-             *
-             * @param module              The instrumented class's Java module in its wrapped form or {@code null} if the current VM does not support modules.
-             * @param classLoader         The instrumented class's class loader.
-             * @param typeName            The binary name of the instrumented class.
-             * @param classBeingRedefined The loaded {@link Class} being redefined or {@code null} if no such class exists.
-             * @param protectionDomain    The instrumented type's protection domain.
-             * @param typePool            The type pool to use.
-             * @return The resolution for the transformation.
-             */
-            private Transformation.Resolution resolve(JavaModule module,
-                                                      ClassLoader classLoader,
-                                                      String typeName,
-                                                      Class<?> classBeingRedefined,
-                                                      ProtectionDomain protectionDomain,
-                                                      TypePool typePool) {
-                TypeDescription typeDescription = descriptionStrategy.apply(typeName, classBeingRedefined, typePool);
-                return ignoredTypeMatcher.matches(typeDescription, classLoader, module, classBeingRedefined, protectionDomain)
-                        ? new Transformation.Resolution.Unresolved(typeDescription, classLoader, module)
-                        : transformation.resolve(typeDescription, classLoader, module, classBeingRedefined, protectionDomain, typePool);
+                        listener,
+                        metrics,
+                        entry,
+                        deduplicator);
             }
 
             @Override
@@ -7896,6 +15570,8 @@ public interface AgentBuilder {
                                             RedefinitionStrategy.BatchAllocator redefinitionBatchAllocator,
                                             RedefinitionStrategy.Listener redefinitionListener) {
                 if (instrumentation.removeTransformer(this)) {
+                    resubmission.cancel();
+                    changeDetectionRegistry.clear();
                     if (!redefinitionStrategy.isEnabled()) {
                         return Reset.Simple.ACTIVE;
                     }
@@ -7903,7 +15579,8 @@ public interface AgentBuilder {
                     Map<Class<?>, Throwable> failures = new HashMap<Class<?>, Throwable>();
                     RedefinitionStrategy.Collector collector = redefinitionStrategy.make(transformation);
                     for (Class<?> type : instrumentation.getAllLoadedClasses()) {
-                        if (!lambdaInstrumentationStrategy.isInstrumented(type)) {
+                        if (!lambdaInstrumentationStrategy.isInstrumented(type)
+                                || prefilter.isIgnored(TypeDescription.ForLoadedType.getName(type).replace('.', '/'), type.getClassLoader())) {
                             continue;
                         }
                         JavaModule module = JavaModule.ofType(type);
@@ -7963,6 +15640,12 @@ public interface AgentBuilder {
                         ", lambdaInstrumentationStrategy=" + lambdaInstrumentationStrategy +
                         ", descriptionStrategy=" + descriptionStrategy +
                         ", fallbackStrategy=" + fallbackStrategy +
+                        ", prefilter=" + prefilter +
+                        ", metrics=" + metrics +
+                        ", transformationCache=" + transformationCache +
+                        ", deduplicator=" + deduplicator +
+                        ", changeDetectionRegistry=" + changeDetectionRegistry +
+                        ", resubmission=" + resubmission +
                         ", ignoredTypeMatcher=" + ignoredTypeMatcher +
                         ", transformation=" + transformation +
                         ", circularityLock=" + circularityLock +
@@ -7989,6 +15672,12 @@ public interface AgentBuilder {
                  * @param lambdaInstrumentationStrategy The lambda instrumentation strategy to use.
                  * @param descriptionStrategy           The description strategy for resolving type descriptions for types.
                  * @param fallbackStrategy              The fallback strategy to use.
+                 * @param prefilter                     The prefilter to apply to a type's internal name and class loader.
+                 * @param metrics                       The metrics to notify about the duration of the phases of a transformation.
+                 * @param transformationCache           The transformation cache to consult before applying a transformation.
+                 * @param deduplicationStrategy         The deduplication strategy for identical transformations of types of different class loaders.
+                 * @param changeDetectionRegistry       The registry to record emitted class files in for detecting unchanged types.
+                 * @param resubmission                  The cancelable of the resubmission job that is canceled upon a reset.
                  * @param ignoredTypeMatcher            Identifies types that should not be instrumented.
                  * @param transformation                The transformation object for handling type transformations.
                  * @param circularityLock               The circularity lock to use.
@@ -8005,6 +15694,12 @@ public interface AgentBuilder {
                                                     LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                                                     DescriptionStrategy descriptionStrategy,
                                                     FallbackStrategy fallbackStrategy,
+                                                    Prefilter prefilter,
+                                                    Metrics metrics,
+                                                    TransformationCache transformationCache,
+                                                    DeduplicationStrategy deduplicationStrategy,
+                                                    RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry,
+                                                    RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission,
                                                     RawMatcher ignoredTypeMatcher,
                                                     Transformation transformation,
                                                     CircularityLock circularityLock);
@@ -8043,6 +15738,12 @@ public interface AgentBuilder {
                                                                LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                                                                DescriptionStrategy descriptionStrategy,
                                                                FallbackStrategy fallbackStrategy,
+                                                               Prefilter prefilter,
+                                                               Metrics metrics,
+                                                               TransformationCache transformationCache,
+                                                               DeduplicationStrategy deduplicationStrategy,
+                                                               RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry,
+                                                               RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission,
                                                                RawMatcher ignoredTypeMatcher,
                                                                Transformation transformation,
                                                                CircularityLock circularityLock) {
@@ -8058,6 +15759,12 @@ public interface AgentBuilder {
                                     lambdaInstrumentationStrategy,
                                     descriptionStrategy,
                                     fallbackStrategy,
+                                    prefilter,
+                                    metrics,
+                                    transformationCache,
+                                    deduplicationStrategy,
+                                    changeDetectionRegistry,
+                                    resubmission,
                                     ignoredTypeMatcher,
                                     transformation,
                                     circularityLock);
@@ -8113,6 +15820,12 @@ public interface AgentBuilder {
                                                                LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                                                                DescriptionStrategy descriptionStrategy,
                                                                FallbackStrategy fallbackStrategy,
+                                                               Prefilter prefilter,
+                                                               Metrics metrics,
+                                                               TransformationCache transformationCache,
+                                                               DeduplicationStrategy deduplicationStrategy,
+                                                               RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry,
+                                                               RedefinitionStrategy.ResubmissionScheduler.Cancelable resubmission,
                                                                RawMatcher ignoredTypeMatcher,
                                                                Transformation transformation,
                                                                CircularityLock circularityLock) {
@@ -8127,6 +15840,12 @@ public interface AgentBuilder {
                                 lambdaInstrumentationStrategy,
                                 descriptionStrategy,
                                 fallbackStrategy,
+                                prefilter,
+                                metrics,
+                                transformationCache,
+                                deduplicationStrategy,
+                                changeDetectionRegistry,
+                                resubmission,
                                 ignoredTypeMatcher,
                                 transformation,
                                 circularityLock);
@@ -8179,6 +15898,12 @@ public interface AgentBuilder {
                                         LambdaInstrumentationStrategy.class,
                                         DescriptionStrategy.class,
                                         FallbackStrategy.class,
+                                        Prefilter.class,
+                                        Metrics.class,
+                                        TransformationCache.class,
+                                        DeduplicationStrategy.class,
+                                        RedefinitionStrategy.ChangeDetection.Registry.class,
+                                        RedefinitionStrategy.ResubmissionScheduler.Cancelable.class,
                                         RawMatcher.class,
                                         Transformation.class,
                                         CircularityLock.class));
@@ -8541,6 +16266,26 @@ public interface AgentBuilder {
                 return materialize().with(fallbackStrategy);
             }
 
+            @Override
+            public AgentBuilder withPrefilter(Prefilter prefilter) {
+                return materialize().withPrefilter(prefilter);
+            }
+
+            @Override
+            public AgentBuilder with(Metrics metrics) {
+                return materialize().with(metrics);
+            }
+
+            @Override
+            public AgentBuilder withTransformationCache(TransformationCache transformationCache) {
+                return materialize().withTransformationCache(transformationCache);
+            }
+
+            @Override
+            public AgentBuilder with(DeduplicationStrategy deduplicationStrategy) {
+                return materialize().with(deduplicationStrategy);
+            }
+
             @Override
             public AgentBuilder enableBootstrapInjection(Instrumentation instrumentation, File folder) {
                 return materialize().enableBootstrapInjection(instrumentation, folder);
@@ -8591,151 +16336,468 @@ public interface AgentBuilder {
                 return materialize().assureReadEdgeFromAndTo(instrumentation, module);
             }
 
-            @Override
-            public AgentBuilder assureReadEdgeFromAndTo(Instrumentation instrumentation, Collection<? extends JavaModule> modules) {
-                return materialize().assureReadEdgeFromAndTo(instrumentation, modules);
+            @Override
+            public AgentBuilder assureReadEdgeFromAndTo(Instrumentation instrumentation, Collection<? extends JavaModule> modules) {
+                return materialize().assureReadEdgeFromAndTo(instrumentation, modules);
+            }
+
+            @Override
+            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher) {
+                return materialize().type(typeMatcher);
+            }
+
+            @Override
+            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher, ElementMatcher<? super ClassLoader> classLoaderMatcher) {
+                return materialize().type(typeMatcher, classLoaderMatcher);
+            }
+
+            @Override
+            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher,
+                                              ElementMatcher<? super ClassLoader> classLoaderMatcher,
+                                              ElementMatcher<? super JavaModule> moduleMatcher) {
+                return materialize().type(typeMatcher, classLoaderMatcher, moduleMatcher);
+            }
+
+
+            @Override
+            public Identified.Narrowable type(RawMatcher matcher) {
+                return materialize().type(matcher);
+            }
+
+            @Override
+            public Ignored ignore(ElementMatcher<? super TypeDescription> ignoredTypes) {
+                return materialize().ignore(ignoredTypes);
+            }
+
+            @Override
+            public Ignored ignore(ElementMatcher<? super TypeDescription> ignoredTypes, ElementMatcher<? super ClassLoader> ignoredClassLoaders) {
+                return materialize().ignore(ignoredTypes, ignoredClassLoaders);
+            }
+
+            @Override
+            public Ignored ignore(ElementMatcher<? super TypeDescription> typeMatcher,
+                                  ElementMatcher<? super ClassLoader> classLoaderMatcher,
+                                  ElementMatcher<? super JavaModule> moduleMatcher) {
+                return materialize().ignore(typeMatcher, classLoaderMatcher, moduleMatcher);
+            }
+
+            @Override
+            public Ignored ignore(RawMatcher rawMatcher) {
+                return materialize().ignore(rawMatcher);
+            }
+
+            @Override
+            public ResettableClassFileTransformer makeRaw() {
+                return materialize().makeRaw();
+            }
+
+            @Override
+            public ResettableClassFileTransformer installOn(Instrumentation instrumentation) {
+                return materialize().installOn(instrumentation);
+            }
+
+            @Override
+            public ResettableClassFileTransformer installOnByteBuddyAgent() {
+                return materialize().installOnByteBuddyAgent();
+            }
+        }
+
+        /**
+         * A delegator transformer for further precising what types to ignore.
+         */
+        protected class Ignoring extends Delegator<Ignored> implements Ignored {
+
+            /**
+             * A matcher for identifying types that should not be instrumented.
+             */
+            private final RawMatcher rawMatcher;
+
+            /**
+             * Creates a new agent builder for further specifying what types to ignore.
+             *
+             * @param rawMatcher A matcher for identifying types that should not be instrumented.
+             */
+            protected Ignoring(RawMatcher rawMatcher) {
+                this.rawMatcher = rawMatcher;
+            }
+
+            @Override
+            protected AgentBuilder materialize() {
+                return new Default(byteBuddy,
+                        listener,
+                        circularityLock,
+                        poolStrategy,
+                        typeStrategy,
+                        locationStrategy,
+                        nativeMethodStrategy,
+                        initializationStrategy,
+                        redefinitionStrategy,
+                        redefinitionBatchAllocator,
+                        redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
+                        bootstrapInjectionStrategy,
+                        lambdaInstrumentationStrategy,
+                        descriptionStrategy,
+                        installationStrategy,
+                        fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
+                        rawMatcher,
+                        transformation);
+            }
+
+            @Override
+            public Ignored and(RawMatcher rawMatcher) {
+                return new Ignoring(new RawMatcher.Conjunction(this.rawMatcher, rawMatcher));
+            }
+
+            @Override
+            public Ignored or(RawMatcher rawMatcher) {
+                return new Ignoring(new RawMatcher.Disjunction(this.rawMatcher, rawMatcher));
+            }
+
+            /**
+             * Returns the outer instance.
+             *
+             * @return The outer instance.
+             */
+            private Default getOuter() {
+                return Default.this;
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && rawMatcher.equals(((Ignoring) other).rawMatcher)
+                        && Default.this.equals(((Ignoring) other).getOuter());
+            }
+
+            @Override
+            public int hashCode() {
+                int result = rawMatcher.hashCode();
+                result = 31 * result + Default.this.hashCode();
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "AgentBuilder.Default.Ignoring{" +
+                        "rawMatcher=" + rawMatcher +
+                        ", agentBuilder=" + Default.this +
+                        '}';
+            }
+        }
+
+        /**
+         * A discovery of loaded types that considers each type for a redefinition while holding the circularity lock, such that
+         * no class that is loaded during the discovery is transformed by the discovering thread. If a change detection is active,
+         * the lock is released while the transformations of the considered types are computed upfront, such that any class that
+         * is loaded by a user transformation is instrumented as if it was loaded by the application.
+         */
+        protected class LoadedTypeDiscovery implements RedefinitionStrategy.DiscoveryStrategy.Discovery<RedefinitionStrategy.Collector> {
+
+            /**
+             * The instrumentation instance of the discovered types.
+             */
+            private final Instrumentation instrumentation;
+
+            /**
+             * The transformation to consider the discovered types by.
+             */
+            private final Transformation transformation;
+
+            /**
+             * The registry of emitted class files for detecting unchanged types.
+             */
+            private final RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry;
+
+            /**
+             * Creates a new discovery of loaded types.
+             *
+             * @param instrumentation         The instrumentation instance of the discovered types.
+             * @param transformation          The transformation to consider the discovered types by.
+             * @param changeDetectionRegistry The registry of emitted class files for detecting unchanged types.
+             */
+            protected LoadedTypeDiscovery(Instrumentation instrumentation,
+                                          Transformation transformation,
+                                          RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry) {
+                this.instrumentation = instrumentation;
+                this.transformation = transformation;
+                this.changeDetectionRegistry = changeDetectionRegistry;
+            }
+
+            @Override
+            public RedefinitionStrategy.Collector discover(List<Class<?>> types) {
+                RedefinitionStrategy.Collector collector = redefinitionStrategy.make(transformation);
+                boolean acquired = circularityLock.acquire();
+                try {
+                    for (Class<?> type : types) {
+                        if (!lambdaInstrumentationStrategy.isInstrumented(type)
+                                || prefilter.isIgnored(TypeDescription.ForLoadedType.getName(type).replace('.', '/'), type.getClassLoader())) {
+                            continue;
+                        }
+                        JavaModule module = JavaModule.ofType(type);
+                        try {
+                            TypePool typePool = poolStrategy.typePool(locationStrategy.classFileLocator(type.getClassLoader(), module), type.getClassLoader());
+                            try {
+                                collector.consider(ignoredTypeMatcher,
+                                        listener,
+                                        descriptionStrategy.apply(TypeDescription.ForLoadedType.getName(type), type, typePool),
+                                        type,
+                                        type,
+                                        module,
+                                        !instrumentation.isModifiableClass(type));
+                            } catch (Throwable throwable) {
+                                if (descriptionStrategy.isLoadedFirst() && fallbackStrategy.isFallback(type, throwable)) {
+                                    collector.consider(ignoredTypeMatcher,
+                                            listener,
+                                            typePool.describe(TypeDescription.ForLoadedType.getName(type)).resolve(),
+                                            type,
+                                            module);
+                                } else {
+                                    throw throwable;
+                                }
+                            }
+                        } catch (Throwable throwable) {
+                            try {
+                                try {
+                                    listener.onError(TypeDescription.ForLoadedType.getName(type), type.getClassLoader(), module, throwable);
+                                } finally {
+                                    listener.onComplete(TypeDescription.ForLoadedType.getName(type), type.getClassLoader(), module);
+                                }
+                            } catch (Throwable ignored) {
+                                // Ignore exceptions that are thrown by listeners to mimic the behavior of a transformation.
+                            }
+                        }
+                    }
+                    if (redefinitionChangeDetection.isActive()) {
+                        circularityLock.release();
+                        try {
+                            Iterator<Class<?>> iterator = collector.types.iterator();
+                            while (iterator.hasNext()) {
+                                Class<?> type = iterator.next();
+                                JavaModule module = JavaModule.ofType(type);
+                                try {
+                                    ClassFileLocator classFileLocator = locationStrategy.classFileLocator(type.getClassLoader(), module);
+                                    TypePool typePool = poolStrategy.typePool(classFileLocator, type.getClassLoader());
+                                    TypeDescription typeDescription = descriptionStrategy.apply(TypeDescription.ForLoadedType.getName(type), type, typePool);
+                                    DryRun dryRun = new DryRun(initializationStrategy.dispatcher());
+                                    byte[] binaryRepresentation = transformation.resolve(typeDescription,
+                                            type.getClassLoader(),
+                                            module,
+                                            type,
+                                            type.getProtectionDomain(),
+                                            typePool).apply(dryRun,
+                                            classFileLocator,
+                                            typeStrategy,
+                                            byteBuddy,
+                                            nativeMethodStrategy,
+                                            bootstrapInjectionStrategy,
+                                            AccessController.getContext(),
+                                            Listener.NoOp.INSTANCE,
+                                            Metrics.NoOp.INSTANCE,
+                                            TransformationCache.Entry.Unavailable.INSTANCE,
+                                            DeduplicationStrategy.Deduplicator.NoOp.INSTANCE);
+                                    if (dryRun.isSelfContained() && changeDetectionRegistry.isUnchanged(type, binaryRepresentation, classFileLocator)) {
+                                        iterator.remove();
+                                        try {
+                                            listener.onIgnored(typeDescription, type.getClassLoader(), module);
+                                        } finally {
+                                            listener.onComplete(typeDescription.getName(), type.getClassLoader(), module);
+                                        }
+                                    }
+                                } catch (Throwable ignored) {
+                                    // Redefine any type for which the outcome of its transformation cannot be determined upfront.
+                                }
+                            }
+                        } finally {
+                            circularityLock.acquire();
+                        }
+                    }
+                } finally {
+                    if (acquired) {
+                        circularityLock.release();
+                    }
+                }
+                return collector;
+            }
+
+            /**
+             * Returns the outer instance.
+             *
+             * @return The outer instance.
+             */
+            private Default getOuter() {
+                return Default.this;
             }
 
             @Override
-            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher) {
-                return materialize().type(typeMatcher);
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (other == null || getClass() != other.getClass()) return false;
+                LoadedTypeDiscovery that = (LoadedTypeDiscovery) other;
+                return instrumentation.equals(that.instrumentation)
+                        && transformation.equals(that.transformation)
+                        && changeDetectionRegistry.equals(that.changeDetectionRegistry)
+                        && Default.this.equals(that.getOuter());
             }
 
             @Override
-            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher, ElementMatcher<? super ClassLoader> classLoaderMatcher) {
-                return materialize().type(typeMatcher, classLoaderMatcher);
+            public int hashCode() {
+                int result = instrumentation.hashCode();
+                result = 31 * result + transformation.hashCode();
+                result = 31 * result + changeDetectionRegistry.hashCode();
+                result = 31 * result + Default.this.hashCode();
+                return result;
             }
 
             @Override
-            public Identified.Narrowable type(ElementMatcher<? super TypeDescription> typeMatcher,
-                                              ElementMatcher<? super ClassLoader> classLoaderMatcher,
-                                              ElementMatcher<? super JavaModule> moduleMatcher) {
-                return materialize().type(typeMatcher, classLoaderMatcher, moduleMatcher);
+            public String toString() {
+                return "AgentBuilder.Default.LoadedTypeDiscovery{" +
+                        "outer=" + Default.this +
+                        ", instrumentation=" + instrumentation +
+                        ", transformation=" + transformation +
+                        ", changeDetectionRegistry=" + changeDetectionRegistry +
+                        '}';
             }
+        }
 
+        /**
+         * A resubmitter that redefines resubmitted types by the redefinition strategy of this agent builder.
+         */
+        protected class LoadedTypeResubmitter implements RedefinitionStrategy.ResubmissionStrategy.Resubmitter {
 
-            @Override
-            public Identified.Narrowable type(RawMatcher matcher) {
-                return materialize().type(matcher);
-            }
+            /**
+             * The instrumentation instance on which the agent is installed.
+             */
+            private final Instrumentation instrumentation;
 
-            @Override
-            public Ignored ignore(ElementMatcher<? super TypeDescription> ignoredTypes) {
-                return materialize().ignore(ignoredTypes);
-            }
+            /**
+             * The registry of emitted class files for detecting unchanged types.
+             */
+            private final RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry;
 
-            @Override
-            public Ignored ignore(ElementMatcher<? super TypeDescription> ignoredTypes, ElementMatcher<? super ClassLoader> ignoredClassLoaders) {
-                return materialize().ignore(ignoredTypes, ignoredClassLoaders);
+            /**
+             * Creates a new resubmitter of loaded types.
+             *
+             * @param instrumentation         The instrumentation instance on which the agent is installed.
+             * @param changeDetectionRegistry The registry of emitted class files for detecting unchanged types.
+             */
+            protected LoadedTypeResubmitter(Instrumentation instrumentation, RedefinitionStrategy.ChangeDetection.Registry changeDetectionRegistry) {
+                this.instrumentation = instrumentation;
+                this.changeDetectionRegistry = changeDetectionRegistry;
             }
 
             @Override
-            public Ignored ignore(ElementMatcher<? super TypeDescription> typeMatcher,
-                                  ElementMatcher<? super ClassLoader> classLoaderMatcher,
-                                  ElementMatcher<? super JavaModule> moduleMatcher) {
-                return materialize().ignore(typeMatcher, classLoaderMatcher, moduleMatcher);
+            public void resubmit(List<Class<?>> types) {
+                if (!circularityLock.acquire()) {
+                    return;
+                }
+                try {
+                    new LoadedTypeDiscovery(instrumentation, Transformation.Indexed.of(transformation), changeDetectionRegistry)
+                            .discover(types)
+                            .apply(instrumentation, circularityLock, locationStrategy, listener, redefinitionBatchAllocator, redefinitionListener);
+                } finally {
+                    circularityLock.release();
+                }
             }
 
-            @Override
-            public Ignored ignore(RawMatcher rawMatcher) {
-                return materialize().ignore(rawMatcher);
+            /**
+             * Returns the outer instance.
+             *
+             * @return The outer instance.
+             */
+            private Default getOuter() {
+                return Default.this;
             }
 
             @Override
-            public ResettableClassFileTransformer makeRaw() {
-                return materialize().makeRaw();
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (other == null || getClass() != other.getClass()) return false;
+                LoadedTypeResubmitter that = (LoadedTypeResubmitter) other;
+                return instrumentation.equals(that.instrumentation)
+                        && changeDetectionRegistry.equals(that.changeDetectionRegistry)
+                        && Default.this.equals(that.getOuter());
             }
 
             @Override
-            public ResettableClassFileTransformer installOn(Instrumentation instrumentation) {
-                return materialize().installOn(instrumentation);
+            public int hashCode() {
+                int result = instrumentation.hashCode();
+                result = 31 * result + changeDetectionRegistry.hashCode();
+                result = 31 * result + Default.this.hashCode();
+                return result;
             }
 
             @Override
-            public ResettableClassFileTransformer installOnByteBuddyAgent() {
-                return materialize().installOnByteBuddyAgent();
+            public String toString() {
+                return "AgentBuilder.Default.LoadedTypeResubmitter{" +
+                        "outer=" + Default.this +
+                        ", instrumentation=" + instrumentation +
+                        ", changeDetectionRegistry=" + changeDetectionRegistry +
+                        '}';
             }
         }
 
         /**
-         * A delegator transformer for further precising what types to ignore.
+         * An initialization strategy for computing the transformation of a loaded type upfront. The dispatcher of this strategy applies the
+         * dispatcher of the agent's initialization strategy to a transformed type but does not register the type for its initialization.
+         * Instead, it records if the transformed type is self-contained.
          */
-        protected class Ignoring extends Delegator<Ignored> implements Ignored {
+        protected static class DryRun implements InitializationStrategy, InitializationStrategy.Dispatcher {
 
             /**
-             * A matcher for identifying types that should not be instrumented.
+             * The dispatcher of the agent's initialization strategy.
              */
-            private final RawMatcher rawMatcher;
+            private final InitializationStrategy.Dispatcher dispatcher;
 
             /**
-             * Creates a new agent builder for further specifying what types to ignore.
+             * {@code true} if a transformed type was registered that neither defines auxiliary types nor requires live initializers.
+             */
+            private boolean selfContained;
+
+            /**
+             * Creates a new dry run.
              *
-             * @param rawMatcher A matcher for identifying types that should not be instrumented.
+             * @param dispatcher The dispatcher of the agent's initialization strategy.
              */
-            protected Ignoring(RawMatcher rawMatcher) {
-                this.rawMatcher = rawMatcher;
+            protected DryRun(InitializationStrategy.Dispatcher dispatcher) {
+                this.dispatcher = dispatcher;
             }
 
             @Override
-            protected AgentBuilder materialize() {
-                return new Default(byteBuddy,
-                        listener,
-                        circularityLock,
-                        poolStrategy,
-                        typeStrategy,
-                        locationStrategy,
-                        nativeMethodStrategy,
-                        initializationStrategy,
-                        redefinitionStrategy,
-                        redefinitionBatchAllocator,
-                        redefinitionListener,
-                        bootstrapInjectionStrategy,
-                        lambdaInstrumentationStrategy,
-                        descriptionStrategy,
-                        installationStrategy,
-                        fallbackStrategy,
-                        rawMatcher,
-                        transformation);
+            public InitializationStrategy.Dispatcher dispatcher() {
+                return this;
             }
 
             @Override
-            public Ignored and(RawMatcher rawMatcher) {
-                return new Ignoring(new RawMatcher.Conjunction(this.rawMatcher, rawMatcher));
+            public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder) {
+                return dispatcher.apply(builder);
             }
 
             @Override
-            public Ignored or(RawMatcher rawMatcher) {
-                return new Ignoring(new RawMatcher.Disjunction(this.rawMatcher, rawMatcher));
+            public void register(DynamicType dynamicType, ClassLoader classLoader, InjectorFactory injectorFactory) {
+                selfContained = dynamicType.getAuxiliaryTypes().isEmpty() && !dynamicType.hasAliveLoadedTypeInitializers();
             }
 
             /**
-             * Returns the outer instance.
+             * Returns {@code true} if a transformed type was registered that neither defines auxiliary types nor requires live initializers.
              *
-             * @return The outer instance.
+             * @return {@code true} if a self-contained transformed type was registered.
              */
-            private Default getOuter() {
-                return Default.this;
-            }
-
-            @Override
-            public boolean equals(Object other) {
-                return this == other || !(other == null || getClass() != other.getClass())
-                        && rawMatcher.equals(((Ignoring) other).rawMatcher)
-                        && Default.this.equals(((Ignoring) other).getOuter());
-            }
-
-            @Override
-            public int hashCode() {
-                int result = rawMatcher.hashCode();
-                result = 31 * result + Default.this.hashCode();
-                return result;
+            protected boolean isSelfContained() {
+                return selfContained;
             }
 
             @Override
             public String toString() {
-                return "AgentBuilder.Default.Ignoring{" +
-                        "rawMatcher=" + rawMatcher +
-                        ", agentBuilder=" + Default.this +
+                return "AgentBuilder.Default.DryRun{" +
+                        "dispatcher=" + dispatcher +
+                        ", selfContained=" + selfContained +
                         '}';
             }
         }
@@ -8748,25 +16810,32 @@ public interface AgentBuilder {
             /**
              * Creates a new default agent builder that allows for refinement of the redefinition strategy.
              *
-             * @param byteBuddy                     The Byte Buddy instance to be used.
-             * @param listener                      The listener to notify on transformations.
-             * @param circularityLock               The circularity lock to use.
-             * @param poolStrategy                  The type locator to use.
-             * @param typeStrategy                  The definition handler to use.
-             * @param locationStrategy              The location strategy to use.
-             * @param nativeMethodStrategy          The native method strategy to apply.
-             * @param initializationStrategy        The initialization strategy to use for transformed types.
-             * @param redefinitionStrategy          The redefinition strategy to apply.
-             * @param redefinitionBatchAllocator    The batch allocator for the redefinition strategy to apply.
-             * @param redefinitionListener          The redefinition listener for the redefinition strategy to apply.
-             * @param bootstrapInjectionStrategy    The injection strategy for injecting classes into the bootstrap class loader.
-             * @param lambdaInstrumentationStrategy A strategy to determine of the {@code LambdaMetafactory} should be instrumented to allow for the
-             *                                      instrumentation of classes that represent lambda expressions.
-             * @param descriptionStrategy           The description strategy for resolving type descriptions for types.
-             * @param installationStrategy          The installation strategy to use.
-             * @param fallbackStrategy              The fallback strategy to apply.
-             * @param ignoredTypeMatcher            Identifies types that should not be instrumented.
-             * @param transformation                The transformation object for handling type transformations.
+             * @param byteBuddy                        The Byte Buddy instance to be used.
+             * @param listener                         The listener to notify on transformations.
+             * @param circularityLock                  The circularity lock to use.
+             * @param poolStrategy                     The type locator to use.
+             * @param typeStrategy                     The definition handler to use.
+             * @param locationStrategy                 The location strategy to use.
+             * @param nativeMethodStrategy             The native method strategy to apply.
+             * @param initializationStrategy           The initialization strategy to use for transformed types.
+             * @param redefinitionStrategy             The redefinition strategy to apply.
+             * @param redefinitionBatchAllocator       The batch allocator for the redefinition strategy to apply.
+             * @param redefinitionListener             The redefinition listener for the redefinition strategy to apply.
+             * @param redefinitionDiscoveryStrategy    The discovery strategy for loaded types to apply.
+             * @param redefinitionChangeDetection      The change detection for skipping redefinitions that would not alter a loaded type.
+             * @param redefinitionResubmissionStrategy The resubmission strategy for types whose transformation failed.
+             * @param bootstrapInjectionStrategy       The injection strategy for injecting classes into the bootstrap class loader.
+             * @param lambdaInstrumentationStrategy    A strategy to determine of the {@code LambdaMetafactory} should be instrumented to allow for the
+             *                                         instrumentation of classes that represent lambda expressions.
+             * @param descriptionStrategy              The description strategy for resolving type descriptions for types.
+             * @param installationStrategy             The installation strategy to use.
+             * @param fallbackStrategy                 The fallback strategy to apply.
+             * @param prefilter                        The prefilter to apply to a type's internal name and class loader.
+             * @param metrics                          The metrics to notify about the duration of the phases of a transformation.
+             * @param transformationCache              The transformation cache to consult before applying a transformation.
+             * @param deduplicationStrategy            The deduplication strategy for identical transformations of types of different class loaders.
+             * @param ignoredTypeMatcher               Identifies types that should not be instrumented.
+             * @param transformation                   The transformation object for handling type transformations.
              */
             protected Redefining(ByteBuddy byteBuddy,
                                  Listener listener,
@@ -8779,11 +16848,18 @@ public interface AgentBuilder {
                                  RedefinitionStrategy redefinitionStrategy,
                                  RedefinitionStrategy.BatchAllocator redefinitionBatchAllocator,
                                  RedefinitionStrategy.Listener redefinitionListener,
+                                 RedefinitionStrategy.DiscoveryStrategy redefinitionDiscoveryStrategy,
+                                 RedefinitionStrategy.ChangeDetection redefinitionChangeDetection,
+                                 RedefinitionStrategy.ResubmissionStrategy redefinitionResubmissionStrategy,
                                  BootstrapInjectionStrategy bootstrapInjectionStrategy,
                                  LambdaInstrumentationStrategy lambdaInstrumentationStrategy,
                                  DescriptionStrategy descriptionStrategy,
                                  InstallationStrategy installationStrategy,
                                  FallbackStrategy fallbackStrategy,
+                                 Prefilter prefilter,
+                                 Metrics metrics,
+                                 TransformationCache transformationCache,
+                                 DeduplicationStrategy deduplicationStrategy,
                                  RawMatcher ignoredTypeMatcher,
                                  Transformation transformation) {
                 super(byteBuddy,
@@ -8797,11 +16873,18 @@ public interface AgentBuilder {
                         redefinitionStrategy,
                         redefinitionBatchAllocator,
                         redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
                         bootstrapInjectionStrategy,
                         lambdaInstrumentationStrategy,
                         descriptionStrategy,
                         installationStrategy,
                         fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
                         ignoredTypeMatcher,
                         transformation);
             }
@@ -8819,11 +16902,18 @@ public interface AgentBuilder {
                         redefinitionStrategy,
                         redefinitionBatchAllocator,
                         redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
                         bootstrapInjectionStrategy,
                         lambdaInstrumentationStrategy,
                         descriptionStrategy,
                         installationStrategy,
                         fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
                         ignoredTypeMatcher,
                         transformation);
             }
@@ -8841,11 +16931,105 @@ public interface AgentBuilder {
                         redefinitionStrategy,
                         redefinitionBatchAllocator,
                         new RedefinitionStrategy.Listener.Compound(this.redefinitionListener, redefinitionListener),
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
+                        bootstrapInjectionStrategy,
+                        lambdaInstrumentationStrategy,
+                        descriptionStrategy,
+                        installationStrategy,
+                        fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
+                        ignoredTypeMatcher,
+                        transformation);
+            }
+
+            @Override
+            public RedefinitionListenable with(RedefinitionStrategy.DiscoveryStrategy redefinitionDiscoveryStrategy) {
+                return new Redefining(byteBuddy,
+                        listener,
+                        circularityLock,
+                        poolStrategy,
+                        typeStrategy,
+                        locationStrategy,
+                        nativeMethodStrategy,
+                        initializationStrategy,
+                        redefinitionStrategy,
+                        redefinitionBatchAllocator,
+                        redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
+                        bootstrapInjectionStrategy,
+                        lambdaInstrumentationStrategy,
+                        descriptionStrategy,
+                        installationStrategy,
+                        fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
+                        ignoredTypeMatcher,
+                        transformation);
+            }
+
+            @Override
+            public RedefinitionListenable with(RedefinitionStrategy.ChangeDetection redefinitionChangeDetection) {
+                return new Redefining(byteBuddy,
+                        listener,
+                        circularityLock,
+                        poolStrategy,
+                        typeStrategy,
+                        locationStrategy,
+                        nativeMethodStrategy,
+                        initializationStrategy,
+                        redefinitionStrategy,
+                        redefinitionBatchAllocator,
+                        redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
+                        bootstrapInjectionStrategy,
+                        lambdaInstrumentationStrategy,
+                        descriptionStrategy,
+                        installationStrategy,
+                        fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
+                        ignoredTypeMatcher,
+                        transformation);
+            }
+
+            @Override
+            public RedefinitionListenable withResubmission(RedefinitionStrategy.ResubmissionStrategy redefinitionResubmissionStrategy) {
+                return new Redefining(byteBuddy,
+                        listener,
+                        circularityLock,
+                        poolStrategy,
+                        typeStrategy,
+                        locationStrategy,
+                        nativeMethodStrategy,
+                        initializationStrategy,
+                        redefinitionStrategy,
+                        redefinitionBatchAllocator,
+                        redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
                         bootstrapInjectionStrategy,
                         lambdaInstrumentationStrategy,
                         descriptionStrategy,
                         installationStrategy,
                         fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
                         ignoredTypeMatcher,
                         transformation);
             }
@@ -8863,11 +17047,18 @@ public interface AgentBuilder {
                         ", redefinitionStrategy=" + redefinitionStrategy +
                         ", redefinitionBatchAllocator=" + redefinitionBatchAllocator +
                         ", redefinitionListener=" + redefinitionListener +
+                        ", redefinitionDiscoveryStrategy=" + redefinitionDiscoveryStrategy +
+                        ", redefinitionChangeDetection=" + redefinitionChangeDetection +
+                        ", redefinitionResubmissionStrategy=" + redefinitionResubmissionStrategy +
                         ", bootstrapInjectionStrategy=" + bootstrapInjectionStrategy +
                         ", lambdaInstrumentationStrategy=" + lambdaInstrumentationStrategy +
                         ", descriptionStrategy=" + descriptionStrategy +
                         ", installationStrategy=" + installationStrategy +
                         ", fallbackStrategy=" + fallbackStrategy +
+                        ", prefilter=" + prefilter +
+                        ", metrics=" + metrics +
+                        ", transformationCache=" + transformationCache +
+                        ", deduplicationStrategy=" + deduplicationStrategy +
                         ", ignoredTypeMatcher=" + ignoredTypeMatcher +
                         ", transformation=" + transformation +
                         '}';
@@ -8922,11 +17113,18 @@ public interface AgentBuilder {
                         redefinitionStrategy,
                         redefinitionBatchAllocator,
                         redefinitionListener,
+                        redefinitionDiscoveryStrategy,
+                        redefinitionChangeDetection,
+                        redefinitionResubmissionStrategy,
                         bootstrapInjectionStrategy,
                         lambdaInstrumentationStrategy,
                         descriptionStrategy,
                         installationStrategy,
                         fallbackStrategy,
+                        prefilter,
+                        metrics,
+                        transformationCache,
+                        deduplicationStrategy,
                         ignoredTypeMatcher,
                         new Transformation.Compound(new Transformation.Simple(rawMatcher, transformer, decorator), transformation));
             }
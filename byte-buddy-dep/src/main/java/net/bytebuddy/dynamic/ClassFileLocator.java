@@ -6,18 +6,37 @@ import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.utility.JavaModule;
 import net.bytebuddy.utility.JavaType;
 import net.bytebuddy.utility.StreamDrainer;
+import net.bytebuddy.utility.Unmapper;
 
 import java.io.*;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -474,6 +493,152 @@ public interface ClassFileLocator extends Closeable {
                         '}';
             }
         }
+
+        /**
+         * <p>
+         * A class file locator that reads class files of a {@link URLClassLoader} directly from the class loader's jar files and
+         * folders by using a {@link PackageIndexed} class file locator. Only if a class file cannot be found in this index, the class
+         * loader is queried by its resource API. Doing so, a lookup avoids querying the class loader's parents and opening a
+         * {@link java.net.URLConnection} for each class file. The class loader is only weakly referenced.
+         * </p>
+         * <p>
+         * <b>Important</b>: A class file that is found in the class loader's own jar files and folders is preferred over a class file
+         * that would be located by any of the class loader's parents. This locator should therefore only be used if a class loader's
+         * class path does not shadow types of its parents. Any class path element that is not a file URL is only considered by the
+         * fallback lookup. Types that are added to a class path element after the index was created might not be found via the index.
+         * </p>
+         */
+        public static class Indexed extends WeakReference<ClassLoader> implements ClassFileLocator {
+
+            /**
+             * The protocol of file URLs.
+             */
+            private static final String FILE_PROTOCOL = "file";
+
+            /**
+             * The class file locator that represents the index of the class loader's jar files and folders.
+             */
+            private final ClassFileLocator index;
+
+            /**
+             * The represented class loader's hash code.
+             */
+            private final int hashCode;
+
+            /**
+             * Creates an indexed class file locator.
+             *
+             * @param classLoader The class loader to represent.
+             * @param index       The class file locator that represents the index of the class loader's jar files and folders.
+             */
+            protected Indexed(ClassLoader classLoader, ClassFileLocator index) {
+                this(classLoader, index, null);
+            }
+
+            /**
+             * Creates an indexed class file locator that is enqueued to the given reference queue once the represented
+             * class loader is garbage collected.
+             *
+             * @param classLoader    The class loader to represent.
+             * @param index          The class file locator that represents the index of the class loader's jar files and folders.
+             * @param referenceQueue The reference queue to enqueue this locator to or {@code null} if it should not be enqueued.
+             */
+            protected Indexed(ClassLoader classLoader, ClassFileLocator index, ReferenceQueue<? super ClassLoader> referenceQueue) {
+                super(classLoader, referenceQueue);
+                this.index = index;
+                hashCode = System.identityHashCode(classLoader);
+            }
+
+            /**
+             * Creates a class file locator for a given class loader. If the class loader is a {@link URLClassLoader}, its class path
+             * is indexed upon the creation of the class file locator. Otherwise, a {@link WeaklyReferenced} class file locator is
+             * returned. If the class loader's class path cannot be indexed, the class loader is queried by its resource API only.
+             *
+             * @param classLoader The class loader to be used. If this class loader represents the bootstrap class
+             *                    loader which is represented by the {@code null} value, this system class loader
+             *                    is used instead.
+             * @return A corresponding source locator.
+             */
+            public static ClassFileLocator of(ClassLoader classLoader) {
+                return of(classLoader, null);
+            }
+
+            /**
+             * Creates a class file locator for a given class loader. If the class loader is a {@link URLClassLoader}, its class path
+             * is indexed upon the creation of the class file locator and the returned locator is enqueued to the given reference
+             * queue once the class loader is garbage collected such that the jar files it holds open can be closed. Otherwise, a
+             * {@link WeaklyReferenced} class file locator is returned. If the class loader's class path cannot be indexed, the class
+             * loader is queried by its resource API only.
+             *
+             * @param classLoader    The class loader to be used. If this class loader represents the bootstrap class
+             *                       loader which is represented by the {@code null} value, this system class loader
+             *                       is used instead.
+             * @param referenceQueue The reference queue to enqueue an indexed locator to or {@code null} if it should not be enqueued.
+             * @return A corresponding source locator.
+             */
+            public static ClassFileLocator of(ClassLoader classLoader, ReferenceQueue<? super ClassLoader> referenceQueue) {
+                if (!(classLoader instanceof URLClassLoader)) {
+                    return WeaklyReferenced.of(classLoader);
+                }
+                List<File> files = new ArrayList<File>();
+                for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+                    if (url.getProtocol().equals(FILE_PROTOCOL)) {
+                        try {
+                            files.add(new File(url.toURI()));
+                        } catch (URISyntaxException ignored) {
+                            /* do nothing: the class path element is considered by the fallback lookup */
+                        } catch (IllegalArgumentException ignored) {
+                            /* do nothing: the class path element is considered by the fallback lookup */
+                        }
+                    }
+                }
+                try {
+                    return new Indexed(classLoader, PackageIndexed.of(files), referenceQueue);
+                } catch (IOException ignored) {
+                    return WeaklyReferenced.of(classLoader);
+                }
+            }
+
+            @Override
+            public Resolution locate(String typeName) throws IOException {
+                ClassLoader classLoader = get();
+                if (classLoader == null) {
+                    return new Resolution.Illegal(typeName);
+                }
+                Resolution resolution = index.locate(typeName);
+                return resolution.isResolved()
+                        ? resolution
+                        : ForClassLoader.locate(classLoader, typeName);
+            }
+
+            @Override
+            public void close() throws IOException {
+                index.close();
+            }
+
+            @Override
+            public int hashCode() {
+                return hashCode;
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                Indexed that = (Indexed) object;
+                ClassLoader classLoader = that.get();
+                return classLoader != null && get() == classLoader && index.equals(that.index);
+            }
+
+            @Override
+            public String toString() {
+                return "ClassFileLocator.ForClassLoader.Indexed{" +
+                        "classLoader=" + get() +
+                        ", index=" + index +
+                        ", hashCode=" + hashCode +
+                        '}';
+            }
+        }
     }
 
     /**
@@ -734,7 +899,8 @@ public interface ClassFileLocator extends Closeable {
          * Resolves a class file locator for the class path that reads class files directly from the file system.
          * </p>
          * <p>
-         * <b>Note</b>: The resulting class file locator does not include classes of the bootstrap class loader.
+         * <b>Note</b>: The resulting class file locator does not include classes of the bootstrap class loader. For a class
+         * file locator that indexes the class path by package, use {@link PackageIndexed#ofClassPath(String)}.
          * </p>
          *
          * @param classPath The class path to scan with the elements separated by {@code path.separator}.
@@ -784,7 +950,7 @@ public interface ClassFileLocator extends Closeable {
             } else {
                 InputStream inputStream = jarFile.getInputStream(zipEntry);
                 try {
-                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream));
+                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream, (int) Math.min(zipEntry.getSize(), Integer.MAX_VALUE)));
                 } finally {
                     inputStream.close();
                 }
@@ -813,104 +979,621 @@ public interface ClassFileLocator extends Closeable {
                     "jarFile=" + jarFile +
                     '}';
         }
-    }
-
-    /**
-     * A class file locator that locates classes within a Java <i>jmod</i> file. This class file locator should not be used
-     * for reading modular jar files for which {@link ForJarFile} is appropriate.
-     */
-    class ForModuleFile implements ClassFileLocator {
 
         /**
-         * The file extension of a modular Java package.
+         * <p>
+         * A class file locator that memory-maps a jar file and that reads the jar file's central directory once upon its creation.
+         * Stored class files are copied once from the mapped file into the returned array. Deflated class files are inflated
+         * directly from the mapped file into an array of the class file's size on VMs of version 11 or later. On older VMs,
+         * an inflater only accepts arrays as its input such that a deflated class file's compressed content is copied to the
+         * heap before it is inflated.
+         * </p>
+         * <p>
+         * <b>Note</b>: This class file locator does not support jar files that require the ZIP64 format. Closing this locator
+         * releases the memory mapping if the current VM allows for it. Any class file can no longer be located after this
+         * locator is closed.
+         * </p>
          */
-        private static final String JMOD_FILE_EXTENSION = ".jmod";
+        public static class MemoryMapped implements ClassFileLocator {
 
-        /**
-         * A list of potential locations of the boot path for different platforms.
-         */
-        private static final List<String> BOOT_LOCATIONS = Arrays.asList("jmods", "../jmods");
+            /**
+             * The signature of the end of central directory record.
+             */
+            private static final int END_OF_CENTRAL_DIRECTORY = 0x06054B50;
 
-        /**
-         * The represented jmod file.
-         */
-        private final ZipFile zipFile;
+            /**
+             * The signature of a central directory file header.
+             */
+            private static final int CENTRAL_DIRECTORY_HEADER = 0x02014B50;
 
-        /**
-         * Creates a new class file locator for a jmod file.
-         *
-         * @param zipFile The represented jmod file.
-         */
-        public ForModuleFile(ZipFile zipFile) {
-            this.zipFile = zipFile;
-        }
+            /**
+             * The signature of a local file header.
+             */
+            private static final int LOCAL_FILE_HEADER = 0x04034B50;
 
-        /**
-         * Creates a new class file locator for this VM's boot module path.
-         *
-         * @return A class file locator for this VM's boot module path.
-         * @throws IOException If an I/O error occurs.
-         */
-        public static ClassFileLocator ofBootPath() throws IOException {
-            String javaHome = System.getProperty("java.home").replace('\\', '/');
-            File bootPath = null;
-            for (String location : BOOT_LOCATIONS) {
-                File candidate = new File(javaHome, location);
-                if (candidate.isDirectory()) {
-                    bootPath = candidate;
-                    break;
+            /**
+             * The minimal size of the end of central directory record.
+             */
+            private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+            /**
+             * The maximal length of a zip file comment.
+             */
+            private static final int MAXIMUM_COMMENT_LENGTH = 0xFFFF;
+
+            /**
+             * The size of a central directory file header without its variable-length fields.
+             */
+            private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+            /**
+             * The size of a local file header without its variable-length fields.
+             */
+            private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+            /**
+             * The compression method of stored entries.
+             */
+            private static final int STORED = 0;
+
+            /**
+             * The compression method of deflated entries.
+             */
+            private static final int DEFLATED = 8;
+
+            /**
+             * The general purpose flag that indicates an entry name that is encoded in UTF-8.
+             */
+            private static final int UTF_8_FLAG = 1 << 11;
+
+            /**
+             * The unmapper to use for releasing a jar file's mapping.
+             */
+            private static final Unmapper UNMAPPER = AccessController.doPrivileged(Unmapper.CreationAction.INSTANCE);
+
+            /**
+             * The dispatcher to use for supplying a deflated entry's content to an inflater.
+             */
+            private static final Dispatcher DISPATCHER = AccessController.doPrivileged(Dispatcher.CreationAction.INSTANCE);
+
+            /**
+             * The jar file that is represented by this locator.
+             */
+            private final File file;
+
+            /**
+             * A mapping of the names of all class file entries to their entries.
+             */
+            private final Map<String, Entry> entries;
+
+            /**
+             * A lock that is held for reading while the mapping is accessed and for writing when the mapping is released.
+             */
+            private final ReadWriteLock lock;
+
+            /**
+             * The memory-mapped jar file or {@code null} if this locator was closed.
+             */
+            private MappedByteBuffer mapping;
+
+            /**
+             * Creates a new memory-mapped jar file class file locator.
+             *
+             * @param file    The jar file that is represented by this locator.
+             * @param mapping The memory-mapped jar file.
+             * @param entries A mapping of the names of all class file entries to their entries.
+             */
+            protected MemoryMapped(File file, MappedByteBuffer mapping, Map<String, Entry> entries) {
+                this.file = file;
+                this.mapping = mapping;
+                this.entries = entries;
+                lock = new ReentrantReadWriteLock();
+            }
+
+            /**
+             * Creates a class file locator that memory-maps the given jar file.
+             *
+             * @param file The jar file to read from.
+             * @return A class file locator for the jar file.
+             * @throws IOException If an I/O exception occurs or if the file is not a jar file that is supported by this locator.
+             */
+            public static ClassFileLocator of(File file) throws IOException {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                MappedByteBuffer mapping;
+                try {
+                    if (randomAccessFile.length() > Integer.MAX_VALUE) {
+                        throw new IOException("Cannot memory-map a jar file of more than 2 GB: " + file);
+                    }
+                    mapping = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+                } finally {
+                    randomAccessFile.close();
+                }
+                mapping.order(ByteOrder.LITTLE_ENDIAN);
+                try {
+                    return new MemoryMapped(file, mapping, readCentralDirectory(mapping, file));
+                } catch (IOException exception) {
+                    UNMAPPER.unmap(mapping);
+                    throw exception;
+                } catch (BufferUnderflowException exception) {
+                    UNMAPPER.unmap(mapping);
+                    throw new IOException("Corrupt central directory of " + file, exception);
+                } catch (IndexOutOfBoundsException exception) {
+                    UNMAPPER.unmap(mapping);
+                    throw new IOException("Corrupt central directory of " + file, exception);
+                } catch (IllegalArgumentException exception) {
+                    UNMAPPER.unmap(mapping);
+                    throw new IOException("Corrupt central directory of " + file, exception);
                 }
             }
-            if (bootPath == null) {
-                throw new IllegalStateException("Boot modules do not exist in " + javaHome + " for any of " + BOOT_LOCATIONS);
+
+            /**
+             * Reads the central directory of a memory-mapped jar file.
+             *
+             * @param buffer The memory-mapped jar file.
+             * @param file   The jar file that is represented by the buffer.
+             * @return A mapping of the names of all class file entries to their entries.
+             * @throws IOException If the central directory cannot be read.
+             */
+            private static Map<String, Entry> readCentralDirectory(ByteBuffer buffer, File file) throws IOException {
+                int endOfCentralDirectory = -1;
+                for (int position = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+                     position >= Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAXIMUM_COMMENT_LENGTH);
+                     position--) {
+                    if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+                        endOfCentralDirectory = position;
+                        break;
+                    }
+                }
+                if (endOfCentralDirectory == -1) {
+                    throw new IOException("Cannot locate central directory of " + file);
+                }
+                int count = buffer.getShort(endOfCentralDirectory + 10) & 0xFFFF;
+                long offset = buffer.getInt(endOfCentralDirectory + 16) & 0xFFFFFFFFL;
+                if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+                    throw new IOException("ZIP64 format is not supported: " + file);
+                }
+                Map<String, Entry> entries = new HashMap<String, Entry>(count * 2);
+                int position = (int) offset;
+                for (int index = 0; index < count; index++) {
+                    if (position + CENTRAL_DIRECTORY_HEADER_SIZE > buffer.limit() || buffer.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                        throw new IOException("Corrupt central directory of " + file);
+                    }
+                    int flags = buffer.getShort(position + 8) & 0xFFFF;
+                    int method = buffer.getShort(position + 10) & 0xFFFF;
+                    int crc = buffer.getInt(position + 16);
+                    long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+                    long size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+                    int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+                    int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+                    int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+                    long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+                    byte[] name = new byte[nameLength];
+                    ByteBuffer nameBuffer = buffer.duplicate();
+                    nameBuffer.position(position + CENTRAL_DIRECTORY_HEADER_SIZE);
+                    nameBuffer.get(name);
+                    String entryName = new String(name, (flags & UTF_8_FLAG) == 0 ? "ISO-8859-1" : "UTF-8");
+                    if (entryName.endsWith(CLASS_FILE_EXTENSION)) {
+                        if (compressedSize > Integer.MAX_VALUE || size > Integer.MAX_VALUE || localHeaderOffset > Integer.MAX_VALUE) {
+                            throw new IOException("ZIP64 format is not supported: " + file);
+                        }
+                        entries.put(entryName, new Entry(method, crc, (int) compressedSize, (int) size, (int) localHeaderOffset));
+                    }
+                    position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+                }
+                return entries;
             }
-            return ofBootPath(bootPath);
-        }
 
-        /**
-         * Creates a new class file locator for a Java boot module path.
-         *
-         * @param bootPath The boot path folder.
-         * @return A class file locator for this VMs boot module path.
-         * @throws IOException If an I/O error occurs.
-         */
-        public static ClassFileLocator ofBootPath(File bootPath) throws IOException {
-            File[] module = bootPath.listFiles();
-            if (module == null) {
-                return NoOp.INSTANCE;
+            @Override
+            public Resolution locate(String typeName) throws IOException {
+                Entry entry = entries.get(typeName.replace('.', '/') + CLASS_FILE_EXTENSION);
+                if (entry == null) {
+                    return new Resolution.Illegal(typeName);
+                }
+                lock.readLock().lock();
+                try {
+                    if (mapping == null) {
+                        throw new IllegalStateException("Class file locator is closed: " + file);
+                    }
+                    return new Resolution.Explicit(entry.read(mapping));
+                } catch (BufferUnderflowException exception) {
+                    throw new IOException("Corrupt entry for " + typeName + " in " + file, exception);
+                } catch (IndexOutOfBoundsException exception) {
+                    throw new IOException("Corrupt entry for " + typeName + " in " + file, exception);
+                } catch (IllegalArgumentException exception) {
+                    throw new IOException("Corrupt entry for " + typeName + " in " + file, exception);
+                } finally {
+                    lock.readLock().unlock();
+                }
             }
-            List<ClassFileLocator> classFileLocators = new ArrayList<ClassFileLocator>(module.length);
-            for (File aModule : module) {
-                if (aModule.isFile()) {
-                    classFileLocators.add(of(aModule));
+
+            @Override
+            public void close() {
+                lock.writeLock().lock();
+                try {
+                    if (mapping != null) {
+                        UNMAPPER.unmap(mapping);
+                        mapping = null;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
                 }
             }
-            return new Compound(classFileLocators);
-        }
 
-        /**
-         * <p>
-         * Resolves a class file locator for this VM's Java module path that reads class files directly from the file system.
-         * </p>
-         * <p>
-         * <b>Note</b>: The resulting class file locator does not include classes of the bootstrap class loader.
-         * </p>
-         *
-         * @return A class file locator for the class path.
-         * @throws IOException If an I/O exception occurs.
-         */
-        public static ClassFileLocator ofModulePath() throws IOException {
-            String modulePath = System.getProperty("jdk.module.path");
-            return modulePath == null
-                    ? NoOp.INSTANCE
-                    : ofModulePath(modulePath);
-        }
+            @Override
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (other == null || getClass() != other.getClass()) return false;
+                return file.equals(((MemoryMapped) other).file);
+            }
 
-        /**
-         * <p>
-         * Resolves a class file locator for a Java module path that reads class files directly from the file system. All
-         * elements of the module path are resolved releatively to this VM's {@code user.dir}.
-         * </p>
+            @Override
+            public int hashCode() {
+                return file.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return "ClassFileLocator.ForJarFile.MemoryMapped{" +
+                        "file=" + file +
+                        ", mapping=" + mapping +
+                        ", entries=" + entries.size() +
+                        '}';
+            }
+
+            /**
+             * A dispatcher for supplying the compressed content of a deflated entry to an inflater.
+             */
+            protected interface Dispatcher {
+
+                /**
+                 * Sets the input of an inflater. The inflater must not be used after the input buffer's memory is released.
+                 *
+                 * @param inflater The inflater to supply with input.
+                 * @param input    A buffer of the compressed content.
+                 */
+                void setInput(Inflater inflater, ByteBuffer input);
+
+                /**
+                 * A creation action for a dispatcher.
+                 */
+                enum CreationAction implements PrivilegedAction<Dispatcher> {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public Dispatcher run() {
+                        try {
+                            return new ForJava11CapableVm(Inflater.class.getMethod("setInput", ByteBuffer.class));
+                        } catch (NoSuchMethodException ignored) {
+                            return ForLegacyVm.INSTANCE;
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.CreationAction." + name();
+                    }
+                }
+
+                /**
+                 * A dispatcher for a VM prior to Java 11 that copies the compressed content to an array.
+                 */
+                enum ForLegacyVm implements Dispatcher {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public void setInput(Inflater inflater, ByteBuffer input) {
+                        byte[] compressed = new byte[input.remaining()];
+                        input.get(compressed);
+                        inflater.setInput(compressed);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.ForLegacyVm." + name();
+                    }
+                }
+
+                /**
+                 * A dispatcher for a Java 11 capable VM that supplies the compressed content to the inflater without copying it.
+                 */
+                class ForJava11CapableVm implements Dispatcher {
+
+                    /**
+                     * The {@code java.util.zip.Inflater#setInput(ByteBuffer)} method.
+                     */
+                    private final Method setInput;
+
+                    /**
+                     * Creates a new dispatcher for a Java 11 capable VM.
+                     *
+                     * @param setInput The {@code java.util.zip.Inflater#setInput(ByteBuffer)} method.
+                     */
+                    protected ForJava11CapableVm(Method setInput) {
+                        this.setInput = setInput;
+                    }
+
+                    @Override
+                    public void setInput(Inflater inflater, ByteBuffer input) {
+                        try {
+                            setInput.invoke(inflater, input);
+                        } catch (IllegalAccessException exception) {
+                            throw new IllegalStateException("Cannot access java.util.zip.Inflater#setInput(ByteBuffer)", exception);
+                        } catch (InvocationTargetException exception) {
+                            throw new IllegalStateException("Error invoking java.util.zip.Inflater#setInput(ByteBuffer)", exception.getCause());
+                        }
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        return this == other || !(other == null || getClass() != other.getClass())
+                                && setInput.equals(((ForJava11CapableVm) other).setInput);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return setInput.hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.ForJava11CapableVm{" +
+                                "setInput=" + setInput +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * An entry of a memory-mapped jar file.
+             */
+            protected static class Entry {
+
+                /**
+                 * The compression method of the entry.
+                 */
+                private final int method;
+
+                /**
+                 * The CRC-32 checksum of the entry's uncompressed content as recorded by the central directory.
+                 */
+                private final int crc;
+
+                /**
+                 * The compressed size of the entry.
+                 */
+                private final int compressedSize;
+
+                /**
+                 * The uncompressed size of the entry.
+                 */
+                private final int size;
+
+                /**
+                 * The offset of the entry's local file header.
+                 */
+                private final int localHeaderOffset;
+
+                /**
+                 * Creates a new entry.
+                 *
+                 * @param method            The compression method of the entry.
+                 * @param crc               The CRC-32 checksum of the entry's uncompressed content as recorded by the central directory.
+                 * @param compressedSize    The compressed size of the entry.
+                 * @param size              The uncompressed size of the entry.
+                 * @param localHeaderOffset The offset of the entry's local file header.
+                 */
+                protected Entry(int method, int crc, int compressedSize, int size, int localHeaderOffset) {
+                    this.method = method;
+                    this.crc = crc;
+                    this.compressedSize = compressedSize;
+                    this.size = size;
+                    this.localHeaderOffset = localHeaderOffset;
+                }
+
+                /**
+                 * Reads this entry's content and verifies it against the checksum of the central directory.
+                 *
+                 * @param buffer The memory-mapped jar file.
+                 * @return The entry's uncompressed content.
+                 * @throws IOException If the entry cannot be read or if its content does not match its checksum.
+                 */
+                protected byte[] read(ByteBuffer buffer) throws IOException {
+                    byte[] binaryRepresentation = doRead(buffer);
+                    CRC32 crc32 = new CRC32();
+                    crc32.update(binaryRepresentation);
+                    if ((int) crc32.getValue() != crc) {
+                        throw new IOException("Checksum mismatch of entry at " + localHeaderOffset);
+                    }
+                    return binaryRepresentation;
+                }
+
+                /**
+                 * Reads this entry's content without verifying it.
+                 *
+                 * @param buffer The memory-mapped jar file.
+                 * @return The entry's uncompressed content.
+                 * @throws IOException If the entry cannot be read.
+                 */
+                private byte[] doRead(ByteBuffer buffer) throws IOException {
+                    if (buffer.getInt(localHeaderOffset) != LOCAL_FILE_HEADER) {
+                        throw new IOException("Corrupt local file header at " + localHeaderOffset);
+                    }
+                    ByteBuffer data = buffer.duplicate();
+                    data.position(localHeaderOffset
+                            + LOCAL_FILE_HEADER_SIZE
+                            + (buffer.getShort(localHeaderOffset + 26) & 0xFFFF)
+                            + (buffer.getShort(localHeaderOffset + 28) & 0xFFFF));
+                    switch (method) {
+                        case STORED:
+                            byte[] binaryRepresentation = new byte[size];
+                            data.get(binaryRepresentation);
+                            return binaryRepresentation;
+                        case DEFLATED:
+                            ByteBuffer compressed = data.slice();
+                            compressed.limit(compressedSize);
+                            Inflater inflater = new Inflater(true);
+                            try {
+                                DISPATCHER.setInput(inflater, compressed);
+                                byte[] inflated = new byte[size];
+                                int length = 0;
+                                while (length < size) {
+                                    int read = inflater.inflate(inflated, length, size - length);
+                                    if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                                        throw new IOException("Unexpected end of deflated entry at " + localHeaderOffset);
+                                    }
+                                    length += read;
+                                }
+                                return inflated;
+                            } catch (DataFormatException exception) {
+                                throw new IOException("Corrupt deflated entry at " + localHeaderOffset, exception);
+                            } finally {
+                                inflater.end();
+                            }
+                        default:
+                            throw new IOException("Unsupported compression method " + method + " of entry at " + localHeaderOffset);
+                    }
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    Entry entry = (Entry) other;
+                    return method == entry.method
+                            && crc == entry.crc
+                            && compressedSize == entry.compressedSize
+                            && size == entry.size
+                            && localHeaderOffset == entry.localHeaderOffset;
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = method;
+                    result = 31 * result + crc;
+                    result = 31 * result + compressedSize;
+                    result = 31 * result + size;
+                    result = 31 * result + localHeaderOffset;
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return "ClassFileLocator.ForJarFile.MemoryMapped.Entry{" +
+                            "method=" + method +
+                            ", crc=" + crc +
+                            ", compressedSize=" + compressedSize +
+                            ", size=" + size +
+                            ", localHeaderOffset=" + localHeaderOffset +
+                            '}';
+                }
+            }
+        }
+    }
+
+    /**
+     * A class file locator that locates classes within a Java <i>jmod</i> file. This class file locator should not be used
+     * for reading modular jar files for which {@link ForJarFile} is appropriate.
+     */
+    class ForModuleFile implements ClassFileLocator {
+
+        /**
+         * The file extension of a modular Java package.
+         */
+        private static final String JMOD_FILE_EXTENSION = ".jmod";
+
+        /**
+         * A list of potential locations of the boot path for different platforms.
+         */
+        private static final List<String> BOOT_LOCATIONS = Arrays.asList("jmods", "../jmods");
+
+        /**
+         * The represented jmod file.
+         */
+        private final ZipFile zipFile;
+
+        /**
+         * Creates a new class file locator for a jmod file.
+         *
+         * @param zipFile The represented jmod file.
+         */
+        public ForModuleFile(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+
+        /**
+         * Creates a new class file locator for this VM's boot module path.
+         *
+         * @return A class file locator for this VM's boot module path.
+         * @throws IOException If an I/O error occurs.
+         */
+        public static ClassFileLocator ofBootPath() throws IOException {
+            String javaHome = System.getProperty("java.home").replace('\\', '/');
+            File bootPath = null;
+            for (String location : BOOT_LOCATIONS) {
+                File candidate = new File(javaHome, location);
+                if (candidate.isDirectory()) {
+                    bootPath = candidate;
+                    break;
+                }
+            }
+            if (bootPath == null) {
+                throw new IllegalStateException("Boot modules do not exist in " + javaHome + " for any of " + BOOT_LOCATIONS);
+            }
+            return ofBootPath(bootPath);
+        }
+
+        /**
+         * Creates a new class file locator for a Java boot module path.
+         *
+         * @param bootPath The boot path folder.
+         * @return A class file locator for this VMs boot module path.
+         * @throws IOException If an I/O error occurs.
+         */
+        public static ClassFileLocator ofBootPath(File bootPath) throws IOException {
+            File[] module = bootPath.listFiles();
+            if (module == null) {
+                return NoOp.INSTANCE;
+            }
+            List<ClassFileLocator> classFileLocators = new ArrayList<ClassFileLocator>(module.length);
+            for (File aModule : module) {
+                if (aModule.isFile()) {
+                    classFileLocators.add(of(aModule));
+                }
+            }
+            return new Compound(classFileLocators);
+        }
+
+        /**
+         * <p>
+         * Resolves a class file locator for this VM's Java module path that reads class files directly from the file system.
+         * </p>
+         * <p>
+         * <b>Note</b>: The resulting class file locator does not include classes of the bootstrap class loader.
+         * </p>
+         *
+         * @return A class file locator for the class path.
+         * @throws IOException If an I/O exception occurs.
+         */
+        public static ClassFileLocator ofModulePath() throws IOException {
+            String modulePath = System.getProperty("jdk.module.path");
+            return modulePath == null
+                    ? NoOp.INSTANCE
+                    : ofModulePath(modulePath);
+        }
+
+        /**
+         * <p>
+         * Resolves a class file locator for a Java module path that reads class files directly from the file system. All
+         * elements of the module path are resolved releatively to this VM's {@code user.dir}.
+         * </p>
          * <p>
          * <b>Note</b>: The resulting class file locator does not include classes of the bootstrap class loader.
          * </p>
@@ -981,7 +1664,7 @@ public interface ClassFileLocator extends Closeable {
             } else {
                 InputStream inputStream = zipFile.getInputStream(zipEntry);
                 try {
-                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream));
+                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream, (int) Math.min(zipEntry.getSize(), Integer.MAX_VALUE)));
                 } finally {
                     inputStream.close();
                 }
@@ -1041,7 +1724,7 @@ public interface ClassFileLocator extends Closeable {
             if (file.exists()) {
                 InputStream inputStream = new FileInputStream(file);
                 try {
-                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream));
+                    return new Resolution.Explicit(StreamDrainer.DEFAULT.drain(inputStream, (int) Math.min(file.length(), Integer.MAX_VALUE)));
                 } finally {
                     inputStream.close();
                 }
@@ -1726,6 +2409,232 @@ public interface ClassFileLocator extends Closeable {
         }
     }
 
+    /**
+     * <p>
+     * A class file locator that queries a list of class file locators in their order but that only considers those locators
+     * that are indexed to contain a type's package. Doing so, the cost of a lookup does not depend on the number of class
+     * file locators that are represented by this locator.
+     * </p>
+     * <p>
+     * <b>Note</b>: A type of a package that is not indexed for any class file locator cannot be located. Types that are
+     * added to a package after an index was built are only located if their package was already indexed for the class file
+     * locator that can provide the type.
+     * </p>
+     */
+    class PackageIndexed implements ClassFileLocator {
+
+        /**
+         * The prefix of jar file entries that do not represent types of the jar file.
+         */
+        private static final String META_INF = "META-INF/";
+
+        /**
+         * A mapping of package names to the class file locators that contain types of this package in their order of application.
+         */
+        private final Map<String, List<ClassFileLocator>> index;
+
+        /**
+         * All class file locators that are represented by this locator.
+         */
+        private final List<? extends ClassFileLocator> classFileLocators;
+
+        /**
+         * Creates a new package-indexed class file locator.
+         *
+         * @param index             A mapping of package names to the class file locators that contain types of this package in their
+         *                          order of application where an empty string donates the default package.
+         * @param classFileLocators All class file locators that are represented by this locator.
+         */
+        public PackageIndexed(Map<String, List<ClassFileLocator>> index, List<? extends ClassFileLocator> classFileLocators) {
+            this.index = index;
+            this.classFileLocators = classFileLocators;
+        }
+
+        /**
+         * Creates a package-indexed class file locator for the class path that reads class files directly from the file system.
+         * The resulting class file locator does not imply classes on the boot path.
+         *
+         * @return A package-indexed class file locator for the class path.
+         * @throws IOException If an I/O exception occurs.
+         */
+        public static ClassFileLocator ofClassPath() throws IOException {
+            return ofClassPath(System.getProperty("java.class.path"));
+        }
+
+        /**
+         * Creates a package-indexed class file locator for the given class path that reads class files directly from the
+         * file system. Any jar file's entries and any folder's structure are read once to build the index.
+         *
+         * @param classPath The class path to scan with the elements separated by {@code path.separator}.
+         * @return A package-indexed class file locator for the class path.
+         * @throws IOException If an I/O exception occurs.
+         */
+        public static ClassFileLocator ofClassPath(String classPath) throws IOException {
+            List<File> files = new ArrayList<File>();
+            for (String element : Pattern.compile(System.getProperty("path.separator"), Pattern.LITERAL).split(classPath)) {
+                files.add(new File(element));
+            }
+            return of(files);
+        }
+
+        /**
+         * Creates a package-indexed class file locator for the given jar files and folders that reads class files directly from the
+         * file system. Any jar file's entries and any folder's structure are read once to build the index. Files that do neither
+         * represent a folder nor a regular file are ignored. If the index cannot be built, any jar file that was already opened
+         * is closed.
+         *
+         * @param files The jar files and folders to represent in their order of application.
+         * @return A package-indexed class file locator for the supplied files.
+         * @throws IOException If an I/O exception occurs.
+         */
+        public static ClassFileLocator of(List<? extends File> files) throws IOException {
+            Map<String, List<ClassFileLocator>> index = new HashMap<String, List<ClassFileLocator>>();
+            List<ClassFileLocator> classFileLocators = new ArrayList<ClassFileLocator>();
+            boolean indexed = false;
+            try {
+                for (File file : files) {
+                    if (file.isDirectory()) {
+                        ClassFileLocator classFileLocator = new ForFolder(file);
+                        classFileLocators.add(classFileLocator);
+                        index(file, NamedElement.EMPTY_NAME, classFileLocator, index, new HashSet<File>());
+                    } else if (file.isFile()) {
+                        JarFile jarFile = new JarFile(file);
+                        ClassFileLocator classFileLocator = new ForJarFile(jarFile);
+                        classFileLocators.add(classFileLocator);
+                        Enumeration<JarEntry> entries = jarFile.entries();
+                        while (entries.hasMoreElements()) {
+                            String name = entries.nextElement().getName();
+                            if (name.endsWith(CLASS_FILE_EXTENSION) && !name.startsWith(META_INF)) {
+                                int packageIndex = name.lastIndexOf('/');
+                                register(packageIndex == -1
+                                        ? NamedElement.EMPTY_NAME
+                                        : name.substring(0, packageIndex).replace('/', '.'), classFileLocator, index);
+                            }
+                        }
+                    }
+                }
+                indexed = true;
+            } finally {
+                if (!indexed) {
+                    for (ClassFileLocator classFileLocator : classFileLocators) {
+                        try {
+                            classFileLocator.close();
+                        } catch (IOException ignored) {
+                            /* do nothing: the original exception is propagated */
+                        }
+                    }
+                }
+            }
+            return new PackageIndexed(index, classFileLocators);
+        }
+
+        /**
+         * Indexes the packages of a folder structure of class files. A folder that is already being indexed by an enclosing
+         * invocation, for example because of a symbolic link to one of its parent folders, is not indexed again.
+         *
+         * @param folder           The folder to index.
+         * @param packageName      The name of the package that is represented by the folder.
+         * @param classFileLocator The class file locator that reads from the folder structure.
+         * @param index            The index to register any found package in.
+         * @param parents          The canonical files of all folders that are currently being indexed.
+         * @throws IOException If the canonical file of a folder cannot be resolved.
+         */
+        private static void index(File folder,
+                                  String packageName,
+                                  ClassFileLocator classFileLocator,
+                                  Map<String, List<ClassFileLocator>> index,
+                                  Set<File> parents) throws IOException {
+            File canonicalFolder = folder.getCanonicalFile();
+            if (!parents.add(canonicalFolder)) {
+                return;
+            }
+            try {
+                File[] file = folder.listFiles();
+                if (file == null) {
+                    return;
+                }
+                boolean containsClassFile = false;
+                for (File aFile : file) {
+                    if (aFile.isDirectory()) {
+                        index(aFile, packageName.length() == 0
+                                ? aFile.getName()
+                                : packageName + "." + aFile.getName(), classFileLocator, index, parents);
+                    } else if (!containsClassFile && aFile.getName().endsWith(CLASS_FILE_EXTENSION)) {
+                        containsClassFile = true;
+                    }
+                }
+                if (containsClassFile) {
+                    register(packageName, classFileLocator, index);
+                }
+            } finally {
+                parents.remove(canonicalFolder);
+            }
+        }
+
+        /**
+         * Registers a class file locator for a package unless it is already registered.
+         *
+         * @param packageName      The name of the package.
+         * @param classFileLocator The class file locator containing types of the package.
+         * @param index            The index to register the package in.
+         */
+        private static void register(String packageName, ClassFileLocator classFileLocator, Map<String, List<ClassFileLocator>> index) {
+            List<ClassFileLocator> classFileLocators = index.get(packageName);
+            if (classFileLocators == null) {
+                classFileLocators = new ArrayList<ClassFileLocator>(1);
+                index.put(packageName, classFileLocators);
+            }
+            if (classFileLocators.isEmpty() || classFileLocators.get(classFileLocators.size() - 1) != classFileLocator) {
+                classFileLocators.add(classFileLocator);
+            }
+        }
+
+        @Override
+        public Resolution locate(String typeName) throws IOException {
+            int packageIndex = typeName.lastIndexOf('.');
+            List<ClassFileLocator> classFileLocators = index.get(packageIndex == -1
+                    ? NamedElement.EMPTY_NAME
+                    : typeName.substring(0, packageIndex));
+            if (classFileLocators != null) {
+                for (ClassFileLocator classFileLocator : classFileLocators) {
+                    Resolution resolution = classFileLocator.locate(typeName);
+                    if (resolution.isResolved()) {
+                        return resolution;
+                    }
+                }
+            }
+            return new Resolution.Illegal(typeName);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (ClassFileLocator classFileLocator : classFileLocators) {
+                classFileLocator.close();
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            PackageIndexed that = (PackageIndexed) other;
+            return index.equals(that.index) && classFileLocators.equals(that.classFileLocators);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * index.hashCode() + classFileLocators.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "ClassFileLocator.PackageIndexed{" +
+                    "index=" + index +
+                    ", classFileLocators=" + classFileLocators +
+                    '}';
+        }
+    }
+
     /**
      * A compound {@link ClassFileLocator} that chains several locators.
      * Any class file locator is queried in the supplied order until one locator is able to provide an input
@@ -1793,4 +2702,290 @@ public interface ClassFileLocator extends Closeable {
             return "ClassFileLocator.Compound{classFileLocators=" + classFileLocators + '}';
         }
     }
+
+    /**
+     * <p>
+     * A class file locator that remembers the names of types it could not locate such that a repeated lookup of a missing type
+     * does not query the delegate class file locator again. This avoids repeated resource lookups of a class loader, for example
+     * when optional dependencies are probed.
+     * </p>
+     * <p>
+     * <b>Important</b>: If the delegate class file locator might locate a previously missing type at a later point, for example
+     * because a class loader's resources can change, the {@link Registry} of missing types must be invalidated explicitly.
+     * </p>
+     */
+    class NegativeCaching implements ClassFileLocator {
+
+        /**
+         * The class file locator to delegate to.
+         */
+        private final ClassFileLocator classFileLocator;
+
+        /**
+         * The registry of types that could not be located.
+         */
+        private final Registry registry;
+
+        /**
+         * Creates a new negative caching class file locator.
+         *
+         * @param classFileLocator The class file locator to delegate to.
+         * @param registry         The registry of types that could not be located.
+         */
+        public NegativeCaching(ClassFileLocator classFileLocator, Registry registry) {
+            this.classFileLocator = classFileLocator;
+            this.registry = registry;
+        }
+
+        /**
+         * Creates a negative caching class file locator with a new registry of a default capacity.
+         *
+         * @param classFileLocator The class file locator to delegate to.
+         * @return A negative caching class file locator that delegates to the given locator.
+         */
+        public static NegativeCaching of(ClassFileLocator classFileLocator) {
+            return new NegativeCaching(classFileLocator, new Registry());
+        }
+
+        /**
+         * Returns the registry of types that could not be located.
+         *
+         * @return The registry of types that could not be located.
+         */
+        public Registry getRegistry() {
+            return registry;
+        }
+
+        @Override
+        public Resolution locate(String typeName) throws IOException {
+            if (registry.contains(typeName)) {
+                return new Resolution.Illegal(typeName);
+            }
+            Resolution resolution = classFileLocator.locate(typeName);
+            if (!resolution.isResolved()) {
+                registry.register(typeName);
+            }
+            return resolution;
+        }
+
+        @Override
+        public void close() throws IOException {
+            classFileLocator.close();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            NegativeCaching that = (NegativeCaching) other;
+            return classFileLocator.equals(that.classFileLocator) && registry.equals(that.registry);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = classFileLocator.hashCode();
+            result = 31 * result + registry.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "ClassFileLocator.NegativeCaching{" +
+                    "classFileLocator=" + classFileLocator +
+                    ", registry=" + registry +
+                    '}';
+        }
+
+        /**
+         * <p>
+         * A thread-safe registry of names of types that could not be located. The registry retains a bounded number of names,
+         * evicting the least recently queried name if its capacity is exceeded. Names that were never registered are rejected by
+         * a bloom filter without acquiring the registry's lock such that queries for existing types remain cheap. The bloom
+         * filter is rebuilt from the retained names after a number of evictions that equals the registry's capacity.
+         * </p>
+         * <p>
+         * A registry can be shared among several class file locators or type pools that represent the same source of class files.
+         * </p>
+         */
+        public static class Registry {
+
+            /**
+             * The default number of names that are retained.
+             */
+            public static final int DEFAULT_CAPACITY = 1024;
+
+            /**
+             * The number of bits of the bloom filter per retained name.
+             */
+            private static final int BITS_PER_NAME = 16;
+
+            /**
+             * The number of hash functions of the bloom filter.
+             */
+            private static final int HASHES = 3;
+
+            /**
+             * The bits of the bloom filter.
+             */
+            private final AtomicLongArray filter;
+
+            /**
+             * A mask for mapping a hash value onto a bit index of the bloom filter.
+             */
+            private final int mask;
+
+            /**
+             * The maximum number of names that are retained.
+             */
+            private final int capacity;
+
+            /**
+             * The retained names in the order of their last query.
+             */
+            private final LinkedHashMap<String, Boolean> names;
+
+            /**
+             * The number of evictions since the bloom filter was last rebuilt.
+             */
+            private int evictions;
+
+            /**
+             * Creates a new registry of a default capacity.
+             */
+            public Registry() {
+                this(DEFAULT_CAPACITY);
+            }
+
+            /**
+             * Creates a new registry.
+             *
+             * @param capacity The maximum number of names that are retained.
+             */
+            public Registry(int capacity) {
+                if (capacity < 1) {
+                    throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+                }
+                this.capacity = capacity;
+                int bits = Integer.highestOneBit(Math.max(Long.SIZE, capacity * BITS_PER_NAME - 1)) << 1;
+                filter = new AtomicLongArray(bits / Long.SIZE);
+                mask = bits - 1;
+                names = new LinkedHashMap<String, Boolean>(16, 0.75f, true);
+            }
+
+            /**
+             * Determines if the given name is registered as missing.
+             *
+             * @param name The name of the type.
+             * @return {@code true} if the type is registered as missing.
+             */
+            public boolean contains(String name) {
+                int hash = name.hashCode(), increment = spread(hash);
+                for (int index = 0; index < HASHES; index++) {
+                    int bit = (hash + index * increment) & mask;
+                    if ((filter.get(bit / Long.SIZE) & (1L << bit)) == 0L) {
+                        return false;
+                    }
+                }
+                synchronized (this) {
+                    return names.get(name) != null;
+                }
+            }
+
+            /**
+             * Registers the name of a type that could not be located.
+             *
+             * @param name The name of the type.
+             */
+            public synchronized void register(String name) {
+                if (names.put(name, Boolean.TRUE) == null) {
+                    mark(name);
+                    if (names.size() > capacity) {
+                        Iterator<String> iterator = names.keySet().iterator();
+                        iterator.next();
+                        iterator.remove();
+                        if (++evictions >= capacity) {
+                            reset();
+                            for (String retained : names.keySet()) {
+                                mark(retained);
+                            }
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Invalidates the registration of a single type such that it is looked up again.
+             *
+             * @param name The name of the type.
+             */
+            public synchronized void invalidate(String name) {
+                names.remove(name);
+            }
+
+            /**
+             * Invalidates all registrations such that any type is looked up again.
+             */
+            public synchronized void clear() {
+                names.clear();
+                reset();
+            }
+
+            /**
+             * Returns the number of retained names.
+             *
+             * @return The number of retained names.
+             */
+            public synchronized int size() {
+                return names.size();
+            }
+
+            /**
+             * Sets the bloom filter's bits for the given name.
+             *
+             * @param name The name to mark.
+             */
+            private void mark(String name) {
+                int hash = name.hashCode(), increment = spread(hash);
+                for (int index = 0; index < HASHES; index++) {
+                    int bit = (hash + index * increment) & mask;
+                    long value;
+                    do {
+                        value = filter.get(bit / Long.SIZE);
+                    } while ((value & (1L << bit)) == 0L && !filter.compareAndSet(bit / Long.SIZE, value, value | (1L << bit)));
+                }
+            }
+
+            /**
+             * Resets all bits of the bloom filter.
+             */
+            private void reset() {
+                for (int index = 0; index < filter.length(); index++) {
+                    filter.set(index, 0L);
+                }
+                evictions = 0;
+            }
+
+            /**
+             * Derives a second, odd hash value from a name's hash code.
+             *
+             * @param hash The name's hash code.
+             * @return A second hash value.
+             */
+            private static int spread(int hash) {
+                hash ^= hash >>> 16;
+                hash *= 0x85EBCA6B;
+                hash ^= hash >>> 13;
+                return hash | 1;
+            }
+
+            @Override
+            public synchronized String toString() {
+                return "ClassFileLocator.NegativeCaching.Registry{" +
+                        "capacity=" + capacity +
+                        ", names=" + names.keySet() +
+                        ", evictions=" + evictions +
+                        '}';
+            }
+        }
+    }
 }
@@ -29,6 +29,15 @@ public class AnnotationTypeMatcher<T extends AnnotationDescription> extends Elem
         return matcher.matches(target.getAnnotationType());
     }
 
+    /**
+     * Returns the type matcher to apply to an annotation's type.
+     *
+     * @return The type matcher to apply to an annotation's type.
+     */
+    protected ElementMatcher<? super TypeDescription> getMatcher() {
+        return matcher;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
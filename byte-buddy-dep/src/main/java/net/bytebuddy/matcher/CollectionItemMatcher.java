@@ -32,6 +32,15 @@ public class CollectionItemMatcher<T> extends ElementMatcher.Junction.AbstractBa
         return false;
     }
 
+    /**
+     * Returns the element matcher to apply to each element of a collection.
+     *
+     * @return The element matcher to apply to each element of a collection.
+     */
+    protected ElementMatcher<? super T> getMatcher() {
+        return matcher;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
@@ -29,6 +29,15 @@ public class DeclaringAnnotationMatcher<T extends AnnotatedCodeElement> extends
         return matcher.matches(target.getDeclaredAnnotations());
     }
 
+    /**
+     * Returns the matcher to be applied to the provided annotation list.
+     *
+     * @return The matcher to be applied to the provided annotation list.
+     */
+    protected ElementMatcher<? super AnnotationList> getMatcher() {
+        return matcher;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
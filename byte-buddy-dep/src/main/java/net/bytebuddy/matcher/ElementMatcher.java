@@ -98,6 +98,24 @@ public interface ElementMatcher<T> {
                 return left.matches(target) && right.matches(target);
             }
 
+            /**
+             * Returns the first matcher of this conjunction.
+             *
+             * @return The first matcher of this conjunction.
+             */
+            protected ElementMatcher<? super W> getLeft() {
+                return left;
+            }
+
+            /**
+             * Returns the second matcher of this conjunction.
+             *
+             * @return The second matcher of this conjunction.
+             */
+            protected ElementMatcher<? super W> getRight() {
+                return right;
+            }
+
             @Override
             public boolean equals(Object other) {
                 return this == other || !(other == null || getClass() != other.getClass())
@@ -145,6 +163,24 @@ public interface ElementMatcher<T> {
                 return left.matches(target) || right.matches(target);
             }
 
+            /**
+             * Returns the first matcher of this disjunction.
+             *
+             * @return The first matcher of this disjunction.
+             */
+            protected ElementMatcher<? super W> getLeft() {
+                return left;
+            }
+
+            /**
+             * Returns the second matcher of this disjunction.
+             *
+             * @return The second matcher of this disjunction.
+             */
+            protected ElementMatcher<? super W> getRight() {
+                return right;
+            }
+
             @Override
             public boolean equals(Object other) {
                 return this == other || !(other == null || getClass() != other.getClass())
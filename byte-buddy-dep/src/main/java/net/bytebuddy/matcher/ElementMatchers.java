@@ -582,6 +582,19 @@ public final class ElementMatchers {
         return new TypeSortMatcher<T>(anyOf(TypeDefinition.Sort.VARIABLE, TypeDefinition.Sort.VARIABLE_SYMBOLIC)).and(matcher);
     }
 
+    /**
+     * Compiles any disjunction of name matchers such as {@link ElementMatchers#named(String)}, {@link ElementMatchers#nameStartsWith(String)},
+     * {@link ElementMatchers#nameEndsWith(String)} or {@link ElementMatchers#nameContains(String)} within the supplied matcher into a
+     * single {@link MultiStringMatcher} such that the cost of a match scales with the length of a name rather than the number of names.
+     *
+     * @param matcher The matcher to compile.
+     * @param <T>     The type of the matched object.
+     * @return A matcher that is equivalent to the supplied matcher.
+     */
+    public static <T> ElementMatcher.Junction<T> compiled(ElementMatcher.Junction<T> matcher) {
+        return MultiStringMatcher.compile(matcher);
+    }
+
     /**
      * Matches a {@link NamedElement} for its exact name.
      *
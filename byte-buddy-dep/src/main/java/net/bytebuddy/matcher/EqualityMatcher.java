@@ -26,6 +26,15 @@ public class EqualityMatcher<T> extends ElementMatcher.Junction.AbstractBase<T>
         return value.equals(target);
     }
 
+    /**
+     * Returns the object that is checked to be equal to the matched value.
+     *
+     * @return The object that is checked to be equal to the matched value.
+     */
+    protected Object getValue() {
+        return value;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
@@ -0,0 +1,330 @@
+package net.bytebuddy.matcher;
+
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An index key describes a statically known property of a type that is required for a type matcher to match this type. An index
+ * key is either a type's exact name, the name of an annotation type that is declared by the type or the name of one of the
+ * type's super types, including the type itself.
+ * </p>
+ * <p>
+ * A set of index keys that is extracted from a matcher via {@link IndexKey#of(ElementMatcher)} describes a necessary condition
+ * for the matcher: if a type does not have any of the extracted keys, the matcher cannot match the type. This allows to select
+ * the matchers that need to be applied to a type by a lookup of the type's keys without applying each matcher.
+ * </p>
+ */
+public class IndexKey {
+
+    /**
+     * The name of the {@link Object} type.
+     */
+    private static final String OBJECT = Object.class.getName();
+
+    /**
+     * The sort of this key.
+     */
+    private final Sort sort;
+
+    /**
+     * The name of this key.
+     */
+    private final String name;
+
+    /**
+     * Creates a new index key.
+     *
+     * @param sort The sort of this key.
+     * @param name The name of this key.
+     */
+    public IndexKey(Sort sort, String name) {
+        this.sort = sort;
+        this.name = name;
+    }
+
+    /**
+     * Extracts a set of keys from a type matcher where any type that is matched by the supplied matcher has at least one of these keys.
+     * The extraction is conservative and only considers exact name matchers, matchers for declared annotations of a given type and
+     * matchers for sub types of a given type within any conjunction or disjunction of matchers.
+     *
+     * @param matcher The type matcher to analyze.
+     * @return A set of keys of which any matched type has at least one or {@code null} if no such set can be determined.
+     */
+    public static Set<IndexKey> of(ElementMatcher<?> matcher) {
+        if (matcher instanceof ElementMatcher.Junction.Conjunction) {
+            return conjunction(of(((ElementMatcher.Junction.Conjunction<?>) matcher).getLeft()),
+                    of(((ElementMatcher.Junction.Conjunction<?>) matcher).getRight()));
+        } else if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+            Set<IndexKey> left = of(((ElementMatcher.Junction.Disjunction<?>) matcher).getLeft());
+            if (left == null) {
+                return null;
+            }
+            Set<IndexKey> right = of(((ElementMatcher.Junction.Disjunction<?>) matcher).getRight());
+            if (right == null) {
+                return null;
+            }
+            Set<IndexKey> keys = new HashSet<IndexKey>(left);
+            keys.addAll(right);
+            return keys;
+        } else if (matcher instanceof NameMatcher) {
+            return of(Sort.NAME, names(((NameMatcher<?>) matcher).getMatcher()));
+        } else if (matcher instanceof EqualityMatcher) {
+            TypeDescription typeDescription = asType(((EqualityMatcher<?>) matcher).getValue());
+            return typeDescription == null || typeDescription.isArray()
+                    ? null
+                    : of(Sort.NAME, Collections.singleton(typeDescription.getActualName()));
+        } else if (matcher instanceof SubTypeMatcher) {
+            TypeDescription typeDescription = ((SubTypeMatcher<?>) matcher).getTypeDescription();
+            return typeDescription.isArray() || typeDescription.isPrimitive()
+                    ? null
+                    : of(Sort.SUPER_TYPE, Collections.singleton(typeDescription.getName()));
+        } else if (matcher instanceof DeclaringAnnotationMatcher
+                && ((DeclaringAnnotationMatcher<?>) matcher).getMatcher() instanceof CollectionItemMatcher) {
+            ElementMatcher<?> annotationMatcher = ((DeclaringAnnotationMatcher<?>) matcher).getMatcher();
+            return of(Sort.ANNOTATION, annotationTypes(((CollectionItemMatcher<?>) annotationMatcher).getMatcher()));
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Selects the keys of a conjunction of two matchers. Any type that is matched by a conjunction has at least one of the keys of
+     * either matcher such that the keys of either matcher can be used. Keys that do not require resolving a type's super types are
+     * preferred over keys that do as resolving a type's hierarchy might require parsing further class files. Otherwise, the smaller
+     * set of keys is selected.
+     *
+     * @param left  The keys of the left matcher or {@code null} if no keys could be determined.
+     * @param right The keys of the right matcher or {@code null} if no keys could be determined.
+     * @return The keys of the conjunction or {@code null} if no keys could be determined for either matcher.
+     */
+    public static Set<IndexKey> conjunction(Set<IndexKey> left, Set<IndexKey> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+        boolean leftHierarchical = isHierarchical(left), rightHierarchical = isHierarchical(right);
+        if (leftHierarchical != rightHierarchical) {
+            return leftHierarchical
+                    ? right
+                    : left;
+        }
+        return left.size() <= right.size()
+                ? left
+                : right;
+    }
+
+    /**
+     * Checks if a set of keys contains a key that requires resolving a type's super types.
+     *
+     * @param keys The keys to check.
+     * @return {@code true} if any of the keys is of sort {@link Sort#SUPER_TYPE}.
+     */
+    private static boolean isHierarchical(Set<IndexKey> keys) {
+        for (IndexKey key : keys) {
+            if (key.getSort() == Sort.SUPER_TYPE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the type that is equal to a value of an equality matcher. A non-generic type definition is equal to its erasure.
+     *
+     * @param value The value of an equality matcher.
+     * @return The type that is equal to the supplied value or {@code null} if the value does not represent a non-generic type.
+     */
+    private static TypeDescription asType(Object value) {
+        if (value instanceof TypeDescription) {
+            return (TypeDescription) value;
+        } else if (value instanceof TypeDefinition && ((TypeDefinition) value).getSort() == TypeDefinition.Sort.NON_GENERIC) {
+            return ((TypeDefinition) value).asErasure();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a set of keys of a given sort.
+     *
+     * @param sort  The sort of the keys.
+     * @param names The names of the keys or {@code null} if no names could be determined.
+     * @return A set of keys or {@code null} if no names could be determined.
+     */
+    private static Set<IndexKey> of(Sort sort, Set<String> names) {
+        if (names == null) {
+            return null;
+        }
+        Set<IndexKey> keys = new HashSet<IndexKey>();
+        for (String name : names) {
+            keys.add(new IndexKey(sort, name));
+        }
+        return keys;
+    }
+
+    /**
+     * Extracts the exact names that are matched by a string matcher.
+     *
+     * @param matcher The string matcher to analyze.
+     * @return The names that are matched or {@code null} if the matcher does not only match exact names.
+     */
+    private static Set<String> names(ElementMatcher<?> matcher) {
+        if (matcher instanceof StringMatcher && ((StringMatcher) matcher).getMode() == StringMatcher.Mode.EQUALS_FULLY) {
+            return Collections.singleton(((StringMatcher) matcher).getValue());
+        } else if (matcher instanceof MultiStringMatcher) {
+            return ((MultiStringMatcher) matcher).getExactValues();
+        } else if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+            Set<String> left = names(((ElementMatcher.Junction.Disjunction<?>) matcher).getLeft());
+            if (left == null) {
+                return null;
+            }
+            Set<String> right = names(((ElementMatcher.Junction.Disjunction<?>) matcher).getRight());
+            if (right == null) {
+                return null;
+            }
+            Set<String> names = new HashSet<String>(left);
+            names.addAll(right);
+            return names;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the names of the annotation types that are matched by an annotation matcher.
+     *
+     * @param matcher The annotation matcher to analyze.
+     * @return The names of the matched annotation types or {@code null} if they cannot be determined.
+     */
+    private static Set<String> annotationTypes(ElementMatcher<?> matcher) {
+        if (matcher instanceof AnnotationTypeMatcher) {
+            ElementMatcher<?> typeMatcher = ((AnnotationTypeMatcher<?>) matcher).getMatcher();
+            if (typeMatcher instanceof EqualityMatcher && asType(((EqualityMatcher<?>) typeMatcher).getValue()) != null) {
+                return Collections.singleton(asType(((EqualityMatcher<?>) typeMatcher).getValue()).getActualName());
+            } else if (typeMatcher instanceof NameMatcher) {
+                return names(((NameMatcher<?>) typeMatcher).getMatcher());
+            } else {
+                return null;
+            }
+        } else if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+            Set<String> left = annotationTypes(((ElementMatcher.Junction.Disjunction<?>) matcher).getLeft());
+            if (left == null) {
+                return null;
+            }
+            Set<String> right = annotationTypes(((ElementMatcher.Junction.Disjunction<?>) matcher).getRight());
+            if (right == null) {
+                return null;
+            }
+            Set<String> names = new HashSet<String>(left);
+            names.addAll(right);
+            return names;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the keys of the given sorts of a type. Resolving a type's annotations or super types might require parsing the
+     * type's class file or the class files of its super types.
+     *
+     * @param typeDescription The type for which to resolve its keys.
+     * @param sorts           The sorts of keys to resolve.
+     * @return All keys of the given sorts of the supplied type.
+     */
+    public static Set<IndexKey> of(TypeDescription typeDescription, Set<Sort> sorts) {
+        Set<IndexKey> keys = new HashSet<IndexKey>();
+        if (sorts.contains(Sort.NAME)) {
+            keys.add(new IndexKey(Sort.NAME, typeDescription.getActualName()));
+        }
+        if (sorts.contains(Sort.ANNOTATION)) {
+            for (AnnotationDescription annotationDescription : typeDescription.getDeclaredAnnotations()) {
+                keys.add(new IndexKey(Sort.ANNOTATION, annotationDescription.getAnnotationType().getActualName()));
+            }
+        }
+        if (sorts.contains(Sort.SUPER_TYPE)) {
+            keys.add(new IndexKey(Sort.SUPER_TYPE, OBJECT));
+            Queue<TypeDefinition> queue = new LinkedList<TypeDefinition>(Collections.singleton(typeDescription));
+            while (!queue.isEmpty()) {
+                TypeDescription type = queue.remove().asErasure();
+                if (keys.add(new IndexKey(Sort.SUPER_TYPE, type.getName()))) {
+                    TypeDefinition superClass = type.getSuperClass();
+                    if (superClass != null) {
+                        queue.add(superClass);
+                    }
+                    queue.addAll(type.getInterfaces());
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the sort of this key.
+     *
+     * @return The sort of this key.
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Returns the name of this key.
+     *
+     * @return The name of this key.
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || !(other == null || getClass() != other.getClass())
+                && sort == ((IndexKey) other).sort
+                && name.equals(((IndexKey) other).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sort.hashCode() + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "IndexKey{" +
+                "sort=" + sort +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+    /**
+     * Describes the sort of an index key.
+     */
+    public enum Sort {
+
+        /**
+         * A key that represents a type's exact name as returned by {@link TypeDescription#getActualName()}.
+         */
+        NAME,
+
+        /**
+         * A key that represents the type of an annotation that a type declares by the annotation type's name as returned by
+         * {@link TypeDescription#getActualName()}.
+         */
+        ANNOTATION,
+
+        /**
+         * A key that represents one of a type's super types or the type itself.
+         */
+        SUPER_TYPE;
+
+        @Override
+        public String toString() {
+            return "IndexKey.Sort." + name();
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package net.bytebuddy.matcher;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An element matcher that matches a string against any number of exact values, prefixes, suffixes and infixes at once. Exact
+ * values are looked up in a hash set, prefixes and suffixes are matched by walking a trie and infixes are matched by an
+ * Aho-Corasick automaton. The cost of a match therefore scales with the length of the matched string and not with the number
+ * of values this matcher represents.
+ * </p>
+ * <p>
+ * A disjunction of {@link StringMatcher}s can be compiled into such a matcher by {@link MultiStringMatcher#compile(ElementMatcher.Junction)}.
+ * </p>
+ */
+public class MultiStringMatcher extends ElementMatcher.Junction.AbstractBase<String> {
+
+    /**
+     * The exact values that are matched.
+     */
+    private final Set<String> values;
+
+    /**
+     * The prefixes that are matched.
+     */
+    private final Set<String> prefixes;
+
+    /**
+     * The suffixes that are matched.
+     */
+    private final Set<String> suffixes;
+
+    /**
+     * The infixes that are matched.
+     */
+    private final Set<String> infixes;
+
+    /**
+     * The root of a trie of all prefixes.
+     */
+    private final Node prefixTrie;
+
+    /**
+     * The root of a trie of all suffixes where each suffix is inserted in reverse order.
+     */
+    private final Node suffixTrie;
+
+    /**
+     * The root of an Aho-Corasick automaton of all infixes.
+     */
+    private final Node infixAutomaton;
+
+    /**
+     * Creates a new multi string matcher.
+     *
+     * @param values   The exact values that are matched.
+     * @param prefixes The prefixes that are matched.
+     * @param suffixes The suffixes that are matched.
+     * @param infixes  The infixes that are matched.
+     */
+    public MultiStringMatcher(Collection<String> values, Collection<String> prefixes, Collection<String> suffixes, Collection<String> infixes) {
+        this.values = new HashSet<String>(values);
+        this.prefixes = new HashSet<String>(prefixes);
+        this.suffixes = new HashSet<String>(suffixes);
+        this.infixes = new HashSet<String>(infixes);
+        prefixTrie = new Node();
+        for (String prefix : prefixes) {
+            prefixTrie.insert(prefix, false);
+        }
+        suffixTrie = new Node();
+        for (String suffix : suffixes) {
+            suffixTrie.insert(suffix, true);
+        }
+        infixAutomaton = new Node();
+        for (String infix : infixes) {
+            infixAutomaton.insert(infix, false);
+        }
+        infixAutomaton.link();
+    }
+
+    /**
+     * Creates a multi string matcher that matches any string that is matched by any of the supplied string matchers.
+     *
+     * @param matchers The string matchers to combine which must all be {@link MultiStringMatcher#isCompilable(StringMatcher) compilable}.
+     * @return A multi string matcher that represents all supplied string matchers.
+     */
+    public static MultiStringMatcher of(Collection<? extends StringMatcher> matchers) {
+        List<String> values = new ArrayList<String>(), prefixes = new ArrayList<String>(), suffixes = new ArrayList<String>(), infixes = new ArrayList<String>();
+        for (StringMatcher matcher : matchers) {
+            switch (matcher.getMode()) {
+                case EQUALS_FULLY:
+                    values.add(matcher.getValue());
+                    break;
+                case STARTS_WITH:
+                    prefixes.add(matcher.getValue());
+                    break;
+                case ENDS_WITH:
+                    suffixes.add(matcher.getValue());
+                    break;
+                case CONTAINS:
+                    infixes.add(matcher.getValue());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot compile " + matcher);
+            }
+        }
+        return new MultiStringMatcher(values, prefixes, suffixes, infixes);
+    }
+
+    /**
+     * Checks if a string matcher can be represented by a multi string matcher.
+     *
+     * @param matcher The string matcher to check.
+     * @return {@code true} if the supplied matcher can be represented by a multi string matcher.
+     */
+    public static boolean isCompilable(StringMatcher matcher) {
+        switch (matcher.getMode()) {
+            case EQUALS_FULLY:
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Compiles any disjunction of at least two compilable {@link StringMatcher}s, either applied directly or to an element's name
+     * via a {@link NameMatcher}, into a single {@link MultiStringMatcher}. Such disjunctions are located anywhere within a tree of
+     * {@link ElementMatcher.Junction.Conjunction}s, {@link ElementMatcher.Junction.Disjunction}s and {@link NameMatcher}s. Other matchers
+     * of a disjunction are retained. As element matchers are expected to be free of side effects, the order in which the operands of
+     * a disjunction are applied is not preserved.
+     *
+     * @param matcher The matcher to compile.
+     * @param <T>     The type of the matched element.
+     * @return A matcher that is equivalent to the supplied matcher or the supplied matcher if it cannot be compiled.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ElementMatcher.Junction<T> compile(ElementMatcher.Junction<T> matcher) {
+        return (ElementMatcher.Junction<T>) optimize(matcher);
+    }
+
+    /**
+     * Optimizes the supplied matcher.
+     *
+     * @param matcher The matcher to optimize.
+     * @return An equivalent matcher or the supplied matcher if it cannot be optimized.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ElementMatcher<?> optimize(ElementMatcher<?> matcher) {
+        if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+            List<ElementMatcher<?>> operands = new ArrayList<ElementMatcher<?>>();
+            flatten(matcher, operands);
+            List<ElementMatcher<?>> optimized = new ArrayList<ElementMatcher<?>>(operands.size());
+            List<NameMatcher<?>> nameMatchers = new ArrayList<NameMatcher<?>>();
+            List<StringMatcher> stringMatchers = new ArrayList<StringMatcher>();
+            int nameIndex = -1, stringIndex = -1;
+            boolean changed = false;
+            for (ElementMatcher<?> operand : operands) {
+                if (operand instanceof NameMatcher
+                        && ((NameMatcher<?>) operand).getMatcher() instanceof StringMatcher
+                        && isCompilable((StringMatcher) ((NameMatcher<?>) operand).getMatcher())) {
+                    if (nameIndex == -1) {
+                        nameIndex = optimized.size();
+                        optimized.add(operand);
+                    }
+                    nameMatchers.add((NameMatcher<?>) operand);
+                } else if (operand instanceof StringMatcher && isCompilable((StringMatcher) operand)) {
+                    if (stringIndex == -1) {
+                        stringIndex = optimized.size();
+                        optimized.add(operand);
+                    }
+                    stringMatchers.add((StringMatcher) operand);
+                } else {
+                    ElementMatcher<?> optimizedOperand = optimize(operand);
+                    changed |= optimizedOperand != operand;
+                    optimized.add(optimizedOperand);
+                }
+            }
+            if (nameMatchers.size() > 1) {
+                List<StringMatcher> matchers = new ArrayList<StringMatcher>(nameMatchers.size());
+                for (NameMatcher<?> nameMatcher : nameMatchers) {
+                    matchers.add((StringMatcher) nameMatcher.getMatcher());
+                }
+                optimized.set(nameIndex, new NameMatcher(of(matchers)));
+                changed = true;
+            }
+            if (stringMatchers.size() > 1) {
+                optimized.set(stringIndex, of(stringMatchers));
+                changed = true;
+            }
+            if (!changed) {
+                return matcher;
+            }
+            ElementMatcher<?> result = optimized.get(0);
+            for (ElementMatcher<?> operand : optimized.subList(1, optimized.size())) {
+                result = new ElementMatcher.Junction.Disjunction(result, operand);
+            }
+            return result;
+        } else if (matcher instanceof ElementMatcher.Junction.Conjunction) {
+            ElementMatcher<?> left = ((ElementMatcher.Junction.Conjunction<?>) matcher).getLeft();
+            ElementMatcher<?> right = ((ElementMatcher.Junction.Conjunction<?>) matcher).getRight();
+            ElementMatcher<?> optimizedLeft = optimize(left), optimizedRight = optimize(right);
+            return optimizedLeft == left && optimizedRight == right
+                    ? matcher
+                    : new ElementMatcher.Junction.Conjunction(optimizedLeft, optimizedRight);
+        } else if (matcher instanceof NameMatcher) {
+            ElementMatcher<String> delegate = ((NameMatcher<?>) matcher).getMatcher();
+            ElementMatcher<?> optimized = optimize(delegate);
+            return optimized == delegate
+                    ? matcher
+                    : new NameMatcher((ElementMatcher<String>) optimized);
+        } else {
+            return matcher;
+        }
+    }
+
+    /**
+     * Collects all operands of a tree of disjunctions in their application order.
+     *
+     * @param matcher  The matcher to flatten.
+     * @param operands The list to which all operands are added.
+     */
+    private static void flatten(ElementMatcher<?> matcher, List<ElementMatcher<?>> operands) {
+        if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+            flatten(((ElementMatcher.Junction.Disjunction<?>) matcher).getLeft(), operands);
+            flatten(((ElementMatcher.Junction.Disjunction<?>) matcher).getRight(), operands);
+        } else {
+            operands.add(matcher);
+        }
+    }
+
+    @Override
+    public boolean matches(String target) {
+        return values.contains(target)
+                || matchesPrefix(target)
+                || matchesSuffix(target)
+                || matchesInfix(target);
+    }
+
+    /**
+     * Returns the exact values of this matcher if this matcher does not represent any prefixes, suffixes or infixes.
+     *
+     * @return The exact values of this matcher or {@code null} if this matcher also matches strings that are not equal to any value.
+     */
+    protected Set<String> getExactValues() {
+        return prefixes.isEmpty() && suffixes.isEmpty() && infixes.isEmpty()
+                ? values
+                : null;
+    }
+
+    /**
+     * Checks if the target starts with any prefix.
+     *
+     * @param target The matched string.
+     * @return {@code true} if the target starts with any prefix.
+     */
+    private boolean matchesPrefix(String target) {
+        Node node = prefixTrie;
+        for (int index = 0; index < target.length(); index++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(target.charAt(index));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    /**
+     * Checks if the target ends with any suffix.
+     *
+     * @param target The matched string.
+     * @return {@code true} if the target ends with any suffix.
+     */
+    private boolean matchesSuffix(String target) {
+        Node node = suffixTrie;
+        for (int index = target.length() - 1; index >= 0; index--) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(target.charAt(index));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    /**
+     * Checks if the target contains any infix.
+     *
+     * @param target The matched string.
+     * @return {@code true} if the target contains any infix.
+     */
+    private boolean matchesInfix(String target) {
+        Node state = infixAutomaton;
+        if (state.terminal) {
+            return true;
+        }
+        for (int index = 0; index < target.length(); index++) {
+            char key = target.charAt(index);
+            Node next;
+            while ((next = state.child(key)) == null && state != infixAutomaton) {
+                state = state.failure;
+            }
+            state = next == null ? infixAutomaton : next;
+            if (state.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        MultiStringMatcher that = (MultiStringMatcher) other;
+        return values.equals(that.values)
+                && prefixes.equals(that.prefixes)
+                && suffixes.equals(that.suffixes)
+                && infixes.equals(that.infixes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = values.hashCode();
+        result = 31 * result + prefixes.hashCode();
+        result = 31 * result + suffixes.hashCode();
+        result = 31 * result + infixes.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "matchesAny(equals" + values + ", startsWith" + prefixes + ", endsWith" + suffixes + ", contains" + infixes + ')';
+    }
+
+    /**
+     * A node of a trie or of an Aho-Corasick automaton. A node's children are stored in arrays that are sorted by their key
+     * such that a child can be located without boxing the key.
+     */
+    protected static class Node {
+
+        /**
+         * The sorted keys of this node's children.
+         */
+        private char[] keys;
+
+        /**
+         * The children of this node in the order of their keys.
+         */
+        private Node[] children;
+
+        /**
+         * {@code true} if this node completes a value or if any value is a suffix of this node's path in an automaton.
+         */
+        private boolean terminal;
+
+        /**
+         * The node to continue with if no child matches or {@code null} if this node is a root or not part of an automaton.
+         */
+        private Node failure;
+
+        /**
+         * Creates a new node without children.
+         */
+        protected Node() {
+            keys = new char[0];
+            children = new Node[0];
+        }
+
+        /**
+         * Returns the child of this node for the given key.
+         *
+         * @param key The key of the child.
+         * @return The child for the given key or {@code null} if no such child exists.
+         */
+        protected Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0
+                    ? null
+                    : children[index];
+        }
+
+        /**
+         * Inserts a value into the trie that is rooted in this node.
+         *
+         * @param value   The value to insert.
+         * @param reverse {@code true} if the value should be inserted in reverse order.
+         */
+        protected void insert(String value, boolean reverse) {
+            Node node = this;
+            for (int index = 0; index < value.length(); index++) {
+                node = node.add(value.charAt(reverse ? value.length() - index - 1 : index));
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * Returns the child of this node for the given key and adds it if no such child exists.
+         *
+         * @param key The key of the child.
+         * @return The child for the given key.
+         */
+        private Node add(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            char[] keys = new char[this.keys.length + 1];
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.children, 0, children, 0, index);
+            System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+            System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            this.keys = keys;
+            this.children = children;
+            return child;
+        }
+
+        /**
+         * Computes the failure links of the trie that is rooted in this node, turning it into an Aho-Corasick automaton.
+         */
+        protected void link() {
+            Queue<Node> queue = new LinkedList<Node>();
+            for (Node child : children) {
+                child.failure = this;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node node = queue.remove();
+                for (int index = 0; index < node.keys.length; index++) {
+                    Node child = node.children[index], failure = node.failure;
+                    while (failure != null && failure.child(node.keys[index]) == null) {
+                        failure = failure.failure;
+                    }
+                    child.failure = failure == null
+                            ? this
+                            : failure.child(node.keys[index]);
+                    child.terminal |= child.failure.terminal;
+                    queue.add(child);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "MultiStringMatcher.Node{" +
+                    "keys=" + Arrays.toString(keys) +
+                    ", children=" + children.length +
+                    ", terminal=" + terminal +
+                    ", failure=" + (failure != null) +
+                    '}';
+        }
+    }
+}
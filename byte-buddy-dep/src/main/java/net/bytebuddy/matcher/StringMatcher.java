@@ -34,6 +34,24 @@ public class StringMatcher extends ElementMatcher.Junction.AbstractBase<String>
         return mode.matches(value, target);
     }
 
+    /**
+     * Returns the text value to match against.
+     *
+     * @return The text value to match against.
+     */
+    protected String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the mode to apply for matching the given value against the matcher's input.
+     *
+     * @return The mode to apply for matching the given value against the matcher's input.
+     */
+    protected Mode getMode() {
+        return mode;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
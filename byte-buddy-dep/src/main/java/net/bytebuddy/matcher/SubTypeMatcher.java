@@ -28,6 +28,15 @@ public class SubTypeMatcher<T extends TypeDescription> extends ElementMatcher.Ju
         return target.isAssignableTo(typeDescription);
     }
 
+    /**
+     * Returns the type to be matched being a super type of the matched type.
+     *
+     * @return The type to be matched being a super type of the matched type.
+     */
+    protected TypeDescription getTypeDescription() {
+        return typeDescription;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other || !(other == null || getClass() != other.getClass())
@@ -17,17 +17,29 @@ import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.description.type.TypeList;
 import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.implementation.bytecode.StackSize;
+import net.bytebuddy.utility.Unmapper;
 import org.objectweb.asm.*;
 import org.objectweb.asm.signature.SignatureReader;
 import org.objectweb.asm.signature.SignatureVisitor;
 
-import java.io.IOException;
+import java.io.*;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericSignatureFormatError;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import static net.bytebuddy.matcher.ElementMatchers.*;
 
@@ -203,6 +215,38 @@ public interface TypePool {
          */
         void clear();
 
+        /**
+         * A cache provider that coordinates the resolution of types that could not be found in its cache, for example among
+         * several threads. A type pool checks if its cache provider implements this interface and, if so, resolves any type
+         * that could not be found in the cache by this cache provider.
+         */
+        interface Coordinating extends CacheProvider {
+
+            /**
+             * Resolves a type that could not be found in this cache by applying the supplied resolver. The resolver registers
+             * the resolved type with this cache provider before it returns.
+             *
+             * @param name     The name of the type to resolve.
+             * @param resolver The resolver that locates, parses and registers the type.
+             * @return A resolution of the type.
+             */
+            Resolution resolve(String name, Resolver resolver);
+
+            /**
+             * A resolver for a type that is applied by a coordinating cache provider if a type cannot be found in its cache.
+             */
+            interface Resolver {
+
+                /**
+                 * Resolves a type and registers its resolution with the coordinating cache provider.
+                 *
+                 * @param name The name of the type to resolve.
+                 * @return The registered resolution of the type.
+                 */
+                Resolution resolve(String name);
+            }
+        }
+
         /**
          * A non-operational cache that does not store any type descriptions.
          */
@@ -285,549 +329,997 @@ public interface TypePool {
                 return "TypePool.CacheProvider.Simple{cache=" + cache + '}';
             }
         }
-    }
-
-    /**
-     * An empty type pool that cannot describe any type.
-     */
-    enum Empty implements TypePool {
 
         /**
-         * The singleton instance.
+         * <p>
+         * A thread-safe type cache that retains resolutions up to a maximum total weight. If this weight is exceeded, resolutions are
+         * evicted until the cache is within its bounds again. A resolution that exceeds the maximum weight by itself is never cached.
+         * The weight of a resolution is determined by a {@link Weigher} when it is registered.
+         * </p>
+         * <p>
+         * Looking up a resolution does not acquire a lock. Therefore, the least recently used resolution is approximated by a second
+         * chance algorithm: resolutions are evicted in their registration order but a resolution that was looked up since it was last
+         * considered for eviction is retained once more.
+         * </p>
+         * <p>
+         * This cache provider records the number of hits, misses and evictions such that it can be sized for an application.
+         * </p>
          */
-        INSTANCE;
-
-        @Override
-        public Resolution describe(String name) {
-            return new Resolution.Illegal(name);
-        }
-
-        @Override
-        public void clear() {
-            /* do nothing */
-        }
+        class Bounded implements CacheProvider {
 
-        @Override
-        public String toString() {
-            return "TypePool.Empty." + name();
-        }
-    }
+            /**
+             * The maximum total weight of all cached resolutions.
+             */
+            private final long maximumWeight;
 
-    /**
-     * A base implementation of a {@link net.bytebuddy.pool.TypePool} that is managing a cache provider and
-     * that handles the description of array and primitive types.
-     */
-    abstract class AbstractBase implements TypePool {
+            /**
+             * The weigher to use for determining the weight of a registered resolution.
+             */
+            private final Weigher weigher;
 
-        /**
-         * A map of primitive types by their name.
-         */
-        protected static final Map<String, TypeDescription> PRIMITIVE_TYPES;
+            /**
+             * A map containing all cached resolutions by their names.
+             */
+            private final ConcurrentMap<String, Entry> cache;
 
-        /**
-         * A map of primitive types by their descriptor.
-         */
-        protected static final Map<String, String> PRIMITIVE_DESCRIPTORS;
+            /**
+             * The cached entries in the order in which they are considered for eviction. All access is synchronized on this instance.
+             */
+            private final Queue<Entry> order;
 
-        /**
-         * The array symbol as used by Java descriptors.
-         */
-        private static final String ARRAY_SYMBOL = "[";
+            /**
+             * The number of lookups that found a cached resolution.
+             */
+            private final AtomicLong hitCount;
 
-        /*
-         * Initializes the maps of primitive type names and descriptors.
-         */
-        static {
-            Map<String, TypeDescription> primitiveTypes = new HashMap<String, TypeDescription>();
-            Map<String, String> primitiveDescriptors = new HashMap<String, String>();
-            for (Class<?> primitiveType : new Class<?>[]{boolean.class,
-                    byte.class,
-                    short.class,
-                    char.class,
-                    int.class,
-                    long.class,
-                    float.class,
-                    double.class,
-                    void.class}) {
-                primitiveTypes.put(primitiveType.getName(), new TypeDescription.ForLoadedType(primitiveType));
-                primitiveDescriptors.put(Type.getDescriptor(primitiveType), primitiveType.getName());
-            }
-            PRIMITIVE_TYPES = Collections.unmodifiableMap(primitiveTypes);
-            PRIMITIVE_DESCRIPTORS = Collections.unmodifiableMap(primitiveDescriptors);
-        }
+            /**
+             * The number of lookups that did not find a cached resolution.
+             */
+            private final AtomicLong missCount;
 
-        /**
-         * The cache provider of this instance.
-         */
-        protected final CacheProvider cacheProvider;
+            /**
+             * The current total weight of all cached resolutions.
+             */
+            private long weight;
 
-        /**
-         * Creates a new instance.
-         *
-         * @param cacheProvider The cache provider to be used.
-         */
-        protected AbstractBase(CacheProvider cacheProvider) {
-            this.cacheProvider = cacheProvider;
-        }
+            /**
+             * The number of resolutions that were evicted from this cache.
+             */
+            private long evictionCount;
 
-        @Override
-        public Resolution describe(String name) {
-            if (name.contains("/")) {
-                throw new IllegalArgumentException(name + " contains the illegal character '/'");
-            }
-            int arity = 0;
-            while (name.startsWith(ARRAY_SYMBOL)) {
-                arity++;
-                name = name.substring(1);
-            }
-            if (arity > 0) {
-                String primitiveName = PRIMITIVE_DESCRIPTORS.get(name);
-                name = primitiveName == null
-                        ? name.substring(1, name.length() - 1)
-                        : primitiveName;
-            }
-            TypeDescription typeDescription = PRIMITIVE_TYPES.get(name);
-            Resolution resolution = typeDescription == null
-                    ? cacheProvider.find(name)
-                    : new Resolution.Simple(typeDescription);
-            if (resolution == null) {
-                resolution = doCache(name, doDescribe(name));
+            /**
+             * Creates a new bounded cache where each resolution has a weight of {@code 1} such that the maximum weight
+             * represents the maximum number of cached resolutions.
+             *
+             * @param maximumWeight The maximum total weight of all cached resolutions.
+             */
+            public Bounded(long maximumWeight) {
+                this(maximumWeight, Weigher.ForUniformWeight.INSTANCE);
             }
-            return ArrayTypeResolution.of(resolution, arity);
-        }
-
-        /**
-         * Writes the resolution to the cache. This method should be overridden if the directly
-         * resolved instance should not be added to the cache.
-         *
-         * @param name       The name of the type.
-         * @param resolution The resolution for this type.
-         * @return The actual resolution for the type of this name that is stored in the cache.
-         */
-        protected Resolution doCache(String name, Resolution resolution) {
-            return cacheProvider.register(name, resolution);
-        }
-
-        @Override
-        public void clear() {
-            cacheProvider.clear();
-        }
-
-        /**
-         * Determines a resolution to a non-primitive, non-array type.
-         *
-         * @param name The name of the type to describe.
-         * @return A resolution to the type to describe.
-         */
-        protected abstract Resolution doDescribe(String name);
-
-        @Override
-        public boolean equals(Object other) {
-            return this == other || !(other == null || getClass() != other.getClass())
-                    && cacheProvider.equals(((AbstractBase) other).cacheProvider);
-        }
-
-        @Override
-        public int hashCode() {
-            return cacheProvider.hashCode();
-        }
-
-        /**
-         * Implements a hierarchical view of type pools, similarly to class loader hierarchies. For every lookup, the parent type pool
-         * is asked first if it can resolve a type. Only if the parent (and potentially its parents) are unable to resolve a type,
-         * this instance is queried for a type description.
-         */
-        public abstract static class Hierarchical extends AbstractBase {
 
             /**
-             * The parent type pool.
+             * Creates a new bounded cache.
+             *
+             * @param maximumWeight The maximum total weight of all cached resolutions.
+             * @param weigher       The weigher to use for determining the weight of a registered resolution.
              */
-            private final TypePool parent;
+            public Bounded(long maximumWeight, Weigher weigher) {
+                if (maximumWeight < 1) {
+                    throw new IllegalArgumentException("The maximum weight of a cache must be positive: " + maximumWeight);
+                }
+                this.maximumWeight = maximumWeight;
+                this.weigher = weigher;
+                cache = new ConcurrentHashMap<String, Entry>();
+                order = new LinkedList<Entry>();
+                hitCount = new AtomicLong();
+                missCount = new AtomicLong();
+            }
 
             /**
-             * Creates a hierarchical type pool.
+             * Returns a bounded cache provider that is prepopulated with the {@link Object} type.
              *
-             * @param cacheProvider The cache provider to be used.
-             * @param parent        The parent type pool to be used.
+             * @param maximumWeight The maximum total weight of all cached resolutions.
+             * @return A bounded cache provider that is prepopulated with the {@link Object} type.
              */
-            protected Hierarchical(CacheProvider cacheProvider, TypePool parent) {
-                super(cacheProvider);
-                this.parent = parent;
+            public static CacheProvider withObjectType(long maximumWeight) {
+                return withObjectType(maximumWeight, Weigher.ForUniformWeight.INSTANCE);
             }
 
-            @Override
-            public Resolution describe(String name) {
-                Resolution resolution = parent.describe(name);
-                return resolution.isResolved()
-                        ? resolution
-                        : super.describe(name);
+            /**
+             * Returns a bounded cache provider that is prepopulated with the {@link Object} type.
+             *
+             * @param maximumWeight The maximum total weight of all cached resolutions.
+             * @param weigher       The weigher to use for determining the weight of a registered resolution.
+             * @return A bounded cache provider that is prepopulated with the {@link Object} type.
+             */
+            public static CacheProvider withObjectType(long maximumWeight, Weigher weigher) {
+                CacheProvider cacheProvider = new Bounded(maximumWeight, weigher);
+                cacheProvider.register(Object.class.getName(), new Resolution.Simple(TypeDescription.OBJECT));
+                return cacheProvider;
             }
 
             @Override
-            public void clear() {
-                try {
-                    parent.clear();
-                } finally {
-                    super.clear();
+            public Resolution find(String name) {
+                Entry entry = cache.get(name);
+                if (entry == null) {
+                    missCount.incrementAndGet();
+                    return UNRESOLVED;
+                } else {
+                    hitCount.incrementAndGet();
+                    return entry.access();
                 }
             }
 
             @Override
-            public boolean equals(Object object) {
-                if (this == object) return true;
-                if (object == null || getClass() != object.getClass()) return false;
-                if (!super.equals(object)) return false;
-                Hierarchical that = (Hierarchical) object;
-                return parent.equals(that.parent);
+            public Resolution register(String name, Resolution resolution) {
+                Entry entry = cache.get(name);
+                if (entry != null) {
+                    return entry.getResolution();
+                }
+                long weight = weigher.weigh(name, resolution);
+                if (weight > maximumWeight) {
+                    return resolution;
+                }
+                synchronized (this) {
+                    Entry previous = cache.putIfAbsent(name, entry = new Entry(name, resolution, weight));
+                    if (previous != null) {
+                        return previous.getResolution();
+                    }
+                    order.add(entry);
+                    this.weight += weight;
+                    while (this.weight > maximumWeight) {
+                        Entry candidate = order.remove();
+                        if (candidate == entry || candidate.isAccessed()) {
+                            candidate.reset();
+                            order.add(candidate);
+                        } else {
+                            cache.remove(candidate.getName(), candidate);
+                            this.weight -= candidate.getWeight();
+                            evictionCount++;
+                        }
+                    }
+                    return resolution;
+                }
             }
 
             @Override
-            public int hashCode() {
-                int result = super.hashCode();
-                result = 31 * result + parent.hashCode();
-                return result;
+            public synchronized void clear() {
+                cache.clear();
+                order.clear();
+                weight = 0;
             }
-        }
 
-        /**
-         * A resolution for a type that, if resolved, represents an array type.
-         */
-        protected static class ArrayTypeResolution implements Resolution {
+            /**
+             * Returns the number of resolutions that are currently cached.
+             *
+             * @return The number of resolutions that are currently cached.
+             */
+            public int size() {
+                return cache.size();
+            }
 
             /**
-             * The underlying resolution that is represented by this instance.
+             * Returns the current total weight of all cached resolutions.
+             *
+             * @return The current total weight of all cached resolutions.
              */
-            private final Resolution resolution;
+            public synchronized long getWeight() {
+                return weight;
+            }
 
             /**
-             * The arity of the represented array.
+             * Returns the number of lookups that found a cached resolution.
+             *
+             * @return The number of lookups that found a cached resolution.
              */
-            private final int arity;
+            public long getHitCount() {
+                return hitCount.get();
+            }
 
             /**
-             * Creates a wrapper for another resolution that, if resolved, represents an array type.
+             * Returns the number of lookups that did not find a cached resolution.
              *
-             * @param resolution The underlying resolution that is represented by this instance.
-             * @param arity      The arity of the represented array.
+             * @return The number of lookups that did not find a cached resolution.
              */
-            protected ArrayTypeResolution(Resolution resolution, int arity) {
-                this.resolution = resolution;
-                this.arity = arity;
+            public long getMissCount() {
+                return missCount.get();
             }
 
             /**
-             * Creates a wrapper for another resolution that, if resolved, represents an array type. The wrapper
-             * is only created if the arity is not zero. If the arity is zero, the given resolution is simply
-             * returned instead.
+             * Returns the number of resolutions that were evicted from this cache for exceeding its maximum weight.
              *
-             * @param resolution The underlying resolution that is represented by this instance.
-             * @param arity      The arity of the represented array.
-             * @return A wrapper for another resolution that, if resolved, represents an array type or the
-             * given resolution if the given arity is zero.
+             * @return The number of resolutions that were evicted from this cache.
              */
-            protected static Resolution of(Resolution resolution, int arity) {
-                return arity == 0
-                        ? resolution
-                        : new ArrayTypeResolution(resolution, arity);
+            public synchronized long getEvictionCount() {
+                return evictionCount;
             }
 
             @Override
-            public boolean isResolved() {
-                return resolution.isResolved();
+            public synchronized String toString() {
+                return "TypePool.CacheProvider.Bounded{" +
+                        "maximumWeight=" + maximumWeight +
+                        ", weigher=" + weigher +
+                        ", cache=" + cache +
+                        ", weight=" + weight +
+                        ", hitCount=" + hitCount +
+                        ", missCount=" + missCount +
+                        ", evictionCount=" + evictionCount +
+                        '}';
             }
 
-            @Override
-            public TypeDescription resolve() {
-                return TypeDescription.ArrayProjection.of(resolution.resolve(), arity);
-            }
+            /**
+             * A weigher determines the weight of a resolution that is registered in a {@link Bounded} cache provider.
+             */
+            public interface Weigher {
 
-            @Override
-            public boolean equals(Object other) {
-                return this == other || !(other == null || getClass() != other.getClass())
-                        && arity == ((ArrayTypeResolution) other).arity
-                        && resolution.equals(((ArrayTypeResolution) other).resolution);
-            }
+                /**
+                 * Determines the weight of a resolution. The weight of a resolution must not change while it is cached.
+                 *
+                 * @param name       The name of the type that is represented by the resolution.
+                 * @param resolution The resolution to weigh.
+                 * @return The weight of the resolution which must not be negative.
+                 */
+                long weigh(String name, Resolution resolution);
 
-            @Override
-            public int hashCode() {
-                int result = resolution.hashCode();
-                result = 31 * result + arity;
-                return result;
+                /**
+                 * A weigher that assigns a weight of {@code 1} to any resolution.
+                 */
+                enum ForUniformWeight implements Weigher {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public long weigh(String name, Resolution resolution) {
+                        return 1L;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.CacheProvider.Bounded.Weigher.ForUniformWeight." + name();
+                    }
+                }
+
+                /**
+                 * A weigher that estimates the size of a type description by the number of its declared fields, methods and annotations
+                 * as they were read from a class file by a {@link TypePool.Default}. This weigher never resolves a lazy resolution and never
+                 * parses a member that was not yet parsed. Any other resolution, including a description of which only the header was parsed,
+                 * is weighted as {@code 1}.
+                 */
+                enum ForDeclaredMembers implements Weigher {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    @Override
+                    public long weigh(String name, Resolution resolution) {
+                        if (!(resolution instanceof Resolution.Simple)) {
+                            return 1L;
+                        }
+                        TypeDescription typeDescription = resolution.resolve();
+                        return typeDescription instanceof Default.LazyTypeDescription
+                                ? 1L + ((Default.LazyTypeDescription) typeDescription).getDeclaredElementCount()
+                                : 1L;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers." + name();
+                    }
+                }
             }
 
-            @Override
-            public String toString() {
-                return "TypePool.AbstractBase.ArrayTypeResolution{" +
-                        "resolution=" + resolution +
-                        ", arity=" + arity +
-                        '}';
+            /**
+             * An entry of a bounded cache provider.
+             */
+            protected static class Entry {
+
+                /**
+                 * The name of the cached type.
+                 */
+                private final String name;
+
+                /**
+                 * The cached resolution.
+                 */
+                private final Resolution resolution;
+
+                /**
+                 * The weight of the cached resolution.
+                 */
+                private final long weight;
+
+                /**
+                 * {@code true} if this entry was looked up since it was last considered for eviction.
+                 */
+                private volatile boolean accessed;
+
+                /**
+                 * Creates a new entry.
+                 *
+                 * @param name       The name of the cached type.
+                 * @param resolution The cached resolution.
+                 * @param weight     The weight of the cached resolution.
+                 */
+                protected Entry(String name, Resolution resolution, long weight) {
+                    this.name = name;
+                    this.resolution = resolution;
+                    this.weight = weight;
+                }
+
+                /**
+                 * Returns the name of the cached type.
+                 *
+                 * @return The name of the cached type.
+                 */
+                protected String getName() {
+                    return name;
+                }
+
+                /**
+                 * Returns the cached resolution.
+                 *
+                 * @return The cached resolution.
+                 */
+                protected Resolution getResolution() {
+                    return resolution;
+                }
+
+                /**
+                 * Returns the weight of the cached resolution.
+                 *
+                 * @return The weight of the cached resolution.
+                 */
+                protected long getWeight() {
+                    return weight;
+                }
+
+                /**
+                 * Marks this entry as accessed and returns the cached resolution. An entry that is already marked is not written to
+                 * such that frequently accessed entries do not cause contention.
+                 *
+                 * @return The cached resolution.
+                 */
+                protected Resolution access() {
+                    if (!accessed) {
+                        accessed = true;
+                    }
+                    return resolution;
+                }
+
+                /**
+                 * Returns {@code true} if this entry was looked up since it was last considered for eviction.
+                 *
+                 * @return {@code true} if this entry was looked up since it was last considered for eviction.
+                 */
+                protected boolean isAccessed() {
+                    return accessed;
+                }
+
+                /**
+                 * Resets the access mark of this entry when it is considered for eviction.
+                 */
+                protected void reset() {
+                    accessed = false;
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.CacheProvider.Bounded.Entry{" +
+                            "name='" + name + '\'' +
+                            ", resolution=" + resolution +
+                            ", weight=" + weight +
+                            ", accessed=" + accessed +
+                            '}';
+                }
             }
         }
 
         /**
-         * Represents a nested annotation value.
+         * <p>
+         * A cache provider that deduplicates concurrent attempts to parse the same type. If a {@link TypePool.Default} that uses
+         * this cache provider parses a type while another thread is already parsing a type of the same name using the same cache
+         * provider, the type pool awaits the other thread's result instead of parsing the type a second time. If the other thread
+         * fails to parse the type, the waiting thread parses the type by itself. Any caching is delegated to another cache provider.
+         * </p>
+         * <p>
+         * As cache providers are typically shared among all type pools of a class loader, this cache provider avoids duplicate
+         * parsing of popular types when many classes are loaded concurrently, for example when starting an application.
+         * </p>
          */
-        protected static class RawAnnotationValue extends AnnotationValue.AbstractBase<AnnotationDescription, Annotation> {
+        class Deduplicating implements CacheProvider.Coordinating {
 
             /**
-             * The type pool to use for looking up types.
+             * The cache provider to delegate to.
              */
-            private final TypePool typePool;
+            private final CacheProvider delegate;
 
             /**
-             * The annotation token that represents the nested invocation.
+             * A map of all currently active attempts to resolve a type by the type's name.
              */
-            private final Default.LazyTypeDescription.AnnotationToken annotationToken;
+            private final ConcurrentMap<String, Attempt> attempts;
 
             /**
-             * Creates a new annotation value for a nested annotation.
+             * Creates a new deduplicating cache provider.
              *
-             * @param typePool        The type pool to use for looking up types.
-             * @param annotationToken The token that represents the annotation.
+             * @param delegate The cache provider to delegate to.
              */
-            public RawAnnotationValue(TypePool typePool, Default.LazyTypeDescription.AnnotationToken annotationToken) {
-                this.typePool = typePool;
-                this.annotationToken = annotationToken;
+            public Deduplicating(CacheProvider delegate) {
+                this.delegate = delegate;
+                attempts = new ConcurrentHashMap<String, Attempt>();
+            }
+
+            /**
+             * Returns a deduplicating cache provider that delegates to a {@link Simple} cache provider which is prepopulated with
+             * the {@link Object} type.
+             *
+             * @return A deduplicating cache provider that is prepopulated with the {@link Object} type.
+             */
+            public static CacheProvider withObjectType() {
+                return new Deduplicating(Simple.withObjectType());
             }
 
             @Override
-            public AnnotationDescription resolve() {
-                return annotationToken.toAnnotationDescription(typePool).resolve();
+            public Resolution find(String name) {
+                return delegate.find(name);
             }
 
             @Override
-            @SuppressWarnings("unchecked")
-            public Loaded<Annotation> load(ClassLoader classLoader) throws ClassNotFoundException {
-                Class<?> type = Class.forName(annotationToken.getBinaryName(), false, classLoader);
-                if (type.isAnnotation()) {
-                    return new ForAnnotationDescription.Loaded<Annotation>(AnnotationDescription.AnnotationInvocationHandler.of(classLoader,
-                            (Class<? extends Annotation>) type,
-                            annotationToken.getValues()));
-                } else {
-                    return new ForAnnotationDescription.IncompatibleRuntimeType(type);
-                }
+            public Resolution register(String name, Resolution resolution) {
+                return delegate.register(name, resolution);
             }
 
             @Override
-            public boolean equals(Object other) {
-                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
+            public void clear() {
+                delegate.clear();
             }
 
+            /**
+             * {@inheritDoc}
+             * <p>
+             * The type is resolved by the supplied resolver unless another thread is currently resolving a type of the same name.
+             * In the latter case, the current thread blocks until the other thread's resolution is available and returns this resolution.
+             * As the resolver registers its resolution before the attempt is completed, a thread that arrives after the attempt was
+             * completed finds the registered resolution. A resolver must not await the resolution of a type that is resolved by another
+             * thread as this might cause a deadlock.
+             * </p>
+             */
             @Override
-            public int hashCode() {
-                return resolve().hashCode();
+            public Resolution resolve(String name, Resolver resolver) {
+                Thread thread = Thread.currentThread();
+                while (true) {
+                    Attempt attempt = new Attempt(thread);
+                    Attempt previous = attempts.putIfAbsent(name, attempt);
+                    if (previous == null) {
+                        Resolution resolution = Attempt.FAILED;
+                        try {
+                            resolution = delegate.find(name);
+                            if (resolution == null) {
+                                resolution = resolver.resolve(name);
+                            }
+                            return resolution;
+                        } finally {
+                            attempt.complete(resolution);
+                            attempts.remove(name, attempt);
+                        }
+                    } else if (previous.isOwnedBy(thread)) {
+                        return resolver.resolve(name);
+                    }
+                    try {
+                        Resolution resolution = previous.await();
+                        if (resolution != Attempt.FAILED) {
+                            return resolution;
+                        }
+                    } catch (InterruptedException ignored) {
+                        thread.interrupt();
+                        return resolver.resolve(name);
+                    }
+                }
             }
 
             @Override
             public String toString() {
-                return resolve().toString();
+                return "TypePool.CacheProvider.Deduplicating{" +
+                        "delegate=" + delegate +
+                        ", attempts=" + attempts +
+                        '}';
+            }
+
+            /**
+             * An attempt to resolve a type that is currently executed by a thread.
+             */
+            protected static class Attempt {
+
+                /**
+                 * Indicates that an attempt did not yield a resolution.
+                 */
+                protected static final Resolution FAILED = null;
+
+                /**
+                 * The thread that executes this attempt.
+                 */
+                private final Thread owner;
+
+                /**
+                 * A latch that is released once this attempt is complete.
+                 */
+                private final CountDownLatch latch;
+
+                /**
+                 * The resolution of this attempt or {@code null} if the attempt was not yet completed or failed.
+                 */
+                private volatile Resolution resolution;
+
+                /**
+                 * Creates a new attempt.
+                 *
+                 * @param owner The thread that executes this attempt.
+                 */
+                protected Attempt(Thread owner) {
+                    this.owner = owner;
+                    latch = new CountDownLatch(1);
+                }
+
+                /**
+                 * Determines if this attempt is executed by the given thread.
+                 *
+                 * @param thread The thread to check.
+                 * @return {@code true} if this attempt is executed by the given thread.
+                 */
+                protected boolean isOwnedBy(Thread thread) {
+                    return owner == thread;
+                }
+
+                /**
+                 * Completes this attempt.
+                 *
+                 * @param resolution The resolution of this attempt or {@code null} if the attempt failed.
+                 */
+                protected void complete(Resolution resolution) {
+                    this.resolution = resolution;
+                    latch.countDown();
+                }
+
+                /**
+                 * Awaits the completion of this attempt.
+                 *
+                 * @return The resolution of this attempt or {@code null} if the attempt failed.
+                 * @throws InterruptedException If the current thread is interrupted while waiting.
+                 */
+                protected Resolution await() throws InterruptedException {
+                    latch.await();
+                    return resolution;
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.CacheProvider.Deduplicating.Attempt{" +
+                            "owner=" + owner +
+                            ", resolution=" + resolution +
+                            '}';
+                }
             }
         }
 
         /**
-         * Represents an enumeration value of an annotation.
+         * A cache provider that registers the names of unresolved types in a {@link ClassFileLocator.NegativeCaching.Registry}
+         * such that a repeated lookup of a missing type is answered without querying the type pool's class file locator.
+         * Resolved types are cached by the delegate cache provider. If missing types might become available at a later point,
+         * the registry must be invalidated explicitly. Clearing this cache provider also clears the registry.
          */
-        protected static class RawEnumerationValue extends AnnotationValue.AbstractBase<EnumerationDescription, Enum<?>> {
+        class NegativeCaching implements CacheProvider.Coordinating {
 
             /**
-             * The type pool to use for looking up types.
+             * The cache provider to delegate to for resolved types.
              */
-            private final TypePool typePool;
+            private final CacheProvider cacheProvider;
 
             /**
-             * The descriptor of the enumeration type.
+             * The registry of names of types that could not be resolved.
              */
-            private final String descriptor;
+            private final ClassFileLocator.NegativeCaching.Registry registry;
 
             /**
-             * The name of the enumeration.
+             * Creates a new negative caching cache provider.
+             *
+             * @param cacheProvider The cache provider to delegate to for resolved types.
+             * @param registry      The registry of names of types that could not be resolved.
              */
-            private final String value;
+            public NegativeCaching(CacheProvider cacheProvider, ClassFileLocator.NegativeCaching.Registry registry) {
+                this.cacheProvider = cacheProvider;
+                this.registry = registry;
+            }
 
             /**
-             * Creates a new enumeration value representation.
+             * Returns a negative caching cache provider that delegates to a simple cache provider which is prepopulated with
+             * the {@link Object} type and that uses a new registry of a default capacity.
              *
-             * @param typePool   The type pool to use for looking up types.
-             * @param descriptor The descriptor of the enumeration type.
-             * @param value      The name of the enumeration.
+             * @return A negative caching cache provider.
              */
-            public RawEnumerationValue(TypePool typePool, String descriptor, String value) {
-                this.typePool = typePool;
-                this.descriptor = descriptor;
-                this.value = value;
+            public static CacheProvider withObjectType() {
+                return new NegativeCaching(Simple.withObjectType(), new ClassFileLocator.NegativeCaching.Registry());
             }
 
             @Override
-            public EnumerationDescription resolve() {
-                return new LazyEnumerationDescription();
+            public Resolution find(String name) {
+                return registry.contains(name)
+                        ? new Resolution.Illegal(name)
+                        : cacheProvider.find(name);
             }
 
             @Override
-            @SuppressWarnings("unchecked")
-            public Loaded<Enum<?>> load(ClassLoader classLoader) throws ClassNotFoundException {
-                Class<?> type = Class.forName(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'), false, classLoader);
-                try {
-                    return type.isEnum()
-                            ? new ForEnumerationDescription.Loaded(Enum.valueOf((Class) type, value))
-                            : new ForEnumerationDescription.IncompatibleRuntimeType(type);
-                } catch (IllegalArgumentException ignored) {
-                    return new ForEnumerationDescription.UnknownRuntimeEnumeration((Class) type, value);
+            public Resolution register(String name, Resolution resolution) {
+                if (resolution.isResolved()) {
+                    return cacheProvider.register(name, resolution);
+                } else {
+                    registry.register(name);
+                    return resolution;
                 }
             }
 
             @Override
-            public boolean equals(Object other) {
-                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
+            public Resolution resolve(String name, Resolver resolver) {
+                return cacheProvider instanceof Coordinating
+                        ? ((Coordinating) cacheProvider).resolve(name, resolver)
+                        : resolver.resolve(name);
             }
 
             @Override
-            public int hashCode() {
-                return resolve().hashCode();
+            public void clear() {
+                cacheProvider.clear();
+                registry.clear();
             }
 
             @Override
-            public String toString() {
-                return resolve().toString();
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (other == null || getClass() != other.getClass()) return false;
+                NegativeCaching that = (NegativeCaching) other;
+                return cacheProvider.equals(that.cacheProvider) && registry.equals(that.registry);
             }
 
-            /**
-             * An enumeration description where any type references are only resolved on demand.
-             */
-            protected class LazyEnumerationDescription extends EnumerationDescription.AbstractBase {
+            @Override
+            public int hashCode() {
+                int result = cacheProvider.hashCode();
+                result = 31 * result + registry.hashCode();
+                return result;
+            }
 
-                @Override
-                public String getValue() {
-                    return value;
-                }
+            @Override
+            public String toString() {
+                return "TypePool.CacheProvider.NegativeCaching{" +
+                        "cacheProvider=" + cacheProvider +
+                        ", registry=" + registry +
+                        '}';
+            }
+        }
+    }
 
-                @Override
-                public TypeDescription getEnumerationType() {
-                    return typePool.describe(descriptor.substring(1, descriptor.length() - 1).replace('/', '.')).resolve();
-                }
+    /**
+     * An empty type pool that cannot describe any type.
+     */
+    enum Empty implements TypePool {
 
-                @Override
-                public <T extends Enum<T>> T load(Class<T> type) {
-                    return Enum.valueOf(type, value);
-                }
-            }
+        /**
+         * The singleton instance.
+         */
+        INSTANCE;
+
+        @Override
+        public Resolution describe(String name) {
+            return new Resolution.Illegal(name);
+        }
+
+        @Override
+        public void clear() {
+            /* do nothing */
+        }
+
+        @Override
+        public String toString() {
+            return "TypePool.Empty." + name();
         }
+    }
+
+    /**
+     * A base implementation of a {@link net.bytebuddy.pool.TypePool} that is managing a cache provider and
+     * that handles the description of array and primitive types.
+     */
+    abstract class AbstractBase implements TypePool {
 
         /**
-         * Represents a type value of an annotation.
+         * A map of primitive types by their name.
          */
-        protected static class RawTypeValue extends AnnotationValue.AbstractBase<TypeDescription, Class<?>> {
+        protected static final Map<String, TypeDescription> PRIMITIVE_TYPES;
 
-            /**
-             * A convenience reference indicating that a loaded type should not be initialized.
-             */
-            private static final boolean NO_INITIALIZATION = false;
+        /**
+         * A map of primitive types by their descriptor.
+         */
+        protected static final Map<String, String> PRIMITIVE_DESCRIPTORS;
 
-            /**
-             * The type pool to use for looking up types.
-             */
-            private final TypePool typePool;
+        /**
+         * The array symbol as used by Java descriptors.
+         */
+        private static final String ARRAY_SYMBOL = "[";
 
-            /**
-             * The binary name of the type.
-             */
-            private final String name;
+        /*
+         * Initializes the maps of primitive type names and descriptors.
+         */
+        static {
+            Map<String, TypeDescription> primitiveTypes = new HashMap<String, TypeDescription>();
+            Map<String, String> primitiveDescriptors = new HashMap<String, String>();
+            for (Class<?> primitiveType : new Class<?>[]{boolean.class,
+                    byte.class,
+                    short.class,
+                    char.class,
+                    int.class,
+                    long.class,
+                    float.class,
+                    double.class,
+                    void.class}) {
+                primitiveTypes.put(primitiveType.getName(), new TypeDescription.ForLoadedType(primitiveType));
+                primitiveDescriptors.put(Type.getDescriptor(primitiveType), primitiveType.getName());
+            }
+            PRIMITIVE_TYPES = Collections.unmodifiableMap(primitiveTypes);
+            PRIMITIVE_DESCRIPTORS = Collections.unmodifiableMap(primitiveDescriptors);
+        }
 
-            /**
-             * Represents a type value of an annotation.
-             *
-             * @param typePool The type pool to use for looking up types.
-             * @param type     A type representation of the type that is referenced by the annotation..
-             */
-            protected RawTypeValue(TypePool typePool, Type type) {
-                this.typePool = typePool;
-                name = type.getSort() == Type.ARRAY
-                        ? type.getInternalName().replace('/', '.')
-                        : type.getClassName();
+        /**
+         * The cache provider of this instance.
+         */
+        protected final CacheProvider cacheProvider;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param cacheProvider The cache provider to be used.
+         */
+        protected AbstractBase(CacheProvider cacheProvider) {
+            this.cacheProvider = cacheProvider;
+        }
+
+        @Override
+        public Resolution describe(String name) {
+            if (name.contains("/")) {
+                throw new IllegalArgumentException(name + " contains the illegal character '/'");
+            }
+            int arity = 0;
+            while (name.startsWith(ARRAY_SYMBOL)) {
+                arity++;
+                name = name.substring(1);
+            }
+            if (arity > 0) {
+                String primitiveName = PRIMITIVE_DESCRIPTORS.get(name);
+                name = primitiveName == null
+                        ? name.substring(1, name.length() - 1)
+                        : primitiveName;
             }
+            TypeDescription typeDescription = PRIMITIVE_TYPES.get(name);
+            Resolution resolution = typeDescription == null
+                    ? cacheProvider.find(name)
+                    : new Resolution.Simple(typeDescription);
+            if (resolution == null) {
+                resolution = cacheProvider instanceof CacheProvider.Coordinating
+                        ? ((CacheProvider.Coordinating) cacheProvider).resolve(name, new CachingResolver())
+                        : doCache(name, doDescribe(name));
+            }
+            return ArrayTypeResolution.of(resolution, arity);
+        }
+
+        /**
+         * Writes the resolution to the cache. This method should be overridden if the directly
+         * resolved instance should not be added to the cache.
+         *
+         * @param name       The name of the type.
+         * @param resolution The resolution for this type.
+         * @return The actual resolution for the type of this name that is stored in the cache.
+         */
+        protected Resolution doCache(String name, Resolution resolution) {
+            return cacheProvider.register(name, resolution);
+        }
+
+        @Override
+        public void clear() {
+            cacheProvider.clear();
+        }
+
+        /**
+         * Determines a resolution to a non-primitive, non-array type.
+         *
+         * @param name The name of the type to describe.
+         * @return A resolution to the type to describe.
+         */
+        protected abstract Resolution doDescribe(String name);
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || !(other == null || getClass() != other.getClass())
+                    && cacheProvider.equals(((AbstractBase) other).cacheProvider);
+        }
+
+        @Override
+        public int hashCode() {
+            return cacheProvider.hashCode();
+        }
+
+        /**
+         * A resolver that describes a type and writes its resolution to the cache on behalf of a coordinating cache provider.
+         */
+        protected class CachingResolver implements CacheProvider.Coordinating.Resolver {
 
             @Override
-            public TypeDescription resolve() {
-                return typePool.describe(name).resolve();
+            public Resolution resolve(String name) {
+                return doCache(name, doDescribe(name));
             }
 
-            @Override
-            public AnnotationValue.Loaded<Class<?>> load(ClassLoader classLoader) throws ClassNotFoundException {
-                return new Loaded(Class.forName(name, NO_INITIALIZATION, classLoader));
+            /**
+             * Returns the outer instance.
+             *
+             * @return The outer instance.
+             */
+            private AbstractBase getOuter() {
+                return AbstractBase.this;
             }
 
             @Override
             public boolean equals(Object other) {
-                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && getOuter().equals(((CachingResolver) other).getOuter());
             }
 
             @Override
             public int hashCode() {
-                return resolve().hashCode();
+                return getOuter().hashCode();
             }
 
             @Override
             public String toString() {
-                return RenderingDispatcher.CURRENT.toSourceString(resolve());
+                return "TypePool.AbstractBase.CachingResolver{" +
+                        "outer=" + getOuter() +
+                        '}';
             }
+        }
+
+        /**
+         * Implements a hierarchical view of type pools, similarly to class loader hierarchies. For every lookup, the parent type pool
+         * is asked first if it can resolve a type. Only if the parent (and potentially its parents) are unable to resolve a type,
+         * this instance is queried for a type description.
+         */
+        public abstract static class Hierarchical extends AbstractBase {
 
             /**
-             * Represents a loaded annotation property that represents a type.
+             * The parent type pool.
              */
-            protected static class Loaded extends AnnotationValue.Loaded.AbstractBase<Class<?>> {
+            private final TypePool parent;
 
-                /**
-                 * The type that is represented by an annotation property.
-                 */
-                private final Class<?> type;
+            /**
+             * Creates a hierarchical type pool.
+             *
+             * @param cacheProvider The cache provider to be used.
+             * @param parent        The parent type pool to be used.
+             */
+            protected Hierarchical(CacheProvider cacheProvider, TypePool parent) {
+                super(cacheProvider);
+                this.parent = parent;
+            }
 
-                /**
-                 * Creates a new representation for an annotation property referencing a type.
-                 *
-                 * @param type The type that is represented by an annotation property.
-                 */
-                public Loaded(Class<?> type) {
-                    this.type = type;
-                }
+            @Override
+            public Resolution describe(String name) {
+                Resolution resolution = parent.describe(name);
+                return resolution.isResolved()
+                        ? resolution
+                        : super.describe(name);
+            }
 
-                @Override
-                public State getState() {
-                    return State.RESOLVED;
+            @Override
+            public void clear() {
+                try {
+                    parent.clear();
+                } finally {
+                    super.clear();
                 }
+            }
 
-                @Override
-                public Class<?> resolve() {
-                    return type;
-                }
+            @Override
+            public boolean equals(Object object) {
+                if (this == object) return true;
+                if (object == null || getClass() != object.getClass()) return false;
+                if (!super.equals(object)) return false;
+                Hierarchical that = (Hierarchical) object;
+                return parent.equals(that.parent);
+            }
 
-                @Override
-                public boolean represents(Object value) {
-                    return type.equals(value);
-                }
+            @Override
+            public int hashCode() {
+                int result = super.hashCode();
+                result = 31 * result + parent.hashCode();
+                return result;
+            }
+        }
 
-                @Override
-                public boolean equals(Object other) {
-                    if (this == other) return true;
-                    if (!(other instanceof AnnotationValue.Loaded<?>)) return false;
-                    AnnotationValue.Loaded<?> loadedOther = (AnnotationValue.Loaded<?>) other;
-                    return loadedOther.getState().isResolved() && type.equals(loadedOther.resolve());
-                }
+        /**
+         * A resolution for a type that, if resolved, represents an array type.
+         */
+        protected static class ArrayTypeResolution implements Resolution {
 
-                @Override
-                public int hashCode() {
-                    return type.hashCode();
-                }
+            /**
+             * The underlying resolution that is represented by this instance.
+             */
+            private final Resolution resolution;
 
-                @Override
-                public String toString() {
-                    return RenderingDispatcher.CURRENT.toSourceString(new TypeDescription.ForLoadedType(type));
-                }
+            /**
+             * The arity of the represented array.
+             */
+            private final int arity;
+
+            /**
+             * Creates a wrapper for another resolution that, if resolved, represents an array type.
+             *
+             * @param resolution The underlying resolution that is represented by this instance.
+             * @param arity      The arity of the represented array.
+             */
+            protected ArrayTypeResolution(Resolution resolution, int arity) {
+                this.resolution = resolution;
+                this.arity = arity;
+            }
+
+            /**
+             * Creates a wrapper for another resolution that, if resolved, represents an array type. The wrapper
+             * is only created if the arity is not zero. If the arity is zero, the given resolution is simply
+             * returned instead.
+             *
+             * @param resolution The underlying resolution that is represented by this instance.
+             * @param arity      The arity of the represented array.
+             * @return A wrapper for another resolution that, if resolved, represents an array type or the
+             * given resolution if the given arity is zero.
+             */
+            protected static Resolution of(Resolution resolution, int arity) {
+                return arity == 0
+                        ? resolution
+                        : new ArrayTypeResolution(resolution, arity);
+            }
+
+            @Override
+            public boolean isResolved() {
+                return resolution.isResolved();
+            }
+
+            @Override
+            public TypeDescription resolve() {
+                return TypeDescription.ArrayProjection.of(resolution.resolve(), arity);
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return this == other || !(other == null || getClass() != other.getClass())
+                        && arity == ((ArrayTypeResolution) other).arity
+                        && resolution.equals(((ArrayTypeResolution) other).resolution);
+            }
+
+            @Override
+            public int hashCode() {
+                int result = resolution.hashCode();
+                result = 31 * result + arity;
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.AbstractBase.ArrayTypeResolution{" +
+                        "resolution=" + resolution +
+                        ", arity=" + arity +
+                        '}';
             }
         }
 
         /**
-         * Represents an array that is referenced by an annotation which does not contain primitive values or {@link String}s.
+         * Represents a nested annotation value.
          */
-        protected static class RawDescriptionArray extends AnnotationValue.AbstractBase<Object[], Object[]> {
+        protected static class RawAnnotationValue extends AnnotationValue.AbstractBase<AnnotationDescription, Annotation> {
 
             /**
              * The type pool to use for looking up types.
@@ -835,555 +1327,2436 @@ public interface TypePool {
             private final TypePool typePool;
 
             /**
-             * A reference to the component type.
-             */
-            private final ComponentTypeReference componentTypeReference;
-
-            /**
-             * A list of all values of this array value in their order.
+             * The annotation token that represents the nested invocation.
              */
-            private List<AnnotationValue<?, ?>> values;
+            private final Default.LazyTypeDescription.AnnotationToken annotationToken;
 
             /**
-             * Creates a new array value representation of a complex array.
+             * Creates a new annotation value for a nested annotation.
              *
-             * @param typePool               The type pool to use for looking up types.
-             * @param componentTypeReference A lazy reference to the component type of this array.
-             * @param values                 A list of all values of this annotation.
+             * @param typePool        The type pool to use for looking up types.
+             * @param annotationToken The token that represents the annotation.
              */
-            public RawDescriptionArray(TypePool typePool,
-                                   ComponentTypeReference componentTypeReference,
-                                   List<AnnotationValue<?, ?>> values) {
+            public RawAnnotationValue(TypePool typePool, Default.LazyTypeDescription.AnnotationToken annotationToken) {
                 this.typePool = typePool;
-                this.values = values;
-                this.componentTypeReference = componentTypeReference;
+                this.annotationToken = annotationToken;
             }
 
             @Override
-            public Object[] resolve() {
-                TypeDescription componentTypeDescription = typePool.describe(componentTypeReference.lookup()).resolve();
-                Class<?> componentType;
-                if (componentTypeDescription.represents(Class.class)) {
-                    componentType = TypeDescription.class;
-                } else if (componentTypeDescription.isAssignableTo(Enum.class)) { // Enums can implement annotation interfaces, check this first.
-                    componentType = EnumerationDescription.class;
-                } else if (componentTypeDescription.isAssignableTo(Annotation.class)) {
-                    componentType = AnnotationDescription.class;
-                } else if (componentTypeDescription.represents(String.class)) {
-                    componentType = String.class;
-                } else {
-                    throw new IllegalStateException("Unexpected complex array component type " + componentTypeDescription);
-                }
-                Object[] array = (Object[]) Array.newInstance(componentType, values.size());
-                int index = 0;
-                for (AnnotationValue<?, ?> annotationValue : values) {
-                    Array.set(array, index++, annotationValue.resolve());
-                }
-                return array;
+            public AnnotationDescription resolve() {
+                return annotationToken.toAnnotationDescription(typePool).resolve();
             }
 
             @Override
-            public AnnotationValue.Loaded<Object[]> load(ClassLoader classLoader) throws ClassNotFoundException {
-                List<AnnotationValue.Loaded<?>> loadedValues = new ArrayList<AnnotationValue.Loaded<?>>(values.size());
-                for (AnnotationValue<?, ?> value : values) {
-                    loadedValues.add(value.load(classLoader));
+            @SuppressWarnings("unchecked")
+            public Loaded<Annotation> load(ClassLoader classLoader) throws ClassNotFoundException {
+                Class<?> type = Class.forName(annotationToken.getBinaryName(), false, classLoader);
+                if (type.isAnnotation()) {
+                    return new ForAnnotationDescription.Loaded<Annotation>(AnnotationDescription.AnnotationInvocationHandler.of(classLoader,
+                            (Class<? extends Annotation>) type,
+                            annotationToken.getValues()));
+                } else {
+                    return new ForAnnotationDescription.IncompatibleRuntimeType(type);
                 }
-                return new Loaded(Class.forName(componentTypeReference.lookup(), false, classLoader), loadedValues);
             }
 
             @Override
             public boolean equals(Object other) {
-                if (this == other) return true;
-                if (!(other instanceof AnnotationValue<?, ?>)) return false;
-                Object value = ((AnnotationValue<?, ?>) other).resolve();
-                return value instanceof Object[] && Arrays.equals(resolve(), (Object[]) value);
+                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
             }
 
             @Override
             public int hashCode() {
-                return Arrays.hashCode(resolve());
+                return resolve().hashCode();
             }
 
             @Override
             public String toString() {
-                return RenderingDispatcher.CURRENT.toSourceString(values);
+                return resolve().toString();
             }
+        }
+
+        /**
+         * Represents an enumeration value of an annotation.
+         */
+        protected static class RawEnumerationValue extends AnnotationValue.AbstractBase<EnumerationDescription, Enum<?>> {
 
             /**
-             * A lazy representation of the component type of an array.
+             * The type pool to use for looking up types.
              */
-            public interface ComponentTypeReference {
+            private final TypePool typePool;
 
-                /**
-                 * Lazily returns the binary name of the array component type of an annotation value.
-                 *
-                 * @return The binary name of the component type.
-                 */
-                String lookup();
-            }
+            /**
+             * The descriptor of the enumeration type.
+             */
+            private final String descriptor;
 
             /**
-             * Represents a loaded annotation property representing a complex array.
+             * The name of the enumeration.
              */
-            protected static class Loaded extends AnnotationValue.Loaded.AbstractBase<Object[]> {
+            private final String value;
 
-                /**
-                 * The array's loaded component type.
-                 */
-                private final Class<?> componentType;
+            /**
+             * Creates a new enumeration value representation.
+             *
+             * @param typePool   The type pool to use for looking up types.
+             * @param descriptor The descriptor of the enumeration type.
+             * @param value      The name of the enumeration.
+             */
+            public RawEnumerationValue(TypePool typePool, String descriptor, String value) {
+                this.typePool = typePool;
+                this.descriptor = descriptor;
+                this.value = value;
+            }
 
-                /**
-                 * A list of loaded values of the represented complex array.
-                 */
-                private final List<AnnotationValue.Loaded<?>> values;
+            @Override
+            public EnumerationDescription resolve() {
+                return new LazyEnumerationDescription();
+            }
 
-                /**
-                 * Creates a new representation of an annotation property representing an array of
-                 * non-trivial values.
-                 *
-                 * @param componentType The array's loaded component type.
-                 * @param values        A list of loaded values of the represented complex array.
-                 */
-                public Loaded(Class<?> componentType, List<AnnotationValue.Loaded<?>> values) {
-                    this.componentType = componentType;
-                    this.values = values;
+            @Override
+            @SuppressWarnings("unchecked")
+            public Loaded<Enum<?>> load(ClassLoader classLoader) throws ClassNotFoundException {
+                Class<?> type = Class.forName(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'), false, classLoader);
+                try {
+                    return type.isEnum()
+                            ? new ForEnumerationDescription.Loaded(Enum.valueOf((Class) type, value))
+                            : new ForEnumerationDescription.IncompatibleRuntimeType(type);
+                } catch (IllegalArgumentException ignored) {
+                    return new ForEnumerationDescription.UnknownRuntimeEnumeration((Class) type, value);
                 }
+            }
 
-                @Override
-                public State getState() {
-                    for (AnnotationValue.Loaded<?> value : values) {
-                        if (!value.getState().isResolved()) {
-                            return State.UNRESOLVED;
-                        }
-                    }
-                    return State.RESOLVED;
-                }
+            @Override
+            public boolean equals(Object other) {
+                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
+            }
 
-                @Override
-                public Object[] resolve() {
-                    Object[] array = (Object[]) Array.newInstance(componentType, values.size());
-                    int index = 0;
-                    for (AnnotationValue.Loaded<?> annotationValue : values) {
-                        Array.set(array, index++, annotationValue.resolve());
-                    }
-                    return array;
-                }
+            @Override
+            public int hashCode() {
+                return resolve().hashCode();
+            }
 
-                @Override
-                public boolean represents(Object value) {
-                    if (!(value instanceof Object[])) return false;
-                    if (value.getClass().getComponentType() != componentType) return false;
-                    Object[] array = (Object[]) value;
-                    if (values.size() != array.length) return false;
-                    Iterator<AnnotationValue.Loaded<?>> iterator = values.iterator();
-                    for (Object aValue : array) {
-                        AnnotationValue.Loaded<?> self = iterator.next();
-                        if (!self.getState().isResolved() || !self.represents(aValue)) {
-                            return false;
-                        }
-                    }
-                    return true;
-                }
+            @Override
+            public String toString() {
+                return resolve().toString();
+            }
+
+            /**
+             * An enumeration description where any type references are only resolved on demand.
+             */
+            protected class LazyEnumerationDescription extends EnumerationDescription.AbstractBase {
 
                 @Override
-                public boolean equals(Object other) {
-                    if (this == other) return true;
-                    if (!(other instanceof AnnotationValue.Loaded<?>)) return false;
-                    AnnotationValue.Loaded<?> loadedOther = (AnnotationValue.Loaded<?>) other;
-                    if (!loadedOther.getState().isResolved()) return false;
-                    Object otherValue = loadedOther.resolve();
-                    if (!(otherValue instanceof Object[])) return false;
-                    Object[] otherArrayValue = (Object[]) otherValue;
-                    if (values.size() != otherArrayValue.length) return false;
-                    Iterator<AnnotationValue.Loaded<?>> iterator = values.iterator();
-                    for (Object value : otherArrayValue) {
-                        AnnotationValue.Loaded<?> self = iterator.next();
-                        if (!self.resolve().equals(value)) {
-                            return false;
-                        }
-                    }
-                    return true;
+                public String getValue() {
+                    return value;
                 }
 
                 @Override
-                public int hashCode() {
-                    int result = 1;
-                    for (AnnotationValue.Loaded<?> value : values) {
-                        result = 31 * result + value.hashCode();
-                    }
-                    return result;
+                public TypeDescription getEnumerationType() {
+                    return typePool.describe(descriptor.substring(1, descriptor.length() - 1).replace('/', '.')).resolve();
                 }
 
                 @Override
-                public String toString() {
-                    return RenderingDispatcher.CURRENT.toSourceString(values);
+                public <T extends Enum<T>> T load(Class<T> type) {
+                    return Enum.valueOf(type, value);
                 }
             }
         }
-    }
-
-    /**
-     * <p>
-     * A default implementation of a {@link net.bytebuddy.pool.TypePool} that models binary data in the Java byte code format
-     * into a {@link TypeDescription}. The data lookup is delegated to a {@link net.bytebuddy.dynamic.ClassFileLocator}.
-     * </p>
-     * <p>
-     * {@link Resolution}s that are produced by this type pool are either fully resolved or not resolved at all.
-     * </p>
-     */
-    class Default extends AbstractBase.Hierarchical {
-
-        /**
-         * Indicates that a visited method should be ignored.
-         */
-        private static final MethodVisitor IGNORE_METHOD = null;
-
-        /**
-         * The locator to query for finding binary data of a type.
-         */
-        protected final ClassFileLocator classFileLocator;
-
-        /**
-         * The reader mode to apply by this default type pool.
-         */
-        protected final ReaderMode readerMode;
-
-        /**
-         * Creates a new default type pool without a parent pool.
-         *
-         * @param cacheProvider    The cache provider to be used.
-         * @param classFileLocator The class file locator to be used.
-         * @param readerMode       The reader mode to apply by this default type pool.
-         */
-        public Default(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
-            this(cacheProvider, classFileLocator, readerMode, Empty.INSTANCE);
-        }
-
-        /**
-         * Creates a new default type pool.
-         *
-         * @param cacheProvider    The cache provider to be used.
-         * @param classFileLocator The class file locator to be used.
-         * @param readerMode       The reader mode to apply by this default type pool.
-         * @param parentPool       The parent type pool.
-         */
-        public Default(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
-            super(cacheProvider, parentPool);
-            this.classFileLocator = classFileLocator;
-            this.readerMode = readerMode;
-        }
-
-        /**
-         * Creates a default {@link net.bytebuddy.pool.TypePool} that looks up data by querying the system class
-         * loader. The returned instance is configured to use a fast reading mode and a simple cache.
-         *
-         * @return A type pool that reads its data from the system class path.
-         */
-        public static TypePool ofClassPath() {
-            return of(ClassFileLocator.ForClassLoader.ofClassPath());
-        }
-
-        /**
-         * Returns a type pool for the provided class loader.
-         *
-         * @param classLoader The class loader for which this class pool is representing types.
-         * @return An appropriate type pool.
-         */
-        public static TypePool of(ClassLoader classLoader) {
-            return of(ClassFileLocator.ForClassLoader.of(classLoader));
-        }
-
-        /**
-         * Creates a default {@link net.bytebuddy.pool.TypePool} that looks up data by querying the supplied class
-         * file locator. The returned instance is configured to use a fast reading mode and a simple cache.
-         *
-         * @param classFileLocator The class file locator to use.
-         * @return A type pool that reads its data from the system class path.
-         */
-        public static TypePool of(ClassFileLocator classFileLocator) {
-            return new Default(new CacheProvider.Simple(), classFileLocator, ReaderMode.FAST);
-        }
-
-        @Override
-        protected Resolution doDescribe(String name) {
-            try {
-                ClassFileLocator.Resolution resolution = classFileLocator.locate(name);
-                return resolution.isResolved()
-                        ? new Resolution.Simple(parse(resolution.resolve()))
-                        : new Resolution.Illegal(name);
-            } catch (IOException exception) {
-                throw new IllegalStateException("Error while reading class file", exception);
-            }
-        }
-
-        /**
-         * Parses a binary representation and transforms it into a type description.
-         *
-         * @param binaryRepresentation The binary data to be parsed.
-         * @return A type description of the binary data.
-         */
-        private TypeDescription parse(byte[] binaryRepresentation) {
-            ClassReader classReader = new ClassReader(binaryRepresentation);
-            TypeExtractor typeExtractor = new TypeExtractor();
-            classReader.accept(typeExtractor, readerMode.getFlags());
-            return typeExtractor.toTypeDescription();
-        }
-
-        @Override
-        public boolean equals(Object other) {
-            return this == other || !(other == null || getClass() != other.getClass())
-                    && super.equals(other)
-                    && classFileLocator.equals(((Default) other).classFileLocator)
-                    && readerMode.equals(((Default) other).readerMode);
-        }
-
-        @Override
-        public int hashCode() {
-            return 31 * (31 * super.hashCode() + classFileLocator.hashCode()) + readerMode.hashCode();
-        }
-
-        @Override
-        public String toString() {
-            return "TypePool.Default{" +
-                    "classFileLocator=" + classFileLocator +
-                    ", cacheProvider=" + cacheProvider +
-                    ", readerMode=" + readerMode +
-                    '}';
-        }
 
         /**
-         * Determines the granularity of the class file parsing that is conducted by a {@link net.bytebuddy.pool.TypePool.Default}.
+         * Represents a type value of an annotation.
          */
-        public enum ReaderMode {
+        protected static class RawTypeValue extends AnnotationValue.AbstractBase<TypeDescription, Class<?>> {
 
             /**
-             * The extended reader mode parses the code segment of each method in order to detect parameter names
-             * that are only stored in a method's debugging information but are not explicitly included.
+             * A convenience reference indicating that a loaded type should not be initialized.
              */
-            EXTENDED(ClassReader.SKIP_FRAMES),
+            private static final boolean NO_INITIALIZATION = false;
 
             /**
-             * The fast reader mode skips the code segment of each method and cannot detect parameter names that are
-             * only contained within the debugging information. This mode still detects explicitly included method
-             * parameter names.
+             * The type pool to use for looking up types.
              */
-            FAST(ClassReader.SKIP_CODE);
+            private final TypePool typePool;
 
             /**
-             * The flags to provide to a {@link ClassReader} for parsing a file.
+             * The binary name of the type.
              */
-            private final int flags;
+            private final String name;
 
             /**
-             * Creates a new reader mode constant.
+             * Represents a type value of an annotation.
              *
-             * @param flags The flags to provide to a {@link ClassReader} for parsing a file.
+             * @param typePool The type pool to use for looking up types.
+             * @param type     A type representation of the type that is referenced by the annotation..
              */
-            ReaderMode(int flags) {
-                this.flags = flags;
+            protected RawTypeValue(TypePool typePool, Type type) {
+                this.typePool = typePool;
+                name = type.getSort() == Type.ARRAY
+                        ? type.getInternalName().replace('/', '.')
+                        : type.getClassName();
             }
 
-            /**
-             * Returns the flags to provide to a {@link ClassReader} for parsing a file.
-             *
-             * @return The flags to provide to a {@link ClassReader} for parsing a file.
-             */
-            protected int getFlags() {
-                return flags;
+            @Override
+            public TypeDescription resolve() {
+                return typePool.describe(name).resolve();
             }
 
-            /**
-             * Determines if this reader mode represents extended reading.
-             *
-             * @return {@code true} if this reader mode represents extended reading.
-             */
-            public boolean isExtended() {
-                return this == EXTENDED;
+            @Override
+            public AnnotationValue.Loaded<Class<?>> load(ClassLoader classLoader) throws ClassNotFoundException {
+                return new Loaded(Class.forName(name, NO_INITIALIZATION, classLoader));
             }
 
             @Override
-            public String toString() {
-                return "TypePool.Default.ReaderMode." + name();
+            public boolean equals(Object other) {
+                return this == other || (other instanceof AnnotationValue<?, ?> && resolve().equals(((AnnotationValue<?, ?>) other).resolve()));
             }
-        }
 
-        /**
-         * <p>
-         * A variant of {@link TypePool.Default} that resolves type descriptions lazily. A lazy resolution respects this type
-         * pool's {@link CacheProvider} but requeries this cache pool for every access of a property of a {@link TypeDescription}.
-         * </p>
-         * <p>
-         * {@link Resolution}s of this type pool are only fully resolved if a property that is not the type's name is required.
-         * </p>
-         */
-        public static class WithLazyResolution extends Default {
+            @Override
+            public int hashCode() {
+                return resolve().hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return RenderingDispatcher.CURRENT.toSourceString(resolve());
+            }
 
             /**
-             * Creates a new default type pool with lazy resolution and without a parent pool.
-             *
-             * @param cacheProvider    The cache provider to be used.
-             * @param classFileLocator The class file locator to be used.
-             * @param readerMode       The reader mode to apply by this default type pool.
+             * Represents a loaded annotation property that represents a type.
              */
-            public WithLazyResolution(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
-                this(cacheProvider, classFileLocator, readerMode, Empty.INSTANCE);
+            protected static class Loaded extends AnnotationValue.Loaded.AbstractBase<Class<?>> {
+
+                /**
+                 * The type that is represented by an annotation property.
+                 */
+                private final Class<?> type;
+
+                /**
+                 * Creates a new representation for an annotation property referencing a type.
+                 *
+                 * @param type The type that is represented by an annotation property.
+                 */
+                public Loaded(Class<?> type) {
+                    this.type = type;
+                }
+
+                @Override
+                public State getState() {
+                    return State.RESOLVED;
+                }
+
+                @Override
+                public Class<?> resolve() {
+                    return type;
+                }
+
+                @Override
+                public boolean represents(Object value) {
+                    return type.equals(value);
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (!(other instanceof AnnotationValue.Loaded<?>)) return false;
+                    AnnotationValue.Loaded<?> loadedOther = (AnnotationValue.Loaded<?>) other;
+                    return loadedOther.getState().isResolved() && type.equals(loadedOther.resolve());
+                }
+
+                @Override
+                public int hashCode() {
+                    return type.hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return RenderingDispatcher.CURRENT.toSourceString(new TypeDescription.ForLoadedType(type));
+                }
             }
+        }
+
+        /**
+         * Represents an array that is referenced by an annotation which does not contain primitive values or {@link String}s.
+         */
+        protected static class RawDescriptionArray extends AnnotationValue.AbstractBase<Object[], Object[]> {
 
             /**
-             * Creates a new default type pool with lazy resolution.
-             *
-             * @param cacheProvider    The cache provider to be used.
-             * @param classFileLocator The class file locator to be used.
-             * @param readerMode       The reader mode to apply by this default type pool.
-             * @param parentPool       The parent type pool.
+             * The type pool to use for looking up types.
              */
-            public WithLazyResolution(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
-                super(cacheProvider, classFileLocator, readerMode, parentPool);
-            }
+            private final TypePool typePool;
 
             /**
-             * Creates a default {@link net.bytebuddy.pool.TypePool} with lazy resolution that looks up data by querying the system class
-             * loader. The returned instance is configured to use a fast reading mode and a simple cache.
-             *
-             * @return A type pool that reads its data from the system class path.
+             * A reference to the component type.
              */
-            public static TypePool ofClassPath() {
-                return of(ClassFileLocator.ForClassLoader.ofClassPath());
-            }
+            private final ComponentTypeReference componentTypeReference;
 
             /**
-             * Returns a default {@link TypePool} with lazy resolution for the provided class loader.
-             *
-             * @param classLoader The class loader for which this class pool is representing types.
-             * @return An appropriate type pool.
+             * A list of all values of this array value in their order.
              */
-            public static TypePool of(ClassLoader classLoader) {
-                return of(ClassFileLocator.ForClassLoader.of(classLoader));
-            }
+            private List<AnnotationValue<?, ?>> values;
 
             /**
-             * Creates a default {@link net.bytebuddy.pool.TypePool} with lazy resolution that looks up data by querying the supplied class
-             * file locator. The returned instance is configured to use a fast reading mode and a simple cache.
+             * Creates a new array value representation of a complex array.
              *
-             * @param classFileLocator The class file locator to use.
-             * @return A type pool that reads its data from the system class path.
+             * @param typePool               The type pool to use for looking up types.
+             * @param componentTypeReference A lazy reference to the component type of this array.
+             * @param values                 A list of all values of this annotation.
              */
-            public static TypePool of(ClassFileLocator classFileLocator) {
-                return new WithLazyResolution(new CacheProvider.Simple(), classFileLocator, ReaderMode.FAST);
+            public RawDescriptionArray(TypePool typePool,
+                                   ComponentTypeReference componentTypeReference,
+                                   List<AnnotationValue<?, ?>> values) {
+                this.typePool = typePool;
+                this.values = values;
+                this.componentTypeReference = componentTypeReference;
             }
 
             @Override
-            protected Resolution doDescribe(String name) {
-                return new LazyResolution(name);
+            public Object[] resolve() {
+                TypeDescription componentTypeDescription = typePool.describe(componentTypeReference.lookup()).resolve();
+                Class<?> componentType;
+                if (componentTypeDescription.represents(Class.class)) {
+                    componentType = TypeDescription.class;
+                } else if (componentTypeDescription.isAssignableTo(Enum.class)) { // Enums can implement annotation interfaces, check this first.
+                    componentType = EnumerationDescription.class;
+                } else if (componentTypeDescription.isAssignableTo(Annotation.class)) {
+                    componentType = AnnotationDescription.class;
+                } else if (componentTypeDescription.represents(String.class)) {
+                    componentType = String.class;
+                } else {
+                    throw new IllegalStateException("Unexpected complex array component type " + componentTypeDescription);
+                }
+                Object[] array = (Object[]) Array.newInstance(componentType, values.size());
+                int index = 0;
+                for (AnnotationValue<?, ?> annotationValue : values) {
+                    Array.set(array, index++, annotationValue.resolve());
+                }
+                return array;
             }
 
             @Override
-            protected Resolution doCache(String name, Resolution resolution) {
-                return resolution;
+            public AnnotationValue.Loaded<Object[]> load(ClassLoader classLoader) throws ClassNotFoundException {
+                List<AnnotationValue.Loaded<?>> loadedValues = new ArrayList<AnnotationValue.Loaded<?>>(values.size());
+                for (AnnotationValue<?, ?> value : values) {
+                    loadedValues.add(value.load(classLoader));
+                }
+                return new Loaded(Class.forName(componentTypeReference.lookup(), false, classLoader), loadedValues);
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (!(other instanceof AnnotationValue<?, ?>)) return false;
+                Object value = ((AnnotationValue<?, ?>) other).resolve();
+                return value instanceof Object[] && Arrays.equals(resolve(), (Object[]) value);
+            }
+
+            @Override
+            public int hashCode() {
+                return Arrays.hashCode(resolve());
+            }
+
+            @Override
+            public String toString() {
+                return RenderingDispatcher.CURRENT.toSourceString(values);
             }
 
             /**
-             * Non-lazily resolves a type name.
-             *
-             * @param name The name of the type to resolve.
-             * @return The resolution for the type of this name.
+             * A lazy representation of the component type of an array.
              */
-            protected Resolution doResolve(String name) {
-                Resolution resolution = cacheProvider.find(name);
-                if (resolution == null) {
-                    resolution = cacheProvider.register(name, WithLazyResolution.super.doDescribe(name));
-                }
-                return resolution;
+            public interface ComponentTypeReference {
+
+                /**
+                 * Lazily returns the binary name of the array component type of an annotation value.
+                 *
+                 * @return The binary name of the component type.
+                 */
+                String lookup();
             }
 
             /**
-             * A lazy resolution of a type that the enclosing type pool attempts to resolve.
+             * Represents a loaded annotation property representing a complex array.
              */
-            protected class LazyResolution implements Resolution {
+            protected static class Loaded extends AnnotationValue.Loaded.AbstractBase<Object[]> {
 
                 /**
-                 * The type's name.
+                 * The array's loaded component type.
                  */
-                private final String name;
+                private final Class<?> componentType;
 
                 /**
-                 * Creates a new lazy resolution.
-                 *
-                 * @param name The type's name.
+                 * A list of loaded values of the represented complex array.
                  */
-                protected LazyResolution(String name) {
-                    this.name = name;
-                }
-
-                @Override
-                public boolean isResolved() {
-                    return doResolve(name).isResolved();
-                }
-
-                @Override
-                public TypeDescription resolve() {
-                    return new LazyTypeDescription(name);
-                }
+                private final List<AnnotationValue.Loaded<?>> values;
 
                 /**
-                 * Returns the outer instance.
+                 * Creates a new representation of an annotation property representing an array of
+                 * non-trivial values.
                  *
-                 * @return The outer instance.
+                 * @param componentType The array's loaded component type.
+                 * @param values        A list of loaded values of the represented complex array.
                  */
-                private WithLazyResolution getOuter() {
-                    return WithLazyResolution.this;
+                public Loaded(Class<?> componentType, List<AnnotationValue.Loaded<?>> values) {
+                    this.componentType = componentType;
+                    this.values = values;
                 }
 
                 @Override
-                public boolean equals(Object object) {
-                    if (this == object) return true;
-                    if (object == null || getClass() != object.getClass()) return false;
-                    LazyResolution that = (LazyResolution) object;
-                    return name.equals(that.name)
-                            && getOuter().equals(that.getOuter());
+                public State getState() {
+                    for (AnnotationValue.Loaded<?> value : values) {
+                        if (!value.getState().isResolved()) {
+                            return State.UNRESOLVED;
+                        }
+                    }
+                    return State.RESOLVED;
                 }
 
                 @Override
-                public int hashCode() {
-                    return name.hashCode() + 31 * getOuter().hashCode();
+                public Object[] resolve() {
+                    Object[] array = (Object[]) Array.newInstance(componentType, values.size());
+                    int index = 0;
+                    for (AnnotationValue.Loaded<?> annotationValue : values) {
+                        Array.set(array, index++, annotationValue.resolve());
+                    }
+                    return array;
                 }
 
                 @Override
-                public String toString() {
-                    return "TypePool.Default.WithLazyResolution.LazyResolution{" +
-                            "name='" + name + '\'' +
-                            ", outer=" + getOuter() +
-                            '}';
-                }
-            }
-
+                public boolean represents(Object value) {
+                    if (!(value instanceof Object[])) return false;
+                    if (value.getClass().getComponentType() != componentType) return false;
+                    Object[] array = (Object[]) value;
+                    if (values.size() != array.length) return false;
+                    Iterator<AnnotationValue.Loaded<?>> iterator = values.iterator();
+                    for (Object aValue : array) {
+                        AnnotationValue.Loaded<?> self = iterator.next();
+                        if (!self.getState().isResolved() || !self.represents(aValue)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (!(other instanceof AnnotationValue.Loaded<?>)) return false;
+                    AnnotationValue.Loaded<?> loadedOther = (AnnotationValue.Loaded<?>) other;
+                    if (!loadedOther.getState().isResolved()) return false;
+                    Object otherValue = loadedOther.resolve();
+                    if (!(otherValue instanceof Object[])) return false;
+                    Object[] otherArrayValue = (Object[]) otherValue;
+                    if (values.size() != otherArrayValue.length) return false;
+                    Iterator<AnnotationValue.Loaded<?>> iterator = values.iterator();
+                    for (Object value : otherArrayValue) {
+                        AnnotationValue.Loaded<?> self = iterator.next();
+                        if (!self.resolve().equals(value)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = 1;
+                    for (AnnotationValue.Loaded<?> value : values) {
+                        result = 31 * result + value.hashCode();
+                    }
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return RenderingDispatcher.CURRENT.toSourceString(values);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * A default implementation of a {@link net.bytebuddy.pool.TypePool} that models binary data in the Java byte code format
+     * into a {@link TypeDescription}. The data lookup is delegated to a {@link net.bytebuddy.dynamic.ClassFileLocator}.
+     * </p>
+     * <p>
+     * {@link Resolution}s that are produced by this type pool are either fully resolved or not resolved at all.
+     * </p>
+     */
+    class Default extends AbstractBase.Hierarchical {
+
+        /**
+         * Indicates that a visited method should be ignored.
+         */
+        private static final MethodVisitor IGNORE_METHOD = null;
+
+        /**
+         * Indicates that a visited field should be ignored.
+         */
+        private static final FieldVisitor IGNORE_FIELD = null;
+
+        /**
+         * The locator to query for finding binary data of a type.
+         */
+        protected final ClassFileLocator classFileLocator;
+
+        /**
+         * The reader mode to apply by this default type pool.
+         */
+        protected final ReaderMode readerMode;
+
+        /**
+         * The symbol table to use for deduplicating strings that are read from class files. A symbol table can be shared with other
+         * type pools and is therefore not cleared together with this type pool.
+         */
+        protected final SymbolTable symbolTable;
+
+        /**
+         * Creates a new default type pool without a parent pool.
+         *
+         * @param cacheProvider    The cache provider to be used.
+         * @param classFileLocator The class file locator to be used.
+         * @param readerMode       The reader mode to apply by this default type pool.
+         */
+        public Default(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
+            this(cacheProvider, classFileLocator, readerMode, Empty.INSTANCE);
+        }
+
+        /**
+         * Creates a new default type pool.
+         *
+         * @param cacheProvider    The cache provider to be used.
+         * @param classFileLocator The class file locator to be used.
+         * @param readerMode       The reader mode to apply by this default type pool.
+         * @param parentPool       The parent type pool.
+         */
+        public Default(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
+            this(cacheProvider, classFileLocator, readerMode, SymbolTable.NoOp.INSTANCE, parentPool);
+        }
+
+        /**
+         * Creates a new default type pool.
+         *
+         * @param cacheProvider    The cache provider to be used.
+         * @param classFileLocator The class file locator to be used.
+         * @param readerMode       The reader mode to apply by this default type pool.
+         * @param symbolTable      The symbol table to use for deduplicating strings that are read from class files.
+         * @param parentPool       The parent type pool.
+         */
+        public Default(CacheProvider cacheProvider,
+                       ClassFileLocator classFileLocator,
+                       ReaderMode readerMode,
+                       SymbolTable symbolTable,
+                       TypePool parentPool) {
+            super(cacheProvider, parentPool);
+            this.classFileLocator = classFileLocator;
+            this.readerMode = readerMode;
+            this.symbolTable = symbolTable;
+        }
+
+        /**
+         * Creates a default {@link net.bytebuddy.pool.TypePool} that looks up data by querying the system class
+         * loader. The returned instance is configured to use a fast reading mode and a simple cache.
+         *
+         * @return A type pool that reads its data from the system class path.
+         */
+        public static TypePool ofClassPath() {
+            return of(ClassFileLocator.ForClassLoader.ofClassPath());
+        }
+
+        /**
+         * Returns a type pool for the provided class loader.
+         *
+         * @param classLoader The class loader for which this class pool is representing types.
+         * @return An appropriate type pool.
+         */
+        public static TypePool of(ClassLoader classLoader) {
+            return of(ClassFileLocator.ForClassLoader.of(classLoader));
+        }
+
+        /**
+         * Creates a default {@link net.bytebuddy.pool.TypePool} that looks up data by querying the supplied class
+         * file locator. The returned instance is configured to use a fast reading mode and a simple cache.
+         *
+         * @param classFileLocator The class file locator to use.
+         * @return A type pool that reads its data from the system class path.
+         */
+        public static TypePool of(ClassFileLocator classFileLocator) {
+            return new Default(new CacheProvider.Simple(), classFileLocator, ReaderMode.FAST);
+        }
+
+        @Override
+        protected Resolution doDescribe(String name) {
+            return doParse(name);
+        }
+
+        /**
+         * Locates and parses the class file of a type.
+         *
+         * @param name The name of the type to describe.
+         * @return A resolution of the type to describe.
+         */
+        protected Resolution doParse(String name) {
+            try {
+                ClassFileLocator.Resolution resolution = classFileLocator.locate(name);
+                return resolution.isResolved()
+                        ? new Resolution.Simple(parse(resolution.resolve()))
+                        : new Resolution.Illegal(name);
+            } catch (IOException exception) {
+                throw new IllegalStateException("Error while reading class file", exception);
+            }
+        }
+
+        /**
+         * Parses a binary representation and transforms it into a type description.
+         *
+         * @param binaryRepresentation The binary data to be parsed.
+         * @return A type description of the binary data.
+         */
+        private TypeDescription parse(byte[] binaryRepresentation) {
+            ClassReader classReader = new ClassReader(binaryRepresentation);
+            if (readerMode.isHeaderOnly()) {
+                TypeExtractor typeExtractor = new HeaderExtractor();
+                classReader.accept(typeExtractor, readerMode.getFlags());
+                return new HeaderTypeDescription(typeExtractor.toTypeDescription());
+            } else {
+                TypeExtractor typeExtractor = new TypeExtractor();
+                classReader.accept(typeExtractor, readerMode.getFlags());
+                return typeExtractor.toTypeDescription();
+            }
+        }
+
+        /**
+         * Parses the members of a type that was previously only parsed by its header by locating its class file a second time.
+         *
+         * @param name The name of the type to parse.
+         * @return A type description of the fully parsed type.
+         */
+        protected TypeDescription parseMembers(String name) {
+            try {
+                ClassFileLocator.Resolution resolution = classFileLocator.locate(name);
+                if (!resolution.isResolved()) {
+                    throw new IllegalStateException("Cannot locate class file for parsing the members of " + name);
+                }
+                ClassReader classReader = new ClassReader(resolution.resolve());
+                TypeExtractor typeExtractor = new TypeExtractor();
+                classReader.accept(typeExtractor, ReaderMode.FAST.getFlags());
+                return typeExtractor.toTypeDescription();
+            } catch (IOException exception) {
+                throw new IllegalStateException("Error while reading class file", exception);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || !(other == null || getClass() != other.getClass())
+                    && super.equals(other)
+                    && classFileLocator.equals(((Default) other).classFileLocator)
+                    && readerMode.equals(((Default) other).readerMode)
+                    && symbolTable.equals(((Default) other).symbolTable);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * super.hashCode() + classFileLocator.hashCode()) + readerMode.hashCode()) + symbolTable.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "TypePool.Default{" +
+                    "classFileLocator=" + classFileLocator +
+                    ", cacheProvider=" + cacheProvider +
+                    ", readerMode=" + readerMode +
+                    ", symbolTable=" + symbolTable +
+                    '}';
+        }
+
+        /**
+         * A type description that can name its direct super types without resolving them from a type pool.
+         */
+        protected interface SuperTypeNames {
+
+            /**
+             * Returns the names of the super class and of the interface types of the described type without resolving these types.
+             *
+             * @return The names of the super class, if any, and of the interface types in their declaration order.
+             */
+            List<String> getSuperTypeNames();
+        }
+
+        /**
+         * A type description of a type of which only the header was parsed. The type's fields and methods are parsed
+         * when they are requested for the first time.
+         */
+        protected class HeaderTypeDescription extends TypeDescription.AbstractBase.OfSimpleType.WithDelegation implements SuperTypeNames {
+
+            /**
+             * A description of the type's header without any fields or methods.
+             */
+            private final TypeDescription header;
+
+            /**
+             * A description of the fully parsed type or {@code null} if the type's members were not yet parsed.
+             */
+            private volatile TypeDescription members;
+
+            /**
+             * Creates a new header type description.
+             *
+             * @param header A description of the type's header without any fields or methods.
+             */
+            protected HeaderTypeDescription(TypeDescription header) {
+                this.header = header;
+            }
+
+            @Override
+            public String getName() {
+                return header.getName();
+            }
+
+            @Override
+            protected TypeDescription delegate() {
+                return header;
+            }
+
+            @Override
+            public List<String> getSuperTypeNames() {
+                return ((SuperTypeNames) header).getSuperTypeNames();
+            }
+
+            @Override
+            public FieldList<FieldDescription.InDefinedShape> getDeclaredFields() {
+                return members().getDeclaredFields();
+            }
+
+            @Override
+            public MethodList<MethodDescription.InDefinedShape> getDeclaredMethods() {
+                return members().getDeclaredMethods();
+            }
+
+            /**
+             * Returns a description of the fully parsed type. The type is parsed on the first invocation of this method.
+             * Concurrent invocations might parse the type multiple times what does not affect the described properties.
+             *
+             * @return A description of the fully parsed type.
+             */
+            private TypeDescription members() {
+                TypeDescription members = this.members;
+                if (members == null) {
+                    members = parseMembers(header.getName());
+                    this.members = members;
+                }
+                return members;
+            }
+        }
+
+        /**
+         * Determines the granularity of the class file parsing that is conducted by a {@link net.bytebuddy.pool.TypePool.Default}.
+         */
+        public enum ReaderMode {
+
+            /**
+             * The extended reader mode parses the code segment of each method in order to detect parameter names
+             * that are only stored in a method's debugging information but are not explicitly included.
+             */
+            EXTENDED(ClassReader.SKIP_FRAMES),
+
+            /**
+             * The fast reader mode skips the code segment of each method and cannot detect parameter names that are
+             * only contained within the debugging information. This mode still detects explicitly included method
+             * parameter names.
+             */
+            FAST(ClassReader.SKIP_CODE),
+
+            /**
+             * The header reader mode only parses a class file's header and class-level attributes such as the type's name,
+             * modifiers, super types and annotations but skips any field and method. A type's fields and methods are only
+             * parsed when they are requested for the first time what requires to locate the type's class file a second time.
+             * Members are then parsed as in the {@link ReaderMode#FAST} mode. This mode is beneficial if most parsed types
+             * are only matched by properties of their header.
+             */
+            HEADER(ClassReader.SKIP_CODE);
+
+            /**
+             * The flags to provide to a {@link ClassReader} for parsing a file.
+             */
+            private final int flags;
+
+            /**
+             * Creates a new reader mode constant.
+             *
+             * @param flags The flags to provide to a {@link ClassReader} for parsing a file.
+             */
+            ReaderMode(int flags) {
+                this.flags = flags;
+            }
+
+            /**
+             * Returns the flags to provide to a {@link ClassReader} for parsing a file.
+             *
+             * @return The flags to provide to a {@link ClassReader} for parsing a file.
+             */
+            protected int getFlags() {
+                return flags;
+            }
+
+            /**
+             * Determines if this reader mode represents extended reading.
+             *
+             * @return {@code true} if this reader mode represents extended reading.
+             */
+            public boolean isExtended() {
+                return this == EXTENDED;
+            }
+
+            /**
+             * Determines if this reader mode only parses a class file's header.
+             *
+             * @return {@code true} if this reader mode only parses a class file's header.
+             */
+            public boolean isHeaderOnly() {
+                return this == HEADER;
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.Default.ReaderMode." + name();
+            }
+        }
+
+        /**
+         * A symbol table deduplicates strings that are read from class files such as internal names, descriptors and member names.
+         * Such strings are typically repeated across many type descriptions where using a symbol table allows to reduce the
+         * memory footprint of type descriptions that are retained over a long time, for example by a type pool's cache. Generic
+         * signatures are not interned as a type description does not retain them but only the tokens they are parsed into.
+         */
+        public interface SymbolTable {
+
+            /**
+             * Returns a canonical representation of the given string.
+             *
+             * @param value The string to intern or {@code null}.
+             * @return A string that is equal to the given string or {@code null} if the given string is {@code null}.
+             */
+            String intern(String value);
+
+            /**
+             * Clears this symbol table.
+             */
+            void clear();
+
+            /**
+             * A non-operational symbol table that returns any string as it is.
+             */
+            enum NoOp implements SymbolTable {
+
+                /**
+                 * The singleton instance.
+                 */
+                INSTANCE;
+
+                @Override
+                public String intern(String value) {
+                    return value;
+                }
+
+                @Override
+                public void clear() {
+                    /* do nothing */
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.Default.SymbolTable.NoOp." + name();
+                }
+            }
+
+            /**
+             * A simple, thread-safe symbol table that references interned strings weakly. An interned string is retained as long as it
+             * is referenced elsewhere, for example by a cached type description, such that a symbol table can be shared by the type
+             * pools of many class loaders without retaining strings of class loaders that were garbage collected. Interned strings are
+             * distributed over a fixed number of segments that are locked independently.
+             */
+            class Simple implements SymbolTable {
+
+                /**
+                 * The number of segments of a symbol table. This number must be a power of two.
+                 */
+                private static final int SEGMENTS = 16;
+
+                /**
+                 * The segments of this symbol table, each mapping interned strings onto weak references to themselves.
+                 */
+                private final Map<String, WeakReference<String>>[] segments;
+
+                /**
+                 * Creates a new simple symbol table.
+                 */
+                public Simple() {
+                    segments = segments(SEGMENTS);
+                    for (int index = 0; index < SEGMENTS; index++) {
+                        segments[index] = new WeakHashMap<String, WeakReference<String>>();
+                    }
+                }
+
+                /**
+                 * Creates an empty array of symbol table segments.
+                 *
+                 * @param length The length of the array.
+                 * @return An empty array of the given length.
+                 */
+                @SuppressWarnings("unchecked")
+                private static Map<String, WeakReference<String>>[] segments(int length) {
+                    return (Map<String, WeakReference<String>>[]) new Map<?, ?>[length];
+                }
+
+                @Override
+                public String intern(String value) {
+                    if (value == null) {
+                        return null;
+                    }
+                    int hashCode = value.hashCode();
+                    Map<String, WeakReference<String>> segment = segments[(hashCode ^ hashCode >>> 16) & (SEGMENTS - 1)];
+                    synchronized (segment) {
+                        WeakReference<String> reference = segment.get(value);
+                        String symbol = reference == null
+                                ? null
+                                : reference.get();
+                        if (symbol == null) {
+                            segment.put(value, new WeakReference<String>(value));
+                            return value;
+                        }
+                        return symbol;
+                    }
+                }
+
+                @Override
+                public void clear() {
+                    for (Map<String, WeakReference<String>> segment : segments) {
+                        synchronized (segment) {
+                            segment.clear();
+                        }
+                    }
+                }
+
+                /**
+                 * Returns the number of interned strings that were not yet garbage collected.
+                 *
+                 * @return The number of interned strings.
+                 */
+                public int size() {
+                    int size = 0;
+                    for (Map<String, WeakReference<String>> segment : segments) {
+                        synchronized (segment) {
+                            size += segment.size();
+                        }
+                    }
+                    return size;
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.Default.SymbolTable.Simple{symbols=" + size() + '}';
+                }
+            }
+        }
+
+        /**
+         * <p>
+         * A variant of {@link TypePool.Default} that resolves type descriptions lazily. A lazy resolution respects this type
+         * pool's {@link CacheProvider} but requeries this cache pool for every access of a property of a {@link TypeDescription}.
+         * </p>
+         * <p>
+         * {@link Resolution}s of this type pool are only fully resolved if a property that is not the type's name is required.
+         * </p>
+         */
+        public static class WithLazyResolution extends Default {
+
+            /**
+             * Creates a new default type pool with lazy resolution and without a parent pool.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param readerMode       The reader mode to apply by this default type pool.
+             */
+            public WithLazyResolution(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
+                this(cacheProvider, classFileLocator, readerMode, Empty.INSTANCE);
+            }
+
+            /**
+             * Creates a new default type pool with lazy resolution.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param readerMode       The reader mode to apply by this default type pool.
+             * @param parentPool       The parent type pool.
+             */
+            public WithLazyResolution(CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
+                this(cacheProvider, classFileLocator, readerMode, SymbolTable.NoOp.INSTANCE, parentPool);
+            }
+
+            /**
+             * Creates a new default type pool with lazy resolution.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param readerMode       The reader mode to apply by this default type pool.
+             * @param symbolTable      The symbol table to use for deduplicating strings that are read from class files.
+             * @param parentPool       The parent type pool.
+             */
+            public WithLazyResolution(CacheProvider cacheProvider,
+                                      ClassFileLocator classFileLocator,
+                                      ReaderMode readerMode,
+                                      SymbolTable symbolTable,
+                                      TypePool parentPool) {
+                super(cacheProvider, classFileLocator, readerMode, symbolTable, parentPool);
+            }
+
+            /**
+             * Creates a default {@link net.bytebuddy.pool.TypePool} with lazy resolution that looks up data by querying the system class
+             * loader. The returned instance is configured to use a fast reading mode and a simple cache.
+             *
+             * @return A type pool that reads its data from the system class path.
+             */
+            public static TypePool ofClassPath() {
+                return of(ClassFileLocator.ForClassLoader.ofClassPath());
+            }
+
+            /**
+             * Returns a default {@link TypePool} with lazy resolution for the provided class loader.
+             *
+             * @param classLoader The class loader for which this class pool is representing types.
+             * @return An appropriate type pool.
+             */
+            public static TypePool of(ClassLoader classLoader) {
+                return of(ClassFileLocator.ForClassLoader.of(classLoader));
+            }
+
+            /**
+             * Creates a default {@link net.bytebuddy.pool.TypePool} with lazy resolution that looks up data by querying the supplied class
+             * file locator. The returned instance is configured to use a fast reading mode and a simple cache.
+             *
+             * @param classFileLocator The class file locator to use.
+             * @return A type pool that reads its data from the system class path.
+             */
+            public static TypePool of(ClassFileLocator classFileLocator) {
+                return new WithLazyResolution(new CacheProvider.Simple(), classFileLocator, ReaderMode.FAST);
+            }
+
+            @Override
+            protected Resolution doDescribe(String name) {
+                return new LazyResolution(name);
+            }
+
+            @Override
+            protected Resolution doCache(String name, Resolution resolution) {
+                return resolution;
+            }
+
+            /**
+             * Non-lazily resolves a type name.
+             *
+             * @param name The name of the type to resolve.
+             * @return The resolution for the type of this name.
+             */
+            protected Resolution doResolve(String name) {
+                Resolution resolution = cacheProvider.find(name);
+                if (resolution == null) {
+                    resolution = cacheProvider instanceof CacheProvider.Coordinating
+                            ? ((CacheProvider.Coordinating) cacheProvider).resolve(name, new EagerResolver())
+                            : cacheProvider.register(name, WithLazyResolution.super.doDescribe(name));
+                }
+                return resolution;
+            }
+
+            /**
+             * A resolver that parses a type and registers its resolution on behalf of a coordinating cache provider.
+             */
+            protected class EagerResolver implements CacheProvider.Coordinating.Resolver {
+
+                @Override
+                public Resolution resolve(String name) {
+                    return cacheProvider.register(name, WithLazyResolution.super.doDescribe(name));
+                }
+
+                /**
+                 * Returns the outer instance.
+                 *
+                 * @return The outer instance.
+                 */
+                private WithLazyResolution getOuter() {
+                    return WithLazyResolution.this;
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    return this == other || !(other == null || getClass() != other.getClass())
+                            && getOuter().equals(((EagerResolver) other).getOuter());
+                }
+
+                @Override
+                public int hashCode() {
+                    return getOuter().hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.Default.WithLazyResolution.EagerResolver{" +
+                            "outer=" + getOuter() +
+                            '}';
+                }
+            }
+
+            /**
+             * A lazy resolution of a type that the enclosing type pool attempts to resolve.
+             */
+            protected class LazyResolution implements Resolution {
+
+                /**
+                 * The type's name.
+                 */
+                private final String name;
+
+                /**
+                 * Creates a new lazy resolution.
+                 *
+                 * @param name The type's name.
+                 */
+                protected LazyResolution(String name) {
+                    this.name = name;
+                }
+
+                @Override
+                public boolean isResolved() {
+                    return doResolve(name).isResolved();
+                }
+
+                @Override
+                public TypeDescription resolve() {
+                    return new LazyTypeDescription(name);
+                }
+
+                /**
+                 * Returns the outer instance.
+                 *
+                 * @return The outer instance.
+                 */
+                private WithLazyResolution getOuter() {
+                    return WithLazyResolution.this;
+                }
+
+                @Override
+                public boolean equals(Object object) {
+                    if (this == object) return true;
+                    if (object == null || getClass() != object.getClass()) return false;
+                    LazyResolution that = (LazyResolution) object;
+                    return name.equals(that.name)
+                            && getOuter().equals(that.getOuter());
+                }
+
+                @Override
+                public int hashCode() {
+                    return name.hashCode() + 31 * getOuter().hashCode();
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.Default.WithLazyResolution.LazyResolution{" +
+                            "name='" + name + '\'' +
+                            ", outer=" + getOuter() +
+                            '}';
+                }
+            }
+
+            /**
+             * A lazy type description that resolves any property that is not the name only when requested.
+             */
+            protected class LazyTypeDescription extends TypeDescription.AbstractBase.OfSimpleType.WithDelegation implements SuperTypeNames {
+
+                /**
+                 * The type's name.
+                 */
+                private final String name;
+
+                /**
+                 * Creates a new lazy type description.
+                 *
+                 * @param name The type's name.
+                 */
+                protected LazyTypeDescription(String name) {
+                    this.name = name;
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                protected TypeDescription delegate() {
+                    return doResolve(name).resolve();
+                }
+
+                @Override
+                public List<String> getSuperTypeNames() {
+                    TypeDescription typeDescription = delegate();
+                    return typeDescription instanceof SuperTypeNames
+                            ? ((SuperTypeNames) typeDescription).getSuperTypeNames()
+                            : BulkResolver.Lookup.resolveSuperTypeNames(typeDescription);
+                }
+            }
+        }
+
+        /**
+         * <p>
+         * A variant of {@link TypePool.Default} that persists the header of any parsed type in a {@link Storage} that can be written to and
+         * read from a file. If a type's class file is found in the storage, its header is restored from the storage without parsing the class
+         * file. A stored header is identified by the type's name and a {@link Fingerprinter fingerprint} of its class file such that a changed
+         * class file is never described by a stale header. Types of the same name that are defined by different class files, for example
+         * by different class loaders, are stored side by side.
+         * </p>
+         * <p>
+         * This type pool parses class files by the {@link ReaderMode#HEADER} reader mode, i.e. fields and methods are only parsed when they are
+         * requested. A header includes a type's class-level annotations and type annotations.
+         * </p>
+         * <p>
+         * <b>Note</b>: By default, a class file is fingerprinted by a SHA-256 digest of its content. A stored header therefore only saves the
+         * parsing of a class file but not locating and reading it. A {@link Fingerprinter.ForJarFile} avoids reading a class file whose header
+         * is stored but relies on the size and CRC-32 checksum that a jar file records for an entry. See its documentation for the implied
+         * trade-off.
+         * </p>
+         */
+        public static class WithPersistentCache extends Default {
+
             /**
-             * A lazy type description that resolves any property that is not the name only when requested.
+             * The storage to use for persisting type headers.
+             */
+            private final Storage storage;
+
+            /**
+             * The fingerprinter to use for identifying a class file.
+             */
+            private final Fingerprinter fingerprinter;
+
+            /**
+             * Creates a new default type pool with a persistent cache and without a parent pool.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param storage          The storage to use for persisting type headers.
+             */
+            public WithPersistentCache(CacheProvider cacheProvider, ClassFileLocator classFileLocator, Storage storage) {
+                this(cacheProvider, classFileLocator, storage, Empty.INSTANCE);
+            }
+
+            /**
+             * Creates a new default type pool with a persistent cache.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param storage          The storage to use for persisting type headers.
+             * @param parentPool       The parent type pool.
+             */
+            public WithPersistentCache(CacheProvider cacheProvider, ClassFileLocator classFileLocator, Storage storage, TypePool parentPool) {
+                this(cacheProvider, classFileLocator, storage, Fingerprinter.ForClassFile.INSTANCE, parentPool);
+            }
+
+            /**
+             * Creates a new default type pool with a persistent cache.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param storage          The storage to use for persisting type headers.
+             * @param fingerprinter    The fingerprinter to use for identifying a class file.
+             * @param parentPool       The parent type pool.
+             */
+            public WithPersistentCache(CacheProvider cacheProvider,
+                                       ClassFileLocator classFileLocator,
+                                       Storage storage,
+                                       Fingerprinter fingerprinter,
+                                       TypePool parentPool) {
+                this(cacheProvider, classFileLocator, storage, fingerprinter, SymbolTable.NoOp.INSTANCE, parentPool);
+            }
+
+            /**
+             * Creates a new default type pool with a persistent cache.
+             *
+             * @param cacheProvider    The cache provider to be used.
+             * @param classFileLocator The class file locator to be used.
+             * @param storage          The storage to use for persisting type headers.
+             * @param fingerprinter    The fingerprinter to use for identifying a class file.
+             * @param symbolTable      The symbol table to use for deduplicating strings that are read from class files or from the storage.
+             * @param parentPool       The parent type pool.
+             */
+            public WithPersistentCache(CacheProvider cacheProvider,
+                                       ClassFileLocator classFileLocator,
+                                       Storage storage,
+                                       Fingerprinter fingerprinter,
+                                       SymbolTable symbolTable,
+                                       TypePool parentPool) {
+                super(cacheProvider, classFileLocator, ReaderMode.HEADER, symbolTable, parentPool);
+                this.storage = storage;
+                this.fingerprinter = fingerprinter;
+            }
+
+            /**
+             * Creates a default type pool with a persistent cache that reads class files from a jar file. A stored header is validated
+             * by the size and the CRC-32 checksum that the jar file records for a class file such that a class file is only read and
+             * decompressed if its header is not stored.
+             *
+             * @param cacheProvider The cache provider to be used.
+             * @param jarFile       The jar file to read class files from.
+             * @param storage       The storage to use for persisting type headers.
+             * @param parentPool    The parent type pool.
+             * @return A type pool with a persistent cache for the supplied jar file.
+             */
+            public static TypePool ofJarFile(CacheProvider cacheProvider, JarFile jarFile, Storage storage, TypePool parentPool) {
+                return new WithPersistentCache(cacheProvider,
+                        new ClassFileLocator.ForJarFile(jarFile),
+                        storage,
+                        new Fingerprinter.ForJarFile(jarFile),
+                        parentPool);
+            }
+
+            @Override
+            protected Resolution doParse(String name) {
+                try {
+                    byte[] fingerprint = fingerprinter.fingerprint(name);
+                    TypeExtractor typeExtractor = new HeaderExtractor();
+                    if (fingerprint != null && storage.replay(name, fingerprint, typeExtractor)) {
+                        return new Resolution.Simple(new HeaderTypeDescription(typeExtractor.toTypeDescription()));
+                    }
+                    ClassFileLocator.Resolution resolution = classFileLocator.locate(name);
+                    if (!resolution.isResolved()) {
+                        return new Resolution.Illegal(name);
+                    }
+                    byte[] binaryRepresentation = resolution.resolve();
+                    if (fingerprint == null) {
+                        fingerprint = Fingerprinter.ForClassFile.fingerprint(binaryRepresentation);
+                        typeExtractor = new HeaderExtractor();
+                        if (storage.replay(name, fingerprint, typeExtractor)) {
+                            return new Resolution.Simple(new HeaderTypeDescription(typeExtractor.toTypeDescription()));
+                        }
+                    }
+                    typeExtractor = new HeaderExtractor();
+                    Storage.Recorder recorder = storage.record(name, fingerprint, typeExtractor);
+                    new ClassReader(binaryRepresentation).accept(recorder, readerMode.getFlags());
+                    recorder.complete();
+                    return new Resolution.Simple(new HeaderTypeDescription(typeExtractor.toTypeDescription()));
+                } catch (IOException exception) {
+                    throw new IllegalStateException("Error while reading class file", exception);
+                }
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                if (!super.equals(other)) return false;
+                WithPersistentCache that = (WithPersistentCache) other;
+                return storage.equals(that.storage) && fingerprinter.equals(that.fingerprinter);
+            }
+
+            @Override
+            public int hashCode() {
+                int result = super.hashCode();
+                result = 31 * result + storage.hashCode();
+                result = 31 * result + fingerprinter.hashCode();
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.Default.WithPersistentCache{" +
+                        "classFileLocator=" + classFileLocator +
+                        ", cacheProvider=" + cacheProvider +
+                        ", readerMode=" + readerMode +
+                        ", storage=" + storage +
+                        ", fingerprinter=" + fingerprinter +
+                        '}';
+            }
+
+            /**
+             * A fingerprinter computes an identity of a class file that is used for validating a stored header. A fingerprinter
+             * can compute a fingerprint without reading the class file, for example from the metadata of a jar file entry. Otherwise,
+             * a class file is identified by a digest of its content. A fingerprinter must observe the same class files as the class file
+             * locator of the type pool that uses it as a stored header is otherwise replayed for a class file that the locator would not return.
+             */
+            public interface Fingerprinter {
+
+                /**
+                 * Computes the fingerprint of a type's class file.
+                 *
+                 * @param name The name of the type.
+                 * @return The fingerprint of the type's class file or {@code null} if the fingerprint can only be computed from the
+                 * class file's content.
+                 * @throws IOException If an I/O exception occurs.
+                 */
+                byte[] fingerprint(String name) throws IOException;
+
+                /**
+                 * A fingerprinter that computes a fingerprint from the content of a class file, i.e. its SHA-256 digest. This requires
+                 * reading any class file but a changed class file is never described by a stale header.
+                 */
+                enum ForClassFile implements Fingerprinter {
+
+                    /**
+                     * The singleton instance.
+                     */
+                    INSTANCE;
+
+                    /**
+                     * The name of the digest algorithm that every Java platform is required to support.
+                     */
+                    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+                    /**
+                     * Computes the fingerprint of a class file's content.
+                     *
+                     * @param binaryRepresentation The class file's binary representation.
+                     * @return The class file's fingerprint.
+                     */
+                    public static byte[] fingerprint(byte[] binaryRepresentation) {
+                        try {
+                            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(binaryRepresentation);
+                        } catch (NoSuchAlgorithmException exception) {
+                            throw new IllegalStateException("Cannot compute digest of class file", exception);
+                        }
+                    }
+
+                    @Override
+                    public byte[] fingerprint(String name) {
+                        return null;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile." + name();
+                    }
+                }
+
+                /**
+                 * <p>
+                 * A fingerprinter that computes a fingerprint from the size and the CRC-32 checksum that a jar file records for an entry
+                 * without reading the entry. This fingerprinter should only be used together with a class file locator that reads from
+                 * the same jar file as created by {@link WithPersistentCache#ofJarFile(CacheProvider, JarFile, Storage, TypePool)}.
+                 * </p>
+                 * <p>
+                 * <b>Important</b>: A CRC-32 checksum is not a cryptographic digest. If a class file is replaced by another class file
+                 * of the same name, size and checksum, the stale header is replayed. This is only possible for deliberately crafted class
+                 * files and is the same trade-off that a jar file makes for validating its entries. If this is not acceptable, the
+                 * {@link ForClassFile} fingerprinter must be used.
+                 * </p>
+                 */
+                class ForJarFile implements Fingerprinter {
+
+                    /**
+                     * The jar file that contains the class files.
+                     */
+                    private final JarFile jarFile;
+
+                    /**
+                     * Creates a new fingerprinter for a jar file.
+                     *
+                     * @param jarFile The jar file that contains the class files.
+                     */
+                    public ForJarFile(JarFile jarFile) {
+                        this.jarFile = jarFile;
+                    }
+
+                    /**
+                     * Creates a fingerprint of a class file's size and CRC-32 checksum.
+                     *
+                     * @param size The class file's size.
+                     * @param crc  The class file's CRC-32 checksum.
+                     * @return The class file's fingerprint.
+                     */
+                    protected static byte[] fingerprint(long size, long crc) {
+                        return ByteBuffer.allocate(12).putLong(size).putInt((int) crc).array();
+                    }
+
+                    @Override
+                    public byte[] fingerprint(String name) {
+                        JarEntry jarEntry = jarFile.getJarEntry(name.replace('.', '/') + ClassFileLocator.CLASS_FILE_EXTENSION);
+                        return jarEntry == null || jarEntry.getSize() == -1 || jarEntry.getCrc() == -1
+                                ? null
+                                : fingerprint(jarEntry.getSize(), jarEntry.getCrc());
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        return this == other || !(other == null || getClass() != other.getClass())
+                                && jarFile.equals(((ForJarFile) other).jarFile);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return jarFile.hashCode();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Fingerprinter.ForJarFile{" +
+                                "jarFile=" + jarFile +
+                                '}';
+                    }
+                }
+            }
+
+            /**
+             * <p>
+             * A storage of type headers that are identified by a type's name and a fingerprint of its class file. A storage records the
+             * calls of a {@link ClassReader} to a {@link ClassVisitor} for a type's header and replays these calls on request. When
+             * a storage is read from a file, the file is memory-mapped and any header is only decoded when it is replayed.
+             * </p>
+             * <p>
+             * A storage is thread-safe. A storage never fails when reading a corrupted or outdated file but discards the file's content.
+             * When a storage is persisted, a stored header is discarded if it was neither recorded nor replayed while another header of
+             * the same type was.
+             * </p>
              */
-            protected class LazyTypeDescription extends TypeDescription.AbstractBase.OfSimpleType.WithDelegation {
+            public static class Storage {
+
+                /**
+                 * The magic number that introduces a storage file.
+                 */
+                private static final int MAGIC = 0x42425448;
+
+                /**
+                 * The version of the storage file format.
+                 */
+                private static final int VERSION = 4;
+
+                /**
+                 * Indicates the end of a recorded header.
+                 */
+                private static final int END = 0;
+
+                /**
+                 * Indicates a recorded call of {@link ClassVisitor#visit(int, int, String, String, String, String[])}.
+                 */
+                private static final int VISIT = 1;
+
+                /**
+                 * Indicates a recorded call of {@link ClassVisitor#visitOuterClass(String, String, String)}.
+                 */
+                private static final int VISIT_OUTER_CLASS = 2;
+
+                /**
+                 * Indicates a recorded call of {@link ClassVisitor#visitInnerClass(String, String, String, int)}.
+                 */
+                private static final int VISIT_INNER_CLASS = 3;
+
+                /**
+                 * Indicates a recorded call of {@link ClassVisitor#visitAnnotation(String, boolean)}.
+                 */
+                private static final int VISIT_ANNOTATION = 4;
+
+                /**
+                 * Indicates a recorded call of {@link ClassVisitor#visitTypeAnnotation(int, TypePath, String, boolean)}.
+                 */
+                private static final int VISIT_TYPE_ANNOTATION = 5;
+
+                /**
+                 * Indicates a recorded call of {@link AnnotationVisitor#visit(String, Object)}.
+                 */
+                private static final int ELEMENT_VALUE = 1;
+
+                /**
+                 * Indicates a recorded call of {@link AnnotationVisitor#visitEnum(String, String, String)}.
+                 */
+                private static final int ELEMENT_ENUMERATION = 2;
+
+                /**
+                 * Indicates a recorded call of {@link AnnotationVisitor#visitAnnotation(String, String)}.
+                 */
+                private static final int ELEMENT_ANNOTATION = 3;
+
+                /**
+                 * Indicates a recorded call of {@link AnnotationVisitor#visitArray(String)}.
+                 */
+                private static final int ELEMENT_ARRAY = 4;
+
+                /**
+                 * The unmapper to use for releasing a storage file's mapping.
+                 */
+                private static final Unmapper UNMAPPER = AccessController.doPrivileged(Unmapper.CreationAction.INSTANCE);
+
+                /**
+                 * The file this storage is persisted to.
+                 */
+                private final File file;
+
+                /**
+                 * A map of all stored headers by their type's name and class file fingerprint.
+                 */
+                private final ConcurrentMap<Key, Entry> entries;
+
+                /**
+                 * A lock that is held for reading when a header is replayed and for writing when the mapping of the storage file is released.
+                 */
+                private final ReadWriteLock lock;
+
+                /**
+                 * The mapping of the storage file or {@code null} if the storage file is not mapped.
+                 */
+                private MappedByteBuffer mapping;
+
+                /**
+                 * Creates a new storage.
+                 *
+                 * @param file    The file this storage is persisted to.
+                 * @param entries A map of all stored headers by their type's name and class file fingerprint.
+                 * @param mapping The mapping of the storage file or {@code null} if the storage file is not mapped.
+                 */
+                protected Storage(File file, ConcurrentMap<Key, Entry> entries, MappedByteBuffer mapping) {
+                    this.file = file;
+                    this.entries = entries;
+                    this.mapping = mapping;
+                    lock = new ReentrantReadWriteLock();
+                }
+
+                /**
+                 * Creates a storage that is persisted to the given file. If the file exists, the storage is initialized with the file's
+                 * content. If the file does not exist or if its content is not readable, the storage is created empty.
+                 *
+                 * @param file The file this storage is persisted to.
+                 * @return A storage that is persisted to the given file.
+                 */
+                public static Storage of(File file) {
+                    ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+                    MappedByteBuffer mapping = null;
+                    if (file.isFile()) {
+                        try {
+                            mapping = read(file, entries);
+                        } catch (IOException ignored) {
+                            entries.clear();
+                        } catch (RuntimeException ignored) {
+                            entries.clear();
+                        }
+                    }
+                    return new Storage(file, entries, mapping);
+                }
+
+                /**
+                 * Reads the entries of a storage file by memory-mapping the file.
+                 *
+                 * @param file    The file to read.
+                 * @param entries The map to which any read entry is added.
+                 * @return The mapping of the file or {@code null} if the file is not of a known format.
+                 * @throws IOException If an I/O exception occurs.
+                 */
+                private static MappedByteBuffer read(File file, ConcurrentMap<Key, Entry> entries) throws IOException {
+                    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                    try {
+                        MappedByteBuffer mapping = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+                        ByteBuffer buffer = mapping.duplicate();
+                        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                            UNMAPPER.unmap(mapping);
+                            return null;
+                        }
+                        try {
+                            while (buffer.remaining() >= 4) {
+                                int length = buffer.getInt();
+                                if (length < 0 || length > buffer.remaining()) {
+                                    throw new IOException("Truncated storage file: " + file);
+                                }
+                                ByteBuffer record = buffer.slice();
+                                record.limit(length);
+                                buffer.position(buffer.position() + length);
+                                DataInputStream inputStream = new DataInputStream(new ByteBufferInputStream(record.duplicate()));
+                                String name = inputStream.readUTF();
+                                byte[] fingerprint = new byte[inputStream.readUnsignedByte()];
+                                inputStream.readFully(fingerprint);
+                                entries.put(new Key(name, fingerprint), new Entry(record));
+                            }
+                        } catch (IOException exception) {
+                            UNMAPPER.unmap(mapping);
+                            throw exception;
+                        } catch (RuntimeException exception) {
+                            UNMAPPER.unmap(mapping);
+                            throw exception;
+                        }
+                        return mapping;
+                    } finally {
+                        randomAccessFile.close();
+                    }
+                }
+
+                /**
+                 * Replays the stored header of a type onto the given class visitor if a header with a matching fingerprint is stored.
+                 *
+                 * @param name         The name of the type.
+                 * @param fingerprint  The fingerprint of the type's class file.
+                 * @param classVisitor The class visitor to replay the header onto.
+                 * @return {@code true} if the header was replayed. If {@code false} is returned, the class visitor might have
+                 * received some calls and should be discarded.
+                 */
+                protected boolean replay(String name, byte[] fingerprint, ClassVisitor classVisitor) {
+                    Key key = new Key(name, fingerprint);
+                    lock.readLock().lock();
+                    try {
+                        Entry entry = entries.get(key);
+                        if (entry == null) {
+                            return false;
+                        }
+                        try {
+                            entry.replay(classVisitor);
+                            return true;
+                        } catch (IOException ignored) {
+                            entries.remove(key, entry);
+                            return false;
+                        } catch (RuntimeException ignored) {
+                            entries.remove(key, entry);
+                            return false;
+                        }
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+
+                /**
+                 * Creates a recorder for the header of a type.
+                 *
+                 * @param name         The name of the type.
+                 * @param fingerprint  The fingerprint of the type's class file.
+                 * @param classVisitor The class visitor to which the recorder delegates.
+                 * @return A recorder that stores the recorded header in this storage upon completion.
+                 */
+                protected Recorder record(String name, byte[] fingerprint, ClassVisitor classVisitor) {
+                    return new Recorder(name, fingerprint, classVisitor);
+                }
+
+                /**
+                 * Returns the number of stored headers.
+                 *
+                 * @return The number of stored headers.
+                 */
+                public int size() {
+                    return entries.size();
+                }
+
+                /**
+                 * Writes all stored headers to this storage's file. The file is first written to a uniquely named temporary file in
+                 * the storage file's directory which then replaces this storage's file by a rename such that multiple processes can
+                 * persist a storage to the same file concurrently where the last rename wins. On operating systems where a rename
+                 * does not replace an existing file, the storage file is deleted before the rename what is not atomic. Before the file
+                 * is replaced, any header that is read from the storage file is copied to the heap and the storage file's mapping is
+                 * released as a mapped file cannot be replaced on some operating systems.
+                 *
+                 * @throws IOException If an I/O exception occurs.
+                 */
+                public void persist() throws IOException {
+                    Set<String> used = new HashSet<String>();
+                    for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+                        if (entry.getValue().isUsed()) {
+                            used.add(entry.getKey().getName());
+                        }
+                    }
+                    File temporary = File.createTempFile("." + file.getName() + ".", ".tmp", file.getAbsoluteFile().getParentFile());
+                    try {
+                        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+                        try {
+                            outputStream.writeInt(MAGIC);
+                            outputStream.writeInt(VERSION);
+                            for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+                                if (entry.getValue().isUsed() || !used.contains(entry.getKey().getName())) {
+                                    entry.getValue().write(outputStream);
+                                }
+                            }
+                        } finally {
+                            outputStream.close();
+                        }
+                        release();
+                        if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+                            throw new IOException("Cannot replace " + file + " by " + temporary);
+                        }
+                    } finally {
+                        if (temporary.exists() && !temporary.delete()) {
+                            temporary.deleteOnExit();
+                        }
+                    }
+                }
 
                 /**
-                 * The type's name.
+                 * Copies all headers that are read from the storage file to the heap and releases the storage file's mapping.
                  */
-                private final String name;
+                private void release() {
+                    lock.writeLock().lock();
+                    try {
+                        if (mapping != null) {
+                            for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+                                entries.replace(entry.getKey(), entry.getValue(), entry.getValue().detach());
+                            }
+                            UNMAPPER.unmap(mapping);
+                            mapping = null;
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
 
                 /**
-                 * Creates a new lazy type description.
+                 * Writes an annotation value as it is supplied to {@link AnnotationVisitor#visit(String, Object)}. The value is prefixed
+                 * by a tag that corresponds to the tags of an annotation's element value in the class file format where {@code s} represents
+                 * a string, {@code c} a type and {@code [} an array of primitive values which is followed by the tag of the array's component type.
                  *
-                 * @param name The type's name.
-                 */
-                protected LazyTypeDescription(String name) {
-                    this.name = name;
+                 * @param outputStream The output stream to write to.
+                 * @param value        The value to write.
+                 * @throws IOException If an I/O exception occurs.
+                 */
+                private static void writeValue(DataOutputStream outputStream, Object value) throws IOException {
+                    if (value instanceof Byte) {
+                        outputStream.writeByte('B');
+                        outputStream.writeByte((Byte) value);
+                    } else if (value instanceof Boolean) {
+                        outputStream.writeByte('Z');
+                        outputStream.writeBoolean((Boolean) value);
+                    } else if (value instanceof Character) {
+                        outputStream.writeByte('C');
+                        outputStream.writeChar((Character) value);
+                    } else if (value instanceof Short) {
+                        outputStream.writeByte('S');
+                        outputStream.writeShort((Short) value);
+                    } else if (value instanceof Integer) {
+                        outputStream.writeByte('I');
+                        outputStream.writeInt((Integer) value);
+                    } else if (value instanceof Long) {
+                        outputStream.writeByte('J');
+                        outputStream.writeLong((Long) value);
+                    } else if (value instanceof Float) {
+                        outputStream.writeByte('F');
+                        outputStream.writeFloat((Float) value);
+                    } else if (value instanceof Double) {
+                        outputStream.writeByte('D');
+                        outputStream.writeDouble((Double) value);
+                    } else if (value instanceof String) {
+                        outputStream.writeByte('s');
+                        outputStream.writeUTF((String) value);
+                    } else if (value instanceof Type) {
+                        outputStream.writeByte('c');
+                        outputStream.writeUTF(((Type) value).getDescriptor());
+                    } else if (value != null && value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+                        outputStream.writeByte('[');
+                        int length = Array.getLength(value);
+                        outputStream.writeByte(Type.getDescriptor(value.getClass().getComponentType()).charAt(0));
+                        outputStream.writeInt(length);
+                        for (int index = 0; index < length; index++) {
+                            writeValue(outputStream, Array.get(value, index));
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Unexpected annotation value: " + value);
+                    }
+                }
+
+                /**
+                 * Reads an annotation value that was written by {@link Storage#writeValue(DataOutputStream, Object)}.
+                 *
+                 * @param inputStream The input stream to read from.
+                 * @return The read annotation value.
+                 * @throws IOException If the value cannot be read.
+                 */
+                private static Object readValue(DataInputStream inputStream) throws IOException {
+                    int tag = inputStream.readUnsignedByte();
+                    switch (tag) {
+                        case 'B':
+                            return inputStream.readByte();
+                        case 'Z':
+                            return inputStream.readBoolean();
+                        case 'C':
+                            return inputStream.readChar();
+                        case 'S':
+                            return inputStream.readShort();
+                        case 'I':
+                            return inputStream.readInt();
+                        case 'J':
+                            return inputStream.readLong();
+                        case 'F':
+                            return inputStream.readFloat();
+                        case 'D':
+                            return inputStream.readDouble();
+                        case 's':
+                            return inputStream.readUTF();
+                        case 'c':
+                            return Type.getType(inputStream.readUTF());
+                        case '[':
+                            Class<?> componentType;
+                            switch (inputStream.readUnsignedByte()) {
+                                case 'B':
+                                    componentType = byte.class;
+                                    break;
+                                case 'Z':
+                                    componentType = boolean.class;
+                                    break;
+                                case 'C':
+                                    componentType = char.class;
+                                    break;
+                                case 'S':
+                                    componentType = short.class;
+                                    break;
+                                case 'I':
+                                    componentType = int.class;
+                                    break;
+                                case 'J':
+                                    componentType = long.class;
+                                    break;
+                                case 'F':
+                                    componentType = float.class;
+                                    break;
+                                case 'D':
+                                    componentType = double.class;
+                                    break;
+                                default:
+                                    throw new IOException("Unexpected array component type of annotation value");
+                            }
+                            int length = inputStream.readInt();
+                            if (length < 0) {
+                                throw new IOException("Negative array length of annotation value: " + length);
+                            }
+                            Object value = Array.newInstance(componentType, length);
+                            for (int index = 0; index < length; index++) {
+                                Array.set(value, index, readValue(inputStream));
+                            }
+                            return value;
+                        default:
+                            throw new IOException("Unexpected tag of annotation value: " + tag);
+                    }
                 }
 
                 @Override
-                public String getName() {
-                    return name;
+                public String toString() {
+                    return "TypePool.Default.WithPersistentCache.Storage{" +
+                            "file=" + file +
+                            ", entries=" + entries.size() +
+                            '}';
+                }
+
+                /**
+                 * A key of a stored header that consists of a type's name and the fingerprint of its class file.
+                 */
+                protected static class Key {
+
+                    /**
+                     * The name of the type.
+                     */
+                    private final String name;
+
+                    /**
+                     * The fingerprint of the type's class file.
+                     */
+                    private final byte[] fingerprint;
+
+                    /**
+                     * Creates a new key.
+                     *
+                     * @param name        The name of the type.
+                     * @param fingerprint The fingerprint of the type's class file.
+                     */
+                    protected Key(String name, byte[] fingerprint) {
+                        this.name = name;
+                        this.fingerprint = fingerprint;
+                    }
+
+                    /**
+                     * Returns the name of the type.
+                     *
+                     * @return The name of the type.
+                     */
+                    protected String getName() {
+                        return name;
+                    }
+
+                    @Override
+                    public boolean equals(Object other) {
+                        if (this == other) return true;
+                        if (other == null || getClass() != other.getClass()) return false;
+                        Key key = (Key) other;
+                        return name.equals(key.name) && Arrays.equals(fingerprint, key.fingerprint);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return 31 * name.hashCode() + Arrays.hashCode(fingerprint);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Storage.Key{" +
+                                "name='" + name + '\'' +
+                                ", fingerprint=" + Arrays.toString(fingerprint) +
+                                '}';
+                    }
+                }
+
+                /**
+                 * A stored header of a type.
+                 */
+                protected static class Entry {
+
+                    /**
+                     * The serialized record of the header including the type's name and fingerprint.
+                     */
+                    private final ByteBuffer record;
+
+                    /**
+                     * {@code true} if this entry was recorded or replayed since the storage was created.
+                     */
+                    private volatile boolean used;
+
+                    /**
+                     * Creates a new entry that was read from a storage file.
+                     *
+                     * @param record The serialized record of the header including the type's name and fingerprint.
+                     */
+                    protected Entry(ByteBuffer record) {
+                        this(record, false);
+                    }
+
+                    /**
+                     * Creates a new entry.
+                     *
+                     * @param record The serialized record of the header including the type's name and fingerprint.
+                     * @param used   {@code true} if this entry was recorded or replayed since the storage was created.
+                     */
+                    protected Entry(ByteBuffer record, boolean used) {
+                        this.record = record;
+                        this.used = used;
+                    }
+
+                    /**
+                     * Returns {@code true} if this entry was recorded or replayed since the storage was created.
+                     *
+                     * @return {@code true} if this entry was recorded or replayed since the storage was created.
+                     */
+                    protected boolean isUsed() {
+                        return used;
+                    }
+
+                    /**
+                     * Creates a copy of this entry that is stored on the heap.
+                     *
+                     * @return A copy of this entry that is stored on the heap.
+                     */
+                    protected Entry detach() {
+                        ByteBuffer record = this.record.duplicate();
+                        byte[] binaryRepresentation = new byte[record.remaining()];
+                        record.get(binaryRepresentation);
+                        return new Entry(ByteBuffer.wrap(binaryRepresentation), used);
+                    }
+
+                    /**
+                     * Replays this entry's header onto a class visitor.
+                     *
+                     * @param classVisitor The class visitor to replay the header onto.
+                     * @throws IOException If the record cannot be read.
+                     */
+                    protected void replay(ClassVisitor classVisitor) throws IOException {
+                        DataInputStream inputStream = new DataInputStream(new ByteBufferInputStream(record.duplicate()));
+                        inputStream.readUTF();
+                        inputStream.skipBytes(inputStream.readUnsignedByte());
+                        int instruction;
+                        while ((instruction = inputStream.readUnsignedByte()) != END) {
+                            switch (instruction) {
+                                case VISIT:
+                                    int classFileVersion = inputStream.readInt(), modifiers = inputStream.readInt();
+                                    String internalName = inputStream.readUTF(), genericSignature = readNullable(inputStream), superClassName = readNullable(inputStream);
+                                    String[] interfaceName = new String[inputStream.readUnsignedShort()];
+                                    for (int index = 0; index < interfaceName.length; index++) {
+                                        interfaceName[index] = inputStream.readUTF();
+                                    }
+                                    classVisitor.visit(classFileVersion, modifiers, internalName, genericSignature, superClassName, interfaceName);
+                                    break;
+                                case VISIT_OUTER_CLASS:
+                                    classVisitor.visitOuterClass(inputStream.readUTF(), readNullable(inputStream), readNullable(inputStream));
+                                    break;
+                                case VISIT_INNER_CLASS:
+                                    classVisitor.visitInnerClass(inputStream.readUTF(), readNullable(inputStream), readNullable(inputStream), inputStream.readInt());
+                                    break;
+                                case VISIT_ANNOTATION:
+                                    String annotationDescriptor = inputStream.readUTF();
+                                    replay(inputStream, classVisitor.visitAnnotation(annotationDescriptor, inputStream.readBoolean()));
+                                    break;
+                                case VISIT_TYPE_ANNOTATION:
+                                    int typeReference = inputStream.readInt();
+                                    String typePath = readNullable(inputStream), typeAnnotationDescriptor = inputStream.readUTF();
+                                    replay(inputStream, classVisitor.visitTypeAnnotation(typeReference,
+                                            typePath == null ? null : TypePath.fromString(typePath),
+                                            typeAnnotationDescriptor,
+                                            inputStream.readBoolean()));
+                                    break;
+                                default:
+                                    throw new IOException("Unexpected instruction: " + instruction);
+                            }
+                        }
+                        classVisitor.visitEnd();
+                        used = true;
+                    }
+
+                    /**
+                     * Replays the recorded values of an annotation onto an annotation visitor.
+                     *
+                     * @param inputStream       The input stream to read the recorded values from.
+                     * @param annotationVisitor The annotation visitor to replay the values onto or {@code null} if the values should only be skipped.
+                     * @throws IOException If the record cannot be read.
+                     */
+                    private static void replay(DataInputStream inputStream, AnnotationVisitor annotationVisitor) throws IOException {
+                        int instruction;
+                        while ((instruction = inputStream.readUnsignedByte()) != END) {
+                            String name = readNullable(inputStream);
+                            switch (instruction) {
+                                case ELEMENT_VALUE:
+                                    Object value = readValue(inputStream);
+                                    if (annotationVisitor != null) {
+                                        annotationVisitor.visit(name, value);
+                                    }
+                                    break;
+                                case ELEMENT_ENUMERATION:
+                                    String enumerationDescriptor = inputStream.readUTF(), enumerationValue = inputStream.readUTF();
+                                    if (annotationVisitor != null) {
+                                        annotationVisitor.visitEnum(name, enumerationDescriptor, enumerationValue);
+                                    }
+                                    break;
+                                case ELEMENT_ANNOTATION:
+                                    String annotationDescriptor = inputStream.readUTF();
+                                    replay(inputStream, annotationVisitor == null
+                                            ? null
+                                            : annotationVisitor.visitAnnotation(name, annotationDescriptor));
+                                    break;
+                                case ELEMENT_ARRAY:
+                                    replay(inputStream, annotationVisitor == null
+                                            ? null
+                                            : annotationVisitor.visitArray(name));
+                                    break;
+                                default:
+                                    throw new IOException("Unexpected annotation instruction: " + instruction);
+                            }
+                        }
+                        if (annotationVisitor != null) {
+                            annotationVisitor.visitEnd();
+                        }
+                    }
+
+                    /**
+                     * Writes this entry to an output stream.
+                     *
+                     * @param outputStream The output stream to write to.
+                     * @throws IOException If an I/O exception occurs.
+                     */
+                    protected void write(DataOutputStream outputStream) throws IOException {
+                        ByteBuffer record = this.record.duplicate();
+                        byte[] binaryRepresentation = new byte[record.remaining()];
+                        record.get(binaryRepresentation);
+                        outputStream.writeInt(binaryRepresentation.length);
+                        outputStream.write(binaryRepresentation);
+                    }
+
+                    /**
+                     * Reads a string that might be {@code null}.
+                     *
+                     * @param inputStream The input stream to read from.
+                     * @return The read string or {@code null}.
+                     * @throws IOException If an I/O exception occurs.
+                     */
+                    private static String readNullable(DataInputStream inputStream) throws IOException {
+                        return inputStream.readBoolean()
+                                ? inputStream.readUTF()
+                                : null;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Storage.Entry{" +
+                                "record=" + record +
+                                ", used=" + used +
+                                '}';
+                    }
+                }
+
+                /**
+                 * A class visitor that records the header of a type, including its annotations and type annotations, while delegating
+                 * to another class visitor.
+                 */
+                protected class Recorder extends ClassVisitor {
+
+                    /**
+                     * The name of the recorded type.
+                     */
+                    private final String name;
+
+                    /**
+                     * The fingerprint of the recorded type's class file.
+                     */
+                    private final byte[] fingerprint;
+
+                    /**
+                     * The byte array output stream that contains the record.
+                     */
+                    private final ByteArrayOutputStream record;
+
+                    /**
+                     * A data output stream for writing to the record.
+                     */
+                    private final DataOutputStream outputStream;
+
+                    /**
+                     * Creates a new recorder.
+                     *
+                     * @param name         The name of the recorded type.
+                     * @param fingerprint  The fingerprint of the recorded type's class file.
+                     * @param classVisitor The class visitor to delegate to.
+                     */
+                    protected Recorder(String name, byte[] fingerprint, ClassVisitor classVisitor) {
+                        super(Opcodes.ASM5, classVisitor);
+                        this.name = name;
+                        this.fingerprint = fingerprint;
+                        record = new ByteArrayOutputStream();
+                        outputStream = new DataOutputStream(record);
+                        try {
+                            outputStream.writeUTF(name);
+                            outputStream.writeByte(fingerprint.length);
+                            outputStream.write(fingerprint);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                    }
+
+                    @Override
+                    public void visit(int classFileVersion,
+                                      int modifiers,
+                                      String internalName,
+                                      String genericSignature,
+                                      String superClassName,
+                                      String[] interfaceName) {
+                        super.visit(classFileVersion, modifiers, internalName, genericSignature, superClassName, interfaceName);
+                        try {
+                            outputStream.writeByte(VISIT);
+                            outputStream.writeInt(classFileVersion);
+                            outputStream.writeInt(modifiers);
+                            outputStream.writeUTF(internalName);
+                            writeNullable(genericSignature);
+                            writeNullable(superClassName);
+                            if (interfaceName == null) {
+                                outputStream.writeShort(0);
+                            } else {
+                                outputStream.writeShort(interfaceName.length);
+                                for (String anInterfaceName : interfaceName) {
+                                    outputStream.writeUTF(anInterfaceName);
+                                }
+                            }
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                    }
+
+                    @Override
+                    public void visitOuterClass(String typeName, String methodName, String methodDescriptor) {
+                        super.visitOuterClass(typeName, methodName, methodDescriptor);
+                        try {
+                            outputStream.writeByte(VISIT_OUTER_CLASS);
+                            outputStream.writeUTF(typeName);
+                            writeNullable(methodName);
+                            writeNullable(methodDescriptor);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                    }
+
+                    @Override
+                    public void visitInnerClass(String internalName, String outerName, String innerName, int modifiers) {
+                        super.visitInnerClass(internalName, outerName, innerName, modifiers);
+                        try {
+                            outputStream.writeByte(VISIT_INNER_CLASS);
+                            outputStream.writeUTF(internalName);
+                            writeNullable(outerName);
+                            writeNullable(innerName);
+                            outputStream.writeInt(modifiers);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                    }
+
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                        try {
+                            outputStream.writeByte(VISIT_ANNOTATION);
+                            outputStream.writeUTF(descriptor);
+                            outputStream.writeBoolean(visible);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                        return new AnnotationRecorder(super.visitAnnotation(descriptor, visible));
+                    }
+
+                    @Override
+                    public AnnotationVisitor visitTypeAnnotation(int typeReference, TypePath typePath, String descriptor, boolean visible) {
+                        try {
+                            outputStream.writeByte(VISIT_TYPE_ANNOTATION);
+                            outputStream.writeInt(typeReference);
+                            writeNullable(typePath == null ? null : typePath.toString());
+                            outputStream.writeUTF(descriptor);
+                            outputStream.writeBoolean(visible);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                        return new AnnotationRecorder(super.visitTypeAnnotation(typeReference, typePath, descriptor, visible));
+                    }
+
+                    /**
+                     * Writes a string that might be {@code null}.
+                     *
+                     * @param value The string to write or {@code null}.
+                     * @throws IOException If an I/O exception occurs.
+                     */
+                    private void writeNullable(String value) throws IOException {
+                        outputStream.writeBoolean(value != null);
+                        if (value != null) {
+                            outputStream.writeUTF(value);
+                        }
+                    }
+
+                    /**
+                     * Completes the recording and stores the recorded header. This method must only be called after
+                     * the type's class file was fully visited.
+                     */
+                    protected void complete() {
+                        try {
+                            outputStream.writeByte(END);
+                        } catch (IOException exception) {
+                            throw new IllegalStateException("Cannot write to in-memory record", exception);
+                        }
+                        entries.put(new Key(name, fingerprint), new Entry(ByteBuffer.wrap(record.toByteArray()), true));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Storage.Recorder{" +
+                                "storage=" + Storage.this +
+                                ", name='" + name + '\'' +
+                                ", fingerprint=" + Arrays.toString(fingerprint) +
+                                '}';
+                    }
+
+                    /**
+                     * An annotation visitor that records the values of an annotation while delegating to another annotation visitor.
+                     */
+                    protected class AnnotationRecorder extends AnnotationVisitor {
+
+                        /**
+                         * Creates a new annotation recorder.
+                         *
+                         * @param annotationVisitor The annotation visitor to delegate to or {@code null} if no delegation is required.
+                         */
+                        protected AnnotationRecorder(AnnotationVisitor annotationVisitor) {
+                            super(Opcodes.ASM5, annotationVisitor);
+                        }
+
+                        @Override
+                        public void visit(String name, Object value) {
+                            super.visit(name, value);
+                            try {
+                                outputStream.writeByte(ELEMENT_VALUE);
+                                writeNullable(name);
+                                writeValue(outputStream, value);
+                            } catch (IOException exception) {
+                                throw new IllegalStateException("Cannot write to in-memory record", exception);
+                            }
+                        }
+
+                        @Override
+                        public void visitEnum(String name, String descriptor, String value) {
+                            super.visitEnum(name, descriptor, value);
+                            try {
+                                outputStream.writeByte(ELEMENT_ENUMERATION);
+                                writeNullable(name);
+                                outputStream.writeUTF(descriptor);
+                                outputStream.writeUTF(value);
+                            } catch (IOException exception) {
+                                throw new IllegalStateException("Cannot write to in-memory record", exception);
+                            }
+                        }
+
+                        @Override
+                        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+                            try {
+                                outputStream.writeByte(ELEMENT_ANNOTATION);
+                                writeNullable(name);
+                                outputStream.writeUTF(descriptor);
+                            } catch (IOException exception) {
+                                throw new IllegalStateException("Cannot write to in-memory record", exception);
+                            }
+                            return new AnnotationRecorder(super.visitAnnotation(name, descriptor));
+                        }
+
+                        @Override
+                        public AnnotationVisitor visitArray(String name) {
+                            try {
+                                outputStream.writeByte(ELEMENT_ARRAY);
+                                writeNullable(name);
+                            } catch (IOException exception) {
+                                throw new IllegalStateException("Cannot write to in-memory record", exception);
+                            }
+                            return new AnnotationRecorder(super.visitArray(name));
+                        }
+
+                        @Override
+                        public void visitEnd() {
+                            super.visitEnd();
+                            try {
+                                outputStream.writeByte(END);
+                            } catch (IOException exception) {
+                                throw new IllegalStateException("Cannot write to in-memory record", exception);
+                            }
+                        }
+
+                        @Override
+                        public String toString() {
+                            return "TypePool.Default.WithPersistentCache.Storage.Recorder.AnnotationRecorder{" +
+                                    "recorder=" + Recorder.this +
+                                    '}';
+                        }
+                    }
                 }
 
-                @Override
-                protected TypeDescription delegate() {
-                    return doResolve(name).resolve();
+                /**
+                 * An input stream that reads from a byte buffer.
+                 */
+                protected static class ByteBufferInputStream extends InputStream {
+
+                    /**
+                     * The byte buffer to read from.
+                     */
+                    private final ByteBuffer buffer;
+
+                    /**
+                     * Creates a new byte buffer input stream.
+                     *
+                     * @param buffer The byte buffer to read from.
+                     */
+                    protected ByteBufferInputStream(ByteBuffer buffer) {
+                        this.buffer = buffer;
+                    }
+
+                    @Override
+                    public int read() {
+                        return buffer.hasRemaining()
+                                ? buffer.get() & 0xFF
+                                : -1;
+                    }
+
+                    @Override
+                    public int read(byte[] target, int offset, int length) {
+                        if (!buffer.hasRemaining()) {
+                            return -1;
+                        }
+                        length = Math.min(length, buffer.remaining());
+                        buffer.get(target, offset, length);
+                        return length;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "TypePool.Default.WithPersistentCache.Storage.ByteBufferInputStream{" +
+                                "buffer=" + buffer +
+                                '}';
+                    }
                 }
             }
         }
@@ -2982,7 +5355,7 @@ public interface TypePool {
          * A type description that looks up any referenced {@link net.bytebuddy.description.ByteCodeElement} or
          * {@link AnnotationDescription} by querying a type pool at lookup time.
          */
-        protected static class LazyTypeDescription extends TypeDescription.AbstractBase.OfSimpleType {
+        protected static class LazyTypeDescription extends TypeDescription.AbstractBase.OfSimpleType implements SuperTypeNames {
 
             /**
              * The index of a super class's type annotations.
@@ -3078,6 +5451,7 @@ public interface TypePool {
              * Creates a new lazy type description.
              *
              * @param typePool                           The type pool to be used for looking up linked types.
+             * @param symbolTable                        The symbol table to use for deduplicating names and descriptors of this type.
              * @param modifiers                          The modifiers of this type.
              * @param name                               The binary name of this type.
              * @param superClassInternalName             The internal name of this type's super type or {@code null} if no such super type is defined.
@@ -3096,6 +5470,7 @@ public interface TypePool {
              * @param methodTokens                       A list of method tokens describing the method's of this type.
              */
             protected LazyTypeDescription(TypePool typePool,
+                                          SymbolTable symbolTable,
                                           int modifiers,
                                           String name,
                                           String superClassInternalName,
@@ -3113,23 +5488,23 @@ public interface TypePool {
                                           List<MethodToken> methodTokens) {
                 this.typePool = typePool;
                 this.modifiers = modifiers & ~(Opcodes.ACC_SUPER | Opcodes.ACC_DEPRECATED);
-                this.name = Type.getObjectType(name).getClassName();
+                this.name = symbolTable.intern(Type.getObjectType(name).getClassName());
                 this.superClassDescriptor = superClassInternalName == null
                         ? NO_TYPE
-                        : Type.getObjectType(superClassInternalName).getDescriptor();
+                        : symbolTable.intern(Type.getObjectType(superClassInternalName).getDescriptor());
                 this.signatureResolution = signatureResolution;
                 if (interfaceInternalName == null) {
                     interfaceTypeDescriptors = Collections.emptyList();
                 } else {
                     interfaceTypeDescriptors = new ArrayList<String>(interfaceInternalName.length);
                     for (String internalName : interfaceInternalName) {
-                        interfaceTypeDescriptors.add(Type.getObjectType(internalName).getDescriptor());
+                        interfaceTypeDescriptors.add(symbolTable.intern(Type.getObjectType(internalName).getDescriptor()));
                     }
                 }
                 this.typeContainment = typeContainment;
                 declaringTypeName = declaringTypeInternalName == null
                         ? NO_TYPE
-                        : declaringTypeInternalName.replace('/', '.');
+                        : symbolTable.intern(declaringTypeInternalName.replace('/', '.'));
                 this.declaredTypes = declaredTypes;
                 this.anonymousType = anonymousType;
                 this.superTypeAnnotationTokens = superTypeAnnotationTokens;
@@ -3152,6 +5527,18 @@ public interface TypePool {
                 return signatureResolution.resolveInterfaceTypes(interfaceTypeDescriptors, typePool, superTypeAnnotationTokens, this);
             }
 
+            @Override
+            public List<String> getSuperTypeNames() {
+                List<String> superTypeNames = new ArrayList<String>(interfaceTypeDescriptors.size() + 1);
+                if (superClassDescriptor != null && !isInterface()) {
+                    superTypeNames.add(Type.getType(superClassDescriptor).getClassName());
+                }
+                for (String interfaceTypeDescriptor : interfaceTypeDescriptors) {
+                    superTypeNames.add(Type.getType(interfaceTypeDescriptor).getClassName());
+                }
+                return superTypeNames;
+            }
+
             @Override
             public MethodDescription getEnclosingMethod() {
                 return typeContainment.getEnclosingMethod(typePool);
@@ -3182,6 +5569,15 @@ public interface TypePool {
                 return typeContainment.isMemberClass();
             }
 
+            /**
+             * Returns the number of declared fields, methods and annotations of this type without resolving any of them.
+             *
+             * @return The number of declared fields, methods and annotations of this type.
+             */
+            protected int getDeclaredElementCount() {
+                return fieldTokens.size() + methodTokens.size() + annotationTokens.size();
+            }
+
             @Override
             public FieldList<FieldDescription.InDefinedShape> getDeclaredFields() {
                 return new FieldTokenList();
@@ -7655,13 +10051,13 @@ public interface TypePool {
                         anonymousType = true;
                     }
                     if (outerName != null) {
-                        declaringTypeName = outerName;
+                        declaringTypeName = symbolTable.intern(outerName);
                         if (typeContainment.isSelfContained()) {
                             typeContainment = new LazyTypeDescription.TypeContainment.WithinType(outerName, false);
                         }
                     }
                 } else if (outerName != null && innerName != null && internalName.equals(this.internalName + "$" + innerName)) {
-                    declaredTypes.add("L" + internalName + ";");
+                    declaredTypes.add(symbolTable.intern("L" + internalName + ";"));
                 }
             }
 
@@ -7697,19 +10093,40 @@ public interface TypePool {
 
             @Override
             public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                return new AnnotationExtractor(descriptor, annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
+                return new AnnotationExtractor(symbolTable.intern(descriptor), annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
             }
 
             @Override
             public FieldVisitor visitField(int modifiers, String internalName, String descriptor, String genericSignature, Object defaultValue) {
-                return new FieldExtractor(modifiers & REAL_MODIFIER_MASK, internalName, descriptor, genericSignature);
+                return new FieldExtractor(modifiers & REAL_MODIFIER_MASK, symbolTable.intern(internalName), symbolTable.intern(descriptor), genericSignature);
             }
 
             @Override
             public MethodVisitor visitMethod(int modifiers, String internalName, String descriptor, String genericSignature, String[] exceptionName) {
                 return internalName.equals(MethodDescription.TYPE_INITIALIZER_INTERNAL_NAME)
                         ? IGNORE_METHOD
-                        : new MethodExtractor(modifiers & REAL_MODIFIER_MASK, internalName, descriptor, genericSignature, exceptionName);
+                        : new MethodExtractor(modifiers & REAL_MODIFIER_MASK,
+                        symbolTable.intern(internalName),
+                        symbolTable.intern(descriptor),
+                        genericSignature,
+                        intern(exceptionName));
+            }
+
+            /**
+             * Interns all names of the given array.
+             *
+             * @param name An array of names or {@code null}.
+             * @return An array of interned names or {@code null} if the given array is {@code null}.
+             */
+            private String[] intern(String[] name) {
+                if (name == null) {
+                    return null;
+                }
+                String[] symbol = new String[name.length];
+                for (int index = 0; index < name.length; index++) {
+                    symbol[index] = symbolTable.intern(name[index]);
+                }
+                return symbol;
             }
 
             /**
@@ -7720,6 +10137,7 @@ public interface TypePool {
              */
             protected TypeDescription toTypeDescription() {
                 return new LazyTypeDescription(Default.this,
+                        symbolTable,
                         modifiers,
                         internalName,
                         superClassName,
@@ -8024,7 +10442,7 @@ public interface TypePool {
 
                 @Override
                 public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                    return new AnnotationExtractor(descriptor, annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
+                    return new AnnotationExtractor(symbolTable.intern(descriptor), annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
                 }
 
                 @Override
@@ -8227,12 +10645,12 @@ public interface TypePool {
 
                 @Override
                 public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                    return new AnnotationExtractor(descriptor, annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
+                    return new AnnotationExtractor(symbolTable.intern(descriptor), annotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
                 }
 
                 @Override
                 public AnnotationVisitor visitParameterAnnotation(int index, String descriptor, boolean visible) {
-                    return new AnnotationExtractor(descriptor, index, parameterAnnotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
+                    return new AnnotationExtractor(symbolTable.intern(descriptor), index, parameterAnnotationTokens, new ComponentTypeLocator.ForAnnotationProperty(Default.this, descriptor));
                 }
 
                 @Override
@@ -8245,13 +10663,13 @@ public interface TypePool {
                 @Override
                 public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
                     if (readerMode.isExtended() && start == firstLabel) {
-                        legacyParameterBag.register(index, name);
+                        legacyParameterBag.register(index, symbolTable.intern(name));
                     }
                 }
 
                 @Override
                 public void visitParameter(String name, int modifiers) {
-                    parameterTokens.add(new LazyTypeDescription.MethodToken.ParameterToken(name, modifiers));
+                    parameterTokens.add(new LazyTypeDescription.MethodToken.ParameterToken(symbolTable.intern(name), modifiers));
                 }
 
                 @Override
@@ -8315,6 +10733,29 @@ public interface TypePool {
                 }
             }
         }
+
+        /**
+         * A type extractor that only reads a class file's header and class-level attributes but ignores any fields and methods.
+         */
+        protected class HeaderExtractor extends TypeExtractor {
+
+            @Override
+            public FieldVisitor visitField(int modifiers, String internalName, String descriptor, String genericSignature, Object defaultValue) {
+                return IGNORE_FIELD;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int modifiers, String internalName, String descriptor, String genericSignature, String[] exceptionName) {
+                return IGNORE_METHOD;
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.Default.HeaderExtractor{" +
+                        "typePool=" + Default.this +
+                        '}';
+            }
+        }
     }
 
     /**
@@ -8623,4 +11064,427 @@ public interface TypePool {
                     '}';
         }
     }
+
+    /**
+     * <p>
+     * A resolver that describes many types of a type pool at once by resolving them concurrently on an {@link ExecutorService}. Any
+     * description is resolved by the same type pool such that all resolutions share the type pool's {@link CacheProvider} which must
+     * therefore be thread-safe. Optionally, the super class and interface types of any resolved type are resolved as well such that
+     * the type pool's cache is populated with the type hierarchy of all requested types. Each super type is resolved by a separate task.
+     * The super type names of a lazy type description of {@link Default} are read from the parsed class file without resolving these types.
+     * </p>
+     * <p>
+     * The result of a bulk resolution only depends on the requested names but not on the order in which types are resolved: The
+     * resolutions are returned in the order of the requested names, once per name, and the executor's tasks are completed before any
+     * result is returned.
+     * </p>
+     * <p>
+     * The executor service is not required to be dedicated to this resolver. The thread that requests a bulk resolution runs any task
+     * that the executor did not yet start itself instead of only waiting for its completion. A bulk resolution therefore completes even
+     * if it is requested from a task that runs on a bounded executor whose threads are all busy or if the executor rejects a task.
+     * </p>
+     */
+    class BulkResolver {
+
+        /**
+         * The type pool to resolve types from.
+         */
+        private final TypePool typePool;
+
+        /**
+         * The executor service to resolve types on.
+         */
+        private final ExecutorService executorService;
+
+        /**
+         * {@code true} if the super class and interface types of any resolved type should be resolved as well.
+         */
+        private final boolean prefetchHierarchy;
+
+        /**
+         * Creates a new bulk resolver that resolves the type hierarchy of any requested type.
+         *
+         * @param typePool        The type pool to resolve types from.
+         * @param executorService The executor service to resolve types on.
+         */
+        public BulkResolver(TypePool typePool, ExecutorService executorService) {
+            this(typePool, executorService, true);
+        }
+
+        /**
+         * Creates a new bulk resolver.
+         *
+         * @param typePool          The type pool to resolve types from.
+         * @param executorService   The executor service to resolve types on.
+         * @param prefetchHierarchy {@code true} if the super class and interface types of any resolved type should be resolved as well.
+         */
+        public BulkResolver(TypePool typePool, ExecutorService executorService, boolean prefetchHierarchy) {
+            this.typePool = typePool;
+            this.executorService = executorService;
+            this.prefetchHierarchy = prefetchHierarchy;
+        }
+
+        /**
+         * Describes all types of the given names.
+         *
+         * @param name The names of the types to describe.
+         * @return A map of all requested names to their resolutions in the order of the requested names.
+         */
+        public Map<String, Resolution> describeAll(String... name) {
+            return describeAll(Arrays.asList(name));
+        }
+
+        /**
+         * Describes all types of the given names.
+         *
+         * @param names The names of the types to describe.
+         * @return A map of all requested names to their resolutions in the order of the requested names.
+         */
+        public Map<String, Resolution> describeAll(Collection<? extends String> names) {
+            Set<String> requested = new LinkedHashSet<String>(names);
+            Map<String, Resolution> resolutions = new HashMap<String, Resolution>();
+            Set<String> submitted = new HashSet<String>(requested);
+            BlockingQueue<Task> completed = new LinkedBlockingQueue<Task>();
+            Queue<Task> unclaimed = new LinkedList<Task>();
+            List<Task> tasks = new ArrayList<Task>();
+            try {
+                for (String name : requested) {
+                    submit(new Task(new Lookup(typePool, name, prefetchHierarchy, true), completed), tasks, unclaimed);
+                }
+                int pending = requested.size();
+                while (pending-- > 0) {
+                    Task task = completed.poll();
+                    while (task == null) {
+                        Task candidate = unclaimed.poll();
+                        if (candidate == null) {
+                            task = completed.take();
+                        } else {
+                            candidate.run(); // Does nothing if the executor has already started the task.
+                            task = completed.poll();
+                        }
+                    }
+                    Lookup.Result result;
+                    try {
+                        result = task.get();
+                    } catch (ExecutionException exception) {
+                        Throwable cause = exception.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        } else if (cause instanceof Error) {
+                            throw (Error) cause;
+                        } else {
+                            throw new IllegalStateException("Cannot resolve type", cause);
+                        }
+                    }
+                    if (requested.contains(result.getName())) {
+                        resolutions.put(result.getName(), result.getResolution());
+                    }
+                    for (String name : result.getHierarchy()) {
+                        if (submitted.add(name)) {
+                            submit(new Task(new Lookup(typePool, name, prefetchHierarchy, false), completed), tasks, unclaimed);
+                            pending++;
+                        }
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while resolving types", exception);
+            } finally {
+                for (Task task : tasks) {
+                    task.cancel(true);
+                }
+            }
+            Map<String, Resolution> ordered = new LinkedHashMap<String, Resolution>();
+            for (String name : requested) {
+                ordered.put(name, resolutions.get(name));
+            }
+            return ordered;
+        }
+
+        /**
+         * Hands a task to the executor service. The task is also registered as unclaimed such that the calling thread runs the task
+         * itself if the executor does not start the task before the calling thread runs out of completed tasks. A task that the executor
+         * rejects is therefore still run.
+         *
+         * @param task      The task to submit.
+         * @param tasks     All tasks of the current bulk resolution.
+         * @param unclaimed The tasks that the calling thread might run itself.
+         */
+        private void submit(Task task, List<Task> tasks, Queue<Task> unclaimed) {
+            tasks.add(task);
+            unclaimed.add(task);
+            try {
+                executorService.execute(task);
+            } catch (RejectedExecutionException ignored) {
+                /* do nothing */
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            BulkResolver that = (BulkResolver) other;
+            return prefetchHierarchy == that.prefetchHierarchy
+                    && typePool.equals(that.typePool)
+                    && executorService.equals(that.executorService);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = typePool.hashCode();
+            result = 31 * result + executorService.hashCode();
+            result = 31 * result + (prefetchHierarchy ? 1 : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "TypePool.BulkResolver{" +
+                    "typePool=" + typePool +
+                    ", executorService=" + executorService +
+                    ", prefetchHierarchy=" + prefetchHierarchy +
+                    '}';
+        }
+
+        /**
+         * A future of a lookup that is queued as completed once it is done. A task can be run by the executor service or by the
+         * thread that requested the bulk resolution but it is only ever run once.
+         */
+        protected static class Task extends FutureTask<Lookup.Result> {
+
+            /**
+             * The queue of completed tasks.
+             */
+            private final BlockingQueue<Task> completed;
+
+            /**
+             * Creates a new task.
+             *
+             * @param lookup    The lookup to run.
+             * @param completed The queue of completed tasks.
+             */
+            protected Task(Lookup lookup, BlockingQueue<Task> completed) {
+                super(lookup);
+                this.completed = completed;
+            }
+
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.BulkResolver.Task{" +
+                        "completed=" + completed.size() +
+                        ", done=" + isDone() +
+                        '}';
+            }
+        }
+
+        /**
+         * A task that resolves a single type and, if requested, the names of its direct super types.
+         */
+        protected static class Lookup implements Callable<Lookup.Result> {
+
+            /**
+             * The type pool to resolve the type from.
+             */
+            private final TypePool typePool;
+
+            /**
+             * The name of the type to resolve.
+             */
+            private final String name;
+
+            /**
+             * {@code true} if the names of the type's super class and interface types should be resolved.
+             */
+            private final boolean prefetchHierarchy;
+
+            /**
+             * {@code true} if the type was requested explicitly such that a failure must be propagated.
+             */
+            private final boolean requested;
+
+            /**
+             * Creates a new lookup.
+             *
+             * @param typePool          The type pool to resolve the type from.
+             * @param name              The name of the type to resolve.
+             * @param prefetchHierarchy {@code true} if the names of the type's super class and interface types should be resolved.
+             * @param requested         {@code true} if the type was requested explicitly such that a failure must be propagated.
+             */
+            protected Lookup(TypePool typePool, String name, boolean prefetchHierarchy, boolean requested) {
+                this.typePool = typePool;
+                this.name = name;
+                this.prefetchHierarchy = prefetchHierarchy;
+                this.requested = requested;
+            }
+
+            @Override
+            public Result call() {
+                Resolution resolution;
+                try {
+                    resolution = typePool.describe(name);
+                } catch (RuntimeException exception) {
+                    if (requested) {
+                        throw exception;
+                    }
+                    return new Result(name, new Resolution.Illegal(name), Collections.<String>emptyList());
+                }
+                if (!prefetchHierarchy || !resolution.isResolved()) {
+                    return new Result(name, resolution, Collections.<String>emptyList());
+                }
+                List<String> hierarchy;
+                try {
+                    TypeDescription typeDescription = resolution.resolve();
+                    hierarchy = typeDescription instanceof Default.SuperTypeNames
+                            ? ((Default.SuperTypeNames) typeDescription).getSuperTypeNames()
+                            : resolveSuperTypeNames(typeDescription);
+                } catch (RuntimeException ignored) {
+                    hierarchy = Collections.emptyList(); // The hierarchy is only prefetched if possible.
+                }
+                return new Result(name, resolution, hierarchy);
+            }
+
+            /**
+             * Resolves the names of a type's super class and interface types by resolving these types. This is only done for type
+             * descriptions that cannot name their super types otherwise.
+             *
+             * @param typeDescription The type description of which to resolve the super type names.
+             * @return The names of the super class, if any, and of the interface types in their declaration order.
+             */
+            protected static List<String> resolveSuperTypeNames(TypeDescription typeDescription) {
+                List<String> superTypeNames = new ArrayList<String>();
+                TypeDescription.Generic superClass = typeDescription.getSuperClass();
+                if (superClass != null) {
+                    superTypeNames.add(superClass.asErasure().getName());
+                }
+                for (TypeDescription interfaceType : typeDescription.getInterfaces().asErasures()) {
+                    superTypeNames.add(interfaceType.getName());
+                }
+                return superTypeNames;
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                if (this == other) return true;
+                if (other == null || getClass() != other.getClass()) return false;
+                Lookup lookup = (Lookup) other;
+                return prefetchHierarchy == lookup.prefetchHierarchy
+                        && requested == lookup.requested
+                        && typePool.equals(lookup.typePool)
+                        && name.equals(lookup.name);
+            }
+
+            @Override
+            public int hashCode() {
+                int result = typePool.hashCode();
+                result = 31 * result + name.hashCode();
+                result = 31 * result + (prefetchHierarchy ? 1 : 0);
+                result = 31 * result + (requested ? 1 : 0);
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "TypePool.BulkResolver.Lookup{" +
+                        "typePool=" + typePool +
+                        ", name='" + name + '\'' +
+                        ", prefetchHierarchy=" + prefetchHierarchy +
+                        ", requested=" + requested +
+                        '}';
+            }
+
+            /**
+             * The result of a lookup.
+             */
+            protected static class Result {
+
+                /**
+                 * The name of the resolved type.
+                 */
+                private final String name;
+
+                /**
+                 * The resolution of the type.
+                 */
+                private final Resolution resolution;
+
+                /**
+                 * The names of the resolved type's super class and interface types.
+                 */
+                private final List<String> hierarchy;
+
+                /**
+                 * Creates a new result.
+                 *
+                 * @param name       The name of the resolved type.
+                 * @param resolution The resolution of the type.
+                 * @param hierarchy  The names of the resolved type's super class and interface types.
+                 */
+                protected Result(String name, Resolution resolution, List<String> hierarchy) {
+                    this.name = name;
+                    this.resolution = resolution;
+                    this.hierarchy = hierarchy;
+                }
+
+                /**
+                 * Returns the name of the resolved type.
+                 *
+                 * @return The name of the resolved type.
+                 */
+                protected String getName() {
+                    return name;
+                }
+
+                /**
+                 * Returns the resolution of the type.
+                 *
+                 * @return The resolution of the type.
+                 */
+                protected Resolution getResolution() {
+                    return resolution;
+                }
+
+                /**
+                 * Returns the names of the resolved type's super class and interface types.
+                 *
+                 * @return The names of the resolved type's super class and interface types.
+                 */
+                protected List<String> getHierarchy() {
+                    return hierarchy;
+                }
+
+                @Override
+                public boolean equals(Object other) {
+                    if (this == other) return true;
+                    if (other == null || getClass() != other.getClass()) return false;
+                    Result result = (Result) other;
+                    return name.equals(result.name)
+                            && resolution.equals(result.resolution)
+                            && hierarchy.equals(result.hierarchy);
+                }
+
+                @Override
+                public int hashCode() {
+                    int result = name.hashCode();
+                    result = 31 * result + resolution.hashCode();
+                    result = 31 * result + hierarchy.hashCode();
+                    return result;
+                }
+
+                @Override
+                public String toString() {
+                    return "TypePool.BulkResolver.Lookup.Result{" +
+                            "name='" + name + '\'' +
+                            ", resolution=" + resolution +
+                            ", hierarchy=" + hierarchy +
+                            '}';
+                }
+            }
+        }
+    }
 }
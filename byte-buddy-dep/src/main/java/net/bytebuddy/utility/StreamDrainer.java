@@ -2,11 +2,15 @@ package net.bytebuddy.utility;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * A utility for draining the contents of an {@link java.io.InputStream} into a {@code byte} array.
+ * A utility for draining the contents of an {@link java.io.InputStream} into a {@code byte} array. If the size of a stream's content is
+ * known, the stream is drained into an array of this size. Otherwise, the stream is drained into a scratch buffer that is borrowed from
+ * a small pool that is shared by all threads such that typically only the resulting array is allocated. The pool retains a fixed number
+ * of scratch buffers, independently of the number of threads, and a scratch buffer is only returned to the pool if it does not exceed
+ * a few multiples of the {@link StreamDrainer#DEFAULT_BUFFER_SIZE}.
  */
 public class StreamDrainer {
 
@@ -20,6 +24,28 @@ public class StreamDrainer {
      */
     public static final StreamDrainer DEFAULT = new StreamDrainer();
 
+    /**
+     * Indicates that the size of a stream's content is not known.
+     */
+    public static final int UNDEFINED_SIZE = -1;
+
+    /**
+     * The maximum size of a scratch buffer that is retained by the pool which covers the size of most class files. Larger buffers
+     * are discarded after their use.
+     */
+    private static final int MAXIMUM_RETAINED_SIZE = 16 * DEFAULT_BUFFER_SIZE;
+
+    /**
+     * The number of scratch buffers that are retained by the pool. This number must be a power of two.
+     */
+    private static final int POOL_SIZE = 8;
+
+    /**
+     * A pool of scratch buffers that are used for draining streams of an unknown size. A slot is {@code null} if its buffer is
+     * currently borrowed or was not yet created.
+     */
+    private static final AtomicReferenceArray<byte[]> SCRATCH = new AtomicReferenceArray<byte[]>(POOL_SIZE);
+
     /**
      * A convenience constant referring to the value representing the end of a stream.
      */
@@ -31,7 +57,7 @@ public class StreamDrainer {
     private static final int FROM_BEGINNING = 0;
 
     /**
-     * The buffer size for reading from a given stream.
+     * The minimal buffer size for reading from a given stream of an unknown size.
      */
     private final int bufferSize;
 
@@ -45,7 +71,7 @@ public class StreamDrainer {
     /**
      * Creates a stream drainer with the given buffer size.
      *
-     * @param bufferSize The buffer size for reading from a given stream.
+     * @param bufferSize The minimal buffer size for reading from a given stream of an unknown size.
      */
     public StreamDrainer(int bufferSize) {
         this.bufferSize = bufferSize;
@@ -59,26 +85,116 @@ public class StreamDrainer {
      * @throws IOException If the stream reading causes an error.
      */
     public byte[] drain(InputStream inputStream) throws IOException {
-        List<byte[]> previousBytes = new ArrayList<byte[]>();
-        byte[] currentArray = new byte[bufferSize];
-        int currentIndex = 0;
-        int currentRead;
-        do {
-            currentRead = inputStream.read(currentArray, currentIndex, bufferSize - currentIndex);
-            currentIndex += currentRead > 0 ? currentRead : 0;
-            if (currentIndex == bufferSize) {
-                previousBytes.add(currentArray);
-                currentArray = new byte[bufferSize];
-                currentIndex = 0;
+        return drain(inputStream, UNDEFINED_SIZE);
+    }
+
+    /**
+     * Drains an input stream into a byte array. The given input stream is not closed. If the size hint is positive, the stream
+     * is drained into an array of this size. If the stream's content does not match the hinted size, the content is still
+     * drained correctly but additional arrays might be allocated.
+     *
+     * @param inputStream The input stream to drain.
+     * @param sizeHint    The expected size of the stream's content or {@link StreamDrainer#UNDEFINED_SIZE} if the size is not known.
+     * @return A byte array containing the content of the input stream.
+     * @throws IOException If the stream reading causes an error.
+     */
+    public byte[] drain(InputStream inputStream, int sizeHint) throws IOException {
+        if (sizeHint > 0) {
+            byte[] result = new byte[sizeHint];
+            int currentIndex = 0;
+            int currentRead;
+            while (currentIndex < sizeHint && (currentRead = inputStream.read(result, currentIndex, sizeHint - currentIndex)) != END_OF_STREAM) {
+                currentIndex += currentRead;
+            }
+            if (currentIndex < sizeHint) {
+                return Arrays.copyOf(result, currentIndex);
+            }
+            int next = inputStream.read();
+            if (next == END_OF_STREAM) {
+                return result;
+            }
+            byte[] buffer = acquire(sizeHint + 1);
+            System.arraycopy(result, FROM_BEGINNING, buffer, FROM_BEGINNING, sizeHint);
+            buffer[sizeHint] = (byte) next;
+            return drain(inputStream, buffer, sizeHint + 1);
+        } else {
+            return drain(inputStream, acquire(bufferSize), FROM_BEGINNING);
+        }
+    }
+
+    /**
+     * Drains an input stream into a scratch buffer and copies the drained content into an array of the content's size.
+     *
+     * @param inputStream  The input stream to drain.
+     * @param buffer       The scratch buffer to drain the stream into.
+     * @param currentIndex The index of the scratch buffer up to which the buffer already contains content of the stream.
+     * @return A byte array containing the content of the scratch buffer and the remainder of the input stream.
+     * @throws IOException If the stream reading causes an error.
+     */
+    private static byte[] drain(InputStream inputStream, byte[] buffer, int currentIndex) throws IOException {
+        try {
+            int currentRead;
+            do {
+                if (currentIndex == buffer.length) {
+                    if (buffer.length == Integer.MAX_VALUE) {
+                        throw new IOException("Stream content exceeds the maximum array size");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE, Math.max(1L, buffer.length * 2L)));
+                }
+                currentRead = inputStream.read(buffer, currentIndex, buffer.length - currentIndex);
+                currentIndex += currentRead > 0 ? currentRead : 0;
+            } while (currentRead != END_OF_STREAM);
+            return Arrays.copyOf(buffer, currentIndex);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Borrows a scratch buffer of at least the given size from the pool or creates a new buffer if the pool does not offer a
+     * sufficiently large buffer. A borrowed buffer is removed from the pool until it is released such that no other drainage
+     * reuses it concurrently.
+     *
+     * @param minimumSize The minimum size of the scratch buffer.
+     * @return A scratch buffer of at least the given size.
+     */
+    private static byte[] acquire(int minimumSize) {
+        int offset = slot();
+        for (int index = 0; index < POOL_SIZE; index++) {
+            int slot = (offset + index) & (POOL_SIZE - 1);
+            byte[] buffer = SCRATCH.get(slot);
+            if (buffer != null && buffer.length >= minimumSize && SCRATCH.compareAndSet(slot, buffer, null)) {
+                return buffer;
             }
-        } while (currentRead != END_OF_STREAM);
-        byte[] result = new byte[previousBytes.size() * bufferSize + currentIndex];
-        int arrayIndex = 0;
-        for (byte[] previousByte : previousBytes) {
-            System.arraycopy(previousByte, FROM_BEGINNING, result, arrayIndex++ * bufferSize, bufferSize);
         }
-        System.arraycopy(currentArray, FROM_BEGINNING, result, arrayIndex * bufferSize, currentIndex);
-        return result;
+        return new byte[minimumSize];
+    }
+
+    /**
+     * Returns a scratch buffer to the pool if it is not too large and if the pool has a vacant slot. Otherwise, the buffer is discarded.
+     *
+     * @param buffer The scratch buffer to return.
+     */
+    private static void release(byte[] buffer) {
+        if (buffer.length <= MAXIMUM_RETAINED_SIZE) {
+            int offset = slot();
+            for (int index = 0; index < POOL_SIZE; index++) {
+                if (SCRATCH.compareAndSet((offset + index) & (POOL_SIZE - 1), null, buffer)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the pool at which the current thread starts looking for a scratch buffer such that concurrent threads
+     * typically use different slots.
+     *
+     * @return The slot at which the current thread starts looking for a scratch buffer.
+     */
+    private static int slot() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ id >>> 32) & (POOL_SIZE - 1);
     }
 
     @Override
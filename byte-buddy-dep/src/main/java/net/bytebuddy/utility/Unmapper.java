@@ -0,0 +1,199 @@
+package net.bytebuddy.utility;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.security.PrivilegedAction;
+
+/**
+ * An unmapper releases the mapping of a file before the mapped byte buffer is garbage collected.
+ */
+public interface Unmapper {
+
+    /**
+     * Releases the mapping of a mapped byte buffer. The buffer must not be accessed after this method returns.
+     *
+     * @param mapping The mapped byte buffer to release.
+     */
+    void unmap(MappedByteBuffer mapping);
+
+    /**
+     * A creation action for an unmapper.
+     */
+    enum CreationAction implements PrivilegedAction<Unmapper> {
+
+        /**
+         * The singleton instance.
+         */
+        INSTANCE;
+
+        @Override
+        @SuppressFBWarnings(value = "REC_CATCH_EXCEPTION", justification = "Exception should not be rethrown but trigger a fallback")
+        public Unmapper run() {
+            try {
+                Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeType.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new ForJava9CapableVm(theUnsafe.get(null), unsafeType.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (Exception ignored) {
+                try {
+                    return new ForLegacyVm(Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner"),
+                            Class.forName("sun.misc.Cleaner").getMethod("clean"));
+                } catch (Exception alsoIgnored) {
+                    return Disabled.INSTANCE;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Unmapper.CreationAction." + name();
+        }
+    }
+
+    /**
+     * An unmapper that does not release a mapping but leaves it to the garbage collector.
+     */
+    enum Disabled implements Unmapper {
+
+        /**
+         * The singleton instance.
+         */
+        INSTANCE;
+
+        @Override
+        public void unmap(MappedByteBuffer mapping) {
+            /* do nothing */
+        }
+
+        @Override
+        public String toString() {
+            return "Unmapper.Disabled." + name();
+        }
+    }
+
+    /**
+     * An unmapper for a VM prior to Java 9 that invokes a mapped byte buffer's cleaner.
+     */
+    class ForLegacyVm implements Unmapper {
+
+        /**
+         * The {@code sun.nio.ch.DirectBuffer#cleaner()} method.
+         */
+        private final Method cleaner;
+
+        /**
+         * The {@code sun.misc.Cleaner#clean()} method.
+         */
+        private final Method clean;
+
+        /**
+         * Creates a new unmapper for a legacy VM.
+         *
+         * @param cleaner The {@code sun.nio.ch.DirectBuffer#cleaner()} method.
+         * @param clean   The {@code sun.misc.Cleaner#clean()} method.
+         */
+        protected ForLegacyVm(Method cleaner, Method clean) {
+            this.cleaner = cleaner;
+            this.clean = clean;
+        }
+
+        @Override
+        public void unmap(MappedByteBuffer mapping) {
+            try {
+                Object cleaner = this.cleaner.invoke(mapping);
+                if (cleaner != null) {
+                    clean.invoke(cleaner);
+                }
+            } catch (IllegalAccessException exception) {
+                throw new IllegalStateException("Cannot access buffer cleaner", exception);
+            } catch (InvocationTargetException exception) {
+                throw new IllegalStateException("Error invoking buffer cleaner", exception.getCause());
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            ForLegacyVm that = (ForLegacyVm) other;
+            return cleaner.equals(that.cleaner) && clean.equals(that.clean);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cleaner.hashCode() + clean.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Unmapper.ForLegacyVm{" +
+                    "cleaner=" + cleaner +
+                    ", clean=" + clean +
+                    '}';
+        }
+    }
+
+    /**
+     * An unmapper for a Java 9 capable VM that invokes {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)}.
+     */
+    class ForJava9CapableVm implements Unmapper {
+
+        /**
+         * The {@code sun.misc.Unsafe} instance.
+         */
+        private final Object unsafe;
+
+        /**
+         * The {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)} method.
+         */
+        private final Method invokeCleaner;
+
+        /**
+         * Creates a new unmapper for a Java 9 capable VM.
+         *
+         * @param unsafe        The {@code sun.misc.Unsafe} instance.
+         * @param invokeCleaner The {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)} method.
+         */
+        protected ForJava9CapableVm(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        @Override
+        public void unmap(MappedByteBuffer mapping) {
+            try {
+                invokeCleaner.invoke(unsafe, mapping);
+            } catch (IllegalAccessException exception) {
+                throw new IllegalStateException("Cannot access sun.misc.Unsafe#invokeCleaner", exception);
+            } catch (InvocationTargetException exception) {
+                throw new IllegalStateException("Error invoking sun.misc.Unsafe#invokeCleaner", exception.getCause());
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            ForJava9CapableVm that = (ForJava9CapableVm) other;
+            return unsafe.equals(that.unsafe) && invokeCleaner.equals(that.invokeCleaner);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * unsafe.hashCode() + invokeCleaner.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Unmapper.ForJava9CapableVm{" +
+                    "unsafe=" + unsafe +
+                    ", invokeCleaner=" + invokeCleaner +
+                    '}';
+        }
+    }
+}
@@ -3,6 +3,12 @@ package net.bytebuddy.agent.builder;
 import net.bytebuddy.test.utility.ObjectPropertyAssertion;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -29,6 +35,86 @@ public class AgentBuilderCircularityLockTest {
         circularityLock.release();
     }
 
+    @Test
+    public void testCircularityLockForThreadIdentity() throws Exception {
+        AgentBuilder.CircularityLock.ForThreadIdentity circularityLock = new AgentBuilder.CircularityLock.ForThreadIdentity();
+        assertThat(circularityLock.isAcquired(), is(false));
+        assertThat(circularityLock.acquire(), is(true));
+        assertThat(circularityLock.isAcquired(), is(true));
+        assertThat(circularityLock.acquire(), is(false));
+        circularityLock.release();
+        assertThat(circularityLock.isAcquired(), is(false));
+        assertThat(circularityLock.acquire(), is(true));
+        assertThat(circularityLock.acquire(), is(false));
+        circularityLock.release();
+        assertThat(circularityLock.isAcquired(), is(false));
+    }
+
+    @Test
+    public void testCircularityLockForThreadIdentityIsThreadBound() throws Exception {
+        final AgentBuilder.CircularityLock circularityLock = new AgentBuilder.CircularityLock.ForThreadIdentity();
+        assertThat(circularityLock.acquire(), is(true));
+        final AtomicBoolean acquired = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acquired.set(circularityLock.acquire() && !circularityLock.acquire());
+                circularityLock.release();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertThat(acquired.get(), is(true));
+        assertThat(circularityLock.acquire(), is(false));
+        circularityLock.release();
+    }
+
+    @Test
+    public void testCircularityLockForThreadIdentityOverflow() throws Exception {
+        final AgentBuilder.CircularityLock.ForThreadIdentity circularityLock = new AgentBuilder.CircularityLock.ForThreadIdentity(1);
+        int threads = 32;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int index = 0; index < threads; index++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!circularityLock.acquire() || circularityLock.acquire() || !circularityLock.isAcquired()) {
+                            failures.incrementAndGet();
+                        }
+                        barrier.await();
+                        circularityLock.release();
+                        if (circularityLock.isAcquired()) {
+                            failures.incrementAndGet();
+                        }
+                        barrier.await();
+                        if (!circularityLock.acquire() || circularityLock.acquire()) {
+                            failures.incrementAndGet();
+                        }
+                        circularityLock.release();
+                    } catch (Exception ignored) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        assertThat(failures.get(), is(0));
+        assertThat(circularityLock.acquire(), is(true));
+        circularityLock.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircularityLockForThreadIdentityIllegalCapacity() throws Exception {
+        new AgentBuilder.CircularityLock.ForThreadIdentity(0);
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(AgentBuilder.CircularityLock.Default.class).applyBasic();
@@ -0,0 +1,185 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ClassFileExtraction;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderDeduplicationStrategyForIdenticalHierarchyTest {
+
+    private static final byte[] FOO = new byte[]{1, 2, 3}, BAR = new byte[]{4, 5, 6};
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private AgentBuilder.Transformer transformer, otherTransformer;
+
+    private TypeDescription typeDescription;
+
+    private ClassLoader classLoader, otherClassLoader;
+
+    private ClassFileLocator classFileLocator;
+
+    private AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy deduplicator;
+
+    @Before
+    public void setUp() throws Exception {
+        typeDescription = new TypeDescription.ForLoadedType(Sample.class);
+        classLoader = Sample.class.getClassLoader();
+        otherClassLoader = new URLClassLoader(new URL[0], null);
+        classFileLocator = ClassFileLocator.ForClassLoader.of(classLoader);
+        deduplicator = new AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy(1);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        AgentBuilder.TransformationCache.Entry entry = deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator);
+        assertThat(entry.isCached(), is(false));
+        entry.store(FOO);
+        assertThat(deduplicator.size(), is(1));
+        AgentBuilder.TransformationCache.Entry duplicate = deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator);
+        assertThat(duplicate.isCached(), is(true));
+        assertThat(duplicate.getBinaryRepresentation(), is(FOO));
+        assertThat(duplicate.getBinaryRepresentation(), not(sameInstance(FOO)));
+    }
+
+    @Test
+    public void testDifferentTransformerIsNotReused() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        assertThat(deduplicator.lookup(typeDescription, classLoader, otherTransformer, classFileLocator).isCached(), is(false));
+    }
+
+    @Test
+    public void testDifferentClassFileIsNotReused() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        assertThat(deduplicator.lookup(typeDescription,
+                classLoader,
+                transformer,
+                new ClassFileLocator.Compound(ClassFileLocator.Simple.of(Sample.class.getName(), BAR), classFileLocator)).isCached(), is(false));
+    }
+
+    @Test
+    public void testDifferentSuperClassIsNotReused() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        assertThat(deduplicator.lookup(typeDescription,
+                otherClassLoader,
+                transformer,
+                new ClassFileLocator.Compound(ClassFileLocator.Simple.of(SampleBase.class.getName(), BAR), classFileLocator)).isCached(), is(false));
+    }
+
+    @Test
+    public void testDifferentInterfaceIsNotReused() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        assertThat(deduplicator.lookup(typeDescription,
+                otherClassLoader,
+                transformer,
+                new ClassFileLocator.Compound(ClassFileLocator.Simple.of(SampleInterface.class.getName(), BAR), classFileLocator)).isCached(), is(false));
+    }
+
+    @Test
+    public void testSuperTypeDigestIsComputedOncePerClassLoader() throws Exception {
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        for (Class<?> type : new Class<?>[]{Sample.class, SampleBase.class, SampleInterface.class}) {
+            when(classFileLocator.locate(type.getName())).thenReturn(new ClassFileLocator.Resolution.Explicit(ClassFileExtraction.extract(type)));
+        }
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        assertThat(deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).isCached(), is(true));
+        verify(classFileLocator, times(2)).locate(Sample.class.getName());
+        verify(classFileLocator).locate(SampleBase.class.getName());
+        verify(classFileLocator).locate(SampleInterface.class.getName());
+        verifyNoMoreInteractions(classFileLocator);
+        assertThat(deduplicator.lookup(typeDescription, otherClassLoader, transformer, classFileLocator).isCached(), is(true));
+        verify(classFileLocator, times(2)).locate(SampleBase.class.getName());
+    }
+
+    @Test
+    public void testUnlocatableHierarchyIsNotDeduplicated() throws Exception {
+        AgentBuilder.TransformationCache.Entry entry = deduplicator.lookup(typeDescription,
+                classLoader,
+                transformer,
+                ClassFileLocator.Simple.of(Sample.class.getName(), FOO));
+        assertThat(entry, is((AgentBuilder.TransformationCache.Entry) AgentBuilder.TransformationCache.Entry.Unavailable.INSTANCE));
+    }
+
+    @Test
+    public void testMaximumSizeEvictsLeastRecentlyUsed() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        deduplicator.lookup(typeDescription, classLoader, otherTransformer, classFileLocator).store(BAR);
+        assertThat(deduplicator.size(), is(1));
+        assertThat(deduplicator.getEvictionCount(), is(1L));
+        assertThat(deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).isCached(), is(false));
+        assertThat(deduplicator.lookup(typeDescription, classLoader, otherTransformer, classFileLocator).getBinaryRepresentation(), is(BAR));
+    }
+
+    @Test
+    public void testAccessRetainsTransformation() throws Exception {
+        deduplicator = new AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy(2);
+        AgentBuilder.Transformer thirdTransformer = mock(AgentBuilder.Transformer.class);
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(FOO);
+        deduplicator.lookup(typeDescription, classLoader, otherTransformer, classFileLocator).store(BAR);
+        assertThat(deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).isCached(), is(true));
+        deduplicator.lookup(typeDescription, classLoader, thirdTransformer, classFileLocator).store(BAR);
+        assertThat(deduplicator.size(), is(2));
+        assertThat(deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).isCached(), is(true));
+        assertThat(deduplicator.lookup(typeDescription, classLoader, otherTransformer, classFileLocator).isCached(), is(false));
+    }
+
+    @Test
+    public void testUntransformedIsNotRetained() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).store(null);
+        assertThat(deduplicator.size(), is(0));
+    }
+
+    @Test
+    public void testPending() throws Exception {
+        assertThat(deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator),
+                instanceOf(AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.Pending.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPendingHasNoBinaryRepresentation() throws Exception {
+        deduplicator.lookup(typeDescription, classLoader, transformer, classFileLocator).getBinaryRepresentation();
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        ObjectPropertyAssertion.of(AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.Key.class).create(new ObjectPropertyAssertion.Creator<byte[]>() {
+            @Override
+            public byte[] create() {
+                return new byte[]{(byte) counter.incrementAndGet()};
+            }
+        }).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.LookupKey.class).apply();
+    }
+
+    public interface SampleInterface {
+        /* empty */
+    }
+
+    public static class SampleBase implements SampleInterface {
+        /* empty */
+    }
+
+    public static class Sample extends SampleBase {
+        /* empty */
+    }
+}
@@ -0,0 +1,39 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderDeduplicationStrategyTest {
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertThat(AgentBuilder.DeduplicationStrategy.Disabled.INSTANCE.make(),
+                is((AgentBuilder.DeduplicationStrategy.Deduplicator) AgentBuilder.DeduplicationStrategy.Deduplicator.NoOp.INSTANCE));
+    }
+
+    @Test
+    public void testEnabled() throws Exception {
+        AgentBuilder.DeduplicationStrategy deduplicationStrategy = new AgentBuilder.DeduplicationStrategy.Enabled();
+        AgentBuilder.DeduplicationStrategy.Deduplicator deduplicator = deduplicationStrategy.make();
+        assertThat(deduplicator, instanceOf(AgentBuilder.DeduplicationStrategy.Deduplicator.ForIdenticalHierarchy.class));
+        assertThat(deduplicationStrategy.make(), not(sameInstance(deduplicator)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnabledIllegalSize() throws Exception {
+        new AgentBuilder.DeduplicationStrategy.Enabled(0);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.DeduplicationStrategy.Disabled.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.DeduplicationStrategy.Enabled.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.DeduplicationStrategy.Deduplicator.NoOp.class).apply();
+    }
+}
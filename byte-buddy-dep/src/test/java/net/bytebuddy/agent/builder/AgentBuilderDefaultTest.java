@@ -25,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.MethodRule;
 import org.junit.rules.TestRule;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -38,10 +39,15 @@ import java.lang.reflect.Constructor;
 import java.security.AccessControlContext;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static net.bytebuddy.matcher.ElementMatchers.none;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.*;
 
@@ -137,6 +143,434 @@ public class AgentBuilderDefaultTest {
         });
     }
 
+    @Test
+    public void testMetricsOfSuccessfulTransformation() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.Metrics metrics = mock(AgentBuilder.Metrics.class);
+        when(metrics.isEnabled()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(metrics)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        for (AgentBuilder.Metrics.Phase phase : AgentBuilder.Metrics.Phase.values()) {
+            verify(metrics).onPhase(eq(REDEFINED.getName()), eq(phase), anyLong());
+        }
+        verify(metrics).onComplete(eq(REDEFINED.getName()),
+                eq(REDEFINED.getClassLoader()),
+                eq(JavaModule.ofType(REDEFINED)),
+                eq(QUX.length),
+                eq(BAZ.length),
+                anyLong());
+        verify(metrics, atLeastOnce()).isEnabled();
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void testTransformationCacheHit() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        when(transformationCache.lookup(eq(REDEFINED.getName()), eq(REDEFINED.getClassLoader()), eq(QUX), any(ClassFileLocator.class))).thenReturn(new AgentBuilder.TransformationCache.Entry.Cached(BAZ));
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verifyZeroInteractions(typeMatcher);
+        verifyZeroInteractions(transformer);
+        verify(dispatcher).register(any(DynamicType.class), eq(REDEFINED.getClassLoader()), any(AgentBuilder.InitializationStrategy.Dispatcher.InjectorFactory.class));
+        verify(listener).onTransformation(eq(new TypeDescription.ForLoadedType(REDEFINED)),
+                eq(REDEFINED.getClassLoader()),
+                eq(JavaModule.ofType(REDEFINED)),
+                any(DynamicType.class));
+        verify(listener).onComplete(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testTransformationCacheHitNonTransformed() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        when(transformationCache.lookup(eq(REDEFINED.getName()), eq(REDEFINED.getClassLoader()), eq(QUX), any(ClassFileLocator.class))).thenReturn(new AgentBuilder.TransformationCache.Entry.Cached(null));
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX),
+                nullValue(byte[].class));
+        verifyZeroInteractions(typeMatcher);
+        verifyZeroInteractions(transformer);
+        verify(listener).onIgnored(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verify(listener).onComplete(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testTransformationCacheStoresTransformation() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        AgentBuilder.TransformationCache.Entry entry = mock(AgentBuilder.TransformationCache.Entry.class);
+        when(transformationCache.lookup(eq(REDEFINED.getName()), eq(REDEFINED.getClassLoader()), eq(QUX), any(ClassFileLocator.class))).thenReturn(entry);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(entry).isCached();
+        verify(entry).store(BAZ);
+        verifyNoMoreInteractions(entry);
+    }
+
+    @Test
+    public void testTransformationCacheDoesNotStoreTransformationWithAuxiliaryTypes() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(dynamicType.getAuxiliaryTypes()).thenReturn(Collections.<TypeDescription, byte[]>singletonMap(new TypeDescription.ForLoadedType(AUXILIARY), QUX));
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        AgentBuilder.TransformationCache.Entry entry = mock(AgentBuilder.TransformationCache.Entry.class);
+        when(transformationCache.lookup(eq(REDEFINED.getName()), eq(REDEFINED.getClassLoader()), eq(QUX), any(ClassFileLocator.class))).thenReturn(entry);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(entry).isCached();
+        verifyNoMoreInteractions(entry);
+    }
+
+    @Test
+    public void testTransformationCacheStoresNonMatchedType() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        AgentBuilder.TransformationCache.Entry entry = mock(AgentBuilder.TransformationCache.Entry.class);
+        when(transformationCache.lookup(eq(REDEFINED.getName()), eq(REDEFINED.getClassLoader()), eq(QUX), any(ClassFileLocator.class))).thenReturn(entry);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX),
+                nullValue(byte[].class));
+        verify(entry).isCached();
+        verify(entry).store(null);
+        verifyNoMoreInteractions(entry);
+    }
+
+    @Test
+    public void testTransformationCacheIsNotConsultedForIgnoredType() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(ElementMatchers.<TypeDescription>any())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX),
+                nullValue(byte[].class));
+        verifyZeroInteractions(transformationCache);
+        verifyZeroInteractions(typeMatcher);
+    }
+
+    @Test
+    public void testTransformationCacheIsNotConsultedForRetransformation() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.TransformationCache transformationCache = mock(AgentBuilder.TransformationCache.class);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withTransformationCache(transformationCache)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), REDEFINED, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verifyZeroInteractions(transformationCache);
+    }
+
+    @Test
+    public void testDeduplicationReusesTransformation() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(new AgentBuilder.DeduplicationStrategy.Enabled())
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(typeMatcher, times(2)).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain());
+        verify(transformer).transform(builder, new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader());
+    }
+
+    @Test
+    public void testDeduplicationNotifiesListenerOnReuse() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(new AgentBuilder.DeduplicationStrategy.Enabled())
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(listener).onTransformation(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), dynamicType);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        ArgumentCaptor<DynamicType> reused = ArgumentCaptor.forClass(DynamicType.class);
+        verify(listener, times(2)).onTransformation(eq(new TypeDescription.ForLoadedType(REDEFINED)),
+                eq(REDEFINED.getClassLoader()),
+                eq(JavaModule.ofType(REDEFINED)),
+                reused.capture());
+        assertThat(reused.getAllValues().get(1), not((DynamicType) dynamicType));
+        assertThat(reused.getAllValues().get(1).getBytes(), is(BAZ));
+        assertThat(reused.getAllValues().get(1).getAuxiliaryTypes().isEmpty(), is(true));
+        verify(dispatcher, times(2)).register(any(DynamicType.class), eq(REDEFINED.getClassLoader()), any(AgentBuilder.InitializationStrategy.Dispatcher.InjectorFactory.class));
+        verify(listener, times(2)).onComplete(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testDeduplicationDoesNotReuseDifferentClassFile() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(new AgentBuilder.DeduplicationStrategy.Enabled())
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), BAZ), is(BAZ));
+        verify(transformer, times(2)).transform(builder, new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader());
+    }
+
+    @Test
+    public void testDisabledMetricsAreNotNotified() throws Exception {
+        when(dynamicType.getBytes()).thenReturn(BAZ);
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.Metrics metrics = mock(AgentBuilder.Metrics.class);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(metrics)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(metrics, atLeastOnce()).isEnabled();
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void testMetricsOfNonMatchedType() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.Metrics metrics = mock(AgentBuilder.Metrics.class);
+        when(metrics.isEnabled()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(metrics)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX),
+                nullValue(byte[].class));
+        verify(metrics).onPhase(eq(REDEFINED.getName()), eq(AgentBuilder.Metrics.Phase.LOCATE), anyLong());
+        verify(metrics).onPhase(eq(REDEFINED.getName()), eq(AgentBuilder.Metrics.Phase.DESCRIBE), anyLong());
+        verify(metrics).onPhase(eq(REDEFINED.getName()), eq(AgentBuilder.Metrics.Phase.MATCH), anyLong());
+        verify(metrics).onComplete(eq(REDEFINED.getName()),
+                eq(REDEFINED.getClassLoader()),
+                eq(JavaModule.ofType(REDEFINED)),
+                eq(QUX.length),
+                eq(-1),
+                anyLong());
+        verify(metrics, atLeastOnce()).isEnabled();
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void testSkipPrefilteredType() throws Exception {
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withPrefilter(new AgentBuilder.Prefilter.ForNamePrefixes(REDEFINED.getName()))
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer,
+                JavaModule.ofType(REDEFINED),
+                REDEFINED.getClassLoader(),
+                REDEFINED.getName().replace('.', '/'),
+                null,
+                REDEFINED.getProtectionDomain(),
+                QUX), nullValue(byte[].class));
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verifyNoMoreInteractions(instrumentation);
+        verifyZeroInteractions(poolStrategy);
+        verifyZeroInteractions(typeMatcher);
+        verifyZeroInteractions(transformer);
+        verifyZeroInteractions(initializationStrategy);
+        verifyZeroInteractions(installationStrategy);
+    }
+
+    @Test
+    public void testSkipPrefilteredTypeUnderCircularityLock() throws Exception {
+        AgentBuilder.CircularityLock circularityLock = mock(AgentBuilder.CircularityLock.class);
+        when(circularityLock.acquire()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(circularityLock)
+                .withPrefilter(new AgentBuilder.Prefilter.ForNamePrefixes(REDEFINED.getName()))
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verify(circularityLock).acquire();
+        verify(circularityLock).release();
+        assertThat(transform(classFileTransformer,
+                JavaModule.ofType(REDEFINED),
+                REDEFINED.getClassLoader(),
+                REDEFINED.getName().replace('.', '/'),
+                null,
+                REDEFINED.getProtectionDomain(),
+                QUX), nullValue(byte[].class));
+        verify(circularityLock, times(2)).acquire();
+        verify(circularityLock, times(2)).release();
+        verifyNoMoreInteractions(circularityLock);
+        verifyZeroInteractions(listener);
+        verifyZeroInteractions(poolStrategy);
+    }
+
+    @Test
+    public void testPrefilterNotAppliedWithoutCircularityLock() throws Exception {
+        AgentBuilder.CircularityLock circularityLock = mock(AgentBuilder.CircularityLock.class);
+        when(circularityLock.acquire()).thenReturn(true, false);
+        AgentBuilder.Prefilter prefilter = mock(AgentBuilder.Prefilter.class);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .with(circularityLock)
+                .withPrefilter(prefilter)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        assertThat(transform(classFileTransformer,
+                JavaModule.ofType(REDEFINED),
+                REDEFINED.getClassLoader(),
+                REDEFINED.getName().replace('.', '/'),
+                null,
+                REDEFINED.getProtectionDomain(),
+                QUX), nullValue(byte[].class));
+        verifyZeroInteractions(prefilter);
+        verifyZeroInteractions(listener);
+        verifyZeroInteractions(poolStrategy);
+    }
+
     @Test
     public void testSuccessfulWithoutExistingClass() throws Exception {
         when(dynamicType.getBytes()).thenReturn(BAZ);
@@ -406,32 +840,299 @@ public class AgentBuilderDefaultTest {
                 .ignore(none())
                 .type(typeMatcher).transform(transformer)
                 .installOn(instrumentation);
-        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
-        when(instrumentation.isRedefineClassesSupported()).thenReturn(true);
-        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
-        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
-        Throwable throwable = new RuntimeException();
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
-                .thenThrow(throwable);
-        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.REDEFINITION);
-        assertThat(reset.isApplied(), is(true));
-        assertThat(reset.getErrors().size(), is(1));
-        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
+        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
+        when(instrumentation.isRedefineClassesSupported()).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
+        Throwable throwable = new RuntimeException();
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenThrow(throwable);
+        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.REDEFINITION);
+        assertThat(reset.isApplied(), is(true));
+        assertThat(reset.getErrors().size(), is(1));
+        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verify(instrumentation).isRedefineClassesSupported();
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).removeTransformer(classFileTransformer);
+        verifyNoMoreInteractions(instrumentation);
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
+        verifyNoMoreInteractions(typeMatcher);
+    }
+
+    @Test
+    public void testResetRetransformationWithError() throws Exception {
+        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
+        Throwable throwable = new RuntimeException();
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenThrow(throwable);
+        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
+        assertThat(reset.isApplied(), is(true));
+        assertThat(reset.getErrors().size(), is(1));
+        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verify(instrumentation).isRetransformClassesSupported();
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).removeTransformer(classFileTransformer);
+        verifyNoMoreInteractions(instrumentation);
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
+        verifyNoMoreInteractions(typeMatcher);
+    }
+
+    @Test
+    public void testResetRedefinitionWithErrorFromFallback() throws Exception {
+        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(AgentBuilder.FallbackStrategy.Simple.ENABLED)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
+        when(instrumentation.isRedefineClassesSupported()).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        Throwable throwable = new RuntimeException(), suppressed = new RuntimeException();
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenThrow(suppressed);
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenThrow(throwable);
+        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.REDEFINITION);
+        assertThat(reset.isApplied(), is(true));
+        assertThat(reset.getErrors().size(), is(1));
+        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verify(instrumentation).isRedefineClassesSupported();
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).removeTransformer(classFileTransformer);
+        verifyNoMoreInteractions(instrumentation);
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain());
+        verifyNoMoreInteractions(typeMatcher);
+    }
+
+    @Test
+    public void testResetRetransformationWithErrorFromFallback() throws Exception {
+        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(AgentBuilder.FallbackStrategy.Simple.ENABLED)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        Throwable throwable = new RuntimeException(), suppressed = new RuntimeException();
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenThrow(suppressed);
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenThrow(throwable);
+        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
+        assertThat(reset.isApplied(), is(true));
+        assertThat(reset.getErrors().size(), is(1));
+        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verify(instrumentation).isRetransformClassesSupported();
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).removeTransformer(classFileTransformer);
+        verifyNoMoreInteractions(instrumentation);
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain());
+        verifyNoMoreInteractions(typeMatcher);
+    }
+
+    @Test
+    public void testSuccessfulWithRetransformationMatched() throws Exception {
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, true);
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).retransformClasses(REDEFINED);
+        verify(instrumentation).isRetransformClassesSupported();
+        verifyNoMoreInteractions(instrumentation);
+        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
+        verifyNoMoreInteractions(typeMatcher);
+        verifyZeroInteractions(initializationStrategy);
+        verifyZeroInteractions(installationStrategy);
+    }
+
+    @Test
+    public void testSkipRetransformationWithUnchangedClassFile() throws Exception {
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.isActive()).thenReturn(true);
+        when(changeDetection.make()).thenReturn(registry);
+        when(registry.isUnchanged(eq(REDEFINED), eq(BAZ), any(ClassFileLocator.class))).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verify(listener).onIgnored(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verify(listener).onComplete(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verifyNoMoreInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, true);
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).isRetransformClassesSupported();
+        verifyNoMoreInteractions(instrumentation);
+        verify(dispatcher).apply(builder);
+        verify(dispatcher, never()).register(any(DynamicType.class), any(ClassLoader.class), any(AgentBuilder.InitializationStrategy.Dispatcher.InjectorFactory.class));
+        verifyZeroInteractions(installationStrategy);
+    }
+
+    @Test
+    public void testSuccessfulWithRetransformationChangedClassFile() throws Exception {
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.isActive()).thenReturn(true);
+        when(changeDetection.make()).thenReturn(registry);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verifyZeroInteractions(listener);
+        verify(changeDetection).isActive();
+        verify(changeDetection).make();
+        verifyNoMoreInteractions(changeDetection);
+        verify(registry).isUnchanged(eq(REDEFINED), eq(BAZ), any(ClassFileLocator.class));
+        verifyNoMoreInteractions(registry);
+        verify(instrumentation).addTransformer(classFileTransformer, true);
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isModifiableClass(REDEFINED);
+        verify(instrumentation).retransformClasses(REDEFINED);
+        verify(instrumentation).isRetransformClassesSupported();
+        verifyNoMoreInteractions(instrumentation);
+        verifyZeroInteractions(installationStrategy);
+    }
+
+    @Test
+    public void testSuccessfulWithRetransformationNotSelfContained() throws Exception {
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        when(dynamicType.hasAliveLoadedTypeInitializers()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.isActive()).thenReturn(true);
+        when(changeDetection.make()).thenReturn(registry);
+        when(registry.isUnchanged(eq(REDEFINED), eq(BAZ), any(ClassFileLocator.class))).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
         verifyZeroInteractions(listener);
-        verify(instrumentation).addTransformer(classFileTransformer, false);
-        verify(instrumentation).isRedefineClassesSupported();
-        verify(instrumentation).getAllLoadedClasses();
-        verify(instrumentation).isModifiableClass(REDEFINED);
-        verify(instrumentation).removeTransformer(classFileTransformer);
-        verifyNoMoreInteractions(instrumentation);
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
-        verifyNoMoreInteractions(typeMatcher);
+        verify(changeDetection).isActive();
+        verify(changeDetection).make();
+        verifyNoMoreInteractions(changeDetection);
+        verifyZeroInteractions(registry);
+        verify(instrumentation).retransformClasses(REDEFINED);
+        verify(dispatcher, never()).register(any(DynamicType.class), any(ClassLoader.class), any(AgentBuilder.InitializationStrategy.Dispatcher.InjectorFactory.class));
+        verifyZeroInteractions(installationStrategy);
     }
 
     @Test
-    public void testResetRetransformationWithError() throws Exception {
-        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+    public void testChangeDetectionReleasesCircularityLock() throws Exception {
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        final AgentBuilder.CircularityLock circularityLock = new AgentBuilder.CircularityLock.Default();
+        final AtomicBoolean released = new AtomicBoolean();
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.isActive()).thenReturn(true);
+        when(changeDetection.make()).thenReturn(registry);
+        when(registry.isUnchanged(eq(REDEFINED), eq(BAZ), any(ClassFileLocator.class))).then(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocationOnMock) throws Throwable {
+                if (circularityLock.acquire()) {
+                    released.set(true);
+                    circularityLock.release();
+                }
+                return false;
+            }
+        });
+        new AgentBuilder.Default(byteBuddy)
                 .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
+                .with(circularityLock)
                 .with(poolStrategy)
                 .with(typeStrategy)
                 .with(installationStrategy)
@@ -440,114 +1141,74 @@ public class AgentBuilderDefaultTest {
                 .ignore(none())
                 .type(typeMatcher).transform(transformer)
                 .installOn(instrumentation);
-        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
-        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
-        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
-        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
-        Throwable throwable = new RuntimeException();
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
-                .thenThrow(throwable);
-        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
-        assertThat(reset.isApplied(), is(true));
-        assertThat(reset.getErrors().size(), is(1));
-        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
-        verifyZeroInteractions(listener);
-        verify(instrumentation).addTransformer(classFileTransformer, false);
-        verify(instrumentation).isRetransformClassesSupported();
-        verify(instrumentation).getAllLoadedClasses();
-        verify(instrumentation).isModifiableClass(REDEFINED);
-        verify(instrumentation).removeTransformer(classFileTransformer);
-        verifyNoMoreInteractions(instrumentation);
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
-        verifyNoMoreInteractions(typeMatcher);
+        verify(registry).isUnchanged(eq(REDEFINED), eq(BAZ), any(ClassFileLocator.class));
+        verify(instrumentation).retransformClasses(REDEFINED);
+        assertThat(released.get(), is(true));
+        assertThat(circularityLock.acquire(), is(true));
+        circularityLock.release();
+        verifyZeroInteractions(installationStrategy);
     }
 
     @Test
-    public void testResetRedefinitionWithErrorFromFallback() throws Exception {
-        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+    public void testChangeDetectionRegistersEmittedClassFile() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.make()).thenReturn(registry);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
                 .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
                 .with(poolStrategy)
                 .with(typeStrategy)
                 .with(installationStrategy)
-                .with(AgentBuilder.FallbackStrategy.Simple.ENABLED)
                 .with(listener)
                 .disableNativeMethodPrefix()
                 .ignore(none())
                 .type(typeMatcher).transform(transformer)
                 .installOn(instrumentation);
-        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
-        when(instrumentation.isRedefineClassesSupported()).thenReturn(true);
-        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
-        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
-        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
-        Throwable throwable = new RuntimeException(), suppressed = new RuntimeException();
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
-                .thenThrow(suppressed);
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
-                .thenThrow(throwable);
-        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.REDEFINITION);
-        assertThat(reset.isApplied(), is(true));
-        assertThat(reset.getErrors().size(), is(1));
-        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
-        verifyZeroInteractions(listener);
-        verify(instrumentation).addTransformer(classFileTransformer, false);
-        verify(instrumentation).isRedefineClassesSupported();
-        verify(instrumentation).getAllLoadedClasses();
-        verify(instrumentation).isModifiableClass(REDEFINED);
-        verify(instrumentation).removeTransformer(classFileTransformer);
-        verifyNoMoreInteractions(instrumentation);
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain());
-        verifyNoMoreInteractions(typeMatcher);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), is(BAZ));
+        verify(registry).register(REDEFINED.getClassLoader(), REDEFINED.getName(), BAZ);
+        verifyNoMoreInteractions(registry);
     }
 
     @Test
-    public void testResetRetransformationWithErrorFromFallback() throws Exception {
-        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+    public void testChangeDetectionIgnoresUntransformedClassFile() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.make()).thenReturn(registry);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
                 .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
                 .with(poolStrategy)
                 .with(typeStrategy)
                 .with(installationStrategy)
-                .with(AgentBuilder.FallbackStrategy.Simple.ENABLED)
                 .with(listener)
                 .disableNativeMethodPrefix()
                 .ignore(none())
                 .type(typeMatcher).transform(transformer)
                 .installOn(instrumentation);
-        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
-        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
-        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
-        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED});
-        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
-        Throwable throwable = new RuntimeException(), suppressed = new RuntimeException();
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
-                .thenThrow(suppressed);
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain()))
-                .thenThrow(throwable);
-        ResettableClassFileTransformer.Reset reset = classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
-        assertThat(reset.isApplied(), is(true));
-        assertThat(reset.getErrors().size(), is(1));
-        assertThat(reset.getErrors().get(REDEFINED), sameInstance(throwable));
-        verifyZeroInteractions(listener);
-        verify(instrumentation).addTransformer(classFileTransformer, false);
-        verify(instrumentation).isRetransformClassesSupported();
-        verify(instrumentation).getAllLoadedClasses();
-        verify(instrumentation).isModifiableClass(REDEFINED);
-        verify(instrumentation).removeTransformer(classFileTransformer);
-        verifyNoMoreInteractions(instrumentation);
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), null, REDEFINED.getProtectionDomain());
-        verifyNoMoreInteractions(typeMatcher);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX), nullValue(byte[].class));
+        verifyZeroInteractions(registry);
     }
 
     @Test
-    public void testSuccessfulWithRetransformationMatched() throws Exception {
-        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain())).thenReturn(true);
-        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+    public void testChangeDetectionInvalidatesUntransformedRetransformation() throws Exception {
+        when(resolution.resolve()).thenReturn(new TypeDescription.ForLoadedType(REDEFINED));
+        AgentBuilder.RedefinitionStrategy.ChangeDetection changeDetection = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.class);
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = mock(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.class);
+        when(changeDetection.make()).thenReturn(registry);
         when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
         ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
                 .with(initializationStrategy)
                 .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .with(changeDetection)
                 .with(poolStrategy)
                 .with(typeStrategy)
                 .with(installationStrategy)
@@ -556,17 +1217,49 @@ public class AgentBuilderDefaultTest {
                 .ignore(none())
                 .type(typeMatcher).transform(transformer)
                 .installOn(instrumentation);
-        verifyZeroInteractions(listener);
-        verify(instrumentation).addTransformer(classFileTransformer, true);
-        verify(instrumentation).getAllLoadedClasses();
-        verify(instrumentation).isModifiableClass(REDEFINED);
-        verify(instrumentation).retransformClasses(REDEFINED);
-        verify(instrumentation).isRetransformClassesSupported();
-        verifyNoMoreInteractions(instrumentation);
-        verify(typeMatcher).matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain());
-        verifyNoMoreInteractions(typeMatcher);
-        verifyZeroInteractions(initializationStrategy);
-        verifyZeroInteractions(installationStrategy);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), REDEFINED, REDEFINED.getProtectionDomain(), QUX), nullValue(byte[].class));
+        verify(registry).invalidate(REDEFINED.getClassLoader(), REDEFINED.getName());
+        verifyNoMoreInteractions(registry);
+    }
+
+    @Test
+    public void testSuccessfulWithRetransformationMatchedParallelDiscovery() throws Exception {
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{REDEFINED, OTHER, AUXILIARY});
+        when(typeMatcher.matches(eq(new TypeDescription.ForLoadedType(REDEFINED)), any(ClassLoader.class), any(JavaModule.class), any(Class.class), any(ProtectionDomain.class)))
+                .thenReturn(true);
+        when(typeMatcher.matches(eq(new TypeDescription.ForLoadedType(AUXILIARY)), any(ClassLoader.class), any(JavaModule.class), any(Class.class), any(ProtectionDomain.class)))
+                .thenReturn(true);
+        when(instrumentation.isModifiableClass(any(Class.class))).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                    .with(initializationStrategy)
+                    .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                    .with(new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel(executorService, 1))
+                    .with(poolStrategy)
+                    .with(typeStrategy)
+                    .with(installationStrategy)
+                    .with(listener)
+                    .disableNativeMethodPrefix()
+                    .ignore(none())
+                    .type(typeMatcher).transform(transformer)
+                    .installOn(instrumentation);
+            verify(listener).onIgnored(new TypeDescription.ForLoadedType(OTHER), OTHER.getClassLoader(), JavaModule.ofType(OTHER));
+            verify(listener).onComplete(OTHER.getName(), OTHER.getClassLoader(), JavaModule.ofType(OTHER));
+            verifyNoMoreInteractions(listener);
+            verify(instrumentation).addTransformer(classFileTransformer, true);
+            verify(instrumentation).getAllLoadedClasses();
+            verify(instrumentation).isModifiableClass(REDEFINED);
+            verify(instrumentation).isModifiableClass(OTHER);
+            verify(instrumentation).isModifiableClass(AUXILIARY);
+            verify(instrumentation).retransformClasses(REDEFINED, AUXILIARY);
+            verify(instrumentation).isRetransformClassesSupported();
+            verifyNoMoreInteractions(instrumentation);
+            verifyZeroInteractions(installationStrategy);
+        } finally {
+            executorService.shutdown();
+        }
     }
 
     @Test
@@ -1203,6 +1896,33 @@ public class AgentBuilderDefaultTest {
         verifyZeroInteractions(installationStrategy);
     }
 
+    @Test
+    public void testSkipRedefinitionWithPrefilteredType() throws Exception {
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRedefineClassesSupported()).thenReturn(true);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.REDEFINITION)
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .withPrefilter(new AgentBuilder.Prefilter.ForNamePrefixes(REDEFINED.getName()))
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verifyZeroInteractions(listener);
+        verify(instrumentation).addTransformer(classFileTransformer, false);
+        verify(instrumentation).getAllLoadedClasses();
+        verify(instrumentation).isRedefineClassesSupported();
+        verifyNoMoreInteractions(instrumentation);
+        verifyZeroInteractions(poolStrategy);
+        verifyZeroInteractions(typeMatcher);
+        verifyZeroInteractions(initializationStrategy);
+        verifyZeroInteractions(installationStrategy);
+    }
+
     @Test
     public void testSkipRedefinitionWithIgnoredClassLoader() throws Exception {
         when(dynamicType.getBytes()).thenReturn(BAZ);
@@ -1560,6 +2280,126 @@ public class AgentBuilderDefaultTest {
         verifyZeroInteractions(installationStrategy);
     }
 
+    @Test
+    public void testResubmissionOfFailedType() throws Exception {
+        RuntimeException exception = new RuntimeException();
+        when(resolution.resolve()).thenThrow(exception);
+        when(typeMatcher.matches(new TypeDescription.ForLoadedType(REDEFINED), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), REDEFINED, REDEFINED.getProtectionDomain()))
+                .thenReturn(true);
+        when(instrumentation.isModifiableClass(REDEFINED)).thenReturn(true);
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable cancelable = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.class);
+        when(resubmissionScheduler.isAlive()).thenReturn(true);
+        when(resubmissionScheduler.schedule(any(Runnable.class))).thenReturn(cancelable);
+        ClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(initializationStrategy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .withResubmission(new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler, 0L, 0L, TimeUnit.SECONDS, 1))
+                .with(poolStrategy)
+                .with(typeStrategy)
+                .with(installationStrategy)
+                .with(listener)
+                .disableNativeMethodPrefix()
+                .ignore(none())
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        verify(resubmissionScheduler).schedule(job.capture());
+        verify(instrumentation).retransformClasses(REDEFINED);
+        assertThat(transform(classFileTransformer, JavaModule.ofType(REDEFINED), REDEFINED.getClassLoader(), REDEFINED.getName(), null, REDEFINED.getProtectionDomain(), QUX),
+                nullValue(byte[].class));
+        verify(listener).onError(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED), exception);
+        verify(listener).onComplete(REDEFINED.getName(), REDEFINED.getClassLoader(), JavaModule.ofType(REDEFINED));
+        verifyNoMoreInteractions(listener);
+        job.getValue().run();
+        verify(instrumentation, times(2)).getAllLoadedClasses();
+        verify(instrumentation, times(2)).retransformClasses(REDEFINED);
+        job.getValue().run();
+        verify(instrumentation, times(2)).getAllLoadedClasses();
+        verify(instrumentation, times(2)).retransformClasses(REDEFINED);
+        verifyZeroInteractions(installationStrategy);
+        verifyZeroInteractions(cancelable);
+    }
+
+    @Test
+    public void testResubmissionIsCanceledOnReset() throws Exception {
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable cancelable = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.class);
+        when(resubmissionScheduler.isAlive()).thenReturn(true);
+        when(resubmissionScheduler.schedule(any(Runnable.class))).thenReturn(cancelable);
+        ResettableClassFileTransformer classFileTransformer = new AgentBuilder.Default(byteBuddy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .withResubmission(new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler))
+                .with(installationStrategy)
+                .disableNativeMethodPrefix()
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verifyZeroInteractions(cancelable);
+        when(instrumentation.removeTransformer(classFileTransformer)).thenReturn(true);
+        classFileTransformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.DISABLED);
+        verify(cancelable).cancel();
+        verifyNoMoreInteractions(cancelable);
+    }
+
+    @Test
+    public void testResubmissionIsCanceledOnInstallationFailure() throws Exception {
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenThrow(new RuntimeException());
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable cancelable = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.class);
+        when(resubmissionScheduler.isAlive()).thenReturn(true);
+        when(resubmissionScheduler.schedule(any(Runnable.class))).thenReturn(cancelable);
+        try {
+            new AgentBuilder.Default(byteBuddy)
+                    .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                    .withResubmission(new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler))
+                    .with(AgentBuilder.InstallationStrategy.Default.ESCALATING)
+                    .disableNativeMethodPrefix()
+                    .type(typeMatcher).transform(transformer)
+                    .installOn(instrumentation);
+            fail();
+        } catch (IllegalStateException ignored) {
+            /* expected */
+        }
+        verify(cancelable).cancel();
+        verifyNoMoreInteractions(cancelable);
+    }
+
+    @Test
+    public void testResubmissionIsRetainedOnSuppressedInstallationFailure() throws Exception {
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        when(instrumentation.getAllLoadedClasses()).thenThrow(new RuntimeException());
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable cancelable = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.class);
+        when(resubmissionScheduler.isAlive()).thenReturn(true);
+        when(resubmissionScheduler.schedule(any(Runnable.class))).thenReturn(cancelable);
+        new AgentBuilder.Default(byteBuddy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .withResubmission(new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler))
+                .with(AgentBuilder.InstallationStrategy.Default.SUPPRESSING)
+                .disableNativeMethodPrefix()
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verifyZeroInteractions(cancelable);
+    }
+
+    @Test
+    public void testNoResubmissionWithoutAliveScheduler() throws Exception {
+        when(instrumentation.isRetransformClassesSupported()).thenReturn(true);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class);
+        new AgentBuilder.Default(byteBuddy)
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+                .withResubmission(new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler))
+                .with(installationStrategy)
+                .disableNativeMethodPrefix()
+                .type(typeMatcher).transform(transformer)
+                .installOn(instrumentation);
+        verify(resubmissionScheduler).isAlive();
+        verifyNoMoreInteractions(resubmissionScheduler);
+    }
+
     @Test
     public void testIgnored() throws Exception {
         when(dynamicType.getBytes()).thenReturn(BAZ);
@@ -1827,6 +2667,12 @@ public class AgentBuilderDefaultTest {
                 AgentBuilder.LambdaInstrumentationStrategy.DISABLED,
                 AgentBuilder.DescriptionStrategy.Default.HYBRID,
                 mock(AgentBuilder.FallbackStrategy.class),
+                AgentBuilder.Prefilter.NoOp.INSTANCE,
+                AgentBuilder.Metrics.NoOp.INSTANCE,
+                AgentBuilder.TransformationCache.NoOp.INSTANCE,
+                AgentBuilder.DeduplicationStrategy.Disabled.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE,
                 mock(AgentBuilder.RawMatcher.class),
                 mock(AgentBuilder.Default.Transformation.class),
                 new AgentBuilder.CircularityLock.Default())
@@ -1858,6 +2704,12 @@ public class AgentBuilderDefaultTest {
                 AgentBuilder.LambdaInstrumentationStrategy.DISABLED,
                 AgentBuilder.DescriptionStrategy.Default.HYBRID,
                 mock(AgentBuilder.FallbackStrategy.class),
+                AgentBuilder.Prefilter.NoOp.INSTANCE,
+                AgentBuilder.Metrics.NoOp.INSTANCE,
+                AgentBuilder.TransformationCache.NoOp.INSTANCE,
+                AgentBuilder.DeduplicationStrategy.Disabled.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE,
                 mock(AgentBuilder.RawMatcher.class),
                 mock(AgentBuilder.Default.Transformation.class),
                 new AgentBuilder.Default.CircularityLock.Default());
@@ -1896,6 +2748,12 @@ public class AgentBuilderDefaultTest {
                 AgentBuilder.LambdaInstrumentationStrategy.DISABLED,
                 AgentBuilder.DescriptionStrategy.Default.HYBRID,
                 mock(AgentBuilder.FallbackStrategy.class),
+                AgentBuilder.Prefilter.NoOp.INSTANCE,
+                AgentBuilder.Metrics.NoOp.INSTANCE,
+                AgentBuilder.TransformationCache.NoOp.INSTANCE,
+                AgentBuilder.DeduplicationStrategy.Disabled.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE,
+                AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE,
                 mock(AgentBuilder.RawMatcher.class),
                 mock(AgentBuilder.Default.Transformation.class),
                 new AgentBuilder.CircularityLock.Default());
@@ -1985,6 +2843,101 @@ public class AgentBuilderDefaultTest {
         assertThat(failures.get(Foo.class), is(throwable));
     }
 
+    @Test
+    public void testIndexedTransformationWithoutKeysIsNotIndexed() throws Exception {
+        AgentBuilder.Default.Transformation transformation = new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(typeMatcher, transformer, false),
+                AgentBuilder.Default.Transformation.Ignored.INSTANCE);
+        assertThat(AgentBuilder.Default.Transformation.Indexed.of(transformation), sameInstance(transformation));
+    }
+
+    @Test
+    public void testIndexedTransformationSkipsNonCandidates() throws Exception {
+        AgentBuilder.RawMatcher rawMatcher = mock(AgentBuilder.RawMatcher.class);
+        AgentBuilder.Default.Transformation transformation = AgentBuilder.Default.Transformation.Indexed.of(new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.Conjunction(
+                        new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.named(Foo.class.getName()), ElementMatchers.any(), ElementMatchers.any()),
+                        rawMatcher), transformer, false),
+                AgentBuilder.Default.Transformation.Ignored.INSTANCE));
+        assertThat(transformation, instanceOf(AgentBuilder.Default.Transformation.Indexed.class));
+        TypeDescription typeDescription = new TypeDescription.ForLoadedType(Object.class);
+        assertThat(transformation.matches(typeDescription, null, null, null, null), is(false));
+        assertThat(transformation.resolve(typeDescription, null, null, null, null, typePool).getSort(),
+                is(AgentBuilder.Default.Transformation.Resolution.Sort.UNDEFINED));
+        verifyZeroInteractions(rawMatcher);
+    }
+
+    @Test
+    public void testIndexedTransformationAppliesCandidates() throws Exception {
+        AgentBuilder.RawMatcher rawMatcher = mock(AgentBuilder.RawMatcher.class);
+        when(rawMatcher.matches(any(TypeDescription.class), any(ClassLoader.class), any(JavaModule.class), any(Class.class), any(ProtectionDomain.class)))
+                .thenReturn(true);
+        AgentBuilder.Default.Transformation compound = new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.Conjunction(
+                        new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.isSubTypeOf(Foo.class), ElementMatchers.any(), ElementMatchers.any()),
+                        rawMatcher), transformer, true),
+                new AgentBuilder.Default.Transformation.Simple(rawMatcher, transformer, false),
+                AgentBuilder.Default.Transformation.Ignored.INSTANCE);
+        AgentBuilder.Default.Transformation transformation = AgentBuilder.Default.Transformation.Indexed.of(compound);
+        assertThat(transformation, instanceOf(AgentBuilder.Default.Transformation.Indexed.class));
+        TypeDescription typeDescription = new TypeDescription.ForLoadedType(Foo.class);
+        assertThat(transformation.matches(typeDescription, null, null, null, null), is(true));
+        AgentBuilder.Default.Transformation.Resolution resolution = transformation.resolve(typeDescription, null, null, null, null, typePool);
+        assertThat(resolution.getSort(), is(AgentBuilder.Default.Transformation.Resolution.Sort.DECORATOR));
+        assertThat(resolution, is(compound.resolve(typeDescription, null, null, null, null, typePool)));
+        verify(rawMatcher, times(5)).matches(typeDescription, null, null, null, null);
+    }
+
+    @Test
+    public void testIndexedTransformationOfNamesDoesNotResolveHierarchy() throws Exception {
+        AgentBuilder.Default.Transformation transformation = AgentBuilder.Default.Transformation.Indexed.of(new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.named(FOO),
+                        ElementMatchers.any(),
+                        ElementMatchers.any()), transformer, false),
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.named(Bar.class.getName())
+                        .and(ElementMatchers.isSubTypeOf(Foo.class)),
+                        ElementMatchers.any(),
+                        ElementMatchers.any()), transformer, false)));
+        TypeDescription typeDescription = mock(TypeDescription.class);
+        when(typeDescription.getActualName()).thenReturn(Qux.class.getName());
+        assertThat(transformation.resolve(typeDescription, null, null, null, null, typePool).getSort(),
+                is(AgentBuilder.Default.Transformation.Resolution.Sort.UNDEFINED));
+        verify(typeDescription, never()).getSuperClass();
+        verify(typeDescription, never()).getInterfaces();
+        verify(typeDescription, never()).getDeclaredAnnotations();
+    }
+
+    @Test
+    public void testIndexedTransformationResolvesHierarchyOnlyWhenConsulted() throws Exception {
+        AgentBuilder.RawMatcher rawMatcher = mock(AgentBuilder.RawMatcher.class);
+        when(rawMatcher.matches(any(TypeDescription.class), any(ClassLoader.class), any(JavaModule.class), any(Class.class), any(ProtectionDomain.class)))
+                .thenReturn(true);
+        AgentBuilder.Default.Transformation transformation = AgentBuilder.Default.Transformation.Indexed.of(new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(rawMatcher, transformer, false),
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.isSubTypeOf(Foo.class),
+                        ElementMatchers.any(),
+                        ElementMatchers.any()), transformer, false)));
+        TypeDescription typeDescription = mock(TypeDescription.class);
+        when(typeDescription.getActualName()).thenReturn(Qux.class.getName());
+        assertThat(transformation.resolve(typeDescription, null, null, null, null, typePool).getSort(),
+                is(AgentBuilder.Default.Transformation.Resolution.Sort.TERMINAL));
+        verify(typeDescription, never()).getSuperClass();
+        verify(typeDescription, never()).getInterfaces();
+    }
+
+    @Test
+    public void testIndexedTransformationEquality() throws Exception {
+        AgentBuilder.Default.Transformation transformation = new AgentBuilder.Default.Transformation.Compound(
+                new AgentBuilder.Default.Transformation.Simple(new AgentBuilder.RawMatcher.ForElementMatchers(ElementMatchers.named(FOO),
+                        ElementMatchers.any(),
+                        ElementMatchers.any()), transformer, false),
+                AgentBuilder.Default.Transformation.Ignored.INSTANCE);
+        assertThat(AgentBuilder.Default.Transformation.Indexed.of(transformation), is(AgentBuilder.Default.Transformation.Indexed.of(transformation)));
+        assertThat(AgentBuilder.Default.Transformation.Indexed.of(transformation).hashCode(),
+                is(AgentBuilder.Default.Transformation.Indexed.of(transformation).hashCode()));
+        assertThat(AgentBuilder.Default.Transformation.Indexed.of(transformation).toString(), containsString(FOO));
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(AgentBuilder.Default.class).apply();
@@ -1995,6 +2948,7 @@ public class AgentBuilderDefaultTest {
         ObjectPropertyAssertion.of(AgentBuilder.Default.Transformation.Ignored.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.Transformation.Compound.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.Transformation.Resolution.Unresolved.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.Default.Transformation.Resolution.Cached.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.Transformation.Resolution.Sort.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.BootstrapInjectionStrategy.Enabled.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.BootstrapInjectionStrategy.Disabled.class).apply();
@@ -2029,6 +2983,8 @@ public class AgentBuilderDefaultTest {
         }).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.ExecutingTransformer.Factory.ForLegacyVm.class).apply();
         ObjectPropertyAssertion.of(AgentBuilder.Default.ExecutingTransformer.FailureCollectingListener.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.Default.LoadedTypeDiscovery.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.Default.LoadedTypeResubmitter.class).apply();
     }
 
     public static class Foo {
@@ -0,0 +1,222 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import net.bytebuddy.utility.JavaModule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderListenerAsynchronousTest {
+
+    private static final String FOO = "foo", BAR = "bar";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private AgentBuilder.Listener delegate;
+
+    @Mock
+    private TypeDescription typeDescription;
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Mock
+    private JavaModule module;
+
+    @Mock
+    private DynamicType dynamicType;
+
+    @Mock
+    private Throwable throwable;
+
+    @Test
+    public void testDispatchInOrder() throws Exception {
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(delegate);
+        listener.onTransformation(typeDescription, classLoader, module, dynamicType);
+        listener.onIgnored(typeDescription, classLoader, module);
+        listener.onError(FOO, classLoader, module, throwable);
+        listener.onComplete(FOO, classLoader, module);
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).onTransformation(typeDescription, classLoader, module, dynamicType);
+        inOrder.verify(delegate).onIgnored(typeDescription, classLoader, module);
+        inOrder.verify(delegate).onError(FOO, classLoader, module, throwable);
+        inOrder.verify(delegate).onComplete(FOO, classLoader, module);
+        verifyNoMoreInteractions(delegate);
+        assertThat(listener.getDropped(), is(0L));
+    }
+
+    @Test
+    public void testDispatcherThreadIsStartedOnFirstEvent() throws Exception {
+        final AtomicReference<Thread> reference = new AtomicReference<Thread>();
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(new AgentBuilder.Listener.Adapter() {
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+                reference.set(Thread.currentThread());
+            }
+        });
+        listener.onComplete(FOO, classLoader, module);
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(reference.get().isDaemon(), is(true));
+        assertThat(reference.get().getName(), is("byte-buddy-listener-dispatcher"));
+    }
+
+    @Test
+    public void testCloseWithoutEvents() throws Exception {
+        assertThat(new AgentBuilder.Listener.Asynchronous(delegate).close(10, TimeUnit.SECONDS), is(true));
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void testDropAfterClose() throws Exception {
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(delegate);
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        listener.onComplete(FOO, classLoader, module);
+        verifyZeroInteractions(delegate);
+        assertThat(listener.getDropped(), is(1L));
+    }
+
+    @Test
+    public void testDropOnOverflow() throws Exception {
+        BlockingListener blockingListener = new BlockingListener();
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(blockingListener,
+                2,
+                AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default.DROP);
+        listener.onComplete(FOO, classLoader, module);
+        assertThat(blockingListener.started.await(10, TimeUnit.SECONDS), is(true));
+        for (int index = 0; index < 10; index++) {
+            listener.onComplete(BAR, classLoader, module);
+        }
+        assertThat(listener.getDropped(), is(8L));
+        blockingListener.release.countDown();
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(blockingListener.completed.get(), is(3));
+    }
+
+    @Test
+    public void testBlockOnOverflow() throws Exception {
+        final BlockingListener blockingListener = new BlockingListener();
+        final AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(blockingListener,
+                1,
+                AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default.BLOCK);
+        listener.onComplete(FOO, classLoader, module);
+        assertThat(blockingListener.started.await(10, TimeUnit.SECONDS), is(true));
+        listener.onComplete(BAR, classLoader, module);
+        listener.onComplete(BAR, classLoader, module);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listener.onComplete(BAR, classLoader, module);
+            }
+        });
+        thread.start();
+        thread.join(100L);
+        assertThat(thread.isAlive(), is(true));
+        blockingListener.release.countDown();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertThat(thread.isAlive(), is(false));
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(blockingListener.completed.get(), is(4));
+        assertThat(listener.getDropped(), is(0L));
+    }
+
+    @Test
+    public void testDispatchFromDispatcherThread() throws Exception {
+        final AtomicReference<AgentBuilder.Listener> reference = new AtomicReference<AgentBuilder.Listener>();
+        final AtomicInteger count = new AtomicInteger();
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(new AgentBuilder.Listener.Adapter() {
+            @Override
+            public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+                count.incrementAndGet();
+                if (typeName.equals(FOO)) {
+                    reference.get().onComplete(BAR, classLoader, module);
+                }
+            }
+        }, 1, AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default.BLOCK);
+        reference.set(listener);
+        listener.onComplete(FOO, classLoader, module);
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(count.get(), is(2));
+    }
+
+    @Test
+    public void testDelegateExceptionIsSuppressed() throws Exception {
+        doThrow(new RuntimeException()).when(delegate).onComplete(FOO, classLoader, module);
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(delegate);
+        listener.onComplete(FOO, classLoader, module);
+        listener.onComplete(BAR, classLoader, module);
+        assertThat(listener.close(10, TimeUnit.SECONDS), is(true));
+        verify(delegate).onComplete(FOO, classLoader, module);
+        verify(delegate).onComplete(BAR, classLoader, module);
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        AgentBuilder.Listener.Asynchronous.OverflowPolicy overflowPolicy = new AgentBuilder.Listener.Asynchronous.OverflowPolicy.Sampling(3);
+        assertThat(overflowPolicy.isBlocking(0L), is(true));
+        assertThat(overflowPolicy.isBlocking(1L), is(false));
+        assertThat(overflowPolicy.isBlocking(2L), is(false));
+        assertThat(overflowPolicy.isBlocking(3L), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalSamplingRate() throws Exception {
+        new AgentBuilder.Listener.Asynchronous.OverflowPolicy.Sampling(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity() throws Exception {
+        new AgentBuilder.Listener.Asynchronous(delegate, 0, AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default.DROP);
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        AgentBuilder.Listener.Asynchronous listener = new AgentBuilder.Listener.Asynchronous(delegate);
+        try {
+            assertThat(listener.toString(), containsString("capacity=" + AgentBuilder.Listener.Asynchronous.DEFAULT_CAPACITY));
+        } finally {
+            listener.close();
+        }
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Listener.Asynchronous.OverflowPolicy.Default.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.Listener.Asynchronous.OverflowPolicy.Sampling.class).apply();
+    }
+
+    private static class BlockingListener extends AgentBuilder.Listener.Adapter {
+
+        private final CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+
+        private final AtomicInteger completed = new AtomicInteger();
+
+        @Override
+        public void onComplete(String typeName, ClassLoader classLoader, JavaModule module) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                throw new AssertionError(exception);
+            }
+            completed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.utility.JavaModule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderLocationStrategyIndexingTest {
+
+    private static final String FOO = "foo.Bar";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Mock
+    private JavaModule module;
+
+    @Test
+    public void testUrlClassLoaderIsIndexedOnce() throws Exception {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+        AgentBuilder.LocationStrategy.Indexing locationStrategy = new AgentBuilder.LocationStrategy.Indexing();
+        ClassFileLocator classFileLocator = locationStrategy.classFileLocator(classLoader, module);
+        assertThat(classFileLocator, instanceOf(ClassFileLocator.ForClassLoader.Indexed.class));
+        assertThat(locationStrategy.classFileLocator(classLoader, module), sameInstance(classFileLocator));
+        locationStrategy.clear();
+        assertThat(locationStrategy.classFileLocator(classLoader, module), not(sameInstance(classFileLocator)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClearClosesIndex() throws Exception {
+        AgentBuilder.LocationStrategy.Indexing locationStrategy = new AgentBuilder.LocationStrategy.Indexing();
+        ClassFileLocator classFileLocator = locationStrategy.classFileLocator(new URLClassLoader(new URL[]{jarFile()}, null), module);
+        assertThat(classFileLocator.locate(FOO).isResolved(), is(true));
+        locationStrategy.clear();
+        classFileLocator.locate(FOO);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCollectedClassLoaderClosesIndex() throws Exception {
+        AgentBuilder.LocationStrategy.Indexing locationStrategy = new AgentBuilder.LocationStrategy.Indexing();
+        ClassFileLocator classFileLocator = locationStrategy.classFileLocator(new URLClassLoader(new URL[]{jarFile()}, null), module);
+        Field field = ClassFileLocator.ForClassLoader.Indexed.class.getDeclaredField("index");
+        field.setAccessible(true);
+        ClassFileLocator index = (ClassFileLocator) field.get(classFileLocator);
+        assertThat(index.locate(FOO).isResolved(), is(true));
+        assertThat(((Reference<?>) classFileLocator).enqueue(), is(true));
+        locationStrategy.classFileLocator(new URLClassLoader(new URL[0], null), module);
+        index.locate(FOO);
+    }
+
+    private URL jarFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+        try {
+            jarOutputStream.putNextEntry(new JarEntry(FOO.replace('.', '/') + ".class"));
+            jarOutputStream.write(new byte[]{1, 2, 3});
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+        return file.toURI().toURL();
+    }
+
+    @Test
+    public void testOtherClassLoader() throws Exception {
+        assertThat(new AgentBuilder.LocationStrategy.Indexing().classFileLocator(classLoader, module),
+                is(ClassFileLocator.ForClassLoader.WeaklyReferenced.of(classLoader)));
+    }
+
+    @Test
+    public void testBootstrapClassLoader() throws Exception {
+        assertThat(new AgentBuilder.LocationStrategy.Indexing().classFileLocator(null, module),
+                is(ClassFileLocator.ForClassLoader.of(null)));
+    }
+}
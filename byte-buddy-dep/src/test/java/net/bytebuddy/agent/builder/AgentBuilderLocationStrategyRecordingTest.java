@@ -0,0 +1,143 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.utility.JavaModule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.lang.instrument.Instrumentation;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderLocationStrategyRecordingTest {
+
+    private static final String FOO = "foo", BAR = "bar";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Mock
+    private JavaModule module;
+
+    @Mock
+    private AgentBuilder.LocationStrategy fallback;
+
+    @Mock
+    private ClassFileLocator classFileLocator;
+
+    @Mock
+    private Instrumentation instrumentation;
+
+    private byte[] binaryRepresentation;
+
+    @Before
+    public void setUp() throws Exception {
+        when(fallback.classFileLocator(any(ClassLoader.class), any(JavaModule.class))).thenReturn(classFileLocator);
+        when(classFileLocator.locate(any(String.class))).thenReturn(new ClassFileLocator.Resolution.Illegal(BAR));
+        binaryRepresentation = new byte[4096];
+        new Random(42).nextBytes(binaryRepresentation);
+    }
+
+    @Test
+    public void testRecordedOnHeap() throws Exception {
+        assertRecorded(new AgentBuilder.LocationStrategy.Recording(fallback, false), classLoader);
+    }
+
+    @Test
+    public void testRecordedOffHeap() throws Exception {
+        assertRecorded(new AgentBuilder.LocationStrategy.Recording(fallback, true), classLoader);
+    }
+
+    @Test
+    public void testRecordedBootstrap() throws Exception {
+        assertRecorded(new AgentBuilder.LocationStrategy.Recording(fallback, false), null);
+    }
+
+    private void assertRecorded(AgentBuilder.LocationStrategy.Recording recording, ClassLoader classLoader) throws Exception {
+        assertThat(recording.transform(classLoader, FOO + "/" + BAR, null, null, binaryRepresentation), nullValue(byte[].class));
+        assertThat(recording.transform(classLoader, FOO + "/" + BAR, null, null, new byte[1]), nullValue(byte[].class));
+        ClassFileLocator classFileLocator = recording.classFileLocator(classLoader, module);
+        assertThat(classFileLocator.locate(FOO + "." + BAR).isResolved(), is(true));
+        assertThat(classFileLocator.locate(FOO + "." + BAR).resolve(), is(binaryRepresentation));
+        assertThat(classFileLocator.locate(BAR).isResolved(), is(false));
+        verify(this.classFileLocator).locate(BAR);
+        recording.clear();
+        assertThat(recording.classFileLocator(classLoader, module).locate(FOO + "." + BAR).isResolved(), is(false));
+    }
+
+    @Test
+    public void testRecordedOffHeapAcrossSlabs() throws Exception {
+        AgentBuilder.LocationStrategy.Recording recording = new AgentBuilder.LocationStrategy.Recording(fallback, true);
+        Random random = new Random(42);
+        byte[][] binaryRepresentations = new byte[128][];
+        for (int index = 0; index < binaryRepresentations.length; index++) {
+            binaryRepresentations[index] = new byte[index == 0 ? 65536 : 4096];
+            random.nextBytes(binaryRepresentations[index]);
+            assertThat(recording.transform(classLoader, FOO + "/" + BAR + index, null, null, binaryRepresentations[index]), nullValue(byte[].class));
+        }
+        ClassFileLocator classFileLocator = recording.classFileLocator(classLoader, module);
+        for (int index = 0; index < binaryRepresentations.length; index++) {
+            assertThat(classFileLocator.locate(FOO + "." + BAR + index).resolve(), is(binaryRepresentations[index]));
+        }
+    }
+
+    @Test
+    public void testRecordedOffHeapForSeveralClassLoaders() throws Exception {
+        AgentBuilder.LocationStrategy.Recording recording = new AgentBuilder.LocationStrategy.Recording(fallback, true);
+        ClassLoader otherClassLoader = mock(ClassLoader.class);
+        byte[] otherBinaryRepresentation = new byte[1024];
+        new Random(0).nextBytes(otherBinaryRepresentation);
+        recording.transform(classLoader, FOO + "/" + BAR, null, null, binaryRepresentation);
+        recording.transform(otherClassLoader, FOO + "/" + BAR, null, null, otherBinaryRepresentation);
+        assertThat(recording.classFileLocator(classLoader, module).locate(FOO + "." + BAR).resolve(), is(binaryRepresentation));
+        assertThat(recording.classFileLocator(otherClassLoader, module).locate(FOO + "." + BAR).resolve(), is(otherBinaryRepresentation));
+    }
+
+    @Test
+    public void testDeflaterPoolIsBounded() throws Exception {
+        AgentBuilder.LocationStrategy.Recording.DeflaterPool deflaterPool = new AgentBuilder.LocationStrategy.Recording.DeflaterPool();
+        Set<Deflater> deflaters = Collections.newSetFromMap(new IdentityHashMap<Deflater, Boolean>());
+        for (int index = 0; index < 5; index++) {
+            deflaters.add(deflaterPool.acquire());
+        }
+        assertThat(deflaters.size(), is(5));
+        for (Deflater deflater : deflaters) {
+            deflaterPool.release(deflater);
+        }
+        int reused = 0;
+        for (int index = 0; index < 5; index++) {
+            reused += deflaters.contains(deflaterPool.acquire()) ? 1 : 0;
+        }
+        assertThat(reused, is(4));
+        deflaterPool.clear();
+    }
+
+    @Test
+    public void testNotRecordedUsesFallback() throws Exception {
+        assertThat(new AgentBuilder.LocationStrategy.Recording(fallback, false).classFileLocator(classLoader, module), is(classFileLocator));
+        verify(fallback).classFileLocator(classLoader, module);
+    }
+
+    @Test
+    public void testInstallation() throws Exception {
+        AgentBuilder.LocationStrategy.Recording recording = new AgentBuilder.LocationStrategy.Recording();
+        assertThat(recording.installOn(instrumentation), is(recording));
+        verify(instrumentation).addTransformer(recording, false);
+        verifyNoMoreInteractions(instrumentation);
+    }
+}
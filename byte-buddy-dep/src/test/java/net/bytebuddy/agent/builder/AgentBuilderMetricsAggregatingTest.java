@@ -0,0 +1,138 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AgentBuilderMetricsAggregatingTest {
+
+    private static final String FOO = "foo";
+
+    @Test
+    public void testPhases() throws Exception {
+        AgentBuilder.Metrics.Aggregating metrics = new AgentBuilder.Metrics.Aggregating(4);
+        assertThat(metrics.isEnabled(), is(true));
+        metrics.onPhase(FOO, AgentBuilder.Metrics.Phase.LOCATE, 3L);
+        metrics.onPhase(FOO, AgentBuilder.Metrics.Phase.LOCATE, 100L);
+        metrics.onPhase(FOO, AgentBuilder.Metrics.Phase.MAKE, 0L);
+        assertThat(metrics.getPhaseCount(AgentBuilder.Metrics.Phase.LOCATE), is(2L));
+        assertThat(metrics.getPhaseNanos(AgentBuilder.Metrics.Phase.LOCATE), is(103L));
+        assertThat(metrics.getPhasePercentileNanos(AgentBuilder.Metrics.Phase.LOCATE, 50d), is(3L));
+        assertThat(metrics.getPhasePercentileNanos(AgentBuilder.Metrics.Phase.LOCATE, 100d), is(127L));
+        assertThat(metrics.getPhaseCount(AgentBuilder.Metrics.Phase.MAKE), is(1L));
+        assertThat(metrics.getPhasePercentileNanos(AgentBuilder.Metrics.Phase.MAKE, 100d), is(0L));
+        assertThat(metrics.getPhaseCount(AgentBuilder.Metrics.Phase.MATCH), is(0L));
+        assertThat(metrics.getPhasePercentileNanos(AgentBuilder.Metrics.Phase.MATCH, 99d), is(0L));
+    }
+
+    @Test
+    public void testCompletion() throws Exception {
+        AgentBuilder.Metrics.Aggregating metrics = new AgentBuilder.Metrics.Aggregating();
+        metrics.onComplete(FOO, null, null, 10, 20, 5L);
+        metrics.onComplete(FOO, null, null, 30, -1, 7L);
+        assertThat(metrics.getTransformationCount(), is(2L));
+        assertThat(metrics.getTransformedCount(), is(1L));
+        assertThat(metrics.getTotalNanos(), is(12L));
+        assertThat(metrics.getBytesRead(), is(40L));
+        assertThat(metrics.getBytesWritten(), is(20L));
+        assertThat(metrics.getPercentileNanos(100d), is(7L));
+        assertThat(metrics.snapshot().getCount(), is(2L));
+        assertThat(metrics.snapshot().getBuckets()[3], is(2L));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        AgentBuilder.Metrics.Aggregating metrics = new AgentBuilder.Metrics.Aggregating(1);
+        metrics.onPhase(FOO, AgentBuilder.Metrics.Phase.BUILD, 3L);
+        metrics.onComplete(FOO, null, null, 10, 20, 5L);
+        metrics.reset();
+        assertThat(metrics.getPhaseCount(AgentBuilder.Metrics.Phase.BUILD), is(0L));
+        assertThat(metrics.getTransformationCount(), is(0L));
+        assertThat(metrics.getBytesRead(), is(0L));
+        assertThat(metrics.getBytesWritten(), is(0L));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final AgentBuilder.Metrics.Aggregating metrics = new AgentBuilder.Metrics.Aggregating(2);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            for (int thread = 0; thread < 4; thread++) {
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            latch.await();
+                        } catch (InterruptedException exception) {
+                            throw new IllegalStateException(exception);
+                        }
+                        for (int index = 0; index < 1000; index++) {
+                            metrics.onPhase(FOO, AgentBuilder.Metrics.Phase.MATCH, 1L);
+                        }
+                    }
+                });
+            }
+            latch.countDown();
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(metrics.getPhaseCount(AgentBuilder.Metrics.Phase.MATCH), is(4000L));
+        assertThat(metrics.getPhaseNanos(AgentBuilder.Metrics.Phase.MATCH), is(4000L));
+    }
+
+    @Test
+    public void testManagementBean() throws Exception {
+        AgentBuilder.Metrics.Aggregating metrics = new AgentBuilder.Metrics.Aggregating();
+        metrics.onComplete(FOO, null, null, 10, 20, 5L);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("net.bytebuddy:type=" + getClass().getSimpleName());
+        mBeanServer.registerMBean(metrics, objectName);
+        try {
+            assertThat(mBeanServer.getAttribute(objectName, "TransformationCount"), is((Object) 1L));
+            assertThat(mBeanServer.invoke(objectName,
+                    "getPhaseCount",
+                    new Object[]{AgentBuilder.Metrics.Phase.MAKE.name()},
+                    new String[]{String.class.getName()}), is((Object) 0L));
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalStripes() throws Exception {
+        new AgentBuilder.Metrics.Aggregating(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPercentile() throws Exception {
+        new AgentBuilder.Metrics.Aggregating().getPercentileNanos(101d);
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        assertThat(new AgentBuilder.Metrics.Aggregating(1).toString(), containsString("AgentBuilder.Metrics.Aggregating{"));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Metrics.Aggregating.Histogram.Snapshot.class).create(new ObjectPropertyAssertion.Creator<long[]>() {
+            @Override
+            public long[] create() {
+                return new long[]{(long) (Math.random() * 1000)};
+            }
+        }).apply();
+    }
+}
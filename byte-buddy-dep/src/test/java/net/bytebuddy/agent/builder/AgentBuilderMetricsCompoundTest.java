@@ -0,0 +1,79 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import net.bytebuddy.utility.JavaModule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderMetricsCompoundTest {
+
+    private static final String FOO = "foo";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private AgentBuilder.Metrics first, second;
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Mock
+    private JavaModule module;
+
+    @Test
+    public void testPhase() throws Exception {
+        new AgentBuilder.Metrics.Compound(first, second).onPhase(FOO, AgentBuilder.Metrics.Phase.MATCH, 42L);
+        verify(first).onPhase(FOO, AgentBuilder.Metrics.Phase.MATCH, 42L);
+        verifyNoMoreInteractions(first);
+        verify(second).onPhase(FOO, AgentBuilder.Metrics.Phase.MATCH, 42L);
+        verifyNoMoreInteractions(second);
+    }
+
+    @Test
+    public void testComplete() throws Exception {
+        new AgentBuilder.Metrics.Compound(first, second).onComplete(FOO, classLoader, module, 1, 2, 42L);
+        verify(first).onComplete(FOO, classLoader, module, 1, 2, 42L);
+        verifyNoMoreInteractions(first);
+        verify(second).onComplete(FOO, classLoader, module, 1, 2, 42L);
+        verifyNoMoreInteractions(second);
+    }
+
+    @Test
+    public void testEnabled() throws Exception {
+        when(second.isEnabled()).thenReturn(true);
+        assertThat(new AgentBuilder.Metrics.Compound(first, second).isEnabled(), is(true));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertThat(new AgentBuilder.Metrics.Compound(first, second).isEnabled(), is(false));
+        assertThat(new AgentBuilder.Metrics.Compound().isEnabled(), is(false));
+    }
+
+    @Test
+    public void testFlattening() throws Exception {
+        assertThat(new AgentBuilder.Metrics.Compound(AgentBuilder.Metrics.NoOp.INSTANCE, new AgentBuilder.Metrics.Compound(first), second),
+                is(new AgentBuilder.Metrics.Compound(first, second)));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Metrics.Compound.class).create(new ObjectPropertyAssertion.Creator<List<?>>() {
+            @Override
+            public List<?> create() {
+                return Collections.singletonList(mock(AgentBuilder.Metrics.class));
+            }
+        }).apply();
+    }
+}
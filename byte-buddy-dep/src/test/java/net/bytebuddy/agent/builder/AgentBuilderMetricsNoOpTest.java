@@ -0,0 +1,25 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderMetricsNoOpTest {
+
+    private static final String FOO = "foo";
+
+    @Test
+    public void testNoOp() throws Exception {
+        AgentBuilder.Metrics.NoOp.INSTANCE.onPhase(FOO, AgentBuilder.Metrics.Phase.LOCATE, 1L);
+        AgentBuilder.Metrics.NoOp.INSTANCE.onComplete(FOO, null, null, 1, -1, 1L);
+        assertThat(AgentBuilder.Metrics.NoOp.INSTANCE.isEnabled(), is(false));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Metrics.NoOp.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.Metrics.Phase.class).apply();
+    }
+}
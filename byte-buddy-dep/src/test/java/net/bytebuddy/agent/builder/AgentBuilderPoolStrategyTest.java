@@ -33,6 +33,11 @@ public class AgentBuilderPoolStrategyTest {
         assertThat(AgentBuilder.PoolStrategy.Default.EXTENDED.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
     }
 
+    @Test
+    public void testHeaderTypePool() throws Exception {
+        assertThat(AgentBuilder.PoolStrategy.Default.HEADER.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
+    }
+
     @Test
     public void testFastEagerTypePool() throws Exception {
         assertThat(AgentBuilder.PoolStrategy.Eager.FAST.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
@@ -43,6 +48,11 @@ public class AgentBuilderPoolStrategyTest {
         assertThat(AgentBuilder.PoolStrategy.Eager.EXTENDED.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
     }
 
+    @Test
+    public void testHeaderEagerTypePool() throws Exception {
+        assertThat(AgentBuilder.PoolStrategy.Eager.HEADER.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
+    }
+
     @Test
     public void testFastLoadingTypePool() throws Exception {
         assertThat(AgentBuilder.PoolStrategy.ClassLoading.FAST.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
@@ -53,6 +63,11 @@ public class AgentBuilderPoolStrategyTest {
         assertThat(AgentBuilder.PoolStrategy.ClassLoading.EXTENDED.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
     }
 
+    @Test
+    public void testHeaderLoadingTypePool() throws Exception {
+        assertThat(AgentBuilder.PoolStrategy.ClassLoading.HEADER.typePool(classFileLocator, classLoader), notNullValue(TypePool.class));
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(AgentBuilder.PoolStrategy.Default.class).apply();
@@ -0,0 +1,73 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderPrefilterCompoundTest {
+
+    private static final String FOO = "foo";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private AgentBuilder.Prefilter first, second;
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Test
+    public void testIgnoredByFirst() throws Exception {
+        when(first.isIgnored(FOO, classLoader)).thenReturn(true);
+        assertThat(new AgentBuilder.Prefilter.Compound(first, second).isIgnored(FOO, classLoader), is(true));
+        verify(first).isIgnored(FOO, classLoader);
+        verifyNoMoreInteractions(first);
+        verifyZeroInteractions(second);
+    }
+
+    @Test
+    public void testIgnoredBySecond() throws Exception {
+        when(second.isIgnored(FOO, classLoader)).thenReturn(true);
+        assertThat(new AgentBuilder.Prefilter.Compound(first, second).isIgnored(FOO, classLoader), is(true));
+        verify(first).isIgnored(FOO, classLoader);
+        verifyNoMoreInteractions(first);
+        verify(second).isIgnored(FOO, classLoader);
+        verifyNoMoreInteractions(second);
+    }
+
+    @Test
+    public void testNotIgnored() throws Exception {
+        assertThat(new AgentBuilder.Prefilter.Compound(first, second).isIgnored(FOO, classLoader), is(false));
+        verify(first).isIgnored(FOO, classLoader);
+        verifyNoMoreInteractions(first);
+        verify(second).isIgnored(FOO, classLoader);
+        verifyNoMoreInteractions(second);
+    }
+
+    @Test
+    public void testFlattening() throws Exception {
+        assertThat(new AgentBuilder.Prefilter.Compound(AgentBuilder.Prefilter.NoOp.INSTANCE, new AgentBuilder.Prefilter.Compound(first), second),
+                is(new AgentBuilder.Prefilter.Compound(first, second)));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.Compound.class).create(new ObjectPropertyAssertion.Creator<List<?>>() {
+            @Override
+            public List<?> create() {
+                return Collections.singletonList(mock(AgentBuilder.Prefilter.class));
+            }
+        }).apply();
+    }
+}
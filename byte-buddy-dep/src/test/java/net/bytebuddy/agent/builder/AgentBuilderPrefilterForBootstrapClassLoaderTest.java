@@ -0,0 +1,27 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AgentBuilderPrefilterForBootstrapClassLoaderTest {
+
+    private static final String FOO = "foo";
+
+    @Test
+    public void testBootstrapClassLoaderIgnored() throws Exception {
+        assertThat(AgentBuilder.Prefilter.ForBootstrapClassLoader.INSTANCE.isIgnored(FOO, null), is(true));
+    }
+
+    @Test
+    public void testOtherClassLoaderNotIgnored() throws Exception {
+        assertThat(AgentBuilder.Prefilter.ForBootstrapClassLoader.INSTANCE.isIgnored(FOO, ClassLoader.getSystemClassLoader()), is(false));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.ForBootstrapClassLoader.class).apply();
+    }
+}
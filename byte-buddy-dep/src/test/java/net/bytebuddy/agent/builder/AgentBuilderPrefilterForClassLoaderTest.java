@@ -0,0 +1,47 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderPrefilterForClassLoaderTest {
+
+    private static final String FOO = "foo";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ElementMatcher<? super ClassLoader> matcher;
+
+    @Mock
+    private ClassLoader classLoader;
+
+    @Test
+    public void testMatchedIgnored() throws Exception {
+        when(matcher.matches(classLoader)).thenReturn(true);
+        assertThat(new AgentBuilder.Prefilter.ForClassLoader(matcher).isIgnored(FOO, classLoader), is(true));
+        verify(matcher).matches(classLoader);
+        verifyNoMoreInteractions(matcher);
+    }
+
+    @Test
+    public void testNotMatchedNotIgnored() throws Exception {
+        assertThat(new AgentBuilder.Prefilter.ForClassLoader(matcher).isIgnored(FOO, classLoader), is(false));
+        verify(matcher).matches(classLoader);
+        verifyNoMoreInteractions(matcher);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.ForClassLoader.class).apply();
+    }
+}
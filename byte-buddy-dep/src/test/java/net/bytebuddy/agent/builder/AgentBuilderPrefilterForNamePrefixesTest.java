@@ -0,0 +1,44 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AgentBuilderPrefilterForNamePrefixesTest {
+
+    @Test
+    public void testPrefixIgnored() throws Exception {
+        AgentBuilder.Prefilter prefilter = new AgentBuilder.Prefilter.ForNamePrefixes("com.sun.", "sun.");
+        assertThat(prefilter.isIgnored("com/sun/Foo", null), is(true));
+        assertThat(prefilter.isIgnored("sun/misc/Unsafe", null), is(true));
+    }
+
+    @Test
+    public void testOtherNameNotIgnored() throws Exception {
+        AgentBuilder.Prefilter prefilter = new AgentBuilder.Prefilter.ForNamePrefixes("com.sun.");
+        assertThat(prefilter.isIgnored("com/example/Foo", null), is(false));
+        assertThat(prefilter.isIgnored("com.sun.Foo", null), is(false));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.ForNamePrefixes.class).create(new ObjectPropertyAssertion.Creator<List<?>>() {
+            @Override
+            public List<?> create() {
+                return Collections.singletonList("foo" + counter.incrementAndGet());
+            }
+        }).create(new ObjectPropertyAssertion.Creator<String>() {
+            @Override
+            public String create() {
+                return "bar" + counter.incrementAndGet();
+            }
+        }).apply();
+    }
+}
@@ -0,0 +1,44 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderPrefilterForTypeNameTest {
+
+    private static final String FOO = "foo", BAR = "bar";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ElementMatcher<? super String> matcher;
+
+    @Test
+    public void testMatchedIgnored() throws Exception {
+        when(matcher.matches(FOO + "." + BAR)).thenReturn(true);
+        assertThat(new AgentBuilder.Prefilter.ForTypeName(matcher).isIgnored(FOO + "/" + BAR, null), is(true));
+        verify(matcher).matches(FOO + "." + BAR);
+        verifyNoMoreInteractions(matcher);
+    }
+
+    @Test
+    public void testNotMatchedNotIgnored() throws Exception {
+        assertThat(new AgentBuilder.Prefilter.ForTypeName(matcher).isIgnored(FOO + "/" + BAR, null), is(false));
+        verify(matcher).matches(FOO + "." + BAR);
+        verifyNoMoreInteractions(matcher);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.ForTypeName.class).apply();
+    }
+}
@@ -0,0 +1,23 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AgentBuilderPrefilterNoOpTest {
+
+    private static final String FOO = "foo";
+
+    @Test
+    public void testNotIgnored() throws Exception {
+        assertThat(AgentBuilder.Prefilter.NoOp.INSTANCE.isIgnored(FOO, ClassLoader.getSystemClassLoader()), is(false));
+        assertThat(AgentBuilder.Prefilter.NoOp.INSTANCE.isIgnored(FOO, null), is(false));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.Prefilter.NoOp.class).apply();
+    }
+}
@@ -8,6 +8,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -230,6 +232,95 @@ public class AgentBuilderRedefinitionStrategyBatchAllocatorTest {
                 .remove();
     }
 
+    @Test
+    public void testPauseTargetGrowsWhenFast() throws Exception {
+        AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget batchAllocator = new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.HOURS);
+        List<Class<?>> types = Arrays.<Class<?>>asList(Object.class, Void.class, String.class, Integer.class, Long.class, Short.class, Byte.class);
+        Iterator<? extends List<Class<?>>> iterator = batchAllocator.batch(types).iterator();
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(Collections.<Class<?>>singletonList(Object.class)));
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(batchAllocator.getSize(), is(2));
+        assertThat(iterator.next(), is(Arrays.<Class<?>>asList(Void.class, String.class)));
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(batchAllocator.getSize(), is(4));
+        assertThat(iterator.next(), is(Arrays.<Class<?>>asList(Integer.class, Long.class, Short.class, Byte.class)));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(batchAllocator.getSize(), is(8));
+        assertThat(batchAllocator.batch(types).iterator().next().size(), is(7));
+    }
+
+    @Test
+    public void testPauseTargetShrinksWhenSlow() throws Exception {
+        AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget batchAllocator = new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L,
+                TimeUnit.MILLISECONDS,
+                2,
+                8,
+                0L,
+                TimeUnit.MILLISECONDS);
+        List<Class<?>> types = Arrays.<Class<?>>asList(Object.class, Void.class, String.class, Integer.class, Long.class);
+        Iterator<? extends List<Class<?>>> iterator = batchAllocator.batch(types).iterator();
+        assertThat(iterator.next(), is(Arrays.<Class<?>>asList(Object.class, Void.class)));
+        assertThat(iterator.next(), is(Arrays.<Class<?>>asList(String.class, Integer.class, Long.class)));
+        assertThat(batchAllocator.getSize(), is(4));
+        Thread.sleep(50L);
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(batchAllocator.getSize(), is(2));
+    }
+
+    @Test
+    public void testPauseTargetSleepsBetweenBatches() throws Exception {
+        AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget batchAllocator = new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L,
+                TimeUnit.HOURS,
+                1,
+                1,
+                20L,
+                TimeUnit.MILLISECONDS);
+        Iterator<? extends List<Class<?>>> iterator = batchAllocator.batch(Arrays.<Class<?>>asList(Object.class, Void.class)).iterator();
+        long start = System.nanoTime();
+        assertThat(iterator.next(), is(Collections.<Class<?>>singletonList(Object.class)));
+        assertThat(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20L), is(true));
+        assertThat(iterator.next(), is(Collections.<Class<?>>singletonList(Void.class)));
+        assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20L), is(true));
+        assertThat(batchAllocator.getSize(), is(1));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testPauseTargetExhausted() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.SECONDS)
+                .batch(Collections.<Class<?>>emptyList())
+                .iterator()
+                .next();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPauseTargetCannotRemove() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.SECONDS)
+                .batch(Collections.<Class<?>>singletonList(Object.class))
+                .iterator()
+                .remove();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPauseTargetIllegalPause() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPauseTargetIllegalMinimum() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.SECONDS, 0, 1, 0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPauseTargetIllegalRange() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.SECONDS, 2, 1, 0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPauseTargetIllegalInterval() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.BatchAllocator.ForPauseTarget(1L, TimeUnit.SECONDS, 1, 1, -1L, TimeUnit.SECONDS);
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.BatchAllocator.ForTotal.class).apply();
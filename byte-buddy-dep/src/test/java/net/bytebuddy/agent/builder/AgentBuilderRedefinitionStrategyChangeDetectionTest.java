@@ -0,0 +1,103 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderRedefinitionStrategyChangeDetectionTest {
+
+    private static final byte[] FOO = new byte[]{1, 2, 3}, BAR = new byte[]{4, 5, 6};
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.Disabled.INSTANCE.isActive(), is(false));
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.Disabled.INSTANCE.make(),
+                is((AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry) AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE));
+    }
+
+    @Test
+    public void testForClassFile() throws Exception {
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile.INSTANCE.isActive(), is(true));
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile.INSTANCE.make(),
+                instanceOf(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest.class));
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile.INSTANCE.make(),
+                not(sameInstance(AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile.INSTANCE.make())));
+    }
+
+    @Test
+    public void testNoOpRegistry() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE.register(Object.class.getClassLoader(), Object.class.getName(), FOO);
+        assertThat(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.INSTANCE.isUnchanged(Object.class,
+                FOO,
+                ClassFileLocator.Simple.of(Object.class.getName(), FOO)), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryUnchangedLocated() throws Exception {
+        assertThat(new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest().isUnchanged(Object.class,
+                FOO,
+                ClassFileLocator.Simple.of(Object.class.getName(), FOO)), is(true));
+    }
+
+    @Test
+    public void testDigestRegistryChangedLocated() throws Exception {
+        assertThat(new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest().isUnchanged(Object.class,
+                FOO,
+                ClassFileLocator.Simple.of(Object.class.getName(), BAR)), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryNotLocated() throws Exception {
+        assertThat(new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest().isUnchanged(Object.class,
+                FOO,
+                ClassFileLocator.NoOp.INSTANCE), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryPrefersRegisteredClassFile() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest();
+        registry.register(Object.class.getClassLoader(), Object.class.getName(), BAR);
+        assertThat(registry.isUnchanged(Object.class, BAR, ClassFileLocator.Simple.of(Object.class.getName(), FOO)), is(true));
+        assertThat(registry.isUnchanged(Object.class, FOO, ClassFileLocator.Simple.of(Object.class.getName(), FOO)), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryIsScopedByClassLoader() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest();
+        registry.register(getClass().getClassLoader(), getClass().getName(), BAR);
+        assertThat(registry.isUnchanged(getClass(), BAR, ClassFileLocator.NoOp.INSTANCE), is(true));
+        assertThat(registry.isUnchanged(Object.class, BAR, ClassFileLocator.NoOp.INSTANCE), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryInvalidate() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest();
+        registry.register(getClass().getClassLoader(), getClass().getName(), BAR);
+        registry.invalidate(getClass().getClassLoader(), getClass().getName());
+        assertThat(registry.isUnchanged(getClass(), BAR, ClassFileLocator.NoOp.INSTANCE), is(false));
+    }
+
+    @Test
+    public void testDigestRegistryClear() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry registry = new AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest();
+        registry.register(getClass().getClassLoader(), getClass().getName(), BAR);
+        registry.register(Object.class.getClassLoader(), Object.class.getName(), BAR);
+        registry.clear();
+        assertThat(registry.isUnchanged(getClass(), BAR, ClassFileLocator.NoOp.INSTANCE), is(false));
+        assertThat(registry.isUnchanged(Object.class, BAR, ClassFileLocator.NoOp.INSTANCE), is(false));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ChangeDetection.Disabled.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ChangeDetection.ForClassFile.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.NoOp.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ChangeDetection.Registry.ForDigest.class).applyBasic();
+    }
+}
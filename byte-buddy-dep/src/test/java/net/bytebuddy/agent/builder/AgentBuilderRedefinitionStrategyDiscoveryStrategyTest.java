@@ -0,0 +1,91 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AgentBuilderRedefinitionStrategyDiscoveryStrategyTest {
+
+    @Test
+    public void testSequential() throws Exception {
+        List<Class<?>> types = Arrays.<Class<?>>asList(Object.class, String.class, Integer.class);
+        assertThat(AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Sequential.INSTANCE.discover(types, new Recording()),
+                is(Collections.<List<Class<?>>>singletonList(types)));
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        List<Class<?>> types = Arrays.<Class<?>>asList(Object.class, String.class, Integer.class, Long.class, Void.class);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            List<List<Class<?>>> chunks = new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel(executorService, 2).discover(types, new Recording());
+            assertThat(chunks.size(), is(3));
+            assertThat(chunks.get(0), is(Arrays.<Class<?>>asList(Object.class, String.class)));
+            assertThat(chunks.get(1), is(Arrays.<Class<?>>asList(Integer.class, Long.class)));
+            assertThat(chunks.get(2), is(Collections.<Class<?>>singletonList(Void.class)));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelSingleChunkIsDiscoveredDirectly() throws Exception {
+        List<Class<?>> types = Arrays.<Class<?>>asList(Object.class, String.class);
+        ExecutorService executorService = mock(ExecutorService.class);
+        assertThat(new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel(executorService).discover(types, new Recording()),
+                is(Collections.<List<Class<?>>>singletonList(types)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelFailure() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel(executorService, 1).discover(Arrays.<Class<?>>asList(Object.class, String.class),
+                    new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Discovery<Void>() {
+                        @Override
+                        public Void discover(List<Class<?>> types) {
+                            throw new RuntimeException();
+                        }
+                    });
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalChunkSize() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel(mock(ExecutorService.class), 0);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Sequential.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel.class).apply();
+        final AtomicInteger counter = new AtomicInteger();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Parallel.Task.class).create(new ObjectPropertyAssertion.Creator<List<?>>() {
+            @Override
+            public List<?> create() {
+                return Collections.singletonList(counter.incrementAndGet());
+            }
+        }).apply();
+    }
+
+    private static class Recording implements AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.Discovery<List<Class<?>>> {
+
+        @Override
+        public List<Class<?>> discover(List<Class<?>> types) {
+            return new ArrayList<Class<?>>(types);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class AgentBuilderRedefinitionStrategyResubmissionSchedulerTest {
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Mock
+    private Runnable job;
+
+    @Mock
+    private ScheduledFuture<?> scheduledFuture;
+
+    @Test
+    public void testNoOp() throws Exception {
+        assertThat(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.NoOp.INSTANCE.isAlive(), is(false));
+        assertThat(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.NoOp.INSTANCE.schedule(job),
+                is((AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable) AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE));
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE.cancel();
+        verifyZeroInteractions(job);
+    }
+
+    @Test
+    public void testAtFixedRate() throws Exception {
+        doReturn(scheduledFuture).when(scheduledExecutorService).scheduleAtFixedRate(job, 42L, 42L, TimeUnit.SECONDS);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.AtFixedRate(scheduledExecutorService,
+                42L,
+                TimeUnit.SECONDS);
+        assertThat(resubmissionScheduler.isAlive(), is(true));
+        assertThat(resubmissionScheduler.schedule(job),
+                is((AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable) new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.ForFuture(scheduledFuture)));
+        verify(scheduledExecutorService).isShutdown();
+        verify(scheduledExecutorService).scheduleAtFixedRate(job, 42L, 42L, TimeUnit.SECONDS);
+        verifyNoMoreInteractions(scheduledExecutorService);
+        verifyZeroInteractions(job);
+    }
+
+    @Test
+    public void testAtFixedRateShutdown() throws Exception {
+        when(scheduledExecutorService.isShutdown()).thenReturn(true);
+        assertThat(new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.AtFixedRate(scheduledExecutorService, 42L, TimeUnit.SECONDS).isAlive(), is(false));
+    }
+
+    @Test
+    public void testWithFixedDelay() throws Exception {
+        doReturn(scheduledFuture).when(scheduledExecutorService).scheduleWithFixedDelay(job, 42L, 42L, TimeUnit.SECONDS);
+        AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler = new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.WithFixedDelay(scheduledExecutorService,
+                42L,
+                TimeUnit.SECONDS);
+        assertThat(resubmissionScheduler.isAlive(), is(true));
+        assertThat(resubmissionScheduler.schedule(job),
+                is((AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable) new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.ForFuture(scheduledFuture)));
+        verify(scheduledExecutorService).isShutdown();
+        verify(scheduledExecutorService).scheduleWithFixedDelay(job, 42L, 42L, TimeUnit.SECONDS);
+        verifyNoMoreInteractions(scheduledExecutorService);
+        verifyZeroInteractions(job);
+    }
+
+    @Test
+    public void testWithFixedDelayShutdown() throws Exception {
+        when(scheduledExecutorService.isShutdown()).thenReturn(true);
+        assertThat(new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.WithFixedDelay(scheduledExecutorService, 42L, TimeUnit.SECONDS).isAlive(), is(false));
+    }
+
+    @Test
+    public void testCancelableForFuture() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.ForFuture(scheduledFuture).cancel();
+        verify(scheduledFuture).cancel(false);
+        verifyNoMoreInteractions(scheduledFuture);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.NoOp.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.AtFixedRate.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.WithFixedDelay.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.ForFuture.class).apply();
+    }
+}
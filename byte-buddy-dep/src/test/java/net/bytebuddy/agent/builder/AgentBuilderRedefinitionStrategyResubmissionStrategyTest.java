@@ -0,0 +1,283 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.lang.instrument.Instrumentation;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderRedefinitionStrategyResubmissionStrategyTest {
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private Instrumentation instrumentation;
+
+    @Mock
+    private AgentBuilder.Listener listener;
+
+    @Mock
+    private AgentBuilder.RedefinitionStrategy.ResubmissionScheduler resubmissionScheduler;
+
+    @Mock
+    private AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Resubmitter resubmitter;
+
+    @Mock
+    private AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable cancelable;
+
+    private AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store store;
+
+    @Before
+    public void setUp() throws Exception {
+        when(resubmissionScheduler.isAlive()).thenReturn(true);
+        when(resubmissionScheduler.schedule(any(Runnable.class))).thenReturn(cancelable);
+        when(instrumentation.getAllLoadedClasses()).thenReturn(new Class<?>[]{Foo.class, Object.class});
+        store = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store(0L, 0L, 2);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Installation installation = AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Disabled.INSTANCE.apply(instrumentation,
+                listener,
+                resubmitter);
+        assertThat(installation.getListener(), is(listener));
+        assertThat(installation.getCancelable(), is((AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable) AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE));
+        verifyZeroInteractions(instrumentation);
+        verifyZeroInteractions(resubmitter);
+    }
+
+    @Test
+    public void testEnabled() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Installation installation = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler).apply(instrumentation,
+                this.listener,
+                resubmitter);
+        AgentBuilder.Listener listener = installation.getListener();
+        assertThat(listener, instanceOf(AgentBuilder.Listener.Compound.class));
+        assertThat(installation.getCancelable(), is(cancelable));
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        verify(resubmissionScheduler).isAlive();
+        verify(resubmissionScheduler).schedule(job.capture());
+        verifyNoMoreInteractions(resubmissionScheduler);
+        assertThat(job.getValue(), instanceOf(AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job.class));
+        RuntimeException exception = new RuntimeException();
+        listener.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, exception);
+        verify(this.listener).onError(Foo.class.getName(), Foo.class.getClassLoader(), null, exception);
+        verifyZeroInteractions(resubmitter);
+    }
+
+    @Test
+    public void testEnabledSchedulerNotAlive() throws Exception {
+        when(resubmissionScheduler.isAlive()).thenReturn(false);
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Installation installation = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler).apply(instrumentation,
+                listener,
+                resubmitter);
+        assertThat(installation.getListener(), is(listener));
+        assertThat(installation.getCancelable(), is((AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable) AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.Cancelable.NoOp.INSTANCE));
+        verify(resubmissionScheduler).isAlive();
+        verifyNoMoreInteractions(resubmissionScheduler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnabledNegativeBackoff() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler, -1L, 1L, TimeUnit.SECONDS, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnabledInitialBackoffExceedsMaximum() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler, 2L, 1L, TimeUnit.SECONDS, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnabledNoAttempts() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler, 1L, 1L, TimeUnit.SECONDS, 0);
+    }
+
+    @Test
+    public void testEnabledEquality() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy resubmissionStrategy = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler,
+                1L,
+                2L,
+                TimeUnit.SECONDS,
+                3);
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy other = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler,
+                1000L,
+                2000L,
+                TimeUnit.MILLISECONDS,
+                3);
+        assertThat(resubmissionStrategy, is(other));
+        assertThat(resubmissionStrategy.hashCode(), is(other.hashCode()));
+        assertThat(resubmissionStrategy.toString(), is(other.toString()));
+        assertThat(resubmissionStrategy, not((AgentBuilder.RedefinitionStrategy.ResubmissionStrategy) new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler,
+                1L,
+                3L,
+                TimeUnit.SECONDS,
+                3)));
+        assertThat(resubmissionStrategy, not((AgentBuilder.RedefinitionStrategy.ResubmissionStrategy) new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(resubmissionScheduler,
+                1L,
+                2L,
+                TimeUnit.SECONDS,
+                4)));
+        assertThat(resubmissionStrategy, not((AgentBuilder.RedefinitionStrategy.ResubmissionStrategy) new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled(mock(AgentBuilder.RedefinitionStrategy.ResubmissionScheduler.class),
+                1L,
+                2L,
+                TimeUnit.SECONDS,
+                3)));
+    }
+
+    @Test
+    public void testStoreSubmitsFailedType() throws Exception {
+        assertThat(store.isEmpty(), is(true));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(false));
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        assertThat(store.isEmpty(), is(false));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(true));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(false));
+        store.complete(Foo.class);
+        assertThat(store.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testStoreSubmitsFailedBootstrapType() throws Exception {
+        store.onError(Object.class.getName(), null, null, new RuntimeException());
+        assertThat(store.isEmpty(), is(false));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(false));
+        assertThat(store.submit(Object.class, System.nanoTime()), is(true));
+        store.complete(Object.class);
+        assertThat(store.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testStoreRetainsTypeThatFailsAgain() throws Exception {
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(true));
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        store.complete(Foo.class);
+        assertThat(store.isEmpty(), is(false));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(true));
+    }
+
+    @Test
+    public void testStoreAbandonsTypeAfterMaximumAttempts() throws Exception {
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        assertThat(store.isEmpty(), is(false));
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        assertThat(store.isEmpty(), is(true));
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(false));
+    }
+
+    @Test
+    public void testStoreAbandonsUnloadedTypeAfterMaximumAttempts() throws Exception {
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        long now = System.nanoTime();
+        store.expire(now);
+        assertThat(store.isEmpty(), is(false));
+        store.expire(now);
+        assertThat(store.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testStoreDoesNotExpireSubmittedType() throws Exception {
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        long now = System.nanoTime();
+        assertThat(store.submit(Foo.class, now), is(true));
+        store.expire(now);
+        store.expire(now);
+        assertThat(store.isEmpty(), is(false));
+        store.complete(Foo.class);
+        assertThat(store.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testStoreRespectsBackoff() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store store = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store(TimeUnit.HOURS.toNanos(1L),
+                TimeUnit.HOURS.toNanos(1L),
+                1);
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        assertThat(store.submit(Foo.class, System.nanoTime()), is(false));
+        assertThat(store.submit(Foo.class, System.nanoTime() + TimeUnit.HOURS.toNanos(2L)), is(true));
+    }
+
+    @Test
+    public void testStoreBackoff() throws Exception {
+        AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store store = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store(10L, 35L, 1);
+        assertThat(store.backoff(1), is(10L));
+        assertThat(store.backoff(2), is(20L));
+        assertThat(store.backoff(3), is(35L));
+        assertThat(store.backoff(100), is(35L));
+    }
+
+    @Test
+    public void testJobResubmitsDueTypes() throws Exception {
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        Runnable job = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job(instrumentation, resubmitter, store);
+        job.run();
+        verify(instrumentation).getAllLoadedClasses();
+        verify(resubmitter).resubmit(Collections.<Class<?>>singletonList(Foo.class));
+        assertThat(store.isEmpty(), is(true));
+        job.run();
+        verifyNoMoreInteractions(instrumentation);
+        verifyNoMoreInteractions(resubmitter);
+    }
+
+    @Test
+    public void testJobAbandonsUnloadedTypes() throws Exception {
+        store.onError(Bar.class.getName(), Bar.class.getClassLoader(), null, new RuntimeException());
+        Runnable job = new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job(instrumentation, resubmitter, store);
+        job.run();
+        job.run();
+        assertThat(store.isEmpty(), is(true));
+        job.run();
+        verify(instrumentation, times(2)).getAllLoadedClasses();
+        verifyNoMoreInteractions(instrumentation);
+        verifyZeroInteractions(resubmitter);
+    }
+
+    @Test
+    public void testJobWithoutFailedTypes() throws Exception {
+        new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job(instrumentation, resubmitter, store).run();
+        verifyZeroInteractions(instrumentation);
+        verifyZeroInteractions(resubmitter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJobSurvivesResubmissionError() throws Exception {
+        doThrow(new RuntimeException()).when(resubmitter).resubmit(anyListOf((Class<Class<?>>) (Object) Class.class));
+        store.onError(Foo.class.getName(), Foo.class.getClassLoader(), null, new RuntimeException());
+        new AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job(instrumentation, resubmitter, store).run();
+        verify(resubmitter).resubmit(Collections.<Class<?>>singletonList(Foo.class));
+        assertThat(store.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Disabled.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Installation.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Job.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.RedefinitionStrategy.ResubmissionStrategy.Enabled.Store.LookupKey.class).apply();
+    }
+
+    public static class Foo {
+        /* empty */
+    }
+
+    public static class Bar {
+        /* empty */
+    }
+}
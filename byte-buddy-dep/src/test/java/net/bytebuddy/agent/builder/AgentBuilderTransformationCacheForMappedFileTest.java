@@ -0,0 +1,337 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderTransformationCacheForMappedFileTest {
+
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
+
+    private static final byte[] TRANSFORMED = new byte[]{4, 5, 6, 7}, OTHER = new byte[]{8, 9};
+
+    private File file;
+
+    private byte[] original, changed;
+
+    private ClassFileLocator classFileLocator;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile(FOO, BAR);
+        original = ClassFileLocator.ForClassLoader.read(Sample.class).resolve();
+        changed = ClassFileLocator.ForClassLoader.read(Other.class).resolve();
+        classFileLocator = ClassFileLocator.ForClassLoader.of(Sample.class.getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        assertThat(file.delete(), is(true));
+    }
+
+    @Test
+    public void testMissAndStoreWithinSession() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.isWritable(), is(true));
+            AgentBuilder.TransformationCache.Entry entry = cache.lookup(FOO, null, original, classFileLocator);
+            assertThat(entry.isCached(), is(false));
+            entry.store(TRANSFORMED);
+            cache.flush();
+            assertThat(cache.size(), is(1));
+            AgentBuilder.TransformationCache.Entry cached = cache.lookup(FOO, null, original, classFileLocator);
+            assertThat(cached.isCached(), is(true));
+            assertThat(cached.getBinaryRepresentation(), is(TRANSFORMED));
+            assertThat(cache.lookup(FOO, null, changed, classFileLocator).isCached(), is(false));
+            assertThat(cache.lookup(BAR, null, original, classFileLocator).isCached(), is(false));
+            assertThat(cache.lookup(FOO, getClass().getClassLoader(), original, classFileLocator).isCached(), is(false));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testPersistedAcrossSessions() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+            cache.lookup(BAR, null, original, classFileLocator).store(AgentBuilder.TransformationCache.Entry.NO_TRANSFORMATION);
+        } finally {
+            cache.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.size(), is(2));
+            AgentBuilder.TransformationCache.Entry transformed = cache.lookup(FOO, null, original, classFileLocator);
+            assertThat(transformed.isCached(), is(true));
+            assertThat(transformed.getBinaryRepresentation(), is(TRANSFORMED));
+            AgentBuilder.TransformationCache.Entry unchanged = cache.lookup(BAR, null, original, classFileLocator);
+            assertThat(unchanged.isCached(), is(true));
+            assertThat(unchanged.getBinaryRepresentation(), nullValue(byte[].class));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testStoreIsIdempotent() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+            cache.flush();
+            long length = file.length();
+            cache.lookup(FOO, null, original, classFileLocator).store(OTHER);
+            cache.flush();
+            assertThat(file.length(), is(length));
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).getBinaryRepresentation(), is(TRANSFORMED));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testFingerprintMismatchDiscardsEntries() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, BAR);
+        try {
+            assertThat(cache.size(), is(0));
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).isCached(), is(false));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testCorruptedEntryIsNotReturned() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(42);
+        } finally {
+            randomAccessFile.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).isCached(), is(false));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testTruncatedEntryIsDiscarded() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        long length;
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+            cache.flush();
+            length = file.length();
+            cache.lookup(BAR, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(randomAccessFile.length() - 1);
+        } finally {
+            randomAccessFile.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.size(), is(1));
+            assertThat(file.length(), is(length));
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).getBinaryRepresentation(), is(TRANSFORMED));
+            AgentBuilder.TransformationCache.Entry entry = cache.lookup(BAR, null, original, classFileLocator);
+            assertThat(entry.isCached(), is(false));
+            entry.store(OTHER);
+            cache.flush();
+            assertThat(cache.lookup(BAR, null, original, classFileLocator).getBinaryRepresentation(), is(OTHER));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testRebuildDoesNotTruncateOpenedFile() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            long length = randomAccessFile.length();
+            ByteBuffer mapped = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, BAR);
+            try {
+                assertThat(cache.size(), is(0));
+            } finally {
+                cache.close();
+            }
+            assertThat(randomAccessFile.length(), is(length));
+            assertThat(mapped.get((int) length - 1), is(TRANSFORMED[TRANSFORMED.length - 1]));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    @Test
+    public void testLookupForClassLoader() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, getClass().getClassLoader(), original, classFileLocator).store(TRANSFORMED);
+            cache.flush();
+            assertThat(cache.lookup(FOO, getClass().getClassLoader(), original, classFileLocator).getBinaryRepresentation(), is(TRANSFORMED));
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).isCached(), is(false));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testLockedFileIsReadOnly() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+            cache.flush();
+            AgentBuilder.TransformationCache.ForMappedFile other = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+            try {
+                assertThat(other.isWritable(), is(false));
+                assertThat(other.lookup(FOO, null, original, classFileLocator).getBinaryRepresentation(), is(TRANSFORMED));
+                long length = file.length();
+                other.lookup(BAR, null, original, classFileLocator).store(OTHER);
+                other.flush();
+                assertThat(file.length(), is(length));
+                assertThat(other.lookup(BAR, null, original, classFileLocator).isCached(), is(false));
+            } finally {
+                other.close();
+            }
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testClosedCacheDoesNotStore() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        AgentBuilder.TransformationCache.Entry entry = cache.lookup(FOO, null, original, classFileLocator);
+        cache.close();
+        assertThat(cache.isWritable(), is(false));
+        entry.store(TRANSFORMED);
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testPendingEntryIsNotCached() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.lookup(FOO, null, original, classFileLocator), instanceOf(AgentBuilder.TransformationCache.ForMappedFile.Pending.class));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPendingEntryHasNoBinaryRepresentation() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).getBinaryRepresentation();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testStoreIsAsynchronous() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.size(), is(1));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testChangedSuperTypeIsNotCached() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            cache.lookup(FOO, null, original, classFileLocator).store(TRANSFORMED);
+        } finally {
+            cache.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.lookup(FOO, null, original, ClassFileLocator.Simple.of(Base.class.getName(),
+                    ClassFileLocator.ForClassLoader.read(Other.class).resolve(),
+                    classFileLocator)).isCached(), is(false));
+        } finally {
+            cache.close();
+        }
+        cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.lookup(FOO, null, original, classFileLocator).isCached(), is(true));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testIllegalClassFileIsUnavailable() throws Exception {
+        AgentBuilder.TransformationCache.ForMappedFile cache = AgentBuilder.TransformationCache.ForMappedFile.open(file, QUX);
+        try {
+            assertThat(cache.lookup(FOO, null, OTHER, classFileLocator),
+                    is((AgentBuilder.TransformationCache.Entry) AgentBuilder.TransformationCache.Entry.Unavailable.INSTANCE));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.ForMappedFile.Location.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.ForMappedFile.WriterThreadFactory.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.ForMappedFile.LookupKey.class).apply();
+    }
+
+    public static class Base {
+        /* empty */
+    }
+
+    public static class Sample extends Base {
+        /* empty */
+    }
+
+    public static class Other {
+        /* empty */
+    }
+}
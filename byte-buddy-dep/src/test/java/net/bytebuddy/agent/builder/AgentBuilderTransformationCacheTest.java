@@ -0,0 +1,52 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AgentBuilderTransformationCacheTest {
+
+    private static final String FOO = "foo";
+
+    private static final byte[] BAR = new byte[]{1, 2, 3};
+
+    @Test
+    public void testNoOp() throws Exception {
+        AgentBuilder.TransformationCache.Entry entry = AgentBuilder.TransformationCache.NoOp.INSTANCE.lookup(FOO, null, BAR, ClassFileLocator.NoOp.INSTANCE);
+        assertThat(entry, is((AgentBuilder.TransformationCache.Entry) AgentBuilder.TransformationCache.Entry.Unavailable.INSTANCE));
+        entry.store(BAR);
+        assertThat(AgentBuilder.TransformationCache.NoOp.INSTANCE.lookup(FOO, null, BAR, ClassFileLocator.NoOp.INSTANCE).isCached(), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnavailableHasNoBinaryRepresentation() throws Exception {
+        AgentBuilder.TransformationCache.Entry.Unavailable.INSTANCE.getBinaryRepresentation();
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        AgentBuilder.TransformationCache.Entry entry = new AgentBuilder.TransformationCache.Entry.Cached(BAR);
+        assertThat(entry.isCached(), is(true));
+        assertThat(entry.getBinaryRepresentation(), is(BAR));
+        entry.store(new byte[0]);
+        assertThat(entry.getBinaryRepresentation(), is(BAR));
+    }
+
+    @Test
+    public void testCachedUnchanged() throws Exception {
+        AgentBuilder.TransformationCache.Entry entry = new AgentBuilder.TransformationCache.Entry.Cached(AgentBuilder.TransformationCache.Entry.NO_TRANSFORMATION);
+        assertThat(entry.isCached(), is(true));
+        assertThat(entry.getBinaryRepresentation(), nullValue(byte[].class));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.NoOp.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.Entry.Unavailable.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.TransformationCache.Entry.Cached.class).apply();
+    }
+}
@@ -1,5 +1,6 @@
 package net.bytebuddy.agent.builder;
 
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.pool.TypePool;
 import net.bytebuddy.test.utility.MockitoRule;
@@ -12,6 +13,7 @@ import org.mockito.Mock;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -44,8 +46,47 @@ public class AgentBuilderTypeLocatorWithTypePoolCacheSimpleTest {
         assertThat(poolStrategy.typePool(classFileLocator, null), not(poolStrategy.typePool(classFileLocator, second)));
     }
 
+    @Test
+    public void testSimpleImplementationWithSymbolTable() throws Exception {
+        ConcurrentMap<ClassLoader, TypePool.CacheProvider> cacheProviders = new ConcurrentHashMap<ClassLoader, TypePool.CacheProvider>();
+        TypePool.Default.SymbolTable symbolTable = new TypePool.Default.SymbolTable.Simple();
+        AgentBuilder.PoolStrategy poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Simple(TypePool.Default.ReaderMode.FAST, symbolTable, cacheProviders);
+        assertThat(poolStrategy.typePool(classFileLocator, first), is((TypePool) new TypePool.Default.WithLazyResolution(cacheProviders.get(first),
+                classFileLocator,
+                TypePool.Default.ReaderMode.FAST,
+                symbolTable,
+                TypePool.Empty.INSTANCE)));
+    }
+
+    @Test
+    public void testSimpleCacheProviderFactory() throws Exception {
+        assertThat(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForSimpleCache.INSTANCE.make(),
+                instanceOf(TypePool.CacheProvider.Simple.class));
+    }
+
+    @Test
+    public void testBoundedCacheProviderFactory() throws Exception {
+        TypePool.CacheProvider cacheProvider = new AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForBoundedCache(1L).make();
+        assertThat(cacheProvider, instanceOf(TypePool.CacheProvider.Bounded.class));
+        assertThat(cacheProvider.find(Object.class.getName()).resolve(), is(TypeDescription.OBJECT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundedCacheProviderFactoryIllegalWeight() throws Exception {
+        new AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForBoundedCache(0L);
+    }
+
+    @Test
+    public void testDeduplicatingCacheProviderFactory() throws Exception {
+        assertThat(new AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.Deduplicating(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForSimpleCache.INSTANCE).make(),
+                instanceOf(TypePool.CacheProvider.Deduplicating.class));
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(AgentBuilder.PoolStrategy.WithTypePoolCache.Simple.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForSimpleCache.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.ForBoundedCache.class).apply();
+        ObjectPropertyAssertion.of(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.Deduplicating.class).apply();
     }
 }
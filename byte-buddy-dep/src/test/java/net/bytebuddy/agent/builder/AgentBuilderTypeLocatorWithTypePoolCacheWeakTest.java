@@ -0,0 +1,130 @@
+package net.bytebuddy.agent.builder;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+import net.bytebuddy.test.utility.MockitoRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.lang.ref.ReferenceQueue;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AgentBuilderTypeLocatorWithTypePoolCacheWeakTest {
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ClassFileLocator classFileLocator;
+
+    @Mock
+    private ClassLoader first, second;
+
+    @Test
+    public void testWeakImplementation() throws Exception {
+        AgentBuilder.PoolStrategy.WithTypePoolCache.Weak poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak();
+        assertThat(poolStrategy.typePool(classFileLocator, first), is(poolStrategy.typePool(classFileLocator, first)));
+        assertThat(poolStrategy.typePool(classFileLocator, first), not(poolStrategy.typePool(classFileLocator, second)));
+        assertThat(poolStrategy.typePool(classFileLocator, second), is(poolStrategy.typePool(classFileLocator, second)));
+        assertThat(poolStrategy.typePool(classFileLocator, first), is(poolStrategy.typePool(classFileLocator, first)));
+        assertThat(poolStrategy.size(), is(2));
+    }
+
+    @Test
+    public void testWeakImplementationBootstrap() throws Exception {
+        AgentBuilder.PoolStrategy poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak(TypePool.Default.ReaderMode.FAST);
+        assertThat(poolStrategy.typePool(classFileLocator, null), is(poolStrategy.typePool(classFileLocator, null)));
+        assertThat(poolStrategy.typePool(classFileLocator, null), not(poolStrategy.typePool(classFileLocator, second)));
+    }
+
+    @Test
+    public void testWeakImplementationWithCacheProviderFactory() throws Exception {
+        TypePool.CacheProvider cacheProvider = mock(TypePool.CacheProvider.class);
+        AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory cacheProviderFactory = mock(AgentBuilder.PoolStrategy.WithTypePoolCache.CacheProviderFactory.class);
+        when(cacheProviderFactory.make()).thenReturn(cacheProvider);
+        AgentBuilder.PoolStrategy poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak(TypePool.Default.ReaderMode.FAST,
+                TypePool.Default.SymbolTable.NoOp.INSTANCE,
+                cacheProviderFactory);
+        assertThat(poolStrategy.typePool(classFileLocator, first), is((TypePool) new TypePool.Default.WithLazyResolution(cacheProvider,
+                classFileLocator,
+                TypePool.Default.ReaderMode.FAST)));
+        poolStrategy.typePool(classFileLocator, first);
+        verify(cacheProviderFactory).make();
+        verifyNoMoreInteractions(cacheProviderFactory);
+    }
+
+    @Test
+    public void testWeakImplementationExpunction() throws Exception {
+        AgentBuilder.PoolStrategy.WithTypePoolCache.Weak poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak();
+        ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+        poolStrategy.typePool(classFileLocator, classLoader);
+        assertThat(poolStrategy.size(), is(1));
+        classLoader = null;
+        for (int attempt = 0; attempt < 10 && poolStrategy.size() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(50L);
+        }
+        assertThat(poolStrategy.size(), is(0));
+    }
+
+    @Test
+    public void testWeakEntryAndLookupKey() throws Exception {
+        TypePool.CacheProvider cacheProvider = mock(TypePool.CacheProvider.class);
+        AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.WeakEntry entry = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.WeakEntry(first,
+                new ReferenceQueue<ClassLoader>(),
+                cacheProvider);
+        assertThat(entry.getCacheProvider(), sameInstance(cacheProvider));
+        assertThat(entry.hashCode(), is(System.identityHashCode(first)));
+        assertThat(entry.equals(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first)), is(true));
+        assertThat(entry.equals(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(second)), is(false));
+        assertThat(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first).equals(entry), is(true));
+        assertThat(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first).hashCode(), is(entry.hashCode()));
+        assertThat(entry.equals(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.WeakEntry(first, null, cacheProvider)), is(true));
+        entry.clear();
+        assertThat(entry.equals(entry), is(true));
+        assertThat(entry.equals(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first)), is(false));
+    }
+
+    @Test
+    public void testLookupKeyIsReusable() throws Exception {
+        AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey lookupKey = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey();
+        assertThat(lookupKey.with(first), is(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first)));
+        assertThat(lookupKey.hashCode(), is(System.identityHashCode(first)));
+        lookupKey.clear();
+        assertThat(lookupKey.equals(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(first)), is(false));
+        assertThat(lookupKey.with(second), is(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak.LookupKey(second)));
+    }
+
+    @Test
+    public void testAgentBuilderReplacesStrongLocationStrategy() throws Exception {
+        assertThat(((AgentBuilder.Default) new AgentBuilder.Default()
+                .with(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak())).locationStrategy,
+                is((AgentBuilder.LocationStrategy) AgentBuilder.LocationStrategy.ForClassLoader.WEAK));
+        AgentBuilder.LocationStrategy locationStrategy = mock(AgentBuilder.LocationStrategy.class);
+        assertThat(((AgentBuilder.Default) new AgentBuilder.Default()
+                .with(locationStrategy)
+                .with(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak())).locationStrategy,
+                is(locationStrategy));
+        assertThat(((AgentBuilder.Default) new AgentBuilder.Default()
+                .with(AgentBuilder.PoolStrategy.Default.FAST)).locationStrategy,
+                is((AgentBuilder.LocationStrategy) AgentBuilder.LocationStrategy.ForClassLoader.STRONG));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        AgentBuilder.PoolStrategy.WithTypePoolCache.Weak poolStrategy = new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak();
+        assertThat(poolStrategy, is(poolStrategy));
+        assertThat(poolStrategy, not(new AgentBuilder.PoolStrategy.WithTypePoolCache.Weak()));
+        assertThat(poolStrategy.hashCode(), is(System.identityHashCode(poolStrategy)));
+        assertThat(poolStrategy.toString().startsWith("AgentBuilder.PoolStrategy.WithTypePoolCache.Weak{"), is(true));
+    }
+}
@@ -0,0 +1,93 @@
+package net.bytebuddy.dynamic;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ClassFileLocatorForClassLoaderIndexedTest {
+
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
+
+    private static final int VALUE = 42;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CountingClassLoader classLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        File folder = temporaryFolder.newFolder(), packageFolder = new File(folder, FOO);
+        assertThat(packageFolder.mkdir(), is(true));
+        OutputStream outputStream = new FileOutputStream(new File(packageFolder, BAR + ".class"));
+        try {
+            outputStream.write(VALUE);
+        } finally {
+            outputStream.close();
+        }
+        classLoader = new CountingClassLoader(new URL[]{folder.toURI().toURL(), new URL("http://localhost/" + QUX + ".jar")});
+    }
+
+    @Test
+    public void testIndexedLocation() throws Exception {
+        ClassFileLocator classFileLocator = ClassFileLocator.ForClassLoader.Indexed.of(classLoader);
+        assertThat(classFileLocator, instanceOf(ClassFileLocator.ForClassLoader.Indexed.class));
+        assertThat(classFileLocator.locate(FOO + "." + BAR).resolve(), is(new byte[]{VALUE}));
+        assertThat(classLoader.resourceLookups, is(0));
+    }
+
+    @Test
+    public void testFallbackLocation() throws Exception {
+        ClassFileLocator classFileLocator = ClassFileLocator.ForClassLoader.Indexed.of(classLoader);
+        assertThat(classFileLocator.locate(Object.class.getName()).isResolved(), is(true));
+        assertThat(classFileLocator.locate(FOO + "." + QUX).isResolved(), is(false));
+        assertThat(classLoader.resourceLookups, is(2));
+    }
+
+    @Test
+    public void testNonUrlClassLoader() throws Exception {
+        ClassLoader classLoader = mock(ClassLoader.class);
+        assertThat(ClassFileLocator.ForClassLoader.Indexed.of(classLoader),
+                is((ClassFileLocator) new ClassFileLocator.ForClassLoader.WeaklyReferenced(classLoader)));
+        assertThat(ClassFileLocator.ForClassLoader.Indexed.of(null),
+                is((ClassFileLocator) new ClassFileLocator.ForClassLoader(ClassLoader.getSystemClassLoader())));
+    }
+
+    @Test
+    public void testEquality() throws Exception {
+        ClassFileLocator classFileLocator = ClassFileLocator.ForClassLoader.Indexed.of(classLoader);
+        assertThat(classFileLocator, is(classFileLocator));
+        assertThat(classFileLocator.hashCode(), is(System.identityHashCode(classLoader)));
+        assertThat(classFileLocator, not(ClassFileLocator.ForClassLoader.Indexed.of(new CountingClassLoader(new URL[0]))));
+        assertThat(classFileLocator.toString().contains(classLoader.toString()), is(true));
+    }
+
+    private static class CountingClassLoader extends URLClassLoader {
+
+        private int resourceLookups;
+
+        private CountingClassLoader(URL[] url) {
+            super(url, null);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            resourceLookups++;
+            return super.getResourceAsStream(name);
+        }
+    }
+}
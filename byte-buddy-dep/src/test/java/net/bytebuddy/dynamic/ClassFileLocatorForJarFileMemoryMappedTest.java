@@ -0,0 +1,234 @@
+package net.bytebuddy.dynamic;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ClassFileLocatorForJarFileMemoryMappedTest {
+
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoredAndDeflatedEntries() throws Exception {
+        byte[] stored = new byte[]{1, 2, 3}, deflated = new byte[1024];
+        for (int index = 0; index < deflated.length; index++) {
+            deflated[index] = (byte) (index % 7);
+        }
+        File file = temporaryFolder.newFile();
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+        try {
+            JarEntry storedEntry = new JarEntry(FOO + "/" + BAR + ".class");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            CRC32 crc32 = new CRC32();
+            crc32.update(stored);
+            storedEntry.setCrc(crc32.getValue());
+            jarOutputStream.putNextEntry(storedEntry);
+            jarOutputStream.write(stored);
+            jarOutputStream.closeEntry();
+            jarOutputStream.putNextEntry(new JarEntry(FOO + "/" + QUX + ".class"));
+            jarOutputStream.write(deflated);
+            jarOutputStream.closeEntry();
+            jarOutputStream.putNextEntry(new JarEntry(FOO + "/" + QUX + ".txt"));
+            jarOutputStream.write(stored);
+            jarOutputStream.closeEntry();
+            jarOutputStream.setComment(BAR);
+        } finally {
+            jarOutputStream.close();
+        }
+        ClassFileLocator classFileLocator = ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+        try {
+            assertThat(classFileLocator.locate(FOO + "." + BAR).resolve(), is(stored));
+            assertThat(classFileLocator.locate(FOO + "." + QUX).resolve(), is(deflated));
+            assertThat(classFileLocator.locate(BAR).isResolved(), is(false));
+        } finally {
+            classFileLocator.close();
+        }
+    }
+
+    @Test
+    public void testEquivalentToJarFile() throws Exception {
+        File file = new File(ClassVisitor.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assertThat(file.isFile(), is(true));
+        ClassFileLocator memoryMapped = ClassFileLocator.ForJarFile.MemoryMapped.of(file), jarFile = ClassFileLocator.ForJarFile.of(file);
+        try {
+            JarFile jar = new JarFile(file);
+            try {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(".class")) {
+                        String typeName = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                        assertThat(memoryMapped.locate(typeName).resolve(), is(jarFile.locate(typeName).resolve()));
+                    }
+                }
+            } finally {
+                jar.close();
+            }
+            assertThat(new ClassReader(memoryMapped.locate(ClassVisitor.class.getName()).resolve()).getClassName(),
+                    is(Type.getInternalName(ClassVisitor.class)));
+        } finally {
+            memoryMapped.close();
+            jarFile.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLocateAfterClose() throws Exception {
+        File file = new File(ClassVisitor.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        ClassFileLocator classFileLocator = ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+        assertThat(classFileLocator.locate(ClassVisitor.class.getName()).isResolved(), is(true));
+        classFileLocator.close();
+        classFileLocator.close();
+        classFileLocator.locate(ClassVisitor.class.getName());
+    }
+
+    @Test
+    public void testLegacyDispatcher() throws Exception {
+        byte[] deflated = new byte[1024];
+        for (int index = 0; index < deflated.length; index++) {
+            deflated[index] = (byte) (index % 7);
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] compressed = new byte[deflated.length * 2];
+        int length;
+        try {
+            deflater.setInput(deflated);
+            deflater.finish();
+            length = deflater.deflate(compressed);
+        } finally {
+            deflater.end();
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.ForLegacyVm.INSTANCE.setInput(inflater, ByteBuffer.wrap(compressed, 0, length));
+            byte[] inflated = new byte[deflated.length];
+            assertThat(inflater.inflate(inflated), is(deflated.length));
+            assertThat(inflated, is(deflated));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoJarFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(new byte[100]);
+        } finally {
+            outputStream.close();
+        }
+        ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptLocalHeaderOffset() throws Exception {
+        File file = corrupt(42, new byte[]{(byte) 0xF0, (byte) 0xFF, (byte) 0xFF, 0x7F});
+        ClassFileLocator classFileLocator = ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+        try {
+            classFileLocator.locate(FOO + "." + BAR);
+        } finally {
+            classFileLocator.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testChecksumMismatch() throws Exception {
+        File file = corrupt(16, new byte[]{0, 0, 0, 0});
+        ClassFileLocator classFileLocator = ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+        try {
+            classFileLocator.locate(FOO + "." + BAR);
+        } finally {
+            classFileLocator.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptNameLength() throws Exception {
+        ClassFileLocator.ForJarFile.MemoryMapped.of(corrupt(28, new byte[]{(byte) 0xFF, (byte) 0xFF}));
+    }
+
+    @Test
+    public void testEqualityIsBasedOnFile() throws Exception {
+        File file = new File(ClassVisitor.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        ClassFileLocator first = ClassFileLocator.ForJarFile.MemoryMapped.of(file), second = ClassFileLocator.ForJarFile.MemoryMapped.of(file);
+        assertThat(first, is(second));
+        assertThat(first.hashCode(), is(second.hashCode()));
+        assertThat(first, not(ClassFileLocator.ForJarFile.MemoryMapped.of(corrupt(0, new byte[0]))));
+    }
+
+    private File corrupt(int offset, byte[] value) throws Exception {
+        File file = temporaryFolder.newFile();
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+        try {
+            jarOutputStream.putNextEntry(new JarEntry(FOO + "/" + BAR + ".class"));
+            jarOutputStream.write(new byte[]{1, 2, 3});
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            byte[] binaryRepresentation = new byte[(int) randomAccessFile.length()];
+            randomAccessFile.readFully(binaryRepresentation);
+            for (int index = 0; index < binaryRepresentation.length - 3; index++) {
+                if (binaryRepresentation[index] == 'P'
+                        && binaryRepresentation[index + 1] == 'K'
+                        && binaryRepresentation[index + 2] == 1
+                        && binaryRepresentation[index + 3] == 2) {
+                    randomAccessFile.seek(index + offset);
+                    randomAccessFile.write(value);
+                    return file;
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        throw new AssertionError("Cannot locate central directory");
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(ClassFileLocator.ForJarFile.MemoryMapped.class).applyBasic();
+        ObjectPropertyAssertion.of(ClassFileLocator.ForJarFile.MemoryMapped.Entry.class).apply();
+        ObjectPropertyAssertion.of(ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.CreationAction.class).apply();
+        ObjectPropertyAssertion.of(ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.ForLegacyVm.class).apply();
+        final Iterator<Method> methods = Arrays.asList(Object.class.getDeclaredMethods()).iterator();
+        ObjectPropertyAssertion.of(ClassFileLocator.ForJarFile.MemoryMapped.Dispatcher.ForJava11CapableVm.class).create(new ObjectPropertyAssertion.Creator<Method>() {
+            @Override
+            public Method create() {
+                return methods.next();
+            }
+        }).apply();
+    }
+}
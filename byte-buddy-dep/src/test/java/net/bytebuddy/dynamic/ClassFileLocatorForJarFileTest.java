@@ -17,6 +17,7 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.*;
@@ -77,6 +78,7 @@ public class ClassFileLocatorForJarFileTest {
     public void testClassPath() throws Exception {
         ClassFileLocator classFileLocator = ClassFileLocator.ForJarFile.ofClassPath();
         try {
+            assertThat(classFileLocator, instanceOf(ClassFileLocator.Compound.class));
             assertThat(classFileLocator.locate(ByteBuddy.class.getName()).isResolved(), is(true)); // As file.
             assertThat(classFileLocator.locate(ClassVisitor.class.getName()).isResolved(), is(true)); // On path.
         } finally {
@@ -0,0 +1,120 @@
+package net.bytebuddy.dynamic;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ClassFileLocatorNegativeCachingTest {
+
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Mock
+    private ClassFileLocator classFileLocator;
+
+    @Mock
+    private ClassFileLocator.Resolution legal, illegal;
+
+    @Before
+    public void setUp() throws Exception {
+        when(legal.isResolved()).thenReturn(true);
+    }
+
+    @Test
+    public void testMissIsCached() throws Exception {
+        when(classFileLocator.locate(FOO)).thenReturn(illegal);
+        ClassFileLocator.NegativeCaching negativeCaching = ClassFileLocator.NegativeCaching.of(classFileLocator);
+        assertThat(negativeCaching.locate(FOO), is(illegal));
+        assertThat(negativeCaching.locate(FOO).isResolved(), is(false));
+        assertThat(negativeCaching.getRegistry().contains(FOO), is(true));
+        verify(classFileLocator).locate(FOO);
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testHitIsNotCached() throws Exception {
+        when(classFileLocator.locate(FOO)).thenReturn(legal);
+        ClassFileLocator.NegativeCaching negativeCaching = ClassFileLocator.NegativeCaching.of(classFileLocator);
+        assertThat(negativeCaching.locate(FOO), is(legal));
+        assertThat(negativeCaching.locate(FOO), is(legal));
+        assertThat(negativeCaching.getRegistry().size(), is(0));
+        verify(classFileLocator, times(2)).locate(FOO);
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        when(classFileLocator.locate(FOO)).thenReturn(illegal).thenReturn(legal);
+        when(classFileLocator.locate(BAR)).thenReturn(illegal).thenReturn(legal);
+        ClassFileLocator.NegativeCaching negativeCaching = ClassFileLocator.NegativeCaching.of(classFileLocator);
+        assertThat(negativeCaching.locate(FOO), is(illegal));
+        assertThat(negativeCaching.locate(BAR), is(illegal));
+        negativeCaching.getRegistry().invalidate(FOO);
+        assertThat(negativeCaching.locate(FOO), is(legal));
+        assertThat(negativeCaching.locate(BAR).isResolved(), is(false));
+        negativeCaching.getRegistry().clear();
+        assertThat(negativeCaching.locate(BAR), is(legal));
+        verify(classFileLocator, times(2)).locate(FOO);
+        verify(classFileLocator, times(2)).locate(BAR);
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testRegistryEviction() throws Exception {
+        ClassFileLocator.NegativeCaching.Registry registry = new ClassFileLocator.NegativeCaching.Registry(2);
+        registry.register(FOO);
+        registry.register(BAR);
+        assertThat(registry.contains(FOO), is(true));
+        registry.register(QUX);
+        assertThat(registry.size(), is(2));
+        assertThat(registry.contains(FOO), is(true));
+        assertThat(registry.contains(BAR), is(false));
+        assertThat(registry.contains(QUX), is(true));
+        for (int index = 0; index < 100; index++) {
+            registry.register(FOO + index);
+        }
+        assertThat(registry.size(), is(2));
+        assertThat(registry.contains(FOO + 98), is(true));
+        assertThat(registry.contains(FOO + 99), is(true));
+        assertThat(registry.contains(FOO), is(false));
+    }
+
+    @Test
+    public void testRegistryManyNames() throws Exception {
+        ClassFileLocator.NegativeCaching.Registry registry = new ClassFileLocator.NegativeCaching.Registry();
+        for (int index = 0; index < ClassFileLocator.NegativeCaching.Registry.DEFAULT_CAPACITY; index++) {
+            registry.register(FOO + index);
+        }
+        for (int index = 0; index < ClassFileLocator.NegativeCaching.Registry.DEFAULT_CAPACITY; index++) {
+            assertThat(registry.contains(FOO + index), is(true));
+            assertThat(registry.contains(BAR + index), is(false));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegistryIllegalCapacity() throws Exception {
+        new ClassFileLocator.NegativeCaching.Registry(0);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        ClassFileLocator.NegativeCaching.of(classFileLocator).close();
+        verify(classFileLocator).close();
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(ClassFileLocator.NegativeCaching.class).apply();
+    }
+}
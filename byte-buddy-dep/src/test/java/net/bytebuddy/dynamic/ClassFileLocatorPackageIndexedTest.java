@@ -0,0 +1,172 @@
+package net.bytebuddy.dynamic;
+
+import net.bytebuddy.test.utility.MockitoRule;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.mockito.Mock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeThat;
+import static org.mockito.Mockito.*;
+
+public class ClassFileLocatorPackageIndexedTest {
+
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
+
+    private static final int VALUE = 42;
+
+    @Rule
+    public TestRule mockitoRule = new MockitoRule(this);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private ClassFileLocator classFileLocator, otherClassFileLocator;
+
+    @Mock
+    private ClassFileLocator.Resolution legal, illegal;
+
+    @Before
+    public void setUp() throws Exception {
+        when(legal.isResolved()).thenReturn(true);
+    }
+
+    @Test
+    public void testIndexedLocation() throws Exception {
+        when(classFileLocator.locate(FOO + "." + BAR)).thenReturn(illegal);
+        when(otherClassFileLocator.locate(FOO + "." + BAR)).thenReturn(legal);
+        Map<String, List<ClassFileLocator>> index = new HashMap<String, List<ClassFileLocator>>();
+        index.put(FOO, Arrays.asList(classFileLocator, otherClassFileLocator));
+        index.put(QUX, Collections.singletonList(classFileLocator));
+        ClassFileLocator classFileLocator = new ClassFileLocator.PackageIndexed(index, Arrays.asList(this.classFileLocator, otherClassFileLocator));
+        assertThat(classFileLocator.locate(FOO + "." + BAR), is(legal));
+        verify(this.classFileLocator).locate(FOO + "." + BAR);
+        verifyNoMoreInteractions(this.classFileLocator);
+        verify(otherClassFileLocator).locate(FOO + "." + BAR);
+        verifyNoMoreInteractions(otherClassFileLocator);
+    }
+
+    @Test
+    public void testUnindexedPackage() throws Exception {
+        Map<String, List<ClassFileLocator>> index = new HashMap<String, List<ClassFileLocator>>();
+        index.put(FOO, Collections.singletonList(classFileLocator));
+        ClassFileLocator classFileLocator = new ClassFileLocator.PackageIndexed(index, Collections.singletonList(this.classFileLocator));
+        assertThat(classFileLocator.locate(QUX + "." + BAR).isResolved(), is(false));
+        assertThat(classFileLocator.locate(BAR).isResolved(), is(false));
+        verifyZeroInteractions(this.classFileLocator);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        new ClassFileLocator.PackageIndexed(Collections.<String, List<ClassFileLocator>>emptyMap(),
+                Arrays.asList(classFileLocator, otherClassFileLocator)).close();
+        verify(classFileLocator).close();
+        verifyNoMoreInteractions(classFileLocator);
+        verify(otherClassFileLocator).close();
+        verifyNoMoreInteractions(otherClassFileLocator);
+    }
+
+    @Test
+    public void testClassPath() throws Exception {
+        File jar = temporaryFolder.newFile(FOO + ".jar");
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (String name : Arrays.asList(FOO + "/" + BAR + ".class", BAR + ".class", "META-INF/versions/9/" + QUX + "/" + BAR + ".class")) {
+                jarOutputStream.putNextEntry(new JarEntry(name));
+                jarOutputStream.write(VALUE);
+                jarOutputStream.closeEntry();
+            }
+        } finally {
+            jarOutputStream.close();
+        }
+        File folder = temporaryFolder.newFolder(), packageFolder = new File(folder, QUX + File.separator + FOO);
+        assertThat(packageFolder.mkdirs(), is(true));
+        OutputStream outputStream = new FileOutputStream(new File(packageFolder, BAR + ".class"));
+        try {
+            outputStream.write(VALUE * 2);
+        } finally {
+            outputStream.close();
+        }
+        ClassFileLocator classFileLocator = ClassFileLocator.PackageIndexed.ofClassPath(jar.getAbsolutePath()
+                + System.getProperty("path.separator") + folder.getAbsolutePath()
+                + System.getProperty("path.separator") + new File(folder, BAR).getAbsolutePath());
+        try {
+            assertThat(classFileLocator.locate(FOO + "." + BAR).resolve(), is(new byte[]{VALUE}));
+            assertThat(classFileLocator.locate(BAR).resolve(), is(new byte[]{VALUE}));
+            assertThat(classFileLocator.locate(QUX + "." + FOO + "." + BAR).resolve(), is(new byte[]{VALUE * 2}));
+            assertThat(classFileLocator.locate(QUX + "." + BAR).isResolved(), is(false));
+            assertThat(classFileLocator.locate(QUX + "." + FOO + "." + QUX).isResolved(), is(false));
+        } finally {
+            classFileLocator.close();
+        }
+    }
+
+    @Test
+    public void testSymbolicLinkCycle() throws Exception {
+        File folder = temporaryFolder.newFolder(), packageFolder = new File(folder, FOO);
+        assertThat(packageFolder.mkdirs(), is(true));
+        OutputStream outputStream = new FileOutputStream(new File(packageFolder, BAR + ".class"));
+        try {
+            outputStream.write(VALUE);
+        } finally {
+            outputStream.close();
+        }
+        Process process;
+        try {
+            process = new ProcessBuilder("ln", "-s", folder.getAbsolutePath(), new File(packageFolder, QUX).getAbsolutePath()).start();
+        } catch (IOException ignored) {
+            process = null;
+        }
+        assumeThat(process != null && process.waitFor() == 0, is(true));
+        ClassFileLocator classFileLocator = ClassFileLocator.PackageIndexed.ofClassPath(folder.getAbsolutePath());
+        try {
+            assertThat(classFileLocator.locate(FOO + "." + BAR).resolve(), is(new byte[]{VALUE}));
+        } finally {
+            classFileLocator.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testIllegalJarFile() throws Exception {
+        File jar = temporaryFolder.newFile(FOO + ".jar");
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            jarOutputStream.putNextEntry(new JarEntry(FOO + "/" + BAR + ".class"));
+            jarOutputStream.write(VALUE);
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+        File illegal = temporaryFolder.newFile(BAR + ".jar");
+        OutputStream outputStream = new FileOutputStream(illegal);
+        try {
+            outputStream.write(VALUE);
+        } finally {
+            outputStream.close();
+        }
+        ClassFileLocator.PackageIndexed.of(Arrays.asList(jar, illegal));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(ClassFileLocator.PackageIndexed.class).apply();
+    }
+}
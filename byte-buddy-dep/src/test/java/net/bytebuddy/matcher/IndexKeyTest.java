@@ -0,0 +1,103 @@
+package net.bytebuddy.matcher;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IndexKeyTest {
+
+    @Test
+    public void testNameKey() throws Exception {
+        assertThat(IndexKey.of(named(Foo.class.getName())),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.NAME, Foo.class.getName()))));
+        assertThat(IndexKey.of(ElementMatchers.is(Foo.class)),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.NAME, new TypeDescription.ForLoadedType(Foo.class).getActualName()))));
+    }
+
+    @Test
+    public void testNameKeyOfCompiledMatcher() throws Exception {
+        Set<IndexKey> keys = IndexKey.of(compiled(named("foo").or(named("bar"))));
+        assertThat(keys.size(), is(2));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.NAME, "foo")));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.NAME, "bar")));
+    }
+
+    @Test
+    public void testNonExactNameIsNotIndexed() throws Exception {
+        assertThat(IndexKey.of(nameStartsWith("foo")), nullValue(Set.class));
+        assertThat(IndexKey.of(named("foo").or(nameStartsWith("bar"))), nullValue(Set.class));
+        assertThat(IndexKey.of(ElementMatchers.not(named("foo"))), nullValue(Set.class));
+    }
+
+    @Test
+    public void testSuperTypeKey() throws Exception {
+        assertThat(IndexKey.of(isSubTypeOf(Serializable.class)),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.SUPER_TYPE, Serializable.class.getName()))));
+        assertThat(IndexKey.of(isSubTypeOf(int.class)), nullValue(Set.class));
+    }
+
+    @Test
+    public void testAnnotationKey() throws Exception {
+        assertThat(IndexKey.of(isAnnotatedWith(Bar.class)),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.ANNOTATION, new TypeDescription.ForLoadedType(Bar.class).getActualName()))));
+    }
+
+    @Test
+    public void testConjunctionSelectsIndexedSide() throws Exception {
+        assertThat(IndexKey.of(nameStartsWith("foo").and(named("foo.Bar"))),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.NAME, "foo.Bar"))));
+    }
+
+    @Test
+    public void testConjunctionPrefersKeysWithoutHierarchy() throws Exception {
+        assertThat(IndexKey.of(named("foo.Bar").or(named("foo.Qux")).and(isSubTypeOf(Serializable.class))).size(), is(2));
+        assertThat(IndexKey.of(isSubTypeOf(Serializable.class).and(named("foo.Bar").or(named("foo.Qux")))),
+                hasItem(new IndexKey(IndexKey.Sort.NAME, "foo.Bar")));
+        assertThat(IndexKey.conjunction(null, null), nullValue(Set.class));
+    }
+
+    @Test
+    public void testTypeKeys() throws Exception {
+        Set<IndexKey> keys = IndexKey.of(new TypeDescription.ForLoadedType(Foo.class), EnumSet.allOf(IndexKey.Sort.class));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.NAME, new TypeDescription.ForLoadedType(Foo.class).getActualName())));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.ANNOTATION, new TypeDescription.ForLoadedType(Bar.class).getActualName())));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.SUPER_TYPE, Foo.class.getName())));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.SUPER_TYPE, Serializable.class.getName())));
+        assertThat(keys, hasItem(new IndexKey(IndexKey.Sort.SUPER_TYPE, Object.class.getName())));
+    }
+
+    @Test
+    public void testTypeKeysOfSort() throws Exception {
+        assertThat(IndexKey.of(new TypeDescription.ForLoadedType(Foo.class), EnumSet.of(IndexKey.Sort.NAME)),
+                is(Collections.singleton(new IndexKey(IndexKey.Sort.NAME, new TypeDescription.ForLoadedType(Foo.class).getActualName()))));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(IndexKey.class).apply();
+        ObjectPropertyAssertion.of(IndexKey.Sort.class).apply();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Bar {
+        /* empty */
+    }
+
+    @Bar
+    public static class Foo implements Serializable {
+        /* empty */
+    }
+}
@@ -0,0 +1,174 @@
+package net.bytebuddy.matcher;
+
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MultiStringMatcherTest {
+
+    @Test
+    public void testExactValues() throws Exception {
+        MultiStringMatcher matcher = new MultiStringMatcher(Arrays.asList("foo", "bar"),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet());
+        assertThat(matcher.matches("foo"), is(true));
+        assertThat(matcher.matches("bar"), is(true));
+        assertThat(matcher.matches("fo"), is(false));
+        assertThat(matcher.matches("foobar"), is(false));
+    }
+
+    @Test
+    public void testPrefixes() throws Exception {
+        MultiStringMatcher matcher = new MultiStringMatcher(Collections.<String>emptySet(),
+                Arrays.asList("com.sun.", "sun.", "com.sunny"),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet());
+        assertThat(matcher.matches("com.sun.Foo"), is(true));
+        assertThat(matcher.matches("sun.misc.Unsafe"), is(true));
+        assertThat(matcher.matches("com.sunny"), is(true));
+        assertThat(matcher.matches("com.sun"), is(false));
+        assertThat(matcher.matches("com.example.Foo"), is(false));
+        assertThat(matcher.matches(""), is(false));
+    }
+
+    @Test
+    public void testSuffixes() throws Exception {
+        MultiStringMatcher matcher = new MultiStringMatcher(Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Arrays.asList("Test", "Impl"),
+                Collections.<String>emptySet());
+        assertThat(matcher.matches("FooTest"), is(true));
+        assertThat(matcher.matches("FooImpl"), is(true));
+        assertThat(matcher.matches("Impl"), is(true));
+        assertThat(matcher.matches("FooTests"), is(false));
+        assertThat(matcher.matches("mpl"), is(false));
+    }
+
+    @Test
+    public void testInfixes() throws Exception {
+        MultiStringMatcher matcher = new MultiStringMatcher(Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Arrays.asList("he", "she", "his", "hers", "$$"));
+        assertThat(matcher.matches("ushers"), is(true));
+        assertThat(matcher.matches("xhisx"), is(true));
+        assertThat(matcher.matches("Foo$$Proxy"), is(true));
+        assertThat(matcher.matches("hxsx$"), is(false));
+        assertThat(matcher.matches(""), is(false));
+    }
+
+    @Test
+    public void testEmptyValues() throws Exception {
+        assertThat(new MultiStringMatcher(Collections.<String>emptySet(),
+                Collections.singleton(""),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet()).matches("foo"), is(true));
+        assertThat(new MultiStringMatcher(Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.singleton("")).matches("foo"), is(true));
+    }
+
+    @Test
+    public void testEquivalentToDisjunction() throws Exception {
+        Random random = new Random(0);
+        for (int round = 0; round < 50; round++) {
+            ElementMatcher.Junction<String> disjunction = none();
+            for (int index = 0; index < 20; index++) {
+                StringMatcher.Mode mode = new StringMatcher.Mode[]{StringMatcher.Mode.EQUALS_FULLY,
+                        StringMatcher.Mode.STARTS_WITH,
+                        StringMatcher.Mode.ENDS_WITH,
+                        StringMatcher.Mode.CONTAINS}[random.nextInt(4)];
+                disjunction = disjunction.or(new StringMatcher(randomString(random, 1 + random.nextInt(3)), mode));
+            }
+            ElementMatcher.Junction<String> compiled = MultiStringMatcher.compile(disjunction);
+            assertThat(compiled, not(sameInstance((Object) disjunction)));
+            for (int index = 0; index < 200; index++) {
+                String value = randomString(random, random.nextInt(8));
+                assertThat(value, compiled.matches(value), is(disjunction.matches(value)));
+            }
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] value = new char[length];
+        for (int index = 0; index < length; index++) {
+            value[index] = (char) ('a' + random.nextInt(3));
+        }
+        return new String(value);
+    }
+
+    @Test
+    public void testCompileNameDisjunction() throws Exception {
+        ElementMatcher.Junction<TypeDescription> matcher = ElementMatchers.compiled(nameStartsWith("java.")
+                .or(nameStartsWith("sun."))
+                .or(isInterface())
+                .or(named("foo.Bar"))
+                .<TypeDescription>or(nameEndsWith("Test")));
+        assertThat(matcher, is((Object) new ElementMatcher.Junction.Disjunction<TypeDescription>(
+                new NameMatcher<TypeDescription>(new MultiStringMatcher(Collections.singleton("foo.Bar"),
+                        Arrays.asList("java.", "sun."),
+                        Collections.singleton("Test"),
+                        Collections.<String>emptySet())),
+                isInterface())));
+        assertThat(matcher.matches(TypeDescription.OBJECT), is(true));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(Runnable.class)), is(true));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(MultiStringMatcherTest.class)), is(true));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(MultiStringMatcher.class)), is(false));
+    }
+
+    @Test
+    public void testCompileNestedInConjunction() throws Exception {
+        ElementMatcher.Junction<TypeDescription> matcher = ElementMatchers.compiled(ElementMatchers.not(isInterface())
+                .and(nameStartsWith("java.").or(nameStartsWith("sun."))));
+        assertThat(matcher, instanceOf(ElementMatcher.Junction.Conjunction.class));
+        assertThat(matcher.matches(TypeDescription.OBJECT), is(true));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(Runnable.class)), is(false));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(MultiStringMatcher.class)), is(false));
+    }
+
+    @Test
+    public void testNotCompilableRetained() throws Exception {
+        ElementMatcher.Junction<TypeDescription> matcher = nameStartsWith("java.").or(nameStartsWithIgnoreCase("sun.")).or(isInterface());
+        assertThat(ElementMatchers.compiled(matcher), sameInstance(matcher));
+        ElementMatcher.Junction<TypeDescription> single = nameStartsWith("java.");
+        assertThat(ElementMatchers.compiled(single), sameInstance(single));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalMode() throws Exception {
+        MultiStringMatcher.of(Collections.singleton(new StringMatcher("foo", StringMatcher.Mode.MATCHES)));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        MultiStringMatcher matcher = new MultiStringMatcher(Collections.singleton("foo"),
+                Collections.singleton("bar"),
+                Collections.singleton("qux"),
+                Collections.singleton("baz"));
+        assertThat(matcher, is(new MultiStringMatcher(Collections.singleton("foo"),
+                Collections.singleton("bar"),
+                Collections.singleton("qux"),
+                Collections.singleton("baz"))));
+        assertThat(matcher.hashCode(), is(new MultiStringMatcher(Collections.singleton("foo"),
+                Collections.singleton("bar"),
+                Collections.singleton("qux"),
+                Collections.singleton("baz")).hashCode()));
+        assertThat(matcher, not(new MultiStringMatcher(Collections.singleton("foo"),
+                Collections.singleton("bar"),
+                Collections.singleton("qux"),
+                Collections.<String>emptySet())));
+        assertThat(matcher.toString(), is("matchesAny(equals[foo], startsWith[bar], endsWith[qux], contains[baz])"));
+    }
+}
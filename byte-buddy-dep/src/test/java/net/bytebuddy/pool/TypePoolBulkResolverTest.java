@@ -0,0 +1,155 @@
+package net.bytebuddy.pool;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TypePoolBulkResolverTest {
+
+    private static final String FOO = "foo.Bar";
+
+    private ExecutorService executorService;
+
+    private TypePool.CacheProvider cacheProvider;
+
+    private TypePool typePool;
+
+    @Before
+    public void setUp() throws Exception {
+        executorService = Executors.newFixedThreadPool(4);
+        cacheProvider = new TypePool.CacheProvider.Simple();
+        typePool = new TypePool.Default(cacheProvider, ClassFileLocator.ForClassLoader.ofClassPath(), TypePool.Default.ReaderMode.FAST);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testDescribeAll() throws Exception {
+        Map<String, TypePool.Resolution> resolutions = new TypePool.BulkResolver(typePool, executorService).describeAll(String.class.getName(),
+                FOO,
+                Integer.class.getName(),
+                String.class.getName());
+        assertThat(new ArrayList<String>(resolutions.keySet()), is(Arrays.asList(String.class.getName(), FOO, Integer.class.getName())));
+        assertThat(resolutions.get(String.class.getName()).resolve().represents(String.class), is(true));
+        assertThat(resolutions.get(FOO).isResolved(), is(false));
+        assertThat(resolutions.get(Integer.class.getName()).resolve().represents(Integer.class), is(true));
+        assertThat(cacheProvider.find(CharSequence.class.getName()), notNullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(Number.class.getName()), notNullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(Serializable.class.getName()), notNullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(Object.class.getName()), notNullValue(TypePool.Resolution.class));
+    }
+
+    @Test
+    public void testDescribeAllWithoutHierarchy() throws Exception {
+        Map<String, TypePool.Resolution> resolutions = new TypePool.BulkResolver(typePool, executorService, false).describeAll(Integer.class.getName());
+        assertThat(resolutions.size(), is(1));
+        assertThat(resolutions.get(Integer.class.getName()).resolve().represents(Integer.class), is(true));
+        assertThat(cacheProvider.find(Number.class.getName()), nullValue(TypePool.Resolution.class));
+    }
+
+    @Test
+    public void testDescribeAllIsDeterministic() throws Exception {
+        List<String> names = new ArrayList<String>();
+        for (Class<?> type : new Class<?>[]{Object.class, String.class, Integer.class, Long.class, Map.class, List.class, ArrayList.class, Thread.class}) {
+            names.add(type.getName());
+        }
+        TypePool.BulkResolver bulkResolver = new TypePool.BulkResolver(typePool, executorService);
+        Map<String, TypePool.Resolution> first = bulkResolver.describeAll(names), second = bulkResolver.describeAll(names);
+        assertThat(new ArrayList<String>(first.keySet()), is(names));
+        assertThat(first, is(second));
+    }
+
+    @Test(timeout = 10000L)
+    public void testDescribeAllFromTaskOfSameExecutor() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Map<String, TypePool.Resolution> resolutions = executorService.submit(new Callable<Map<String, TypePool.Resolution>>() {
+                public Map<String, TypePool.Resolution> call() {
+                    return new TypePool.BulkResolver(typePool, executorService).describeAll(Integer.class.getName(), String.class.getName());
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertThat(resolutions.get(Integer.class.getName()).resolve().represents(Integer.class), is(true));
+            assertThat(resolutions.get(String.class.getName()).resolve().represents(String.class), is(true));
+            assertThat(cacheProvider.find(Number.class.getName()), notNullValue(TypePool.Resolution.class));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDescribeAllWithRejectingExecutor() throws Exception {
+        executorService.shutdown();
+        Map<String, TypePool.Resolution> resolutions = new TypePool.BulkResolver(typePool, executorService).describeAll(Integer.class.getName());
+        assertThat(resolutions.get(Integer.class.getName()).resolve().represents(Integer.class), is(true));
+        assertThat(cacheProvider.find(Number.class.getName()), notNullValue(TypePool.Resolution.class));
+    }
+
+    @Test
+    public void testLookupDoesNotResolveSuperTypes() throws Exception {
+        TypePool.BulkResolver.Lookup.Result result = new TypePool.BulkResolver.Lookup(typePool, Integer.class.getName(), true, true).call();
+        assertThat(result.getHierarchy(), is(Arrays.asList(Number.class.getName(), Comparable.class.getName())));
+        assertThat(cacheProvider.find(Integer.class.getName()), notNullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(Number.class.getName()), nullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(Comparable.class.getName()), nullValue(TypePool.Resolution.class));
+    }
+
+    @Test
+    public void testLookupOfInterfaceDoesNotNameSuperClass() throws Exception {
+        TypePool.BulkResolver.Lookup.Result result = new TypePool.BulkResolver.Lookup(typePool, Serializable.class.getName(), true, true).call();
+        assertThat(result.getHierarchy().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testLookupWithLazyResolution() throws Exception {
+        TypePool typePool = new TypePool.Default.WithLazyResolution(cacheProvider, ClassFileLocator.ForClassLoader.ofClassPath(), TypePool.Default.ReaderMode.FAST);
+        TypePool.BulkResolver.Lookup.Result result = new TypePool.BulkResolver.Lookup(typePool, Integer.class.getName(), true, true).call();
+        assertThat(result.getHierarchy(), is(Arrays.asList(Number.class.getName(), Comparable.class.getName())));
+        assertThat(cacheProvider.find(Number.class.getName()), nullValue(TypePool.Resolution.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRequestedFailureIsPropagated() throws Exception {
+        TypePool typePool = mock(TypePool.class);
+        when(typePool.describe(FOO)).thenThrow(new IllegalStateException());
+        new TypePool.BulkResolver(typePool, executorService).describeAll(FOO);
+    }
+
+    @Test
+    public void testPrefetchFailureIsIgnored() throws Exception {
+        TypePool.Resolution resolution = mock(TypePool.Resolution.class);
+        when(resolution.isResolved()).thenReturn(true);
+        when(resolution.resolve()).thenThrow(new IllegalStateException());
+        TypePool typePool = mock(TypePool.class);
+        when(typePool.describe(FOO)).thenReturn(resolution);
+        assertThat(new TypePool.BulkResolver(typePool, executorService).describeAll(FOO).get(FOO), is(resolution));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(TypePool.BulkResolver.class).apply();
+        ObjectPropertyAssertion.of(TypePool.BulkResolver.Lookup.class).apply();
+        ObjectPropertyAssertion.of(TypePool.BulkResolver.Lookup.Result.class).apply();
+    }
+}
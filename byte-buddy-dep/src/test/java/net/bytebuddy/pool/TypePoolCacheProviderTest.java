@@ -1,20 +1,30 @@
 package net.bytebuddy.pool;
 
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ClassFileExtraction;
 import net.bytebuddy.test.utility.MockitoRule;
 import net.bytebuddy.test.utility.ObjectPropertyAssertion;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 public class TypePoolCacheProviderTest {
 
-    private static final String FOO = "foo";
+    private static final String FOO = "foo", BAR = "bar", QUX = "qux";
 
     @Rule
     public TestRule mockitoRule = new MockitoRule(this);
@@ -45,9 +55,415 @@ public class TypePoolCacheProviderTest {
         assertThat(simple.find(FOO), sameInstance(resolution));
     }
 
+    @Test
+    public void testBounded() throws Exception {
+        TypePool.CacheProvider.Bounded bounded = new TypePool.CacheProvider.Bounded(2L);
+        assertThat(bounded.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.register(FOO, resolution), sameInstance(resolution));
+        assertThat(bounded.find(FOO), sameInstance(resolution));
+        TypePool.Resolution resolution = mock(TypePool.Resolution.class);
+        assertThat(bounded.register(FOO, resolution), sameInstance(this.resolution));
+        assertThat(bounded.find(FOO), sameInstance(this.resolution));
+        assertThat(bounded.size(), is(1));
+        assertThat(bounded.getWeight(), is(1L));
+        assertThat(bounded.getHitCount(), is(2L));
+        assertThat(bounded.getMissCount(), is(1L));
+        assertThat(bounded.getEvictionCount(), is(0L));
+        bounded.clear();
+        assertThat(bounded.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.size(), is(0));
+        assertThat(bounded.getWeight(), is(0L));
+    }
+
+    @Test
+    public void testBoundedEvictsLeastRecentlyUsed() throws Exception {
+        TypePool.CacheProvider.Bounded bounded = new TypePool.CacheProvider.Bounded(2L);
+        TypePool.Resolution bar = mock(TypePool.Resolution.class), qux = mock(TypePool.Resolution.class);
+        bounded.register(FOO, resolution);
+        bounded.register(BAR, bar);
+        assertThat(bounded.find(FOO), sameInstance(resolution));
+        assertThat(bounded.register(QUX, qux), sameInstance(qux));
+        assertThat(bounded.find(FOO), sameInstance(resolution));
+        assertThat(bounded.find(BAR), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.find(QUX), sameInstance(qux));
+        assertThat(bounded.size(), is(2));
+        assertThat(bounded.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void testBoundedRetainsRegisteredResolution() throws Exception {
+        TypePool.CacheProvider.Bounded bounded = new TypePool.CacheProvider.Bounded(2L);
+        TypePool.Resolution bar = mock(TypePool.Resolution.class), qux = mock(TypePool.Resolution.class);
+        bounded.register(FOO, resolution);
+        bounded.register(BAR, bar);
+        bounded.find(FOO);
+        bounded.find(BAR);
+        assertThat(bounded.register(QUX, qux), sameInstance(qux));
+        assertThat(bounded.find(QUX), sameInstance(qux));
+        assertThat(bounded.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.find(BAR), sameInstance(bar));
+        assertThat(bounded.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void testBoundedWeigher() throws Exception {
+        TypePool.CacheProvider.Bounded.Weigher weigher = mock(TypePool.CacheProvider.Bounded.Weigher.class);
+        TypePool.Resolution bar = mock(TypePool.Resolution.class), qux = mock(TypePool.Resolution.class);
+        when(weigher.weigh(FOO, resolution)).thenReturn(2L);
+        when(weigher.weigh(BAR, bar)).thenReturn(5L);
+        when(weigher.weigh(QUX, qux)).thenReturn(3L);
+        TypePool.CacheProvider.Bounded bounded = new TypePool.CacheProvider.Bounded(4L, weigher);
+        bounded.register(FOO, resolution);
+        assertThat(bounded.register(BAR, bar), sameInstance(bar));
+        assertThat(bounded.find(BAR), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.getWeight(), is(2L));
+        bounded.register(QUX, qux);
+        assertThat(bounded.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(bounded.find(QUX), sameInstance(qux));
+        assertThat(bounded.getWeight(), is(3L));
+        assertThat(bounded.getEvictionCount(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundedIllegalWeight() throws Exception {
+        new TypePool.CacheProvider.Bounded(0L);
+    }
+
+    @Test
+    public void testBoundedWithObjectType() throws Exception {
+        assertThat(TypePool.CacheProvider.Bounded.withObjectType(1L).find(Object.class.getName()).resolve(), is(TypeDescription.OBJECT));
+    }
+
+    @Test
+    public void testUniformWeigher() throws Exception {
+        assertThat(TypePool.CacheProvider.Bounded.Weigher.ForUniformWeight.INSTANCE.weigh(FOO, resolution), is(1L));
+    }
+
+    @Test
+    public void testDeclaredMembersWeigher() throws Exception {
+        assertThat(TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers.INSTANCE.weigh(FOO, resolution), is(1L));
+        verifyZeroInteractions(resolution);
+        TypeDescription typeDescription = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.of(Foo.class.getClassLoader()),
+                TypePool.Default.ReaderMode.FAST).describe(Foo.class.getName()).resolve();
+        assertThat(TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers.INSTANCE.weigh(Foo.class.getName(), new TypePool.Resolution.Simple(typeDescription)),
+                is(1L + typeDescription.getDeclaredFields().size() + typeDescription.getDeclaredMethods().size() + typeDescription.getDeclaredAnnotations().size()));
+        assertThat(TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers.INSTANCE.weigh(Foo.class.getName(), new TypePool.Resolution.Simple(new TypeDescription.ForLoadedType(Foo.class))),
+                is(1L));
+    }
+
+    @Test
+    public void testDeclaredMembersWeigherDoesNotResolveLazyResolution() throws Exception {
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        TypePool.Resolution resolution = new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.NoOp.INSTANCE,
+                classFileLocator,
+                TypePool.Default.ReaderMode.FAST).describe(Foo.class.getName());
+        assertThat(TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers.INSTANCE.weigh(Foo.class.getName(), resolution), is(1L));
+        verifyZeroInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testDeduplicatingDelegates() throws Exception {
+        TypePool.CacheProvider delegate = mock(TypePool.CacheProvider.class);
+        when(delegate.find(FOO)).thenReturn(resolution);
+        when(delegate.register(BAR, resolution)).thenReturn(resolution);
+        TypePool.CacheProvider deduplicating = new TypePool.CacheProvider.Deduplicating(delegate);
+        assertThat(deduplicating.find(FOO), sameInstance(resolution));
+        assertThat(deduplicating.register(BAR, resolution), sameInstance(resolution));
+        deduplicating.clear();
+        verify(delegate).find(FOO);
+        verify(delegate).register(BAR, resolution);
+        verify(delegate).clear();
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void testDeduplicatingResolveFindsRegistered() throws Exception {
+        TypePool.CacheProvider delegate = mock(TypePool.CacheProvider.class);
+        TypePool.CacheProvider.Coordinating.Resolver resolver = mock(TypePool.CacheProvider.Coordinating.Resolver.class);
+        when(delegate.find(FOO)).thenReturn(resolution);
+        assertThat(new TypePool.CacheProvider.Deduplicating(delegate).resolve(FOO, resolver), sameInstance(resolution));
+        verify(delegate).find(FOO);
+        verifyNoMoreInteractions(delegate);
+        verifyZeroInteractions(resolver);
+    }
+
+    @Test
+    public void testDeduplicatingWithObjectType() throws Exception {
+        assertThat(TypePool.CacheProvider.Deduplicating.withObjectType().find(Object.class.getName()).resolve(), is(TypeDescription.OBJECT));
+    }
+
+    @Test
+    public void testDeduplicatingResolve() throws Exception {
+        TypePool.CacheProvider.Coordinating.Resolver resolver = mock(TypePool.CacheProvider.Coordinating.Resolver.class);
+        when(resolver.resolve(FOO)).thenReturn(resolution);
+        TypePool.CacheProvider.Deduplicating deduplicating = new TypePool.CacheProvider.Deduplicating(TypePool.CacheProvider.NoOp.INSTANCE);
+        assertThat(deduplicating.resolve(FOO, resolver), sameInstance(resolution));
+        assertThat(deduplicating.resolve(FOO, resolver), sameInstance(resolution));
+        verify(resolver, times(2)).resolve(FOO);
+        verifyNoMoreInteractions(resolver);
+    }
+
+    @Test
+    public void testDeduplicatingResolveReentrant() throws Exception {
+        final TypePool.CacheProvider.Deduplicating deduplicating = new TypePool.CacheProvider.Deduplicating(TypePool.CacheProvider.NoOp.INSTANCE);
+        assertThat(deduplicating.resolve(FOO, new TypePool.CacheProvider.Coordinating.Resolver() {
+            @Override
+            public TypePool.Resolution resolve(String name) {
+                return deduplicating.resolve(name, new ConstantResolver(resolution));
+            }
+        }), sameInstance(resolution));
+    }
+
+    @Test
+    public void testDeduplicatingResolveAwaitsConcurrentAttempt() throws Exception {
+        final TypePool.CacheProvider.Deduplicating deduplicating = new TypePool.CacheProvider.Deduplicating(TypePool.CacheProvider.NoOp.INSTANCE);
+        final CountDownLatch started = new CountDownLatch(1), proceed = new CountDownLatch(1);
+        final AtomicReference<TypePool.Resolution> first = new AtomicReference<TypePool.Resolution>(), second = new AtomicReference<TypePool.Resolution>();
+        Thread owner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                first.set(deduplicating.resolve(FOO, new TypePool.CacheProvider.Coordinating.Resolver() {
+                    @Override
+                    public TypePool.Resolution resolve(String name) {
+                        started.countDown();
+                        try {
+                            proceed.await();
+                        } catch (InterruptedException exception) {
+                            throw new AssertionError(exception);
+                        }
+                        return resolution;
+                    }
+                }));
+            }
+        });
+        owner.start();
+        started.await();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                second.set(deduplicating.resolve(FOO, new ConstantResolver(mock(TypePool.Resolution.class))));
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10L);
+        }
+        proceed.countDown();
+        owner.join();
+        waiter.join();
+        assertThat(first.get(), sameInstance(resolution));
+        assertThat(second.get(), sameInstance(resolution));
+    }
+
+    @Test
+    public void testDeduplicatingResolveAfterFailedConcurrentAttempt() throws Exception {
+        final TypePool.CacheProvider.Deduplicating deduplicating = new TypePool.CacheProvider.Deduplicating(TypePool.CacheProvider.NoOp.INSTANCE);
+        final CountDownLatch started = new CountDownLatch(1), proceed = new CountDownLatch(1);
+        final AtomicReference<TypePool.Resolution> second = new AtomicReference<TypePool.Resolution>();
+        Thread owner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deduplicating.resolve(FOO, new TypePool.CacheProvider.Coordinating.Resolver() {
+                        @Override
+                        public TypePool.Resolution resolve(String name) {
+                            started.countDown();
+                            try {
+                                proceed.await();
+                            } catch (InterruptedException exception) {
+                                throw new AssertionError(exception);
+                            }
+                            throw new IllegalStateException();
+                        }
+                    });
+                } catch (IllegalStateException ignored) {
+                    /* expected */
+                }
+            }
+        });
+        owner.start();
+        started.await();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                second.set(deduplicating.resolve(FOO, new ConstantResolver(resolution)));
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10L);
+        }
+        proceed.countDown();
+        owner.join();
+        waiter.join();
+        assertThat(second.get(), sameInstance(resolution));
+    }
+
+    @Test
+    public void testDeduplicatingParsesOnceUnderContention() throws Exception {
+        final AtomicInteger parses = new AtomicInteger();
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(Foo.class.getName())).then(new Answer<ClassFileLocator.Resolution>() {
+            @Override
+            public ClassFileLocator.Resolution answer(InvocationOnMock invocationOnMock) throws Throwable {
+                parses.incrementAndGet();
+                Thread.sleep(10L);
+                return new ClassFileLocator.Resolution.Explicit(ClassFileExtraction.extract(Foo.class));
+            }
+        });
+        final TypePool typePool = new TypePool.Default(new TypePool.CacheProvider.Deduplicating(new TypePool.CacheProvider.Simple()),
+                classFileLocator,
+                TypePool.Default.ReaderMode.FAST);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger resolved = new AtomicInteger();
+        Thread[] thread = new Thread[8];
+        for (int index = 0; index < thread.length; index++) {
+            thread[index] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException exception) {
+                        throw new AssertionError(exception);
+                    }
+                    for (int iteration = 0; iteration < 100; iteration++) {
+                        if (typePool.describe(Foo.class.getName()).isResolved()) {
+                            resolved.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            thread[index].start();
+        }
+        start.countDown();
+        for (Thread aThread : thread) {
+            aThread.join();
+        }
+        assertThat(resolved.get(), is(thread.length * 100));
+        assertThat(parses.get(), is(1));
+    }
+
+    @Test
+    public void testNegativeCaching() throws Exception {
+        ClassFileLocator.NegativeCaching.Registry registry = new ClassFileLocator.NegativeCaching.Registry();
+        TypePool.CacheProvider cacheProvider = new TypePool.CacheProvider.NegativeCaching(new TypePool.CacheProvider.Simple(), registry);
+        when(resolution.isResolved()).thenReturn(true);
+        assertThat(cacheProvider.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.register(FOO, resolution), sameInstance(resolution));
+        assertThat(cacheProvider.find(FOO), sameInstance(resolution));
+        TypePool.Resolution illegal = new TypePool.Resolution.Illegal(BAR);
+        assertThat(cacheProvider.register(BAR, illegal), sameInstance(illegal));
+        assertThat(registry.contains(BAR), is(true));
+        assertThat(cacheProvider.find(BAR).isResolved(), is(false));
+        registry.invalidate(BAR);
+        assertThat(cacheProvider.find(BAR), nullValue(TypePool.Resolution.class));
+        cacheProvider.register(BAR, illegal);
+        cacheProvider.clear();
+        assertThat(cacheProvider.find(FOO), nullValue(TypePool.Resolution.class));
+        assertThat(cacheProvider.find(BAR), nullValue(TypePool.Resolution.class));
+    }
+
+    @Test
+    public void testNegativeCachingResolveDelegates() throws Exception {
+        TypePool.CacheProvider.Coordinating delegate = mock(TypePool.CacheProvider.Coordinating.class);
+        TypePool.CacheProvider.Coordinating.Resolver resolver = new ConstantResolver(resolution);
+        when(delegate.resolve(FOO, resolver)).thenReturn(resolution);
+        TypePool.CacheProvider.Coordinating cacheProvider = new TypePool.CacheProvider.NegativeCaching(delegate, new ClassFileLocator.NegativeCaching.Registry());
+        assertThat(cacheProvider.resolve(FOO, resolver), sameInstance(resolution));
+        verify(delegate).resolve(FOO, resolver);
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void testNegativeCachingResolveNonCoordinating() throws Exception {
+        TypePool.CacheProvider delegate = mock(TypePool.CacheProvider.class);
+        TypePool.CacheProvider.Coordinating cacheProvider = new TypePool.CacheProvider.NegativeCaching(delegate, new ClassFileLocator.NegativeCaching.Registry());
+        assertThat(cacheProvider.resolve(FOO, new ConstantResolver(resolution)), sameInstance(resolution));
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void testNegativeCachingRetainsDeduplication() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1), proceed = new CountDownLatch(1);
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(FOO)).then(new Answer<ClassFileLocator.Resolution>() {
+            @Override
+            public ClassFileLocator.Resolution answer(InvocationOnMock invocationOnMock) throws Throwable {
+                started.countDown();
+                proceed.await();
+                return new ClassFileLocator.Resolution.Illegal(FOO);
+            }
+        });
+        final TypePool typePool = new TypePool.Default(new TypePool.CacheProvider.NegativeCaching(new TypePool.CacheProvider.Deduplicating(new TypePool.CacheProvider.Simple()),
+                new ClassFileLocator.NegativeCaching.Registry()), classFileLocator, TypePool.Default.ReaderMode.FAST);
+        Thread owner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                typePool.describe(FOO);
+            }
+        });
+        owner.start();
+        started.await();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                typePool.describe(FOO);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10L);
+        }
+        proceed.countDown();
+        owner.join();
+        waiter.join();
+        verify(classFileLocator).locate(FOO);
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testNegativeCachingWithObjectType() throws Exception {
+        assertThat(TypePool.CacheProvider.NegativeCaching.withObjectType().find(Object.class.getName()).resolve(), is(TypeDescription.OBJECT));
+    }
+
+    @Test
+    public void testNegativeCachingTypePool() throws Exception {
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(FOO)).thenReturn(new ClassFileLocator.Resolution.Illegal(FOO));
+        TypePool typePool = new TypePool.Default(TypePool.CacheProvider.NegativeCaching.withObjectType(), classFileLocator, TypePool.Default.ReaderMode.FAST);
+        assertThat(typePool.describe(FOO).isResolved(), is(false));
+        assertThat(typePool.describe(FOO).isResolved(), is(false));
+        verify(classFileLocator).locate(FOO);
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
     @Test
     public void testSimpleObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(TypePool.CacheProvider.NoOp.class).apply();
         ObjectPropertyAssertion.of(TypePool.CacheProvider.Simple.class).applyBasic();
+        ObjectPropertyAssertion.of(TypePool.CacheProvider.Bounded.class).applyBasic();
+        ObjectPropertyAssertion.of(TypePool.CacheProvider.Bounded.Weigher.ForUniformWeight.class).apply();
+        ObjectPropertyAssertion.of(TypePool.CacheProvider.Bounded.Weigher.ForDeclaredMembers.class).apply();
+        ObjectPropertyAssertion.of(TypePool.CacheProvider.Deduplicating.class).applyBasic();
+        ObjectPropertyAssertion.of(TypePool.CacheProvider.NegativeCaching.class).apply();
+    }
+
+    private static class ConstantResolver implements TypePool.CacheProvider.Coordinating.Resolver {
+
+        private final TypePool.Resolution resolution;
+
+        private ConstantResolver(TypePool.Resolution resolution) {
+            this.resolution = resolution;
+        }
+
+        @Override
+        public TypePool.Resolution resolve(String name) {
+            return resolution;
+        }
+    }
+
+    private static class Foo {
+        /* empty */
     }
 }
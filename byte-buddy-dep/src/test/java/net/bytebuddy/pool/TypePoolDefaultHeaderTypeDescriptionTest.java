@@ -0,0 +1,86 @@
+package net.bytebuddy.pool;
+
+import net.bytebuddy.description.type.AbstractTypeDescriptionTest;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import org.hamcrest.CoreMatchers;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import static net.bytebuddy.matcher.ElementMatchers.is;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TypePoolDefaultHeaderTypeDescriptionTest extends AbstractTypeDescriptionTest {
+
+    @Override
+    protected TypeDescription describe(Class<?> type) {
+        TypePool typePool = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.of(type.getClassLoader()),
+                TypePool.Default.ReaderMode.HEADER);
+        try {
+            return typePool.describe(type.getName()).resolve();
+        } finally {
+            typePool.clear();
+        }
+    }
+
+    @Override
+    protected TypeDescription.Generic describeType(Field field) {
+        return describe(field.getDeclaringClass()).getDeclaredFields().filter(is(field)).getOnly().getType();
+    }
+
+    @Override
+    protected TypeDescription.Generic describeReturnType(Method method) {
+        return describe(method.getDeclaringClass()).getDeclaredMethods().filter(is(method)).getOnly().getReturnType();
+    }
+
+    @Override
+    protected TypeDescription.Generic describeParameterType(Method method, int index) {
+        return describe(method.getDeclaringClass()).getDeclaredMethods().filter(is(method)).getOnly().getParameters().get(index).getType();
+    }
+
+    @Override
+    protected TypeDescription.Generic describeExceptionType(Method method, int index) {
+        return describe(method.getDeclaringClass()).getDeclaredMethods().filter(is(method)).getOnly().getExceptionTypes().get(index);
+    }
+
+    @Override
+    protected TypeDescription.Generic describeSuperClass(Class<?> type) {
+        return describe(type).getSuperClass();
+    }
+
+    @Override
+    protected TypeDescription.Generic describeInterfaceType(Class<?> type, int index) {
+        return describe(type).getInterfaces().get(index);
+    }
+
+    @Test
+    public void testMembersAreParsedLazily() throws Exception {
+        ClassFileLocator classFileLocator = spy(ClassFileLocator.ForClassLoader.ofClassPath());
+        TypePool typePool = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, TypePool.Default.ReaderMode.HEADER);
+        TypeDescription typeDescription = typePool.describe(String.class.getName()).resolve();
+        assertThat(typeDescription, instanceOf(TypePool.Default.HeaderTypeDescription.class));
+        assertThat(typeDescription.getInterfaces().asErasures().contains(new TypeDescription.ForLoadedType(CharSequence.class)), CoreMatchers.is(true));
+        verify(classFileLocator).locate(String.class.getName());
+        assertThat(typeDescription.getDeclaredMethods().filter(named("length")).size(), CoreMatchers.is(1));
+        assertThat(typeDescription.getDeclaredFields().filter(named("value")).size(), CoreMatchers.is(1));
+        verify(classFileLocator, times(2)).locate(String.class.getName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMembersCannotBeLocated() throws Exception {
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(String.class.getName()))
+                .thenReturn(ClassFileLocator.ForClassLoader.read(String.class))
+                .thenReturn(new ClassFileLocator.Resolution.Illegal(String.class.getName()));
+        new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, TypePool.Default.ReaderMode.HEADER)
+                .describe(String.class.getName())
+                .resolve()
+                .getDeclaredMethods();
+    }
+}
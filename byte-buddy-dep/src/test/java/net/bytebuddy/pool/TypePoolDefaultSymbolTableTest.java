@@ -0,0 +1,86 @@
+package net.bytebuddy.pool;
+
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.Serializable;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TypePoolDefaultSymbolTableTest {
+
+    private static final String FOO = "foo";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testNoOp() throws Exception {
+        String value = new String(FOO);
+        assertThat(TypePool.Default.SymbolTable.NoOp.INSTANCE.intern(value), sameInstance(value));
+        assertThat(TypePool.Default.SymbolTable.NoOp.INSTANCE.intern(new String(FOO)), not(sameInstance(value)));
+        assertThat(TypePool.Default.SymbolTable.NoOp.INSTANCE.intern(null), nullValue(String.class));
+        TypePool.Default.SymbolTable.NoOp.INSTANCE.clear();
+    }
+
+    @Test
+    public void testSimple() throws Exception {
+        TypePool.Default.SymbolTable.Simple symbolTable = new TypePool.Default.SymbolTable.Simple();
+        String value = new String(FOO);
+        assertThat(symbolTable.intern(value), sameInstance(value));
+        assertThat(symbolTable.intern(new String(FOO)), sameInstance(value));
+        assertThat(symbolTable.intern(null), nullValue(String.class));
+        assertThat(symbolTable.size(), is(1));
+        symbolTable.clear();
+        assertThat(symbolTable.size(), is(0));
+        assertThat(symbolTable.intern(new String(FOO)), not(sameInstance(value)));
+    }
+
+    @Test
+    public void testSimpleDoesNotRetainUnreferencedStrings() throws Exception {
+        TypePool.Default.SymbolTable.Simple symbolTable = new TypePool.Default.SymbolTable.Simple();
+        symbolTable.intern(new String(FOO));
+        for (int index = 0; index < 10 && symbolTable.size() > 0; index++) {
+            System.gc();
+            Thread.sleep(50L);
+        }
+        assertThat(symbolTable.size(), is(0));
+    }
+
+    @Test
+    public void testLazyResolutionTypePool() throws Exception {
+        TypePool.Default.SymbolTable.Simple symbolTable = new TypePool.Default.SymbolTable.Simple();
+        new TypePool.Default.WithLazyResolution(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                TypePool.Default.ReaderMode.FAST,
+                symbolTable,
+                TypePool.Empty.INSTANCE).describe(Serializable.class.getName()).resolve().getModifiers();
+        assertThat(symbolTable.size() > 0, is(true));
+    }
+
+    @Test
+    public void testPersistentCacheTypePool() throws Exception {
+        TypePool.Default.SymbolTable.Simple symbolTable = new TypePool.Default.SymbolTable.Simple();
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                TypePool.Default.WithPersistentCache.Storage.of(new File(temporaryFolder.getRoot(), FOO)),
+                TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.INSTANCE,
+                symbolTable,
+                TypePool.Empty.INSTANCE).describe(Serializable.class.getName()).resolve();
+        assertThat(symbolTable.size() > 0, is(true));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(TypePool.Default.SymbolTable.NoOp.class).apply();
+        ObjectPropertyAssertion.of(TypePool.Default.SymbolTable.Simple.class).applyBasic();
+    }
+}
@@ -10,7 +10,9 @@ import org.junit.Test;
 import org.objectweb.asm.Opcodes;
 
 import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
@@ -110,6 +112,51 @@ public class TypePoolDefaultTest {
         verifyNoMoreInteractions(classFileLocator);
     }
 
+    @Test
+    public void testTypeIsParsedOnceWithDeduplication() throws Exception {
+        ClassFileLocator classFileLocator = spy(ClassFileLocator.ForClassLoader.ofClassPath());
+        TypePool typePool = new TypePool.Default(TypePool.CacheProvider.Deduplicating.withObjectType(), classFileLocator, TypePool.Default.ReaderMode.FAST);
+        TypePool.Resolution resolution = typePool.describe(String.class.getName());
+        assertThat(typePool.describe(String.class.getName()).resolve(), CoreMatchers.is(resolution.resolve()));
+        assertThat(resolution.resolve().represents(String.class), is(true));
+        assertThat(typePool.describe("foo").isResolved(), is(false));
+        verify(classFileLocator).locate(String.class.getName());
+        verify(classFileLocator).locate("foo");
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testSymbolTableDeduplicatesNames() throws Exception {
+        TypePool.Default.SymbolTable.Simple symbolTable = new TypePool.Default.SymbolTable.Simple();
+        TypePool typePool = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                TypePool.Default.ReaderMode.FAST,
+                symbolTable,
+                TypePool.Empty.INSTANCE);
+        TypeDescription string = typePool.describe(String.class.getName()).resolve(), integer = typePool.describe(Integer.class.getName()).resolve();
+        assertThat(symbolTable.size() > 0, is(true));
+        assertThat(string.getDeclaredMethods().filter(named("hashCode").and(takesArguments(0))).getOnly().getInternalName(),
+                sameInstance(integer.getDeclaredMethods().filter(named("hashCode").and(takesArguments(0))).getOnly().getInternalName()));
+        assertThat(string.getDeclaredMethods().filter(named("hashCode").and(takesArguments(0))).getOnly().getDescriptor(),
+                is(integer.getDeclaredMethods().filter(named("hashCode").and(takesArguments(0))).getOnly().getDescriptor()));
+    }
+
+    @Test
+    public void testClearRetainsSharedSymbolTable() throws Exception {
+        TypePool.Default.SymbolTable symbolTable = mock(TypePool.Default.SymbolTable.class);
+        new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.NoOp.INSTANCE,
+                TypePool.Default.ReaderMode.FAST,
+                symbolTable,
+                TypePool.Empty.INSTANCE).clear();
+        verifyZeroInteractions(symbolTable);
+    }
+
+    @Test
+    public void testCachingResolverObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(TypePool.AbstractBase.CachingResolver.class).apply();
+    }
+
     @Deprecated
     private static class DeprecationSample {
 
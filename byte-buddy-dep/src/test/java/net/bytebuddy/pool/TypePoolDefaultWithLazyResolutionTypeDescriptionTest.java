@@ -109,5 +109,6 @@ public class TypePoolDefaultWithLazyResolutionTypeDescriptionTest extends Abstra
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(TypePool.Default.WithLazyResolution.LazyResolution.class).apply();
+        ObjectPropertyAssertion.of(TypePool.Default.WithLazyResolution.EagerResolver.class).apply();
     }
 }
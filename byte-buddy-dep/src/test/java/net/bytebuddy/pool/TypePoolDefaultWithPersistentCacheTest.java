@@ -0,0 +1,325 @@
+package net.bytebuddy.pool;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TypePoolDefaultWithPersistentCacheTest {
+
+    private static final Random RANDOM = new Random();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStorageRoundTrip() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "types.cache");
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(file);
+        assertThat(storage.size(), is(0));
+        TypeDescription original = new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                storage).describe(Map.Entry.class.getName()).resolve();
+        assertThat(storage.size(), is(1));
+        storage.persist();
+        assertThat(file.isFile(), is(true));
+        TypePool.Default.WithPersistentCache.Storage reloaded = TypePool.Default.WithPersistentCache.Storage.of(file);
+        assertThat(reloaded.size(), is(1));
+        TypeDescription replayed = new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                reloaded).describe(Map.Entry.class.getName()).resolve();
+        assertThat(replayed, instanceOf(TypePool.Default.HeaderTypeDescription.class));
+        assertThat(replayed, is(original));
+        assertThat(replayed, is((TypeDescription) new TypeDescription.ForLoadedType(Map.Entry.class)));
+        assertThat(replayed.getModifiers(), is(Map.Entry.class.getModifiers()));
+        assertThat(replayed.getDeclaringType(), is((TypeDescription) new TypeDescription.ForLoadedType(Map.class)));
+        assertThat(replayed.getDeclaredMethods().filter(named("getKey")).size(), is(1));
+        assertThat(reloaded.size(), is(2));
+    }
+
+    @Test
+    public void testStorageReplay() throws Exception {
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(temporaryFolder.newFile());
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                storage).describe(Serializable.class.getName()).resolve();
+        byte[] fingerprint = TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.fingerprint(ClassFileLocator.ForClassLoader.read(Serializable.class).resolve());
+        TypePool.Default.TypeExtractor typeExtractor = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.NoOp.INSTANCE,
+                TypePool.Default.ReaderMode.HEADER).new HeaderExtractor();
+        assertThat(storage.replay(Serializable.class.getName(), fingerprint, typeExtractor), is(true));
+        assertThat(typeExtractor.toTypeDescription().getName(), is(Serializable.class.getName()));
+        assertThat(storage.replay(Serializable.class.getName(), new byte[fingerprint.length], typeExtractor), is(false));
+        assertThat(storage.replay(Object.class.getName(), fingerprint, typeExtractor), is(false));
+    }
+
+    @Test
+    public void testStaleEntryIsReparsed() throws Exception {
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(temporaryFolder.newFile());
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(Foo.class.getName()))
+                .thenReturn(ClassFileLocator.ForClassLoader.read(Foo.class))
+                .thenReturn(ClassFileLocator.ForClassLoader.read(Bar.class));
+        assertThat(new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, storage)
+                .describe(Foo.class.getName())
+                .resolve()
+                .getName(), is(Foo.class.getName()));
+        assertThat(new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, storage)
+                .describe(Foo.class.getName())
+                .resolve()
+                .getName(), is(Bar.class.getName()));
+        assertThat(storage.size(), is(2));
+    }
+
+    @Test
+    public void testSupersededEntryIsNotPersisted() throws Exception {
+        File file = temporaryFolder.newFile();
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(file);
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(Foo.class.getName()))
+                .thenReturn(ClassFileLocator.ForClassLoader.read(Foo.class))
+                .thenReturn(ClassFileLocator.ForClassLoader.read(Bar.class));
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, storage).describe(Foo.class.getName());
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, storage).describe(Foo.class.getName());
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                storage).describe(Serializable.class.getName());
+        storage.persist();
+        TypePool.Default.WithPersistentCache.Storage reloaded = TypePool.Default.WithPersistentCache.Storage.of(file);
+        assertThat(reloaded.size(), is(3));
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, classFileLocator, reloaded).describe(Foo.class.getName());
+        reloaded.persist();
+        assertThat(TypePool.Default.WithPersistentCache.Storage.of(file).size(), is(2));
+    }
+
+    @Test
+    public void testPersistReleasesMapping() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "types.cache");
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(file);
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                storage).describe(Serializable.class.getName());
+        storage.persist();
+        TypePool.Default.WithPersistentCache.Storage reloaded = TypePool.Default.WithPersistentCache.Storage.of(file);
+        reloaded.persist();
+        reloaded.persist();
+        TypePool.Default.TypeExtractor typeExtractor = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.NoOp.INSTANCE,
+                TypePool.Default.ReaderMode.HEADER).new HeaderExtractor();
+        assertThat(reloaded.replay(Serializable.class.getName(),
+                TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.fingerprint(ClassFileLocator.ForClassLoader.read(Serializable.class).resolve()),
+                typeExtractor), is(true));
+        assertThat(typeExtractor.toTypeDescription().getName(), is(Serializable.class.getName()));
+        assertThat(TypePool.Default.WithPersistentCache.Storage.of(file).size(), is(1));
+    }
+
+    @Test
+    public void testFingerprintIsReplayedWithoutLocatingClassFile() throws Exception {
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(temporaryFolder.newFile());
+        TypePool.Default.WithPersistentCache.Fingerprinter fingerprinter = mock(TypePool.Default.WithPersistentCache.Fingerprinter.class);
+        when(fingerprinter.fingerprint(Foo.class.getName())).thenReturn(new byte[]{1, 2, 3});
+        ClassFileLocator classFileLocator = mock(ClassFileLocator.class);
+        when(classFileLocator.locate(Foo.class.getName())).thenReturn(ClassFileLocator.ForClassLoader.read(Foo.class));
+        assertThat(new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                classFileLocator,
+                storage,
+                fingerprinter,
+                TypePool.Empty.INSTANCE).describe(Foo.class.getName()).resolve().getName(), is(Foo.class.getName()));
+        assertThat(new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                classFileLocator,
+                storage,
+                fingerprinter,
+                TypePool.Empty.INSTANCE).describe(Foo.class.getName()).resolve().getName(), is(Foo.class.getName()));
+        verify(classFileLocator).locate(Foo.class.getName());
+        verifyNoMoreInteractions(classFileLocator);
+    }
+
+    @Test
+    public void testJarFileFingerprint() throws Exception {
+        byte[] binaryRepresentation = ClassFileLocator.ForClassLoader.read(Foo.class).resolve();
+        File file = temporaryFolder.newFile();
+        JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+        try {
+            outputStream.putNextEntry(new JarEntry(Foo.class.getName().replace('.', '/') + ".class"));
+            outputStream.write(binaryRepresentation);
+            outputStream.closeEntry();
+        } finally {
+            outputStream.close();
+        }
+        JarFile jarFile = new JarFile(file);
+        try {
+            TypePool.Default.WithPersistentCache.Fingerprinter fingerprinter = new TypePool.Default.WithPersistentCache.Fingerprinter.ForJarFile(jarFile);
+            assertThat(fingerprinter.fingerprint(Foo.class.getName()), is(jarFingerprint(binaryRepresentation)));
+            assertThat(fingerprinter.fingerprint(Bar.class.getName()), nullValue(byte[].class));
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    @Test
+    public void testJarFileTypePool() throws Exception {
+        byte[] binaryRepresentation = ClassFileLocator.ForClassLoader.read(Foo.class).resolve();
+        File file = temporaryFolder.newFile();
+        JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+        try {
+            outputStream.putNextEntry(new JarEntry(Foo.class.getName().replace('.', '/') + ".class"));
+            outputStream.write(binaryRepresentation);
+            outputStream.closeEntry();
+        } finally {
+            outputStream.close();
+        }
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(temporaryFolder.newFile());
+        JarFile jarFile = new JarFile(file);
+        try {
+            assertThat(TypePool.Default.WithPersistentCache.ofJarFile(TypePool.CacheProvider.NoOp.INSTANCE,
+                    jarFile,
+                    storage,
+                    TypePool.Empty.INSTANCE).describe(Foo.class.getName()).resolve().getName(), is(Foo.class.getName()));
+            TypePool.Default.TypeExtractor typeExtractor = new TypePool.Default(TypePool.CacheProvider.NoOp.INSTANCE,
+                    ClassFileLocator.NoOp.INSTANCE,
+                    TypePool.Default.ReaderMode.HEADER).new HeaderExtractor();
+            assertThat(storage.replay(Foo.class.getName(), jarFingerprint(binaryRepresentation), typeExtractor), is(true));
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    private static byte[] jarFingerprint(byte[] binaryRepresentation) {
+        CRC32 crc = new CRC32();
+        crc.update(binaryRepresentation);
+        return TypePool.Default.WithPersistentCache.Fingerprinter.ForJarFile.fingerprint(binaryRepresentation.length, crc.getValue());
+    }
+
+    @Test
+    public void testClassFileFingerprint() throws Exception {
+        assertThat(TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.INSTANCE.fingerprint(Foo.class.getName()), nullValue(byte[].class));
+        byte[] fingerprint = TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.fingerprint(ClassFileLocator.ForClassLoader.read(Foo.class).resolve());
+        assertThat(fingerprint, is(MessageDigest.getInstance("SHA-256").digest(ClassFileLocator.ForClassLoader.read(Foo.class).resolve())));
+        assertThat(Arrays.equals(fingerprint, TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.fingerprint(ClassFileLocator.ForClassLoader.read(Bar.class).resolve())), is(false));
+    }
+
+    @Test
+    public void testAnnotatedTypeIsStored() throws Exception {
+        File file = temporaryFolder.newFile();
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(file);
+        TypeDescription original = new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.of(Qux.class.getClassLoader()),
+                storage).describe(Qux.class.getName()).resolve();
+        assertThat(original.getDeclaredAnnotations().isAnnotationPresent(Baz.class), is(true));
+        storage.persist();
+        TypeDescription replayed = new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.of(Qux.class.getClassLoader()),
+                TypePool.Default.WithPersistentCache.Storage.of(file)).describe(Qux.class.getName()).resolve();
+        assertThat(replayed.getDeclaredAnnotations(), is(original.getDeclaredAnnotations()));
+        assertThat(replayed.getDeclaredAnnotations(), is(new TypeDescription.ForLoadedType(Qux.class).getDeclaredAnnotations()));
+    }
+
+    @Test
+    public void testPersistDoesNotRetainTemporaryFile() throws Exception {
+        File folder = temporaryFolder.newFolder(), file = new File(folder, "types.cache");
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(file);
+        new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE,
+                ClassFileLocator.ForClassLoader.ofClassPath(),
+                storage).describe(Serializable.class.getName());
+        storage.persist();
+        TypePool.Default.WithPersistentCache.Storage.of(file).persist();
+        assertThat(folder.list(), is(new String[]{file.getName()}));
+    }
+
+    @Test
+    public void testIllegalType() throws Exception {
+        TypePool.Default.WithPersistentCache.Storage storage = TypePool.Default.WithPersistentCache.Storage.of(temporaryFolder.newFile());
+        assertThat(new TypePool.Default.WithPersistentCache(TypePool.CacheProvider.NoOp.INSTANCE, ClassFileLocator.NoOp.INSTANCE, storage)
+                .describe(Foo.class.getName())
+                .isResolved(), is(false));
+        assertThat(storage.size(), is(0));
+    }
+
+    @Test
+    public void testCorruptFileIsIgnored() throws Exception {
+        File file = temporaryFolder.newFile();
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(new byte[]{0x42, 0x42, 0x54, 0x48, 0, 0, 0, 1, 0, 0, 1, 0, 1});
+        } finally {
+            outputStream.close();
+        }
+        assertThat(TypePool.Default.WithPersistentCache.Storage.of(file).size(), is(0));
+    }
+
+    @Test
+    public void testUnknownFormatIsIgnored() throws Exception {
+        File file = temporaryFolder.newFile();
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        } finally {
+            outputStream.close();
+        }
+        assertThat(TypePool.Default.WithPersistentCache.Storage.of(file).size(), is(0));
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(TypePool.Default.WithPersistentCache.class).apply();
+        ObjectPropertyAssertion.of(TypePool.Default.WithPersistentCache.Fingerprinter.ForClassFile.class).apply();
+        ObjectPropertyAssertion.of(TypePool.Default.WithPersistentCache.Fingerprinter.ForJarFile.class).apply();
+        ObjectPropertyAssertion.of(TypePool.Default.WithPersistentCache.Storage.Key.class).create(new ObjectPropertyAssertion.Creator<byte[]>() {
+            @Override
+            public byte[] create() {
+                return new byte[]{(byte) RANDOM.nextInt()};
+            }
+        }).apply();
+    }
+
+    private static class Foo {
+        /* empty */
+    }
+
+    private static class Bar {
+        /* empty */
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    private @interface Baz {
+
+        String value() default "";
+
+        int[] numbers() default {};
+
+        RetentionPolicy policy() default RetentionPolicy.CLASS;
+
+        Class<?> type() default Object.class;
+
+        Retention retention() default @Retention(RetentionPolicy.CLASS);
+    }
+
+    @Baz(value = "qux", numbers = {1, 2, 3}, policy = RetentionPolicy.SOURCE, type = Foo.class, retention = @Retention(RetentionPolicy.RUNTIME))
+    private static class Qux {
+        /* empty */
+    }
+}
@@ -4,6 +4,12 @@ import net.bytebuddy.test.utility.ObjectPropertyAssertion;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -16,6 +22,81 @@ public class StreamDrainerTest {
         assertThat(new StreamDrainer(1).drain(new ByteArrayInputStream(input)), is(input));
     }
 
+    @Test
+    public void testDrainageWithExactSizeHint() throws Exception {
+        byte[] input = new byte[]{1, 2, 3, 4};
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input), input.length), is(input));
+    }
+
+    @Test
+    public void testDrainageWithTooSmallSizeHint() throws Exception {
+        byte[] input = new byte[]{1, 2, 3, 4};
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input), 2), is(input));
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input), 3), is(input));
+    }
+
+    @Test
+    public void testDrainageWithTooLargeSizeHint() throws Exception {
+        byte[] input = new byte[]{1, 2, 3, 4};
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input), 10), is(input));
+    }
+
+    @Test
+    public void testDrainageWithoutSizeHint() throws Exception {
+        byte[] input = new byte[StreamDrainer.DEFAULT_BUFFER_SIZE * 3 + 1];
+        for (int index = 0; index < input.length; index++) {
+            input[index] = (byte) index;
+        }
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input), StreamDrainer.UNDEFINED_SIZE), is(input));
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(new byte[]{1, 2})), is(new byte[]{1, 2}));
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(new byte[0])), is(new byte[0]));
+    }
+
+    @Test
+    public void testDrainageBeyondRetainedSize() throws Exception {
+        byte[] input = new byte[StreamDrainer.DEFAULT_BUFFER_SIZE * 64 + 1];
+        for (int index = 0; index < input.length; index++) {
+            input[index] = (byte) index;
+        }
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input)), is(input));
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(new byte[]{1, 2})), is(new byte[]{1, 2}));
+        assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input)), is(input));
+    }
+
+    @Test
+    public void testConcurrentDrainage() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 32; thread++) {
+                final int size = thread * StreamDrainer.DEFAULT_BUFFER_SIZE + thread;
+                futures.add(executorService.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        byte[] input = new byte[size];
+                        for (int index = 0; index < input.length; index++) {
+                            input[index] = (byte) (index + size);
+                        }
+                        for (int iteration = 0; iteration < 100; iteration++) {
+                            assertThat(StreamDrainer.DEFAULT.drain(new ByteArrayInputStream(input)), is(input));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDrainageWithEmptyBuffer() throws Exception {
+        byte[] input = new byte[]{1, 2, 3, 4};
+        assertThat(new StreamDrainer(0).drain(new ByteArrayInputStream(input)), is(input));
+    }
+
     @Test
     public void testObjectProperties() throws Exception {
         ObjectPropertyAssertion.of(StreamDrainer.class).apply();
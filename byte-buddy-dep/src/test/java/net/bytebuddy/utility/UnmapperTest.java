@@ -0,0 +1,70 @@
+package net.bytebuddy.utility;
+
+import net.bytebuddy.test.utility.ObjectPropertyAssertion;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class UnmapperTest {
+
+    @Test
+    public void testUnmapperIsAvailable() throws Exception {
+        assertThat(AccessController.doPrivileged(Unmapper.CreationAction.INSTANCE), not((Unmapper) Unmapper.Disabled.INSTANCE));
+    }
+
+    @Test
+    public void testUnmap() throws Exception {
+        File file = File.createTempFile("foo", "bar");
+        try {
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                outputStream.write(new byte[]{1, 2, 3});
+            } finally {
+                outputStream.close();
+            }
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            MappedByteBuffer mapping;
+            try {
+                mapping = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+            } finally {
+                randomAccessFile.close();
+            }
+            assertThat(mapping.get(2), is((byte) 3));
+            AccessController.doPrivileged(Unmapper.CreationAction.INSTANCE).unmap(mapping);
+        } finally {
+            assertThat(file.delete(), is(true));
+        }
+    }
+
+    @Test
+    public void testObjectProperties() throws Exception {
+        ObjectPropertyAssertion.of(Unmapper.CreationAction.class).apply();
+        ObjectPropertyAssertion.of(Unmapper.Disabled.class).apply();
+        final Iterator<Method> methods = Arrays.asList(Object.class.getDeclaredMethods()).iterator();
+        ObjectPropertyAssertion.of(Unmapper.ForLegacyVm.class).create(new ObjectPropertyAssertion.Creator<Method>() {
+            @Override
+            public Method create() {
+                return methods.next();
+            }
+        }).apply();
+        ObjectPropertyAssertion.of(Unmapper.ForJava9CapableVm.class).create(new ObjectPropertyAssertion.Creator<Method>() {
+            @Override
+            public Method create() {
+                return methods.next();
+            }
+        }).apply();
+    }
+}